@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmarks;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.storage.index.BitIndexing;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of row values with {@link EntryEncoder} and {@link EntryDecoder}, using each
+ * of the {@link BitIndex} implementations to describe the populated columns.
+ *
+ * Scores are per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(2)
+public class EntryEncodingBenchmark{
+    private static final int NUM_ROWS=1024;
+
+    public enum IndexType{
+        UNCOMPRESSED{
+            @Override
+            BitIndex create(BitSet set,BitSet scalarFields,BitSet floatFields,BitSet doubleFields){
+                return BitIndexing.uncompressedBitMap(set,scalarFields,floatFields,doubleFields);
+            }
+        },
+        SPARSE{
+            @Override
+            BitIndex create(BitSet set,BitSet scalarFields,BitSet floatFields,BitSet doubleFields){
+                return BitIndexing.sparseBitMap(set,scalarFields,floatFields,doubleFields);
+            }
+        },
+        DENSE_COMPRESSED{
+            @Override
+            BitIndex create(BitSet set,BitSet scalarFields,BitSet floatFields,BitSet doubleFields){
+                return BitIndexing.compressedBitMap(set,scalarFields,floatFields,doubleFields);
+            }
+        },
+        /** Whichever index BitIndexing.getBestIndex() picks, which is what the write path uses. */
+        BEST{
+            @Override
+            BitIndex create(BitSet set,BitSet scalarFields,BitSet floatFields,BitSet doubleFields){
+                return BitIndexing.getBestIndex(set,scalarFields,floatFields,doubleFields);
+            }
+        };
+
+        abstract BitIndex create(BitSet set,BitSet scalarFields,BitSet floatFields,BitSet doubleFields);
+    }
+
+    @Param({"NARROW","LINEITEM","WIDE_SPARSE"})
+    public RowShape shape;
+
+    @Param({"UNCOMPRESSED","SPARSE","DENSE_COMPRESSED","BEST"})
+    public IndexType indexType;
+
+    private Object[][] rows;
+    private BitIndex[] indexes;
+    private byte[][] encodedRows;
+    private EntryEncoder encoder;
+    private EntryDecoder decoder;
+
+    @Setup
+    public void setup() throws IOException{
+        rows=shape.generateRows(NUM_ROWS,0L);
+        BitSet scalarFields=shape.scalarFields();
+        BitSet floatFields=shape.floatFields();
+        BitSet doubleFields=shape.doubleFields();
+
+        KryoPool kryoPool=new KryoPool(100);
+        indexes=new BitIndex[NUM_ROWS];
+        encodedRows=new byte[NUM_ROWS][];
+        for(int i=0;i<NUM_ROWS;i++){
+            indexes[i]=indexType.create(shape.setFields(rows[i]),scalarFields,floatFields,doubleFields);
+            if(encoder==null)
+                encoder=EntryEncoder.create(kryoPool,indexes[i]);
+            encodedRows[i]=encodeRow(i);
+        }
+        decoder=new EntryDecoder();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void encode(Blackhole bh) throws IOException{
+        for(int i=0;i<NUM_ROWS;i++){
+            bh.consume(encodeRow(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void decode(Blackhole bh) throws IOException{
+        for(byte[] encodedRow:encodedRows){
+            decoder.set(encodedRow);
+            BitIndex index=decoder.getCurrentIndex();
+            MultiFieldDecoder fieldDecoder=decoder.getEntryDecoder();
+            for(int c=index.nextSetBit(0);c>=0;c=index.nextSetBit(c+1)){
+                bh.consume(shape.decodeField(c,fieldDecoder));
+            }
+        }
+    }
+
+    private byte[] encodeRow(int row) throws IOException{
+        encoder.reset(indexes[row]);
+        shape.encodeSetFields(rows[row],encoder.getEntryEncoder());
+        return encoder.encode();
+    }
+}
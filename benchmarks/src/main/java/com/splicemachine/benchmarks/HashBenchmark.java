@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmarks;
+
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.Hash64;
+import com.splicemachine.hash.HashFunctions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Murmur3 (32-bit) and Murmur2 (64-bit) hashing of row keys and of longs.
+ *
+ * Scores are per hash.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(2)
+public class HashBenchmark{
+    private static final int NUM_KEYS=1024;
+
+    /** The key length in bytes: a long key, a small composite key, and a wide composite key. */
+    @Param({"8","24","128"})
+    public int keyLength;
+
+    private final Hash32 murmur32=HashFunctions.murmur3(0);
+    private final Hash64 murmur64=HashFunctions.murmur2_64(0);
+    private byte[][] keys;
+    private long[] longs;
+
+    @Setup
+    public void setup(){
+        Random random=new Random(0L);
+        keys=new byte[NUM_KEYS][keyLength];
+        longs=new long[NUM_KEYS];
+        for(int i=0;i<NUM_KEYS;i++){
+            random.nextBytes(keys[i]);
+            longs[i]=random.nextLong();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_KEYS)
+    public void murmur32Bytes(Blackhole bh){
+        for(byte[] key:keys){
+            bh.consume(murmur32.hash(key,0,key.length));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_KEYS)
+    public void murmur64Bytes(Blackhole bh){
+        for(byte[] key:keys){
+            bh.consume(murmur64.hash(key,0,key.length));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_KEYS)
+    public void murmur32Long(Blackhole bh){
+        for(long value:longs){
+            bh.consume(murmur32.hash(value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_KEYS)
+    public void murmur64Long(Blackhole bh){
+        for(long value:longs){
+            bh.consume(murmur64.hash(value));
+        }
+    }
+}
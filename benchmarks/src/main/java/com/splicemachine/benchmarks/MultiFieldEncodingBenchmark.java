@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmarks;
+
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of whole rows with {@link MultiFieldEncoder} and {@link MultiFieldDecoder}.
+ *
+ * Scores are per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(2)
+public class MultiFieldEncodingBenchmark{
+    private static final int NUM_ROWS=1024;
+
+    @Param({"NARROW","LINEITEM","WIDE_SPARSE"})
+    public RowShape shape;
+
+    private Object[][] rows;
+    private byte[][] encodedRows;
+    private Object[] decodedRow;
+    private MultiFieldEncoder encoder;
+    private MultiFieldDecoder decoder;
+
+    @Setup
+    public void setup(){
+        rows=shape.generateRows(NUM_ROWS,0L);
+        encoder=MultiFieldEncoder.create(shape.numColumns());
+        encodedRows=new byte[NUM_ROWS][];
+        for(int i=0;i<NUM_ROWS;i++){
+            encoder.reset();
+            shape.encode(rows[i],encoder);
+            encodedRows[i]=encoder.build();
+        }
+        decoder=MultiFieldDecoder.create();
+        decodedRow=new Object[shape.numColumns()];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void encode(Blackhole bh){
+        for(Object[] row:rows){
+            encoder.reset();
+            shape.encode(row,encoder);
+            bh.consume(encoder.build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void decode(Blackhole bh){
+        for(byte[] encodedRow:encodedRows){
+            decoder.set(encodedRow);
+            shape.decode(decoder,decodedRow);
+            bh.consume(decodedRow);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmarks;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.client.BulkWrite;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.client.PipelineEncoding;
+import com.splicemachine.pipeline.utils.BufferPool;
+import com.splicemachine.pipeline.utils.PooledBuffer;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.MOperationFactory;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.data.MExceptionFactory;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of {@link BulkWrites} with {@link PipelineEncoding}, as done for every write RPC.
+ *
+ * Since decoding is lazy, the decode benchmark iterates over every mutation, as the receiving server does.
+ * Scores are per BulkWrites.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(2)
+public class PipelineEncodingBenchmark{
+
+    @Param({"NARROW","LINEITEM","WIDE_SPARSE"})
+    public RowShape shape;
+
+    /** The number of regions the BulkWrites is addressed to. */
+    @Param({"1","8"})
+    public int numRegions;
+
+    /** The number of rows written to each region. */
+    @Param({"100","1000"})
+    public int rowsPerRegion;
+
+    private TxnOperationFactory operationFactory;
+    private BulkWrites bulkWrites;
+    private byte[] encoded;
+    private BufferPool bufferPool;
+
+    @Setup
+    public void setup() throws IOException{
+        operationFactory=new SimpleTxnOperationFactory(MExceptionFactory.INSTANCE,new MOperationFactory(new IncrementingClock()));
+        TxnView txn=new ActiveWriteTxn(1L,1L,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+
+        Object[][] rows=shape.generateRows(numRegions*rowsPerRegion,0L);
+        KryoPool kryoPool=new KryoPool(1);
+        EntryEncoder encoder=null;
+        List<BulkWrite> writes=new ArrayList<>(numRegions);
+        int rowId=0;
+        for(int r=0;r<numRegions;r++){
+            Collection<KVPair> mutations=new ArrayList<>(rowsPerRegion);
+            for(int i=0;i<rowsPerRegion;i++,rowId++){
+                Object[] row=rows[rowId];
+                if(encoder==null)
+                    encoder=EntryEncoder.create(kryoPool,shape.numColumns(),shape.setFields(row),
+                            shape.scalarFields(),shape.floatFields(),shape.doubleFields());
+                else
+                    encoder.reset(shape.setFields(row),shape.scalarFields(),shape.floatFields(),shape.doubleFields());
+                shape.encodeSetFields(row,encoder.getEntryEncoder());
+                mutations.add(new KVPair(Bytes.toBytes((long)rowId),encoder.encode(),KVPair.Type.INSERT));
+            }
+            writes.add(new BulkWrite(mutations,"region"+r));
+        }
+        bulkWrites=new BulkWrites(writes,txn);
+        encoded=PipelineEncoding.encode(operationFactory,bulkWrites);
+        bufferPool=new BufferPool(64*1024*1024L);
+    }
+
+    @Benchmark
+    public byte[] encode(){
+        return PipelineEncoding.encode(operationFactory,bulkWrites);
+    }
+
+    @Benchmark
+    public int encodePooled(){
+        PooledBuffer buffer=PipelineEncoding.encode(operationFactory,bulkWrites,bufferPool);
+        int length=buffer.length();
+        buffer.release();
+        return length;
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh){
+        BulkWrites decoded=PipelineEncoding.decode(operationFactory,encoded);
+        for(BulkWrite bulkWrite:decoded.getBulkWrites()){
+            for(KVPair kvPair:bulkWrite.getMutations()){
+                bh.consume(kvPair);
+            }
+        }
+    }
+}
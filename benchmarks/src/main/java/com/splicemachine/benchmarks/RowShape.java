@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmarks;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * The shapes of row which the benchmarks encode, decode, filter and ship.
+ *
+ * Each shape is a fixed list of column types together with the fraction of its values which are null. Rows are
+ * generated from a fixed seed, so that every run (and every release) benchmarks exactly the same data.
+ */
+public enum RowShape{
+    /** A key-value style row: a long key, a small int and a short string. */
+    NARROW(0f,
+            ColumnType.LONG,ColumnType.INT,ColumnType.SHORT_STRING),
+    /** Modelled on the TPC-H LINEITEM table, which dominates most analytical workloads. */
+    LINEITEM(0f,
+            ColumnType.LONG,ColumnType.LONG,ColumnType.LONG,ColumnType.INT,
+            ColumnType.DECIMAL,ColumnType.DECIMAL,ColumnType.DECIMAL,ColumnType.DECIMAL,
+            ColumnType.SHORT_STRING,ColumnType.SHORT_STRING,
+            ColumnType.INT,ColumnType.INT,ColumnType.INT,
+            ColumnType.SHORT_STRING,ColumnType.SHORT_STRING,ColumnType.LONG_STRING),
+    /** A wide row where most of the columns are null, as seen with denormalized or ETL staging tables. */
+    WIDE_SPARSE(0.75f,wideColumns(64));
+
+    public enum ColumnType{
+        INT{
+            @Override Object generate(Random random){ return random.nextInt(); }
+            @Override void encode(MultiFieldEncoder encoder,Object value){ encoder.encodeNext((Integer)value); }
+            @Override Object decode(MultiFieldDecoder decoder){ return decoder.decodeNextInt(); }
+        },
+        LONG{
+            @Override Object generate(Random random){ return random.nextLong(); }
+            @Override void encode(MultiFieldEncoder encoder,Object value){ encoder.encodeNext((Long)value); }
+            @Override Object decode(MultiFieldDecoder decoder){ return decoder.decodeNextLong(); }
+        },
+        DOUBLE{
+            @Override Object generate(Random random){ return random.nextDouble()*1000000d; }
+            @Override void encode(MultiFieldEncoder encoder,Object value){ encoder.encodeNext((Double)value); }
+            @Override Object decode(MultiFieldDecoder decoder){ return decoder.decodeNextDouble(); }
+            @Override void encodeNull(MultiFieldEncoder encoder){ encoder.encodeEmptyDouble(); }
+            @Override boolean nextIsNull(MultiFieldDecoder decoder){ return decoder.nextIsNullDouble(); }
+            @Override void skip(MultiFieldDecoder decoder){ decoder.skipDouble(); }
+        },
+        DECIMAL{
+            @Override Object generate(Random random){ return BigDecimal.valueOf(random.nextInt(10000000),2); }
+            @Override void encode(MultiFieldEncoder encoder,Object value){ encoder.encodeNext((BigDecimal)value); }
+            @Override Object decode(MultiFieldDecoder decoder){ return decoder.decodeNextBigDecimal(); }
+        },
+        SHORT_STRING{
+            @Override Object generate(Random random){ return randomString(random,1+random.nextInt(16)); }
+            @Override void encode(MultiFieldEncoder encoder,Object value){ encoder.encodeNext((String)value); }
+            @Override Object decode(MultiFieldDecoder decoder){ return decoder.decodeNextString(); }
+        },
+        LONG_STRING{
+            @Override Object generate(Random random){ return randomString(random,44+random.nextInt(100)); }
+            @Override void encode(MultiFieldEncoder encoder,Object value){ encoder.encodeNext((String)value); }
+            @Override Object decode(MultiFieldDecoder decoder){ return decoder.decodeNextString(); }
+        };
+
+        abstract Object generate(Random random);
+
+        abstract void encode(MultiFieldEncoder encoder,Object value);
+
+        abstract Object decode(MultiFieldDecoder decoder);
+
+        void encodeNull(MultiFieldEncoder encoder){
+            encoder.encodeEmpty();
+        }
+
+        boolean nextIsNull(MultiFieldDecoder decoder){
+            return decoder.nextIsNull();
+        }
+
+        void skip(MultiFieldDecoder decoder){
+            decoder.skip();
+        }
+
+        boolean isScalar(){
+            return this==INT || this==LONG;
+        }
+    }
+
+    private final ColumnType[] columns;
+    private final float nullFraction;
+
+    RowShape(float nullFraction,ColumnType... columns){
+        this.nullFraction=nullFraction;
+        this.columns=columns;
+    }
+
+    public int numColumns(){
+        return columns.length;
+    }
+
+    /**
+     * @return {@code numRows} rows of this shape, with null columns represented by {@code null}. The same
+     * seed always produces the same rows.
+     */
+    public Object[][] generateRows(int numRows,long seed){
+        Random random=new Random(seed);
+        Object[][] rows=new Object[numRows][];
+        for(int i=0;i<numRows;i++){
+            Object[] row=new Object[columns.length];
+            for(int c=0;c<columns.length;c++){
+                if(nullFraction>0f && random.nextFloat()<nullFraction) continue;
+                row[c]=columns[c].generate(random);
+            }
+            rows[i]=row;
+        }
+        return rows;
+    }
+
+    /**
+     * Encode every column of the row (including the nulls), as is done for row keys.
+     */
+    public void encode(Object[] row,MultiFieldEncoder encoder){
+        for(int c=0;c<columns.length;c++){
+            if(row[c]==null)
+                columns[c].encodeNull(encoder);
+            else
+                columns[c].encode(encoder,row[c]);
+        }
+    }
+
+    /**
+     * Decode a row written by {@link #encode(Object[], MultiFieldEncoder)}.
+     */
+    public void decode(MultiFieldDecoder decoder,Object[] destination){
+        for(int c=0;c<columns.length;c++){
+            ColumnType type=columns[c];
+            if(type.nextIsNull(decoder)){
+                type.skip(decoder);
+                destination[c]=null;
+            }else
+                destination[c]=type.decode(decoder);
+        }
+    }
+
+    /**
+     * Encode only the non-null columns of the row, as is done for row values.
+     */
+    public void encodeSetFields(Object[] row,MultiFieldEncoder encoder){
+        for(int c=0;c<columns.length;c++){
+            if(row[c]!=null)
+                columns[c].encode(encoder,row[c]);
+        }
+    }
+
+    public Object decodeField(int column,MultiFieldDecoder decoder){
+        return columns[column].decode(decoder);
+    }
+
+    public BitSet setFields(Object[] row){
+        BitSet set=new BitSet(columns.length);
+        for(int c=0;c<columns.length;c++){
+            if(row[c]!=null) set.set(c);
+        }
+        return set;
+    }
+
+    public BitSet scalarFields(){
+        BitSet set=new BitSet(columns.length);
+        for(int c=0;c<columns.length;c++){
+            if(columns[c].isScalar()) set.set(c);
+        }
+        return set;
+    }
+
+    public BitSet doubleFields(){
+        BitSet set=new BitSet(columns.length);
+        for(int c=0;c<columns.length;c++){
+            if(columns[c]==ColumnType.DOUBLE) set.set(c);
+        }
+        return set;
+    }
+
+    public BitSet floatFields(){
+        //none of the shapes have REAL columns
+        return new BitSet(columns.length);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ColumnType[] wideColumns(int numColumns){
+        ColumnType[] types=ColumnType.values();
+        ColumnType[] columns=new ColumnType[numColumns];
+        for(int i=0;i<numColumns;i++){
+            columns[i]=types[i%types.length];
+        }
+        return columns;
+    }
+
+    private static String randomString(Random random,int length){
+        char[] chars=new char[length];
+        for(int i=0;i<length;i++){
+            chars[i]=(char)('a'+random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
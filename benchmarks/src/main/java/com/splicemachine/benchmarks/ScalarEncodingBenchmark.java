@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmarks;
+
+import com.splicemachine.encoding.BigDecimalEncoding;
+import com.splicemachine.encoding.DoubleEncoding;
+import com.splicemachine.encoding.StringEncoding;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The individual String, BigDecimal and double encodings, in both sort orders.
+ *
+ * Scores are per value.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(2)
+public class ScalarEncodingBenchmark{
+    private static final int NUM_VALUES=1024;
+
+    @Param({"false","true"})
+    public boolean desc;
+
+    @Param({"SMALL","MEDIUM","LARGE"})
+    public ValueSize valueSize;
+
+    /**
+     * The size of the generated values. The string lengths correspond to a code, a name and a comment,
+     * and the decimals all have a scale of 2.
+     */
+    public enum ValueSize{
+        SMALL(4,7),
+        MEDIUM(24,18),
+        LARGE(128,38);
+
+        final int stringLength;
+        final int decimalPrecision;
+
+        ValueSize(int stringLength,int decimalPrecision){
+            this.stringLength=stringLength;
+            this.decimalPrecision=decimalPrecision;
+        }
+    }
+
+    private String[] strings;
+    private BigDecimal[] decimals;
+    private double[] doubles;
+    private byte[][] encodedStrings;
+    private byte[][] encodedDecimals;
+    private byte[][] encodedDoubles;
+
+    @Setup
+    public void setup(){
+        Random random=new Random(0L);
+        strings=new String[NUM_VALUES];
+        decimals=new BigDecimal[NUM_VALUES];
+        doubles=new double[NUM_VALUES];
+        encodedStrings=new byte[NUM_VALUES][];
+        encodedDecimals=new byte[NUM_VALUES][];
+        encodedDoubles=new byte[NUM_VALUES][];
+        int stringLength=valueSize.stringLength;
+        int decimalPrecision=valueSize.decimalPrecision;
+        for(int i=0;i<NUM_VALUES;i++){
+            char[] chars=new char[stringLength];
+            for(int c=0;c<stringLength;c++){
+                chars[c]=(char)('a'+random.nextInt(26));
+            }
+            strings[i]=new String(chars);
+            StringBuilder digits=new StringBuilder(decimalPrecision);
+            digits.append(1+random.nextInt(9));
+            for(int d=1;d<decimalPrecision;d++){
+                digits.append(random.nextInt(10));
+            }
+            decimals[i]=new BigDecimal(new BigInteger(digits.toString()),2);
+            doubles[i]=random.nextDouble()*Integer.MAX_VALUE;
+
+            encodedStrings[i]=StringEncoding.toBytes(strings[i],desc);
+            encodedDecimals[i]=BigDecimalEncoding.toBytes(decimals[i],desc);
+            encodedDoubles[i]=DoubleEncoding.toBytes(doubles[i],desc);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VALUES)
+    public void encodeString(Blackhole bh){
+        for(String value:strings){
+            bh.consume(StringEncoding.toBytes(value,desc));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VALUES)
+    public void decodeString(Blackhole bh){
+        for(byte[] value:encodedStrings){
+            bh.consume(StringEncoding.getString(value,desc));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VALUES)
+    public void encodeBigDecimal(Blackhole bh){
+        for(BigDecimal value:decimals){
+            bh.consume(BigDecimalEncoding.toBytes(value,desc));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VALUES)
+    public void decodeBigDecimal(Blackhole bh){
+        for(byte[] value:encodedDecimals){
+            bh.consume(BigDecimalEncoding.toBigDecimal(value,desc));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VALUES)
+    public void encodeDouble(Blackhole bh){
+        for(double value:doubles){
+            bh.consume(DoubleEncoding.toBytes(value,desc));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VALUES)
+    public void decodeDouble(Blackhole bh){
+        for(byte[] value:encodedDoubles){
+            bh.consume(DoubleEncoding.toDouble(value,desc));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.benchmarks;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.SimpleTxnFilter;
+import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
+import com.splicemachine.si.impl.store.CompletedTxnCacheSupplier;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.DataFilter;
+import com.splicemachine.storage.DataScanner;
+import com.splicemachine.storage.MPartition;
+import com.splicemachine.storage.MPut;
+import com.splicemachine.storage.MScan;
+import com.splicemachine.storage.MTxnFilterWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot isolation filtering with {@link SimpleTxnFilter}, over synthetic rows held in a mem_storage
+ * {@link MPartition}.
+ *
+ * {@code scan} measures a full filtered scan of the partition, while {@code filter} feeds the same cells to the
+ * filter directly, so the two together separate the cost of the filter from the cost of reading the cells.
+ * Scores are per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(2)
+public class TxnFilterBenchmark{
+    private static final int NUM_ROWS=4096;
+    private static final int NUM_WRITERS=512;
+    private static final long READER_TXN_ID=10L*NUM_WRITERS+100L;
+    private static final byte[] VALUE=new byte[64];
+
+    /** The number of versions written to each row. */
+    @Param({"1","3"})
+    public int versionsPerRow;
+
+    /** The fraction of versions which have been read-resolved, and so carry a commit timestamp cell. */
+    @Param({"0.0","0.9"})
+    public double resolvedFraction;
+
+    /** The fraction of rows which have been deleted. */
+    @Param({"0.0","0.1"})
+    public double deletedFraction;
+
+    private MPartition partition;
+    private List<List<DataCell>> rows;
+    private TxnView readerTxn;
+    private TxnSupplier txnSupplier;
+
+    @Setup
+    public void setup() throws IOException{
+        /*
+         * Writer k begins at 10k+10 and commits at 10k+15, except that one writer in 16 is
+         * still active, and so is invisible to the reader.
+         */
+        final Map<Long,TxnView> txns=new HashMap<>();
+        long[] writerIds=new long[NUM_WRITERS];
+        for(int k=0;k<NUM_WRITERS;k++){
+            long txnId=10L*k+10L;
+            writerIds[k]=txnId;
+            if(k%16==15)
+                txns.put(txnId,new ActiveWriteTxn(txnId,txnId,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+            else
+                txns.put(txnId,new CommittedTxn(txnId,txnId+5L));
+        }
+        txnSupplier=new CompletedTxnCacheSupplier(new MapTxnSupplier(txns),1024,16);
+        readerTxn=new ActiveWriteTxn(READER_TXN_ID,READER_TXN_ID,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+
+        Random random=new Random(0L);
+        partition=new MPartition("benchmark","benchmark");
+        for(int i=0;i<NUM_ROWS;i++){
+            byte[] key=Bytes.toBytes((long)i);
+            MPut put=new MPut(key);
+            //versions are written by increasing transactions, as they would be in practice
+            int writer=random.nextInt(NUM_WRITERS-versionsPerRow);
+            for(int v=0;v<versionsPerRow;v++,writer++){
+                long txnId=writerIds[writer];
+                put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,txnId,VALUE);
+                TxnView txn=txns.get(txnId);
+                if(txn.getState()==Txn.State.COMMITTED && random.nextDouble()<resolvedFraction){
+                    put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,
+                            txnId,Bytes.toBytes(txn.getCommitTimestamp()));
+                }
+            }
+            if(random.nextDouble()<deletedFraction)
+                put.tombstone(writerIds[writer]);
+            partition.put(put);
+        }
+
+        rows=new ArrayList<>(NUM_ROWS);
+        try(DataScanner scanner=partition.openScanner(new MScan().filter(new IncludeAll()))){
+            List<DataCell> row;
+            while(!(row=scanner.next(-1)).isEmpty()){
+                rows.add(new ArrayList<>(row));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void scan(Blackhole bh) throws IOException{
+        DataFilter filter=new MTxnFilterWrapper(newFilter());
+        try(DataScanner scanner=partition.openScanner(new MScan().filter(filter))){
+            List<DataCell> row;
+            while(!(row=scanner.next(-1)).isEmpty()){
+                bh.consume(row);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void filter(Blackhole bh) throws IOException{
+        SimpleTxnFilter filter=newFilter();
+        for(List<DataCell> row:rows){
+            filter.nextRow();
+            for(DataCell cell:row){
+                bh.consume(filter.filterCell(cell));
+            }
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private SimpleTxnFilter newFilter(){
+        return new SimpleTxnFilter("benchmark",readerTxn,NoOpReadResolver.INSTANCE,txnSupplier);
+    }
+
+    private static class IncludeAll implements DataFilter{
+        @Override public ReturnCode filterCell(DataCell keyValue){ return ReturnCode.INCLUDE; }
+        @Override public boolean filterRow(){ return false; }
+        @Override public void reset(){ }
+    }
+
+    /**
+     * Stands in for the transaction table. It's wrapped in the same caches that the region servers use,
+     * so that lookups are as cheap as they would be against a warm server.
+     */
+    private static class MapTxnSupplier implements TxnSupplier{
+        private final Map<Long,TxnView> txns;
+
+        MapTxnSupplier(Map<Long,TxnView> txns){
+            this.txns=txns;
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId){
+            if(txnId==-1l) return Txn.ROOT_TRANSACTION;
+            return txns.get(txnId);
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId,boolean getDestinationTables){
+            return getTransaction(txnId);
+        }
+
+        @Override public boolean transactionCached(long txnId){ return false; }
+        @Override public void cache(TxnView toCache){ }
+        @Override public TxnView getTransactionFromCache(long txnId){ return null; }
+    }
+}
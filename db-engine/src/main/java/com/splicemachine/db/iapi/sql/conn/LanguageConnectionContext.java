@@ -49,6 +49,7 @@ import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.impl.sql.execute.TriggerExecutionContext;
 import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.impl.sql.execute.TriggerExecutionStack;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -883,6 +884,21 @@ public interface LanguageConnectionContext extends Context {
         public PreparedStatement prepareInternalStatement(String sqlText) 
 	    throws StandardException;
 
+	/**
+	 * Return a PreparedStatement object for a statement which the application executes directly,
+	 * rather than preparing it. If derby.language.autoParameterize is set, the literals of the statement
+	 * are first replaced by parameters, so that it can share a cached plan with statements which
+	 * differ from it only in their constants.
+	 *
+	 * @param compilationSchema schema
+	 * @param sqlText sql query string
+	 * @param isForReadOnly read only status for resultset
+	 * @param literals filled in with the values of the returned statement's parameters, in order, if its
+	 *                 literals were replaced. Left empty if the statement was prepared from sqlText as is.
+	 */
+	PreparedStatement prepareDirectStatement(SchemaDescriptor compilationSchema, String sqlText,
+			boolean isForReadOnly, List<String> literals) throws StandardException;
+
 	/**
 	 * Control whether or not optimizer trace is on.
 	 *
@@ -33,6 +33,8 @@ import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 
 import com.splicemachine.db.iapi.store.access.TransactionController;
 
+import java.util.List;
+
 /**
 	Dependency Manager Interface
 	<p>
@@ -448,6 +450,14 @@ public interface DependencyManager {
 	public ProviderInfo[] getPersistentProviderInfos(ProviderList pl)
 			throws StandardException;
 
+	/**
+	 * Get all of the providers of the given dependent, persistent or not.
+	 *
+	 * @exception StandardException		Thrown on error.
+	 */
+	public List<Provider> getProviders(Dependent dependent)
+			throws StandardException;
+
 	/**
 	 * Clear the in memory column bit map information in any table descriptor
 	 * provider in a provider list.  This function needs to be called before
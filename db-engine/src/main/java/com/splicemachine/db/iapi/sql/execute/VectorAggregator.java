@@ -0,0 +1,65 @@
+/*
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified this file.
+ *
+ * All Splice Machine modifications are Copyright 2012 - 2016 Splice Machine, Inc.,
+ * and are licensed to you under the License; you may not use this file except in
+ * compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.iapi.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+/**
+ * An ExecAggregator which can accumulate an entire vector of primitive values
+ * in a single call, instead of being handed one DataValueDescriptor at a time.
+ * <P>
+ * Only the positions listed in the first <code>numSelected</code> entries of
+ * <code>selected</code> are accumulated. A position whose <code>nulls</code> flag
+ * is set is treated exactly as a null addend would be by
+ * {@link ExecAggregator#accumulate}.
+ */
+public interface VectorAggregator extends ExecAggregator
+{
+	/**
+	 * Accumulate a vector of integral values.
+	 *
+	 * @param values	the values to accumulate
+	 * @param nulls		whether or not each position is null
+	 * @param selected	the positions to accumulate
+	 * @param numSelected	the number of valid entries in <code>selected</code>
+	 * @param scratch	a descriptor of the input column's type, which the aggregator
+	 *                 	is free to overwrite. Aggregators which need a typed value
+	 *                 	(e.g. MAX) use it rather than creating one of their own.
+	 *
+	 * @exception StandardException on error
+	 */
+	void accumulate(long[] values,boolean[] nulls,int[] selected,int numSelected,
+					DataValueDescriptor scratch) throws StandardException;
+
+	/**
+	 * Accumulate a vector of floating point values.
+	 *
+	 * @see #accumulate(long[], boolean[], int[], int, DataValueDescriptor)
+	 */
+	void accumulate(double[] values,boolean[] nulls,int[] selected,int numSelected,
+					DataValueDescriptor scratch) throws StandardException;
+}
@@ -146,6 +146,25 @@ public interface StoreCostController extends RowCountable{
                           boolean includeStart,
                           DataValueDescriptor stop,boolean includeStop);
 
+    /**
+     * Get the fraction of the rows which a scan has to read when it skips the store files that
+     * cannot hold a value in the specified range of the specified column.
+     * <p/>
+     * If the store files of the conglomerate don't record the range of their values, then
+     * this should be 1.0d
+     *
+     * @param columnNumber the id of the column to perform estimate for (indexed from 1)
+     * @param start        the value for the start of the range, or {@code null} if no start is estimated
+     * @param includeStart whether to include the start value in the estimate
+     * @param stop         the value for the stop of the range, or {@code null} if no stop is estimated
+     * @param includeStop  whether to include the stop value in the estimate
+     * @return an estimate of the fraction of rows which are read
+     */
+    double getZoneMapScanFraction(int columnNumber,
+                                  DataValueDescriptor start,
+                                  boolean includeStart,
+                                  DataValueDescriptor stop,boolean includeStop);
+
     /**
      * @return the total number of rows in the store (including null and non-null)
      */
@@ -37,6 +37,8 @@ import com.splicemachine.db.iapi.jdbc.EngineStatement;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 import com.splicemachine.db.iapi.util.InterruptStatus;
 /*
@@ -609,13 +611,19 @@ public class EmbedStatement extends ConnectionChild implements EngineStatement {
             try {
                 Activation activation;
                 try {
-                    PreparedStatement preparedStatement = lcc.prepareInternalStatement
+                    List<String> literals = new ArrayList<>();
+                    PreparedStatement preparedStatement = lcc.prepareDirectStatement
                             (lcc.getDefaultSchema(), sql, resultSetConcurrency ==
-                                    java.sql.ResultSet.CONCUR_READ_ONLY, false);
+                                    java.sql.ResultSet.CONCUR_READ_ONLY, literals);
                     activation =
                             preparedStatement.getActivation(lcc, resultSetType ==
                                     java.sql.ResultSet.TYPE_SCROLL_INSENSITIVE);
                     checkRequiresCallableStatement(activation);
+                    // the statement's literals were replaced by parameters, so put them back
+                    ParameterValueSet parameters = activation.getParameterValueSet();
+                    for (int i = 0; i < literals.size(); i++) {
+                        parameters.getParameterForSet(i).setValue(literals.get(i));
+                    }
                     InterruptStatus.restoreIntrFlagIfSeen(lcc);
                 } catch (Throwable t) {
                     throw handleException(t);
@@ -57,6 +57,7 @@ import com.splicemachine.db.impl.sql.compile.StatementNode;
 import java.sql.SQLWarning;
 import java.sql.Timestamp;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Basic implementation of prepared statement. Relies on implementation of ResultDescription and Statement that
@@ -140,6 +141,10 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
     protected long compileTime;
     protected Timestamp beginCompileTimestamp;
     protected Timestamp endCompileTimestamp;
+    // wall clock time of the last compilation, which is what a cache hit saves
+    protected volatile long compileNanos;
+    // how often this statement has been executed, which decides what the persistent statement cache keeps
+    private final LongAdder executionCount = new LongAdder();
 
     //private boolean finished;
     protected boolean isValid;
@@ -291,6 +296,7 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         if (activation == null || activation.getPreparedStatement() != this) {
             throw StandardException.newException(SQLState.LANG_WRONG_ACTIVATION, "execute");
         }
+        executionCount.increment();
 
         recompileOutOfDatePlan:
         while (true) {
@@ -453,6 +459,28 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         return compileTime;
     }
 
+    /**
+     * @return the wall clock time the last compilation of this statement took, in nanoseconds
+     */
+    public long getCompileNanos(){
+        return compileNanos;
+    }
+
+    void setCompileNanos(long compileNanos){
+        this.compileNanos=compileNanos;
+    }
+
+    /**
+     * @return the number of times this statement has been executed
+     */
+    public long getExecutionCount(){
+        return executionCount.sum();
+    }
+
+    void addExecutions(long executions){
+        executionCount.add(executions);
+    }
+
     /**
      * Get the parse time for the associated query in milliseconds.
      *
@@ -1050,6 +1078,10 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         this.execSchemaName = execSchemaName;
     }
 
+    String getExecuteStatementName() {
+        return execStmtName;
+    }
+
     /**
      * Get a new prepared statement that is a shallow copy of the current one.
      *
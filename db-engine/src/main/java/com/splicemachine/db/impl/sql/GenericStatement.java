@@ -194,6 +194,10 @@ public class GenericStatement implements Statement{
 
     public String getCompilationSchema(){ return compilationSchema.getDescriptorName(); }
 
+    boolean isForReadOnly(){ return isForReadOnly; }
+
+    int getPrepareIsolationLevel(){ return prepareIsolationLevel; }
+
     /**
      * Return the {@link PreparedStatement} currently associated with this
      * statement.
@@ -389,7 +393,14 @@ public class GenericStatement implements Statement{
                 cc.setReliability(CompilerContext.INTERNAL_SQL_LEGAL);
             }
 
+            long compileStart=System.nanoTime();
             fourPhasePrepare(lcc,paramDefaults,timestamps,beginTimestamp,foundInCache,cc);
+            preparedStmt.setCompileNanos(System.nanoTime()-compileStart);
+            if(cacheMe){
+                PersistentStatementCache persistentCache=lcc.getDataDictionary().getDataDictionaryCache().getPersistentStatementCache();
+                if(persistentCache!=null)
+                    persistentCache.describe(preparedStmt,lcc);
+            }
         }catch(StandardException se){
             if(foundInCache)
                 ((GenericLanguageConnectionContext)lcc).removeStatement(this);
@@ -56,6 +56,9 @@ public class GenericStorablePreparedStatement extends GenericPreparedStatement
     private ByteArray byteCode;
     private String className;
 
+    // the providers this statement was compiled against, for the persistent statement cache
+    private PersistentStatementCache.Description persistentDescription;
+
     /**
      * Default constructor, for formatable only.
      */
@@ -126,6 +129,14 @@ public class GenericStorablePreparedStatement extends GenericPreparedStatement
         setActivationClass(gc);
     }
 
+    PersistentStatementCache.Description getPersistentDescription() {
+        return persistentDescription;
+    }
+
+    void setPersistentDescription(PersistentStatementCache.Description persistentDescription) {
+        this.persistentDescription = persistentDescription;
+    }
+
     @Override
     public ExecPreparedStatement getClone() throws StandardException {
         GenericStorablePreparedStatement clone = new GenericStorablePreparedStatement(statement);
@@ -0,0 +1,326 @@
+/*
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified this file.
+ *
+ * All Splice Machine modifications are Copyright 2012 - 2016 Splice Machine, Inc.,
+ * and are licensed to you under the License; you may not use this file except in
+ * compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import com.splicemachine.db.iapi.reference.Limits;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Rewrites the text of a DML statement so that its literals become parameters.
+ *
+ * Statements which differ only in their constants then have the same text, and so can share a single
+ * entry in the statement cache. Each literal is replaced by {@code CAST(? AS <type>)}, where the type is exactly
+ * the type that the parser would have given the literal: INTEGER, BIGINT or DECIMAL(p,s) for exact numerics,
+ * DOUBLE for approximate ones, and CHAR(n) for strings. Because the types are part of the rewritten text, two
+ * statements only share a plan when their literals have the same types.
+ *
+ * The rewrite is deliberately conservative. Only literals in a WHERE or ON clause, in the SET clause of an
+ * UPDATE or in the VALUES clause of an INSERT are replaced; literals in select lists, GROUP BY, ORDER BY,
+ * FETCH/OFFSET and type specifications can change the shape of the statement, and are left alone. So are
+ * literals whose value the optimizer looks at to estimate selectivity (LIKE patterns and the operands of
+ * typed DATE, TIME and TIMESTAMP literals), hex literals, and empty strings. Comments (which may carry
+ * optimizer hints) and quoted identifiers are copied unchanged. Statements which already contain
+ * parameters or JDBC escape syntax are not rewritten at all.
+ *
+ * A rewritten statement may still fail to compile (e.g. a built-in function which requires a constant
+ * argument), so callers must be prepared to fall back to the original text.
+ */
+public final class LiteralParameterizer{
+
+    private static final Set<String> STATEMENT_KINDS=words("SELECT","INSERT","UPDATE","DELETE");
+
+    /* Keywords which start a clause whose literals are never replaced */
+    private static final Set<String> CONSTANT_CLAUSES=words("SELECT","FROM","INTO","GROUP","ORDER","HAVING",
+            "FETCH","OFFSET","TOP","LIMIT","UNION","INTERSECT","EXCEPT","FOR","JOIN","WITH");
+
+    /* Keywords whose following literal is kept, because its value (not just its type) matters to the optimizer */
+    private static final Set<String> VALUE_SENSITIVE=words("LIKE","ESCAPE","DATE","TIME","TIMESTAMP");
+
+    /* Type names whose parenthesized length, precision or scale must stay a literal */
+    private static final Set<String> TYPE_NAMES=words("CHAR","CHARACTER","VARCHAR","VARYING","DECIMAL","DEC",
+            "NUMERIC","FLOAT","BLOB","CLOB","BINARY");
+
+    private LiteralParameterizer(){ }
+
+    /**
+     * A statement whose literals have been replaced by parameters.
+     */
+    public static final class Result{
+        private final String text;
+        private final List<String> literals;
+
+        Result(String text,List<String> literals){
+            this.text=text;
+            this.literals=Collections.unmodifiableList(literals);
+        }
+
+        /**
+         * @return the rewritten statement text
+         */
+        public String getText(){
+            return text;
+        }
+
+        /**
+         * @return the values of the replaced literals, in parameter order. Strings are unquoted,
+         * and numbers are exactly as written.
+         */
+        public List<String> getLiterals(){
+            return literals;
+        }
+    }
+
+    /**
+     * @param sql the statement text
+     * @return the rewritten statement, or {@code null} if the statement is not eligible or has no
+     * literals which could be replaced
+     */
+    public static Result parameterize(String sql){
+        String statementKind=firstKeyword(sql);
+        if(!STATEMENT_KINDS.contains(statementKind)) return null;
+
+        int length=sql.length();
+        StringBuilder text=new StringBuilder(length+32);
+        List<String> literals=new ArrayList<>();
+
+        /*
+         * replace[depth] tells whether literals at that parenthesis depth may be replaced. A parenthesized
+         * expression starts out like its enclosing clause, until it begins a clause of its own (e.g. a subquery)
+         */
+        boolean[] replace=new boolean[8];
+        int depth=0;
+        String previousWord=null;
+        /*
+         * A literal compared with another literal (e.g. WHERE 1=0) is a constant predicate which the optimizer
+         * folds away, so such statements are left alone. comparison is 1 just after a literal, and 2 after a
+         * literal followed by a comparison operator
+         */
+        int comparison=0;
+        int pos=0;
+        while(pos<length){
+            char c=sql.charAt(pos);
+            char next=pos+1<length?sql.charAt(pos+1):0;
+            if(c=='-' && next=='-'){
+                int end=sql.indexOf('\n',pos);
+                end=end<0?length:end;
+                text.append(sql,pos,end);
+                pos=end;
+            }else if(c=='/' && next=='*'){
+                int end=sql.indexOf("*/",pos+2);
+                if(end<0) return null;
+                text.append(sql,pos,end+2);
+                pos=end+2;
+            }else if(c=='"'){
+                int end=endOfQuoted(sql,pos,'"');
+                if(end<0) return null;
+                text.append(sql,pos,end);
+                pos=end;
+                previousWord=null;
+                comparison=0;
+            }else if(c=='?' || c=='{' || c==';'){
+                return null;
+            }else if(c=='\''){
+                int end=endOfQuoted(sql,pos,'\'');
+                if(end<0 || comparison==2) return null;
+                String value=sql.substring(pos+1,end-1).replace("''","'");
+                if(replace[depth] && !VALUE_SENSITIVE.contains(previousWord)
+                        && value.length()>0 && value.length()<=Limits.DB2_CHAR_MAXWIDTH){
+                    text.append("CAST(? AS CHAR(").append(value.length()).append("))");
+                    literals.add(value);
+                }else
+                    text.append(sql,pos,end);
+                pos=end;
+                previousWord=null;
+                comparison=1;
+            }else if(Character.isDigit(c) || (c=='.' && Character.isDigit(next))){
+                if(comparison==2) return null;
+                int end=endOfNumber(sql,pos);
+                String number=sql.substring(pos,end);
+                String type=null;
+                if(replace[depth] && !VALUE_SENSITIVE.contains(previousWord)
+                        && (end>=length || !isIdentifierPart(sql.charAt(end))))
+                    type=numericType(number);
+                if(type!=null){
+                    text.append("CAST(? AS ").append(type).append(')');
+                    literals.add(number);
+                }else
+                    text.append(number);
+                pos=end;
+                previousWord=null;
+                comparison=1;
+            }else if(isIdentifierStart(c)){
+                int end=pos+1;
+                while(end<length && isIdentifierPart(sql.charAt(end))) end++;
+                String word=sql.substring(pos,end).toUpperCase(Locale.ENGLISH);
+                if(end<length && sql.charAt(end)=='\'' && word.equals("X")){
+                    //a hex literal: copy it along with its prefix
+                    int hexEnd=endOfQuoted(sql,end,'\'');
+                    if(hexEnd<0) return null;
+                    end=hexEnd;
+                    word=null;
+                }else if(word.equals("WHERE") || word.equals("ON"))
+                    replace[depth]=true;
+                else if(word.equals("SET"))
+                    replace[depth]=statementKind.equals("UPDATE");
+                else if(word.equals("VALUES"))
+                    replace[depth]=statementKind.equals("INSERT");
+                else if(CONSTANT_CLAUSES.contains(word))
+                    replace[depth]=false;
+                text.append(sql,pos,end);
+                pos=end;
+                previousWord=word;
+                comparison=0;
+            }else{
+                if(c=='('){
+                    depth++;
+                    if(depth==replace.length) replace=Arrays.copyOf(replace,2*depth);
+                    replace[depth]=replace[depth-1] && !TYPE_NAMES.contains(previousWord);
+                }else if(c==')'){
+                    if(depth==0) return null;
+                    depth--;
+                }
+                text.append(c);
+                pos++;
+                if(c=='=' || c=='<' || c=='>' || c=='!')
+                    comparison=comparison==0?0:2;
+                else if(!Character.isWhitespace(c))
+                    comparison=0;
+                if(!Character.isWhitespace(c)) previousWord=null;
+            }
+        }
+        if(literals.isEmpty()) return null;
+        return new Result(text.toString(),literals);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * @return the first keyword of the statement, skipping any leading comments and parentheses
+     */
+    private static String firstKeyword(String sql){
+        int length=sql.length();
+        int pos=0;
+        while(pos<length){
+            char c=sql.charAt(pos);
+            if(Character.isWhitespace(c) || c=='('){
+                pos++;
+            }else if(c=='-' && sql.startsWith("--",pos)){
+                int end=sql.indexOf('\n',pos);
+                if(end<0) return null;
+                pos=end+1;
+            }else if(c=='/' && sql.startsWith("/*",pos)){
+                int end=sql.indexOf("*/",pos+2);
+                if(end<0) return null;
+                pos=end+2;
+            }else break;
+        }
+        int end=pos;
+        while(end<length && isIdentifierPart(sql.charAt(end))) end++;
+        return sql.substring(pos,end).toUpperCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return the position just past the closing quote of the quoted token starting at {@code start},
+     * or -1 if it is not terminated. Doubled quotes are escapes.
+     */
+    private static int endOfQuoted(String sql,int start,char quote){
+        int pos=start+1;
+        while(pos<sql.length()){
+            if(sql.charAt(pos)==quote){
+                if(pos+1<sql.length() && sql.charAt(pos+1)==quote)
+                    pos+=2;
+                else
+                    return pos+1;
+            }else
+                pos++;
+        }
+        return -1;
+    }
+
+    private static int endOfNumber(String sql,int start){
+        int length=sql.length();
+        int pos=start;
+        while(pos<length && Character.isDigit(sql.charAt(pos))) pos++;
+        if(pos<length && sql.charAt(pos)=='.'){
+            pos++;
+            while(pos<length && Character.isDigit(sql.charAt(pos))) pos++;
+        }
+        if(pos<length && (sql.charAt(pos)=='e' || sql.charAt(pos)=='E')){
+            int exponent=pos+1;
+            if(exponent<length && (sql.charAt(exponent)=='+' || sql.charAt(exponent)=='-')) exponent++;
+            if(exponent<length && Character.isDigit(sql.charAt(exponent))){
+                pos=exponent;
+                while(pos<length && Character.isDigit(sql.charAt(pos))) pos++;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * @return the type the parser gives the numeric literal, or {@code null} if the literal should be
+     * left for the parser to deal with
+     */
+    private static String numericType(String number){
+        if(number.indexOf('e')>=0 || number.indexOf('E')>=0)
+            return "DOUBLE";
+        if(number.indexOf('.')<0){
+            try{
+                Integer.parseInt(number);
+                return "INTEGER";
+            }catch(NumberFormatException ignored){ }
+            try{
+                Long.parseLong(number);
+                return "BIGINT";
+            }catch(NumberFormatException ignored){ }
+        }
+        SQLDecimal decimal=new SQLDecimal(new BigDecimal(number));
+        int precision=decimal.getDecimalValuePrecision();
+        if(precision>Limits.DB2_MAX_DECIMAL_PRECISION_SCALE) return null;
+        return "DECIMAL("+Math.max(precision,1)+","+decimal.getDecimalValueScale()+")";
+    }
+
+    private static boolean isIdentifierStart(char c){
+        return Character.isLetter(c) || c=='_';
+    }
+
+    private static boolean isIdentifierPart(char c){
+        return Character.isLetterOrDigit(c) || c=='_' || c=='$' || c=='#' || c=='@';
+    }
+
+    private static Set<String> words(String... words){
+        return new HashSet<>(Arrays.asList(words));
+    }
+}
@@ -0,0 +1,649 @@
+/*
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified this file.
+ *
+ * All Splice Machine modifications are Copyright 2012 - 2016 Splice Machine, Inc.,
+ * and are licensed to you under the License; you may not use this file except in
+ * compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import com.splicemachine.db.catalog.Dependable;
+import com.splicemachine.db.catalog.UUID;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.info.ProductVersionHolder;
+import com.splicemachine.db.iapi.services.io.FormatIdInputStream;
+import com.splicemachine.db.iapi.services.io.FormatIdOutputStream;
+import com.splicemachine.db.iapi.services.io.Formatable;
+import com.splicemachine.db.iapi.services.io.FormatableBitSet;
+import com.splicemachine.db.iapi.services.monitor.ModuleFactory;
+import com.splicemachine.db.iapi.services.monitor.Monitor;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.depend.DependencyManager;
+import com.splicemachine.db.iapi.sql.depend.Provider;
+import com.splicemachine.db.iapi.sql.depend.ProviderInfo;
+import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.ConstraintDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.PartitionStatisticsDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.StatementColumnPermission;
+import com.splicemachine.db.iapi.sql.dictionary.StatementPermission;
+import com.splicemachine.db.iapi.sql.dictionary.StatementRoutinePermission;
+import com.splicemachine.db.iapi.sql.dictionary.StatementTablePermission;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.TriggerDescriptor;
+import com.splicemachine.db.iapi.store.access.TransactionController;
+import com.splicemachine.db.impl.sql.depend.BasicProviderInfo;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the compiled form of the most frequently executed statements on disk, so that a restarted
+ * server does not have to compile them again.
+ *
+ * A statement is written out as its {@link GenericStorablePreparedStatement} (the generated activation
+ * class, together with the constant action, saved objects and result description that the optimizer produced),
+ * its required permissions, and the persistent providers it depended upon when it was compiled. Each
+ * provider is stored with a fingerprint of its current definition: for a table, its conglomerates, columns,
+ * constraints, triggers and statistics. The entries which are read back at boot are kept pending until their
+ * statement is next looked up in the statement cache. They are then restored (rather than compiled) only
+ * if every provider still exists and still has the same fingerprint; otherwise the statement is compiled
+ * as usual. DDL against a provider drops the pending entries which depend upon it, while restored statements
+ * are registered with the dependency manager, and so are invalidated like any other.
+ *
+ * Only statements whose compiled form does not depend on the connection which compiled them are kept: not
+ * those which reference the SESSION schema, stored or EXECUTE STATEMENT statements, statements with compile
+ * time warnings, or statements whose constant action or saved objects cannot be serialized.
+ *
+ * The generated classes and constant actions are only meaningful to the build which compiled them, so the file
+ * records the product version and build number, and is discarded at boot if they differ from the running engine's.
+ */
+public class PersistentStatementCache{
+    private static final Logger LOG=Logger.getLogger(PersistentStatementCache.class);
+
+    static final String FILE_NAME="statements.dat";
+    private static final int FORMAT_VERSION=2;
+
+    private static final byte TABLE_PERMISSION=1;
+    private static final byte COLUMN_PERMISSION=2;
+    private static final byte ROUTINE_PERMISSION=3;
+
+    private final File directory;
+    private final int maxEntries;
+    private final String productVersion;
+    // entries read from disk, whose statements have not been looked up since
+    private final ConcurrentMap<Key,Entry> pending=new ConcurrentHashMap<>();
+    private final AtomicLong restoredCount=new AtomicLong();
+    private final AtomicLong rejectedCount=new AtomicLong();
+
+    public PersistentStatementCache(File directory,int maxEntries){
+        this(directory,maxEntries,engineVersion());
+    }
+
+    PersistentStatementCache(File directory,int maxEntries,String productVersion){
+        this.directory=directory;
+        this.maxEntries=maxEntries;
+        this.productVersion=productVersion;
+    }
+
+    /**
+     * Read the entries written by the last {@link #save(Collection)}, keeping the {@code maxEntries}
+     * most frequently executed. A missing or unreadable file leaves the cache empty, and a file written
+     * by a different version of the product is deleted.
+     */
+    public void load(){
+        File file=new File(directory,FILE_NAME);
+        List<Entry> entries;
+        try(InputStream in=new BufferedInputStream(new FileInputStream(file))){
+            entries=readEntries(in,productVersion);
+        }catch(FileNotFoundException fnfe){
+            return;
+        }catch(VersionMismatchException vme){
+            LOG.info("Discarding the persistent statement cache in "+file+": "+vme.getMessage());
+            if(!file.delete())
+                LOG.warn("Unable to delete "+file);
+            return;
+        }catch(IOException ioe){
+            LOG.warn("Unable to read the persistent statement cache from "+file+", ignoring it",ioe);
+            return;
+        }
+        Collections.sort(entries,BY_EXECUTION_COUNT);
+        for(Entry entry:entries.subList(0,Math.min(maxEntries,entries.size()))){
+            pending.put(entry.key,entry);
+        }
+        if(LOG.isInfoEnabled())
+            LOG.info("Loaded "+pending.size()+" statements from the persistent statement cache");
+    }
+
+    /**
+     * @return the statements which were read at boot and have not been restored yet, the most frequently
+     * executed first
+     */
+    public List<Key> getPendingStatements(){
+        List<Entry> entries=new ArrayList<>(pending.values());
+        Collections.sort(entries,BY_EXECUTION_COUNT);
+        List<Key> keys=new ArrayList<>(entries.size());
+        for(Entry entry:entries){
+            keys.add(entry.key);
+        }
+        return keys;
+    }
+
+    public long getRestoredCount(){
+        return restoredCount.get();
+    }
+
+    public long getRejectedCount(){
+        return rejectedCount.get();
+    }
+
+    /**
+     * Record the providers of a statement which has just been compiled, and their fingerprints, so that
+     * the statement can be saved later. Statements which cannot be kept are left without a description.
+     */
+    public void describe(GenericStorablePreparedStatement ps,LanguageConnectionContext lcc){
+        ps.setPersistentDescription(null);
+        if(!isPersistable(ps)) return;
+        try{
+            DataDictionary dd=lcc.getDataDictionary();
+            TransactionController tc=lcc.getTransactionCompile();
+            List<Provider> providerList=dd.getDependencyManager().getProviders(ps);
+            ProviderInfo[] providers=new ProviderInfo[providerList.size()];
+            long[] fingerprints=new long[providers.length];
+            for(int i=0;i<providers.length;i++){
+                Provider p=providerList.get(i);
+                if(!p.isPersistent()) return; //e.g. the cursor of a positioned update
+                providers[i]=new BasicProviderInfo(p.getObjectID(),p.getDependableFinder(),p.getObjectName());
+                fingerprints[i]=fingerprint(p,dd,tc);
+            }
+            ps.setPersistentDescription(new Description(providers,fingerprints));
+        }catch(StandardException se){
+            if(LOG.isDebugEnabled())
+                LOG.debug("Unable to describe statement "+ps.getSource()+" for the persistent statement cache",se);
+        }
+    }
+
+    /**
+     * Restore the statement from its pending entry, if there is one and all of its providers are unchanged.
+     *
+     * @return the restored statement, valid and registered with the dependency manager, or {@code null} if
+     * the statement must be compiled
+     */
+    public GenericStorablePreparedStatement restore(GenericStatement statement,LanguageConnectionContext lcc){
+        if(pending.isEmpty()) return null;
+        Entry entry=pending.remove(new Key(statement.getCompilationSchema(),statement.getSource(),
+                statement.isForReadOnly(),statement.getPrepareIsolationLevel()));
+        if(entry==null) return null;
+
+        GenericStorablePreparedStatement ps=new GenericStorablePreparedStatement(statement);
+        DependencyManager dm=null;
+        try{
+            FormatIdInputStream in=new FormatIdInputStream(new ByteArrayInputStream(entry.payload));
+            ProviderInfo[] providers=new ProviderInfo[in.readInt()];
+            long[] fingerprints=new long[providers.length];
+            for(int i=0;i<providers.length;i++){
+                providers[i]=(ProviderInfo)in.readObject();
+                fingerprints[i]=in.readLong();
+            }
+            List<StatementPermission> permissions=readPermissions(in);
+            ps.readExternal(in);
+            ps.loadGeneratedClass();
+
+            DataDictionary dd=lcc.getDataDictionary();
+            TransactionController tc=lcc.getTransactionCompile();
+            dm=dd.getDependencyManager();
+            for(int i=0;i<providers.length;i++){
+                Dependable d=providers[i].getDependableFinder().getDependable(dd,providers[i].getObjectId());
+                if(!(d instanceof Provider)){
+                    reject(ps,dm,lcc,"provider "+providers[i].getProviderName()+" no longer exists");
+                    return null;
+                }
+                /*
+                 * Register the dependency before checking the fingerprint, so that DDL which
+                 * happens after the check invalidates the statement
+                 */
+                Provider p=(Provider)d;
+                dm.addDependency(ps,p,lcc.getContextManager());
+                if(fingerprint(p,dd,tc)!=fingerprints[i]){
+                    reject(ps,dm,lcc,"provider "+providers[i].getProviderName()+" has changed");
+                    return null;
+                }
+            }
+            ps.setRequiredPermissionsList(permissions);
+            ps.setCompileNanos(entry.compileNanos);
+            ps.addExecutions(entry.executionCount);
+            ps.setPersistentDescription(new Description(providers,fingerprints));
+            ps.setValid();
+        }catch(StandardException|IOException|ClassNotFoundException|RuntimeException|LinkageError e){
+            //LinkageError: the generated class no longer links against this build's classes
+            reject(ps,dm,lcc,e.toString());
+            return null;
+        }
+        restoredCount.incrementAndGet();
+        if(LOG.isDebugEnabled())
+            LOG.debug("Restored statement "+statement.getSource());
+        return ps;
+    }
+
+    /**
+     * Drop the pending entries which depend on the given provider, which is being changed.
+     */
+    public void invalidate(UUID providerId){
+        if(pending.isEmpty()) return;
+        String id=providerId.toString();
+        for(Entry entry:pending.values()){
+            for(String provider:entry.providerIds){
+                if(provider.equals(id)){
+                    if(pending.remove(entry.key,entry) && LOG.isDebugEnabled())
+                        LOG.debug("Dropping pending statement "+entry.key.text+" on a change to provider "+id);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the most frequently executed of the given statements, and of the entries which are still
+     * pending, to disk. The file is replaced atomically, so a crash during a save leaves the last one intact.
+     */
+    public synchronized void save(Collection<GenericStorablePreparedStatement> statements){
+        List<Entry> entries=new ArrayList<>(statements.size()+pending.size());
+        for(GenericStorablePreparedStatement ps:statements){
+            Entry entry=toEntry(ps);
+            if(entry!=null) entries.add(entry);
+        }
+        entries.addAll(pending.values());
+        Collections.sort(entries,BY_EXECUTION_COUNT);
+        entries=entries.subList(0,Math.min(maxEntries,entries.size()));
+
+        File tmp=new File(directory,FILE_NAME+".tmp");
+        File file=new File(directory,FILE_NAME);
+        try{
+            if(!directory.isDirectory() && !directory.mkdirs())
+                throw new IOException("Unable to create directory "+directory);
+            try(OutputStream out=new BufferedOutputStream(new FileOutputStream(tmp))){
+                writeEntries(entries,productVersion,out);
+            }
+            if(!tmp.renameTo(file)){
+                //not every platform can rename over an existing file
+                if(!file.delete() || !tmp.renameTo(file))
+                    throw new IOException("Unable to rename "+tmp+" to "+file);
+            }
+            if(LOG.isDebugEnabled())
+                LOG.debug("Saved "+entries.size()+" statements to the persistent statement cache");
+        }catch(IOException ioe){
+            LOG.warn("Unable to save the persistent statement cache to "+file,ioe);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*package-private and private helper methods*/
+
+    static boolean isPersistable(GenericStorablePreparedStatement ps){
+        if(ps.referencesSessionSchema()
+                || ps.getSPSName()!=null
+                || ps.getExecuteStatementName()!=null
+                || ps.getCompileTimeWarnings()!=null)
+            return false;
+        if(ps.getConstantAction()!=null && !(ps.getConstantAction() instanceof Formatable))
+            return false; //DDL
+        List permissions=ps.getRequiredPermissionsList();
+        if(permissions!=null){
+            for(Object permission:permissions){
+                if(!(permission instanceof StatementTablePermission) && !(permission instanceof StatementRoutinePermission))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a hash of everything about the provider that the compiled form of a statement may depend upon
+     */
+    static long fingerprint(Provider p,DataDictionary dd,TransactionController tc) throws StandardException{
+        long hash=p.getClassType().hashCode();
+        if(p instanceof TableDescriptor){
+            TableDescriptor td=(TableDescriptor)p;
+            hash=mix(hash,td.getHeapConglomerateId());
+            hash=mix(hash,String.valueOf(td.getVersion()).hashCode());
+            for(ColumnDescriptor cd:td.getColumnDescriptorList()){
+                hash=mix(hash,cd.getPosition());
+                hash=mix(hash,cd.getColumnName().hashCode());
+                hash=mix(hash,cd.getType().getSQLstring().hashCode());
+            }
+            for(ConglomerateDescriptor cd:td.getConglomerateDescriptorList()){
+                hash=mix(hash,cd.getConglomerateNumber());
+                if(cd.isIndex())
+                    hash=mix(hash,Arrays.hashCode(cd.getIndexDescriptor().baseColumnPositions()));
+            }
+            for(ConstraintDescriptor cd:dd.getConstraintDescriptors(td)){
+                hash=mix(hash,cd.getUUID().toString().hashCode());
+                hash=mix(hash,cd.isEnabled()?1:0);
+            }
+            for(Object o:dd.getTriggerDescriptors(td)){
+                TriggerDescriptor trigger=(TriggerDescriptor)o;
+                hash=mix(hash,trigger.getUUID().toString().hashCode());
+                hash=mix(hash,trigger.isEnabled()?1:0);
+            }
+            List<PartitionStatisticsDescriptor> stats=dd.getPartitionStatistics(td.getHeapConglomerateId(),tc);
+            if(stats!=null){
+                hash=mix(hash,stats.size());
+                for(PartitionStatisticsDescriptor psd:stats){
+                    hash=mix(hash,psd.getTimestamp());
+                }
+            }
+        }else if(p instanceof ConglomerateDescriptor){
+            hash=mix(hash,((ConglomerateDescriptor)p).getConglomerateNumber());
+        }else{
+            String name=p.getObjectName();
+            hash=mix(hash,name==null?0:name.hashCode());
+        }
+        return hash;
+    }
+
+    private static long mix(long hash,long value){
+        return 31*hash+value;
+    }
+
+    private Entry toEntry(GenericStorablePreparedStatement ps){
+        if(!(ps.statement instanceof GenericStatement)) return null;
+        GenericStatement statement=(GenericStatement)ps.statement;
+        ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+        Description description;
+        long compileNanos;
+        long executionCount;
+        /*
+         * Hold the statement's lock, so that it cannot begin to recompile while we write it out. Statements
+         * which are out of date, or were compiled before the cache existed, are skipped.
+         */
+        synchronized(ps){
+            description=ps.getPersistentDescription();
+            try{
+                if(description==null || !ps.upToDate()) return null;
+            }catch(StandardException se){
+                return null;
+            }
+            compileNanos=ps.getCompileNanos();
+            executionCount=ps.getExecutionCount();
+            try{
+                FormatIdOutputStream out=new FormatIdOutputStream(bytes);
+                out.writeInt(description.providers.length);
+                for(int i=0;i<description.providers.length;i++){
+                    out.writeObject(description.providers[i]);
+                    out.writeLong(description.fingerprints[i]);
+                }
+                writePermissions(ps.getRequiredPermissionsList(),out);
+                ps.writeExternal(out);
+                out.flush();
+            }catch(IOException|RuntimeException e){
+                //most likely a saved object which is not Formatable
+                if(LOG.isDebugEnabled())
+                    LOG.debug("Unable to serialize statement "+statement.getSource(),e);
+                return null;
+            }
+        }
+        String[] providerIds=new String[description.providers.length];
+        for(int i=0;i<providerIds.length;i++){
+            providerIds[i]=description.providers[i].getObjectId().toString();
+        }
+        Key key=new Key(statement.getCompilationSchema(),statement.getSource(),
+                statement.isForReadOnly(),statement.getPrepareIsolationLevel());
+        return new Entry(key,executionCount,compileNanos,providerIds,bytes.toByteArray());
+    }
+
+    private void reject(GenericStorablePreparedStatement ps,DependencyManager dm,LanguageConnectionContext lcc,String reason){
+        rejectedCount.incrementAndGet();
+        if(LOG.isDebugEnabled())
+            LOG.debug("Unable to restore statement "+ps.getSource()+": "+reason);
+        if(dm!=null){
+            try{
+                dm.clearDependencies(lcc,ps);
+            }catch(StandardException se){
+                LOG.warn("Unable to clear the dependencies of an unrestored statement",se);
+            }
+        }
+    }
+
+    private static void writePermissions(List permissions,FormatIdOutputStream out) throws IOException{
+        if(permissions==null){
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(permissions.size());
+        for(Object o:permissions){
+            if(o instanceof StatementColumnPermission){
+                StatementColumnPermission permission=(StatementColumnPermission)o;
+                out.writeByte(COLUMN_PERMISSION);
+                out.writeObject(permission.getTableUUID());
+                out.writeInt(permission.getPrivType());
+                out.writeObject(permission.getColumns());
+            }else if(o instanceof StatementTablePermission){
+                StatementTablePermission permission=(StatementTablePermission)o;
+                out.writeByte(TABLE_PERMISSION);
+                out.writeObject(permission.getTableUUID());
+                out.writeInt(permission.getPrivType());
+            }else{
+                out.writeByte(ROUTINE_PERMISSION);
+                out.writeObject(((StatementRoutinePermission)o).getRoutineUUID());
+            }
+        }
+    }
+
+    private static List<StatementPermission> readPermissions(FormatIdInputStream in) throws IOException, ClassNotFoundException{
+        int size=in.readInt();
+        if(size<0) return null;
+        List<StatementPermission> permissions=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            byte type=in.readByte();
+            switch(type){
+                case COLUMN_PERMISSION:
+                    permissions.add(new StatementColumnPermission((UUID)in.readObject(),in.readInt(),(FormatableBitSet)in.readObject()));
+                    break;
+                case TABLE_PERMISSION:
+                    permissions.add(new StatementTablePermission((UUID)in.readObject(),in.readInt()));
+                    break;
+                case ROUTINE_PERMISSION:
+                    permissions.add(new StatementRoutinePermission((UUID)in.readObject()));
+                    break;
+                default:
+                    throw new IOException("Unknown permission type "+type);
+            }
+        }
+        return permissions;
+    }
+
+    static void writeEntries(List<Entry> entries,String productVersion,OutputStream os) throws IOException{
+        DataOutputStream out=new DataOutputStream(os);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(productVersion);
+        out.writeInt(entries.size());
+        for(Entry entry:entries){
+            out.writeUTF(entry.key.schemaName);
+            byte[] text=entry.key.text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+            out.writeBoolean(entry.key.readOnly);
+            out.writeInt(entry.key.isolationLevel);
+            out.writeLong(entry.executionCount);
+            out.writeLong(entry.compileNanos);
+            out.writeInt(entry.providerIds.length);
+            for(String providerId:entry.providerIds){
+                out.writeUTF(providerId);
+            }
+            out.writeInt(entry.payload.length);
+            out.write(entry.payload);
+        }
+        out.flush();
+    }
+
+    static List<Entry> readEntries(InputStream is,String productVersion) throws IOException{
+        DataInputStream in=new DataInputStream(is);
+        int version=in.readInt();
+        if(version!=FORMAT_VERSION)
+            throw new VersionMismatchException("unknown format version "+version);
+        String writtenBy=in.readUTF();
+        if(!writtenBy.equals(productVersion))
+            throw new VersionMismatchException("written by version "+writtenBy+", but this is version "+productVersion);
+        int size=in.readInt();
+        List<Entry> entries=new ArrayList<>(Math.min(size,1024));
+        try{
+            for(int i=0;i<size;i++){
+                String schemaName=in.readUTF();
+                byte[] text=new byte[in.readInt()];
+                in.readFully(text);
+                boolean readOnly=in.readBoolean();
+                int isolationLevel=in.readInt();
+                long executionCount=in.readLong();
+                long compileNanos=in.readLong();
+                String[] providerIds=new String[in.readInt()];
+                for(int j=0;j<providerIds.length;j++){
+                    providerIds[j]=in.readUTF();
+                }
+                byte[] payload=new byte[in.readInt()];
+                in.readFully(payload);
+                Key key=new Key(schemaName,new String(text,StandardCharsets.UTF_8),readOnly,isolationLevel);
+                entries.add(new Entry(key,executionCount,compileNanos,providerIds,payload));
+            }
+        }catch(EOFException eof){
+            //a truncated file; keep the entries we could read
+            LOG.warn("The persistent statement cache is truncated after "+entries.size()+" entries");
+        }
+        return entries;
+    }
+
+    /**
+     * @return the version and build number of the running engine
+     */
+    private static String engineVersion(){
+        ModuleFactory monitor=Monitor.getMonitor();
+        ProductVersionHolder version=monitor==null?null:monitor.getEngineVersion();
+        return version==null?"unknown":version.getVersionBuildString(true);
+    }
+
+    private static final Comparator<Entry> BY_EXECUTION_COUNT=new Comparator<Entry>(){
+        @Override
+        public int compare(Entry o1,Entry o2){
+            return Long.compare(o2.executionCount,o1.executionCount);
+        }
+    };
+
+    /**
+     * What a statement is looked up by in the statement cache.
+     */
+    public static final class Key{
+        private final String schemaName;
+        private final String text;
+        private final boolean readOnly;
+        private final int isolationLevel;
+
+        Key(String schemaName,String text,boolean readOnly,int isolationLevel){
+            this.schemaName=schemaName;
+            this.text=text;
+            this.readOnly=readOnly;
+            this.isolationLevel=isolationLevel;
+        }
+
+        public String getSchemaName(){ return schemaName; }
+
+        public String getText(){ return text; }
+
+        public boolean isReadOnly(){ return readOnly; }
+
+        public int getIsolationLevel(){ return isolationLevel; }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof Key)) return false;
+            Key key=(Key)o;
+            return readOnly==key.readOnly && isolationLevel==key.isolationLevel
+                    && schemaName.equals(key.schemaName) && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode(){
+            return 31*text.hashCode()+schemaName.hashCode();
+        }
+    }
+
+    static final class Entry{
+        final Key key;
+        final long executionCount;
+        final long compileNanos;
+        final String[] providerIds;
+        final byte[] payload;
+
+        Entry(Key key,long executionCount,long compileNanos,String[] providerIds,byte[] payload){
+            this.key=key;
+            this.executionCount=executionCount;
+            this.compileNanos=compileNanos;
+            this.providerIds=providerIds;
+            this.payload=payload;
+        }
+    }
+
+    /**
+     * The persistent providers of a compiled statement, with their fingerprints at the time it was compiled.
+     */
+    static final class Description{
+        final ProviderInfo[] providers;
+        final long[] fingerprints;
+
+        Description(ProviderInfo[] providers,long[] fingerprints){
+            this.providers=providers;
+            this.fingerprints=fingerprints;
+        }
+    }
+
+    /**
+     * The file was written by a different version of the product (or in a different format), so its
+     * compiled statements cannot be trusted.
+     */
+    static final class VersionMismatchException extends IOException{
+        VersionMismatchException(String message){
+            super(message);
+        }
+    }
+}
@@ -29,26 +29,31 @@ import com.google.common.base.Optional;
 import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.reference.Property;
+import com.splicemachine.db.iapi.services.monitor.Monitor;
 import com.splicemachine.db.iapi.services.property.PropertyUtil;
 import com.splicemachine.db.iapi.sql.dictionary.*;
 import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.iapi.store.access.conglomerate.Conglomerate;
 import com.splicemachine.db.impl.sql.GenericStatement;
 import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
+import com.splicemachine.db.impl.sql.PersistentStatementCache;
 import org.apache.log4j.Logger;
 import org.sparkproject.guava.cache.Cache;
 import org.sparkproject.guava.cache.CacheBuilder;
 
-import javax.management.MXBean;
+import java.io.File;
 import java.util.List;
 import java.util.Properties;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
  * Cache Holder for making sense of data dictionary caching and concurrency.
  *
  */
-public class DataDictionaryCache {
+public class DataDictionaryCache implements DataDictionaryCacheIFace {
     private static Logger LOG = Logger.getLogger(DataDictionaryCache.class);
     private Cache<UUID,TableDescriptor> oidTdCache;
     private Cache<TableKey,TableDescriptor> nameTdCache;
@@ -61,6 +66,13 @@ public class DataDictionaryCache {
     private Cache<GenericStatement,GenericStorablePreparedStatement> statementCache;
     private Cache<String,SchemaDescriptor> schemaCache;
     private Cache<String,Optional<RoleGrantDescriptor>> roleCache;
+    // auto-parameterized statement texts which failed to compile, and so are prepared from their original text
+    private Cache<String,Boolean> unparameterizableCache;
+    private final AtomicLong compileNanosSaved = new AtomicLong();
+    private final AtomicLong autoParameterizedCount = new AtomicLong();
+    private final AtomicLong autoParameterizeFallbackCount = new AtomicLong();
+    // null unless a persistent statement cache directory is configured
+    private PersistentStatementCache persistentStatementCache;
     private int tdCacheSize;
     private int stmtCacheSize;
     private int permissionsCacheSize;
@@ -93,11 +105,31 @@ public class DataDictionaryCache {
         sequenceGeneratorCache=CacheBuilder.newBuilder().maximumSize(seqgenCacheSize).build();
         partitionStatisticsCache = CacheBuilder.newBuilder().maximumSize(8092).build();
         conglomerateCache = CacheBuilder.newBuilder().maximumSize(1024).build();
-        statementCache = CacheBuilder.newBuilder().maximumSize(1024).build();
+        statementCache = CacheBuilder.newBuilder().maximumSize(1024).recordStats().build();
+        unparameterizableCache = CacheBuilder.newBuilder().maximumSize(1024).build();
         schemaCache = CacheBuilder.newBuilder().maximumSize(1024).build();
         roleCache = CacheBuilder.newBuilder().maximumSize(100).build();
         permissionsCache=CacheBuilder.newBuilder().maximumSize(permissionsCacheSize).build();
         this.dd = dd;
+
+        String persistentCacheDirectory=startParams.getProperty(Property.LANG_PERSISTENT_STATEMENT_CACHE_DIRECTORY);
+        if(persistentCacheDirectory!=null && !persistentCacheDirectory.isEmpty()){
+            value=startParams.getProperty(Property.LANG_PERSISTENT_STATEMENT_CACHE_SIZE);
+            int persistentCacheSize=PropertyUtil.intPropertyValue(Property.LANG_PERSISTENT_STATEMENT_CACHE_SIZE,value,
+                    0,Integer.MAX_VALUE,Property.LANG_PERSISTENT_STATEMENT_CACHE_SIZE_DEFAULT);
+            value=startParams.getProperty(Property.LANG_PERSISTENT_STATEMENT_CACHE_INTERVAL);
+            int saveInterval=PropertyUtil.intPropertyValue(Property.LANG_PERSISTENT_STATEMENT_CACHE_INTERVAL,value,
+                    1,Integer.MAX_VALUE,Property.LANG_PERSISTENT_STATEMENT_CACHE_INTERVAL_DEFAULT);
+            persistentStatementCache=new PersistentStatementCache(new File(persistentCacheDirectory),persistentCacheSize);
+            persistentStatementCache.load();
+            long intervalMillis=TimeUnit.SECONDS.toMillis(saveInterval);
+            Monitor.getMonitor().getTimerFactory().getCancellationTimer().schedule(new TimerTask(){
+                @Override
+                public void run(){
+                    savePersistentStatementCache();
+                }
+            },intervalMillis,intervalMillis);
+        }
     }
 
     public TableDescriptor nameTdCacheFind(TableKey tableKey) throws StandardException {
@@ -317,6 +349,7 @@ public class DataDictionaryCache {
         storedPreparedStatementCache.invalidateAll();
         schemaCache.invalidateAll();
         statementCache.invalidateAll();
+        unparameterizableCache.invalidateAll();
         roleCache.invalidateAll();
     }
 
@@ -328,6 +361,7 @@ public class DataDictionaryCache {
         sequenceGeneratorCache.invalidateAll();
         permissionsCache.invalidateAll();
         statementCache.invalidateAll();
+        unparameterizableCache.invalidateAll();
         roleCache.invalidateAll();
     }
 
@@ -347,6 +381,7 @@ public class DataDictionaryCache {
         if (LOG.isDebugEnabled())
             LOG.debug("clearStatementCache ");
         statementCache.invalidateAll();
+        unparameterizableCache.invalidateAll();
     }
 
     public void statementCacheAdd(GenericStatement gs, GenericStorablePreparedStatement gsp) throws StandardException {
@@ -366,6 +401,55 @@ public class DataDictionaryCache {
         return gsps;
     }
 
+    /**
+     * Record a statement cache hit on a statement which did not need recompiling.
+     *
+     * @param compileNanos how long the statement took to compile when it was cached
+     */
+    public void statementCacheHit(long compileNanos) {
+        compileNanosSaved.addAndGet(compileNanos);
+    }
+
+    public void autoParameterized() {
+        autoParameterizedCount.incrementAndGet();
+    }
+
+    /**
+     * Record that an auto-parameterized statement could not be used, so that later executions of
+     * statements with the same shape go straight to their original text.
+     */
+    public void autoParameterizeFailed(String parameterizedText) {
+        if (LOG.isDebugEnabled())
+            LOG.debug("autoParameterizeFailed " + parameterizedText);
+        autoParameterizeFallbackCount.incrementAndGet();
+        unparameterizableCache.put(parameterizedText,Boolean.TRUE);
+    }
+
+    public boolean isUnparameterizable(String parameterizedText) {
+        return unparameterizableCache.getIfPresent(parameterizedText) != null;
+    }
+
+    /**
+     * @return the cache of compiled statements kept across restarts, or {@code null} if it is disabled
+     */
+    public PersistentStatementCache getPersistentStatementCache() {
+        return persistentStatementCache;
+    }
+
+    /**
+     * Write the most frequently executed statements of the statement cache to the persistent statement
+     * cache, if it is enabled.
+     */
+    public void savePersistentStatementCache() {
+        if (persistentStatementCache == null)
+            return;
+        try {
+            persistentStatementCache.save(statementCache.asMap().values());
+        } catch (RuntimeException e) {
+            LOG.warn("Unable to save the persistent statement cache", e);
+        }
+    }
+
     public void roleCacheAdd(String roleName, Optional<RoleGrantDescriptor> optional) throws StandardException {
         if (!dd.canUseCache(null))
             return;
@@ -390,10 +474,54 @@ public class DataDictionaryCache {
 
 
 
-    @MXBean
-    @SuppressWarnings("UnusedDeclaration")
-    public interface DataDictionaryCacheIFace {
+    @Override
+    public long getStatementCacheHitCount() {
+        return statementCache.stats().hitCount();
+    }
+
+    @Override
+    public long getStatementCacheMissCount() {
+        return statementCache.stats().missCount();
+    }
+
+    @Override
+    public double getStatementCacheHitRate() {
+        return statementCache.stats().hitRate();
+    }
+
+    @Override
+    public long getStatementCacheEvictionCount() {
+        return statementCache.stats().evictionCount();
+    }
+
+    @Override
+    public long getStatementCacheSize() {
+        return statementCache.size();
+    }
+
+    @Override
+    public long getStatementCompileTimeSavedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(compileNanosSaved.get());
+    }
+
+    @Override
+    public long getAutoParameterizedCount() {
+        return autoParameterizedCount.get();
+    }
+
+    @Override
+    public long getAutoParameterizeFallbackCount() {
+        return autoParameterizeFallbackCount.get();
+    }
+
+    @Override
+    public long getPersistentStatementRestoredCount() {
+        return persistentStatementCache == null ? 0L : persistentStatementCache.getRestoredCount();
+    }
 
+    @Override
+    public long getPersistentStatementRejectedCount() {
+        return persistentStatementCache == null ? 0L : persistentStatementCache.getRejectedCount();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/*
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified this file.
+ *
+ * All Splice Machine modifications are Copyright 2012 - 2016 Splice Machine, Inc.,
+ * and are licensed to you under the License; you may not use this file except in
+ * compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.impl.sql.catalog;
+
+import javax.management.MXBean;
+
+/**
+ * Per-server statistics of the statement cache held by the {@link DataDictionaryCache}.
+ */
+@MXBean
+@SuppressWarnings("UnusedDeclaration")
+public interface DataDictionaryCacheIFace {
+
+    long getStatementCacheHitCount();
+
+    long getStatementCacheMissCount();
+
+    double getStatementCacheHitRate();
+
+    /**
+     * @return the number of plans evicted from the statement cache to make room for others
+     */
+    long getStatementCacheEvictionCount();
+
+    long getStatementCacheSize();
+
+    /**
+     * @return the compilation time avoided by statement cache hits, using the time each cached
+     * statement originally took to compile
+     */
+    long getStatementCompileTimeSavedMillis();
+
+    /**
+     * @return the number of statements whose literals were replaced by parameters before the cache lookup
+     */
+    long getAutoParameterizedCount();
+
+    /**
+     * @return the number of auto-parameterized statements which could not be compiled, and were
+     * prepared from their original text instead
+     */
+    long getAutoParameterizeFallbackCount();
+
+    /**
+     * @return the number of statements loaded from the persistent statement cache instead of being compiled
+     */
+    long getPersistentStatementRestoredCount();
+
+    /**
+     * @return the number of statements in the persistent statement cache which had to be compiled after all,
+     * because a table, index or statistics they depended upon had changed
+     */
+    long getPersistentStatementRejectedCount();
+
+    void clearStatementCache();
+}
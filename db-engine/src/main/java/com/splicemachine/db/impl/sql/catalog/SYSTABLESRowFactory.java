@@ -135,6 +135,7 @@ public class SYSTABLESRowFactory extends CatalogRowFactory
 		String					schemaID = null;
 		String					tableName = null;
         int                     columnSequence = 0;
+		String					version = CURRENT_TABLE_VERSION;
 
 		if (td != null)
 		{
@@ -146,6 +147,9 @@ public class SYSTABLESRowFactory extends CatalogRowFactory
 			SchemaDescriptor schema = (SchemaDescriptor)parent;
 
             columnSequence = descriptor.getColumnSequence();
+			//tables may be created with a version other than the current one, e.g. to pick a different row format
+			if (descriptor.getVersion() != null)
+				version = descriptor.getVersion();
 			oid = descriptor.getUUID();
 			if ( oid == null )
 		    {
@@ -226,7 +230,7 @@ public class SYSTABLESRowFactory extends CatalogRowFactory
 		row.setColumn(SYSTABLES_LOCKGRANULARITY, new SQLChar(lockGranularity));
 
 		/* 6th column is VERSION (varchar(128)) */
-		row.setColumn(SYSTABLES_VERSION,new SQLVarchar(CURRENT_TABLE_VERSION));
+		row.setColumn(SYSTABLES_VERSION,new SQLVarchar(version));
 
         row.setColumn(SYSTABLES_COLUMN_SEQUENCE,new SQLInteger(columnSequence));
 
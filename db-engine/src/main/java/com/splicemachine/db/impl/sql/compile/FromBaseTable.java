@@ -88,6 +88,8 @@ import org.sparkproject.guava.collect.Lists;
 
 public class FromBaseTable extends FromTable {
     static final int UNSET=-1;
+    /* Scans which are estimated to return more rows than this run in Spark, unless hinted otherwise */
+    static final long SPARK_ROW_COUNT_THRESHOLD=20000;
 
     /**
      * Whether or not we have checked the index statistics for staleness.
@@ -2170,7 +2172,7 @@ public class FromBaseTable extends FromTable {
         }
         // Set Spark Baby...
         if (dataSetProcessorType.equals(CompilerContext.DataSetProcessorType.DEFAULT_CONTROL) &&
-            getTrulyTheBestAccessPath().getCostEstimate().getEstimatedRowCount() > 20000) {
+            getTrulyTheBestAccessPath().getCostEstimate().getEstimatedRowCount() > SPARK_ROW_COUNT_THRESHOLD) {
             dataSetProcessorType = CompilerContext.DataSetProcessorType.SPARK;
         }
 
@@ -3327,4 +3329,21 @@ public class FromBaseTable extends FromTable {
     public CompilerContext.DataSetProcessorType getDataSetProcessorType() {
         return dataSetProcessorType;
     }
+
+    /**
+     * @param estimatedRowCount the number of rows the scan of this table is estimated to return
+     * @return whether the scan will run in control (rather than in Spark)
+     */
+    boolean isControlScan(double estimatedRowCount) {
+        if (getLanguageConnectionContext().getDataSetProcessorType().equals(CompilerContext.DataSetProcessorType.FORCED_SPARK))
+            return false;
+        switch (dataSetProcessorType) {
+            case FORCED_CONTROL:
+                return true;
+            case DEFAULT_CONTROL:
+                return estimatedRowCount <= SPARK_ROW_COUNT_THRESHOLD;
+            default:
+                return false;
+        }
+    }
 }
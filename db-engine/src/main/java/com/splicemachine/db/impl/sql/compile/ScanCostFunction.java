@@ -265,7 +265,12 @@ public class ScanCostFunction{
         scanCost.setRemoteCost((long)remoteCost);
         // Base Cost + LookupCost + Projection Cost
         double congAverageWidth = scc.getConglomerateAvgRowWidth();
-        double baseCost = openLatency+closeLatency+(totalRowCount*baseTableSelectivity*localLatency*(1+congAverageWidth/100d));
+        // Store files which cannot hold a row matching the qualifiers are skipped, so their rows are never read.
+        // We cannot tell how the skipped files overlap the key range, so only the more selective of the two is counted
+        double zoneMapScanFraction = computeZoneMapScanFraction(totalRowCount*totalSelectivity);
+        assert zoneMapScanFraction >= 0 && zoneMapScanFraction <= 1.0:"zoneMapScanFraction Out of Bounds -> " + zoneMapScanFraction;
+        double readSelectivity = Math.min(baseTableSelectivity,zoneMapScanFraction);
+        double baseCost = openLatency+closeLatency+(totalRowCount*readSelectivity*localLatency*(1+congAverageWidth/100d));
         assert congAverageWidth >= 0 : "congAverageWidth cannot be negative -> " + congAverageWidth;
         assert baseCost >= 0 : "baseCost cannot be negative -> " + baseCost;
         scanCost.setFromBaseTableRows(filterBaseTableSelectivity * totalRowCount);
@@ -297,6 +302,43 @@ public class ScanCostFunction{
         scanCost.setLocalCostPerPartition((baseCost + lookupCost + projectionCost)/scc.getNumPartitions());
     }
 
+    /**
+     *
+     * The fraction of the rows which still need to be read once the store files that cannot match one of the
+     * range qualifiers on the base table have been skipped. Key columns are left out, since they are not stored
+     * in the row, and so the zone maps of the store files know nothing about them. Store files are only skipped by
+     * scans which run in control, since Spark reads the store files of a region directly.
+     *
+     * @param estimatedRowCount the number of rows the scan is estimated to return
+     * @return the fraction of the rows which are read, in the range [0,1]
+     */
+    private double computeZoneMapScanFraction(double estimatedRowCount) {
+        double fraction = 1.0d;
+        if (!(baseTable instanceof FromBaseTable) || !((FromBaseTable) baseTable).isControlScan(estimatedRowCount))
+            return fraction;
+        for (int i = 0; i< selectivityHolder.length; i++) {
+            if (selectivityHolder[i] == null || isKeyColumn(i))
+                continue;
+            for (SelectivityHolder holder: selectivityHolder[i]) {
+                if (!holder.isRangeSelectivity() || !holder.getPhase().equals(QualifierPhase.FILTER_BASE))
+                    continue;
+                RangeSelectivity rq = (RangeSelectivity) holder;
+                fraction = Math.min(fraction,scc.getZoneMapScanFraction(i,rq.start,rq.includeStart,rq.stop,rq.includeStop));
+            }
+        }
+        return fraction;
+    }
+
+    private boolean isKeyColumn(int colNum) {
+        if (keyColumns == null)
+            return false;
+        for (int keyColumn : keyColumns) {
+            if (keyColumn == colNum)
+                return true;
+        }
+        return false;
+    }
+
     /**
      *
      * Computing the total selectivity.  All conglomerates need to have the same total selectivity.
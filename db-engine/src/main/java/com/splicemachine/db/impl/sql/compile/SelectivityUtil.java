@@ -301,4 +301,26 @@ public class SelectivityUtil {
     public static double nestedLoopJoinStrategyLocalCost(CostEstimate innerCost, CostEstimate outerCost) {
         return outerCost.localCostPerPartition() + (outerCost.rowCount()/outerCost.partitionCount())*(innerCost.localCost()+innerCost.getRemoteCost()+innerCost.getOpenCost()+innerCost.getCloseCost());
     }
+
+    /**
+     *
+     * Batched Nested Loop Join Local Cost Computation
+     *
+     * The inner side is opened once for every batch of outer rows, rather than once for every outer row, so
+     * its open and close costs are shared by the whole batch.
+     *
+     * Total Cost = (Left Side Cost)/Left Side Partition Count) + (Left Side Row Count/Left Side Partition Count)*(Right Side Cost + Right Side Transfer Cost)
+     *              + (Number of Batches)*(Open Cost + Close Cost)
+     *
+     * @param innerCost
+     * @param outerCost
+     * @param batchSize the number of outer rows in each batch
+     * @return
+     */
+    public static double batchedNestedLoopJoinStrategyLocalCost(CostEstimate innerCost, CostEstimate outerCost, int batchSize) {
+        double outerRowsPerPartition = outerCost.rowCount()/outerCost.partitionCount();
+        double numBatches = Math.ceil(outerRowsPerPartition/batchSize);
+        return outerCost.localCostPerPartition() + outerRowsPerPartition*(innerCost.localCost()+innerCost.getRemoteCost())
+                + numBatches*(innerCost.getOpenCost()+innerCost.getCloseCost());
+    }
 }
@@ -56,11 +56,15 @@ import com.splicemachine.db.iapi.sql.execute.*;
 import com.splicemachine.db.iapi.sql.execute.CursorActivation;
 import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.iapi.store.access.XATransactionController;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 import com.splicemachine.db.iapi.types.DataValueFactory;
 import com.splicemachine.db.iapi.util.IdUtil;
 import com.splicemachine.db.iapi.util.InterruptStatus;
 import com.splicemachine.db.impl.sql.GenericStatement;
 import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
+import com.splicemachine.db.impl.sql.LiteralParameterizer;
+import com.splicemachine.db.impl.sql.PersistentStatementCache;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.db.impl.sql.compile.CompilerContextImpl;
 import com.splicemachine.db.impl.sql.execute.*;
 import java.util.*;
@@ -240,6 +244,9 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
     private boolean logQueryPlan;
     private HeaderPrintWriter istream;
 
+    // Whether to replace the literals of directly executed statements with parameters
+    private boolean autoParameterize;
+
     // this used to be computed in OptimizerFactoryContextImpl; i.e everytime a
     // connection was made. To keep the semantics same I'm putting it out here
     // instead of in the OptimizerFactory which is only initialized when the
@@ -329,6 +336,9 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         String logQueryPlanProperty=PropertyUtil.getServiceProperty(getTransactionCompile(),"derby.language.logQueryPlan");
         logQueryPlan=Boolean.valueOf(logQueryPlanProperty);
 
+        autoParameterize=PropertyUtil.getServiceBoolean(getTransactionCompile(),Property.LANG_AUTO_PARAMETERIZE,
+                Property.LANG_AUTO_PARAMETERIZE_DEFAULT);
+
         lockEscalationThreshold=Property.DEFAULT_LOCKS_ESCALATION_THRESHOLD;
         stmtValidators=new ArrayList<>();
         triggerTables=new ArrayList<>();
@@ -1090,6 +1100,59 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         return connFactory.getStatement(getDefaultSchema(),sqlText,true).prepare(this);
     }
 
+    @Override
+    public PreparedStatement prepareDirectStatement(SchemaDescriptor compilationSchema,
+                                                    String sqlText,
+                                                    boolean isForReadOnly,
+                                                    List<String> literals) throws StandardException{
+        if(autoParameterize && !restoreMode){
+            LiteralParameterizer.Result parameterized=LiteralParameterizer.parameterize(sqlText);
+            if(parameterized!=null){
+                PreparedStatement ps=prepareParameterized(compilationSchema,parameterized,isForReadOnly);
+                if(ps!=null){
+                    literals.addAll(parameterized.getLiterals());
+                    return ps;
+                }
+            }
+        }
+        return prepareInternalStatement(compilationSchema,sqlText,isForReadOnly,false);
+    }
+
+    /**
+     * @return the prepared form of the parameterized statement, or null if it cannot stand in for the original
+     */
+    private PreparedStatement prepareParameterized(SchemaDescriptor compilationSchema,
+                                                   LiteralParameterizer.Result parameterized,
+                                                   boolean isForReadOnly) throws StandardException{
+        DataDictionaryCache ddCache=getDataDictionary().getDataDictionaryCache();
+        String text=parameterized.getText();
+        if(ddCache.isUnparameterizable(text)) return null;
+
+        int depth=getStatementDepth();
+        try{
+            PreparedStatement ps=connFactory.getStatement(compilationSchema,text,isForReadOnly).prepare(this);
+            DataTypeDescriptor[] parameterTypes=ps.getParameterTypes();
+            if(parameterTypes!=null && parameterTypes.length==parameterized.getLiterals().size()){
+                ddCache.autoParameterized();
+                return ps;
+            }
+        }catch(StandardException se){
+            if(se.getSeverity()>ExceptionSeverity.STATEMENT_SEVERITY)
+                throw se;
+            /*
+             * A literal may not have been replaceable (some functions insist on constant arguments, for example),
+             * so compile the original text instead, which will raise the error again if it is a real one. The
+             * compilation pushed a statement context which an error handler would normally pop, so the stack
+             * must be reset first.
+             */
+            while(getStatementDepth()>depth){
+                popStatementContext(getStatementContext(),null);
+            }
+        }
+        ddCache.autoParameterizeFailed(text);
+        return null;
+    }
+
     /**
      * Remove the activation to those known about by this connection.
      */
@@ -1198,10 +1261,17 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
      * @throws StandardException thrown if lookup goes wrong.
      */
     public PreparedStatement lookupStatement(GenericStatement statement) throws StandardException{
-        GenericStorablePreparedStatement ps = getDataDictionary().getDataDictionaryCache().statementCacheFind(statement);
-        if (ps==null) {
-            ps = new GenericStorablePreparedStatement(statement);
-            getDataDictionary().getDataDictionaryCache().statementCacheAdd(statement,ps);
+        DataDictionaryCache ddCache = getDataDictionary().getDataDictionaryCache();
+        GenericStorablePreparedStatement ps = ddCache.statementCacheFind(statement);
+        boolean cached = ps!=null;
+        if (!cached) {
+            // a statement compiled before the last restart may not need compiling again
+            PersistentStatementCache persistentCache = ddCache.getPersistentStatementCache();
+            if (persistentCache != null)
+                ps = persistentCache.restore(statement,this);
+            if (ps == null)
+                ps = new GenericStorablePreparedStatement(statement);
+            ddCache.statementCacheAdd(statement,ps);
         }
         synchronized(ps){
             if(ps.upToDate()){
@@ -1213,6 +1283,8 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
 
                 if(ac.getClassLoaderVersion()!=currentClasses){
                     ps.makeInvalid(DependencyManager.INTERNAL_RECOMPILE_REQUEST,this);
+                }else if(cached){
+                    ddCache.statementCacheHit(ps.getCompileNanos());
                 }
 
                 // note that the PreparedStatement is not kept in the cache. This is because
@@ -57,6 +57,7 @@ import com.splicemachine.db.iapi.sql.dictionary.SchemaDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.ViewDescriptor;
 import com.splicemachine.db.iapi.store.access.TransactionController;
+import com.splicemachine.db.impl.sql.PersistentStatementCache;
 import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.db.impl.sql.catalog.TableKey;
 import com.splicemachine.db.impl.sql.compile.CreateViewNode;
@@ -310,6 +311,12 @@ public class BasicDependencyManager implements DependencyManager {
         if (p instanceof TableDescriptor) {
             flushCachesBasedOnTableDescriptor(((TableDescriptor)p), dd);
         }
+
+        // statements which have not been restored yet are not registered with us
+        DataDictionaryCache cache = dd.getDataDictionaryCache();
+        PersistentStatementCache persistentCache = cache == null ? null : cache.getPersistentStatementCache();
+        if (persistentCache != null && p.getObjectID() != null)
+            persistentCache.invalidate(p.getObjectID());
 	}
 
     /**
@@ -1036,7 +1043,8 @@ public class BasicDependencyManager implements DependencyManager {
      * @return A list of providers (possibly empty).
      * @throws StandardException thrown if something goes wrong
      */
-    private List<Provider> getProviders (Dependent d) throws StandardException {
+    @Override
+    public List<Provider> getProviders (Dependent d) throws StandardException {
         List<Provider> provs = new ArrayList<Provider>();
         synchronized (this) {
             List<Dependency> deps = dependents.get(d.getObjectID());
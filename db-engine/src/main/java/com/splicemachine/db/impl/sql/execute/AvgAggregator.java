@@ -212,6 +212,39 @@ public final class AvgAggregator extends OrderableAggregator
 //				}
 		}
 
+		@Override
+		public void accumulate(long[] values,boolean[] nulls,int[] selected,int numSelected,
+							   DataValueDescriptor scratch) throws StandardException {
+				if(aggregator instanceof LongBufferedSumAggregator){
+						int nonNull = countNonNull(nulls,selected,numSelected);
+						try{
+								((LongBufferedSumAggregator)aggregator).accumulate(values,nulls,selected,numSelected,scratch);
+								count+=nonNull;
+								return;
+						}catch(StandardException se){
+								if (!se.getMessageId().equals(SQLState.LANG_OUTSIDE_RANGE_FOR_DATATYPE))
+										throw se;
+						}
+						/*
+						 * A vector is either added to a LongBufferedSumAggregator in its entirety or not at
+						 * all, so we can upgrade and then add the whole vector again.
+						 */
+						aggregator = ((LongBufferedSumAggregator)aggregator).upgrade();
+				}
+				super.accumulate(values,nulls,selected,numSelected,scratch);
+		}
+
+		private int countNonNull(boolean[] nulls,int[] selected,int numSelected){
+				int nonNull = 0;
+				for(int i=0;i<numSelected;i++){
+						if(nulls[selected[i]])
+								eliminatedNulls = true;
+						else
+								nonNull++;
+				}
+				return nonNull;
+		}
+
 		public void add(DataValueDescriptor addend) throws StandardException{
 				accumulate(addend);
 		}
@@ -112,6 +112,32 @@ public final class CountAggregator
 			value++;
 	}
 
+	public void accumulate(long[] values,boolean[] nulls,int[] selected,int numSelected,
+						   DataValueDescriptor scratch)
+	{
+		count(nulls,selected,numSelected);
+	}
+
+	public void accumulate(double[] values,boolean[] nulls,int[] selected,int numSelected,
+						   DataValueDescriptor scratch)
+	{
+		count(nulls,selected,numSelected);
+	}
+
+	private void count(boolean[] nulls,int[] selected,int numSelected)
+	{
+		if (isCountStar) {
+			value += numSelected;
+			return;
+		}
+		for (int i = 0; i < numSelected; i++) {
+			if (nulls[selected[i]])
+				eliminatedNulls = true;
+			else
+				value++;
+		}
+	}
+
 	/**
 	 * @return ExecAggregator the new aggregator
 	 */
@@ -71,6 +71,20 @@ public class DoubleBufferedSumAggregator extends SumAggregator{
 				incrementPosition();
 		}
 
+		@Override
+		public void accumulate(double[] values,boolean[] nulls,int[] selected,int numSelected,
+							   DataValueDescriptor scratch) throws StandardException {
+				for(int i=0;i<numSelected;i++){
+						int row = selected[i];
+						if(nulls[row]){
+								eliminatedNulls = true;
+								continue;
+						}
+						buffer[position] = values[row];
+						incrementPosition();
+				}
+		}
+
 		@Override
 		public void merge(ExecAggregator addend) throws StandardException {
 				if(addend==null) return; //treat null entries as zero
@@ -66,6 +66,48 @@ public class LongBufferedSumAggregator extends SumAggregator {
 		}
 
 
+		/**
+		 * Adds the vector as a single partial sum. Either the whole vector is added or, if
+		 * the sum overflows, none of it is, so a caller which upgrades on overflow can re-add
+		 * the same vector to the upgraded aggregator.
+		 */
+		@Override
+		public void accumulate(long[] values,boolean[] nulls,int[] selected,int numSelected,
+							   DataValueDescriptor scratch) throws StandardException {
+				long partial = 0;
+				boolean sawValue = false;
+				boolean sawNull = false;
+				for(int i=0;i<numSelected;i++){
+						int row = selected[i];
+						if(nulls[row]){
+								sawNull = true;
+								continue;
+						}
+						long l = values[row];
+						long newPartial = partial+l;
+						if(((partial^newPartial)&(l^newPartial))<0){
+								//the partial itself overflowed, so fold the vector in one value at a time
+								super.accumulate(values,nulls,selected,numSelected,scratch);
+								return;
+						}
+						partial = newPartial;
+						sawValue = true;
+				}
+				if(sawValue){
+						if(position!=0){
+								sum(position);
+								position=0;
+						}
+						long newSum = sum+partial;
+						if(((sum^newSum)&(partial^newSum))<0)
+								throw StandardException.newException(SQLState.LANG_OUTSIDE_RANGE_FOR_DATATYPE,"BIGINT");
+						sum = newSum;
+						isNull = false;
+				}
+				if(sawNull)
+						eliminatedNulls = true;
+		}
+
 		@Override
 		public void merge(ExecAggregator addend) throws StandardException {
 				if(addend==null) return; //treat null entries as zero
@@ -72,6 +72,56 @@ public final class MaxMinAggregator extends OrderableAggregator {
 		}
 	}
 
+	/**
+	 * Finds the extreme of the vector with primitive comparisons, so that only a
+	 * single value need be compared against (and perhaps cloned into) the current one.
+	 */
+	@Override
+	public void accumulate(long[] values,boolean[] nulls,int[] selected,int numSelected,
+						   DataValueDescriptor scratch) throws StandardException {
+		boolean found = false;
+		long best = 0L;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selected[i];
+			if (nulls[row]) {
+				eliminatedNulls = true;
+				continue;
+			}
+			long l = values[row];
+			if (!found || (isMax ? l > best : l < best)) {
+				best = l;
+				found = true;
+			}
+		}
+		if (found) {
+			scratch.setValue(best);
+			accumulate(scratch);
+		}
+	}
+
+	@Override
+	public void accumulate(double[] values,boolean[] nulls,int[] selected,int numSelected,
+						   DataValueDescriptor scratch) throws StandardException {
+		boolean found = false;
+		double best = 0d;
+		for (int i = 0; i < numSelected; i++) {
+			int row = selected[i];
+			if (nulls[row]) {
+				eliminatedNulls = true;
+				continue;
+			}
+			double d = values[row];
+			if (!found || (isMax ? d > best : d < best)) {
+				best = d;
+				found = true;
+			}
+		}
+		if (found) {
+			scratch.setValue(best);
+			accumulate(scratch);
+		}
+	}
+
 	/**
 	 * @return ExecAggregator the new aggregator
 	 */
@@ -26,7 +26,7 @@
 package com.splicemachine.db.impl.sql.execute;
 
 import com.splicemachine.db.iapi.error.StandardException;
-import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.VectorAggregator;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import java.io.ObjectOutput;
 import java.io.ObjectInput;
@@ -37,7 +37,7 @@ import java.io.IOException;
  * (system) aggregators.
  *
  */
-abstract class SystemAggregator implements ExecAggregator
+abstract class SystemAggregator implements VectorAggregator
 {
 
     protected boolean eliminatedNulls;
@@ -60,6 +60,40 @@ abstract class SystemAggregator implements ExecAggregator
 
 	protected abstract void accumulate(DataValueDescriptor addend)
 		throws StandardException;
+
+	/**
+	 * Accumulates the vector one value at a time, by way of the scratch
+	 * descriptor. Aggregators which can do better with the primitive
+	 * values directly override this.
+	 */
+	public void accumulate(long[] values,boolean[] nulls,int[] selected,int numSelected,
+						   DataValueDescriptor scratch) throws StandardException
+	{
+		for (int i = 0; i < numSelected; i++) {
+			int row = selected[i];
+			if (nulls[row])
+				scratch.setToNull();
+			else
+				scratch.setValue(values[row]);
+			accumulate(scratch,null);
+		}
+	}
+
+	/**
+	 * @see #accumulate(long[], boolean[], int[], int, DataValueDescriptor)
+	 */
+	public void accumulate(double[] values,boolean[] nulls,int[] selected,int numSelected,
+						   DataValueDescriptor scratch) throws StandardException
+	{
+		for (int i = 0; i < numSelected; i++) {
+			int row = selected[i];
+			if (nulls[row])
+				scratch.setToNull();
+			else
+				scratch.setValue(values[row]);
+			accumulate(scratch,null);
+		}
+	}
 	/////////////////////////////////////////////////////////////
 	// 
 	// EXTERNALIZABLE INTERFACE
@@ -0,0 +1,93 @@
+/*
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified this file.
+ *
+ * All Splice Machine modifications are Copyright 2012 - 2016 Splice Machine, Inc.,
+ * and are licensed to you under the License; you may not use this file except in
+ * compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test case for LiteralParameterizer.
+ */
+public class LiteralParameterizerTest{
+
+    @Test
+    public void replacesPredicateLiteralsWithTheirParserTypes(){
+        LiteralParameterizer.Result result=LiteralParameterizer.parameterize(
+                "select a, 1 from t where b = 42 and c > 3000000000 and d < 1.50 and e = 1e3 and f = 'it''s'");
+        assertEquals("select a, 1 from t where b = CAST(? AS INTEGER) and c > CAST(? AS BIGINT)"+
+                " and d < CAST(? AS DECIMAL(3,2)) and e = CAST(? AS DOUBLE) and f = CAST(? AS CHAR(4))",result.getText());
+        assertEquals(Arrays.asList("42","3000000000","1.50","1e3","it's"),result.getLiterals());
+    }
+
+    @Test
+    public void statementsDifferingOnlyInLiteralsShareText(){
+        assertEquals(LiteralParameterizer.parameterize("SELECT * FROM t WHERE id = 17").getText(),
+                LiteralParameterizer.parameterize("SELECT * FROM t WHERE id = 99").getText());
+    }
+
+    @Test
+    public void replacesUpdateSetAndInsertValuesLiterals(){
+        assertEquals("UPDATE t SET a = CAST(? AS INTEGER) WHERE b = CAST(? AS CHAR(1))",
+                LiteralParameterizer.parameterize("UPDATE t SET a = 5 WHERE b = 'x'").getText());
+        assertEquals("INSERT INTO t VALUES (CAST(? AS INTEGER), CAST(? AS CHAR(3)))",
+                LiteralParameterizer.parameterize("INSERT INTO t VALUES (1, 'abc')").getText());
+    }
+
+    @Test
+    public void leavesShapeAndSelectivityLiteralsAlone(){
+        assertEquals("select * from t where a like 'x%' and b = DATE '2016-01-01' and c = X'0F' and d = CAST(? AS INTEGER)"+
+                        " and e = cast(f as varchar(10)) order by 1 fetch first 10 rows only",
+                LiteralParameterizer.parameterize("select * from t where a like 'x%' and b = DATE '2016-01-01'"+
+                        " and c = X'0F' and d = 7 and e = cast(f as varchar(10)) order by 1 fetch first 10 rows only").getText());
+    }
+
+    @Test
+    public void subqueriesTrackTheirOwnClauses(){
+        assertEquals("select * from t where a in (select 1 from u where b = CAST(? AS INTEGER)) and c = CAST(? AS INTEGER)",
+                LiteralParameterizer.parameterize("select * from t where a in (select 1 from u where b = 2) and c = 3").getText());
+    }
+
+    @Test
+    public void copiesCommentsAndQuotedIdentifiers(){
+        String sql="select * from t --splice-properties index=\"IX 1\"\n where \"col 2\" = 2 /* 3 */";
+        assertEquals("select * from t --splice-properties index=\"IX 1\"\n where \"col 2\" = CAST(? AS INTEGER) /* 3 */",
+                LiteralParameterizer.parameterize(sql).getText());
+    }
+
+    @Test
+    public void ineligibleStatementsAreNotRewritten(){
+        assertNull(LiteralParameterizer.parameterize("select * from t where a = ?"));
+        assertNull(LiteralParameterizer.parameterize("select * from t where 1 = 0"));
+        assertNull(LiteralParameterizer.parameterize("select 1 from t"));
+        assertNull(LiteralParameterizer.parameterize("create table t (a varchar(10) default 'x')"));
+        assertNull(LiteralParameterizer.parameterize("call syscs_util.foo('x')"));
+        assertNull(LiteralParameterizer.parameterize("select * from t where a = 'unterminated"));
+    }
+}
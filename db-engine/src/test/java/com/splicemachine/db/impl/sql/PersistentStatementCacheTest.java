@@ -0,0 +1,161 @@
+/*
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified this file.
+ *
+ * All Splice Machine modifications are Copyright 2012 - 2016 Splice Machine, Inc.,
+ * and are licensed to you under the License; you may not use this file except in
+ * compliance with the License.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import com.splicemachine.db.impl.services.uuid.BasicUUID;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test case for the on-disk format of PersistentStatementCache.
+ */
+public class PersistentStatementCacheTest{
+    private static final String TABLE_ID=new BasicUUID(1L,2L,3).toString();
+    private static final String INDEX_ID=new BasicUUID(1L,2L,4).toString();
+    private static final String VERSION="2.0.1.1 - (1)";
+
+    @Test
+    public void entriesSurviveARoundTrip() throws Exception{
+        char[] longText=new char[70000];
+        Arrays.fill(longText,'x');
+        List<PersistentStatementCache.Entry> entries=Arrays.asList(
+                entry("SPLICE","select * from t where a = ?",true,42L,TABLE_ID),
+                entry("S\u00e9","select '\u00e9' from t",false,7L,TABLE_ID,INDEX_ID),
+                entry("SPLICE",new String(longText),true,1L));
+
+        ByteArrayOutputStream out=new ByteArrayOutputStream();
+        PersistentStatementCache.writeEntries(entries,VERSION,out);
+        List<PersistentStatementCache.Entry> read=PersistentStatementCache.readEntries(new ByteArrayInputStream(out.toByteArray()),VERSION);
+
+        assertEquals(entries.size(),read.size());
+        for(int i=0;i<entries.size();i++){
+            PersistentStatementCache.Entry expected=entries.get(i);
+            PersistentStatementCache.Entry actual=read.get(i);
+            assertEquals(expected.key,actual.key);
+            assertEquals(expected.key.getText(),actual.key.getText());
+            assertEquals(expected.executionCount,actual.executionCount);
+            assertEquals(expected.compileNanos,actual.compileNanos);
+            assertArrayEquals(expected.providerIds,actual.providerIds);
+            assertArrayEquals(expected.payload,actual.payload);
+        }
+    }
+
+    @Test
+    public void truncatedFileKeepsTheCompleteEntries() throws Exception{
+        ByteArrayOutputStream out=new ByteArrayOutputStream();
+        PersistentStatementCache.writeEntries(Arrays.asList(
+                entry("SPLICE","select a from t",true,2L,TABLE_ID),
+                entry("SPLICE","select b from t",true,1L,TABLE_ID)),VERSION,out);
+        byte[] bytes=out.toByteArray();
+
+        List<PersistentStatementCache.Entry> read=PersistentStatementCache.readEntries(
+                new ByteArrayInputStream(Arrays.copyOf(bytes,bytes.length-3)),VERSION);
+        assertEquals(1,read.size());
+        assertEquals("select a from t",read.get(0).key.getText());
+    }
+
+    @Test
+    public void loadKeepsTheMostFrequentlyExecutedStatements() throws Exception{
+        File directory=writeCache(
+                entry("SPLICE","select a from t",true,5L,TABLE_ID),
+                entry("SPLICE","select b from t",true,50L,TABLE_ID),
+                entry("SPLICE","select c from t",true,500L,INDEX_ID));
+
+        PersistentStatementCache cache=new PersistentStatementCache(directory,2,VERSION);
+        cache.load();
+        List<PersistentStatementCache.Key> pending=cache.getPendingStatements();
+        assertEquals(2,pending.size());
+        assertEquals("select c from t",pending.get(0).getText());
+        assertEquals("select b from t",pending.get(1).getText());
+    }
+
+    @Test
+    public void invalidateDropsOnlyTheDependentStatements() throws Exception{
+        File directory=writeCache(
+                entry("SPLICE","select a from t",true,5L,TABLE_ID),
+                entry("SPLICE","select b from t",true,50L,TABLE_ID,INDEX_ID),
+                entry("SPLICE","values 1",true,500L));
+
+        PersistentStatementCache cache=new PersistentStatementCache(directory,10,VERSION);
+        cache.load();
+        cache.invalidate(new BasicUUID(INDEX_ID));
+        assertEquals(2,cache.getPendingStatements().size());
+        cache.invalidate(new BasicUUID(TABLE_ID));
+        List<PersistentStatementCache.Key> pending=cache.getPendingStatements();
+        assertEquals(1,pending.size());
+        assertEquals("values 1",pending.get(0).getText());
+    }
+
+    @Test
+    public void fileFromAnotherVersionIsDiscarded() throws Exception{
+        File directory=writeCache(entry("SPLICE","select a from t",true,5L,TABLE_ID));
+
+        PersistentStatementCache cache=new PersistentStatementCache(directory,10,"2.0.1.2 - (1)");
+        cache.load();
+        assertTrue(cache.getPendingStatements().isEmpty());
+        assertFalse(new File(directory,PersistentStatementCache.FILE_NAME).exists());
+    }
+
+    @Test
+    public void missingFileLeavesTheCacheEmpty() throws Exception{
+        File directory=Files.createTempDirectory("statements").toFile();
+        directory.deleteOnExit();
+        PersistentStatementCache cache=new PersistentStatementCache(directory,10,VERSION);
+        cache.load();
+        assertTrue(cache.getPendingStatements().isEmpty());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static PersistentStatementCache.Entry entry(String schema,String text,boolean readOnly,long executionCount,String... providerIds){
+        PersistentStatementCache.Key key=new PersistentStatementCache.Key(schema,text,readOnly,0);
+        return new PersistentStatementCache.Entry(key,executionCount,executionCount*1000L,providerIds,text.getBytes());
+    }
+
+    private static File writeCache(PersistentStatementCache.Entry... entries) throws Exception{
+        File directory=Files.createTempDirectory("statements").toFile();
+        directory.deleteOnExit();
+        File file=new File(directory,PersistentStatementCache.FILE_NAME);
+        file.deleteOnExit();
+        try(OutputStream out=new FileOutputStream(file)){
+            PersistentStatementCache.writeEntries(Arrays.asList(entries),VERSION,out);
+        }
+        return directory;
+    }
+}
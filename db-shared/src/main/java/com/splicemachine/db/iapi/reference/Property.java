@@ -667,6 +667,34 @@ public interface Property {
 	String STATEMENT_CACHE_SIZE = "derby.language.statementCacheSize";
 	int STATEMENT_CACHE_SIZE_DEFAULT = 100;
 
+	/**
+	 * Tells if the literals of statements executed directly (rather than prepared) should be replaced
+	 * by parameters before the statement cache is consulted, so that statements which differ only in
+	 * their constants share a plan. Default is false.
+	 */
+	String LANG_AUTO_PARAMETERIZE = "derby.language.autoParameterize";
+	boolean LANG_AUTO_PARAMETERIZE_DEFAULT = false;
+
+	/**
+	 * The directory in which compiled statements are kept across restarts. When set, the most
+	 * frequently executed statements of the statement cache are written to this directory
+	 * periodically and at shutdown, and are loaded back (without compiling) when the database boots.
+	 * Not set by default, which disables the persistent statement cache.
+	 */
+	String LANG_PERSISTENT_STATEMENT_CACHE_DIRECTORY = "derby.language.persistentStatementCacheDirectory";
+
+	/**
+	 * The maximum number of statements kept by the persistent statement cache.
+	 */
+	String LANG_PERSISTENT_STATEMENT_CACHE_SIZE = "derby.language.persistentStatementCacheSize";
+	int LANG_PERSISTENT_STATEMENT_CACHE_SIZE_DEFAULT = 1000;
+
+	/**
+	 * How often, in seconds, the persistent statement cache is written out.
+	 */
+	String LANG_PERSISTENT_STATEMENT_CACHE_INTERVAL = "derby.language.persistentStatementCacheInterval";
+	int LANG_PERSISTENT_STATEMENT_CACHE_INTERVAL_DEFAULT = 300;
+
 	/**
 	 * Tells if the system stored procedures should be updated during database boot up.
 	 * Default is false.  System property.  Loaded once (static initializer).
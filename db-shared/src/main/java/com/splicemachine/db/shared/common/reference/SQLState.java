@@ -1889,6 +1889,7 @@ public interface SQLState {
     String EXPORT_PARAMETER_VALUE_IS_WRONG                         ="XIE0X.S";
     String UNEXPECTED_IMPORT_READING_ERROR                         ="XIE10.S";
     String UNEXPECTED_IMPORT_CSV_ERROR                             ="XIE11.S";
+    String BULK_IMPORT_TABLE_NOT_EMPTY                             ="XIE12.S";
 
 
 
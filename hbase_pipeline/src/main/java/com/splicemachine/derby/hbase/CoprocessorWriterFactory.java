@@ -21,6 +21,7 @@ import com.splicemachine.pipeline.api.BulkWriter;
 import com.splicemachine.pipeline.api.BulkWriterFactory;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.api.WritePipelineFactory;
+import com.splicemachine.pipeline.utils.BufferPool;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
 import com.splicemachine.storage.PartitionInfoCache;
 import com.splicemachine.pipeline.client.BulkWritesRPCInvoker;
@@ -37,17 +38,20 @@ public class CoprocessorWriterFactory implements BulkWriterFactory{
     private PipelineWriter pipelineWriter;
     private WritePipelineFactory pipelineWriteFactory;
     private final PipelineCompressor compressor;
+    private final BufferPool bufferPool;
     private final PartitionInfoCache partitionInfoCache;
     private final RpcChannelFactory channelFactory;
     private final HBaseTableInfoFactory tableInfoFactory;
 
     public CoprocessorWriterFactory(PipelineCompressor compressor,
+                                    BufferPool bufferPool,
                                     PartitionInfoCache partitionInfoCache,
                                     PipelineExceptionFactory exceptionFactory,
                                     RpcChannelFactory channelFactory,
                                     HBaseTableInfoFactory tableInfoFactory){
         this.exceptionFactory=exceptionFactory;
         this.compressor = compressor;
+        this.bufferPool = bufferPool;
         this.partitionInfoCache = partitionInfoCache;
         this.channelFactory=channelFactory;
         this.tableInfoFactory = tableInfoFactory;
@@ -56,7 +60,7 @@ public class CoprocessorWriterFactory implements BulkWriterFactory{
     @Override
     public BulkWriter newWriter(byte[] tableName){
         return new BulkWritesRPCInvoker(tableName,pipelineWriter,
-                pipelineWriteFactory,compressor,
+                pipelineWriteFactory,compressor,bufferPool,
                 exceptionFactory,channelFactory,partitionInfoCache,
                 tableInfoFactory);
     }
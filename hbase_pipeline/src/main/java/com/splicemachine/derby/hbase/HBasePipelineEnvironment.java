@@ -31,6 +31,7 @@ import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.api.PipelineMeter;
 import com.splicemachine.pipeline.client.RpcChannelFactory;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
+import com.splicemachine.pipeline.utils.BufferPool;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
 import com.splicemachine.pipeline.utils.SimplePipelineCompressor;
 import com.splicemachine.si.api.data.ExceptionFactory;
@@ -94,7 +95,8 @@ public class HBasePipelineEnvironment implements PipelineEnvironment{
         this.compressor = new SimplePipelineCompressor(kryoPool,env.getSIDriver().getOperationFactory());
 
         RpcChannelFactory channelFactory = ChannelFactoryService.loadChannelFactory(this.pipelineConfiguration);
-        this.writerFactory = new CoprocessorWriterFactory(compressor,partitionInfoCache(),pipelineExceptionFactory,channelFactory,
+        BufferPool bufferPool = new BufferPool(pipelineConfiguration.getPipelineBufferPoolSize());
+        this.writerFactory = new CoprocessorWriterFactory(compressor,bufferPool,partitionInfoCache(),pipelineExceptionFactory,channelFactory,
                 HBaseTableInfoFactory.getInstance(configuration()));
     }
 
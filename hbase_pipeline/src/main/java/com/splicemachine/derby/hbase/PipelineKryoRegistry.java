@@ -33,6 +33,13 @@ import java.util.Collection;
  *         Date: 12/28/15
  */
 public class PipelineKryoRegistry implements KryoPool.KryoRegistry{
+    /*
+     * Marks the (optional) available credits which follow the results of a BulkWritesResult. Servers from before
+     * write pacing don't write them, and their responses may be padded with zeros, so the credits are only read
+     * when this marker is present. Readers from before write pacing ignore the trailing bytes.
+     */
+    private static final byte CREDITS_PRESENT=0x01;
+
     @Override
     public void register(Kryo instance){
         instance.register(BulkWriteResult.class,BulkWriteResult.kryoSerializer(),10);
@@ -40,12 +47,17 @@ public class PipelineKryoRegistry implements KryoPool.KryoRegistry{
             @Override
             public void write(Kryo kryo,Output output,BulkWritesResult object){
                 kryo.writeClassAndObject(output,object.getBulkWriteResults());
+                output.writeByte(CREDITS_PRESENT);
+                output.writeInt(object.getAvailableCredits());
             }
 
             @Override
             public BulkWritesResult read(Kryo kryo,Input input,Class type){
                 Collection<BulkWriteResult> results=(Collection<BulkWriteResult>)kryo.readClassAndObject(input);
-                return new BulkWritesResult(results);
+                int availableCredits=BulkWritesResult.UNKNOWN_CREDITS;
+                if(input.limit()-input.position()>=5 && input.readByte()==CREDITS_PRESENT)
+                    availableCredits=input.readInt();
+                return new BulkWritesResult(results,availableCredits);
             }
         },11);
 
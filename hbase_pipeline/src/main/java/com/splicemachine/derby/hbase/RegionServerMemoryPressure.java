@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.derby.hbase;
+
+import com.splicemachine.pipeline.traffic.MemoryPressure;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.regionserver.RegionServerAccounting;
+
+/**
+ * Memory pressure of an HBase region server: the size of all of its memstores, relative to the
+ * global memstore limit (at which the region server blocks writes until it has flushed).
+ */
+public class RegionServerMemoryPressure implements MemoryPressure{
+    private static final String GLOBAL_MEMSTORE_SIZE="hbase.regionserver.global.memstore.size";
+    private static final float DEFAULT_GLOBAL_MEMSTORE_SIZE=0.4f;
+
+    private final RegionServerAccounting accounting;
+    private final long globalMemstoreLimit;
+
+    public RegionServerMemoryPressure(RegionServerAccounting accounting,Configuration conf){
+        this.accounting=accounting;
+        float fraction=conf.getFloat(GLOBAL_MEMSTORE_SIZE,DEFAULT_GLOBAL_MEMSTORE_SIZE);
+        this.globalMemstoreLimit=(long)(Runtime.getRuntime().maxMemory()*fraction);
+    }
+
+    @Override
+    public double memstoreFill(){
+        if(globalMemstoreLimit<=0) return 0d;
+        return ((double)accounting.getGlobalMemstoreSize())/globalMemstoreLimit;
+    }
+}
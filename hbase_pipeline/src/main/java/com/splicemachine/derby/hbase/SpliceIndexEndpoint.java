@@ -43,6 +43,7 @@ import org.apache.hadoop.hbase.Coprocessor;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.RegionServerServices;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.util.StringUtils;
 import org.apache.log4j.Logger;
@@ -70,7 +71,7 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
     @Override
     @SuppressWarnings("unchecked")
     public void start(final CoprocessorEnvironment env) throws IOException{
-        RegionCoprocessorEnvironment rce=((RegionCoprocessorEnvironment)env);
+        final RegionCoprocessorEnvironment rce=((RegionCoprocessorEnvironment)env);
         final ServerControl serverControl=new RegionServerControl((HRegion) rce.getRegion());
 
         String tableName=rce.getRegion().getTableDesc().getTableName().getQualifierAsString();
@@ -96,6 +97,11 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
                         compressor=getCompressor();
                         pipelineWriter=getPipelineWriter();
                         writePipeline=getWritePipeline();
+                        RegionServerServices rss=rce.getRegionServerServices();
+                        if(rss!=null && rss.getRegionServerAccounting()!=null){
+                            //every region on the server shares the one PipelineWriter, so it doesn't matter which region sets this
+                            pipelineWriter.setMemoryPressure(new RegionServerMemoryPressure(rss.getRegionServerAccounting(),rce.getConfiguration()));
+                        }
                     }
 
                     @Override
@@ -136,7 +142,8 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
                           SpliceMessage.BulkWriteRequest request,
                           RpcCallback<SpliceMessage.BulkWriteResponse> done){
         try{
-            byte[] bytes=bulkWrites(request.getBytes().toByteArray());
+            //the decoded KVPairs are views over the request's bytes, so make sure we don't copy them first
+            byte[] bytes=bulkWrites(ZeroCopyLiteralByteString.getBytes(request.getBytes()));
             if(bytes==null||bytes.length<=0)
                 LOG.error("No bytes constructed for the result!");
 
@@ -26,7 +26,10 @@ import org.apache.hadoop.io.compress.SnappyCodec;
 import org.apache.log4j.Logger;
 
 import com.splicemachine.access.HConfiguration;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.utils.BufferPool;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
+import com.splicemachine.pipeline.utils.PooledBuffer;
 import com.splicemachine.utils.SpliceLogUtils;
 
 /**
@@ -96,6 +99,22 @@ public class SnappyPipelineCompressor implements PipelineCompressor{
         return baos.toByteArray();
     }
 
+    @Override
+    public PooledBuffer compress(BulkWrites bulkWrites,BufferPool pool) throws IOException{
+        PooledBuffer d = delegate.compress(bulkWrites,pool);
+        if(!supportsNative) return d;
+        try{
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(d.length());
+            OutputStream os = snappy.createOutputStream(baos);
+            os.write(d.array(),0,d.length());
+            os.flush();
+            os.close();
+            return PooledBuffer.wrap(baos.toByteArray());
+        }finally{
+            d.release();
+        }
+    }
+
     @Override
     public <T> T decompress(byte[] bytes,Class<T> clazz) throws IOException{
         throw new UnsupportedOperationException("IMPLEMENT");
@@ -21,7 +21,9 @@ import com.splicemachine.access.api.WrongPartitionException;
 import com.splicemachine.access.hbase.HBaseTableInfoFactory;
 import com.splicemachine.coprocessor.SpliceMessage;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
+import com.splicemachine.pipeline.utils.BufferPool;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
+import com.splicemachine.pipeline.utils.PooledBuffer;
 import com.splicemachine.storage.PartitionInfoCache;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.hadoop.hbase.NotServingRegionException;
@@ -43,6 +45,7 @@ public class BulkWriteChannelInvoker {
     private final byte[] tableName;
     private final PipelineExceptionFactory pef;
     private final PipelineCompressor compressor;
+    private final BufferPool bufferPool;
     private final RpcChannelFactory channelFactory;
     private final PartitionInfoCache partitionInfoCache;
     private final HBaseTableInfoFactory tableInfoFactory;
@@ -50,6 +53,7 @@ public class BulkWriteChannelInvoker {
     @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
     public BulkWriteChannelInvoker(byte[] tableName,
                                    PipelineCompressor pipelineCompressor,
+                                   BufferPool bufferPool,
                                    RpcChannelFactory channelFactory,
                                    PartitionInfoCache partitionInfoCache,
                                    PipelineExceptionFactory pef,
@@ -57,6 +61,7 @@ public class BulkWriteChannelInvoker {
         this.tableName = tableName;
         this.pef = pef;
         this.compressor = pipelineCompressor;
+        this.bufferPool = bufferPool;
         this.channelFactory = channelFactory;
         this.partitionInfoCache =partitionInfoCache;
         this.tableInfoFactory=tableInfoFactory;
@@ -67,16 +72,23 @@ public class BulkWriteChannelInvoker {
         CoprocessorRpcChannel channel = channelFactory.newChannel(tableName,write.getRegionKey());
 
         boolean cacheCheck = false;
+        PooledBuffer requestBuffer = null;
         try {
             SpliceMessage.SpliceIndexService service = ProtobufUtil.newServiceStub(SpliceMessage.SpliceIndexService.class, channel);
             SpliceMessage.BulkWriteRequest.Builder builder = SpliceMessage.BulkWriteRequest.newBuilder();
-            byte[] requestBytes = compressor.compress(write);
-            builder.setBytes(ZeroCopyLiteralByteString.wrap(requestBytes));
+            requestBuffer = compressor.compress(write,bufferPool);
+            builder.setBytes(ZeroCopyLiteralByteString.wrap(requestBuffer.array(),0,requestBuffer.length()));
             SpliceMessage.BulkWriteRequest bwr = builder.build();
 
             BlockingRpcCallback<SpliceMessage.BulkWriteResponse> doneCallback =new BlockingRpcCallback<>();
             ServerRpcController controller = new ServerRpcController();
             service.bulkWrite(controller, bwr, doneCallback);
+            /*
+             * The request has been serialized onto the wire by the time the (blocking) call returns, so the
+             * buffer can go back to the pool
+             */
+            requestBuffer.release();
+            requestBuffer = null;
             if (controller.failed()){
                 IOException error=controller.getFailedOn();
                 clearCacheIfNeeded(error);
@@ -97,6 +109,9 @@ public class BulkWriteChannelInvoker {
         } catch (Exception e) {
         	if (!cacheCheck) clearCacheIfNeeded(e);
             throw pef.processRemoteException(e);
+        } finally {
+            if(requestBuffer!=null)
+                requestBuffer.release();
         }
     }
 
@@ -21,6 +21,7 @@ import com.splicemachine.pipeline.PipelineWriter;
 import com.splicemachine.pipeline.api.BulkWriter;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.api.WritePipelineFactory;
+import com.splicemachine.pipeline.utils.BufferPool;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
 import com.splicemachine.storage.PartitionInfoCache;
 
@@ -41,13 +42,14 @@ public class BulkWritesRPCInvoker implements BulkWriter{
                                 PipelineWriter pipelineWriter,
                                 WritePipelineFactory pipelineFactory,
                                 PipelineCompressor pipelineCompressor,
+                                BufferPool bufferPool,
                                 PipelineExceptionFactory exceptionFactory,
                                 RpcChannelFactory channelFactory,
                                 PartitionInfoCache partInfoCache,
                                 HBaseTableInfoFactory tableInfoFactory) {
         this.pipelineFactory = pipelineFactory;
         this.pipelineWriter = pipelineWriter;
-        this.bulkWriteChannelInvoker = new BulkWriteChannelInvoker(tableName,pipelineCompressor,channelFactory,partInfoCache,exceptionFactory,tableInfoFactory);
+        this.bulkWriteChannelInvoker = new BulkWriteChannelInvoker(tableName,pipelineCompressor,bufferPool,channelFactory,partInfoCache,exceptionFactory,tableInfoFactory);
     }
 
     @Override
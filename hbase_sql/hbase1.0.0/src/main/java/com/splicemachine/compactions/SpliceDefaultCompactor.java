@@ -23,6 +23,7 @@ import com.splicemachine.constants.EnvUtils;
 import com.splicemachine.derby.iapi.sql.olap.OlapClient;
 import com.splicemachine.derby.stream.compaction.SparkCompactionFunction;
 import com.splicemachine.hbase.SICompactionScanner;
+import com.splicemachine.hbase.ZoneMapCollector;
 import com.splicemachine.olap.DistributedCompaction;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.constants.SIConstants;
@@ -275,9 +276,12 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                 }
                 if (needsSI(store.getTableName())) {
                     SIDriver driver=SIDriver.driver();
+                    //only compactions of every file may purge versions, as otherwise older versions could resurface
+                    long lowWatermark = request.isAllFiles()?driver.getTxnLowWatermark().getLowWatermark():0L;
                     SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
                             driver.getRollForward(),
-                            driver.getConfiguration().getActiveTransactionCacheSize());
+                            driver.getConfiguration().getActiveTransactionCacheSize(),
+                            lowWatermark);
                     scanner = new SICompactionScanner(state,scanner);
                 }
                 if (scanner == null) {
@@ -409,6 +413,9 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
     protected boolean performCompaction(FileDetails fd, InternalScanner scanner, CellSink writer, long smallestReadPoint, boolean cleanSeqId, boolean major) throws IOException {
         if (LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG,"performCompaction");
+        ZoneMapCollector zoneMap = needsSI(store.getTableName()) ? ZoneMapCollector.collectorFor(writer) : null;
+        if (zoneMap != null)
+            writer = zoneMap;
         long bytesWritten = 0;
         long bytesWrittenProgress = 0;
 
@@ -463,6 +470,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
             }
             cells.clear();
         } while (hasMore);
+        if (zoneMap != null)
+            zoneMap.finish();
         progress.complete();
         return true;
     }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.compactions;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.constants.EnvUtils;
+import com.splicemachine.hbase.ZoneMapCollector;
+import com.splicemachine.si.data.hbase.coprocessor.TableType;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.regionserver.DefaultStoreFlusher;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.compactions.Compactor;
+
+import java.io.IOException;
+
+/**
+ * Store flusher extending HBase's default in order to record the zone map of each flushed file
+ * of a SI table (see {@link ZoneMapCollector}).
+ */
+public class SpliceDefaultFlusher extends DefaultStoreFlusher{
+    private final boolean collectZoneMaps;
+
+    public SpliceDefaultFlusher(Configuration conf,Store store){
+        super(conf,store);
+        TableType type=EnvUtils.getTableType(HConfiguration.getConfiguration(),store.getTableName());
+        this.collectZoneMaps=type==TableType.USER_TABLE || type==TableType.DERBY_SYS_TABLE;
+    }
+
+    @Override
+    protected void performFlush(InternalScanner scanner,Compactor.CellSink sink,long smallestReadPoint) throws IOException{
+        ZoneMapCollector zoneMap=collectZoneMaps?ZoneMapCollector.collectorFor(sink):null;
+        if(zoneMap==null){
+            super.performFlush(scanner,sink,smallestReadPoint);
+            return;
+        }
+        super.performFlush(scanner,zoneMap,smallestReadPoint);
+        zoneMap.finish();
+    }
+}
@@ -47,6 +47,7 @@ import com.splicemachine.derby.impl.store.access.hbase.HBaseConglomerate;
 import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
 import com.splicemachine.derby.stream.ActivationHolder;
 import com.splicemachine.derby.stream.function.*;
+import com.splicemachine.derby.stream.spark.BulkImportKey;
 import com.splicemachine.derby.stream.spark.HBasePartitioner;
 import com.splicemachine.derby.stream.spark.RowPartition;
 import com.splicemachine.derby.stream.spark.SparkOperationContext;
@@ -694,5 +695,6 @@ public class SpliceSparkKryoRegistrator implements KryoRegistrator, KryoPool.Kry
         instance.register(RowPartition.class, EXTERNALIZABLE_SERIALIZER);
         instance.register(HalfMergeSortJoinOperation.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(HalfMergeSortLeftOuterJoinOperation.class,EXTERNALIZABLE_SERIALIZER);
+        instance.register(BulkImportKey.class,EXTERNALIZABLE_SERIALIZER);
     }
 }
\ No newline at end of file
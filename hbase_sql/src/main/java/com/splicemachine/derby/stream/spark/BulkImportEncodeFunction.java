@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.impl.sql.execute.index.IndexTransformer;
+import com.splicemachine.derby.stream.ActivationHolder;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.output.insert.InsertPipelineWriter;
+import com.splicemachine.derby.stream.output.insert.InsertTableWriterBuilder;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.primitives.Bytes;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import scala.Tuple2;
+import scala.util.Either;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Encodes the rows of a bulk import into the base table rows and the index rows that the write pipeline
+ * would have written for them, each keyed by its destination region.
+ *
+ * @see HFileBulkImporter
+ */
+public class BulkImportEncodeFunction<K> implements PairFlatMapFunction<Iterator<Tuple2<K,Either<Exception,ExecRow>>>,BulkImportKey,byte[]>{
+    private static final long serialVersionUID=1L;
+
+    private final InsertTableWriterBuilder builder;
+    private final byte[][] indexes;
+    private final byte[][][] startKeys;
+    private final int[] offsets;
+
+    /**
+     * @param builder the builder of the insert, used to encode the base table rows
+     * @param indexes the serialized {@link DDLMessage.TentativeIndex} of each index
+     * @param startKeys the region start keys of each destination: the base table, then each index
+     * @param offsets the first partition of each destination
+     */
+    public BulkImportEncodeFunction(InsertTableWriterBuilder builder,byte[][] indexes,byte[][][] startKeys,int[] offsets){
+        this.builder=builder;
+        this.indexes=indexes;
+        this.startKeys=startKeys;
+        this.offsets=offsets;
+    }
+
+    @Override
+    public Iterable<Tuple2<BulkImportKey,byte[]>> call(final Iterator<Tuple2<K,Either<Exception,ExecRow>>> rows) throws Exception{
+        final InsertPipelineWriter writer=(InsertPipelineWriter)builder.buildTableWriter();
+        final OperationContext operationContext=writer.getOperationContext();
+        final ActivationHolder activationHolder=operationContext==null?null:((SparkOperationContext)operationContext).getActivationHolder();
+        if(activationHolder!=null)
+            activationHolder.reinitialize(writer.getTxn());
+        final IndexTransformer[] transformers=new IndexTransformer[indexes.length];
+        for(int i=0;i<indexes.length;i++){
+            transformers[i]=new IndexTransformer(DDLMessage.TentativeIndex.parseFrom(indexes[i]));
+        }
+
+        return new Iterable<Tuple2<BulkImportKey,byte[]>>(){
+            @Override
+            public Iterator<Tuple2<BulkImportKey,byte[]>> iterator(){
+                return new Iterator<Tuple2<BulkImportKey,byte[]>>(){
+                    private final List<Tuple2<BulkImportKey,byte[]>> encoded=new ArrayList<>(transformers.length+1);
+                    private int position;
+
+                    @Override
+                    public boolean hasNext(){
+                        if(position<encoded.size()) return true;
+                        encoded.clear();
+                        position=0;
+                        if(!rows.hasNext()){
+                            if(activationHolder!=null)
+                                activationHolder.close();
+                            return false;
+                        }
+                        try{
+                            encode(rows.next()._2());
+                        }catch(RuntimeException e){
+                            throw e;
+                        }catch(Exception e){
+                            throw new RuntimeException(e);
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public Tuple2<BulkImportKey,byte[]> next(){
+                        if(!hasNext()) throw new NoSuchElementException();
+                        return encoded.get(position++);
+                    }
+
+                    @Override
+                    public void remove(){
+                        throw new UnsupportedOperationException();
+                    }
+
+                    private void encode(Either<Exception,ExecRow> row) throws Exception{
+                        if(row.isLeft())
+                            throw row.left().get();
+                        KVPair kvPair=writer.encode(row.right().get());
+                        add(0,kvPair);
+                        for(int i=0;i<transformers.length;i++){
+                            add(i+1,transformers[i].translate(kvPair));
+                        }
+                        if(operationContext!=null)
+                            operationContext.recordWrite();
+                    }
+
+                    private void add(int destination,KVPair kvPair){
+                        byte[] rowKey=kvPair.getRowKey();
+                        int partition=offsets[destination]+region(startKeys[destination],rowKey);
+                        encoded.add(new Tuple2<>(new BulkImportKey(partition,rowKey),kvPair.getValue()));
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @return the position of the region containing {@code rowKey}: the last region whose start key is not
+     * after it. The first region's start key is empty, so there always is one.
+     */
+    static int region(byte[][] startKeys,byte[] rowKey){
+        int low=1;
+        int high=startKeys.length-1;
+        while(low<=high){
+            int mid=(low+high)>>>1;
+            if(Bytes.BASE_COMPARATOR.compare(startKeys[mid],rowKey)<=0)
+                low=mid+1;
+            else
+                high=mid-1;
+        }
+        return low-1;
+    }
+}
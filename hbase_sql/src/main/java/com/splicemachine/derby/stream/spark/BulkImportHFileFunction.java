@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.shared.common.reference.SQLState;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.spark.api.java.function.VoidFunction;
+import scala.Tuple2;
+
+import java.util.Iterator;
+import java.util.UUID;
+
+/**
+ * Writes one sorted partition of a bulk import as an HFile, in the staging directory of the
+ * partition's destination conglomerate.
+ *
+ * Every row is written exactly as the SI write pipeline writes an insert: a single packed cell, versioned
+ * with the id of the importing transaction. Since the rows of a partition arrive sorted, duplicate row keys
+ * (which only a primary key or unique index can produce) are adjacent, and fail the import.
+ *
+ * @see HFileBulkImporter
+ */
+public class BulkImportHFileFunction implements VoidFunction<Iterator<Tuple2<BulkImportKey,byte[]>>>{
+    private static final long serialVersionUID=1L;
+
+    private final String stagingDirectory;
+    private final long txnId;
+    private final long[] conglomerates;
+    private final int[] offsets;
+    private final Compression.Algorithm[] compression;
+    private final DataBlockEncoding[] encoding;
+    private final BloomType[] bloomType;
+    private final int[] blockSize;
+
+    public BulkImportHFileFunction(String stagingDirectory,
+                                   long txnId,
+                                   long[] conglomerates,
+                                   int[] offsets,
+                                   Compression.Algorithm[] compression,
+                                   DataBlockEncoding[] encoding,
+                                   BloomType[] bloomType,
+                                   int[] blockSize){
+        this.stagingDirectory=stagingDirectory;
+        this.txnId=txnId;
+        this.conglomerates=conglomerates;
+        this.offsets=offsets;
+        this.compression=compression;
+        this.encoding=encoding;
+        this.bloomType=bloomType;
+        this.blockSize=blockSize;
+    }
+
+    @Override
+    public void call(Iterator<Tuple2<BulkImportKey,byte[]>> rows) throws Exception{
+        if(!rows.hasNext()) return;
+        Tuple2<BulkImportKey,byte[]> row=rows.next();
+        int destination=destination(offsets,row._1().getPartition());
+
+        Configuration conf=HConfiguration.unwrapDelegate();
+        Path file=new Path(new Path(new Path(stagingDirectory,Long.toString(conglomerates[destination])),
+                SIConstants.DEFAULT_FAMILY_NAME),UUID.randomUUID().toString().replace("-",""));
+        FileSystem fs=file.getFileSystem(conf);
+        StoreFile.Writer writer=new StoreFile.WriterBuilder(conf,new CacheConfig(conf),fs)
+                .withFilePath(file)
+                .withComparator(KeyValue.COMPARATOR)
+                .withBloomType(bloomType[destination])
+                .withFileContext(new HFileContextBuilder()
+                        .withCompression(compression[destination])
+                        .withDataBlockEncoding(encoding[destination])
+                        .withBlockSize(blockSize[destination])
+                        .withIncludesTags(false)
+                        .build())
+                .build();
+        try{
+            byte[] previous=null;
+            while(true){
+                byte[] rowKey=row._1().getRowKey();
+                if(previous!=null && Bytes.equals(previous,rowKey))
+                    throw StandardException.newException(SQLState.LANG_DUPLICATE_KEY_CONSTRAINT,
+                            Long.toString(conglomerates[destination]),Long.toString(conglomerates[0]));
+                writer.append(new KeyValue(rowKey,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,
+                        txnId,KeyValue.Type.Put,row._2()));
+                previous=rowKey;
+                if(!rows.hasNext()) break;
+                row=rows.next();
+            }
+            writer.appendTrackedTimestampsToMetadata();
+        }finally{
+            writer.close();
+        }
+    }
+
+    /**
+     * @return the destination of {@code partition}: the last destination whose first partition is not after it
+     */
+    static int destination(int[] offsets,int partition){
+        int destination=0;
+        while(destination+1<offsets.length && offsets[destination+1]<=partition){
+            destination++;
+        }
+        return destination;
+    }
+}
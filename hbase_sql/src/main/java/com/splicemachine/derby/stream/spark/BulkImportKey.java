@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.primitives.Bytes;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * The shuffle key of a bulk import: the row key of an encoded row (of the base table or of one of its
+ * indexes), and the partition it belongs to. Each partition is one region of one destination conglomerate,
+ * so the rows of a partition, sorted by row key, form a single HFile.
+ *
+ * @see HFileBulkImporter
+ */
+public class BulkImportKey implements Externalizable{
+    private int partition;
+    private byte[] rowKey;
+
+    public BulkImportKey(){
+    }
+
+    public BulkImportKey(int partition,byte[] rowKey){
+        this.partition=partition;
+        this.rowKey=rowKey;
+    }
+
+    public int getPartition(){
+        return partition;
+    }
+
+    public byte[] getRowKey(){
+        return rowKey;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        out.writeInt(partition);
+        out.writeInt(rowKey.length);
+        out.write(rowKey);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException{
+        partition=in.readInt();
+        rowKey=new byte[in.readInt()];
+        in.readFully(rowKey);
+    }
+
+    @Override
+    public String toString(){
+        return "BulkImportKey{partition="+partition+",rowKey="+Bytes.toHex(rowKey)+"}";
+    }
+
+    /**
+     * Orders keys by partition, then by row key, in HBase's (unsigned) byte order.
+     */
+    public static class KeyComparator implements Comparator<BulkImportKey>, Serializable{
+        private static final long serialVersionUID=1L;
+
+        @Override
+        public int compare(BulkImportKey o1,BulkImportKey o2){
+            int c=Integer.compare(o1.partition,o2.partition);
+            if(c!=0) return c;
+            return Bytes.BASE_COMPARATOR.compare(o1.rowKey,o2.rowKey);
+        }
+    }
+}
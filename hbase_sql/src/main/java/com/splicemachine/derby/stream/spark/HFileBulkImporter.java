@@ -0,0 +1,210 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.access.hbase.HBaseConnectionFactory;
+import com.splicemachine.access.hbase.HBaseTableInfoFactory;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.shared.common.reference.SQLState;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.stream.output.insert.InsertTableWriterBuilder;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.log4j.Logger;
+import org.apache.spark.api.java.JavaPairRDD;
+import scala.util.Either;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Imports rows into an empty table by writing HFiles and bulk loading them, rather than by sending
+ * the rows through the write pipeline.
+ *
+ * The rows are encoded exactly as the pipeline would encode them, together with the rows of every index on
+ * the table. They are then shuffled so that each Spark partition holds the rows of one region of one
+ * destination (the table or one of its indexes), sorted by row key, and each partition is written as an
+ * HFile in the staging directory. Once every HFile is written, each destination's files are bulk loaded.
+ *
+ * The cells carry the id of the importing transaction as their version, as pipeline writes do, so
+ * the import is atomic: none of its rows are visible until the transaction commits, and if it rolls back
+ * they are ignored and eventually removed by compaction. Since the pipeline is bypassed, though, no write
+ * conflicts or constraints (other than the uniqueness of primary keys and unique indexes) are checked, which is
+ * why bulk imports are only allowed into empty tables without triggers or foreign keys.
+ *
+ * There is no table lock to hold while the import runs, so emptiness is checked when the import starts, and again
+ * just before the HFiles are loaded. Rows written by another transaction after that second check are neither
+ * detected nor checked for write conflicts against the bulk-loaded rows, so the table must not be written to
+ * while a bulk import into it is running.
+ */
+public class HFileBulkImporter<K>{
+    private static final Logger LOG=Logger.getLogger(HFileBulkImporter.class);
+
+    private final JavaPairRDD<K,Either<Exception,ExecRow>> rdd;
+    private final InsertTableWriterBuilder builder;
+    private final List<DDLMessage.TentativeIndex> indexes;
+    private final String bulkImportDirectory;
+    private final TxnView txn;
+
+    public HFileBulkImporter(JavaPairRDD<K,Either<Exception,ExecRow>> rdd,
+                             InsertTableWriterBuilder builder,
+                             List<DDLMessage.TentativeIndex> indexes,
+                             String bulkImportDirectory,
+                             TxnView txn){
+        this.rdd=rdd;
+        this.builder=builder;
+        this.indexes=indexes;
+        this.bulkImportDirectory=bulkImportDirectory;
+        this.txn=txn;
+    }
+
+    public void importData() throws StandardException{
+        int numDestinations=indexes.size()+1;
+        long[] conglomerates=new long[numDestinations];
+        byte[][] serializedIndexes=new byte[indexes.size()][];
+        conglomerates[0]=builder.getHeapConglom();
+        for(int i=0;i<indexes.size();i++){
+            conglomerates[i+1]=indexes.get(i).getIndex().getConglomerate();
+            serializedIndexes[i]=indexes.get(i).toByteArray();
+        }
+
+        byte[][][] startKeys=new byte[numDestinations][][];
+        int[] offsets=new int[numDestinations];
+        Compression.Algorithm[] compression=new Compression.Algorithm[numDestinations];
+        DataBlockEncoding[] encoding=new DataBlockEncoding[numDestinations];
+        BloomType[] bloomType=new BloomType[numDestinations];
+        int[] blockSize=new int[numDestinations];
+
+        SConfiguration config=HConfiguration.getConfiguration();
+        Configuration conf=HConfiguration.unwrapDelegate();
+        Path stagingDirectory=new Path(bulkImportDirectory,Long.toString(txn.getTxnId()));
+        FileSystem fs=null;
+        try{
+            Connection connection=HBaseConnectionFactory.getInstance(config).getConnection();
+            int numPartitions=0;
+            for(int i=0;i<numDestinations;i++){
+                TableName tableName=tableName(config,conglomerates[i]);
+                try(Table table=connection.getTable(tableName);
+                    RegionLocator regionLocator=connection.getRegionLocator(tableName)){
+                    checkEmpty(table,conglomerates[i]);
+                    HColumnDescriptor family=table.getTableDescriptor().getFamily(SIConstants.DEFAULT_FAMILY_BYTES);
+                    compression[i]=family.getCompressionType();
+                    encoding[i]=family.getDataBlockEncoding();
+                    bloomType[i]=family.getBloomFilterType();
+                    blockSize[i]=family.getBlocksize();
+                    startKeys[i]=regionLocator.getStartKeys();
+                }
+                offsets[i]=numPartitions;
+                numPartitions+=startKeys[i].length;
+            }
+            if(LOG.isDebugEnabled())
+                SpliceLogUtils.debug(LOG,"Bulk importing into %d conglomerates (%d regions) through %s",
+                        numDestinations,numPartitions,stagingDirectory);
+
+            fs=stagingDirectory.getFileSystem(conf);
+            rdd.mapPartitionsToPair(new BulkImportEncodeFunction<K>(builder,serializedIndexes,startKeys,offsets))
+                    .repartitionAndSortWithinPartitions(new BulkImportPartitioner(numPartitions),new BulkImportKey.KeyComparator())
+                    .foreachPartition(new BulkImportHFileFunction(stagingDirectory.toString(),txn.getTxnId(),
+                            conglomerates,offsets,compression,encoding,bloomType,blockSize));
+
+            //narrow the window in which a concurrent write could go unnoticed
+            for(long conglomerate:conglomerates){
+                try(Table table=connection.getTable(tableName(config,conglomerate))){
+                    checkEmpty(table,conglomerate);
+                }
+            }
+            LoadIncrementalHFiles loader=new LoadIncrementalHFiles(conf);
+            for(long conglomerate:conglomerates){
+                Path conglomerateDirectory=new Path(stagingDirectory,Long.toString(conglomerate));
+                if(!fs.exists(conglomerateDirectory)) continue; //nothing was imported
+                try(HTable table=(HTable)connection.getTable(tableName(config,conglomerate))){
+                    loader.doBulkLoad(conglomerateDirectory,table);
+                }
+            }
+        }catch(Exception e){
+            throw Exceptions.parseException(e);
+        }finally{
+            if(fs!=null){
+                try{
+                    fs.delete(stagingDirectory,true);
+                }catch(IOException e){
+                    SpliceLogUtils.warn(LOG,"Unable to remove bulk import staging directory %s: %s",stagingDirectory,e.getMessage());
+                }
+            }
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private static TableName tableName(SConfiguration config,long conglomerate){
+        return HBaseTableInfoFactory.getInstance(config).getTableInfo(Long.toString(conglomerate));
+    }
+
+    private static void checkEmpty(Table table,long conglomerate) throws IOException, StandardException{
+        Scan scan=new Scan();
+        scan.setFilter(new FirstKeyOnlyFilter());
+        scan.setCaching(1);
+        try(ResultScanner scanner=table.getScanner(scan)){
+            Result result=scanner.next();
+            if(result!=null)
+                throw StandardException.newException(SQLState.BULK_IMPORT_TABLE_NOT_EMPTY,Long.toString(conglomerate));
+        }
+    }
+
+    /**
+     * Sends each key to the partition it was assigned when it was encoded.
+     */
+    static class BulkImportPartitioner extends org.apache.spark.Partitioner{
+        private static final long serialVersionUID=1L;
+        private final int numPartitions;
+
+        BulkImportPartitioner(int numPartitions){
+            this.numPartitions=numPartitions;
+        }
+
+        @Override
+        public int numPartitions(){
+            return numPartitions;
+        }
+
+        @Override
+        public int getPartition(Object key){
+            return ((BulkImportKey)key).getPartition();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.access.hbase.HBaseConnectionFactory;
+import com.splicemachine.access.hbase.HBaseTableInfoFactory;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.log4j.Logger;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.storage.StorageLevel;
+import scala.Tuple2;
+import scala.util.Either;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Populates a new index by writing HFiles and bulk loading them, rather than by sending the index rows
+ * through the write pipeline in scan order.
+ *
+ * The index rows are computed once and kept (spilling to disk as necessary) while a sample of them is taken. If
+ * the index still has a single region, the sample is used to estimate its size and to pre-split it into regions of
+ * about half the maximum region size, at evenly spaced sampled keys. The rows are then shuffled so that each Spark
+ * partition holds the rows of one region, sorted by row key, and each partition is written as one HFile, which are
+ * then bulk loaded.
+ *
+ * As with {@link HFileBulkImporter}, the cells are written exactly as the pipeline writes them, versioned with the id
+ * of the populating transaction, so they only become visible when it commits. Rows which concurrent transactions
+ * write into the index through the pipeline are unaffected: since the rows of a non-unique index are keyed by the
+ * location of their base row, they never share a row key with a populated row of a different base row.
+ */
+public class HFileIndexBulkLoader<K>{
+    private static final Logger LOG=Logger.getLogger(HFileIndexBulkLoader.class);
+    private static final long SPLIT_POLL_INTERVAL=100L;
+
+    private final JavaPairRDD<K,Either<Exception,KVPair>> rdd;
+    private final long conglomerate;
+    private final String bulkLoadDirectory;
+    private final TxnView txn;
+
+    public HFileIndexBulkLoader(JavaPairRDD<K,Either<Exception,KVPair>> rdd,
+                                long conglomerate,
+                                String bulkLoadDirectory,
+                                TxnView txn){
+        this.rdd=rdd;
+        this.conglomerate=conglomerate;
+        this.bulkLoadDirectory=bulkLoadDirectory;
+        this.txn=txn;
+    }
+
+    public void loadData() throws StandardException{
+        SConfiguration config=HConfiguration.getConfiguration();
+        Configuration conf=HConfiguration.unwrapDelegate();
+        TableName tableName=HBaseTableInfoFactory.getInstance(config).getTableInfo(Long.toString(conglomerate));
+        Path stagingDirectory=new Path(bulkLoadDirectory,Long.toString(txn.getTxnId()));
+        JavaPairRDD<byte[],byte[]> rows=rdd.mapToPair(new UnwrapFunction<K>()).persist(StorageLevel.MEMORY_AND_DISK_SER());
+        FileSystem fs=null;
+        try{
+            Connection connection=HBaseConnectionFactory.getInstance(config).getConnection();
+            byte[][] startKeys;
+            HColumnDescriptor family;
+            try(Table table=connection.getTable(tableName);
+                RegionLocator regionLocator=connection.getRegionLocator(tableName);
+                Admin admin=connection.getAdmin()){
+                HTableDescriptor descriptor=table.getTableDescriptor();
+                family=descriptor.getFamily(SIConstants.DEFAULT_FAMILY_BYTES);
+                startKeys=regionLocator.getStartKeys();
+                if(startKeys.length==1){
+                    long maxFileSize=descriptor.getMaxFileSize();
+                    if(maxFileSize<=0)
+                        maxFileSize=conf.getLong(HConstants.HREGION_MAX_FILESIZE,HConstants.DEFAULT_MAX_FILE_SIZE);
+                    double fraction=config.getIndexBulkLoadSampleFraction();
+                    byte[][] splitPoints=splitPoints(rows.sample(false,fraction).collect(),fraction,maxFileSize/2);
+                    if(splitPoints.length>0)
+                        startKeys=split(admin,regionLocator,tableName,splitPoints,config.getMaxDdlWait());
+                }
+            }
+            if(LOG.isDebugEnabled())
+                SpliceLogUtils.debug(LOG,"Bulk loading index %d (%d regions) through %s",
+                        conglomerate,startKeys.length,stagingDirectory);
+
+            fs=stagingDirectory.getFileSystem(conf);
+            rows.mapToPair(new RegionKeyFunction(startKeys))
+                    .repartitionAndSortWithinPartitions(new HFileBulkImporter.BulkImportPartitioner(startKeys.length),
+                            new BulkImportKey.KeyComparator())
+                    .foreachPartition(new BulkImportHFileFunction(stagingDirectory.toString(),txn.getTxnId(),
+                            new long[]{conglomerate},
+                            new int[]{0},
+                            new Compression.Algorithm[]{family.getCompressionType()},
+                            new DataBlockEncoding[]{family.getDataBlockEncoding()},
+                            new BloomType[]{family.getBloomFilterType()},
+                            new int[]{family.getBlocksize()}));
+
+            Path conglomerateDirectory=new Path(stagingDirectory,Long.toString(conglomerate));
+            if(fs.exists(conglomerateDirectory)){ //otherwise the base table was empty
+                try(HTable table=(HTable)connection.getTable(tableName)){
+                    new LoadIncrementalHFiles(conf).doBulkLoad(conglomerateDirectory,table);
+                }
+            }
+        }catch(Exception e){
+            throw Exceptions.parseException(e);
+        }finally{
+            rows.unpersist(false);
+            if(fs!=null){
+                try{
+                    fs.delete(stagingDirectory,true);
+                }catch(IOException e){
+                    SpliceLogUtils.warn(LOG,"Unable to remove index bulk load staging directory %s: %s",stagingDirectory,e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Choose the points at which to pre-split an index, from a sample of its rows.
+     *
+     * @param sample the sampled rows, as (row key, value) pairs
+     * @param fraction the fraction of all rows which were sampled
+     * @param regionSize the number of bytes to aim for in each region
+     * @return the sorted, distinct split points, which may be empty if the index fits in a single region
+     */
+    static byte[][] splitPoints(List<Tuple2<byte[],byte[]>> sample,double fraction,long regionSize){
+        if(sample.isEmpty() || fraction<=0d) return new byte[0][];
+        List<byte[]> keys=new ArrayList<>(sample.size());
+        long sampledBytes=0L;
+        for(Tuple2<byte[],byte[]> row:sample){
+            keys.add(row._1());
+            sampledBytes+=row._1().length+row._2().length;
+        }
+        long estimatedBytes=(long)Math.min(Long.MAX_VALUE,sampledBytes/fraction);
+        //we can't place more split points than we have sampled keys
+        long numRegions=Math.min(keys.size(),(estimatedBytes+regionSize-1)/regionSize);
+        if(numRegions<=1) return new byte[0][];
+
+        Collections.sort(keys,new Comparator<byte[]>(){
+            @Override
+            public int compare(byte[] o1,byte[] o2){
+                return Bytes.BASE_COMPARATOR.compare(o1,o2);
+            }
+        });
+        List<byte[]> splitPoints=new ArrayList<>((int)numRegions-1);
+        byte[] previous=null;
+        for(int i=1;i<numRegions;i++){
+            byte[] splitPoint=keys.get((int)(i*keys.size()/numRegions));
+            if(previous!=null && Bytes.equals(previous,splitPoint)) continue;
+            splitPoints.add(splitPoint);
+            previous=splitPoint;
+        }
+        return splitPoints.toArray(new byte[splitPoints.size()][]);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    /**
+     * Split the (single) region of the index at each split point in turn, waiting for each split to complete so that
+     * the next one finds its region online.
+     *
+     * Pre-splitting is only an optimization, since the bulk load splits any HFile which spans regions, so if the
+     * splits fail or take too long, we load into whatever regions we have.
+     *
+     * @return the start keys of the index's regions once the splits are done
+     */
+    private static byte[][] split(Admin admin,
+                                  RegionLocator regionLocator,
+                                  TableName tableName,
+                                  byte[][] splitPoints,
+                                  long maxWait) throws IOException{
+        long deadline=System.currentTimeMillis()+maxWait;
+        try{
+            for(byte[] splitPoint:splitPoints){
+                admin.split(tableName,splitPoint);
+                while(!isStartKey(regionLocator.getStartKeys(),splitPoint)){
+                    if(System.currentTimeMillis()>deadline){
+                        SpliceLogUtils.warn(LOG,"Timed out pre-splitting index %s, bulk loading into its current regions",tableName);
+                        return regionLocator.getStartKeys();
+                    }
+                    Thread.sleep(SPLIT_POLL_INTERVAL);
+                }
+            }
+        }catch(IOException e){
+            SpliceLogUtils.warn(LOG,"Unable to pre-split index %s, bulk loading into its current regions: %s",tableName,e.getMessage());
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        return regionLocator.getStartKeys();
+    }
+
+    private static boolean isStartKey(byte[][] startKeys,byte[] key){
+        for(byte[] startKey:startKeys){
+            if(Bytes.equals(startKey,key)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Unwraps the index rows, failing the population if any row could not be computed.
+     */
+    private static class UnwrapFunction<K> implements PairFunction<Tuple2<K,Either<Exception,KVPair>>,byte[],byte[]>{
+        private static final long serialVersionUID=1L;
+
+        @Override
+        public Tuple2<byte[],byte[]> call(Tuple2<K,Either<Exception,KVPair>> row) throws Exception{
+            Either<Exception,KVPair> either=row._2();
+            if(either.isLeft())
+                throw either.left().get();
+            KVPair kvPair=either.right().get();
+            return new Tuple2<>(kvPair.getRowKey(),kvPair.getValue());
+        }
+    }
+
+    /**
+     * Keys each index row by the region it belongs in.
+     */
+    private static class RegionKeyFunction implements PairFunction<Tuple2<byte[],byte[]>,BulkImportKey,byte[]>{
+        private static final long serialVersionUID=1L;
+        private final byte[][] startKeys;
+
+        RegionKeyFunction(byte[][] startKeys){
+            this.startKeys=startKeys;
+        }
+
+        @Override
+        public Tuple2<BulkImportKey,byte[]> call(Tuple2<byte[],byte[]> row) throws Exception{
+            byte[] rowKey=row._1();
+            return new Tuple2<>(new BulkImportKey(BulkImportEncodeFunction.region(startKeys,rowKey),rowKey),row._2());
+        }
+    }
+}
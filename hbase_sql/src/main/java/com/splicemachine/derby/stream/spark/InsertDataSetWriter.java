@@ -70,6 +70,7 @@ public class InsertDataSetWriter<K,V> implements DataSetWriter{
     private long heapConglom;
     private boolean isUpsert;
     private TxnView txn;
+    private HFileBulkImporter<K> bulkImporter;
 
     public InsertDataSetWriter(){
     }
@@ -83,7 +84,8 @@ public class InsertDataSetWriter<K,V> implements DataSetWriter{
                                RowLocation[] autoIncRowArray,
                                SpliceSequence[] sequences,
                                long heapConglom,
-                               boolean isUpsert){
+                               boolean isUpsert,
+                               HFileBulkImporter<K> bulkImporter){
         this.rdd=rdd;
         this.opContext=opContext;
         this.config=config;
@@ -94,11 +96,15 @@ public class InsertDataSetWriter<K,V> implements DataSetWriter{
         this.sequences=sequences;
         this.heapConglom=heapConglom;
         this.isUpsert=isUpsert;
+        this.bulkImporter=bulkImporter;
     }
 
     @Override
     public DataSet<LocatedRow> write() throws StandardException{
-            rdd.saveAsNewAPIHadoopDataset(config);
+            if(bulkImporter!=null)
+                bulkImporter.importData();
+            else
+                rdd.saveAsNewAPIHadoopDataset(config);
             if(opContext.getOperation()!=null){
                 opContext.getOperation().fireAfterStatementTriggers();
             }
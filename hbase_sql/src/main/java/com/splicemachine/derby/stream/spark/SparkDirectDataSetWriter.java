@@ -46,6 +46,7 @@ public class SparkDirectDataSetWriter<K,V> implements DataSetWriter{
     private boolean skipIndex;
     private long destConglom;
     private TxnView txn;
+    private HFileIndexBulkLoader<K> bulkLoader;
 
     public SparkDirectDataSetWriter(JavaPairRDD<K, Either<Exception, V>> rdd,
                                     JavaSparkContext context,
@@ -53,7 +54,8 @@ public class SparkDirectDataSetWriter<K,V> implements DataSetWriter{
                                     Configuration conf,
                                     boolean skipIndex,
                                     long destConglom,
-                                    TxnView txn){
+                                    TxnView txn,
+                                    HFileIndexBulkLoader<K> bulkLoader){
         this.rdd=rdd;
         this.context=context;
         this.opContext=opContext;
@@ -61,11 +63,15 @@ public class SparkDirectDataSetWriter<K,V> implements DataSetWriter{
         this.skipIndex=skipIndex;
         this.destConglom=destConglom;
         this.txn=txn;
+        this.bulkLoader=bulkLoader;
     }
 
     @Override
     public DataSet<LocatedRow> write() throws StandardException{
-        rdd.saveAsNewAPIHadoopDataset(conf);
+        if(bulkLoader!=null)
+            bulkLoader.loadData();
+        else
+            rdd.saveAsNewAPIHadoopDataset(conf);
         ValueRow valueRow=new ValueRow(1);
         valueRow.setColumn(1,new SQLLongint(0));
         return new SparkDataSet<>(context.parallelize(Collections.singletonList(new LocatedRow(valueRow)), 1));
@@ -30,6 +30,7 @@ import com.splicemachine.derby.impl.SpliceSpark;
 import com.splicemachine.derby.stream.output.DataSetWriter;
 import com.splicemachine.derby.stream.output.direct.DirectTableWriterBuilder;
 import com.splicemachine.derby.stream.utils.TableWriterUtils;
+import com.splicemachine.kvpair.KVPair;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.stream.index.HTableOutputFormat;
 import scala.util.Either;
@@ -48,6 +49,7 @@ public class SparkDirectWriterBuilder<K,V> extends DirectTableWriterBuilder{
         this.rdd=rdd;
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public DataSetWriter build() throws StandardException{
         try{
@@ -55,7 +57,11 @@ public class SparkDirectWriterBuilder<K,V> extends DirectTableWriterBuilder{
             TableWriterUtils.serializeHTableWriterBuilder(conf,this);
             conf.setClass(JobContext.OUTPUT_FORMAT_CLASS_ATTR,HTableOutputFormat.class,HTableOutputFormat.class);
             JavaSparkContext context=SpliceSpark.getContext();
-            return new SparkDirectDataSetWriter<>(rdd,context,opCtx,conf,skipIndex,destConglomerate,txn);
+            HFileIndexBulkLoader<K> bulkLoader=null;
+            if(bulkLoadDirectory!=null)
+                bulkLoader=new HFileIndexBulkLoader<>((JavaPairRDD<K,Either<Exception,KVPair>>)(JavaPairRDD)rdd,
+                        destConglomerate,bulkLoadDirectory,txn);
+            return new SparkDirectDataSetWriter<>(rdd,context,opCtx,conf,skipIndex,destConglomerate,txn,bulkLoader);
         }catch(Exception e){
             throw Exceptions.parseException(e);
         }
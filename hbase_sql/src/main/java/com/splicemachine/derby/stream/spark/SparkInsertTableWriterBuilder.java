@@ -16,6 +16,7 @@
 package com.splicemachine.derby.stream.spark;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.JobContext;
@@ -23,6 +24,9 @@ import org.apache.spark.api.java.JavaPairRDD;
 
 import com.splicemachine.access.HConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.impl.sql.execute.operations.InsertOperation;
 import com.splicemachine.derby.stream.output.DataSetWriter;
 import com.splicemachine.derby.stream.output.insert.InsertTableWriterBuilder;
 import com.splicemachine.derby.stream.utils.TableWriterUtils;
@@ -47,6 +51,13 @@ public class SparkInsertTableWriterBuilder<K,V> extends InsertTableWriterBuilder
     @SuppressWarnings("unchecked")
     @Override
     public DataSetWriter build() throws StandardException{
+        HFileBulkImporter<K> bulkImporter=null;
+        if(bulkImportDirectory!=null){
+            //fail before doing any work if the table cannot be bulk imported into
+            List<DDLMessage.TentativeIndex> indexes=((InsertOperation)operationContext.getOperation()).getBulkImportIndexes();
+            bulkImporter=new HFileBulkImporter<>((JavaPairRDD<K,Either<Exception,ExecRow>>)(JavaPairRDD)rdd,
+                    this,indexes,bulkImportDirectory,txn);
+        }
         if(operationContext.getOperation()!=null){
             operationContext.getOperation().fireBeforeStatementTriggers();
         }
@@ -66,6 +77,7 @@ public class SparkInsertTableWriterBuilder<K,V> extends InsertTableWriterBuilder
                 autoIncrementRowLocationArray,
                 spliceSequences,
                 heapConglom,
-                isUpsert);
+                isUpsert,
+                bulkImporter);
     }
 }
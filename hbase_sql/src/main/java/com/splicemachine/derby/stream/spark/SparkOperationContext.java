@@ -52,6 +52,7 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
     public Accumulator<Long> rowsRead;
     public Accumulator<Long> rowsJoinedLeft;
     public Accumulator<Long> rowsJoinedRight;
+    public Accumulator<Long> joinTableMemory;
     public Accumulator<Long> rowsProduced;
     public Accumulator<Long> rowsFiltered;
     public Accumulator<Long> rowsWritten;
@@ -92,6 +93,7 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         this.rowsWritten=SpliceSpark.getContext().accumulator(0l,baseName+" rows written",param);
         this.rowsJoinedLeft=SpliceSpark.getContext().accumulator(0l,baseName+" rows joined left",param);
         this.rowsJoinedRight=SpliceSpark.getContext().accumulator(0l,baseName+" rows joined right",param);
+        this.joinTableMemory=SpliceSpark.getContext().accumulator(0l,baseName+" join table bytes in memory",param);
         this.rowsProduced=SpliceSpark.getContext().accumulator(0l,baseName+" rows produced",param);
 
         this.retryAttempts =SpliceSpark.getContext().accumulator(0L, "(WritePipeline) retry attempts", param);
@@ -121,6 +123,7 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         this.rowsWritten=SpliceSpark.getContext().accumulator(0l,"rows written",param);
         this.rowsJoinedLeft=SpliceSpark.getContext().accumulator(0l,"rows joined left",param);
         this.rowsJoinedRight=SpliceSpark.getContext().accumulator(0l,"rows joined right",param);
+        this.joinTableMemory=SpliceSpark.getContext().accumulator(0l,"join table bytes in memory",param);
         this.rowsProduced=SpliceSpark.getContext().accumulator(0l,"rows produced",param);
 
         this.retryAttempts =SpliceSpark.getContext().accumulator(0L, "(WritePipeline) retry attempts", param);
@@ -158,6 +161,7 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         out.writeObject(regionTooBusyExceptions);
         out.writeObject(rowsJoinedLeft);
         out.writeObject(rowsJoinedRight);
+        out.writeObject(joinTableMemory);
         out.writeObject(rowsProduced);
         out.writeObject(badRecordsAccumulator);
         out.writeObject(thrownErrorsRows);
@@ -193,6 +197,7 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         regionTooBusyExceptions =(Accumulator)in.readObject();
         rowsJoinedLeft=(Accumulator<Long>)in.readObject();
         rowsJoinedRight=(Accumulator<Long>)in.readObject();
+        joinTableMemory=(Accumulator<Long>)in.readObject();
         rowsProduced=(Accumulator<Long>)in.readObject();
         badRecordsAccumulator = (Accumulable<BadRecordsRecorder,String>) in.readObject();
 
@@ -329,6 +334,11 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         rowsJoinedRight.add(1l);
     }
 
+    @Override
+    public void recordJoinTableMemory(long bytes){
+        joinTableMemory.add(bytes);
+    }
+
     @Override
     public void recordProduced(){
         rowsProduced.add(1l);
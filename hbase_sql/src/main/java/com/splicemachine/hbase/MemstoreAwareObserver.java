@@ -15,11 +15,13 @@
 
 package com.splicemachine.hbase;
 
+import com.splicemachine.access.HConfiguration;
 import com.splicemachine.access.client.ClientRegionConstants;
 import com.splicemachine.access.client.MemStoreFlushAwareScanner;
 import com.splicemachine.access.client.MemstoreAware;
 import com.splicemachine.compactions.SpliceCompactionRequest;
 import com.splicemachine.derby.hbase.*;
+import com.splicemachine.derby.impl.stats.IncrementalStatsStore;
 import com.splicemachine.mrio.MRConstants;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.constants.SIConstants;
@@ -149,6 +151,8 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
                 if(memstoreAware.compareAndSet(latest, MemstoreAware.changeSplitMerge(latest, false)))
                     break;
             }
+        //the region has moved, split or merged, so the writes tracked for it here no longer describe a partition
+        IncrementalStatsStore.clear(e.getEnvironment().getRegionInfo().getRegionNameAsString());
         super.postClose(e, abortRequested);
     }
 
@@ -213,10 +217,25 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
 
                 throw new DoNotRetryIOException();
             }
+        }else if(s==null && shouldPruneStoreFiles(scan)){
+            HRegion region = (HRegion) c.getEnvironment().getRegion();
+            return new ZoneMapStoreScanner(store, store.getScanInfo(), scan, targetCols, getReadpoint(region));
         }else return s;
 
     }
 
+    /*
+     * Only SI scans carry predicates which the zone maps of the store files can be checked against. Gets
+     * are left alone, since they touch a single row and already use the bloom filters.
+     */
+    private boolean shouldPruneStoreFiles(Scan scan){
+        return HConfiguration.getConfiguration().isTableZoneMapsEnabled()
+                && scan.getAttribute(SIConstants.SI_NEEDED)!=null
+                && scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL)!=null
+                && !scan.isReversed()
+                && !scan.isGetScan();
+    }
+
     private boolean startRowInRange(ObserverContext<RegionCoprocessorEnvironment> c, byte[] startRow) {
         return HRegion.rowIsInRange(c.getEnvironment().getRegion().getRegionInfo(), startRow);
     }
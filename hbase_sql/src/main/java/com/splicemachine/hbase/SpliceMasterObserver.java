@@ -74,7 +74,9 @@ public class SpliceMasterObserver extends BaseMasterObserver {
         int timestampBlockSize = configuration.getTimestampBlockSize();
 
         TimestampBlockManager tbm= new ZkTimestampBlockManager(rzk,timestampReservedPath);
-        this.timestampServer =new TimestampServer(timestampPort,tbm,timestampBlockSize);
+        // clients only ask for batches once batching is enabled everywhere, see SIConfigurations
+        boolean acceptTimestampBatches = configuration.getTimestampClientMaxBatchSize()>1;
+        this.timestampServer =new TimestampServer(timestampPort,tbm,timestampBlockSize,acceptTimestampBatches);
 
         this.timestampServer.startServer();
 
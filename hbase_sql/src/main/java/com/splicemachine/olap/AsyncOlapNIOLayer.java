@@ -121,6 +121,11 @@ public class AsyncOlapNIOLayer implements JobExecutor{
     private OlapResult parseFromResponse(OlapMessage.Response response) throws IOException{
         switch(response.getType()){
             case NOT_SUBMITTED:
+                if(response.hasExtension(OlapMessage.ProgressResponse.response)){
+                    OlapMessage.ProgressResponse nsr=response.getExtension(OlapMessage.ProgressResponse.response);
+                    if(nsr.hasRejectionReason())
+                        return new NotSubmittedResult(nsr.getRejectionReason());
+                }
                 return new NotSubmittedResult();
             case FAILED:
                 OlapMessage.FailedResponse fr=response.getExtension(OlapMessage.FailedResponse.response);
@@ -444,8 +449,14 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             if(or instanceof SubmittedResult) {
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
             }else if(future.submitted && !future.isDone() && or instanceof NotSubmittedResult) {
-                // The job is no longer submitted, assume aborted
-                future.fail(new IOException("Status not available, assuming aborted due to client timeout"));
+                Throwable t=or.getThrowable();
+                if(t!=null){
+                    // The server gave up on the job before running it (e.g. it waited too long in its queue)
+                    future.fail(t);
+                }else{
+                    // The job is no longer submitted, assume aborted
+                    future.fail(new IOException("Status not available, assuming aborted due to client timeout"));
+                }
             }else if(or.isSuccess()){
                 future.success(or);
             }else{
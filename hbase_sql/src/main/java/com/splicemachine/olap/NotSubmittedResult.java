@@ -17,11 +17,36 @@ package com.splicemachine.olap;
 
 import com.splicemachine.derby.iapi.sql.olap.OlapResult;
 
+import java.io.IOException;
+
 /**
  * @author Scott Fines
  *         Date: 4/4/16
  */
 public class NotSubmittedResult implements OlapResult{
-    @Override public Throwable getThrowable(){ return null; }
+    private final String reason;
+
+    public NotSubmittedResult(){
+        this(null);
+    }
+
+    /**
+     * @param reason why the server refused to run the job (e.g. because its resource pool is full), or
+     *               {@code null} if the server simply doesn't know about it
+     */
+    public NotSubmittedResult(String reason){
+        this.reason=reason;
+    }
+
+    public String getReason(){
+        return reason;
+    }
+
+    @Override public Throwable getThrowable(){ return reason==null?null:new IOException(reason); }
     @Override public boolean isSuccess(){ return false; }
+
+    @Override
+    public String toString(){
+        return reason==null?"NotSubmittedResult":"NotSubmittedResult{"+reason+"}";
+    }
 }
@@ -25,10 +25,11 @@ import org.sparkproject.jboss.netty.channel.SimpleChannelUpstreamHandler;
  *         Date: 4/1/16
  */
 public class OlapCancelHandler extends AbstractOlapHandler{
+    private final OlapWorkloadManager workloadManager;
 
-
-    public OlapCancelHandler(OlapJobRegistry registry){
+    public OlapCancelHandler(OlapJobRegistry registry,OlapWorkloadManager workloadManager){
         super(registry);
+        this.workloadManager=workloadManager;
     }
 
     @Override
@@ -39,7 +40,12 @@ public class OlapCancelHandler extends AbstractOlapHandler{
             return;
         }
 
+        OlapJobStatus status=jobRegistry.getStatus(cmd.getUniqueName());
         jobRegistry.clear(cmd.getUniqueName());
+        if(status!=null){
+            //don't let a job which will never run hold on to its place in the queue
+            workloadManager.cancelled(status);
+        }
         //no response is needed for cancellation
     }
 }
@@ -36,6 +36,8 @@ public class OlapJobStatus implements OlapStatus{
 
     private volatile AtomicReference<OlapStatus.State> currentState = new AtomicReference<>(State.NOT_SUBMITTED);
     private volatile OlapResult results;
+    private volatile NotSubmittedResult rejection;
+    private volatile ResourcePool pool;
 
     public OlapJobStatus(long tickTime,int numTicks){
         //TODO -sf- remove the constants
@@ -57,6 +59,8 @@ public class OlapJobStatus implements OlapStatus{
         State curState = currentState();
         switch(curState){
             case NOT_SUBMITTED:
+                NotSubmittedResult r = rejection;
+                if(r!=null) return r; //refused by its resource pool
             case SUBMITTED:
                 return new SubmittedResult(tickTime);
             case RUNNING:
@@ -100,9 +104,44 @@ public class OlapJobStatus implements OlapStatus{
             }
             shouldContinue = !currentState.compareAndSet(currState,State.SUBMITTED);
         }while(shouldContinue);
+        rejection = null;
         return true;
     }
 
+    /**
+     * Refuse to run a job which was submitted, but has not yet started running. The job returns to the
+     * NOT_SUBMITTED state, and its result explains why.
+     *
+     * @param reason why the job was refused
+     * @return true if the job was refused, false if it had already started or finished.
+     */
+    public boolean reject(String reason){
+        /*
+         * Set the reason before changing the state, so that anyone who sees a rejected job
+         * also sees why. The reason is ignored in every other state.
+         */
+        rejection = new NotSubmittedResult(reason);
+        return currentState.compareAndSet(State.SUBMITTED,State.NOT_SUBMITTED);
+    }
+
+    /**
+     * @return true if the job was refused by {@link #reject(String)}
+     */
+    public boolean isRejected(){
+        return rejection!=null && currentState.get()==State.NOT_SUBMITTED;
+    }
+
+    void setPool(ResourcePool pool){
+        this.pool = pool;
+    }
+
+    /**
+     * @return the resource pool the job was admitted to, or {@code null} if it hasn't been admitted
+     */
+    ResourcePool getPool(){
+        return pool;
+    }
+
     public void markCompleted(OlapResult result){
         boolean shouldContinue;
         do{
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.olap;
+
+import javax.management.MXBean;
+
+/**
+ * Status MBean for a single resource pool of the Olap server.
+ */
+@MXBean
+public interface OlapPoolStatus{
+
+    String getName();
+
+    int getMaxConcurrentJobs();
+
+    int getMaxQueuedJobs();
+
+    int getPriority();
+
+    int getWeight();
+
+    /**
+     * @return the number of milliseconds a job may wait before it is rejected, or 0 if there is no limit
+     */
+    long getMaxQueueTime();
+
+    /**
+     * @return the number of jobs which are waiting for a slot
+     */
+    int getQueuedJobs();
+
+    int getRunningJobs();
+
+    /**
+     * @return the average time (in milliseconds) which admitted jobs waited before they started running
+     */
+    long getAvgQueueWaitMillis();
+
+    /**
+     * @return the longest time (in milliseconds) which an admitted job waited before it started running
+     */
+    long getMaxQueueWaitMillis();
+
+    long getTotalAdmittedJobs();
+
+    /**
+     * @return the number of jobs which were rejected, either because the queue was full or because
+     * they waited too long
+     */
+    long getTotalRejectedJobs();
+}
@@ -15,8 +15,6 @@
 
 package com.splicemachine.olap;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.olap.OlapMessage;
 import com.splicemachine.concurrent.Clock;
 import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
@@ -24,9 +22,6 @@ import org.apache.log4j.Logger;
 import org.sparkproject.jboss.netty.channel.*;
 
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 
 /**
  * @author Scott Fines
@@ -35,16 +30,16 @@ import java.util.concurrent.ThreadFactory;
 class OlapRequestHandler extends AbstractOlapHandler{
     private static final Logger LOG =Logger.getLogger(OlapRequestHandler.class);
 
-    private final ExecutorService executionPool;
+    private final OlapWorkloadManager workloadManager;
     private final Clock clock;
     private final long clientCheckTimeMs;
 
-    OlapRequestHandler(SConfiguration config,
+    OlapRequestHandler(OlapWorkloadManager workloadManager,
                        OlapJobRegistry jobRegistry,
                        Clock clock,
                        long clientCheckTimeMs){
         super(jobRegistry);
-        this.executionPool=configureThreadPool(config);
+        this.workloadManager=workloadManager;
         this.clock=clock;
         this.clientCheckTimeMs=clientCheckTimeMs;
     }
@@ -93,34 +88,11 @@ class OlapRequestHandler extends AbstractOlapHandler{
         }
         final Callable<Void> job=jr.toCallable(jobStatus,clock,clientCheckTimeMs);
 
-        executionPool.submit(new Callable<Void>() {
-            @Override
-            public Void call() throws Exception {
-                try {
-                    return job.call();
-                } catch (Throwable t) {
-                    LOG.error("Uncaught exception", t);
-                    if (jobStatus.isRunning()) {
-                        jobStatus.markCompleted(new FailedOlapResult(t));
-                    }
-                }
-                return null;
-            }
-        });
-        if(LOG.isTraceEnabled())
+        if(!workloadManager.submit(jr,jobStatus,job)){
+            if(LOG.isTraceEnabled())
+                LOG.trace("Job "+ jobRequest.getUniqueName()+" was rejected by its resource pool");
+        }else if(LOG.isTraceEnabled())
             LOG.trace("Job "+ jobRequest.getUniqueName()+" successfully submitted");
         writeResponse(e,jr.getUniqueName(),jobStatus);
     }
-
-
-
-    /* ****************************************************************************************************************/
-    /*private helper methods*/
-
-
-    private ExecutorService configureThreadPool(SConfiguration config){
-        //TODO -sf- bound this by the number of possible Spark tasks which can run in YARN
-        ThreadFactory tf =new ThreadFactoryBuilder().setDaemon(true).setNameFormat("olap-worker-%d").build();
-        return Executors.newCachedThreadPool(tf);
-    }
 }
@@ -18,6 +18,7 @@ package com.splicemachine.olap;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ZeroCopyLiteralByteString;
 import com.splicemachine.olap.OlapMessage;
+import com.splicemachine.derby.iapi.sql.olap.OlapResult;
 import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
 
 import java.io.*;
@@ -66,14 +67,25 @@ class OlapSerializationUtils{
         }else{
             switch(status.checkState()){
                 case NOT_SUBMITTED:
-                    response.setType(OlapMessage.Response.Type.NOT_SUBMITTED);
-                    OlapMessage.ProgressResponse pr=OlapMessage.ProgressResponse.newBuilder().setTickTimeMillis(tickTime).build();
-                    response.setExtension(OlapMessage.ProgressResponse.response,pr);
+                    OlapResult result=status.getResult();
+                    if(result instanceof NotSubmittedResult && ((NotSubmittedResult)result).getReason()!=null){
+                        //the server refused the job, so tell the client why, and forget about it
+                        shouldRemoveAfterWriting[0]=true;
+                        OlapMessage.ProgressResponse pr=OlapMessage.ProgressResponse.newBuilder()
+                                .setTickTimeMillis(tickTime)
+                                .setRejectionReason(((NotSubmittedResult)result).getReason()).build();
+                        response.setType(OlapMessage.Response.Type.NOT_SUBMITTED);
+                        response.setExtension(OlapMessage.ProgressResponse.response,pr);
+                        break;
+                    }
+                    /*
+                     * Otherwise, the job was registered but is about to be submitted, so we report it
+                     * as in progress
+                     */
                 case SUBMITTED:
                 case RUNNING:
                     response.setType(OlapMessage.Response.Type.IN_PROGRESS);
-                    OlapMessage.ProgressResponse build=OlapMessage.ProgressResponse.newBuilder().setTickTimeMillis(tickTime).build();
-                    response.setExtension(OlapMessage.ProgressResponse.response,build);
+                    response.setExtension(OlapMessage.ProgressResponse.response,buildProgress(status,tickTime));
                     break;
                 case CANCELED:
                     shouldRemoveAfterWriting[0]=true;
@@ -100,4 +112,16 @@ class OlapSerializationUtils{
         }
         return response.build();
     }
+
+    private static OlapMessage.ProgressResponse buildProgress(OlapStatus status,long tickTime){
+        OlapMessage.ProgressResponse.Builder pr=OlapMessage.ProgressResponse.newBuilder().setTickTimeMillis(tickTime);
+        ResourcePool pool=status instanceof OlapJobStatus?((OlapJobStatus)status).getPool():null;
+        if(pool!=null){
+            pr.setPool(pool.getName())
+                    .setQueuedJobs(pool.getQueuedJobs())
+                    .setRunningJobs(pool.getRunningJobs())
+                    .setAvgQueueWaitMillis(pool.getAvgQueueWaitMillis());
+        }
+        return pr.build();
+    }
 }
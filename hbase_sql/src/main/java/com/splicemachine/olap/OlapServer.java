@@ -28,6 +28,8 @@ import org.sparkproject.jboss.netty.channel.ChannelFactory;
 import org.sparkproject.jboss.netty.channel.ChannelHandler;
 import org.sparkproject.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -40,6 +42,7 @@ public class OlapServer {
     private Clock clock;
     private ChannelFactory factory;
     private Channel channel;
+    private OlapWorkloadManager workloadManager;
 
     public OlapServer(int port,Clock clock) {
         this.port = port;
@@ -59,10 +62,12 @@ public class OlapServer {
         OlapJobRegistry registry = new MappedJobRegistry(config.getOlapClientTickTime(),
                 config.getOlapServerTickLimit(),
                 TimeUnit.MILLISECONDS);
-        ChannelHandler submitHandler = new OlapRequestHandler(config,
+        this.workloadManager = new OlapWorkloadManager(config,clock);
+        registerJMX(workloadManager);
+        ChannelHandler submitHandler = new OlapRequestHandler(workloadManager,
                 registry,clock,config.getOlapClientTickTime());
         ChannelHandler statusHandler = new OlapStatusHandler(registry);
-        ChannelHandler cancelHandler = new OlapCancelHandler(registry);
+        ChannelHandler cancelHandler = new OlapCancelHandler(registry,workloadManager);
 
         bootstrap.setPipelineFactory(new OlapPipelineFactory(submitHandler,cancelHandler,statusHandler));
         bootstrap.setOption("tcpNoDelay", false);
@@ -82,6 +87,15 @@ public class OlapServer {
         executor.scheduleWithFixedDelay(task, 0, reservedSlotsTimeout, TimeUnit.SECONDS);
     }
 
+    private void registerJMX(OlapWorkloadManager workloadManager) {
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            workloadManager.registerJMX(mbs);
+        } catch (Exception e) {
+            LOG.warn("Unable to register Olap resource pools with JMX", e);
+        }
+    }
+
     private int getPortNumber() {
         return port;
     }
@@ -101,5 +115,7 @@ public class OlapServer {
             LOG.error("unexpected exception during stop server", e);
         }
         this.factory.shutdown();
+        if (workloadManager != null)
+            workloadManager.shutdown();
     }
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.olap;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import org.apache.log4j.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the Olap server.
+ *
+ * Every job is placed in a {@link ResourcePool}, chosen by the user (or failing that, the role) which submitted
+ * it. A job runs as soon as its pool and the server both have a free slot; otherwise it waits in its pool's queue,
+ * and a job which arrives to a full queue is rejected. Whenever a slot frees up, the next job is taken from the
+ * pool with the highest priority which can run one, and among pools of equal priority from the one which is
+ * using the least of the server relative to its weight. Jobs which wait for longer than their pool allows are
+ * rejected as well. Rejected jobs are answered with a {@link NotSubmittedResult} explaining why.
+ */
+class OlapWorkloadManager{
+    private static final Logger LOG=Logger.getLogger(OlapWorkloadManager.class);
+    static final String DEFAULT_POOL="default";
+
+    private final Map<String,ResourcePool> pools;
+    private final ResourcePool defaultPool;
+    private final Map<String,ResourcePool> poolMapping;
+    private final int maxRunningJobs;
+    private final ExecutorService executionPool;
+    private final ScheduledExecutorService expirer;
+    private final Clock clock;
+
+    private int runningJobs; //guarded by this
+
+    OlapWorkloadManager(SConfiguration config,Clock clock){
+        this(parsePools(config.getOlapServerPools(),new ResourcePool(DEFAULT_POOL,
+                        config.getOlapServerThreads(),
+                        config.getOlapServerMaxQueuedJobs(),
+                        0,1,
+                        config.getOlapServerMaxQueueTime())),
+                parseMapping(config.getOlapServerPoolMapping()),
+                config.getOlapServerThreads(),
+                clock,
+                config.getOlapClientTickTime());
+    }
+
+    OlapWorkloadManager(Collection<ResourcePool> pools,
+                        Map<String,String> poolMapping,
+                        int maxRunningJobs,
+                        Clock clock,
+                        long expiryCheckIntervalMs){
+        this.pools=new LinkedHashMap<>();
+        for(ResourcePool pool:pools){
+            this.pools.put(pool.getName(),pool);
+        }
+        this.defaultPool=this.pools.get(DEFAULT_POOL);
+        if(defaultPool==null)
+            throw new IllegalArgumentException("No "+DEFAULT_POOL+" pool is configured");
+        //Derby user and role names are case-normalized, so match them regardless of case
+        this.poolMapping=new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for(Map.Entry<String,String> mapping:poolMapping.entrySet()){
+            ResourcePool pool=this.pools.get(mapping.getValue());
+            if(pool==null)
+                LOG.warn("Ignoring mapping of "+mapping.getKey()+" to unknown Olap pool "+mapping.getValue());
+            else
+                this.poolMapping.put(mapping.getKey(),pool);
+        }
+        this.maxRunningJobs=maxRunningJobs;
+        this.clock=clock;
+
+        ThreadFactory tf=new ThreadFactoryBuilder().setDaemon(true).setNameFormat("olap-worker-%d").build();
+        this.executionPool=Executors.newCachedThreadPool(tf);
+        this.expirer=Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("olap-queue-expirer").build());
+        this.expirer.scheduleWithFixedDelay(new Runnable(){
+            @Override
+            public void run(){
+                try{
+                    expireQueuedJobs();
+                }catch(Throwable t){
+                    LOG.error("Unexpected error expiring queued Olap jobs",t);
+                }
+            }
+        },expiryCheckIntervalMs,expiryCheckIntervalMs,TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Admit a job which has been marked submitted, and run it when its turn comes.
+     *
+     * @return true if the job was admitted, false if it was rejected (in which case its status
+     * has been moved back to NOT_SUBMITTED, with the reason).
+     */
+    boolean submit(DistributedJob job,OlapJobStatus jobStatus,Callable<Void> callable){
+        return submit(job.getUniqueName(),poolFor(job.getUser(),job.getRole()),jobStatus,callable);
+    }
+
+    boolean submit(String jobName,ResourcePool pool,OlapJobStatus jobStatus,Callable<Void> callable){
+        synchronized(this){
+            if(pool.isQueueFull() && !(pool.hasFreeSlot() && runningJobs<maxRunningJobs)){
+                pool.rejected();
+                jobStatus.reject("Olap pool "+pool.getName()+" is full: "+pool.getRunningJobs()+" jobs are running and "+
+                        pool.getQueuedJobs()+" are waiting");
+                if(LOG.isDebugEnabled())
+                    LOG.debug("Rejected job "+jobName+" from full pool "+pool.getName());
+                return false;
+            }
+            jobStatus.setPool(pool);
+            pool.enqueue(new ResourcePool.QueuedJob(jobName,jobStatus,callable,clock.currentTimeMillis()));
+            dispatch();
+        }
+        return true;
+    }
+
+    /**
+     * Release the queue slot of a job which was cancelled before it started running.
+     */
+    synchronized void cancelled(OlapJobStatus jobStatus){
+        ResourcePool pool=jobStatus.getPool();
+        if(pool!=null && pool.remove(jobStatus) && LOG.isDebugEnabled())
+            LOG.debug("Removed cancelled job from the queue of pool "+pool.getName());
+    }
+
+    List<ResourcePool> getPools(){
+        return Collections.unmodifiableList(new ArrayList<>(pools.values()));
+    }
+
+    /**
+     * @return the pool which jobs submitted by {@code user} under {@code role} run in
+     */
+    ResourcePool poolFor(String user,String role){
+        ResourcePool pool=user==null?null:poolMapping.get(user);
+        if(pool==null && role!=null)
+            pool=poolMapping.get(role);
+        return pool==null?defaultPool:pool;
+    }
+
+    void registerJMX(MBeanServer mbs) throws Exception{
+        for(ResourcePool pool:pools.values()){
+            try{
+                mbs.registerMBean(pool,new ObjectName("com.splicemachine.olap:type=OlapResourcePool,name="+ObjectName.quote(pool.getName())));
+            }catch(InstanceAlreadyExistsException ignored){
+                //another server in this JVM has already registered a pool with this name
+            }
+        }
+    }
+
+    void shutdown(){
+        expirer.shutdownNow();
+        executionPool.shutdownNow();
+    }
+
+    /* ****************************************************************************************************************/
+    /*package-private methods for testing*/
+
+    synchronized void expireQueuedJobs(){
+        long now=clock.currentTimeMillis();
+        for(ResourcePool pool:pools.values()){
+            List<ResourcePool.QueuedJob> expired=pool.removeStale(now);
+            if(expired==null) continue;
+            for(ResourcePool.QueuedJob job:expired){
+                if(job.status.reject("Job waited for more than "+pool.getMaxQueueTime()+
+                        " ms in Olap pool "+pool.getName())){
+                    pool.rejected();
+                    if(LOG.isDebugEnabled())
+                        LOG.debug("Job "+job.name+" timed out in the queue of pool "+pool.getName());
+                }
+            }
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void dispatch(){
+        assert Thread.holdsLock(this);
+        while(runningJobs<maxRunningJobs){
+            ResourcePool next=null;
+            for(ResourcePool pool:pools.values()){
+                if(pool.getQueuedJobs()==0 || !pool.hasFreeSlot()) continue;
+                if(next==null
+                        || pool.getPriority()>next.getPriority()
+                        || (pool.getPriority()==next.getPriority() && pool.share()<next.share()))
+                    next=pool;
+            }
+            if(next==null) return;
+
+            ResourcePool.QueuedJob job=next.poll();
+            if(job.status.currentState()!=OlapJobStatus.State.SUBMITTED){
+                //cancelled while it waited, or its client went away
+                continue;
+            }
+            next.started(clock.currentTimeMillis()-job.enqueueTime);
+            runningJobs++;
+            start(next,job);
+        }
+    }
+
+    private void start(final ResourcePool pool,final ResourcePool.QueuedJob job){
+        if(LOG.isTraceEnabled())
+            LOG.trace("Starting job "+job.name+" in pool "+pool.getName());
+        executionPool.submit(new Callable<Void>(){
+            @Override
+            public Void call() throws Exception{
+                try{
+                    return job.callable.call();
+                }catch(Throwable t){
+                    LOG.error("Uncaught exception",t);
+                    if(job.status.isRunning()){
+                        job.status.markCompleted(new FailedOlapResult(t));
+                    }
+                }finally{
+                    finished(pool);
+                }
+                return null;
+            }
+        });
+    }
+
+    private synchronized void finished(ResourcePool pool){
+        pool.finished();
+        runningJobs--;
+        dispatch();
+    }
+
+    /**
+     * Parse a pool specification of the form {@code name:maxConcurrent:maxQueued:priority:weight:maxQueueTimeMs[,...]}.
+     * Malformed entries are logged and ignored.
+     *
+     * @param defaultPool the default pool, which an entry named {@link #DEFAULT_POOL} replaces
+     */
+    static List<ResourcePool> parsePools(String spec,ResourcePool defaultPool){
+        Map<String,ResourcePool> pools=new LinkedHashMap<>();
+        pools.put(DEFAULT_POOL,defaultPool);
+        if(spec==null) return new ArrayList<>(pools.values());
+        for(String entry:spec.split(",")){
+            entry=entry.trim();
+            if(entry.isEmpty()) continue;
+            String[] fields=entry.split(":");
+            try{
+                if(fields.length!=6)
+                    throw new IllegalArgumentException("expected 6 fields, found "+fields.length);
+                ResourcePool pool=new ResourcePool(fields[0].trim(),
+                        Integer.parseInt(fields[1].trim()),
+                        Integer.parseInt(fields[2].trim()),
+                        Integer.parseInt(fields[3].trim()),
+                        Integer.parseInt(fields[4].trim()),
+                        Long.parseLong(fields[5].trim()));
+                pools.put(pool.getName(),pool);
+            }catch(IllegalArgumentException e){
+                LOG.warn("Ignoring malformed Olap pool definition \""+entry+"\": "+e.getMessage());
+            }
+        }
+        return new ArrayList<>(pools.values());
+    }
+
+    /**
+     * Parse a pool mapping of the form {@code userOrRole=pool[,...]}. Malformed entries are logged and ignored.
+     */
+    static Map<String,String> parseMapping(String spec){
+        Map<String,String> mapping=new LinkedHashMap<>();
+        if(spec==null) return mapping;
+        for(String entry:spec.split(",")){
+            entry=entry.trim();
+            if(entry.isEmpty()) continue;
+            int eq=entry.indexOf('=');
+            if(eq<=0 || eq==entry.length()-1){
+                LOG.warn("Ignoring malformed Olap pool mapping \""+entry+"\"");
+                continue;
+            }
+            mapping.put(entry.substring(0,eq).trim(),entry.substring(eq+1).trim());
+        }
+        return mapping;
+    }
+}
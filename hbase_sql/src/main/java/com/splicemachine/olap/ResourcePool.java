@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.olap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A named share of the Olap server, with its own limits on how many of its jobs may run and wait at once.
+ *
+ * The queue and the running count are owned by the {@link OlapWorkloadManager}, and are only modified
+ * under its lock. The gauges may be read from anywhere.
+ */
+public class ResourcePool implements OlapPoolStatus{
+    private final String name;
+    private final int maxConcurrentJobs;
+    private final int maxQueuedJobs;
+    private final int priority;
+    private final int weight;
+    private final long maxQueueTime;
+
+    private final Deque<QueuedJob> queue=new ArrayDeque<>(); //guarded by the workload manager's lock
+    private volatile int queuedJobs;
+    private volatile int runningJobs;
+    private volatile long totalAdmitted;
+    private volatile long totalRejected;
+    private volatile long totalQueueWait;
+    private volatile long maxQueueWait;
+
+    public ResourcePool(String name,int maxConcurrentJobs,int maxQueuedJobs,int priority,int weight,long maxQueueTime){
+        if(maxConcurrentJobs<1)
+            throw new IllegalArgumentException("Pool "+name+" must allow at least one concurrent job");
+        if(maxQueuedJobs<0)
+            throw new IllegalArgumentException("Pool "+name+" cannot have a negative queue size");
+        if(weight<1)
+            throw new IllegalArgumentException("Pool "+name+" must have a positive weight");
+        this.name=name;
+        this.maxConcurrentJobs=maxConcurrentJobs;
+        this.maxQueuedJobs=maxQueuedJobs;
+        this.priority=priority;
+        this.weight=weight;
+        this.maxQueueTime=maxQueueTime;
+    }
+
+    @Override public String getName(){ return name; }
+    @Override public int getMaxConcurrentJobs(){ return maxConcurrentJobs; }
+    @Override public int getMaxQueuedJobs(){ return maxQueuedJobs; }
+    @Override public int getPriority(){ return priority; }
+    @Override public int getWeight(){ return weight; }
+    @Override public long getMaxQueueTime(){ return maxQueueTime; }
+    @Override public int getQueuedJobs(){ return queuedJobs; }
+    @Override public int getRunningJobs(){ return runningJobs; }
+    @Override public long getMaxQueueWaitMillis(){ return maxQueueWait; }
+    @Override public long getTotalAdmittedJobs(){ return totalAdmitted; }
+    @Override public long getTotalRejectedJobs(){ return totalRejected; }
+
+    @Override
+    public long getAvgQueueWaitMillis(){
+        long admitted=totalAdmitted;
+        return admitted==0?0:totalQueueWait/admitted;
+    }
+
+    @Override
+    public String toString(){
+        return "ResourcePool{"+name+
+                ", maxConcurrentJobs="+maxConcurrentJobs+
+                ", maxQueuedJobs="+maxQueuedJobs+
+                ", priority="+priority+
+                ", weight="+weight+
+                ", maxQueueTime="+maxQueueTime+"}";
+    }
+
+    /* ****************************************************************************************************************/
+    /*package-private methods, called by the workload manager under its lock*/
+
+    boolean isQueueFull(){
+        return queue.size()>=maxQueuedJobs;
+    }
+
+    boolean hasFreeSlot(){
+        return runningJobs<maxConcurrentJobs;
+    }
+
+    /**
+     * @return the share of the server this pool is using, relative to its weight. Of two pools with the
+     * same priority, the one with the smaller share runs next.
+     */
+    double share(){
+        return ((double)runningJobs)/weight;
+    }
+
+    void enqueue(QueuedJob job){
+        queue.addLast(job);
+        queuedJobs=queue.size();
+    }
+
+    QueuedJob poll(){
+        QueuedJob job=queue.pollFirst();
+        queuedJobs=queue.size();
+        return job;
+    }
+
+    /**
+     * Drop a job from the queue before it runs.
+     *
+     * @return true if the job was waiting in this pool's queue
+     */
+    boolean remove(OlapJobStatus status){
+        Iterator<QueuedJob> it=queue.iterator();
+        while(it.hasNext()){
+            if(it.next().status==status){
+                it.remove();
+                queuedJobs=queue.size();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop the queued jobs which no longer need to run (because they were cancelled, or their client went away),
+     * and those which have waited for longer than this pool allows.
+     *
+     * @param now the current time, in milliseconds
+     * @return the jobs which have waited too long
+     */
+    List<QueuedJob> removeStale(long now){
+        List<QueuedJob> expired=null;
+        Iterator<QueuedJob> it=queue.iterator();
+        while(it.hasNext()){
+            QueuedJob job=it.next();
+            if(job.status.currentState()!=OlapJobStatus.State.SUBMITTED){
+                it.remove();
+            }else if(maxQueueTime>0 && now-job.enqueueTime>maxQueueTime){
+                it.remove();
+                if(expired==null) expired=new ArrayList<>();
+                expired.add(job);
+            }
+        }
+        queuedJobs=queue.size();
+        return expired;
+    }
+
+    @SuppressWarnings("NonAtomicOperationOnVolatileField") //only modified under the workload manager's lock
+    void started(long queueWait){
+        runningJobs++;
+        totalAdmitted++;
+        totalQueueWait+=queueWait;
+        if(queueWait>maxQueueWait)
+            maxQueueWait=queueWait;
+    }
+
+    @SuppressWarnings("NonAtomicOperationOnVolatileField") //only modified under the workload manager's lock
+    void finished(){
+        runningJobs--;
+    }
+
+    @SuppressWarnings("NonAtomicOperationOnVolatileField") //only modified under the workload manager's lock
+    void rejected(){
+        totalRejected++;
+    }
+
+    static final class QueuedJob{
+        final String name;
+        final OlapJobStatus status;
+        final Callable<Void> callable;
+        final long enqueueTime;
+
+        QueuedJob(String name,OlapJobStatus status,Callable<Void> callable,long enqueueTime){
+            this.name=name;
+            this.status=status;
+            this.callable=callable;
+            this.enqueueTime=enqueueTime;
+        }
+    }
+}
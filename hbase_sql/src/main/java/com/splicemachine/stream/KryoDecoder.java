@@ -30,17 +30,31 @@ public class KryoDecoder extends ByteToMessageDecoder {
     private static final Logger LOG = Logger.getLogger(KryoDecoder.class);
     static private KryoPool kp = SpliceSparkKryoRegistrator.getInstance();
 
+    private final boolean intLength;
+
+    public KryoDecoder() {
+        this(false);
+    }
+
+    /**
+     * @param intLength if true, frames are prefixed with an int length rather than an unsigned short
+     * @see KryoEncoder#KryoEncoder(boolean)
+     */
+    public KryoDecoder(boolean intLength) {
+        this.intLength = intLength;
+    }
+
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
 //        LOG.warn("Decoding");
         
-        if (in.readableBytes() < 2)
+        if (in.readableBytes() < (intLength ? 4 : 2))
             return;
 
 
         in.markReaderIndex();
 
-        int len = in.readUnsignedShort();
+        int len = intLength ? in.readInt() : in.readUnsignedShort();
 //        LOG.warn("Read lenght " + len);
 
         if (in.readableBytes() < len) {
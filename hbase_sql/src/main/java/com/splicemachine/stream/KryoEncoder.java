@@ -30,12 +30,23 @@ public class KryoEncoder extends MessageToByteEncoder<Object> {
 
     ByteArrayOutputStream outStream;
     Output output;
+    boolean intLength;
 
 
     static private KryoPool kp = SpliceSparkKryoRegistrator.getInstance();
 
 
     public KryoEncoder() {
+        this(false);
+    }
+
+    /**
+     * @param intLength if true, frames are prefixed with an int length rather than an unsigned short, so that
+     *                  messages larger than 64KB (such as column-encoded row blocks) can be sent. Both ends of
+     *                  the connection must agree on this (see {@link KryoDecoder#KryoDecoder(boolean)}).
+     */
+    public KryoEncoder(boolean intLength) {
+        this.intLength = intLength;
         outStream = new ByteArrayOutputStream();
         output = new Output(outStream, 4096);
     }
@@ -53,7 +64,10 @@ public class KryoEncoder extends MessageToByteEncoder<Object> {
 
         output.flush();
         byte[] outArray = outStream.toByteArray();
-        out.writeShort(outArray.length);
+        if (intLength)
+            out.writeInt(outArray.length);
+        else
+            out.writeShort(outArray.length);
         out.writeBytes(outArray);
     }
 
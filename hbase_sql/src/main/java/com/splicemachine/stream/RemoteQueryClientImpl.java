@@ -98,6 +98,8 @@ public class RemoteQueryClientImpl implements RemoteQueryClient {
             updateLimitOffset();
             int streamingBatches = HConfiguration.getConfiguration().getSparkResultStreamingBatches();
             int streamingBatchSize = HConfiguration.getConfiguration().getSparkResultStreamingBatchSize();
+            boolean streamingColumnar = HConfiguration.getConfiguration().isSparkResultStreamingColumnar();
+            boolean streamingCompressed = HConfiguration.getConfiguration().isSparkResultStreamingCompressed();
             streamListener = new StreamListener(limit, offset, streamingBatches, streamingBatchSize);
             StreamListenerServer server = getServer();
             server.register(streamListener);
@@ -111,7 +113,7 @@ public class RemoteQueryClientImpl implements RemoteQueryClient {
             String userId = activation.getLanguageConnectionContext().getCurrentUserId(activation);
 
             RemoteQueryJob jobRequest = new RemoteQueryJob(ah, root.getResultSetNumber(), uuid, host, port, userId, sql,
-                    streamingBatches, streamingBatchSize);
+                    streamingBatches, streamingBatchSize, streamingColumnar, streamingCompressed);
             olapFuture = EngineDriver.driver().getOlapClient().submit(jobRequest);
             olapFuture.addListener(new Runnable() {
                 @Override
@@ -28,6 +28,7 @@ import org.sparkproject.io.netty.channel.*;
 import org.sparkproject.io.netty.channel.nio.NioEventLoopGroup;
 import org.sparkproject.io.netty.channel.socket.nio.NioSocketChannel;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.InetSocketAddress;
 import java.util.Arrays;
@@ -56,12 +57,23 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
     private NioEventLoopGroup workerGroup;
     private transient CountDownLatch active;
     private int batches;
+    private boolean columnar;
+    private boolean compressed;
 
     // Serialization
     public ResultStreamer() {
     }
 
     public ResultStreamer(OperationContext<?> context, UUID uuid, String host, int port, int numPartitions, int batches, int batchSize) {
+        this(context, uuid, host, port, numPartitions, batches, batchSize, false, false);
+    }
+
+    /**
+     * @param columnar if true, rows are sent in column-encoded blocks of {@code batchSize} rows (see {@link RowBlockEncoder})
+     * @param compressed if true, column-encoded blocks are also compressed
+     */
+    public ResultStreamer(OperationContext<?> context, UUID uuid, String host, int port, int numPartitions, int batches, int batchSize,
+                          boolean columnar, boolean compressed) {
         this.context = context;
         this.uuid = uuid;
         this.host = host;
@@ -70,6 +82,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
         this.batches = batches;
         this.batchSize = batchSize;
         this.permits = new Semaphore(batches - 1); // we start with one permit taken
+        this.columnar = columnar;
+        this.compressed = compressed;
 
     }
 
@@ -84,9 +98,10 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
             private long consumed;
             private long sent;
             private int currentBatch;
+            private RowBlockEncoder block = columnar ? new RowBlockEncoder(batchSize, compressed) : null;
 
             @Override
-            public Long call() throws InterruptedException {
+            public Long call() throws Exception {
                 boolean prepared = false;
                 ActivationHolder ah = null;
                 if (context != null) {
@@ -99,8 +114,18 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                         T lr = locatedRowIterator.next();
                         consumed++;
 
-
-                        ctx.write(lr, ctx.voidPromise());
+                        if (block != null && RowBlockEncoder.canEncode(lr)) {
+                            if (!block.add(lr)) {
+                                // a row of a different shape, it starts a new block
+                                writeBlock();
+                                block.add(lr);
+                            }
+                            if (block.isFull())
+                                writeBlock();
+                        } else {
+                            writeBlock();
+                            ctx.write(lr, ctx.voidPromise());
+                        }
                         currentBatch++;
                         sent++;
 
@@ -113,6 +138,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                         consumeOffset();
                     }
                     // Data has been written, request close
+                    writeBlock();
                     ctx.writeAndFlush(new StreamProtocol.RequestClose());
 
                     return consumed;
@@ -126,8 +152,9 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
              * If the current batch exceeds the batch size, flush the connection and take a new permit, blocking if the client
              * hasn't had time yet to process previous messages
              */
-            private void flushAndGetPermit() throws InterruptedException {
+            private void flushAndGetPermit() throws InterruptedException, IOException {
                 if (currentBatch >= batchSize) {
+                    writeBlock();
                     ctx.flush();
                     currentBatch = 0;
                     permits.acquire();
@@ -138,8 +165,10 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
              * If the client hast told us to ignore up to 'offset' messages, consume them here. The client request can
              * arrive after we've already sent some messages.
              */
-            private void consumeOffset() {
+            private void consumeOffset() throws IOException {
                 if (consumed < offset) {
+                    // rows already in the block were sent before the skipped ones
+                    writeBlock();
                     long count = 0;
                     while (locatedRowIterator.hasNext() && consumed < offset) {
                         locatedRowIterator.next();
@@ -154,8 +183,9 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
              * If the client told us to send no more than 'limit' messages, check it here
              * @return true if there's a limit and we reached it, false otherwise
              */
-            private boolean checkLimit() {
+            private boolean checkLimit() throws IOException {
                 if (consumed > limit) {
+                    writeBlock();
                     ctx.flush();
                     if (LOG.isTraceEnabled())
                         LOG.trace("Reached limit, stopping. consumed " + consumed + " sent " + sent + " limit " + limit);
@@ -163,6 +193,15 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                 }
                 return false;
             }
+
+            /**
+             * If we are sending column-encoded blocks, write out the rows in the current block, if there are any
+             */
+            private void writeBlock() throws IOException {
+                if (block != null && !block.isEmpty()) {
+                    ctx.write(block.finish(), ctx.voidPromise());
+                }
+            }
         });
         active.countDown();
     }
@@ -205,7 +244,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
             bootstrap.group(workerGroup);
             bootstrap.channel(NioSocketChannel.class);
             bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
-            bootstrap.handler(new OpenHandler(this));
+            bootstrap.handler(new OpenHandler(this, columnar));
 
 
             ChannelFuture futureConnect = bootstrap.connect(socketAddr).sync();
@@ -240,6 +279,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                 ", limit=" + limit +
                 ", partition=" + partition +
                 ", batches=" + batches +
+                ", columnar=" + columnar +
+                ", compressed=" + compressed +
                 '}';
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stream;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.FormatIdInputStream;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
+import com.splicemachine.pipeline.Exceptions;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the rows of a {@link StreamProtocol.RowBlock}.
+ *
+ * Rows are decoded one at a time, as they are asked for: each column keeps its own cursor into its section of
+ * the block, so a row costs no more than reading its values. The rows are ExecRows or LocatedRows, depending on
+ * what the {@link ResultStreamer} was given.
+ *
+ * @see RowBlockEncoder
+ */
+class RowBlockDecoder implements Iterator<Object> {
+    private final StreamProtocol.RowBlock block;
+    private final ColumnReader[] columns;
+    private final Input rowLocations;
+    private int position;
+
+    RowBlockDecoder(StreamProtocol.RowBlock block) throws IOException {
+        this.block = block;
+        byte[] data = block.compressed ? decompress(block) : block.data;
+        int numColumns = block.template.nColumns();
+        Input header = new Input(data, 0, 4 * (numColumns + 1));
+        int offset = 4 * (numColumns + 1);
+        this.columns = new ColumnReader[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            int length = header.readInt();
+            columns[i] = new ColumnReader(new Input(data, offset, length), block.numRows);
+            offset += length;
+        }
+        Input locations = new Input(data, offset, header.readInt());
+        this.rowLocations = locations.readBoolean() ? locations : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < block.numRows;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        ExecRow row = block.template.getNewNullRow();
+        DataValueDescriptor[] dvds = row.getRowArray();
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].read(position, dvds[i]);
+            }
+        } catch (StandardException | IOException | ClassNotFoundException e) {
+            Exceptions.throwAsRuntime(e);
+        }
+        position++;
+        if (!block.locatedRows)
+            return row;
+        HBaseRowLocation location = null;
+        if (rowLocations != null) {
+            int length = rowLocations.readInt(true);
+            if (length > 0)
+                location = new HBaseRowLocation(rowLocations.readBytes(length - 1));
+        }
+        return new LocatedRow(location, row);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    private static byte[] decompress(StreamProtocol.RowBlock block) throws IOException {
+        byte[] data = new byte[block.length];
+        try (DataInputStream in = new DataInputStream(
+                RowBlockEncoder.codec().compressedInputStream(new ByteArrayInputStream(block.data)))) {
+            in.readFully(data);
+        }
+        return data;
+    }
+
+    private static final class ColumnReader {
+        private final Input input;
+        private final byte encoding;
+        private final byte[] nulls;
+        private final String[] dictionary;
+        private final FormatIdInputStream serializedIn;
+        private long previous;
+
+        ColumnReader(Input input, int numRows) {
+            this.input = input;
+            this.encoding = input.readByte();
+            this.nulls = encoding != RowBlockEncoder.ABSENT && input.readBoolean() ? input.readBytes((numRows + 7) / 8) : null;
+            if (encoding == RowBlockEncoder.DICTIONARY) {
+                dictionary = new String[input.readInt(true)];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = input.readString();
+                }
+            } else {
+                dictionary = null;
+            }
+            this.serializedIn = encoding == RowBlockEncoder.SERIALIZED ? new FormatIdInputStream(input) : null;
+        }
+
+        void read(int row, DataValueDescriptor dvd) throws StandardException, IOException, ClassNotFoundException {
+            if (encoding == RowBlockEncoder.ABSENT)
+                return;
+            if (nulls != null && (nulls[row >>> 3] & (1 << (row & 7))) != 0) {
+                dvd.restoreToNull();
+                return;
+            }
+            switch (encoding) {
+                case RowBlockEncoder.DELTA:
+                    previous += input.readLong(false);
+                    dvd.setValue(previous);
+                    break;
+                case RowBlockEncoder.DOUBLE:
+                    dvd.setValue(input.readDouble());
+                    break;
+                case RowBlockEncoder.DICTIONARY:
+                    dvd.setValue(dictionary[input.readInt(true)]);
+                    break;
+                case RowBlockEncoder.STRING:
+                    dvd.setValue(input.readString());
+                    break;
+                default:
+                    dvd.readExternal(serializedIn);
+            }
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stream;
+
+import com.esotericsoftware.kryo.io.Output;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.FormatIdOutputStream;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.RowLocation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import org.apache.spark.SparkConf;
+import org.apache.spark.io.CompressionCodec;
+import org.apache.spark.io.LZ4CompressionCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Packs the rows which a {@link ResultStreamer} sends into {@link StreamProtocol.RowBlock}s.
+ *
+ * Each column of a block is encoded separately, according to its type: integral columns as zig-zag varint
+ * deltas from the previous non-null value, floating point columns as raw doubles, and character columns
+ * through a dictionary when at most half of their values are distinct, or as plain strings otherwise. Any
+ * other type is written with its own {@code writeExternal()}. Nulls are kept in a bitmap per column, so they
+ * take no space in the values. The whole block can then be compressed with LZ4.
+ *
+ * The block starts with a table of the lengths of its column sections, which lets the {@link RowBlockDecoder}
+ * read every column independently, one row at a time.
+ *
+ * Values are copied out of the rows as they are added, so callers are free to reuse their rows.
+ */
+class RowBlockEncoder {
+    static final byte ABSENT = 0;
+    static final byte DELTA = 1;
+    static final byte DOUBLE = 2;
+    static final byte DICTIONARY = 3;
+    static final byte STRING = 4;
+    static final byte SERIALIZED = 5;
+
+    private final int capacity;
+    private final boolean compress;
+    private final Output output = new Output(4096, -1);
+
+    private ExecRow template;
+    private boolean locatedRows;
+    private int[] formatIds;
+    private ColumnWriter[] columns;
+    private byte[][] rowLocations;
+    private boolean hasRowLocations;
+    private int numRows;
+
+    RowBlockEncoder(int capacity, boolean compress) {
+        this.capacity = capacity;
+        this.compress = compress;
+    }
+
+    /**
+     * @return true if {@code row} is of a kind which can be put in a block
+     */
+    static boolean canEncode(Object row) {
+        return row instanceof ExecRow || (row instanceof LocatedRow && ((LocatedRow) row).getRow() != null);
+    }
+
+    /**
+     * Add a row to the block.
+     *
+     * @return false if the row does not have the same shape as the other rows of this block, in which case
+     * it must go in a block of its own.
+     */
+    boolean add(Object row) throws StandardException, IOException {
+        assert !isFull() : "Block is full";
+        boolean located = row instanceof LocatedRow;
+        ExecRow execRow = located ? ((LocatedRow) row).getRow() : (ExecRow) row;
+        DataValueDescriptor[] dvds = execRow.getRowArray();
+        if (numRows == 0) {
+            if (template == null || !matches(dvds, located))
+                start(execRow, located);
+        } else if (!matches(dvds, located)) {
+            return false;
+        }
+
+        for (int i = 0; i < dvds.length; i++) {
+            columns[i].add(numRows, dvds[i]);
+        }
+        if (located) {
+            RowLocation location = ((LocatedRow) row).getRowLocation();
+            rowLocations[numRows] = location == null ? null : location.getBytes();
+            hasRowLocations |= location != null;
+        }
+        numRows++;
+        return true;
+    }
+
+    boolean isFull() {
+        return numRows >= capacity;
+    }
+
+    boolean isEmpty() {
+        return numRows == 0;
+    }
+
+    /**
+     * Encode the rows added so far, and empty the encoder for the next block.
+     */
+    StreamProtocol.RowBlock finish() throws IOException {
+        assert !isEmpty() : "Cannot finish an empty block";
+        output.clear();
+        int numSections = columns.length + 1;
+        // Reserve room for the section lengths, we fill them in once the sections have been written
+        for (int i = 0; i < numSections; i++) {
+            output.writeInt(0);
+        }
+        int[] lengths = new int[numSections];
+        for (int i = 0; i < columns.length; i++) {
+            int start = output.position();
+            columns[i].write(output, numRows);
+            lengths[i] = output.position() - start;
+        }
+        int start = output.position();
+        writeRowLocations();
+        lengths[columns.length] = output.position() - start;
+
+        int length = output.position();
+        output.setPosition(0);
+        for (int l : lengths) {
+            output.writeInt(l);
+        }
+        output.setPosition(length);
+
+        byte[] data = output.toBytes();
+        boolean compressed = false;
+        if (compress) {
+            byte[] compressedData = compress(data);
+            if (compressedData.length < data.length) {
+                data = compressedData;
+                compressed = true;
+            }
+        }
+        StreamProtocol.RowBlock block = new StreamProtocol.RowBlock(template, locatedRows, numRows, compressed, length, data);
+
+        numRows = 0;
+        hasRowLocations = false;
+        for (ColumnWriter column : columns) {
+            column.reset();
+        }
+        return block;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    static CompressionCodec codec() {
+        return CodecHolder.CODEC;
+    }
+
+    private static class CodecHolder {
+        private static final CompressionCodec CODEC = new LZ4CompressionCodec(new SparkConf(false));
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2);
+        try (OutputStream out = codec().compressedOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void start(ExecRow execRow, boolean located) {
+        DataValueDescriptor[] dvds = execRow.getRowArray();
+        this.template = execRow.getNewNullRow();
+        this.locatedRows = located;
+        this.formatIds = new int[dvds.length];
+        this.columns = new ColumnWriter[dvds.length];
+        for (int i = 0; i < dvds.length; i++) {
+            formatIds[i] = dvds[i] == null ? -1 : dvds[i].getTypeFormatId();
+            columns[i] = new ColumnWriter(typeOf(dvds[i]), capacity);
+        }
+        this.rowLocations = located ? new byte[capacity][] : null;
+    }
+
+    private boolean matches(DataValueDescriptor[] dvds, boolean located) {
+        if (located != locatedRows || dvds.length != formatIds.length)
+            return false;
+        for (int i = 0; i < dvds.length; i++) {
+            int formatId = dvds[i] == null ? -1 : dvds[i].getTypeFormatId();
+            if (formatId != formatIds[i])
+                return false;
+        }
+        return true;
+    }
+
+    private void writeRowLocations() {
+        output.writeBoolean(hasRowLocations);
+        if (!hasRowLocations)
+            return;
+        for (int i = 0; i < numRows; i++) {
+            byte[] location = rowLocations[i];
+            // 0 marks a missing location, so lengths are shifted by one
+            output.writeInt(location == null ? 0 : location.length + 1, true);
+            if (location != null)
+                output.writeBytes(location);
+        }
+    }
+
+    private static byte typeOf(DataValueDescriptor dvd) {
+        if (dvd == null) return ABSENT;
+        switch (dvd.getTypeFormatId()) {
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return DELTA;
+            case StoredFormatIds.SQL_REAL_ID:
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return DOUBLE;
+            case StoredFormatIds.SQL_CHAR_ID:
+            case StoredFormatIds.SQL_VARCHAR_ID:
+            case StoredFormatIds.SQL_LONGVARCHAR_ID:
+                return STRING;
+            default:
+                return SERIALIZED;
+        }
+    }
+
+    private static final class ColumnWriter {
+        private final byte type;
+        private final boolean[] nulls;
+        private final long[] longs;
+        private final double[] doubles;
+        private final String[] strings;
+        private final Output serialized;
+        private final FormatIdOutputStream serializedOut;
+        private int nonNulls;
+
+        ColumnWriter(byte type, int capacity) {
+            this.type = type;
+            this.nulls = new boolean[capacity];
+            this.longs = type == DELTA ? new long[capacity] : null;
+            this.doubles = type == DOUBLE ? new double[capacity] : null;
+            this.strings = type == STRING ? new String[capacity] : null;
+            this.serialized = type == SERIALIZED ? new Output(1024, -1) : null;
+            this.serializedOut = type == SERIALIZED ? new FormatIdOutputStream(serialized) : null;
+        }
+
+        void add(int row, DataValueDescriptor dvd) throws StandardException, IOException {
+            if (type == ABSENT)
+                return;
+            nulls[row] = dvd.isNull();
+            if (nulls[row])
+                return;
+            nonNulls++;
+            switch (type) {
+                case DELTA:
+                    longs[row] = dvd.getLong();
+                    break;
+                case DOUBLE:
+                    doubles[row] = dvd.getDouble();
+                    break;
+                case STRING:
+                    strings[row] = dvd.getString();
+                    break;
+                default:
+                    dvd.writeExternal(serializedOut);
+            }
+        }
+
+        void write(Output out, int numRows) {
+            if (type == ABSENT) {
+                out.writeByte(ABSENT);
+                return;
+            }
+            Map<String, Integer> dictionary = type == STRING ? dictionary(numRows) : null;
+            out.writeByte(dictionary != null ? DICTIONARY : type);
+            writeNulls(out, numRows);
+            switch (type) {
+                case DELTA:
+                    long previous = 0;
+                    for (int i = 0; i < numRows; i++) {
+                        if (nulls[i]) continue;
+                        out.writeLong(longs[i] - previous, false);
+                        previous = longs[i];
+                    }
+                    break;
+                case DOUBLE:
+                    for (int i = 0; i < numRows; i++) {
+                        if (!nulls[i]) out.writeDouble(doubles[i]);
+                    }
+                    break;
+                case STRING:
+                    if (dictionary != null) {
+                        out.writeInt(dictionary.size(), true);
+                        String[] words = new String[dictionary.size()];
+                        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+                            words[entry.getValue()] = entry.getKey();
+                        }
+                        for (String word : words) {
+                            out.writeString(word);
+                        }
+                        for (int i = 0; i < numRows; i++) {
+                            if (!nulls[i]) out.writeInt(dictionary.get(strings[i]), true);
+                        }
+                    } else {
+                        for (int i = 0; i < numRows; i++) {
+                            if (!nulls[i]) out.writeString(strings[i]);
+                        }
+                    }
+                    break;
+                default:
+                    out.writeBytes(serialized.getBuffer(), 0, serialized.position());
+            }
+        }
+
+        /**
+         * @return the dictionary for this column, or null if its values are too distinct for a dictionary to pay off
+         */
+        private Map<String, Integer> dictionary(int numRows) {
+            int maxSize = nonNulls / 2;
+            if (maxSize == 0)
+                return null;
+            Map<String, Integer> dictionary = new HashMap<>();
+            for (int i = 0; i < numRows; i++) {
+                if (nulls[i] || dictionary.containsKey(strings[i])) continue;
+                if (dictionary.size() >= maxSize)
+                    return null;
+                dictionary.put(strings[i], dictionary.size());
+            }
+            return dictionary;
+        }
+
+        private void writeNulls(Output out, int numRows) {
+            boolean hasNulls = nonNulls < numRows;
+            out.writeBoolean(hasNulls);
+            if (!hasNulls)
+                return;
+            for (int i = 0; i < numRows; i += 8) {
+                int bits = 0;
+                for (int j = i; j < i + 8 && j < numRows; j++) {
+                    if (nulls[j]) bits |= 1 << (j - i);
+                }
+                out.writeByte(bits);
+            }
+        }
+
+        void reset() {
+            nonNulls = 0;
+            if (strings != null)
+                Arrays.fill(strings, null);
+            if (serialized != null)
+                serialized.clear();
+        }
+    }
+}
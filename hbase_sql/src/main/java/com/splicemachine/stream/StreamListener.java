@@ -23,6 +23,7 @@ import org.sparkproject.io.netty.channel.ChannelHandler;
 import org.sparkproject.io.netty.channel.ChannelHandlerContext;
 import org.sparkproject.io.netty.channel.ChannelInboundHandlerAdapter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -155,8 +156,15 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         try {
             while (next == null) {
                 PartitionState state = partitionStateMap.get(currentQueue);
-                // We take a message first to make sure we have a connection
-                Object msg = canBlock ? state.messages.take() : state.messages.remove();
+                Object msg;
+                if (state.block != null && state.block.hasNext()) {
+                    // Rows of a column-encoded block are decoded only as they are read
+                    msg = state.block.next();
+                } else {
+                    state.block = null;
+                    // We take a message first to make sure we have a connection
+                    msg = canBlock ? state.messages.take() : state.messages.remove();
+                }
                 if (!state.initialized && (offset > 0 || limit > 0)) {
                     if (LOG.isTraceEnabled())
                         LOG.trace("Sending skip " + limit + ", " + offset);
@@ -208,6 +216,9 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                     if (failure != null) {
                         ps.messages.add(FAILURE);
                     }
+                } else if (msg instanceof StreamProtocol.RowBlock) {
+                    // Its rows are accounted for as we go through them
+                    state.block = new RowBlockDecoder((StreamProtocol.RowBlock) msg);
                 } else {
                     if (msg instanceof StreamProtocol.Skipped) {
                         StreamProtocol.Skipped skipped = (StreamProtocol.Skipped) msg;
@@ -241,7 +252,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                 }
             }
             currentResult = next;
-        } catch (InterruptedException e) {
+        } catch (InterruptedException | IOException e) {
             throw new RuntimeException(e);
         }
     }
@@ -393,6 +404,7 @@ class PartitionState {
     long consumed;
     long readTotal;
     boolean initialized;
+    RowBlockDecoder block; // the column-encoded block we are reading rows from, if any
     volatile PartitionState next = null; // used when a task is retried after a failure
 
     PartitionState(int partition, int queueSize) {
@@ -17,6 +17,7 @@ package com.splicemachine.stream;
 
 
 import com.google.common.net.HostAndPort;
+import com.splicemachine.access.HConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.stream.handlers.OpenHandler;
@@ -81,7 +82,7 @@ public class StreamListenerServer<T> extends ChannelInboundHandlerAdapter {
             b.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
                     .handler(new LoggingHandler(LogLevel.INFO))
-                    .childHandler(new OpenHandler(this))
+                    .childHandler(new OpenHandler(this, HConfiguration.getConfiguration().isSparkResultStreamingColumnar()))
                     .option(ChannelOption.SO_BACKLOG, 128)
                     .childOption(ChannelOption.SO_KEEPALIVE, true);
 
@@ -15,6 +15,8 @@
 
 package com.splicemachine.stream;
 
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+
 import java.io.Serializable;
 import java.util.UUID;
 
@@ -100,6 +102,42 @@ public class StreamProtocol implements Serializable {
         }
     }
 
+    /**
+     * A batch of rows, encoded column by column.
+     *
+     * @see RowBlockEncoder
+     * @see RowBlockDecoder
+     */
+    public static class RowBlock implements Serializable {
+        public ExecRow template;
+        public boolean locatedRows;
+        public int numRows;
+        public boolean compressed;
+        public int length;
+        public byte[] data;
+
+        public RowBlock() {}
+
+        public RowBlock(ExecRow template, boolean locatedRows, int numRows, boolean compressed, int length, byte[] data) {
+            this.template = template;
+            this.locatedRows = locatedRows;
+            this.numRows = numRows;
+            this.compressed = compressed;
+            this.length = length;
+            this.data = data;
+        }
+
+        @Override
+        public String toString() {
+            return "RowBlock{" +
+                    "numRows=" + numRows +
+                    ", compressed=" + compressed +
+                    ", length=" + length +
+                    ", encodedLength=" + data.length +
+                    '}';
+        }
+    }
+
     public static class Continue implements Serializable {
     }
 
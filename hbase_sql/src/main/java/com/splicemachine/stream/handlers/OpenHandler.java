@@ -27,7 +27,9 @@ import org.sparkproject.io.netty.channel.socket.SocketChannel;
  * We are using Kryo for serialization message between spark and the Olap Server.
  * This handler is going to simply take the current pipeline and add 2 standard channels
  * to encode a kryo object and decode a kryo object.
- * Also it is going to add the main channel handler in the pipleline
+ * Also it is going to add the main channel handler in the pipleline.
+ * When results are streamed in column-encoded blocks, the messages are framed with an int length instead of
+ * an unsigned short, since a block can be larger than 64KB.
  * @see com.splicemachine.stream.StreamListenerServer
  * @see com.splicemachine.stream.ResultStreamer
  */
@@ -36,17 +38,23 @@ import org.sparkproject.io.netty.channel.socket.SocketChannel;
 public class OpenHandler extends ChannelInitializer<SocketChannel> {
 
     private ChannelInboundHandlerAdapter listener;
+    private boolean columnar;
 
     public OpenHandler(ChannelInboundHandlerAdapter listener) {
+        this(listener, false);
+    }
+
+    public OpenHandler(ChannelInboundHandlerAdapter listener, boolean columnar) {
         this.listener = listener;
+        this.columnar = columnar;
     }
 
     @Override
     public void initChannel(SocketChannel ch) throws Exception {
 
         ch.pipeline().addLast(
-                new KryoEncoder(),
-                new KryoDecoder(),
+                new KryoEncoder(columnar),
+                new KryoDecoder(columnar),
                 listener);
     }
 
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BulkImportPartitioningTest{
+    private static final byte[][] START_KEYS={
+            new byte[0],
+            new byte[]{0x10},
+            new byte[]{0x20,0x01},
+            new byte[]{(byte)0x80}};
+
+    @Test
+    public void rowsGoToTheRegionContainingThem() throws Exception{
+        Assert.assertEquals(0,BulkImportEncodeFunction.region(START_KEYS,new byte[]{0x00}));
+        Assert.assertEquals(0,BulkImportEncodeFunction.region(START_KEYS,new byte[]{0x0F,(byte)0xFF}));
+        Assert.assertEquals("Start keys belong to their region",1,BulkImportEncodeFunction.region(START_KEYS,new byte[]{0x10}));
+        Assert.assertEquals(1,BulkImportEncodeFunction.region(START_KEYS,new byte[]{0x20}));
+        Assert.assertEquals(2,BulkImportEncodeFunction.region(START_KEYS,new byte[]{0x20,0x01,0x00}));
+        Assert.assertEquals("Bytes should compare unsigned",3,BulkImportEncodeFunction.region(START_KEYS,new byte[]{(byte)0xFF}));
+    }
+
+    @Test
+    public void singleRegionTakesEveryRow() throws Exception{
+        byte[][] startKeys={new byte[0]};
+        Assert.assertEquals(0,BulkImportEncodeFunction.region(startKeys,new byte[]{(byte)0xFF}));
+        Assert.assertEquals(0,BulkImportEncodeFunction.region(startKeys,new byte[0]));
+    }
+
+    @Test
+    public void partitionsMapBackToTheirDestination() throws Exception{
+        int[] offsets={0,4,5};
+        Assert.assertEquals(0,BulkImportHFileFunction.destination(offsets,0));
+        Assert.assertEquals(0,BulkImportHFileFunction.destination(offsets,3));
+        Assert.assertEquals(1,BulkImportHFileFunction.destination(offsets,4));
+        Assert.assertEquals(2,BulkImportHFileFunction.destination(offsets,5));
+        Assert.assertEquals(2,BulkImportHFileFunction.destination(offsets,9));
+    }
+
+    @Test
+    public void keysSortByPartitionThenUnsignedRowKey() throws Exception{
+        BulkImportKey.KeyComparator comparator=new BulkImportKey.KeyComparator();
+        BulkImportKey low=new BulkImportKey(1,new byte[]{0x01});
+        BulkImportKey high=new BulkImportKey(1,new byte[]{(byte)0x81});
+        BulkImportKey nextPartition=new BulkImportKey(2,new byte[]{0x00});
+        Assert.assertTrue(comparator.compare(low,high)<0);
+        Assert.assertTrue(comparator.compare(high,nextPartition)<0);
+        Assert.assertEquals(0,comparator.compare(low,new BulkImportKey(1,new byte[]{0x01})));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.spark;
+
+import com.splicemachine.primitives.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class IndexBulkLoadSplitPointsTest{
+
+    @Test
+    public void smallIndexesAreNotSplit() throws Exception{
+        List<Tuple2<byte[],byte[]>> sample=sample(100);
+        //100 sampled rows of 12 bytes at 1% is about 120KB, which fits in a 1MB region
+        Assert.assertEquals(0,HFileIndexBulkLoader.splitPoints(sample,0.01d,1<<20).length);
+        Assert.assertEquals(0,HFileIndexBulkLoader.splitPoints(new ArrayList<Tuple2<byte[],byte[]>>(),0.01d,1).length);
+    }
+
+    @Test
+    public void splitPointsAreEvenlySpacedSampledKeys() throws Exception{
+        List<Tuple2<byte[],byte[]>> sample=sample(100);
+        Collections.reverse(sample); //the sample needn't arrive in order
+        //about 120KB in 30KB regions
+        byte[][] splitPoints=HFileIndexBulkLoader.splitPoints(sample,0.01d,30000);
+        Assert.assertEquals(3,splitPoints.length);
+        Assert.assertEquals(25,Bytes.toInt(splitPoints[0]));
+        Assert.assertEquals(50,Bytes.toInt(splitPoints[1]));
+        Assert.assertEquals(75,Bytes.toInt(splitPoints[2]));
+    }
+
+    @Test
+    public void thereAreNeverMoreRegionsThanSampledKeys() throws Exception{
+        byte[][] splitPoints=HFileIndexBulkLoader.splitPoints(sample(4),0.01d,1);
+        Assert.assertEquals(3,splitPoints.length);
+        for(int i=1;i<splitPoints.length;i++){
+            Assert.assertTrue("Split points should be sorted and distinct",
+                    Bytes.BASE_COMPARATOR.compare(splitPoints[i-1],splitPoints[i])<0);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    /*
+     * Each sampled row is 12 bytes: a 4 byte key and an 8 byte value
+     */
+    private static List<Tuple2<byte[],byte[]>> sample(int size){
+        List<Tuple2<byte[],byte[]>> sample=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            sample.add(new Tuple2<>(Bytes.toBytes(i),new byte[8]));
+        }
+        return sample;
+    }
+}
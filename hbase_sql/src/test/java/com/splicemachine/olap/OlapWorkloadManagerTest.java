@@ -0,0 +1,202 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.olap;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.concurrent.SystemClock;
+import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the admission control of the Olap server.
+ */
+public class OlapWorkloadManagerTest{
+    private static final long NO_EXPIRY_CHECK=TimeUnit.HOURS.toMillis(1);
+
+    private final BlockingQueue<String> started=new LinkedBlockingQueue<>();
+    private final Map<String,CountDownLatch> latches=new HashMap<>();
+    private OlapWorkloadManager manager;
+
+    @After
+    public void tearDown(){
+        for(CountDownLatch latch:latches.values()){
+            latch.countDown();
+        }
+        if(manager!=null) manager.shutdown();
+    }
+
+    @Test
+    public void rejectsJobsWhenThePoolQueueIsFull() throws Exception{
+        manager=new OlapWorkloadManager(Collections.singletonList(pool("default",1,1,0,1,0)),
+                Collections.<String,String>emptyMap(),4,new SystemClock(),NO_EXPIRY_CHECK);
+
+        submit("running",null);
+        awaitStart("running");
+        OlapJobStatus queued=submit("queued",null);
+        OlapJobStatus rejected=submit("rejected",null);
+
+        Assert.assertEquals(OlapStatus.State.SUBMITTED,queued.currentState());
+        Assert.assertTrue("Job should have been rejected",rejected.isRejected());
+        Assert.assertEquals(OlapStatus.State.NOT_SUBMITTED,rejected.currentState());
+        Assert.assertNotNull("A rejection should carry its reason",rejected.getResult().getThrowable());
+
+        finish("running");
+        awaitStart("queued");
+        ResourcePool pool=manager.getPools().get(0);
+        Assert.assertEquals(2,pool.getTotalAdmittedJobs());
+        Assert.assertEquals(1,pool.getTotalRejectedJobs());
+        Assert.assertEquals(0,pool.getQueuedJobs());
+    }
+
+    @Test
+    public void higherPriorityThenSmallerShareRunsFirst() throws Exception{
+        manager=new OlapWorkloadManager(Arrays.asList(pool("default",4,10,0,1,0),
+                pool("small",4,10,0,3,0),
+                pool("urgent",4,10,1,1,0)),
+                mapping("small","small","urgent","urgent"),4,new SystemClock(),NO_EXPIRY_CHECK);
+
+        for(int i=1;i<=4;i++){
+            submit("big"+i,null);
+            awaitStart("big"+i);
+        }
+        submit("small1","small");
+        submit("small2","small");
+        submit("big5",null);
+        submit("urgent1","urgent");
+        Assert.assertNull("No slots should be free",started.poll(50,TimeUnit.MILLISECONDS));
+
+        /*
+         * The urgent pool always goes first. After that, small (weight 3) is picked for as long as its
+         * running jobs per unit of weight are fewer than those of the default pool (weight 1).
+         */
+        List<String> expectedOrder=Arrays.asList("urgent1","small1","small2","big5");
+        for(int i=0;i<expectedOrder.size();i++){
+            finish("big"+(i+1));
+            awaitStart(expectedOrder.get(i));
+        }
+    }
+
+    @Test
+    public void jobsWhichWaitTooLongAreRejected() throws Exception{
+        IncrementingClock clock=new IncrementingClock();
+        manager=new OlapWorkloadManager(Collections.singletonList(pool("default",1,10,0,1,100)),
+                Collections.<String,String>emptyMap(),1,clock,NO_EXPIRY_CHECK);
+
+        submit("running",null);
+        awaitStart("running");
+        OlapJobStatus waiting=submit("waiting",null);
+        OlapJobStatus cancelled=submit("cancelled",null);
+        cancelled.cancel();
+
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(50));
+        manager.expireQueuedJobs();
+        Assert.assertEquals(OlapStatus.State.SUBMITTED,waiting.currentState());
+
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(100));
+        manager.expireQueuedJobs();
+        Assert.assertTrue("Job should have timed out",waiting.isRejected());
+        Assert.assertEquals("Cancelled jobs are not rejections",1,manager.getPools().get(0).getTotalRejectedJobs());
+        Assert.assertEquals(0,manager.getPools().get(0).getQueuedJobs());
+    }
+
+    @Test
+    public void cancelledJobsGiveUpTheirQueueSlot() throws Exception{
+        manager=new OlapWorkloadManager(Collections.singletonList(pool("default",1,1,0,1,0)),
+                Collections.<String,String>emptyMap(),1,new SystemClock(),NO_EXPIRY_CHECK);
+
+        submit("running",null);
+        awaitStart("running");
+        OlapJobStatus cancelled=submit("cancelled",null);
+        cancelled.cancel();
+        manager.cancelled(cancelled);
+        Assert.assertEquals(0,manager.getPools().get(0).getQueuedJobs());
+
+        OlapJobStatus queued=submit("queued",null);
+        Assert.assertFalse("The cancelled job should no longer fill the queue",queued.isRejected());
+        finish("running");
+        awaitStart("queued");
+    }
+
+    @Test
+    public void usersAndRolesAreMappedToPools() throws Exception{
+        List<ResourcePool> pools=OlapWorkloadManager.parsePools("etl:2:5:0:2:1000, adhoc:8:100:1:1:0, broken:1:2, default:3:3:0:1:0",
+                pool("default",16,100,0,1,0));
+        Assert.assertEquals("Malformed pools should be ignored",3,pools.size());
+        manager=new OlapWorkloadManager(pools,
+                OlapWorkloadManager.parseMapping("loader=etl,analyst=adhoc,=adhoc,nobody=missing"),
+                16,new SystemClock(),NO_EXPIRY_CHECK);
+
+        Assert.assertEquals("etl",manager.poolFor("LOADER",null).getName());
+        Assert.assertEquals("etl",manager.poolFor("LOADER","ANALYST").getName());
+        Assert.assertEquals("adhoc",manager.poolFor("SPLICE","ANALYST").getName());
+        Assert.assertEquals("default",manager.poolFor("NOBODY",null).getName());
+        Assert.assertEquals("default",manager.poolFor(null,null).getName());
+        Assert.assertEquals("The default pool can be overridden",3,manager.poolFor(null,null).getMaxConcurrentJobs());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    private static ResourcePool pool(String name,int maxConcurrent,int maxQueued,int priority,int weight,long maxQueueTime){
+        return new ResourcePool(name,maxConcurrent,maxQueued,priority,weight,maxQueueTime);
+    }
+
+    private static Map<String,String> mapping(String... userAndPool){
+        Map<String,String> mapping=new HashMap<>();
+        for(int i=0;i<userAndPool.length;i+=2){
+            mapping.put(userAndPool[i],userAndPool[i+1]);
+        }
+        return mapping;
+    }
+
+    private OlapJobStatus submit(final String name,String user){
+        final CountDownLatch latch=new CountDownLatch(1);
+        latches.put(name,latch);
+        final OlapJobStatus status=new OlapJobStatus(1000,10);
+        Assert.assertTrue(status.markSubmitted());
+        manager.submit(name,manager.poolFor(user,null),status,new Callable<Void>(){
+            @Override
+            public Void call() throws Exception{
+                if(!status.markRunning()) return null;
+                started.add(name);
+                latch.await();
+                return null;
+            }
+        });
+        return status;
+    }
+
+    private void awaitStart(String name) throws InterruptedException{
+        Assert.assertEquals("Incorrect job started",name,started.poll(5,TimeUnit.SECONDS));
+    }
+
+    private void finish(String name){
+        latches.get(name).countDown();
+    }
+}
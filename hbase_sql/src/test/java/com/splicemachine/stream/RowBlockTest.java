@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stream;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+public class RowBlockTest {
+    private static final int NUM_ROWS = 100;
+
+    @Test
+    public void decodesTheRowsItWasGiven() throws Exception {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    public void decodesCompressedBlocks() throws Exception {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    public void keepsRowLocations() throws Exception {
+        RowBlockEncoder encoder = new RowBlockEncoder(NUM_ROWS, false);
+        ExecRow row = template();
+        for (int i = 0; i < 10; i++) {
+            fill(row, i);
+            HBaseRowLocation location = i % 3 == 0 ? null : new HBaseRowLocation(new byte[]{(byte) i, 1, 2});
+            Assert.assertTrue(encoder.add(new LocatedRow(location, row)));
+        }
+        RowBlockDecoder decoder = new RowBlockDecoder(encoder.finish());
+        for (int i = 0; i < 10; i++) {
+            LocatedRow located = (LocatedRow) decoder.next();
+            assertRow(located.getRow(), i);
+            if (i % 3 == 0)
+                Assert.assertNull("Row " + i + " should not have a location", located.getRowLocation());
+            else
+                Assert.assertArrayEquals(new byte[]{(byte) i, 1, 2}, located.getRowLocation().getBytes());
+        }
+        Assert.assertFalse(decoder.hasNext());
+    }
+
+    @Test
+    public void rowsOfAnotherShapeStartANewBlock() throws Exception {
+        RowBlockEncoder encoder = new RowBlockEncoder(NUM_ROWS, false);
+        ExecRow row = template();
+        fill(row, 1);
+        Assert.assertTrue(encoder.add(row));
+
+        ExecRow other = new ValueRow(1);
+        other.setColumn(1, new SQLVarchar("other"));
+        Assert.assertFalse("Rows of a different shape cannot share a block", encoder.add(other));
+        Assert.assertFalse(encoder.add(new LocatedRow(row)));
+
+        RowBlockDecoder decoder = new RowBlockDecoder(encoder.finish());
+        assertRow((ExecRow) decoder.next(), 1);
+        Assert.assertFalse(decoder.hasNext());
+
+        Assert.assertTrue(encoder.isEmpty());
+        Assert.assertTrue(encoder.add(other));
+        decoder = new RowBlockDecoder(encoder.finish());
+        Assert.assertEquals("other", ((ExecRow) decoder.next()).getColumn(1).getString());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void assertRoundTrip(boolean compress) throws Exception {
+        RowBlockEncoder encoder = new RowBlockEncoder(NUM_ROWS, compress);
+        ExecRow row = template();
+        // the same encoder is reused across blocks
+        for (int block = 0; block < 2; block++) {
+            for (int i = 0; i < NUM_ROWS; i++) {
+                fill(row, i);
+                Assert.assertTrue(encoder.add(row));
+            }
+            Assert.assertTrue(encoder.isFull());
+            StreamProtocol.RowBlock encoded = encoder.finish();
+            Assert.assertEquals(NUM_ROWS, encoded.numRows);
+            if (compress)
+                Assert.assertTrue("Repetitive data should compress", encoded.compressed);
+
+            RowBlockDecoder decoder = new RowBlockDecoder(encoded);
+            for (int i = 0; i < NUM_ROWS; i++) {
+                Assert.assertTrue(decoder.hasNext());
+                assertRow((ExecRow) decoder.next(), i);
+            }
+            Assert.assertFalse(decoder.hasNext());
+        }
+    }
+
+    private static ExecRow template() {
+        ExecRow template = new ValueRow(6);
+        template.setColumn(1, new SQLInteger());
+        template.setColumn(2, new SQLLongint());
+        template.setColumn(3, new SQLDouble());
+        template.setColumn(4, new SQLVarchar());
+        template.setColumn(5, new SQLVarchar());
+        template.setColumn(6, new SQLDecimal());
+        return template;
+    }
+
+    /*
+     * Every 7th row has a null int, column 4 has few distinct values and column 5 has only distinct values
+     */
+    private static void fill(ExecRow row, int i) throws Exception {
+        row.resetRowArray();
+        if (i % 7 != 0)
+            row.getColumn(1).setValue(i);
+        row.getColumn(2).setValue(i % 2 == 0 ? Long.MIN_VALUE + i : Long.MAX_VALUE - i);
+        row.getColumn(3).setValue(i / 3d);
+        row.getColumn(4).setValue("group" + (i % 4));
+        row.getColumn(5).setValue("row\u00e9" + i);
+        row.getColumn(6).setBigDecimal(new BigDecimal(i).movePointLeft(2));
+    }
+
+    private static void assertRow(ExecRow row, int i) throws Exception {
+        if (i % 7 == 0)
+            Assert.assertTrue("Row " + i + " should have a null int", row.getColumn(1).isNull());
+        else
+            Assert.assertEquals("Incorrect int in row " + i, i, row.getColumn(1).getInt());
+        Assert.assertEquals("Incorrect long in row " + i, i % 2 == 0 ? Long.MIN_VALUE + i : Long.MAX_VALUE - i, row.getColumn(2).getLong());
+        Assert.assertEquals("Incorrect double in row " + i, i / 3d, row.getColumn(3).getDouble(), 0d);
+        Assert.assertEquals("Incorrect dictionary string in row " + i, "group" + (i % 4), row.getColumn(4).getString());
+        Assert.assertEquals("Incorrect string in row " + i, "row\u00e9" + i, row.getColumn(5).getString());
+        Assert.assertEquals("Incorrect decimal in row " + i, new BigDecimal(i).movePointLeft(2),
+                row.getColumn(6).getObject());
+    }
+}
@@ -478,4 +478,45 @@ public class StreamableRDDTest extends BaseStreamTest implements Serializable {
         }
         assertEquals(100000, count);
     }
+
+    @Test
+    public void testColumnarOffsetLimit() throws StandardException {
+        int limit = 3000;
+        int offset = 1500;
+        int batches = 2;
+        int batchSize = 512;
+        StreamListener<ExecRow> sl = new StreamListener<>(limit, offset, batches, batchSize);
+        HostAndPort hostAndPort = server.getHostAndPort();
+        server.register(sl);
+
+        List<Tuple2<ExecRow,ExecRow>> manyRows = new ArrayList<>();
+        for(int i = 0; i < 10000; ++i) {
+            manyRows.add(new Tuple2<ExecRow, ExecRow>(getExecRow(i, 1), getExecRow(i, 2)));
+        }
+
+        JavaPairRDD<ExecRow, ExecRow> rdd = SpliceSpark.getContext().parallelizePairs(manyRows, 4);
+        final StreamableRDD srdd = new StreamableRDD(rdd.values(), null, sl.getUuid(), hostAndPort.getHostText(), hostAndPort.getPort(),
+                batches, batchSize, true, true);
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    srdd.submit();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+
+            }
+        }.start();
+        Iterator<ExecRow> it = sl.getIterator();
+        int count = 0;
+        while (it.hasNext()) {
+            ExecRow execRow = it.next();
+            assertNotNull(execRow);
+            assertEquals(count+offset, execRow.getColumn(1).getInt());
+            assertEquals(count+offset, execRow.getColumn(2).getInt());
+            count++;
+        }
+        assertEquals(limit, count);
+    }
 }
@@ -16,9 +16,11 @@
 package com.splicemachine.hbase;
 
 import com.splicemachine.si.impl.server.SICompactionState;
+import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
 import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -29,6 +31,7 @@ import java.util.List;
  * SICompactionState.
  */
 public class SICompactionScanner implements InternalScanner {
+    private static final Logger LOG = Logger.getLogger(SICompactionScanner.class);
     private final SICompactionState compactionState;
     private final InternalScanner delegate;
     private List<Cell> rawList =new ArrayList<>();
@@ -57,6 +60,9 @@ public class SICompactionScanner implements InternalScanner {
     @Override
     public void close() throws IOException {
         delegate.close();
+        if(compactionState.getPurgedCells()>0)
+            SpliceLogUtils.info(LOG,"Purged %d cells (%d bytes) of versions below the transaction low watermark",
+                    compactionState.getPurgedCells(),compactionState.getPurgedBytes());
     }
 
     @Override
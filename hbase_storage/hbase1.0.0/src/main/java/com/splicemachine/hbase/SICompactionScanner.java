@@ -16,8 +16,10 @@
 package com.splicemachine.hbase;
 
 import com.splicemachine.si.impl.server.SICompactionState;
+import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -28,6 +30,7 @@ import java.util.List;
  * SICompactionState.
  */
 public class SICompactionScanner implements InternalScanner {
+    private static final Logger LOG = Logger.getLogger(SICompactionScanner.class);
     private final SICompactionState compactionState;
     private final InternalScanner delegate;
     private List<Cell> rawList =new ArrayList<>();
@@ -56,5 +59,8 @@ public class SICompactionScanner implements InternalScanner {
     @Override
     public void close() throws IOException {
         delegate.close();
+        if(compactionState.getPurgedCells()>0)
+            SpliceLogUtils.info(LOG,"Purged %d cells (%d bytes) of versions below the transaction low watermark",
+                    compactionState.getPurgedCells(),compactionState.getPurgedBytes());
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.hbase;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.ZoneMap;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.compactions.Compactor;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A CellSink which builds a {@link ZoneMap} from the packed rows that are written to a store file,
+ * and records it in the metadata of that file once the file is complete.
+ *
+ * Flushes and compactions write through this sink, and scans then read the zone map back (see
+ * {@link #read(StoreFile.Reader)}) in order to decide whether a file needs to be read at all. Since a missing
+ * zone map simply means that the file is always read, anything that goes wrong while collecting one
+ * is logged and the file is written without it.
+ */
+public class ZoneMapCollector implements Compactor.CellSink{
+    private static final Logger LOG=Logger.getLogger(ZoneMapCollector.class);
+    public static final byte[] ZONE_MAP_KEY=Bytes.toBytes("SPLICE_ZONE_MAP");
+
+    private final StoreFile.Writer writer;
+    private final ZoneMap zoneMap=new ZoneMap();
+    private boolean failed=false;
+
+    public ZoneMapCollector(StoreFile.Writer writer){
+        this.writer=writer;
+    }
+
+    /**
+     * @param sink the sink that a flush or compaction is about to write to
+     * @return a collector writing to {@code sink}, or {@code null} if zone maps are disabled, or if
+     * {@code sink} isn't a store file
+     */
+    public static ZoneMapCollector collectorFor(Compactor.CellSink sink){
+        if(!(sink instanceof StoreFile.Writer)) return null;
+        if(!HConfiguration.getConfiguration().isTableZoneMapsEnabled()) return null;
+        return new ZoneMapCollector((StoreFile.Writer)sink);
+    }
+
+    @Override
+    public void append(Cell cell) throws IOException{
+        writer.append(cell);
+        if(failed
+                || cell.getTypeByte()!=KeyValue.Type.Put.getCode()
+                || !CellUtils.singleMatchingQualifier(cell,SIConstants.PACKED_COLUMN_BYTES)) return;
+        try{
+            zoneMap.update(cell.getValueArray(),cell.getValueOffset(),cell.getValueLength());
+        }catch(Exception e){
+            //not a row we know how to decode, so we can't say anything about the values in this file
+            SpliceLogUtils.warn(LOG,"Unable to collect the zone map for %s: %s",writer.getPath(),e.getMessage());
+            failed=true;
+        }
+    }
+
+    /**
+     * Record the zone map in the metadata of the store file. Must be called after the last cell has
+     * been appended, and before the file is closed.
+     *
+     * @throws IOException if the metadata cannot be written
+     */
+    public void finish() throws IOException{
+        if(failed || zoneMap.rowCount()<=0) return;
+        writer.appendFileInfo(ZONE_MAP_KEY,zoneMap.toBytes());
+    }
+
+    /**
+     * @param reader the reader of the store file
+     * @return the zone map recorded in the metadata of the file, or {@code null} if the file has none
+     */
+    public static ZoneMap read(StoreFile.Reader reader){
+        try{
+            Map<byte[], byte[]> fileInfo=reader.getHFileReader().loadFileInfo();
+            byte[] data=fileInfo.get(ZONE_MAP_KEY);
+            if(data==null) return null;
+            return ZoneMap.fromBytes(data);
+        }catch(Exception e){
+            SpliceLogUtils.warn(LOG,"Unable to read the zone map of %s: %s",reader.getHFileReader().getName(),e.getMessage());
+            return null;
+        }
+    }
+}
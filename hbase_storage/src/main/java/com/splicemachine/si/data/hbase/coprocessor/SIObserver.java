@@ -101,7 +101,8 @@ public class SIObserver extends BaseRegionObserver{
                     driver.getReadResolver(regionPartition),
                     driver.getTxnSupplier(),
                     driver.getTransactor(),
-                    driver.getOperationFactory()
+                    driver.getOperationFactory(),
+                    driver.getTxnLowWatermark()
                     );
             Tracer.traceRegion(region.getTableName(),rce.getRegion());
         }
@@ -166,9 +167,12 @@ public class SIObserver extends BaseRegionObserver{
                                       InternalScanner scanner,ScanType scanType,CompactionRequest compactionRequest) throws IOException{
         if(tableEnvMatch){
             SIDriver driver=SIDriver.driver();
+            //only compactions of every file may purge versions, as otherwise older versions could resurface
+            long lowWatermark = compactionRequest!=null && compactionRequest.isAllFiles()?driver.getTxnLowWatermark().getLowWatermark():0L;
             SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
                     driver.getRollForward(),
-                    driver.getConfiguration().getActiveTransactionCacheSize());
+                    driver.getConfiguration().getActiveTransactionCacheSize(),
+                    lowWatermark);
             return new SICompactionScanner(state,scanner);
         }else{
             return super.preCompact(e,store,scanner,scanType,compactionRequest);
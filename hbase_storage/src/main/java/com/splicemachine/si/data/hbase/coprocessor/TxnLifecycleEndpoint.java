@@ -16,6 +16,8 @@
 package com.splicemachine.si.data.hbase.coprocessor;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import com.google.common.base.Supplier;
 import com.google.protobuf.RpcCallback;
@@ -24,6 +26,7 @@ import com.google.protobuf.Service;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.hadoop.hbase.Coprocessor;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.coprocessor.CoprocessorService;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.protobuf.ResponseConverter;
@@ -39,6 +42,7 @@ import com.splicemachine.si.api.txn.lifecycle.TxnLifecycleStore;
 import com.splicemachine.si.api.txn.lifecycle.TxnPartition;
 import com.splicemachine.si.coprocessor.TxnMessage;
 import com.splicemachine.si.impl.data.StripedTxnLifecycleStore;
+import com.splicemachine.si.impl.TxnUtils;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.region.RegionServerControl;
 import com.splicemachine.si.impl.region.RegionTxnStore;
@@ -55,6 +59,7 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
     private static final Logger LOG=Logger.getLogger(TxnLifecycleEndpoint.class);
 
     private TxnLifecycleStore lifecycleStore;
+    private HRegion region;
     private volatile boolean isTxnTable=false;
 
     public static final CountedReference<TransactionResolver> resolverRef=new CountedReference<>(new Supplier<TransactionResolver>(){
@@ -71,7 +76,7 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
 
     @Override
     public void start(CoprocessorEnvironment env) throws IOException{
-        HRegion region=(HRegion)((RegionCoprocessorEnvironment)env).getRegion();
+        region=(HRegion)((RegionCoprocessorEnvironment)env).getRegion();
         HBaseSIEnvironment siEnv = HBaseSIEnvironment.loadEnvironment(new SystemClock(),ZkUtils.getRecoverableZooKeeper());
         SConfiguration configuration=siEnv.configuration();
         TableType table=EnvUtils.getTableType(configuration,(RegionCoprocessorEnvironment)env);
@@ -172,6 +177,41 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
         }
     }
 
+    @Override
+    public void multiLifecycleAction(RpcController controller,TxnMessage.MultiLifecycleMessage request,RpcCallback<TxnMessage.MultiActionResponse> done){
+        try{
+            long[] txnIds=hostedTransactions(request.getTxnIdsList());
+            TxnMessage.MultiActionResponse response;
+            switch(request.getAction()){
+                case COMMIT:
+                    response=lifecycleStore.commitTransactions(txnIds);
+                    break;
+                case KEEPALIVE:
+                    response=lifecycleStore.keepAlive(txnIds);
+                    break;
+                default:
+                    TxnMessage.MultiActionResponse.Builder rollbacks=TxnMessage.MultiActionResponse.newBuilder();
+                    for(long txnId:txnIds){
+                        rollback(txnId);
+                        rollbacks.addResults(TxnMessage.TxnActionResult.newBuilder().setTxnId(txnId));
+                    }
+                    response=rollbacks.build();
+            }
+            done.run(response);
+        }catch(IOException ioe){
+            ResponseConverter.setControllerException(controller,ioe);
+        }
+    }
+
+    @Override
+    public void getTransactions(RpcController controller,TxnMessage.MultiTxnRequest request,RpcCallback<TxnMessage.MultiTxnResponse> done){
+        try{
+            done.run(lifecycleStore.getTransactions(hostedTransactions(request.getTxnIdsList())));
+        }catch(IOException ioe){
+            ResponseConverter.setControllerException(controller,ioe);
+        }
+    }
+
     @Override
     public void getActiveTransactionIds(RpcController controller,TxnMessage.ActiveTxnRequest request,RpcCallback<TxnMessage.ActiveTxnIdResponse> done){
         long endTxnId=request.getEndTxnId();
@@ -234,4 +274,22 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
             ResponseConverter.setControllerException(controller,ioe);
         }
     }
-}
\ No newline at end of file
+
+    /* ***************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * Multi-transaction requests are sent to every region in the range of their transactions, so we
+     * only act on those transactions which this region actually holds.
+     */
+    private long[] hostedTransactions(List<Long> txnIds){
+        long[] hosted=new long[txnIds.size()];
+        int numHosted=0;
+        HRegionInfo regionInfo=region.getRegionInfo();
+        for(Long txnId:txnIds){
+            if(regionInfo.containsRow(TxnUtils.getRowKey(txnId)))
+                hosted[numHosted++]=txnId;
+        }
+        return numHosted==hosted.length?hosted:Arrays.copyOf(hosted,numHosted);
+    }
+}
@@ -63,12 +63,41 @@ public class CoprocessorTxnStore implements TxnStore {
     private final AtomicLong rollbacks=new AtomicLong(0l);
     private final AtomicLong commits=new AtomicLong(0l);
 
+    /*coalescers for batching requests, or null when requests are sent one at a time*/
+    private final TxnRequestCoalescer<TxnMessage.TxnActionResult> keepAliveCoalescer;
+    private final TxnRequestCoalescer<TxnMessage.TxnActionResult> commitCoalescer;
+    private final TxnRequestCoalescer<TxnMessage.Txn> lookupCoalescer;
+
     public CoprocessorTxnStore(TxnNetworkLayerFactory tableFactory,
                                TimestampSource timestampSource,
                                @ThreadSafe TxnSupplier txnCache){
+        this(tableFactory,timestampSource,txnCache,0l,false);
+    }
+
+    /**
+     * @param coalesceWindowMs the longest that keep alives, lookups and (when group commit is enabled) commits
+     *                         may wait to be batched with other requests for the same transaction table bucket,
+     *                         or {@code 0} to send every request on its own.
+     * @param groupCommit      whether commits should be batched, so that the transaction table can acquire their
+     *                         commit timestamps and record them together. Ignored unless coalescing is enabled.
+     */
+    public CoprocessorTxnStore(TxnNetworkLayerFactory tableFactory,
+                               TimestampSource timestampSource,
+                               @ThreadSafe TxnSupplier txnCache,
+                               long coalesceWindowMs,
+                               boolean groupCommit){
         this.tableFactory=tableFactory;
         this.cache = txnCache==null?this:txnCache; // Not Used...
         this.timestampSource=timestampSource;
+        if(coalesceWindowMs>0){
+            this.keepAliveCoalescer=new LifecycleCoalescer(coalesceWindowMs,TxnMessage.LifecycleAction.KEEPALIVE);
+            this.commitCoalescer=groupCommit?new LifecycleCoalescer(coalesceWindowMs,TxnMessage.LifecycleAction.COMMIT):null;
+            this.lookupCoalescer=new LookupCoalescer(coalesceWindowMs);
+        }else{
+            this.keepAliveCoalescer=null;
+            this.commitCoalescer=null;
+            this.lookupCoalescer=null;
+        }
     }
 
     @Override
@@ -121,6 +150,11 @@ public class CoprocessorTxnStore implements TxnStore {
 
     @Override
     public long commit(long txnId) throws IOException{
+        if(commitCoalescer!=null){
+            long commitTs=commitCoalescer.submit(txnId).getCommitTs();
+            commits.incrementAndGet();
+            return commitTs;
+        }
         byte[] rowKey=getTransactionRowKey(txnId);
         TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
                 .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.COMMIT).build();
@@ -134,6 +168,8 @@ public class CoprocessorTxnStore implements TxnStore {
 
     @Override
     public boolean keepAlive(long txnId) throws IOException{
+        if(keepAliveCoalescer!=null)
+            return keepAliveCoalescer.submit(txnId).getContinue();
         byte[] rowKey=getTransactionRowKey(txnId);
 
         TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
@@ -226,6 +262,8 @@ public class CoprocessorTxnStore implements TxnStore {
     @Override
     public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
         lookups.incrementAndGet(); //we are performing a lookup, so increment the counter
+        if(lookupCoalescer!=null)
+            return decode(lookupCoalescer.submit(txnId));
         byte[] rowKey=getTransactionRowKey(txnId);
         TxnMessage.TxnRequest request=TxnMessage.TxnRequest.newBuilder().setTxnId(txnId).build();
 
@@ -399,6 +437,75 @@ public class CoprocessorTxnStore implements TxnStore {
         return encoder.build();
     }
 
+    /*
+     * The row keys of the first and last of the transactions in a bucket, between which
+     * the rows of all of them lie.
+     */
+    private static byte[][] bucketRange(long[] txnIds){
+        long min=Long.MAX_VALUE;
+        long max=Long.MIN_VALUE;
+        for(long txnId:txnIds){
+            if(txnId<min) min=txnId;
+            if(txnId>max) max=txnId;
+        }
+        return new byte[][]{getTransactionRowKey(min),getTransactionRowKey(max)};
+    }
+
+    private class LifecycleCoalescer extends TxnRequestCoalescer<TxnMessage.TxnActionResult>{
+        private final TxnMessage.LifecycleAction action;
+
+        LifecycleCoalescer(long windowMs,TxnMessage.LifecycleAction action){
+            super(windowMs);
+            this.action=action;
+        }
+
+        @Override
+        protected void execute(long[] txnIds,Batch<TxnMessage.TxnActionResult> batch) throws IOException{
+            TxnMessage.MultiLifecycleMessage.Builder request=TxnMessage.MultiLifecycleMessage.newBuilder().setAction(action);
+            for(long txnId:txnIds){
+                request.addTxnIds(txnId);
+            }
+            byte[][] range=bucketRange(txnIds);
+            try(TxnNetworkLayer table=tableFactory.accessTxnNetwork()){
+                for(TxnMessage.MultiActionResponse response:table.lifecycleActions(range[0],range[1],request.build())){
+                    for(TxnMessage.TxnActionResult result:response.getResultsList()){
+                        long txnId=result.getTxnId();
+                        if(!result.hasFailure())
+                            batch.complete(txnId,result);
+                        else if(result.getFailure()==TxnMessage.ActionFailure.TIMED_OUT)
+                            batch.fail(txnId,new HTransactionTimeout(txnId));
+                        else
+                            batch.fail(txnId,new HCannotCommitException(txnId,Txn.State.fromInt(result.getState())));
+                    }
+                }
+            }
+        }
+    }
+
+    private class LookupCoalescer extends TxnRequestCoalescer<TxnMessage.Txn>{
+
+        LookupCoalescer(long windowMs){
+            super(windowMs);
+        }
+
+        @Override
+        protected void execute(long[] txnIds,Batch<TxnMessage.Txn> batch) throws IOException{
+            TxnMessage.MultiTxnRequest.Builder request=TxnMessage.MultiTxnRequest.newBuilder();
+            for(long txnId:txnIds){
+                request.addTxnIds(txnId);
+            }
+            byte[][] range=bucketRange(txnIds);
+            try(TxnNetworkLayer table=tableFactory.accessTxnNetwork()){
+                for(TxnMessage.MultiTxnResponse response:table.getTxns(range[0],range[1],request.build())){
+                    int size=response.getTxnIdsCount();
+                    for(int i=0;i<size;i++){
+                        batch.complete(response.getTxnIds(i),response.getTxns(i));
+                    }
+                }
+            }
+        }
+    }
+
     private static byte[] getTransactionRowKey(long txnId){
         return TxnUtils.getRowKey(txnId);
     }
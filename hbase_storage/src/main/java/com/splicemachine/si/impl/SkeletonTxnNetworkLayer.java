@@ -117,6 +117,42 @@ public abstract class SkeletonTxnNetworkLayer implements TxnNetworkLayer{
         return done.get();
     }
 
+    @Override
+    public Collection<TxnMessage.MultiActionResponse> lifecycleActions(byte[] startRow,byte[] endRow,
+                                                                       final TxnMessage.MultiLifecycleMessage request) throws IOException{
+        Map<byte[], TxnMessage.MultiActionResponse> data=coprocessorService(TxnMessage.TxnLifecycleService.class,
+                startRow,endRow,new Batch.Call<TxnMessage.TxnLifecycleService, TxnMessage.MultiActionResponse>(){
+                    @Override
+                    public TxnMessage.MultiActionResponse call(TxnMessage.TxnLifecycleService instance) throws IOException{
+                        ServerRpcController controller=new ServerRpcController();
+                        BlockingRpcCallback<TxnMessage.MultiActionResponse> response=new BlockingRpcCallback<>();
+
+                        instance.multiLifecycleAction(controller,request,response);
+                        dealWithError(controller);
+                        return response.get();
+                    }
+                });
+        return data.values();
+    }
+
+    @Override
+    public Collection<TxnMessage.MultiTxnResponse> getTxns(byte[] startRow,byte[] endRow,
+                                                          final TxnMessage.MultiTxnRequest request) throws IOException{
+        Map<byte[], TxnMessage.MultiTxnResponse> data=coprocessorService(TxnMessage.TxnLifecycleService.class,
+                startRow,endRow,new Batch.Call<TxnMessage.TxnLifecycleService, TxnMessage.MultiTxnResponse>(){
+                    @Override
+                    public TxnMessage.MultiTxnResponse call(TxnMessage.TxnLifecycleService instance) throws IOException{
+                        ServerRpcController controller=new ServerRpcController();
+                        BlockingRpcCallback<TxnMessage.MultiTxnResponse> response=new BlockingRpcCallback<>();
+
+                        instance.getTransactions(controller,request,response);
+                        dealWithError(controller);
+                        return response.get();
+                    }
+                });
+        return data.values();
+    }
+
     protected abstract TxnMessage.TxnLifecycleService getLifecycleService(byte[] rowKey) throws IOException;
 
     protected abstract <C> Map<byte[],C> coprocessorService(Class<TxnMessage.TxnLifecycleService> txnLifecycleServiceClass,
@@ -38,5 +38,23 @@ public interface TxnNetworkLayer extends AutoCloseable{
 
     TxnMessage.Txn getTxn(byte[] rowKey,TxnMessage.TxnRequest request) throws IOException;
 
+    /**
+     * Perform a lifecycle action against several transactions at once, by calling every region between
+     * {@code startRow} and {@code endRow} (inclusive).
+     *
+     * @return the responses of each region which was called
+     */
+    Collection<TxnMessage.MultiActionResponse> lifecycleActions(byte[] startRow,byte[] endRow,
+                                                                TxnMessage.MultiLifecycleMessage request) throws IOException;
+
+    /**
+     * Fetch several transactions at once, by calling every region between {@code startRow} and
+     * {@code endRow} (inclusive).
+     *
+     * @return the responses of each region which was called
+     */
+    Collection<TxnMessage.MultiTxnResponse> getTxns(byte[] startRow,byte[] endRow,
+                                                   TxnMessage.MultiTxnRequest request) throws IOException;
+
     void close() throws IOException;
 }
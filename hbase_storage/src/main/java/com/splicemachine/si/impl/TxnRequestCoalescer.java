@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.carrotsearch.hppc.LongOpenHashSet;
+import com.splicemachine.si.constants.SIConstants;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent requests for individual transactions into batches, one per transaction table
+ * bucket, so that a whole batch can be served by a single multi-transaction call.
+ * <p/>
+ * For the caller, {@link #submit(long)} is synchronous. The caller joins the pending batch of its transaction's
+ * bucket, and the pending batch is sent as soon as no other batch for that bucket is outstanding, or once the
+ * coalescing window has passed since the batch was started, whichever comes first. Whichever of the waiting callers
+ * notices this first performs the call on behalf of all of them. As a result, a lone caller never waits
+ * for the window, while under load the callers which arrive during a round trip share the next one.
+ *
+ * @param <R> the type of the result of a request
+ */
+abstract class TxnRequestCoalescer<R>{
+    private final Bucket<R>[] buckets;
+    private final long windowNanos;
+
+    @SuppressWarnings("unchecked")
+    TxnRequestCoalescer(long windowMs){
+        this.windowNanos=TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.buckets=new Bucket[SIConstants.TRANSACTION_TABLE_BUCKET_COUNT];
+        for(int i=0;i<buckets.length;i++){
+            buckets[i]=new Bucket<>();
+        }
+    }
+
+    R submit(long txnId) throws IOException{
+        //the same bucket as the transaction's row key
+        Bucket<R> bucket=buckets[(int)(txnId&(buckets.length-1))];
+        Batch<R> batch;
+        boolean send=false;
+        synchronized(bucket){
+            batch=bucket.pending;
+            if(batch==null){
+                batch=new Batch<>(System.nanoTime()+windowNanos);
+                bucket.pending=batch;
+            }
+            batch.txnIds.add(txnId);
+            try{
+                while(!batch.sent){
+                    long remaining=batch.deadline-System.nanoTime();
+                    if(bucket.inFlight<=0 || remaining<=0){
+                        bucket.pending=null;
+                        bucket.inFlight++;
+                        batch.sent=true;
+                        send=true;
+                    }else
+                        TimeUnit.NANOSECONDS.timedWait(bucket,remaining);
+                }
+            }catch(InterruptedException e){
+                throw new IOException(e);
+            }
+        }
+        if(send){
+            try{
+                execute(batch.txnIds.toArray(),batch);
+            }catch(IOException e){
+                batch.error=e;
+            }finally{
+                batch.done.countDown();
+                synchronized(bucket){
+                    bucket.inFlight--;
+                    bucket.notifyAll();
+                }
+            }
+        }
+        return batch.get(txnId);
+    }
+
+    /**
+     * Perform a batch of requests, reporting the outcome of each through {@link Batch#complete(long, Object)}
+     * or {@link Batch#fail(long, IOException)}.
+     *
+     * @param txnIds the distinct transactions in the batch. All of them are in the same bucket.
+     * @param batch  the batch to report to
+     * @throws IOException if the batch as a whole failed
+     */
+    protected abstract void execute(long[] txnIds,Batch<R> batch) throws IOException;
+
+    /* ***************************************************************************************************************/
+    /*private helper classes*/
+    private static class Bucket<R>{
+        private Batch<R> pending;
+        private int inFlight;
+    }
+
+    static class Batch<R>{
+        private final long deadline;
+        private final LongOpenHashSet txnIds=new LongOpenHashSet();
+        private final LongObjectOpenHashMap<Object> outcomes=new LongObjectOpenHashMap<>();
+        private final CountDownLatch done=new CountDownLatch(1);
+        private boolean sent;
+        private volatile IOException error;
+
+        private Batch(long deadline){
+            this.deadline=deadline;
+        }
+
+        void complete(long txnId,R result){
+            outcomes.put(txnId,result);
+        }
+
+        void fail(long txnId,IOException error){
+            outcomes.put(txnId,error);
+        }
+
+        @SuppressWarnings("unchecked")
+        private R get(long txnId) throws IOException{
+            try{
+                done.await();
+            }catch(InterruptedException e){
+                throw new IOException(e);
+            }
+            if(error!=null) throw error;
+            Object outcome=outcomes.get(txnId);
+            if(outcome instanceof IOException) throw (IOException)outcome;
+            if(outcome==null)
+                throw new IOException("No response received for transaction "+txnId);
+            return (R)outcome;
+        }
+    }
+}
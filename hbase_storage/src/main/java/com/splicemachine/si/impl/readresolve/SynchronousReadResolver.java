@@ -27,15 +27,22 @@ import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.RegionPartition;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.RegionTooBusyException;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.regionserver.OperationStatus;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Read-Resolver which resolves elements synchronously on the calling thread.
@@ -90,19 +97,13 @@ public class SynchronousReadResolver implements KeyedReadResolver{
                 }finally{
                     trafficControl.release(1);
                 }
-            }else{
-                TxnView t=transaction;
-                while(t.getState()==Txn.State.COMMITTED){
-                    t=t.getParentTxnView();
-                }
-                if(t==Txn.ROOT_TRANSACTION){
-                    trafficControl.acquire(1);
-                    try{
-                        SynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
-                        resolved=true;
-                    }finally{
-                        trafficControl.release(1);
-                    }
+            }else if(isCommitted(transaction)){
+                trafficControl.acquire(1);
+                try{
+                    SynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
+                    resolved=true;
+                }finally{
+                    trafficControl.release(1);
                 }
             }
             status.rowResolved();
@@ -119,8 +120,61 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         }
     }
 
+    @Override
+    public List<ByteSlice> resolve(Partition region,long txnId,Collection<ByteSlice> rowKeys,TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        if(rowKeys.isEmpty()) return Collections.emptyList();
+        try{
+            TxnView transaction=supplier.getTransaction(txnId);
+            Mutation[] mutations=null;
+            int i=0;
+            if(transaction.getEffectiveState()==Txn.State.ROLLEDBACK){
+                mutations=new Mutation[rowKeys.size()];
+                for(ByteSlice rowKey:rowKeys){
+                    mutations[i++]=rolledbackDelete(rowKey,txnId);
+                }
+            }else if(isCommitted(transaction)){
+                mutations=new Mutation[rowKeys.size()];
+                long commitTimestamp=transaction.getEffectiveCommitTimestamp();
+                for(ByteSlice rowKey:rowKeys){
+                    mutations[i++]=committedPut(rowKey,txnId,commitTimestamp);
+                }
+            }
+
+            List<ByteSlice> resolved=Collections.emptyList();
+            if(mutations!=null){
+                trafficControl.acquire(mutations.length);
+                try{
+                    resolved=resolveBatch(region,rowKeys,mutations,failOnError);
+                }finally{
+                    trafficControl.release(mutations.length);
+                }
+            }
+            for(int r=0;r<rowKeys.size();r++){
+                status.rowResolved();
+            }
+            return resolved;
+        }catch(IOException e){
+            LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
+            if(failOnError)
+                throw new RuntimeException(e);
+            return Collections.emptyList();
+        }catch(InterruptedException e){
+            LOG.debug("Interrupted which performing read resolution, will not resolve");
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+    }
+
     /******************************************************************************************************************/
     /*private helper methods */
+    private static boolean isCommitted(TxnView transaction){
+        TxnView t=transaction;
+        while(t.getState()==Txn.State.COMMITTED){
+            t=t.getParentTxnView();
+        }
+        return t==Txn.ROOT_TRANSACTION;
+    }
+
     private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
         assert region instanceof RegionPartition: "Not on a region!";
         /*
@@ -131,15 +185,8 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing or rollforward is disabled
 
-        Put put=new Put(rowKey.getByteCopy());
-        put.add(SIConstants.DEFAULT_FAMILY_BYTES,
-                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
-                Bytes.toBytes(commitTimestamp));
-        put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
-        put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
-        put.setDurability(Durability.SKIP_WAL);
         try{
-            ((RegionPartition)region).unwrapDelegate().put(put);
+            ((RegionPartition)region).unwrapDelegate().put(committedPut(rowKey,txnId,commitTimestamp));
         }catch(IOException e){
             if(!(e instanceof RegionTooBusyException) && !(e instanceof NotServingRegionException)){
                 LOG.info("Exception encountered when attempting to resolve a row as committed",e);
@@ -159,18 +206,61 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing
 
-        Delete delete=new Delete(rowKey.getByteCopy(),txnId)
-                .deleteColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,txnId) //delete all the columns for our family only
-                .deleteColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,txnId) //delete all the columns for our family only
-                .deleteColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES,txnId); //delete all the columns for our family only
-        delete.setDurability(Durability.SKIP_WAL);
-        delete.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
         try{
-            ((RegionPartition)region).unwrapDelegate().delete(delete);
+            ((RegionPartition)region).unwrapDelegate().delete(rolledbackDelete(rowKey,txnId));
         }catch(IOException ioe){
             LOG.info("Exception encountered when attempting to resolve a row as rolled back",ioe);
             if(failOnError)
                 throw new RuntimeException(ioe);
         }
     }
+
+    /*
+     * Writes all the mutations (one for each of rowKeys, in order) in a single batch against the region, and
+     * returns the rows whose mutation succeeded.
+     */
+    private List<ByteSlice> resolveBatch(Partition region,Collection<ByteSlice> rowKeys,Mutation[] mutations,boolean failOnError){
+        assert region instanceof RegionPartition: "Not on a region!";
+        if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
+            return Collections.emptyList(); //do nothing if we are closing or rollforward is disabled
+
+        try{
+            OperationStatus[] statuses=((RegionPartition)region).unwrapDelegate().batchMutate(mutations);
+            List<ByteSlice> resolved=new ArrayList<>(statuses.length);
+            int i=0;
+            for(ByteSlice rowKey:rowKeys){
+                if(statuses[i++].getOperationStatusCode()==HConstants.OperationStatusCode.SUCCESS)
+                    resolved.add(rowKey);
+            }
+            return resolved;
+        }catch(IOException e){
+            if(!(e instanceof RegionTooBusyException) && !(e instanceof NotServingRegionException)){
+                LOG.info("Exception encountered when attempting to resolve a batch of rows",e);
+                if(failOnError)
+                    throw new RuntimeException(e);
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    private static Put committedPut(ByteSlice rowKey,long txnId,long commitTimestamp){
+        Put put=new Put(rowKey.getByteCopy());
+        put.add(SIConstants.DEFAULT_FAMILY_BYTES,
+                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
+                Bytes.toBytes(commitTimestamp));
+        put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
+        put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        put.setDurability(Durability.SKIP_WAL);
+        return put;
+    }
+
+    private static Delete rolledbackDelete(ByteSlice rowKey,long txnId){
+        Delete delete=new Delete(rowKey.getByteCopy(),txnId)
+                .deleteColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,txnId) //delete all the columns for our family only
+                .deleteColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,txnId) //delete all the columns for our family only
+                .deleteColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES,txnId); //delete all the columns for our family only
+        delete.setDurability(Durability.SKIP_WAL);
+        delete.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        return delete;
+    }
 }
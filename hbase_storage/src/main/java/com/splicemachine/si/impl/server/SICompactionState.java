@@ -15,6 +15,9 @@
 
 package com.splicemachine.si.impl.server;
 
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.LongOpenHashSet;
+import com.carrotsearch.hppc.ObjectArrayList;
 import com.splicemachine.hbase.CellUtils;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.readresolve.RollForward;
@@ -26,13 +29,20 @@ import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
 import com.splicemachine.si.impl.txn.RolledBackTxn;
 import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryAccumulator;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryPredicateFilter;
+import com.splicemachine.storage.Predicate;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -42,6 +52,19 @@ import java.util.TreeSet;
  * guts for SICompactionScanner.
  * <p/>
  * It is handed key-values and can change them.
+ * <p/>
+ * When given a transaction low watermark, it also purges the versions of each row which no reader can see any longer.
+ * A version is <em>settled</em> once its transaction has committed (to the user level) before the low watermark,
+ * as every reader then sees it. Among the settled versions which are older than every unsettled one:
+ * <ul>
+ *     <li>everything older than the newest tombstone or anti-tombstone is removed (as is the data which a tombstone
+ *     deletes)</li>
+ *     <li>the remaining data versions are folded into the newest of them, field by field, the same way that
+ *     readers accumulate them.</li>
+ * </ul>
+ * Tombstones themselves are kept, since the row may have older versions in files (or the memstore) which are not
+ * part of this compaction. For the same reason, the low watermark should only be supplied when compacting every
+ * file in the store.
  */
 public class SICompactionState {
     private static final Logger LOG = Logger.getLogger(SICompactionState.class);
@@ -49,11 +72,25 @@ public class SICompactionState {
     private SortedSet<Cell> dataToReturn;
     private final RollForward rollForward;
     private ByteSlice rowSlice = new ByteSlice();
+    private final long lowWatermark;
+    private long purgedCells;
+    private long purgedBytes;
+    private EntryPredicateFilter mergeFilter;
+    private EntryAccumulator mergeAccumulator;
+    private EntryDecoder mergeDecoder;
 
     public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize) {
+        this(transactionStore,rollForward,activeTransactionCacheSize,0L);
+    }
+
+    /**
+     * @param lowWatermark the transaction low watermark, or 0 if no versions are to be purged
+     */
+    public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize,long lowWatermark) {
         this.rollForward = rollForward;
         this.transactionStore = new ActiveTxnCacheSupplier(transactionStore,activeTransactionCacheSize);
         this.dataToReturn  =new TreeSet<>(KeyValue.COMPARATOR);
+        this.lowWatermark = lowWatermark;
     }
 
     /**
@@ -67,9 +104,25 @@ public class SICompactionState {
         for (Cell aRawList : rawList) {
             mutate(aRawList);
         }
+        if(lowWatermark>0 && !dataToReturn.isEmpty())
+            purgeVersions();
         results.addAll(dataToReturn);
     }
 
+    /**
+     * @return the number of cells which have been purged so far
+     */
+    public long getPurgedCells(){
+        return purgedCells;
+    }
+
+    /**
+     * @return the number of bytes which have been purged so far
+     */
+    public long getPurgedBytes(){
+        return purgedBytes;
+    }
+
     /**
      * Apply SI mutation logic to an individual key-value. Return the "new" key-value.
      */
@@ -144,6 +197,127 @@ public class SICompactionState {
         return true;
     }
 
+    /**
+     * Remove (or fold together) the settled versions of the row held in {@code dataToReturn}.
+     */
+    private void purgeVersions() throws IOException {
+        long minUnsettled = Long.MAX_VALUE;
+        for (Cell cell : dataToReturn) {
+            if(isVersion(getKeyValueType(cell)) && !isSettled(cell.getTimestamp()))
+                minUnsettled = Math.min(minUnsettled,cell.getTimestamp());
+        }
+
+        long newestMarker = -1L;
+        boolean markerIsTombstone = false;
+        for (Cell cell : dataToReturn) {
+            CellType type = getKeyValueType(cell);
+            long timestamp = cell.getTimestamp();
+            if((type==CellType.TOMBSTONE || type==CellType.ANTI_TOMBSTONE) && timestamp<minUnsettled && timestamp>newestMarker){
+                newestMarker = timestamp;
+                markerIsTombstone = type==CellType.TOMBSTONE;
+            }
+        }
+
+        LongOpenHashSet purgedVersions = null;
+        List<Cell> settledData = null;
+        Iterator<Cell> iter = dataToReturn.iterator();
+        while(iter.hasNext()){
+            Cell cell = iter.next();
+            CellType type = getKeyValueType(cell);
+            long timestamp = cell.getTimestamp();
+            if(!isVersion(type) || timestamp>=minUnsettled) continue;
+            if(timestamp<newestMarker || (markerIsTombstone && type==CellType.USER_DATA && timestamp==newestMarker)){
+                iter.remove();
+                recordPurged(cell);
+                if(purgedVersions==null) purgedVersions = new LongOpenHashSet();
+                purgedVersions.add(timestamp);
+            }else if(type==CellType.USER_DATA){
+                if(settledData==null) settledData = new ArrayList<>(2);
+                settledData.add(cell); //newest first, since they share a qualifier
+            }
+        }
+
+        if(settledData!=null && settledData.size()>1){
+            if(purgedVersions==null) purgedVersions = new LongOpenHashSet();
+            mergeVersions(settledData,purgedVersions);
+        }
+        if(purgedVersions==null) return;
+
+        //drop the commit timestamps of versions which are now gone entirely
+        LongOpenHashSet remaining = new LongOpenHashSet();
+        for (Cell cell : dataToReturn) {
+            if(isVersion(getKeyValueType(cell)))
+                remaining.add(cell.getTimestamp());
+        }
+        iter = dataToReturn.iterator();
+        while(iter.hasNext()){
+            Cell cell = iter.next();
+            long timestamp = cell.getTimestamp();
+            if(getKeyValueType(cell)==CellType.COMMIT_TIMESTAMP && purgedVersions.contains(timestamp) && !remaining.contains(timestamp)){
+                iter.remove();
+                recordPurged(cell);
+            }
+        }
+    }
+
+    /**
+     * Fold the data versions (newest first) into the newest one, and remove the older ones.
+     */
+    private void mergeVersions(List<Cell> versions,LongOpenHashSet purgedVersions) throws IOException {
+        if(mergeFilter==null){
+            mergeFilter = new EntryPredicateFilter(new BitSet(),new ObjectArrayList<Predicate>());
+            mergeAccumulator = mergeFilter.newAccumulator();
+            mergeDecoder = new EntryDecoder();
+        }
+        mergeAccumulator.reset();
+        for (Cell version : versions) {
+            mergeDecoder.set(version.getValueArray(),version.getValueOffset(),version.getValueLength());
+            mergeFilter.match(mergeDecoder,mergeAccumulator);
+        }
+        byte[] merged = mergeAccumulator.finish();
+        mergeAccumulator.reset();
+        if(merged==null) return;
+
+        Cell newest = versions.get(0);
+        Cell mergedCell = new KeyValue(newest.getRowArray(),newest.getRowOffset(),newest.getRowLength(),
+                newest.getFamilyArray(),newest.getFamilyOffset(),newest.getFamilyLength(),
+                newest.getQualifierArray(),newest.getQualifierOffset(),newest.getQualifierLength(),
+                newest.getTimestamp(),KeyValue.Type.Put,
+                merged,0,merged.length);
+        dataToReturn.remove(newest);
+        dataToReturn.add(mergedCell);
+        purgedBytes += KeyValueUtil.length(newest)-KeyValueUtil.length(mergedCell);
+        for(int i=1;i<versions.size();i++){
+            Cell version = versions.get(i);
+            dataToReturn.remove(version);
+            recordPurged(version);
+            purgedVersions.add(version.getTimestamp());
+        }
+    }
+
+    /**
+     * @return true if the version written by {@code txnId} is visible to every reader (i.e. it was committed to
+     * the user level before the low watermark).
+     */
+    private boolean isSettled(long txnId) throws IOException {
+        TxnView transaction = transactionStore.getTransaction(txnId);
+        if(transaction.getEffectiveState()!=Txn.State.COMMITTED) return false;
+        TxnView t = transaction;
+        while(t.getState()== Txn.State.COMMITTED){
+            t = t.getParentTxnView();
+        }
+        return t==Txn.ROOT_TRANSACTION && transaction.getEffectiveCommitTimestamp()<lowWatermark;
+    }
+
+    private static boolean isVersion(CellType type){
+        return type==CellType.USER_DATA || type==CellType.TOMBSTONE || type==CellType.ANTI_TOMBSTONE;
+    }
+
+    private void recordPurged(Cell cell){
+        purgedCells++;
+        purgedBytes += KeyValueUtil.length(cell);
+    }
+
     private void recordResolved(Cell element, TxnView transaction) {
         rowSlice.set(element.getRowArray(),element.getRowOffset(),element.getRowLength());
         rollForward.recordResolved(rowSlice,transaction.getTxnId());
@@ -123,6 +123,16 @@ public class HScan implements DataScan{
         return scan.getAttribute(key);
     }
 
+    @Override
+    public DataScan copy(){
+        try{
+            return new HScan(new Scan(scan));
+        }catch(IOException e){
+            //Scan only declares this for the time range, which we already know is valid
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public Map<String, byte[]> allAttributes(){
         return scan.getAttributesMap();
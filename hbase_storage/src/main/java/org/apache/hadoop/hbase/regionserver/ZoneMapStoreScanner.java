@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.regionserver;
+
+import com.splicemachine.hbase.ZoneMapCollector;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.EntryPredicateFilter;
+import com.splicemachine.storage.ZoneMap;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+
+/**
+ * A StoreScanner which skips the store files that cannot hold a row matching the predicates of its scan,
+ * according to the zone maps which flushes and compactions record in the file metadata
+ * (see {@link ZoneMapCollector}).
+ *
+ * Under SI, the visible state of a row is made up of all of the cells for that row: older versions,
+ * partial updates, tombstones and commit timestamps. A file can therefore only be skipped when no other
+ * file (and nothing in the memstore) holds a cell for any row in the file's key range, since otherwise
+ * skipping it could change how the rows in those other files are resolved. In practice, this means that
+ * files written by successive compactions over mostly disjoint key ranges are pruned, while recently
+ * flushed files which overlap everything else are always read.
+ *
+ * This lives in the HBase package so that it can access the reader of a StoreFileScanner.
+ */
+public class ZoneMapStoreScanner extends StoreScanner{
+    private static final Logger LOG=Logger.getLogger(ZoneMapStoreScanner.class);
+
+    /*
+     * selectScannersFrom() is called from the StoreScanner constructor, before our own fields have been
+     * initialized, so these are set lazily, and must not have initializers
+     */
+    private boolean predicatesDecoded;
+    private EntryPredicateFilter predicateFilter;
+
+    public ZoneMapStoreScanner(Store store,ScanInfo scanInfo,Scan scan,NavigableSet<byte[]> columns,long readPt) throws IOException{
+        super(store,scanInfo,scan,columns,readPt);
+    }
+
+    @Override
+    protected List<KeyValueScanner> selectScannersFrom(List<? extends KeyValueScanner> allScanners){
+        List<KeyValueScanner> scanners=super.selectScannersFrom(allScanners);
+        EntryPredicateFilter predicates=getPredicateFilter();
+        if(predicates==null) return scanners;
+
+        List<KeyValueScanner> selected=new ArrayList<>(scanners.size());
+        for(KeyValueScanner scanner:scanners){
+            if(scanner instanceof StoreFileScanner && canSkip((StoreFileScanner)scanner,scanners,predicates)){
+                if(LOG.isTraceEnabled())
+                    SpliceLogUtils.trace(LOG,"Skipping store file %s",((StoreFileScanner)scanner).getReader().getHFileReader().getName());
+                scanner.close();
+            }else
+                selected.add(scanner);
+        }
+        return selected;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private EntryPredicateFilter getPredicateFilter(){
+        if(!predicatesDecoded){
+            predicatesDecoded=true;
+            byte[] data=scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL);
+            if(data==null) return null;
+            try{
+                EntryPredicateFilter filter=EntryPredicateFilter.fromBytes(data);
+                if(filter.getValuePredicates().size()>0)
+                    predicateFilter=filter;
+            }catch(IOException e){
+                SpliceLogUtils.warn(LOG,"Unable to decode the predicates of scan %s: %s",scan,e.getMessage());
+            }
+        }
+        return predicateFilter;
+    }
+
+    private boolean canSkip(StoreFileScanner scanner,List<KeyValueScanner> scanners,EntryPredicateFilter predicates){
+        StoreFile.Reader reader=scanner.getReader();
+        ZoneMap zoneMap=ZoneMapCollector.read(reader);
+        if(zoneMap==null || zoneMap.mayMatch(predicates)) return false;
+
+        byte[] firstRow=row(reader.getFirstKey());
+        byte[] lastRow=row(reader.getLastKey());
+        if(firstRow==null || lastRow==null) return false;
+        for(KeyValueScanner other:scanners){
+            if(other==scanner) continue;
+            if(other instanceof StoreFileScanner){
+                StoreFile.Reader otherReader=((StoreFileScanner)other).getReader();
+                byte[] otherFirst=row(otherReader.getFirstKey());
+                byte[] otherLast=row(otherReader.getLastKey());
+                if(otherFirst==null || otherLast==null) continue; //an empty file
+                if(Bytes.compareTo(otherFirst,lastRow)<=0 && Bytes.compareTo(firstRow,otherLast)<=0) return false;
+            }else if(!other.isFileScanner()){
+                if(memstoreOverlaps(other,firstRow,lastRow)) return false;
+            }else
+                return false; //a file we know nothing about
+        }
+        return true;
+    }
+
+    private boolean memstoreOverlaps(KeyValueScanner memstoreScanner,byte[] firstRow,byte[] lastRow){
+        /*
+         * The memstore has no key range to compare against, so look for its first row at or after the start
+         * of the file. The scanner is re-seeked to the start of the scan before it is used, so it doesn't
+         * matter where we leave it.
+         */
+        try{
+            memstoreScanner.seek(KeyValueUtil.createFirstOnRow(firstRow));
+        }catch(IOException e){
+            return true;
+        }
+        Cell next=memstoreScanner.peek();
+        return next!=null && Bytes.compareTo(next.getRowArray(),next.getRowOffset(),next.getRowLength(),lastRow,0,lastRow.length)<=0;
+    }
+
+    private static byte[] row(byte[] key){
+        if(key==null) return null;
+        return CellUtil.cloneRow(KeyValue.createKeyValueFromKey(key));
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.OperationStatus;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.mockito.invocation.InvocationOnMock;
@@ -48,7 +49,7 @@ public class MockRegionUtils{
 
     public static HRegion getMockRegion() throws IOException{
         final Map<byte[], Set<Cell>> rowMap=Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        HRegion fakeRegion=mock(HRegion.class);
+        final HRegion fakeRegion=mock(HRegion.class);
         HRegionInfo fakeInfo=mock(HRegionInfo.class);
         when(fakeInfo.getStartKey()).thenReturn(HConstants.EMPTY_BYTE_ARRAY);
         when(fakeInfo.getEndKey()).thenReturn(HConstants.EMPTY_BYTE_ARRAY);
@@ -100,6 +101,18 @@ public class MockRegionUtils{
             }
         };
         doAnswer(putAnswer).when(fakeRegion).put(any(Put.class));
+        when(fakeRegion.batchMutate(any(Mutation[].class))).thenAnswer(new Answer<OperationStatus[]>(){
+            @Override
+            public OperationStatus[] answer(InvocationOnMock invocationOnMock) throws Throwable{
+                Mutation[] mutations=(Mutation[])invocationOnMock.getArguments()[0];
+                OperationStatus[] statuses=new OperationStatus[mutations.length];
+                for(int i=0;i<mutations.length;i++){
+                    fakeRegion.put((Put)mutations[i]);
+                    statuses[i]=new OperationStatus(HConstants.OperationStatusCode.SUCCESS);
+                }
+                return statuses;
+            }
+        });
 
         Answer<Void> deleteAnswer=new Answer<Void>(){
             @Override
@@ -109,6 +109,28 @@ public class RegionTxnStoreTest{
 
     }
 
+    @Test
+    public void testCanCommitTransactionsTogether() throws Exception{
+        HRegion region=MockRegionUtils.getMockRegion();
+        RegionTxnStore store=new RegionTxnStore(region,txnSupplier,getTransactionResolver(),Long.MAX_VALUE,clock);
+
+        for(long txnId=1;txnId<=3;txnId++){
+            store.recordTransaction(TxnMessage.TxnInfo.newBuilder()
+                    .setTxnId(txnId)
+                    .setBeginTs(txnId)
+                    .setAllowsWrites(true)
+                    .setIsolationLevel(Txn.IsolationLevel.SNAPSHOT_ISOLATION.getLevel())
+                    .build());
+        }
+        store.recordCommits(new long[]{1,3},new long[]{4,5});
+
+        Assert.assertEquals("Incorrect current state!",Txn.State.COMMITTED,store.getState(1));
+        Assert.assertEquals("Incorrect current state!",Txn.State.ACTIVE,store.getState(2));
+        Assert.assertEquals("Incorrect current state!",Txn.State.COMMITTED,store.getState(3));
+        Assert.assertEquals("Incorrect commit timestamp!",4l,store.getCommitTimestamp(1));
+        Assert.assertEquals("Incorrect commit timestamp!",5l,store.getCommitTimestamp(3));
+    }
+
     @Test
     public void testCanRollbackATransaction() throws Exception{
         HRegion region=MockRegionUtils.getMockRegion();
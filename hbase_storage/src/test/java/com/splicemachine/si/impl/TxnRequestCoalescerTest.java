@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the TxnRequestCoalescer.
+ */
+public class TxnRequestCoalescerTest{
+
+    @Test
+    public void testLoneRequestIsSentImmediately() throws Exception{
+        CountingCoalescer coalescer=new CountingCoalescer(60*1000l);
+        long start=System.currentTimeMillis();
+        Assert.assertEquals("Incorrect result!",-17l,coalescer.submit(17l).longValue());
+        Assert.assertTrue("A lone request should not wait for the window",System.currentTimeMillis()-start<30*1000l);
+        Assert.assertEquals("Incorrect number of calls!",1,coalescer.calls.get());
+    }
+
+    @Test
+    public void testRequestsArrivingDuringACallShareTheNextOne() throws Exception{
+        final CountDownLatch started=new CountDownLatch(1);
+        final CountDownLatch release=new CountDownLatch(1);
+        final CountingCoalescer coalescer=new CountingCoalescer(60*1000l){
+            @Override
+            protected void execute(long[] txnIds,Batch<Long> batch) throws IOException{
+                if(started.getCount()>0){
+                    started.countDown();
+                    try{
+                        release.await(); //hold the first call open until everyone else has queued up
+                    }catch(InterruptedException e){
+                        throw new IOException(e);
+                    }
+                }
+                super.execute(txnIds,batch);
+            }
+        };
+        ExecutorService executor=Executors.newFixedThreadPool(9);
+        try{
+            List<Future<Long>> futures=new ArrayList<>();
+            //every request is in bucket 0
+            futures.add(executor.submit(submission(coalescer,0l)));
+            started.await();
+            for(long txnId=1;txnId<=8;txnId++){
+                futures.add(executor.submit(submission(coalescer,16*txnId)));
+            }
+            while(coalescer.submitted.get()<9){
+                Thread.sleep(1);
+            }
+            Thread.sleep(200); //give the last of them time to join the pending batch
+            release.countDown();
+            for(int i=0;i<futures.size();i++){
+                Assert.assertEquals("Incorrect result!",-16l*i,futures.get(i).get().longValue());
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        Assert.assertEquals("Queued requests should have been sent together",2,coalescer.calls.get());
+    }
+
+    @Test
+    public void testFailuresAreReportedToTheirRequests() throws Exception{
+        CountingCoalescer coalescer=new CountingCoalescer(1l);
+        try{
+            coalescer.submit(CountingCoalescer.FAILING_TXN);
+            Assert.fail("Should have failed");
+        }catch(IOException expected){
+            Assert.assertEquals("Incorrect failure!","Cannot perform "+CountingCoalescer.FAILING_TXN,expected.getMessage());
+        }
+        Assert.assertEquals("Incorrect result!",-1l,coalescer.submit(1l).longValue());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private static Callable<Long> submission(final TxnRequestCoalescer<Long> coalescer,final long txnId){
+        return new Callable<Long>(){
+            @Override
+            public Long call() throws Exception{
+                return coalescer.submit(txnId);
+            }
+        };
+    }
+
+    /*
+     * Answers each transaction with its negation, and counts the calls that it makes
+     */
+    private static class CountingCoalescer extends TxnRequestCoalescer<Long>{
+        static final long FAILING_TXN=3l;
+        final AtomicInteger calls=new AtomicInteger(0);
+        final AtomicInteger submitted=new AtomicInteger(0);
+
+        CountingCoalescer(long windowMs){
+            super(windowMs);
+        }
+
+        @Override
+        Long submit(long txnId) throws IOException{
+            submitted.incrementAndGet();
+            return super.submit(txnId);
+        }
+
+        @Override
+        protected void execute(long[] txnIds,Batch<Long> batch) throws IOException{
+            calls.incrementAndGet();
+            for(long txnId:txnIds){
+                if(txnId==FAILING_TXN)
+                    batch.fail(txnId,new IOException("Cannot perform "+txnId));
+                else
+                    batch.complete(txnId,-txnId);
+            }
+        }
+    }
+}
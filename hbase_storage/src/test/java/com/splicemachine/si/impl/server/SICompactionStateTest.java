@@ -0,0 +1,209 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SICompactionStateTest{
+    private static final KryoPool kryoPool=new KryoPool(10);
+    private static final byte[] ROW=Bytes.toBytes("row");
+
+    private final Map<Long,TxnView> txns=new HashMap<>();
+    private TxnSupplier txnSupplier;
+
+    @Before
+    public void setUp() throws Exception{
+        txnSupplier=mock(TxnSupplier.class);
+        Answer<TxnView> lookup=new Answer<TxnView>(){
+            @Override
+            public TxnView answer(InvocationOnMock invocation) throws Throwable{
+                return txns.get((Long)invocation.getArguments()[0]);
+            }
+        };
+        when(txnSupplier.getTransaction(anyLong())).thenAnswer(lookup);
+        when(txnSupplier.getTransaction(anyLong(),anyBoolean())).thenAnswer(lookup);
+    }
+
+    @Test
+    public void settledUpdatesAreFoldedIntoTheNewestVersion() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        SICompactionState state=new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10);
+        List<Cell> results=compact(state,data(1,"a","b"),data(3,null,"c"));
+
+        List<Cell> data=ofType(state,results,CellType.USER_DATA);
+        Assert.assertEquals("Incorrect number of versions!",1,data.size());
+        Assert.assertEquals(3,data.get(0).getTimestamp());
+        assertFields(data.get(0),"a","c");
+        List<Cell> commits=ofType(state,results,CellType.COMMIT_TIMESTAMP);
+        Assert.assertEquals("Incorrect number of commit timestamps!",1,commits.size());
+        Assert.assertEquals(3,commits.get(0).getTimestamp());
+        Assert.assertEquals("Incorrect purged cell count!",2,state.getPurgedCells());
+        Assert.assertTrue("No bytes were purged!",state.getPurgedBytes()>0);
+    }
+
+    @Test
+    public void versionsAreNotPurgedWithoutALowWatermark() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        SICompactionState state=new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16);
+        List<Cell> results=compact(state,data(1,"a","b"),data(3,null,"c"));
+
+        Assert.assertEquals(2,ofType(state,results,CellType.USER_DATA).size());
+        Assert.assertEquals(2,ofType(state,results,CellType.COMMIT_TIMESTAMP).size());
+        Assert.assertEquals(0,state.getPurgedCells());
+    }
+
+    @Test
+    public void versionsCommittedAfterTheLowWatermarkAreKept() throws Exception{
+        committed(1,2);
+        committed(3,6);
+        SICompactionState state=new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,5);
+        List<Cell> results=compact(state,data(1,"a","b"),data(3,null,"c"));
+
+        Assert.assertEquals(2,ofType(state,results,CellType.USER_DATA).size());
+        Assert.assertEquals(0,state.getPurgedCells());
+    }
+
+    @Test
+    public void settledVersionsOlderThanAnUnsettledVersionAreNotMerged() throws Exception{
+        committed(1,2);
+        txns.put(3L,new ActiveWriteTxn(3,3,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+        committed(5,6);
+        SICompactionState state=new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10);
+        List<Cell> results=compact(state,data(1,"a","b"),data(3,null,"c"),data(5,"d",null));
+
+        //readers which can see txn 3 must still see its field in preference to the one written by txn 1
+        Assert.assertEquals(3,ofType(state,results,CellType.USER_DATA).size());
+        Assert.assertEquals(0,state.getPurgedCells());
+    }
+
+    @Test
+    public void tombstoneRemovesTheVersionsItDeletes() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        SICompactionState state=new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10);
+        List<Cell> results=compact(state,data(1,"a","b"),tombstone(3));
+
+        Assert.assertEquals(0,ofType(state,results,CellType.USER_DATA).size());
+        List<Cell> tombstones=ofType(state,results,CellType.TOMBSTONE);
+        Assert.assertEquals(1,tombstones.size());
+        Assert.assertEquals(3,tombstones.get(0).getTimestamp());
+        List<Cell> commits=ofType(state,results,CellType.COMMIT_TIMESTAMP);
+        Assert.assertEquals(1,commits.size());
+        Assert.assertEquals(3,commits.get(0).getTimestamp());
+    }
+
+    @Test
+    public void reinsertAfterDeleteKeepsOnlyTheReinsertedVersion() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,6);
+        SICompactionState state=new SICompactionState(txnSupplier,NoopRollForward.INSTANCE,16,10);
+        List<Cell> results=compact(state,data(1,"a","b"),tombstone(3),antiTombstone(5),data(5,"c","d"));
+
+        List<Cell> data=ofType(state,results,CellType.USER_DATA);
+        Assert.assertEquals(1,data.size());
+        assertFields(data.get(0),"c","d");
+        Assert.assertEquals(0,ofType(state,results,CellType.TOMBSTONE).size());
+        Assert.assertEquals(1,ofType(state,results,CellType.ANTI_TOMBSTONE).size());
+        Assert.assertEquals(1,ofType(state,results,CellType.COMMIT_TIMESTAMP).size());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void committed(long txnId,long commitTs){
+        txns.put(txnId,new CommittedTxn(txnId,commitTs));
+    }
+
+    private static List<Cell> compact(SICompactionState state,Cell... cells) throws Exception{
+        List<Cell> results=new ArrayList<>();
+        state.mutate(new ArrayList<>(Arrays.asList(cells)),results);
+        return results;
+    }
+
+    private static List<Cell> ofType(SICompactionState state,List<Cell> cells,CellType type){
+        List<Cell> matching=new ArrayList<>();
+        for(Cell cell:cells){
+            if(state.getKeyValueType(cell)==type)
+                matching.add(cell);
+        }
+        return matching;
+    }
+
+    /*
+     * Encodes a row with two fields, either of which may be absent (as in an update).
+     */
+    private static Cell data(long txnId,String first,String second) throws Exception{
+        BitSet setCols=new BitSet();
+        if(first!=null) setCols.set(0);
+        if(second!=null) setCols.set(1);
+        EntryEncoder encoder=EntryEncoder.create(kryoPool,2,setCols,new BitSet(),new BitSet(),new BitSet());
+        MultiFieldEncoder fields=encoder.getEntryEncoder();
+        if(first!=null) fields.encodeNext(first);
+        if(second!=null) fields.encodeNext(second);
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,txnId,encoder.encode());
+    }
+
+    private static Cell tombstone(long txnId){
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,
+                txnId,SIConstants.EMPTY_BYTE_ARRAY);
+    }
+
+    private static Cell antiTombstone(long txnId){
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,
+                txnId,SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES);
+    }
+
+    private static void assertFields(Cell cell,String first,String second) throws Exception{
+        EntryDecoder decoder=new EntryDecoder();
+        decoder.set(cell.getValueArray(),cell.getValueOffset(),cell.getValueLength());
+        Assert.assertEquals("Incorrect first field!",first,Encoding.decodeString(decoder.getData(0)));
+        Assert.assertEquals("Incorrect second field!",second,Encoding.decodeString(decoder.getData(1)));
+    }
+}
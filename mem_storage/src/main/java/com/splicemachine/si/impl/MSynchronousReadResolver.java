@@ -30,6 +30,10 @@ import com.splicemachine.utils.TrafficControl;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Read-Resolver which resolves elements synchronously on the calling thread.
@@ -84,19 +88,13 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
                 }finally{
                     trafficControl.release(1);
                 }
-            }else{
-                TxnView t=transaction;
-                while(t.getState()==Txn.State.COMMITTED){
-                    t=t.getParentTxnView();
-                }
-                if(t==Txn.ROOT_TRANSACTION){
-                    trafficControl.acquire(1);
-                    try{
-                        MSynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
-                        resolved=true;
-                    }finally{
-                        trafficControl.release(1);
-                    }
+            }else if(isCommitted(transaction)){
+                trafficControl.acquire(1);
+                try{
+                    MSynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
+                    resolved=true;
+                }finally{
+                    trafficControl.release(1);
                 }
             }
             status.rowResolved();
@@ -113,16 +111,69 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
         }
     }
 
+    @Override
+    public List<ByteSlice> resolve(Partition region,long txnId,Collection<ByteSlice> rowKeys,TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        if(rowKeys.isEmpty()) return Collections.emptyList();
+        try{
+            TxnView transaction=supplier.getTransaction(txnId);
+            boolean rolledBack=transaction.getEffectiveState()==Txn.State.ROLLEDBACK;
+            List<ByteSlice> resolved=new ArrayList<>(rowKeys.size());
+            if(rolledBack || isCommitted(transaction)){
+                /*
+                 * In memory there is no per-write overhead for a batch to save, so we just
+                 * write each row in turn
+                 */
+                long commitTimestamp=rolledBack?-1L:transaction.getEffectiveCommitTimestamp();
+                trafficControl.acquire(rowKeys.size());
+                try{
+                    for(ByteSlice rowKey:rowKeys){
+                        boolean written=rolledBack
+                                ?resolveRolledback(region,rowKey,txnId,failOnError)
+                                :resolveCommitted(region,rowKey,txnId,commitTimestamp,failOnError);
+                        if(written)
+                            resolved.add(rowKey);
+                    }
+                }finally{
+                    trafficControl.release(rowKeys.size());
+                }
+            }
+            for(int i=0;i<rowKeys.size();i++){
+                status.rowResolved();
+            }
+            return resolved;
+        }catch(IOException e){
+            LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
+            if(failOnError)
+                throw new RuntimeException(e);
+            return Collections.emptyList();
+        }catch(InterruptedException e){
+            LOG.debug("Interrupted which performing read resolution, will not resolve");
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+    }
+
     /******************************************************************************************************************/
     /*private helper methods */
-    private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
+    private static boolean isCommitted(TxnView transaction){
+        TxnView t=transaction;
+        while(t.getState()==Txn.State.COMMITTED){
+            t=t.getParentTxnView();
+        }
+        return t==Txn.ROOT_TRANSACTION;
+    }
+
+    /*
+     * @return true if the row was resolved
+     */
+    private boolean resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
         /*
          * Resolve the row as committed directly.
          *
          * This does a Put to the row, bypassing SI and the WAL, so it should be pretty low impact
          */
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
-            return; //do nothing if we are closing or rollforward is disabled
+            return false; //do nothing if we are closing or rollforward is disabled
 
         DataPut put=new MPut(rowKey.getByteCopy());
         put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,
@@ -132,20 +183,25 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
         put.addAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
         try{
             region.put(put);
+            return true;
         }catch(IOException e){
             if(failOnError)
                 throw new RuntimeException(e);
+            return false;
         }
     }
 
-    private void resolveRolledback(Partition region,ByteSlice rowKey,long txnId,boolean failOnError){
+    /*
+     * @return true if the row was resolved
+     */
+    private boolean resolveRolledback(Partition region,ByteSlice rowKey,long txnId,boolean failOnError){
         /*
          * Resolve the row as rolled back directly.
          *
          * This does a Delete to the row, bypassing SI and the WAL, so it should be pretty low impact
          */
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
-            return; //do nothing if we are closing
+            return false; //do nothing if we are closing
 
         DataDelete delete=new MDelete(rowKey.getByteCopy())
                 .deleteColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,txnId) //delete all the columns for our family only
@@ -154,10 +210,12 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
         delete.addAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
         try{
             region.delete(delete);
+            return true;
         }catch(IOException ioe){
             LOG.info("Exception encountered when attempting to resolve a row as rolled back",ioe);
             if(failOnError)
                 throw new RuntimeException(ioe);
+            return false;
         }
     }
 }
@@ -21,7 +21,9 @@ import com.splicemachine.pipeline.api.PipelineMeter;
 import com.splicemachine.pipeline.api.WritePipelineFactory;
 import com.splicemachine.pipeline.client.*;
 import com.splicemachine.pipeline.exception.IndexNotSetUpException;
+import com.splicemachine.pipeline.traffic.MemoryPressure;
 import com.splicemachine.pipeline.traffic.SpliceWriteControl;
+import com.splicemachine.pipeline.traffic.WriteStatus;
 import com.splicemachine.pipeline.writehandler.SharedCallBufferFactory;
 import com.splicemachine.utils.Pair;
 import org.apache.log4j.Logger;
@@ -39,6 +41,12 @@ import java.util.concurrent.atomic.AtomicLong;
 @ThreadSafe
 public class PipelineWriter{
     private static final Logger LOG =Logger.getLogger(PipelineWriter.class);
+    /*
+     * Below this fraction of the memstore limit, memory doesn't limit the credits we advertise; above it,
+     * the credits shrink linearly until they reach 0 at MAX_MEMSTORE_FILL
+     */
+    private static final double MEMSTORE_FILL_LOW_WATER=0.5d;
+    private static final double MAX_MEMSTORE_FILL=0.95d;
     private final SpliceWriteControl writeControl;
     private final AtomicLong rejectedCount = new AtomicLong(0l);
 
@@ -46,6 +54,7 @@ public class PipelineWriter{
     private final PipelineExceptionFactory exceptionFactory;
     private final WritePipelineFactory writePipelineFactory;
     private final PipelineMeter pipelineMeter;
+    private volatile MemoryPressure memoryPressure = MemoryPressure.NONE;
 
     public PipelineWriter(PipelineExceptionFactory pipelineExceptionFactory,
                           WritePipelineFactory writePipelineFactory,
@@ -109,10 +118,11 @@ public class PipelineWriter{
                 LOG.trace("Rejecting "+numBulkWrites+" rows in "+ bws.size()+"writes because the pipeline is too busy");
             rejectAll(bws,result, Code.PIPELINE_TOO_BUSY,null);
             rejectedCount.addAndGet(numBulkWrites);
-            return new BulkWritesResult(result);
+            return new BulkWritesResult(result,0);
         }
+        BulkWritesResult writeResult;
         try {
-            return performWrite(bulkWrites,bws,result,indexWriteBufferFactory);
+            writeResult = performWrite(bulkWrites,bws,result,indexWriteBufferFactory);
         } finally {
             switch (status) {
                 case REJECTED:
@@ -125,6 +135,41 @@ public class PipelineWriter{
                     break;
             }
         }
+        return new BulkWritesResult(writeResult.getBulkWriteResults(),availableCredits(dependent));
+    }
+
+    /**
+     * The number of rows of the given kind which this server can take right away, advertised to clients
+     * so that they can pace their writes. This is the room left under the write control's row limit, scaled
+     * down as the write threads are taken up (which is what queues writes up behind the handlers) and as the
+     * memstores fill up towards the point where HBase blocks writes.
+     *
+     * @param dependent whether the credits are for dependent (i.e. indexed) writes
+     * @return the available write credits
+     */
+    public int availableCredits(boolean dependent){
+        WriteStatus status = writeControl.getWriteStatus();
+        int rowHeadroom;
+        double threadHeadroom;
+        if (dependent) {
+            rowHeadroom = writeControl.maxDependentWriteCount()-status.getDependentWriteCount();
+            int maxThreads = writeControl.maxDependendentWriteThreads();
+            threadHeadroom = maxThreads<=0 ? 0d : ((double)(maxThreads-status.getDependentWriteThreads()))/maxThreads;
+        } else {
+            rowHeadroom = writeControl.maxIndependentWriteCount()-status.getIndependentWriteCount();
+            int maxThreads = writeControl.maxIndependentWriteThreads();
+            threadHeadroom = maxThreads<=0 ? 0d : ((double)(maxThreads-status.getIndependentWriteThreads()))/maxThreads;
+        }
+        if (rowHeadroom<=0 || threadHeadroom<=0d) return 0;
+
+        double fill = memoryPressure.memstoreFill();
+        double memoryHeadroom = (MAX_MEMSTORE_FILL-fill)/(MAX_MEMSTORE_FILL-MEMSTORE_FILL_LOW_WATER);
+        double headroom = Math.min(threadHeadroom,Math.max(0d,Math.min(1d,memoryHeadroom)));
+        return (int)(rowHeadroom*headroom);
+    }
+
+    public void setMemoryPressure(MemoryPressure memoryPressure){
+        this.memoryPressure = memoryPressure;
     }
 
     protected BulkWritesResult performWrite(@Nonnull BulkWrites bulkWrites,Collection<BulkWrite> bws,List<BulkWriteResult> result,SharedCallBufferFactory indexWriteBufferFactory) throws IOException{
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.pipeline.api;
+
+import javax.management.MXBean;
+
+/**
+ * Status MBean for the pacing of writes to a single region server.
+ */
+@MXBean
+public interface ServerWriteFlowStatus{
+
+    String getServer();
+
+    /**
+     * @return the rate (in rows per second) at which writes are currently sent to the server
+     */
+    int getRowsPerSecond();
+
+    /**
+     * @return the number of rows which the server last said it could accept right away, or -1 if
+     * it has not said
+     */
+    int getAvailableCredits();
+
+    /**
+     * @return the average round-trip time (in milliseconds) of the writes sent to the server
+     */
+    double getAvgWriteLatency();
+
+    /**
+     * @return the round-trip time (in milliseconds) of the last write sent to the server
+     */
+    double getLastWriteLatency();
+
+    long getTotalWrites();
+
+    long getRejectedWrites();
+
+    /**
+     * @return the total time (in milliseconds) which writers have spent waiting to send to the server
+     */
+    long getTotalThrottledTime();
+}
@@ -162,7 +162,7 @@ class ServerCallBuffer implements CallBuffer<Pair<byte[], PartitionBuffer>> {
         }
         if(bws.size()==0) return null;
         else
-            return new BulkWrites(bws, this.txn, this.buffers.lastKey());
+            return new BulkWrites(bws, this.txn, this.buffers.lastKey(), this.server.getHostAndPort());
     }
 
     public int getHeapSize() {
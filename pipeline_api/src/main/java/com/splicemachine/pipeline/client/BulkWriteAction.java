@@ -80,10 +80,10 @@ public class BulkWriteAction implements Callable<WriteStats>{
     private final Counter partialFailureCounter;
     private final Counter regionTooBusy;
     private final PartitionFactory partitionFactory;
+    private final WriteFlowControl flowControl;
     private PipingCallBuffer retryPipingCallBuffer=null; // retryCallBuffer
 
 
-    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
     public BulkWriteAction(byte[] tableName,
                            BulkWrites writes,
                            WriteConfiguration writeConfiguration,
@@ -92,6 +92,23 @@ public class BulkWriteAction implements Callable<WriteStats>{
                            PipelineExceptionFactory pipelineExceptionFactory,
                            PartitionFactory partitionFactory,
                            Clock clock){
+        this(tableName,writes,writeConfiguration,statusReporter,writerFactory,pipelineExceptionFactory,partitionFactory,clock,null);
+    }
+
+    /**
+     * @param flowControl paces the writes to each region server, or {@code null} to back off from
+     *                    busy servers with a fixed sleep instead
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public BulkWriteAction(byte[] tableName,
+                           BulkWrites writes,
+                           WriteConfiguration writeConfiguration,
+                           ActionStatusReporter statusReporter,
+                           BulkWriterFactory writerFactory,
+                           PipelineExceptionFactory pipelineExceptionFactory,
+                           PartitionFactory partitionFactory,
+                           Clock clock,
+                           WriteFlowControl flowControl){
         assert writes!=null:"writes passed into BWA are null";
         this.tableName=tableName;
         this.bulkWrites=writes;
@@ -109,6 +126,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
         this.writeTimer=metricFactory.newTimer();
         this.pipelineExceptionFactory = pipelineExceptionFactory;
         this.partitionFactory = partitionFactory;
+        this.flowControl = flowControl;
         thrownErrorsRows=metricFactory.newCounter();
         retriedRows=metricFactory.newCounter();
         partialRows=metricFactory.newCounter();
@@ -227,7 +245,9 @@ public class BulkWriteAction implements Callable<WriteStats>{
 
             /*
              * We need to do an exponential backoff to ensure that our cache has a chance to invalidate, or
-             * simply because we were told to wait a bit by the write pipeline (i.e. we were rejected).
+             * simply because we were told to wait a bit by the write pipeline (i.e. we were rejected). When
+             * the writes to the server are paced, a rejection doesn't sleep here: it slows the server's pace instead,
+             * which makes the retry wait for its turn.
              */
             if(ctx.shouldSleep()){
                 clock.sleep(PipelineUtils.getPauseTime(ctx.attemptCount,10),TimeUnit.MILLISECONDS);
@@ -252,12 +272,19 @@ public class BulkWriteAction implements Callable<WriteStats>{
         if(LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG,"Getting next BulkWrites in loop: id=%d, nextBulkWrites=%s",id,nextWrite);
 
+        String server=nextWrite.getServer();
+        boolean paced=flowControl!=null && server!=null;
+        if(paced)
+            flowControl.acquire(server,nextWrite.numEntries());
+
         //used to indicate that the exception was thrown inside the try{} block explicitly, and should just be re-thrown
         boolean thrown = false;
         try{
             BulkWriter writer=writerFactory.newWriter(tableName);
             writeTimer.startTiming();
+            long writeStart=clock.nanoTime();
             BulkWritesResult bulkWritesResult=writer.write(nextWrite,ctx.refreshCache);
+            long writeLatency=clock.nanoTime()-writeStart;
             writeTimer.stopTiming();
             Iterator<BulkWrite> bws=nextWrite.getBulkWrites().iterator();
             Collection<BulkWriteResult> results=bulkWritesResult.getBulkWriteResults();
@@ -292,7 +319,10 @@ public class BulkWriteAction implements Callable<WriteStats>{
 
                         ctx.addBulkWrites(currentBulkWrite.getMutations());
                         ctx.refreshCache = ctx.refreshCache || bulkWriteResult.getGlobalResult().refreshCache();
-                        ctx.sleep=true; //always sleep due to rejection, even if we don't need to refresh the cache
+                        boolean tooBusy=bulkWriteResult.getGlobalResult().getCode()==Code.PIPELINE_TOO_BUSY;
+                        ctx.tooBusy = ctx.tooBusy || tooBusy;
+                        //always back off due to rejection, even if we don't need to refresh the cache
+                        ctx.sleep = ctx.sleep || !(paced && tooBusy);
                         break;
                     case PARTIAL:
                         partialRows.add(currentBulkWrite.getSize());
@@ -348,6 +378,12 @@ public class BulkWriteAction implements Callable<WriteStats>{
                         throw new IllegalStateException("Programmer error: Unknown global response: "+globalResponse);
                 }
             }
+            if(paced){
+                if(ctx.tooBusy)
+                    flowControl.writeRejected(server);
+                else
+                    flowControl.writeCompleted(server,nextWrite.numEntries(),writeLatency,bulkWritesResult.getAvailableCredits());
+            }
         }catch(Throwable e){
             if(LOG.isTraceEnabled())
                 SpliceLogUtils.trace(LOG,"Caught throwable: id=%d",id);
@@ -367,7 +403,10 @@ public class BulkWriteAction implements Callable<WriteStats>{
                     SpliceLogUtils.debug(RETRY_LOG,"Retrying write after receiving RegionTooBusyException: id=%d",id);
 
                 regionTooBusy.increment();
-                ctx.sleep = true;
+                if(paced)
+                    flowControl.writeRejected(server);
+                else
+                    ctx.sleep = true;
                 ctx.directRetry();
                 return;
             }
@@ -484,6 +523,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
         boolean refreshCache = false;
         boolean sleep = false;
         boolean rejected= false;
+        boolean tooBusy = false;
         /*
          * Either directRetrySet !=null or nextWriteSet !=null. Otherwise, it's an error (since nextWriteSet is
          * necessarily a subset of the rows contained in directWriteSet).
@@ -507,6 +547,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
             nextWriteSet = null;
             directRetry = false;
             rejected=false;
+            tooBusy=false;
         }
 
         void addBulkWrites(Collection<KVPair> writes){
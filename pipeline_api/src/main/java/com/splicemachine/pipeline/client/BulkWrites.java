@@ -35,6 +35,11 @@ public class BulkWrites{
      * any region which is present on the destination region server
      */
     private transient byte[] regionKey;
+    /*
+     * The host and port of the region server the write is destined for, so that writes to
+     * the same server can be paced together. Null when the destination isn't known.
+     */
+    private transient String server;
 
     public BulkWrites(){
         bulkWrites=new ArrayList<>(0);
@@ -51,11 +56,20 @@ public class BulkWrites{
         this.regionKey=regionKey;
     }
 
+    public BulkWrites(Collection<BulkWrite> bulkWrites,TxnView txn,byte[] regionKey,String server){
+        this(bulkWrites,txn,regionKey);
+        this.server=server;
+    }
+
     @SuppressFBWarnings(value="EI_EXPOSE_REP", justification="Intentional")
     public byte[] getRegionKey(){
         return regionKey;
     }
 
+    public String getServer(){
+        return server;
+    }
+
     public Collection<BulkWrite> getBulkWrites(){
         return bulkWrites;
     }
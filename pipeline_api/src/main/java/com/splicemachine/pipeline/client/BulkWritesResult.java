@@ -22,16 +22,35 @@ import java.util.Collection;
  * Created on: 8/8/13
  */
 public class BulkWritesResult {
+		/**
+		 * Credits value for a server which did not (or could not) say how many more rows it can take.
+		 */
+		public static final int UNKNOWN_CREDITS = -1;
+
 		private Collection<BulkWriteResult> bulkWriteResults;
+		private int availableCredits;
 
 		public BulkWritesResult(Collection<BulkWriteResult> bulkWriteResults){
+				this(bulkWriteResults,UNKNOWN_CREDITS);
+		}
+
+		public BulkWritesResult(Collection<BulkWriteResult> bulkWriteResults,int availableCredits){
 				this.bulkWriteResults = bulkWriteResults;
+				this.availableCredits = availableCredits;
 		}
 
 		public Collection<BulkWriteResult> getBulkWriteResults() {
 				return bulkWriteResults;
 		}
 
+		/**
+		 * @return the number of rows which the server said it could accept right away when it answered this
+		 * write, or {@link #UNKNOWN_CREDITS}. Clients use this to pace the writes that they send to the server.
+		 */
+		public int getAvailableCredits() {
+				return availableCredits;
+		}
+
 		@Override
 		public String toString() {
 				StringBuilder sb = new StringBuilder("BulkWritesResult{");
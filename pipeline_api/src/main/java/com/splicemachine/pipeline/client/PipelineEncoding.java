@@ -18,6 +18,8 @@ package com.splicemachine.pipeline.client;
 import com.splicemachine.encoding.ExpandedDecoder;
 import com.splicemachine.encoding.ExpandingEncoder;
 import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.utils.BufferPool;
+import com.splicemachine.pipeline.utils.PooledBuffer;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.utils.ByteSlice;
@@ -56,6 +58,60 @@ public class PipelineEncoding {
 
         int heapSize = bulkWrites.getBufferHeapSize();
         ExpandingEncoder buffer = new ExpandingEncoder(heapSize+txnBytes.length);
+        encode(buffer,txnBytes,bulkWrites);
+        return buffer.getBuffer();
+    }
+
+    /**
+     * Encode into a buffer taken from {@code pool}, rather than into a new array.
+     *
+     * The buffer is sized up front to hold the entire encoding, so the data is written exactly once, and
+     * never copied to grow or trim the array. The caller owns the returned buffer, and must release it
+     * once the encoded bytes are no longer needed (e.g. once the write has been sent).
+     *
+     * @return a buffer holding the encoded form of {@code bulkWrites}
+     */
+    public static PooledBuffer encode(TxnOperationFactory operationFactory,BulkWrites bulkWrites,BufferPool pool){
+        byte[] txnBytes = operationFactory.encode(bulkWrites.getTxn());
+
+        PooledBuffer pooled = pool.acquire(maxEncodedSize(txnBytes,bulkWrites));
+        ExpandingEncoder buffer = new ExpandingEncoder(pooled.array());
+        try{
+            encode(buffer,txnBytes,bulkWrites);
+        }catch(RuntimeException e){
+            pooled.release();
+            throw e;
+        }
+        if(buffer.getRawBuffer()!=pooled.array()){
+            //we underestimated, and the encoder had to move to a new array
+            pooled.release();
+            pooled = PooledBuffer.wrap(buffer.getBuffer());
+        }else
+            pooled.setLength(buffer.getLength());
+        return pooled;
+    }
+
+    public static BulkWrites decode(TxnOperationFactory operationFactory,byte[] data){
+        ExpandedDecoder decoder = new ExpandedDecoder(data);
+        byte[] txnBytes = decoder.rawBytes();
+        TxnView txn = operationFactory.decode(txnBytes,0,txnBytes.length);
+        int bwSize = decoder.decodeInt();
+        List<String> stringNames = new ArrayList<>(bwSize);
+        for(int i=0;i<bwSize;i++) {
+            stringNames.add(decoder.decodeString());
+        }
+        byte[] skipIndexWrites = new byte[bwSize];
+        for (int i=0; i<bwSize; i++) {
+            skipIndexWrites[i] = decoder.decodeByte();
+        }
+
+        return new BulkWrites(new BulkWriteCol(skipIndexWrites,data,decoder.currentOffset(),stringNames),txn);
+    }
+
+
+    /***********************************************************************************************************/
+    /*private helper methods and classes*/
+    private static void encode(ExpandingEncoder buffer,byte[] txnBytes,BulkWrites bulkWrites){
         buffer.rawEncode(txnBytes);
 
         //encode BulkWrite metadata
@@ -79,30 +135,21 @@ public class PipelineEncoding {
                 buffer.rawEncode(kvPair.valueSlice());
             }
         }
-        return buffer.getBuffer();
     }
 
-
-    public static BulkWrites decode(TxnOperationFactory operationFactory,byte[] data){
-        ExpandedDecoder decoder = new ExpandedDecoder(data);
-        byte[] txnBytes = decoder.rawBytes();
-        TxnView txn = operationFactory.decode(txnBytes,0,txnBytes.length);
-        int bwSize = decoder.decodeInt();
-        List<String> stringNames = new ArrayList<>(bwSize);
-        for(int i=0;i<bwSize;i++) {
-            stringNames.add(decoder.decodeString());
+    /*
+     * An upper bound on the size of the encoding, so that the encoder never has to grow its buffer. Lengths
+     * and counts take at most 5 bytes each, and a String at most 3 bytes per char plus a terminator.
+     */
+    static int maxEncodedSize(byte[] txnBytes,BulkWrites bulkWrites){
+        long size = txnBytes.length+5+5+1; //the encoder wants one spare byte at the end
+        for(BulkWrite bw:bulkWrites.getBulkWrites()){
+            size+=3*bw.getEncodedStringName().length()+1+5+5;
+            size+=bw.getBufferSize()+11L*bw.getSize();
         }
-        byte[] skipIndexWrites = new byte[bwSize];
-        for (int i=0; i<bwSize; i++) {
-            skipIndexWrites[i] = decoder.decodeByte();
-        }
-
-        return new BulkWrites(new BulkWriteCol(skipIndexWrites,data,decoder.currentOffset(),stringNames),txn);
+        return (int)Math.min(size,Integer.MAX_VALUE);
     }
 
-
-    /***********************************************************************************************************/
-    /*private helper classes*/
     private static class BulkWriteCol extends AbstractCollection<BulkWrite>{
         private final int kvOffset;
         private final List<String> encodedStringNames;
@@ -62,6 +62,7 @@ public class WriteCoordinator {
     private final WriteConfiguration defaultWriteConfiguration;
     private final PartitionFactory partitionFactory;
     private final MonitoredThreadPool writerPool;
+    private final WriteFlowControl flowControl;
 
     public static WriteCoordinator create(SConfiguration config,
                                           BulkWriterFactory writerFactory,
@@ -71,18 +72,22 @@ public class WriteCoordinator {
         assert config != null;
         MonitoredThreadPool writerPool = MonitoredThreadPool.create(config);
         int maxEntries = config.getMaxBufferEntries();//SpliceConstants.maxBufferEntries;
+        WriteFlowControl flowControl = null;
+        if (config.isWriteFlowControlEnabled()) {
+            flowControl = new WriteFlowControl(config.getWriteFlowControlMinRate(),config.getWriteFlowControlMaxRate(),clock);
+        }
         Writer writer = new AsyncBucketingWriter(writerPool,
                 writerFactory,
                 exceptionFactory,
-                partitionFactory,clock);
-        Writer syncWriter = new SynchronousBucketingWriter(writerFactory,exceptionFactory,partitionFactory,clock);
+                partitionFactory,clock,flowControl);
+        Writer syncWriter = new SynchronousBucketingWriter(writerFactory,exceptionFactory,partitionFactory,clock,flowControl);
         long maxBufferHeapSize = config.getMaxBufferHeapSize();
         int numRetries = config.getMaxRetries();
         long pause = config.getClientPause();
         int maxFlushesPerRegion = config.getWriteMaxFlushesPerRegion();
         Monitor monitor = new Monitor(maxBufferHeapSize, maxEntries, numRetries, pause, maxFlushesPerRegion);
 
-        return new WriteCoordinator(writer, syncWriter, monitor,partitionFactory,exceptionFactory,writerPool);
+        return new WriteCoordinator(writer, syncWriter, monitor,partitionFactory,exceptionFactory,writerPool,flowControl);
     }
 
     public WriteCoordinator(Writer asynchronousWriter,
@@ -91,12 +96,23 @@ public class WriteCoordinator {
                              PartitionFactory partitionFactory,
                              PipelineExceptionFactory pipelineExceptionFactory,
                             MonitoredThreadPool writerPool) {
+        this(asynchronousWriter,synchronousWriter,monitor,partitionFactory,pipelineExceptionFactory,writerPool,null);
+    }
+
+    public WriteCoordinator(Writer asynchronousWriter,
+                            Writer synchronousWriter,
+                            Monitor monitor,
+                            PartitionFactory partitionFactory,
+                            PipelineExceptionFactory pipelineExceptionFactory,
+                            MonitoredThreadPool writerPool,
+                            WriteFlowControl flowControl) {
         this.asynchronousWriter = asynchronousWriter;
         this.synchronousWriter = synchronousWriter;
         this.monitor = monitor;
         this.defaultWriteConfiguration = new DefaultWriteConfiguration(monitor,pipelineExceptionFactory);
         this.partitionFactory = partitionFactory;
         this.writerPool = writerPool;
+        this.flowControl = flowControl;
     }
 
     /**
@@ -107,6 +123,8 @@ public class WriteCoordinator {
         mbs.registerMBean(monitor, coordinatorName);
         asynchronousWriter.registerJMX(mbs);
         synchronousWriter.registerJMX(mbs);
+        if (flowControl != null)
+            flowControl.registerJMX(mbs);
     }
 
     public void start() { }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.pipeline.client;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.traffic.AdjustableRateTokenStrategy;
+import com.splicemachine.concurrent.traffic.RetryBackoffWaitStrategy;
+import com.splicemachine.concurrent.traffic.TokenBucket;
+import com.splicemachine.pipeline.api.ServerWriteFlowStatus;
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Paces the writes sent to each region server according to the write credits which that server
+ * advertises in its responses (see {@link BulkWritesResult#getAvailableCredits()}).
+ *
+ * Each server gets its own TokenBucket, whose rate is adjusted by additive-increase/multiplicative-decrease.
+ * A server which rejects a write, or which answers a write with no credits left, has its rate halved (down to
+ * a floor); a server which answers with room for at least one more write of the same size has its rate raised
+ * by the size of that write (up to a ceiling). The bucket's burst size follows the advertised credits, so writers
+ * do not send a busy server more rows at once than it said it could take.
+ *
+ * Since all writers in the JVM share a single instance, a server which is under pressure is slowed down
+ * for every write operation at once, rather than each of them backing off (and coming back) on its own.
+ */
+@ThreadSafe
+public class WriteFlowControl{
+    private static final Logger LOG=Logger.getLogger(WriteFlowControl.class);
+    private static final String OBJECT_LOCATION="com.splicemachine.writer.flow:type=ServerWriteFlow,server=";
+
+    private final ConcurrentMap<String,ServerFlow> servers=new ConcurrentHashMap<>();
+    private final int minRowsPerSecond;
+    private final int maxRowsPerSecond;
+    private final Clock clock;
+    private volatile MBeanServer mbs;
+
+    public WriteFlowControl(int minRowsPerSecond,int maxRowsPerSecond,Clock clock){
+        if(minRowsPerSecond<1) throw new IllegalArgumentException("Cannot pace writes below 1 row per second");
+        this.minRowsPerSecond=minRowsPerSecond;
+        this.maxRowsPerSecond=Math.max(minRowsPerSecond,maxRowsPerSecond);
+        this.clock=clock;
+    }
+
+    /**
+     * Wait until {@code rows} rows may be sent to {@code server}.
+     *
+     * @param server the host and port of the region server
+     * @param rows the number of rows about to be sent
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(String server,int rows) throws InterruptedException{
+        if(rows<=0) return;
+        ServerFlow flow=flowFor(server);
+        long start=clock.nanoTime();
+        flow.bucket.acquire(rows);
+        flow.throttledNanos.addAndGet(clock.nanoTime()-start);
+    }
+
+    /**
+     * Record the response to a write which the server accepted (in whole or in part).
+     *
+     * @param server the host and port of the region server
+     * @param rows the number of rows in the write
+     * @param latencyNanos the round-trip time of the write
+     * @param availableCredits the credits in the server's response
+     */
+    public void writeCompleted(String server,int rows,long latencyNanos,int availableCredits){
+        ServerFlow flow=flowFor(server);
+        flow.writes.incrementAndGet();
+        flow.totalLatencyNanos.addAndGet(latencyNanos);
+        flow.lastLatencyNanos=latencyNanos;
+        if(availableCredits==BulkWritesResult.UNKNOWN_CREDITS) return; //the server doesn't advertise credits
+        flow.credits=availableCredits;
+        synchronized(flow){
+            int rate=flow.rate.getTokensPerSecond();
+            if(availableCredits==0)
+                rate=Math.max(minRowsPerSecond,rate/2);
+            else if(availableCredits>=rows)
+                rate=(int)Math.min(maxRowsPerSecond,(long)rate+rows);
+            flow.rate.setTokensPerSecond(rate);
+            flow.bucket.setMaxPermits(Math.max(minRowsPerSecond,Math.min(availableCredits,maxRowsPerSecond)));
+        }
+    }
+
+    /**
+     * Record that the server rejected a write because it was too busy. The server's rate is halved, and any
+     * tokens which have built up are discarded, so that the retry (and every other write to the server) waits.
+     *
+     * @param server the host and port of the region server
+     */
+    public void writeRejected(String server){
+        ServerFlow flow=flowFor(server);
+        flow.rejected.incrementAndGet();
+        flow.credits=0;
+        synchronized(flow){
+            flow.rate.setTokensPerSecond(Math.max(minRowsPerSecond,flow.rate.getTokensPerSecond()/2));
+            flow.bucket.tryAcquire(0,Integer.MAX_VALUE);
+        }
+    }
+
+    public ServerWriteFlowStatus getStatus(String server){
+        return flowFor(server);
+    }
+
+    /**
+     * Register a status MBean for each region server, both for those which have been written to already and for
+     * those which are written to later.
+     */
+    public void registerJMX(MBeanServer mbs){
+        this.mbs=mbs;
+        for(ServerFlow flow:servers.values()){
+            register(mbs,flow);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private ServerFlow flowFor(String server){
+        ServerFlow flow=servers.get(server);
+        if(flow!=null) return flow;
+        flow=new ServerFlow(server);
+        ServerFlow old=servers.putIfAbsent(server,flow);
+        if(old!=null) return old;
+        MBeanServer m=mbs;
+        if(m!=null)
+            register(m,flow);
+        return flow;
+    }
+
+    private void register(MBeanServer mbs,ServerFlow flow){
+        try{
+            mbs.registerMBean(flow,new ObjectName(OBJECT_LOCATION+ObjectName.quote(flow.server)));
+        }catch(InstanceAlreadyExistsException ignored){
+            //registerJMX() and flowFor() raced to register the same server
+        }catch(Exception e){
+            LOG.warn("Unable to register write flow status for server "+flow.server,e);
+        }
+    }
+
+    private final class ServerFlow implements ServerWriteFlowStatus{
+        private final String server;
+        private final AdjustableRateTokenStrategy rate;
+        private final TokenBucket bucket;
+        private final AtomicLong writes=new AtomicLong(0L);
+        private final AtomicLong rejected=new AtomicLong(0L);
+        private final AtomicLong totalLatencyNanos=new AtomicLong(0L);
+        private final AtomicLong throttledNanos=new AtomicLong(0L);
+        private volatile long lastLatencyNanos;
+        private volatile int credits=BulkWritesResult.UNKNOWN_CREDITS;
+
+        ServerFlow(String server){
+            this.server=server;
+            this.rate=new AdjustableRateTokenStrategy(maxRowsPerSecond);
+            this.bucket=new TokenBucket(maxRowsPerSecond,rate,new RetryBackoffWaitStrategy(1024),clock);
+        }
+
+        @Override public String getServer(){ return server; }
+        @Override public int getRowsPerSecond(){ return rate.getTokensPerSecond(); }
+        @Override public int getAvailableCredits(){ return credits; }
+        @Override public double getLastWriteLatency(){ return lastLatencyNanos/1000000d; }
+        @Override public long getTotalWrites(){ return writes.get(); }
+        @Override public long getRejectedWrites(){ return rejected.get(); }
+        @Override public long getTotalThrottledTime(){ return throttledNanos.get()/1000000L; }
+
+        @Override
+        public double getAvgWriteLatency(){
+            long numWrites=writes.get();
+            if(numWrites==0) return 0d;
+            return totalLatencyNanos.get()/1000000d/numWrites;
+        }
+    }
+}
@@ -73,6 +73,9 @@ class LocalWriteContextFactory<TableInfo> implements WriteContextFactory<Transac
 
     private volatile WriteFactoryGroup ddlFactories;
 
+    /* These create WriteHandlers that observe the writes which succeed, e.g. to maintain table statistics */
+    private volatile WriteFactoryGroup statisticsFactories;
+
     /* Holds all of the WriteFactor instances related to foreign keys */
     private WriteFactoryGroup fkGroup;
 
@@ -225,6 +228,8 @@ class LocalWriteContextFactory<TableInfo> implements WriteContextFactory<Transac
 
             // FK - child intercept (of inserts/updates)
             fkGroup.addFactories(context,false,expectedWrites);
+
+            statisticsFactories.addFactories(context,true,expectedWrites);
         }
     }
 
@@ -253,6 +258,7 @@ class LocalWriteContextFactory<TableInfo> implements WriteContextFactory<Transac
 
             indexFactories = factoryLoader.getIndexFactories();
             ddlFactories = factoryLoader.getDDLFactories();
+            statisticsFactories = factoryLoader.getStatisticsFactories();
             fkGroup = factoryLoader.getForeignKeyFactories();
             constraintFactories = factoryLoader.getConstraintFactories();
             state.set(State.RUNNING);
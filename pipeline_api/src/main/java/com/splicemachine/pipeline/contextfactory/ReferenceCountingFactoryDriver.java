@@ -94,6 +94,11 @@ public abstract class ReferenceCountingFactoryDriver implements ContextFactoryDr
             return delegate.getDDLFactories();
         }
 
+        @Override
+        public WriteFactoryGroup getStatisticsFactories(){
+            return delegate.getStatisticsFactories();
+        }
+
         @Override
         public Set<ConstraintFactory> getConstraintFactories(){
             return delegate.getConstraintFactories();
@@ -32,6 +32,7 @@ public class UnmanagedFactoryLoader implements ContextFactoryLoader{
     private final WriteFactoryGroup fk = new ListWriteFactoryGroup(Collections.<LocalWriteFactory>emptyList());
     private final WriteFactoryGroup ddl = new ListWriteFactoryGroup(Collections.<LocalWriteFactory>emptyList());
     private final WriteFactoryGroup indices = new ListWriteFactoryGroup(Collections.<LocalWriteFactory>emptyList());
+    private final WriteFactoryGroup statistics = new ListWriteFactoryGroup(Collections.<LocalWriteFactory>emptyList());
     private final Set<ConstraintFactory> constraints = Collections.emptySet();
 
 
@@ -66,6 +67,11 @@ public class UnmanagedFactoryLoader implements ContextFactoryLoader{
         return ddl;
     }
 
+    @Override
+    public WriteFactoryGroup getStatisticsFactories(){
+        return statistics;
+    }
+
     @Override
     public Set<ConstraintFactory> getConstraintFactories(){
         return constraints;
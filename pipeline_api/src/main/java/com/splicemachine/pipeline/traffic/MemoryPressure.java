@@ -0,0 +1,30 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.pipeline.traffic;
+
+/**
+ * A view of how close a server is to blocking writes while it flushes its memstores.
+ */
+public interface MemoryPressure{
+    MemoryPressure NONE=new MemoryPressure(){
+        @Override public double memstoreFill(){ return 0d; }
+    };
+
+    /**
+     * @return the fraction of the server's global memstore limit which is currently in use. Values
+     * at or above 1 mean that writes are (or are about to be) blocked.
+     */
+    double memstoreFill();
+}
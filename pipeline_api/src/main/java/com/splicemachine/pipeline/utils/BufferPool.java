@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of byte arrays for encoding pipeline writes.
+ *
+ * Arrays are handed out in power-of-two size classes, from 4 KB up to 16 MB; a larger request is
+ * served by a one-off array which is never pooled. The pool holds on to at most {@code maxPooledBytes}
+ * of free arrays--anything released beyond that is left to the garbage collector, so a burst of large
+ * writes can't pin memory indefinitely.
+ */
+@ThreadSafe
+public class BufferPool{
+    private static final int MIN_SHIFT=12;
+    private static final int MAX_SHIFT=24;
+
+    private final ConcurrentLinkedQueue<byte[]>[] freeLists;
+    private final long maxPooledBytes;
+    private final AtomicLong pooledBytes=new AtomicLong(0L);
+
+    private final LongAdder reuses=new LongAdder();
+    private final LongAdder allocations=new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public BufferPool(long maxPooledBytes){
+        this.maxPooledBytes=maxPooledBytes;
+        this.freeLists=new ConcurrentLinkedQueue[MAX_SHIFT-MIN_SHIFT+1];
+        for(int i=0;i<freeLists.length;i++){
+            freeLists[i]=new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * @param minSize the minimum number of bytes needed
+     * @return a buffer with room for at least {@code minSize} bytes, and a length of 0
+     */
+    public PooledBuffer acquire(int minSize){
+        int sizeClass=sizeClass(minSize);
+        if(sizeClass<0 || maxPooledBytes<=0){
+            allocations.increment();
+            return new PooledBuffer(null,new byte[minSize]);
+        }
+        byte[] array=freeLists[sizeClass].poll();
+        if(array!=null){
+            pooledBytes.addAndGet(-array.length);
+            reuses.increment();
+        }else{
+            array=new byte[1<<(sizeClass+MIN_SHIFT)];
+            allocations.increment();
+        }
+        return new PooledBuffer(this,array);
+    }
+
+    /**
+     * @return the number of bytes currently held in free arrays
+     */
+    public long getPooledBytes(){
+        return pooledBytes.get();
+    }
+
+    public long getReuseCount(){
+        return reuses.sum();
+    }
+
+    public long getAllocationCount(){
+        return allocations.sum();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    void recycle(byte[] array){
+        int sizeClass=Integer.numberOfTrailingZeros(array.length)-MIN_SHIFT;
+        if(sizeClass<0 || sizeClass>=freeLists.length || Integer.bitCount(array.length)!=1)
+            return; //not one of ours
+        if(pooledBytes.addAndGet(array.length)>maxPooledBytes){
+            //the pool is full, so let this one go
+            pooledBytes.addAndGet(-array.length);
+            return;
+        }
+        freeLists[sizeClass].offer(array);
+    }
+
+    private static int sizeClass(int size){
+        int shift=size<=(1<<MIN_SHIFT)?MIN_SHIFT:32-Integer.numberOfLeadingZeros(size-1);
+        if(shift>MAX_SHIFT) return -1;
+        return shift-MIN_SHIFT;
+    }
+}
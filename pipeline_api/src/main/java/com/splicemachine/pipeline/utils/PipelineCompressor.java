@@ -15,6 +15,8 @@
 
 package com.splicemachine.pipeline.utils;
 
+import com.splicemachine.pipeline.client.BulkWrites;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -31,5 +33,13 @@ public interface PipelineCompressor{
 
    byte[] compress(Object o) throws IOException;
 
+   /**
+    * Compress a BulkWrites into a buffer taken from {@code pool}.
+    *
+    * @return the compressed form of {@code bulkWrites}. The caller owns the buffer, and must release it
+    * once the bytes have been sent.
+    */
+   PooledBuffer compress(BulkWrites bulkWrites,BufferPool pool) throws IOException;
+
    <T> T decompress(byte[] bytes, Class<T> clazz) throws IOException;
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reference-counted byte array, usually taken from a {@link BufferPool}.
+ *
+ * A buffer starts with a single reference, held by whoever acquired it. Anything which needs the
+ * buffer to outlive that owner should {@link #retain()} it, and every reference must eventually be
+ * {@link #release() released}. When the last reference is released, the array goes back to the pool,
+ * and must no longer be touched.
+ */
+@ThreadSafe
+public class PooledBuffer{
+    private final BufferPool pool;
+    private final byte[] array;
+    private volatile int length;
+    private final AtomicInteger refCount=new AtomicInteger(1);
+
+    PooledBuffer(BufferPool pool,byte[] array){
+        this.pool=pool;
+        this.array=array;
+    }
+
+    /**
+     * @param array the array to wrap
+     * @return a buffer over {@code array} which does not belong to any pool, holding all of {@code array}
+     */
+    public static PooledBuffer wrap(byte[] array){
+        PooledBuffer buffer=new PooledBuffer(null,array);
+        buffer.setLength(array.length);
+        return buffer;
+    }
+
+    /**
+     * @return the underlying array. Only the first {@link #length()} bytes hold data; the array may be larger.
+     */
+    public byte[] array(){
+        return array;
+    }
+
+    public int length(){
+        return length;
+    }
+
+    public void setLength(int length){
+        assert length<=array.length: "Length exceeds the buffer";
+        this.length=length;
+    }
+
+    public PooledBuffer retain(){
+        int count;
+        do{
+            count=refCount.get();
+            if(count<=0)
+                throw new IllegalStateException("Buffer has already been released");
+        }while(!refCount.compareAndSet(count,count+1));
+        return this;
+    }
+
+    public void release(){
+        int count=refCount.decrementAndGet();
+        if(count==0){
+            if(pool!=null)
+                pool.recycle(array);
+        }else if(count<0)
+            throw new IllegalStateException("Buffer has already been released");
+    }
+
+    public int refCount(){
+        return refCount.get();
+    }
+}
@@ -69,6 +69,11 @@ public class SimplePipelineCompressor implements PipelineCompressor{
         }
     }
 
+    @Override
+    public PooledBuffer compress(BulkWrites bulkWrites,BufferPool pool) throws IOException{
+        return PipelineEncoding.encode(txnOperationFactory,bulkWrites,pool);
+    }
+
     @Override
     public <T> T decompress(byte[] bytes,Class<T> clazz) throws IOException{
         if(clazz.isAssignableFrom(BulkWrites.class))
@@ -34,6 +34,7 @@ import com.splicemachine.pipeline.api.Writer;
 import com.splicemachine.pipeline.client.ActionStatusReporter;
 import com.splicemachine.pipeline.client.BulkWriteAction;
 import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.client.WriteFlowControl;
 import com.splicemachine.pipeline.config.CountingWriteConfiguration;
 import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.threadpool.MonitoredThreadPool;
@@ -52,12 +53,14 @@ public class AsyncBucketingWriter implements Writer {
     private final BulkWriterFactory writerFactory;
     private final PartitionFactory partitionFactory;
     private final Clock clock;
+    private final WriteFlowControl flowControl;
 
     public AsyncBucketingWriter(MonitoredThreadPool writerPool,
                                 BulkWriterFactory writerFactory,
                                 PipelineExceptionFactory exceptionFactory,
                                 PartitionFactory partitionFactory,
-                                Clock clock) {
+                                Clock clock,
+                                WriteFlowControl flowControl) {
         this.writerPool = writerPool;
         this.statusMonitor = new ActionStatusReporter();
         this.monitor = new ActionStatusMonitor(statusMonitor);
@@ -65,6 +68,7 @@ public class AsyncBucketingWriter implements Writer {
         this.writerFactory = writerFactory;
         this.partitionFactory = partitionFactory;
         this.clock = clock;
+        this.flowControl = flowControl;
     }
 
     @Override
@@ -78,7 +82,8 @@ public class AsyncBucketingWriter implements Writer {
                 writerFactory,
                 exceptionFactory,
                 partitionFactory,
-                clock);
+                clock,
+                flowControl);
         statusMonitor.totalFlushesSubmitted.incrementAndGet();
         return writerPool.submit(action);
     }
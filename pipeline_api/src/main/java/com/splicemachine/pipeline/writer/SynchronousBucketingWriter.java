@@ -24,6 +24,7 @@ import com.splicemachine.pipeline.api.Writer;
 import com.splicemachine.pipeline.client.ActionStatusReporter;
 import com.splicemachine.pipeline.client.BulkWriteAction;
 import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.client.WriteFlowControl;
 import com.splicemachine.pipeline.config.CountingWriteConfiguration;
 import com.splicemachine.pipeline.config.WriteConfiguration;
 import com.splicemachine.pipeline.writerstatus.ActionStatusMonitor;
@@ -46,18 +47,27 @@ public class SynchronousBucketingWriter implements Writer{
     private final PipelineExceptionFactory exceptionFactory;
     private final PartitionFactory partitionFactory;
     private final Clock clock;
+    private final WriteFlowControl flowControl;
 
     public SynchronousBucketingWriter(BulkWriterFactory writerFactory,
                                       PipelineExceptionFactory exceptionFactory,
                                       PartitionFactory partitionFactory,
                                       Clock clock){
+        this(writerFactory,exceptionFactory,partitionFactory,clock,null);
+    }
+
+    public SynchronousBucketingWriter(BulkWriterFactory writerFactory,
+                                      PipelineExceptionFactory exceptionFactory,
+                                      PartitionFactory partitionFactory,
+                                      Clock clock,
+                                      WriteFlowControl flowControl){
         this.writerFactory=writerFactory;
         this.exceptionFactory=exceptionFactory;
         this.partitionFactory=partitionFactory;
         this.statusMonitor=new ActionStatusReporter();
         this.monitor=new ActionStatusMonitor(statusMonitor);
         this.clock = clock;
-
+        this.flowControl = flowControl;
     }
 
     @Override
@@ -73,7 +83,8 @@ public class SynchronousBucketingWriter implements Writer{
                 writerFactory,
                 exceptionFactory,
                 partitionFactory,
-                clock);
+                clock,
+                flowControl);
         statusMonitor.totalFlushesSubmitted.incrementAndGet();
         Exception e=null;
         WriteStats stats=null;
@@ -1,83 +1,195 @@
-//package com.splicemachine.pipeline.client;
-//
-//import com.splicemachine.kvpair.KVPair;
-//import com.splicemachine.primitives.Bytes;
-//import com.splicemachine.si.api.txn.TxnView;
-//import com.splicemachine.si.impl.txn.ActiveWriteTxn;
-//import org.junit.Assert;
-//import org.junit.Test;
-//
-//import java.util.ArrayList;
-//import java.util.Arrays;
-//import java.util.Collection;
-//import java.util.Iterator;
-//
-//TODO -sf- move this to hbase_pipeline
-//public class PipelineEncodingTest {
-//
-//    @Test
-//    public void testCanEncodeAndDecodeASingleBulkWrite() throws Exception {
-//        TxnView txnView = new ActiveWriteTxn(1l,1l);
-//
-//        Collection<BulkWrite> bws = generateBulkWrites(1);
-//        BulkWrites toEncode = new BulkWrites(bws,txnView);
-//
-//        byte[] bytes = PipelineEncoding.encode(toEncode);
-//        BulkWrites decoded = PipelineEncoding.decode(bytes);
-//        assertMatches("Incorrect BulkWrites",toEncode,decoded);
-//    }
-//
-//    @Test
-//    public void testCanEncodeAndDecodeMultipleBulkWrites() throws Exception {
-//        TxnView txnView = new ActiveWriteTxn(1l,1l);
-//
-//        Collection<BulkWrite> bws = generateBulkWrites(10);
-//        BulkWrites toEncode = new BulkWrites(bws,txnView);
-//
-//        byte[] bytes = PipelineEncoding.encode(toEncode);
-//        BulkWrites decoded = PipelineEncoding.decode(bytes);
-//        assertMatches("Incorrect BulkWrites",toEncode,decoded);
-//    }
-//
-//    private void assertMatches(String errorMsgPrefix, BulkWrites correct, BulkWrites actual) {
-//        Assert.assertEquals(errorMsgPrefix+": transaction ids don't match!",correct.getTxn().getTxnId(),actual.getTxn().getTxnId());
-//        Assert.assertEquals(errorMsgPrefix+": transaction write permission doesn't match!",correct.getTxn().allowsWrites(),actual.getTxn().allowsWrites());
-//        Collection<BulkWrite> correctBws = correct.getBulkWrites();
-//        Collection<BulkWrite> actualBws = actual.getBulkWrites();
-//        Assert.assertEquals(errorMsgPrefix+": bulk write size does not match!",correctBws.size(),actualBws.size());
-//        Iterator<BulkWrite> correctIter = correctBws.iterator();
-//        Iterator<BulkWrite> actualIter = actualBws.iterator();
-//        int pos =0;
-//        while(correctIter.hasNext()){
-//            BulkWrite cbw = correctIter.next();
-//            BulkWrite abw = actualIter.next();
-//            Assert.assertEquals(errorMsgPrefix+": Incorrect encodedStringName at pos "+ pos,cbw.getEncodedStringName(),abw.getEncodedStringName());
-//
-//            Collection<KVPair> cKvs = cbw.getMutations();
-//            Collection<KVPair> aKvs = abw.getMutations();
-//            Assert.assertEquals(errorMsgPrefix+": Incorrect kvPair size at pos "+ pos,cKvs.size(),aKvs.size());
-//            Iterator<KVPair> cKvIter = cKvs.iterator();
-//            Iterator<KVPair> aKvIter = aKvs.iterator();
-//            while(cKvIter.hasNext()){
-//                KVPair cKv = cKvIter.next();
-//                KVPair aKv = aKvIter.next();
-//                Assert.assertEquals(errorMsgPrefix+": KVPair row not correct",cKv.rowKeySlice(),aKv.rowKeySlice());
-//                Assert.assertEquals(errorMsgPrefix+": KVPair value not correct",cKv.valueSlice(),aKv.valueSlice());
-//                Assert.assertEquals(errorMsgPrefix+": KVPair type not correct",cKv.getType(),aKv.getType());
-//            }
-//        }
-//    }
-//
-//    private Collection<BulkWrite> generateBulkWrites(int size) {
-//        Collection<BulkWrite> bws = new ArrayList<>(size);
-//        for(int i=0;i<size;i++){
-//            Collection<KVPair> kvPairs = new ArrayList<>(Arrays.asList(
-//                new KVPair(Bytes.toBytes(i), Bytes.toBytes(i + 2),KVPair.Type.INSERT),
-//                new KVPair(Bytes.toBytes(i+1), Bytes.toBytes(Integer.toString(2*i)),KVPair.Type.DELETE),
-//                    new KVPair(Bytes.toBytes(i+2), Bytes.toBytes(i/.2f),KVPair.Type.UPDATE)
-//            ));
-//            bws.add(new BulkWrite(kvPairs,Integer.toString(i)));
-//        }
-//        return bws;
-//    }
-//}
\ No newline at end of file
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.client;
+
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.utils.BufferPool;
+import com.splicemachine.pipeline.utils.PooledBuffer;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class PipelineEncodingTest{
+    private static final byte[] TXN_BYTES={0x01,0x02,0x03,0x04,0x05};
+
+    private TxnOperationFactory operationFactory;
+    private TxnView txn;
+
+    @Before
+    public void setUp() throws Exception{
+        txn=mock(TxnView.class);
+        operationFactory=mock(TxnOperationFactory.class);
+        when(operationFactory.encode(any(TxnView.class))).thenReturn(TXN_BYTES);
+        when(operationFactory.decode(any(byte[].class),eq(0),anyInt())).thenReturn(txn);
+    }
+
+    @Test
+    public void testCanEncodeAndDecodeASingleBulkWrite() throws Exception{
+        BulkWrites toEncode=new BulkWrites(generateBulkWrites(1),txn);
+
+        byte[] bytes=PipelineEncoding.encode(operationFactory,toEncode);
+        BulkWrites decoded=PipelineEncoding.decode(operationFactory,bytes);
+        assertMatches("Incorrect BulkWrites",toEncode,decoded);
+    }
+
+    @Test
+    public void testCanEncodeAndDecodeMultipleBulkWrites() throws Exception{
+        BulkWrites toEncode=new BulkWrites(generateBulkWrites(10),txn);
+
+        byte[] bytes=PipelineEncoding.encode(operationFactory,toEncode);
+        BulkWrites decoded=PipelineEncoding.decode(operationFactory,bytes);
+        assertMatches("Incorrect BulkWrites",toEncode,decoded);
+    }
+
+    @Test
+    public void pooledEncodingMatchesTheUnpooledEncoding() throws Exception{
+        BufferPool pool=new BufferPool(1<<24);
+        Random random=new Random(0L);
+        for(int i=0;i<20;i++){
+            BulkWrites toEncode=new BulkWrites(generateRandomBulkWrites(random,1+random.nextInt(8)),txn);
+            byte[] correct=PipelineEncoding.encode(operationFactory,toEncode);
+            Assert.assertTrue("Encoded size exceeds the estimate",
+                    correct.length<=PipelineEncoding.maxEncodedSize(TXN_BYTES,toEncode));
+
+            PooledBuffer pooled=PipelineEncoding.encode(operationFactory,toEncode,pool);
+            try{
+                assertSameBytes("Pooled encoding differs at iteration "+i,correct,pooled);
+                BulkWrites decoded=PipelineEncoding.decode(operationFactory,Arrays.copyOf(pooled.array(),pooled.length()));
+                assertMatches("Incorrect BulkWrites at iteration "+i,toEncode,decoded);
+            }finally{
+                pooled.release();
+            }
+        }
+        Assert.assertTrue("Buffers were not reused",pool.getReuseCount()>0);
+    }
+
+    @Test
+    public void pooledEncodingFitsInAReusedBuffer() throws Exception{
+        BufferPool pool=new BufferPool(1<<24);
+        BulkWrites toEncode=new BulkWrites(generateRandomBulkWrites(new Random(1L),3),txn);
+        byte[] correct=PipelineEncoding.encode(operationFactory,toEncode);
+        int estimate=PipelineEncoding.maxEncodedSize(TXN_BYTES,toEncode);
+        Assert.assertTrue("Encoded size exceeds the estimate",correct.length<=estimate);
+
+        //put a buffer of the right size class in the pool, full of stale data
+        PooledBuffer first=pool.acquire(estimate);
+        byte[] array=first.array();
+        Arrays.fill(array,(byte)0xFF);
+        first.release();
+
+        PooledBuffer second=PipelineEncoding.encode(operationFactory,toEncode,pool);
+        try{
+            Assert.assertSame("The reused buffer was outgrown",array,second.array());
+            Assert.assertEquals("Incorrect reuse count",1,pool.getReuseCount());
+            assertSameBytes("Pooled encoding differs",correct,second);
+            BulkWrites decoded=PipelineEncoding.decode(operationFactory,Arrays.copyOf(second.array(),second.length()));
+            assertMatches("Incorrect BulkWrites",toEncode,decoded);
+        }finally{
+            second.release();
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void assertSameBytes(String errorMsg,byte[] correct,PooledBuffer actual){
+        Assert.assertEquals(errorMsg+": incorrect length",correct.length,actual.length());
+        Assert.assertArrayEquals(errorMsg,correct,Arrays.copyOf(actual.array(),actual.length()));
+    }
+
+    private void assertMatches(String errorMsgPrefix,BulkWrites correct,BulkWrites actual){
+        Assert.assertSame(errorMsgPrefix+": transaction doesn't match!",correct.getTxn(),actual.getTxn());
+        Collection<BulkWrite> correctBws=correct.getBulkWrites();
+        Collection<BulkWrite> actualBws=actual.getBulkWrites();
+        Assert.assertEquals(errorMsgPrefix+": bulk write size does not match!",correctBws.size(),actualBws.size());
+        Iterator<BulkWrite> correctIter=correctBws.iterator();
+        Iterator<BulkWrite> actualIter=actualBws.iterator();
+        int pos=0;
+        while(correctIter.hasNext()){
+            BulkWrite cbw=correctIter.next();
+            BulkWrite abw=actualIter.next();
+            Assert.assertEquals(errorMsgPrefix+": Incorrect encodedStringName at pos "+pos,cbw.getEncodedStringName(),abw.getEncodedStringName());
+            Assert.assertEquals(errorMsgPrefix+": Incorrect skipIndexWrite at pos "+pos,cbw.getSkipIndexWrite(),abw.getSkipIndexWrite());
+
+            Collection<KVPair> cKvs=cbw.getMutations();
+            Collection<KVPair> aKvs=abw.getMutations();
+            Assert.assertEquals(errorMsgPrefix+": Incorrect kvPair size at pos "+pos,cKvs.size(),aKvs.size());
+            Iterator<KVPair> cKvIter=cKvs.iterator();
+            Iterator<KVPair> aKvIter=aKvs.iterator();
+            while(cKvIter.hasNext()){
+                KVPair cKv=cKvIter.next();
+                KVPair aKv=aKvIter.next();
+                Assert.assertEquals(errorMsgPrefix+": KVPair row not correct",cKv.rowKeySlice(),aKv.rowKeySlice());
+                Assert.assertEquals(errorMsgPrefix+": KVPair value not correct",cKv.valueSlice(),aKv.valueSlice());
+                Assert.assertEquals(errorMsgPrefix+": KVPair type not correct",cKv.getType(),aKv.getType());
+            }
+            pos++;
+        }
+    }
+
+    private Collection<BulkWrite> generateBulkWrites(int size){
+        Collection<BulkWrite> bws=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            Collection<KVPair> kvPairs=new ArrayList<>(Arrays.asList(
+                    new KVPair(Bytes.toBytes(i),Bytes.toBytes(i+2),KVPair.Type.INSERT),
+                    new KVPair(Bytes.toBytes(i+1),Bytes.toBytes(Integer.toString(2*i)),KVPair.Type.DELETE),
+                    new KVPair(Bytes.toBytes(i+2),Bytes.toBytes(i/.2f),KVPair.Type.UPDATE)
+            ));
+            bws.add(new BulkWrite(kvPairs,Integer.toString(i)));
+        }
+        return bws;
+    }
+
+    /*
+     * Writes with a wide spread of key and value sizes (so lengths take anywhere from 1 to 3 bytes), and
+     * region names with multi-byte characters.
+     */
+    private Collection<BulkWrite> generateRandomBulkWrites(Random random,int size){
+        KVPair.Type[] types={KVPair.Type.INSERT,KVPair.Type.UPDATE,KVPair.Type.DELETE,KVPair.Type.UPSERT};
+        Collection<BulkWrite> bws=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            int numRows=random.nextInt(200);
+            Collection<KVPair> kvPairs=new ArrayList<>(numRows);
+            for(int j=0;j<numRows;j++){
+                byte[] key=new byte[1+random.nextInt(40)];
+                byte[] value=new byte[random.nextInt(10)==0?random.nextInt(20000):random.nextInt(100)];
+                random.nextBytes(key);
+                random.nextBytes(value);
+                kvPairs.add(new KVPair(key,value,types[random.nextInt(types.length)]));
+            }
+            String encodedName="region\u00e9\u4e2d"+random.nextInt();
+            bws.add(new BulkWrite(kvPairs,encodedName,random.nextBoolean()?(byte)0x01:(byte)0x02));
+        }
+        return bws;
+    }
+}
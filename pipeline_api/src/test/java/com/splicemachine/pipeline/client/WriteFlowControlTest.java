@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.pipeline.client;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.pipeline.api.ServerWriteFlowStatus;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+@Category(ArchitectureIndependent.class)
+public class WriteFlowControlTest{
+    private static final String SERVER="host1:16020";
+
+    @Test
+    public void rejectionsHalveTheRateDownToTheFloor() throws Exception{
+        WriteFlowControl flowControl=new WriteFlowControl(1000,8000,new IncrementingClock());
+        ServerWriteFlowStatus status=flowControl.getStatus(SERVER);
+        Assert.assertEquals(8000,status.getRowsPerSecond());
+
+        flowControl.writeRejected(SERVER);
+        Assert.assertEquals(4000,status.getRowsPerSecond());
+        for(int i=0;i<5;i++){
+            flowControl.writeRejected(SERVER);
+        }
+        Assert.assertEquals(1000,status.getRowsPerSecond());
+        Assert.assertEquals(6,status.getRejectedWrites());
+        Assert.assertEquals(0,status.getAvailableCredits());
+    }
+
+    @Test
+    public void creditsSpeedUpOrSlowDownTheServer() throws Exception{
+        WriteFlowControl flowControl=new WriteFlowControl(1000,8000,new IncrementingClock());
+        ServerWriteFlowStatus status=flowControl.getStatus(SERVER);
+        flowControl.writeRejected(SERVER);
+        flowControl.writeRejected(SERVER);
+        Assert.assertEquals(2000,status.getRowsPerSecond());
+
+        //room for another write of the same size, so speed up by the size of the write
+        flowControl.writeCompleted(SERVER,500,TimeUnit.MILLISECONDS.toNanos(2),5000);
+        Assert.assertEquals(2500,status.getRowsPerSecond());
+        Assert.assertEquals(5000,status.getAvailableCredits());
+
+        //some room, but not enough for another write: hold steady
+        flowControl.writeCompleted(SERVER,500,TimeUnit.MILLISECONDS.toNanos(4),100);
+        Assert.assertEquals(2500,status.getRowsPerSecond());
+
+        //the server is full
+        flowControl.writeCompleted(SERVER,500,TimeUnit.MILLISECONDS.toNanos(6),0);
+        Assert.assertEquals(1250,status.getRowsPerSecond());
+
+        //the server doesn't advertise credits, so leave the rate alone
+        flowControl.writeCompleted(SERVER,500,TimeUnit.MILLISECONDS.toNanos(8),BulkWritesResult.UNKNOWN_CREDITS);
+        Assert.assertEquals(1250,status.getRowsPerSecond());
+        Assert.assertEquals(0,status.getAvailableCredits());
+
+        Assert.assertEquals(4,status.getTotalWrites());
+        Assert.assertEquals(5d,status.getAvgWriteLatency(),1e-9d);
+        Assert.assertEquals(8d,status.getLastWriteLatency(),1e-9d);
+    }
+
+    @Test
+    public void rateNeverExceedsTheCeiling() throws Exception{
+        WriteFlowControl flowControl=new WriteFlowControl(1000,8000,new IncrementingClock());
+        flowControl.writeCompleted(SERVER,1000,0L,100000);
+        Assert.assertEquals(8000,flowControl.getStatus(SERVER).getRowsPerSecond());
+    }
+}
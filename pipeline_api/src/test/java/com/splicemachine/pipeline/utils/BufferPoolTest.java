@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(ArchitectureIndependent.class)
+public class BufferPoolTest{
+
+    @Test
+    public void releasedBuffersAreReused() throws Exception{
+        BufferPool pool=new BufferPool(1<<20);
+        PooledBuffer first=pool.acquire(5000);
+        Assert.assertEquals("Buffer should be rounded up to its size class",8192,first.array().length);
+        byte[] array=first.array();
+        first.release();
+        Assert.assertEquals("Released buffer was not pooled",8192,pool.getPooledBytes());
+
+        PooledBuffer second=pool.acquire(6000);
+        Assert.assertSame("Pooled buffer was not reused",array,second.array());
+        Assert.assertEquals("Incorrect reuse count",1,pool.getReuseCount());
+        Assert.assertEquals("Incorrect pooled size",0,pool.getPooledBytes());
+    }
+
+    @Test
+    public void bufferIsNotRecycledUntilTheLastReferenceIsReleased() throws Exception{
+        BufferPool pool=new BufferPool(1<<20);
+        PooledBuffer buffer=pool.acquire(100);
+        buffer.retain();
+        buffer.release();
+        Assert.assertEquals("Buffer was recycled while still referenced",0,pool.getPooledBytes());
+        buffer.release();
+        Assert.assertEquals("Buffer was not recycled",buffer.array().length,pool.getPooledBytes());
+
+        try{
+            buffer.release();
+            Assert.fail("Should not be able to release a buffer twice");
+        }catch(IllegalStateException expected){ }
+        try{
+            buffer.retain();
+            Assert.fail("Should not be able to retain a released buffer");
+        }catch(IllegalStateException expected){ }
+    }
+
+    @Test
+    public void poolDoesNotGrowPastItsLimit() throws Exception{
+        BufferPool pool=new BufferPool(8192);
+        PooledBuffer first=pool.acquire(8192);
+        PooledBuffer second=pool.acquire(8192);
+        first.release();
+        second.release();
+        Assert.assertEquals("Pool exceeded its limit",8192,pool.getPooledBytes());
+
+        PooledBuffer huge=pool.acquire((1<<24)+1);
+        Assert.assertEquals("Oversized buffer should be exactly the requested size",(1<<24)+1,huge.array().length);
+        huge.release();
+        Assert.assertEquals("Oversized buffer should not be pooled",8192,pool.getPooledBytes());
+    }
+}
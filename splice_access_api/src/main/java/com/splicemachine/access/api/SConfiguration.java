@@ -75,6 +75,10 @@ public interface SConfiguration {
 
     long getDdlRefreshInterval();
 
+    String getIndexBulkLoadDirectory();
+
+    double getIndexBulkLoadSampleFraction();
+
     long getMaxDdlWait();
 
     // HConfiguration
@@ -118,6 +122,18 @@ public interface SConfiguration {
 
     int getPipelineKryoPoolSize();
 
+    long getPipelineBufferPoolSize();
+
+    int getForeignKeyCacheSize();
+
+    long getForeignKeyCacheExpiration();
+
+    boolean isWriteFlowControlEnabled();
+
+    int getWriteFlowControlMaxRate();
+
+    int getWriteFlowControlMinRate();
+
     int getWriteMaxFlushesPerRegion();
 
     long getClientPause();
@@ -132,10 +148,18 @@ public interface SConfiguration {
 
     int getSparkResultStreamingBatches();
     int getSparkResultStreamingBatchSize();
+    boolean isSparkResultStreamingColumnar();
+    boolean isSparkResultStreamingCompressed();
 
     // SIConfigurations
     int getActiveTransactionCacheSize();
 
+    boolean isCompactionPurgeEnabled();
+
+    long getLowWatermarkRetention();
+
+    long getLowWatermarkRefreshInterval();
+
     int getCompletedTxnCacheSize();
 
     int getCompletedTxnConcurrency();
@@ -144,6 +168,10 @@ public interface SConfiguration {
 
     int getReadResolverThreads();
 
+    int getReadResolverBatchSize();
+
+    int getReadResolverMaxRowsPerSecond();
+
     int getOlapClientWaitTime();
 
     int getOlapClientTickTime();
@@ -156,6 +184,8 @@ public interface SConfiguration {
 
     int getTimestampServerBindPort();
 
+    int getTimestampClientMaxBatchSize();
+
     int getTransactionKeepAliveThreads();
 
     int getTransactionLockStripes();
@@ -164,6 +194,10 @@ public interface SConfiguration {
 
     long getTransactionTimeout();
 
+    long getTransactionCoalesceWindow();
+
+    boolean isTransactionGroupCommitEnabled();
+
     // SQLConfiguration
     boolean debugDumpBindTree();
 
@@ -181,10 +215,22 @@ public interface SConfiguration {
 
     int getImportMaxQuotedColumnLines();
 
+    int getImportParallelism();
+
+    long getImportChunkSize();
+
     int getIndexBatchSize();
 
     int getIndexLookupBlocks();
 
+    long getIndexLookupTargetLatency();
+
+    long getIndexLookupMaxBatchBytes();
+
+    boolean isTableFieldOffsetsEnabled();
+
+    boolean isTableZoneMapsEnabled();
+
     int getKryoPoolSize();
 
     int getNetworkBindPort();
@@ -197,6 +243,24 @@ public interface SConfiguration {
 
     long getBroadcastRegionRowThreshold();
 
+    boolean isBroadcastJoinOffHeap();
+
+    long getBroadcastJoinMemoryBudget();
+
+    String getSpillDirectory();
+
+    long getControlExecutionMemoryBudget();
+
+    int getControlScanParallelism();
+
+    int getControlScanThreads();
+
+    boolean isVectorizedExecutionEnabled();
+
+    int getVectorizedBatchSize();
+
+    int getNestedLoopJoinBatchSize();
+
     long getOptimizerPlanMaximumTimeout();
 
     long getOptimizerPlanMinimumTimeout();
@@ -220,6 +284,8 @@ public interface SConfiguration {
 
     int getTopkSize();
 
+    boolean isIncrementalStatisticsEnabled();
+
     long getFallbackLocalLatency();
 
     long getFallbackMinimumRowCount();
@@ -255,4 +321,12 @@ public interface SConfiguration {
     int getReservedSlotsTimeout();
 
     int getOlapServerTickLimit();
+
+    int getOlapServerMaxQueuedJobs();
+
+    long getOlapServerMaxQueueTime();
+
+    String getOlapServerPools();
+
+    String getOlapServerPoolMapping();
 }
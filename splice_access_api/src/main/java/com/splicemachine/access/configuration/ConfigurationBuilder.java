@@ -37,6 +37,18 @@ public class ConfigurationBuilder {
     public int transactionLockStripes;
     public long transactionKeepAliveInterval;
     public long transactionTimeout;
+    public int timestampClientMaxBatchSize;
+    public int readResolverBatchSize;
+    public int readResolverMaxRowsPerSecond;
+    public boolean compactionPurgeEnabled;
+    public long lowWatermarkRetention;
+    public long lowWatermarkRefreshInterval;
+    public int olapServerMaxQueuedJobs;
+    public long olapServerMaxQueueTime;
+    public String olapServerPools;
+    public String olapServerPoolMapping;
+    public long transactionCoalesceWindow;
+    public boolean transactionGroupCommitEnabled;
 
     // OperationConfiguration
     public int sequenceBlockSize;
@@ -46,6 +58,8 @@ public class ConfigurationBuilder {
     public long ddlDrainingMaximumWait;
     public long ddlRefreshInterval;
     public long maxDdlWait;
+    public String indexBulkLoadDirectory;
+    public double indexBulkLoadSampleFraction;
 
     // AuthenticationConfiguration
     public boolean authenticationNativeCreateCredentialsDatabase;
@@ -71,6 +85,7 @@ public class ConfigurationBuilder {
     public long fallbackRegionRowCount;
     public long fallbackRemoteLatencyRatio;
     public long partitionCacheExpiration;
+    public boolean incrementalStatisticsEnabled;
 
     // StorageConfiguration
     public int splitBlockSize;
@@ -116,6 +131,21 @@ public class ConfigurationBuilder {
     public String networkBindAddress;
     public String upgradeForcedFrom;
     public String storageFactoryHome;
+    public boolean broadcastJoinOffHeap;
+    public long broadcastJoinMemoryBudget;
+    public String spillDirectory;
+    public long controlExecutionMemoryBudget;
+    public boolean vectorizedExecutionEnabled;
+    public int vectorizedBatchSize;
+    public int controlScanParallelism;
+    public int controlScanThreads;
+    public int importParallelism;
+    public long importChunkSize;
+    public int nestedLoopJoinBatchSize;
+    public long indexLookupTargetLatency;
+    public long indexLookupMaxBatchBytes;
+    public boolean tableFieldOffsetsEnabled;
+    public boolean tableZoneMapsEnabled;
 
     // PipelineConfiguration
     public int coreWriterThreads;
@@ -136,6 +166,14 @@ public class ConfigurationBuilder {
     public int sparkResultStreamingBatches;
     public int compactionReservedSlots;
     public int reservedSlotsTimeout;
+    public long pipelineBufferPoolSize;
+    public int foreignKeyCacheSize;
+    public long foreignKeyCacheExpiration;
+    public int writeFlowControlMinRate;
+    public int writeFlowControlMaxRate;
+    public boolean writeFlowControlEnabled;
+    public boolean sparkResultStreamingColumnar;
+    public boolean sparkResultStreamingCompressed;
 
     /**
      * Build the {@link SConfiguration} given the list of subsystem defaults and the configuration source.<br/>
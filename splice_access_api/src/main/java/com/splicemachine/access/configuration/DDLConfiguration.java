@@ -52,12 +52,33 @@ public class DDLConfiguration implements ConfigurationDefault {
     public static final String DDL_DRAINING_MAXIMUM_WAIT = "splice.ddl.drainingWait.maximum";
     private static final long DEFAULT_DDL_DRAINING_MAXIMUM_WAIT = 100000;
 
+    /**
+     * The directory (on the cluster's default filesystem, unless qualified) in which CREATE INDEX stages
+     * HFiles when it populates a non-unique index by bulk loading, rather than by writing through the pipeline.
+     * The HBase user must be able to write to it.
+     *
+     * Defaults to null, which populates every index through the pipeline.
+     */
+    public static final String INDEX_BULK_LOAD_DIRECTORY = "splice.ddl.indexBulkLoadDirectory";
+    private static final String DEFAULT_INDEX_BULK_LOAD_DIRECTORY = null;
+
+    /**
+     * The fraction of index rows which a bulk-loaded index population samples in order to choose the points
+     * at which to pre-split the new index.
+     *
+     * Defaults to 0.001
+     */
+    public static final String INDEX_BULK_LOAD_SAMPLE_FRACTION = "splice.ddl.indexBulkLoadSampleFraction";
+    private static final double DEFAULT_INDEX_BULK_LOAD_SAMPLE_FRACTION = 0.001d;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.maxDdlWait = configurationSource.getLong(MAX_DDL_WAIT, DEFAULT_MAX_DDL_WAIT);
         builder.ddlRefreshInterval = configurationSource.getLong(DDL_REFRESH_INTERVAL, DEFAULT_DDL_REFRESH_INTERVAL);
         builder.ddlDrainingInitialWait = configurationSource.getLong(DDL_DRAINING_INITIAL_WAIT, DEFAULT_DDL_DRAINING_INITIAL_WAIT);
         builder.ddlDrainingMaximumWait = configurationSource.getLong(DDL_DRAINING_MAXIMUM_WAIT, DEFAULT_DDL_DRAINING_MAXIMUM_WAIT);
+        builder.indexBulkLoadDirectory = configurationSource.getString(INDEX_BULK_LOAD_DIRECTORY, DEFAULT_INDEX_BULK_LOAD_DIRECTORY);
+        builder.indexBulkLoadSampleFraction = configurationSource.getDouble(INDEX_BULK_LOAD_SAMPLE_FRACTION, DEFAULT_INDEX_BULK_LOAD_SAMPLE_FRACTION);
     }
 
 }
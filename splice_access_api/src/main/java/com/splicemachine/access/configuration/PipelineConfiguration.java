@@ -39,6 +39,27 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String SPARK_RESULT_STREAMING_BATCH_SIZE = "spark.result.streaming.batch.size";
     public static final int DEFAULT_SPARK_RESULT_STREAMING_BATCH_SIZE = 1024;
 
+    /**
+     * Whether Spark tasks stream their results to the query client as column-encoded blocks of
+     * spark.result.streaming.batch.size rows, rather than one serialized row at a time. Integral columns are
+     * delta-encoded and low-cardinality string columns are dictionary-encoded, which shrinks large exports
+     * considerably. The client decodes the rows of a block one at a time, as they are read.
+     *
+     * Defaults to false.
+     */
+    public static final String SPARK_RESULT_STREAMING_COLUMNAR = "spark.result.streaming.columnar";
+    public static final boolean DEFAULT_SPARK_RESULT_STREAMING_COLUMNAR = false;
+
+    /**
+     * Whether columnar result blocks (see spark.result.streaming.columnar) are also compressed before they
+     * are sent. Compression trades executor CPU for bandwidth, so it pays off when the client is far from the
+     * cluster, or the network is otherwise the bottleneck.
+     *
+     * Defaults to false.
+     */
+    public static final String SPARK_RESULT_STREAMING_COMPRESSED = "spark.result.streaming.compressed";
+    public static final boolean DEFAULT_SPARK_RESULT_STREAMING_COMPRESSED = false;
+
     public static final String SPARK_COMPACTION_RESERVED_SLOTS = "spark.compaction.reserved.slots";
     public static final int DEFAULT_SPARK_COMPACTION_RESERVED_SLOTS = 1;
 
@@ -153,6 +174,57 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String PIPELINE_KRYO_POOL_SIZE= "splice.writer.kryoPoolSize";
     private static final int DEFAULT_PIPELINE_KRYO_POOL_SIZE=1024;
 
+    /**
+     * The maximum number of bytes which the write pipeline keeps in its pool of encoding buffers. Remote
+     * bulk writes are encoded into buffers taken from this pool, which are returned to it once the write
+     * has been sent, so that sustained writes (e.g. imports) don't allocate a new buffer for every batch.
+     * Set to 0 to disable pooling. Defaults to 64 MB.
+     */
+    public static final String PIPELINE_BUFFER_POOL_SIZE= "splice.writer.bufferPoolSize";
+    private static final long DEFAULT_PIPELINE_BUFFER_POOL_SIZE=64*1024*1024L;
+
+    /**
+     * The maximum number of parent keys which each region server remembers as having passed a foreign key
+     * check. A transaction which has already confirmed a parent key does not look it up again for later
+     * child rows, so loads which reference a small set of parent rows mostly skip the remote lookup.
+     * Set to 0 to disable the cache. Defaults to 100000.
+     */
+    public static final String FOREIGN_KEY_CACHE_SIZE= "splice.writer.foreignKeyCacheSize";
+    private static final int DEFAULT_FOREIGN_KEY_CACHE_SIZE=100000;
+
+    /**
+     * How long (in milliseconds) a confirmed parent key stays in the foreign key cache. A confirmation is only
+     * dropped early when the parent key is deleted through the same region server, so this bounds how long a
+     * confirmation can outlive a change which that server did not see. Defaults to 10000 (10 seconds).
+     */
+    public static final String FOREIGN_KEY_CACHE_EXPIRATION= "splice.writer.foreignKeyCacheExpiration";
+    private static final long DEFAULT_FOREIGN_KEY_CACHE_EXPIRATION=10000L;
+
+    /**
+     * Whether writers pace the writes that they send to each region server according to the write credits
+     * which that server advertises in its responses. When disabled, a writer which is told that a server is
+     * too busy backs off with a fixed exponential sleep instead (see splice.client.pause).
+     *
+     * Defaults to true.
+     */
+    public static final String WRITE_FLOW_CONTROL_ENABLED= "splice.client.write.flowControl.enabled";
+    private static final boolean DEFAULT_WRITE_FLOW_CONTROL_ENABLED=true;
+
+    /**
+     * The highest rate (in rows per second) at which a single writer sends rows to a single region server.
+     * Each server starts out at this rate, and is slowed down only once it reports that it is short on
+     * write credits. Defaults to 1000000.
+     */
+    public static final String WRITE_FLOW_CONTROL_MAX_RATE= "splice.client.write.flowControl.maxRowsPerSecond";
+    private static final int DEFAULT_WRITE_FLOW_CONTROL_MAX_RATE=1000000;
+
+    /**
+     * The lowest rate (in rows per second) to which a writer slows its writes to a busy region server, so
+     * that writes to an overloaded server are delayed but never stall outright. Defaults to 1000.
+     */
+    public static final String WRITE_FLOW_CONTROL_MIN_RATE= "splice.client.write.flowControl.minRowsPerSecond";
+    private static final int DEFAULT_WRITE_FLOW_CONTROL_MIN_RATE=1000;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.ipcThreads = configurationSource.getInt(IPC_THREADS, DEFAULT_IPC_THREADS);
@@ -164,15 +236,23 @@ public class PipelineConfiguration implements ConfigurationDefault {
         builder.maxRetries = configurationSource.getInt(MAX_RETRIES, DEFAULT_HBASE_CLIENT_RETRIES_NUMBER);
         builder.maxBufferEntries = configurationSource.getInt(MAX_BUFFER_ENTRIES, DEFAULT_MAX_BUFFER_ENTRIES);
         builder.pipelineKryoPoolSize = configurationSource.getInt(PIPELINE_KRYO_POOL_SIZE, DEFAULT_PIPELINE_KRYO_POOL_SIZE);
+        builder.foreignKeyCacheSize = configurationSource.getInt(FOREIGN_KEY_CACHE_SIZE, DEFAULT_FOREIGN_KEY_CACHE_SIZE);
+        builder.foreignKeyCacheExpiration = configurationSource.getLong(FOREIGN_KEY_CACHE_EXPIRATION, DEFAULT_FOREIGN_KEY_CACHE_EXPIRATION);
+        builder.writeFlowControlMaxRate = configurationSource.getInt(WRITE_FLOW_CONTROL_MAX_RATE, DEFAULT_WRITE_FLOW_CONTROL_MAX_RATE);
+        builder.writeFlowControlMinRate = configurationSource.getInt(WRITE_FLOW_CONTROL_MIN_RATE, DEFAULT_WRITE_FLOW_CONTROL_MIN_RATE);
+        builder.writeFlowControlEnabled = configurationSource.getBoolean(WRITE_FLOW_CONTROL_ENABLED, DEFAULT_WRITE_FLOW_CONTROL_ENABLED);
 
         builder.threadKeepaliveTime = configurationSource.getLong(THREAD_KEEPALIVE_TIME, DEFAULT_THREAD_KEEPALIVE_TIME);
         builder.clientPause = configurationSource.getLong(CLIENT_PAUSE, DEFAULT_CLIENT_PAUSE);
         builder.maxBufferHeapSize = configurationSource.getLong(MAX_BUFFER_HEAP_SIZE, DEFAULT_WRITE_BUFFER_SIZE);
         builder.startupLockWaitPeriod = configurationSource.getLong(STARTUP_LOCK_WAIT_PERIOD, DEFAULT_STARTUP_LOCK_PERIOD);
+        builder.pipelineBufferPoolSize = configurationSource.getLong(PIPELINE_BUFFER_POOL_SIZE, DEFAULT_PIPELINE_BUFFER_POOL_SIZE);
 
         builder.sparkIoCompressionCodec = configurationSource.getString(SPARK_IO_COMPRESSION_CODEC, DEFAULT_SPARK_IO_COMPRESSION_CODEC);
         builder.sparkResultStreamingBatches = configurationSource.getInt(SPARK_RESULT_STREAMING_BATCHES, DEFAULT_SPARK_RESULT_STREAMING_BATCHES);
         builder.sparkResultStreamingBatchSize = configurationSource.getInt(SPARK_RESULT_STREAMING_BATCH_SIZE, DEFAULT_SPARK_RESULT_STREAMING_BATCH_SIZE);
+        builder.sparkResultStreamingColumnar = configurationSource.getBoolean(SPARK_RESULT_STREAMING_COLUMNAR, DEFAULT_SPARK_RESULT_STREAMING_COLUMNAR);
+        builder.sparkResultStreamingCompressed = configurationSource.getBoolean(SPARK_RESULT_STREAMING_COMPRESSED, DEFAULT_SPARK_RESULT_STREAMING_COMPRESSED);
         builder.compactionReservedSlots = configurationSource.getInt(SPARK_COMPACTION_RESERVED_SLOTS, DEFAULT_SPARK_COMPACTION_RESERVED_SLOTS);
         builder.reservedSlotsTimeout = configurationSource.getInt(SPARK_RESERVED_SLOTS_TIMEOUT, DEFAULT_SPARK_RESERVED_SLOTS_TIMEOUT);
     }
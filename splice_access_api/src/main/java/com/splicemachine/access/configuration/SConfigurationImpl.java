@@ -63,6 +63,8 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  long ddlDrainingMaximumWait;
     private final  long ddlRefreshInterval;
     private final  long maxDdlWait;
+    private final  String indexBulkLoadDirectory;
+    private final  double indexBulkLoadSampleFraction;
 
     // HConfiguration
     private final  int regionServerHandlerCount;
@@ -98,6 +100,14 @@ public final class SConfigurationImpl implements SConfiguration {
     private final int sparkResultStreamingBatchSize;
     private final int compactionReservedSlots;
     private final int reservedSlotsTimeout;
+    private final  long pipelineBufferPoolSize;
+    private final  int foreignKeyCacheSize;
+    private final  long foreignKeyCacheExpiration;
+    private final  int writeFlowControlMinRate;
+    private final  int writeFlowControlMaxRate;
+    private final  boolean writeFlowControlEnabled;
+    private final  boolean sparkResultStreamingColumnar;
+    private final  boolean sparkResultStreamingCompressed;
 
     // SIConfigurations
     private final  int activeTransactionCacheSize;
@@ -116,6 +126,18 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int transactionLockStripes;
     private final  long transactionKeepAliveInterval;
     private final  long transactionTimeout;
+    private final  int timestampClientMaxBatchSize;
+    private final  int readResolverBatchSize;
+    private final  int readResolverMaxRowsPerSecond;
+    private final  boolean compactionPurgeEnabled;
+    private final  long lowWatermarkRetention;
+    private final  long lowWatermarkRefreshInterval;
+    private final  int olapServerMaxQueuedJobs;
+    private final  long olapServerMaxQueueTime;
+    private final  String olapServerPools;
+    private final  String olapServerPoolMapping;
+    private final  long transactionCoalesceWindow;
+    private final  boolean transactionGroupCommitEnabled;
 
     // SQLConfiguration
     private final  boolean debugDumpBindTree;
@@ -139,6 +161,21 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  String networkBindAddress;
     private final  String upgradeForcedFrom;
     private final String storageFactoryHome;
+    private final  boolean broadcastJoinOffHeap;
+    private final  long broadcastJoinMemoryBudget;
+    private final  String spillDirectory;
+    private final  long controlExecutionMemoryBudget;
+    private final  boolean vectorizedExecutionEnabled;
+    private final  int vectorizedBatchSize;
+    private final  int controlScanParallelism;
+    private final  int controlScanThreads;
+    private final  int importParallelism;
+    private final  long importChunkSize;
+    private final  int nestedLoopJoinBatchSize;
+    private final  long indexLookupTargetLatency;
+    private final  long indexLookupMaxBatchBytes;
+    private final  boolean tableFieldOffsetsEnabled;
+    private final  boolean tableZoneMapsEnabled;
 
     // StatsConfiguration
     private final  double fallbackNullFraction;
@@ -153,6 +190,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  long fallbackRegionRowCount;
     private final  long fallbackRemoteLatencyRatio;
     private final  long partitionCacheExpiration;
+    private final  boolean incrementalStatisticsEnabled;
 
     // StorageConfiguration
     private final  int splitBlockSize;
@@ -230,6 +268,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return ddlRefreshInterval;
     }
     @Override
+    public String getIndexBulkLoadDirectory() {
+        return indexBulkLoadDirectory;
+    }
+    @Override
+    public double getIndexBulkLoadSampleFraction() {
+        return indexBulkLoadSampleFraction;
+    }
+    @Override
     public long getMaxDdlWait() {
         return maxDdlWait;
     }
@@ -316,6 +362,30 @@ public final class SConfigurationImpl implements SConfiguration {
         return pipelineKryoPoolSize;
     }
     @Override
+    public long getPipelineBufferPoolSize() {
+        return pipelineBufferPoolSize;
+    }
+    @Override
+    public int getForeignKeyCacheSize() {
+        return foreignKeyCacheSize;
+    }
+    @Override
+    public long getForeignKeyCacheExpiration() {
+        return foreignKeyCacheExpiration;
+    }
+    @Override
+    public boolean isWriteFlowControlEnabled() {
+        return writeFlowControlEnabled;
+    }
+    @Override
+    public int getWriteFlowControlMaxRate() {
+        return writeFlowControlMaxRate;
+    }
+    @Override
+    public int getWriteFlowControlMinRate() {
+        return writeFlowControlMinRate;
+    }
+    @Override
     public int getWriteMaxFlushesPerRegion() {
         return writeMaxFlushesPerRegion;
     }
@@ -349,6 +419,14 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getSparkResultStreamingBatchSize() {
         return sparkResultStreamingBatchSize;
     }
+    @Override
+    public boolean isSparkResultStreamingColumnar() {
+        return sparkResultStreamingColumnar;
+    }
+    @Override
+    public boolean isSparkResultStreamingCompressed() {
+        return sparkResultStreamingCompressed;
+    }
 
     // SIConfigurations
     @Override
@@ -356,6 +434,18 @@ public final class SConfigurationImpl implements SConfiguration {
         return activeTransactionCacheSize;
     }
     @Override
+    public boolean isCompactionPurgeEnabled() {
+        return compactionPurgeEnabled;
+    }
+    @Override
+    public long getLowWatermarkRetention() {
+        return lowWatermarkRetention;
+    }
+    @Override
+    public long getLowWatermarkRefreshInterval() {
+        return lowWatermarkRefreshInterval;
+    }
+    @Override
     public int getCompletedTxnCacheSize() {
         return completedTxnCacheSize;
     }
@@ -372,6 +462,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return readResolverThreads;
     }
     @Override
+    public int getReadResolverBatchSize() {
+        return readResolverBatchSize;
+    }
+    @Override
+    public int getReadResolverMaxRowsPerSecond() {
+        return readResolverMaxRowsPerSecond;
+    }
+    @Override
     public int getOlapClientWaitTime() {
         return olapClientWaitTime;
     }
@@ -396,6 +494,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return timestampServerBindPort;
     }
     @Override
+    public int getTimestampClientMaxBatchSize() {
+        return timestampClientMaxBatchSize;
+    }
+    @Override
     public int getTransactionKeepAliveThreads() {
         return transactionKeepAliveThreads;
     }
@@ -411,6 +513,14 @@ public final class SConfigurationImpl implements SConfiguration {
     public long getTransactionTimeout() {
         return transactionTimeout;
     }
+    @Override
+    public long getTransactionCoalesceWindow() {
+        return transactionCoalesceWindow;
+    }
+    @Override
+    public boolean isTransactionGroupCommitEnabled() {
+        return transactionGroupCommitEnabled;
+    }
 
     // SQLConfiguration
     @Override
@@ -446,6 +556,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return importMaxQuotedColumnLines;
     }
     @Override
+    public int getImportParallelism() {
+        return importParallelism;
+    }
+    @Override
+    public long getImportChunkSize() {
+        return importChunkSize;
+    }
+    @Override
     public int getIndexBatchSize() {
         return indexBatchSize;
     }
@@ -454,6 +572,22 @@ public final class SConfigurationImpl implements SConfiguration {
         return indexLookupBlocks;
     }
     @Override
+    public long getIndexLookupTargetLatency() {
+        return indexLookupTargetLatency;
+    }
+    @Override
+    public long getIndexLookupMaxBatchBytes() {
+        return indexLookupMaxBatchBytes;
+    }
+    @Override
+    public boolean isTableFieldOffsetsEnabled() {
+        return tableFieldOffsetsEnabled;
+    }
+    @Override
+    public boolean isTableZoneMapsEnabled() {
+        return tableZoneMapsEnabled;
+    }
+    @Override
     public int getKryoPoolSize() {
         return kryoPoolSize;
     }
@@ -478,6 +612,42 @@ public final class SConfigurationImpl implements SConfiguration {
         return broadcastRegionRowThreshold;
     }
     @Override
+    public boolean isBroadcastJoinOffHeap() {
+        return broadcastJoinOffHeap;
+    }
+    @Override
+    public long getBroadcastJoinMemoryBudget() {
+        return broadcastJoinMemoryBudget;
+    }
+    @Override
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+    @Override
+    public long getControlExecutionMemoryBudget() {
+        return controlExecutionMemoryBudget;
+    }
+    @Override
+    public int getControlScanParallelism() {
+        return controlScanParallelism;
+    }
+    @Override
+    public int getControlScanThreads() {
+        return controlScanThreads;
+    }
+    @Override
+    public boolean isVectorizedExecutionEnabled() {
+        return vectorizedExecutionEnabled;
+    }
+    @Override
+    public int getVectorizedBatchSize() {
+        return vectorizedBatchSize;
+    }
+    @Override
+    public int getNestedLoopJoinBatchSize() {
+        return nestedLoopJoinBatchSize;
+    }
+    @Override
     public long getOptimizerPlanMaximumTimeout() {
         return optimizerPlanMaximumTimeout;
     }
@@ -520,6 +690,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return topkSize;
     }
     @Override
+    public boolean isIncrementalStatisticsEnabled() {
+        return incrementalStatisticsEnabled;
+    }
+    @Override
     public long getFallbackLocalLatency() {
         return fallbackLocalLatency;
     }
@@ -670,6 +844,44 @@ public final class SConfigurationImpl implements SConfiguration {
         compactionReservedSlots = builder.compactionReservedSlots;
         reservedSlotsTimeout = builder.reservedSlotsTimeout;
         storageFactoryHome = builder.storageFactoryHome;
+        broadcastJoinOffHeap = builder.broadcastJoinOffHeap;
+        broadcastJoinMemoryBudget = builder.broadcastJoinMemoryBudget;
+        spillDirectory = builder.spillDirectory;
+        timestampClientMaxBatchSize = builder.timestampClientMaxBatchSize;
+        controlExecutionMemoryBudget = builder.controlExecutionMemoryBudget;
+        vectorizedExecutionEnabled = builder.vectorizedExecutionEnabled;
+        vectorizedBatchSize = builder.vectorizedBatchSize;
+        readResolverBatchSize = builder.readResolverBatchSize;
+        readResolverMaxRowsPerSecond = builder.readResolverMaxRowsPerSecond;
+        pipelineBufferPoolSize = builder.pipelineBufferPoolSize;
+        controlScanParallelism = builder.controlScanParallelism;
+        controlScanThreads = builder.controlScanThreads;
+        incrementalStatisticsEnabled = builder.incrementalStatisticsEnabled;
+        compactionPurgeEnabled = builder.compactionPurgeEnabled;
+        lowWatermarkRetention = builder.lowWatermarkRetention;
+        lowWatermarkRefreshInterval = builder.lowWatermarkRefreshInterval;
+        importParallelism = builder.importParallelism;
+        importChunkSize = builder.importChunkSize;
+        foreignKeyCacheSize = builder.foreignKeyCacheSize;
+        foreignKeyCacheExpiration = builder.foreignKeyCacheExpiration;
+        indexBulkLoadDirectory = builder.indexBulkLoadDirectory;
+        indexBulkLoadSampleFraction = builder.indexBulkLoadSampleFraction;
+        writeFlowControlMinRate = builder.writeFlowControlMinRate;
+        writeFlowControlMaxRate = builder.writeFlowControlMaxRate;
+        writeFlowControlEnabled = builder.writeFlowControlEnabled;
+        olapServerMaxQueuedJobs = builder.olapServerMaxQueuedJobs;
+        olapServerMaxQueueTime = builder.olapServerMaxQueueTime;
+        olapServerPools = builder.olapServerPools;
+        olapServerPoolMapping = builder.olapServerPoolMapping;
+        sparkResultStreamingColumnar = builder.sparkResultStreamingColumnar;
+        sparkResultStreamingCompressed = builder.sparkResultStreamingCompressed;
+        transactionCoalesceWindow = builder.transactionCoalesceWindow;
+        transactionGroupCommitEnabled = builder.transactionGroupCommitEnabled;
+        nestedLoopJoinBatchSize = builder.nestedLoopJoinBatchSize;
+        indexLookupTargetLatency = builder.indexLookupTargetLatency;
+        indexLookupMaxBatchBytes = builder.indexLookupMaxBatchBytes;
+        tableFieldOffsetsEnabled = builder.tableFieldOffsetsEnabled;
+        tableZoneMapsEnabled = builder.tableZoneMapsEnabled;
     }
 
     private static final Logger LOG = Logger.getLogger("splice.config");
@@ -714,5 +926,21 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getOlapServerTickLimit(){
         return olapServerTickLimit;
     }
+    @Override
+    public int getOlapServerMaxQueuedJobs() {
+        return olapServerMaxQueuedJobs;
+    }
+    @Override
+    public long getOlapServerMaxQueueTime() {
+        return olapServerMaxQueueTime;
+    }
+    @Override
+    public String getOlapServerPools() {
+        return olapServerPools;
+    }
+    @Override
+    public String getOlapServerPoolMapping() {
+        return olapServerPoolMapping;
+    }
 
 }
@@ -51,6 +51,23 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String READ_RESOLVER_QUEUE_SIZE = "splice.txn.readresolver.queueSize";
     private static final int DEFAULT_READ_RESOLVER_QUEUE_SIZE=1<<16;
 
+    /**
+     * The maximum number of rows which the read resolver will roll forward in a single bulk write
+     * to a region. Rows are grouped by region and transaction, so a larger batch means fewer, larger
+     * writes. Defaults to 1024.
+     */
+    public static final String READ_RESOLVER_BATCH_SIZE = "splice.txn.readresolver.batchSize";
+    private static final int DEFAULT_READ_RESOLVER_BATCH_SIZE=1<<10;
+
+    /**
+     * The maximum number of rows per second which the read resolver will roll forward, across all regions
+     * on the server. Resolution threads wait when they exceed this rate, so that the backlog is absorbed
+     * by the (bounded) resolution queue rather than by the region's write path. A value of 0 or less removes
+     * the limit. Defaults to 65536.
+     */
+    public static final String READ_RESOLVER_MAX_ROWS_PER_SECOND = "splice.txn.readresolver.maxRowsPerSecond";
+    private static final int DEFAULT_READ_RESOLVER_MAX_ROWS_PER_SECOND=1<<16;
+
     /*
      * We use lock-striping to manage concurrent modifications/reads to the Transaction table. That is,
      * each Transaction is grouped into a bucket, and in order to read or modify that transaction, you must
@@ -112,6 +129,17 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String TIMESTAMP_SERVER_BIND_PORT = "splice.timestamp_server.port";
     private static final int DEFAULT_TIMESTAMP_SERVER_BIND_PORT = 60012;
 
+    /**
+     * The maximum number of timestamps the timestamp client will request from the server in a
+     * single message. Concurrent callers are coalesced into one request, up to this many.
+     * Servers which predate batching only understand requests for a single timestamp, and the
+     * timestamp server only accepts batches when this is greater than 1, so set it on every
+     * server (including the master) only once they have all been upgraded.
+     * Defaults to 1 (no batching)
+     */
+    public static final String TIMESTAMP_CLIENT_MAX_BATCH_SIZE = "splice.timestamp_server.clientMaxBatchSize";
+    private static final int DEFAULT_TIMESTAMP_CLIENT_MAX_BATCH_SIZE = 1;
+
 
     /**
      * The number of milliseconds the OLAP client should wait for a result.
@@ -136,7 +164,8 @@ public class SIConfigurations implements ConfigurationDefault {
 
     /**
      * Number of threads used by the Olap server, determines the maximum number of concurrent
-     * Olap jobs
+     * Olap jobs. This is also the number of jobs the default resource pool may run at once; further
+     * jobs wait in the pool's queue.
      *
      * Defaults to 16
      */
@@ -146,9 +175,101 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String OLAP_SERVER_TICK_LIMIT = "splice.olap_server.tickLimit";
     private static final int DEFAULT_OLAP_SERVER_TICK_LIMIT = 10;
 
+    /**
+     * The maximum number of jobs which may wait in the default resource pool of the Olap server once all of
+     * its {@link #OLAP_SERVER_THREADS} slots are busy. Jobs submitted to a full queue are rejected immediately.
+     *
+     * Defaults to 1000
+     */
+    public static final String OLAP_SERVER_MAX_QUEUED_JOBS = "splice.olap_server.maxQueuedJobs";
+    private static final int DEFAULT_OLAP_SERVER_MAX_QUEUED_JOBS = 1000;
+
+    /**
+     * The maximum number of milliseconds a job may wait in the default resource pool of the Olap server
+     * before it is rejected. A value of 0 lets jobs wait for as long as their client keeps checking in.
+     *
+     * Defaults to 0
+     */
+    public static final String OLAP_SERVER_MAX_QUEUE_TIME = "splice.olap_server.maxQueueTime";
+    private static final long DEFAULT_OLAP_SERVER_MAX_QUEUE_TIME = 0L;
+
+    /**
+     * Additional resource pools for the Olap server, as a comma-separated list of
+     * {@code name:maxConcurrent:maxQueued:priority:weight:maxQueueTimeMs} entries. Pools with a higher
+     * priority are always served first; pools of equal priority share the server in proportion to their
+     * weights. An entry named {@code default} overrides the settings of the default pool.
+     *
+     * Defaults to no additional pools
+     */
+    public static final String OLAP_SERVER_POOLS = "splice.olap_server.pools";
+    private static final String DEFAULT_OLAP_SERVER_POOLS = "";
+
+    /**
+     * Which resource pool the jobs of a user or role are placed in, as a comma-separated list of
+     * {@code userOrRole=pool} entries. A user's own mapping takes precedence over that of their current role;
+     * jobs which match neither run in the default pool.
+     *
+     * Defaults to no mappings
+     */
+    public static final String OLAP_SERVER_POOL_MAPPING = "splice.olap_server.poolMapping";
+    private static final String DEFAULT_OLAP_SERVER_POOL_MAPPING = "";
+
     public static final String ACTIVE_TRANSACTION_CACHE_SIZE="splice.txn.activeCacheSize";
     private static final int DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE = 1<<12;
 
+    /**
+     * When enabled, compactions which cover every file in a store discard the versions of each row which
+     * no transaction can see any longer: older versions are folded into the newest one, and data which
+     * is hidden behind a tombstone is removed.
+     *
+     * Defaults to false
+     */
+    public static final String COMPACTION_PURGE_ENABLED="splice.txn.compaction.purgeVersions";
+    private static final boolean DEFAULT_COMPACTION_PURGE_ENABLED=false;
+
+    /**
+     * Read-only transactions are not recorded in the transaction table, so the transaction low watermark
+     * is never allowed to advance past a timestamp which was handed out less than this many milliseconds ago.
+     * Snapshot isolation reads by transactions which began longer ago than this may need versions of rows
+     * which were purged out from under them, so they fail with a "snapshot too old" error instead.
+     *
+     * Defaults to 1 hour
+     */
+    public static final String LOW_WATERMARK_RETENTION="splice.txn.lowWatermark.retention";
+    private static final long DEFAULT_LOW_WATERMARK_RETENTION=60*60*1000L; // 1 hour
+
+    /**
+     * The minimum interval (in milliseconds) between recomputations of the transaction low watermark.
+     *
+     * Defaults to 1 minute
+     */
+    public static final String LOW_WATERMARK_REFRESH_INTERVAL="splice.txn.lowWatermark.refreshInterval";
+    private static final long DEFAULT_LOW_WATERMARK_REFRESH_INTERVAL=60*1000L; // 1 minute
+
+    /**
+     * The longest (in milliseconds) that a keep alive or lookup of a transaction may be held back so that
+     * it can be sent to the transaction table together with other requests for the same bucket. Requests
+     * are only held back while another request for their bucket is outstanding, so this adds no latency
+     * to a lightly loaded server. Set to 0 to send every request on its own.
+     *
+     * Batched requests use transaction table endpoints which older servers do not have, so only enable this
+     * once every server in the cluster has been upgraded.
+     *
+     * Defaults to 0 (disabled)
+     */
+    public static final String TRANSACTION_COALESCE_WINDOW="splice.txn.coalesceWindowMs";
+    private static final long DEFAULT_TRANSACTION_COALESCE_WINDOW=0L;
+
+    /**
+     * When enabled (and coalescing is enabled), commits are batched in the same way as keep alives and
+     * lookups, and the transaction table acquires the commit timestamps of each batch together and records
+     * all of its commits in a single write.
+     *
+     * Defaults to false
+     */
+    public static final String TRANSACTION_GROUP_COMMIT_ENABLED="splice.txn.groupCommit.enabled";
+    private static final boolean DEFAULT_TRANSACTION_GROUP_COMMIT_ENABLED=false;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
@@ -157,17 +278,30 @@ public class SIConfigurations implements ConfigurationDefault {
         builder.readResolverThreads  = configurationSource.getInt(READ_RESOLVER_THREADS, DEFAULT_READ_RESOLVER_THREADS);
         builder.readResolverQueueSize  = configurationSource.getInt(READ_RESOLVER_QUEUE_SIZE, -1); //TODO -sf- reset to DEFAULT once ReadResolution works
 //        builder.readResolverQueueSize  = configurationSource.getInt(READ_RESOLVER_QUEUE_SIZE, DEFAULT_READ_RESOLVER_QUEUE_SIZE);
+        builder.readResolverBatchSize  = configurationSource.getInt(READ_RESOLVER_BATCH_SIZE, DEFAULT_READ_RESOLVER_BATCH_SIZE);
+        builder.readResolverMaxRowsPerSecond  = configurationSource.getInt(READ_RESOLVER_MAX_ROWS_PER_SECOND, DEFAULT_READ_RESOLVER_MAX_ROWS_PER_SECOND);
         builder.timestampClientWaitTime  = configurationSource.getInt(TIMESTAMP_CLIENT_WAIT_TIME, DEFAULT_TIMESTAMP_CLIENT_WAIT_TIME);
         builder.timestampServerBindPort  = configurationSource.getInt(TIMESTAMP_SERVER_BIND_PORT, DEFAULT_TIMESTAMP_SERVER_BIND_PORT);
+        builder.timestampClientMaxBatchSize  = configurationSource.getInt(TIMESTAMP_CLIENT_MAX_BATCH_SIZE, DEFAULT_TIMESTAMP_CLIENT_MAX_BATCH_SIZE);
         builder.activeTransactionCacheSize  = configurationSource.getInt(ACTIVE_TRANSACTION_CACHE_SIZE, DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE);
         builder.olapServerBindPort  = configurationSource.getInt(OLAP_SERVER_BIND_PORT, DEFAULT_OLAP_SERVER_BIND_PORT);
         builder.olapClientWaitTime  = configurationSource.getInt(OLAP_CLIENT_WAIT_TIME, DEFAULT_OLAP_CLIENT_WAIT_TIME);
         builder.olapClientTickTime  = configurationSource.getInt(OLAP_CLIENT_TICK_TIME, DEFAULT_OLAP_CLIENT_TICK_TIME);
         builder.olapServerThreads = configurationSource.getInt(OLAP_SERVER_THREADS, DEFAULT_OLAP_SERVER_THREADS);
         builder.olapServerTickLimit = configurationSource.getInt(OLAP_SERVER_TICK_LIMIT,DEFAULT_OLAP_SERVER_TICK_LIMIT);
+        builder.olapServerMaxQueuedJobs = configurationSource.getInt(OLAP_SERVER_MAX_QUEUED_JOBS,DEFAULT_OLAP_SERVER_MAX_QUEUED_JOBS);
+        builder.olapServerMaxQueueTime = configurationSource.getLong(OLAP_SERVER_MAX_QUEUE_TIME,DEFAULT_OLAP_SERVER_MAX_QUEUE_TIME);
+        builder.olapServerPools = configurationSource.getString(OLAP_SERVER_POOLS,DEFAULT_OLAP_SERVER_POOLS);
+        builder.olapServerPoolMapping = configurationSource.getString(OLAP_SERVER_POOL_MAPPING,DEFAULT_OLAP_SERVER_POOL_MAPPING);
 
         builder.transactionTimeout = configurationSource.getLong(TRANSACTION_TIMEOUT, DEFAULT_TRANSACTION_TIMEOUT);
         builder.transactionKeepAliveInterval = configurationSource.getLong(TRANSACTION_KEEP_ALIVE_INTERVAL, DEFAULT_TRANSACTION_KEEP_ALIVE_INTERVAL);
+        builder.transactionCoalesceWindow = configurationSource.getLong(TRANSACTION_COALESCE_WINDOW, DEFAULT_TRANSACTION_COALESCE_WINDOW);
+        builder.transactionGroupCommitEnabled = configurationSource.getBoolean(TRANSACTION_GROUP_COMMIT_ENABLED, DEFAULT_TRANSACTION_GROUP_COMMIT_ENABLED);
+
+        builder.compactionPurgeEnabled = configurationSource.getBoolean(COMPACTION_PURGE_ENABLED, DEFAULT_COMPACTION_PURGE_ENABLED);
+        builder.lowWatermarkRetention = configurationSource.getLong(LOW_WATERMARK_RETENTION, DEFAULT_LOW_WATERMARK_RETENTION);
+        builder.lowWatermarkRefreshInterval = configurationSource.getLong(LOW_WATERMARK_REFRESH_INTERVAL, DEFAULT_LOW_WATERMARK_REFRESH_INTERVAL);
 
     }
 }
@@ -63,6 +63,25 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String IMPORT_MAX_QUOTED_COLUMN_LINES="splice.import.maxQuotedColumnLines";
     private static final int DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES = 50000;
 
+    /**
+     * The number of threads which parse a single file at once, when a file whose records each fit on one line
+     * is imported on the control side. Files which are compressed, or no larger than {@link #IMPORT_CHUNK_SIZE},
+     * are always parsed on a single thread.
+     *
+     * Defaults to 4
+     */
+    public static final String IMPORT_PARALLELISM="splice.import.control.parallelism";
+    private static final int DEFAULT_IMPORT_PARALLELISM = 4;
+
+    /**
+     * The size (in bytes) of the pieces into which a file is split, when it is parsed in parallel
+     * (see {@link #IMPORT_PARALLELISM}).
+     *
+     * Defaults to 8 MB
+     */
+    public static final String IMPORT_CHUNK_SIZE="splice.import.control.chunkSize";
+    private static final long DEFAULT_IMPORT_CHUNK_SIZE = 8*1024*1024L;
+
     public static final String BATCH_ONCE_BATCH_SIZE = "splice.batchonce.batchsize";
     private static final int DEFAULT_BATCH_ONCE_BATCH_SIZE = 50_000;
 
@@ -110,6 +129,94 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String BROADCAST_REGION_ROW_THRESHOLD = "splice.optimizer.broadcastRegionRowThreshold";
     private static final int DEFAULT_BROADCAST_REGION_ROW_THRESHOLD = 1000000;
 
+    /**
+     * Whether the inner side of a Broadcast join should be held in an off-heap hash table (encoded
+     * rows in direct memory, spilling partitions to local disk when the memory budget is exceeded)
+     * instead of an on-heap map of materialized rows.
+     *
+     * Defaults to false
+     */
+    public static final String BROADCAST_JOIN_OFF_HEAP = "splice.execution.broadcastJoin.offHeap";
+    private static final boolean DEFAULT_BROADCAST_JOIN_OFF_HEAP = false;
+
+    /**
+     * The maximum number of bytes of direct memory that a single off-heap Broadcast join table
+     * may hold before it begins spilling partitions to disk.
+     *
+     * Defaults to 256 MB
+     */
+    public static final String BROADCAST_JOIN_MEMORY_BUDGET = "splice.execution.broadcastJoin.memoryBudget";
+    private static final long DEFAULT_BROADCAST_JOIN_MEMORY_BUDGET = 256L*1024*1024;
+
+    /**
+     * The local directory in which operations write temporary files when they exceed their
+     * memory budget.
+     *
+     * Defaults to the value of the java.io.tmpdir system property
+     */
+    public static final String SPILL_DIRECTORY = "splice.execution.spillDirectory";
+
+    /**
+     * The number of bytes of rows that a single sort, grouping or hash join running on the control
+     * (non-Spark) side may hold in memory. Beyond that, it writes its input to local temp files under
+     * {@link #SPILL_DIRECTORY}, and performs the sort as a merge of sorted runs (or the grouping or join
+     * one hash partition at a time).
+     *
+     * Defaults to 128 MB
+     */
+    public static final String CONTROL_EXECUTION_MEMORY_BUDGET = "splice.execution.control.memoryBudget";
+    private static final long DEFAULT_CONTROL_EXECUTION_MEMORY_BUDGET = 128L*1024*1024;
+
+    /**
+     * The maximum number of regions that a single control-side (non-Spark) table scan reads concurrently.
+     * The scan is split along region boundaries, and each region is scanned (and its rows decoded and
+     * filtered) on a thread from a shared pool of {@link #CONTROL_SCAN_THREADS} threads. Rows are still
+     * returned in key order, unless the consuming operation does not need them to be. 1 disables
+     * parallel scans.
+     *
+     * Defaults to 1
+     */
+    public static final String CONTROL_SCAN_PARALLELISM = "splice.execution.control.scanParallelism";
+    private static final int DEFAULT_CONTROL_SCAN_PARALLELISM = 1;
+
+    /**
+     * The number of threads shared by all parallel control-side scans on this server. See
+     * {@link #CONTROL_SCAN_PARALLELISM}.
+     *
+     * Defaults to the number of available processors
+     */
+    public static final String CONTROL_SCAN_THREADS = "splice.execution.control.scanThreads";
+    private static final int DEFAULT_CONTROL_SCAN_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Whether control-side scalar aggregates over a table scan should run in batch mode. In batch mode,
+     * the scan decodes integral and floating point columns directly into primitive column vectors,
+     * and SUM, AVG, COUNT, MAX and MIN accumulate a whole vector at a time.
+     *
+     * Defaults to false
+     */
+    public static final String VECTORIZED_EXECUTION_ENABLED = "splice.execution.vectorized.enabled";
+    private static final boolean DEFAULT_VECTORIZED_EXECUTION_ENABLED = false;
+
+    /**
+     * The number of rows in each column vector when {@link #VECTORIZED_EXECUTION_ENABLED} is set.
+     *
+     * Defaults to 1024
+     */
+    public static final String VECTORIZED_BATCH_SIZE = "splice.execution.vectorized.batchSize";
+    private static final int DEFAULT_VECTORIZED_BATCH_SIZE = 1024;
+
+    /**
+     * The number of outer rows that a nested loop join over a table scan gathers before probing the inner
+     * table. The probe keys of the whole batch are deduplicated and read by a single parallel multi-range
+     * scan, rather than by opening the inner side once for every outer row. A value of 1 or less disables
+     * batching.
+     *
+     * Defaults to 256
+     */
+    public static final String NESTED_LOOP_JOIN_BATCH_SIZE = "splice.execution.nestedLoopJoin.batchSize";
+    private static final int DEFAULT_NESTED_LOOP_JOIN_BATCH_SIZE = 256;
+
     /**
      * Minimum fixed duration (in millisecomds) that should be allowed to lapse
      * before the optimizer can determine that it should stop trying to find
@@ -197,6 +304,47 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String INDEX_LOOKUP_BLOCKS = "splice.index.numConcurrentLookups";
     private static final int DEFAULT_INDEX_LOOKUP_BLOCKS = 5;
 
+    /**
+     * The latency (in milliseconds) which a single bulk fetch of index lookups should aim for.
+     *
+     * Bulk fetches are sized adaptively, between 1/16th of {@link #INDEX_BATCH_SIZE} and {@link #INDEX_BATCH_SIZE}
+     * rows: fetches which take longer than this shrink the next fetch, and fetches which take less than half as
+     * long grow it.
+     *
+     * Defaults to 50
+     */
+    public static final String INDEX_LOOKUP_TARGET_LATENCY = "splice.index.lookup.targetLatency";
+    private static final long DEFAULT_INDEX_LOOKUP_TARGET_LATENCY = 50L;
+
+    /**
+     * The maximum number of bytes which a single bulk fetch of index lookups should return. Bulk fetches
+     * of wide rows are kept below {@link #INDEX_BATCH_SIZE} rows so as to stay under this size.
+     *
+     * Defaults to 4MB
+     */
+    public static final String INDEX_LOOKUP_MAX_BATCH_BYTES = "splice.index.lookup.maxBatchBytes";
+    private static final long DEFAULT_INDEX_LOOKUP_MAX_BATCH_BYTES = 4*1024*1024L;
+
+    /**
+     * Whether newly created tables should store their rows with a field-offset table after the row's
+     * index, so that decoders can jump straight to a column rather than skipping every column in front of it.
+     * Tables which already exist keep the row format they were created with.
+     *
+     * Defaults to false
+     */
+    public static final String TABLE_FIELD_OFFSETS_ENABLED = "splice.table.fieldOffsets.enabled";
+    private static final boolean DEFAULT_TABLE_FIELD_OFFSETS_ENABLED = false;
+
+    /**
+     * Whether flushes and compactions should record the minimum and maximum value (and the null count) of
+     * each column in the metadata of the store files they write, so that scans can skip files which cannot
+     * contain a row matching their predicates, and the optimizer can account for the files which are skipped.
+     *
+     * Defaults to false
+     */
+    public static final String TABLE_ZONE_MAPS_ENABLED = "splice.table.zoneMaps.enabled";
+    private static final boolean DEFAULT_TABLE_ZONE_MAPS_ENABLED = false;
+
     public static final String PARTITIONSERVER_JMX_PORT = "hbase.regionserver.jmx.port";
     private static final int DEFAULT_PARTITIONSERVER_JMX_PORT = 10102;
 
@@ -208,7 +356,13 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.kryoPoolSize = configurationSource.getInt(KRYO_POOL_SIZE, DEFAULT_KRYO_POOL_SIZE);
         builder.indexBatchSize = configurationSource.getInt(INDEX_BATCH_SIZE, DEFAULT_INDEX_BATCH_SIZE);
         builder.indexLookupBlocks = configurationSource.getInt(INDEX_LOOKUP_BLOCKS, DEFAULT_INDEX_LOOKUP_BLOCKS);
+        builder.indexLookupTargetLatency = configurationSource.getLong(INDEX_LOOKUP_TARGET_LATENCY, DEFAULT_INDEX_LOOKUP_TARGET_LATENCY);
+        builder.indexLookupMaxBatchBytes = configurationSource.getLong(INDEX_LOOKUP_MAX_BATCH_BYTES, DEFAULT_INDEX_LOOKUP_MAX_BATCH_BYTES);
+        builder.tableFieldOffsetsEnabled = configurationSource.getBoolean(TABLE_FIELD_OFFSETS_ENABLED, DEFAULT_TABLE_FIELD_OFFSETS_ENABLED);
+        builder.tableZoneMapsEnabled = configurationSource.getBoolean(TABLE_ZONE_MAPS_ENABLED, DEFAULT_TABLE_ZONE_MAPS_ENABLED);
         builder.importMaxQuotedColumnLines = configurationSource.getInt(IMPORT_MAX_QUOTED_COLUMN_LINES, DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES);
+        builder.importParallelism = configurationSource.getInt(IMPORT_PARALLELISM, DEFAULT_IMPORT_PARALLELISM);
+        builder.importChunkSize = configurationSource.getLong(IMPORT_CHUNK_SIZE, DEFAULT_IMPORT_CHUNK_SIZE);
         builder.batchOnceBatchSize = configurationSource.getInt(BATCH_ONCE_BATCH_SIZE, DEFAULT_BATCH_ONCE_BATCH_SIZE);
         builder.partitionserverJmxPort = configurationSource.getInt(PARTITIONSERVER_JMX_PORT, DEFAULT_PARTITIONSERVER_JMX_PORT);
         builder.partitionserverPort = configurationSource.getInt(PARTITIONSERVER_PORT, DEFAULT_PARTITIONSERVER_PORT);
@@ -223,6 +377,15 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.optimizerPlanMinimumTimeout = configurationSource.getLong(OPTIMIZER_PLAN_MINIMUM_TIMEOUT, DEFAULT_OPTIMIZER_PLAN_MINIMUM_TIMEOUT);
         builder.broadcastRegionMbThreshold = configurationSource.getLong(BROADCAST_REGION_MB_THRESHOLD, DEFAULT_BROADCAST_REGION_MB_THRESHOLD);
         builder.broadcastRegionRowThreshold = configurationSource.getLong(BROADCAST_REGION_ROW_THRESHOLD, DEFAULT_BROADCAST_REGION_ROW_THRESHOLD);
+        builder.broadcastJoinOffHeap = configurationSource.getBoolean(BROADCAST_JOIN_OFF_HEAP, DEFAULT_BROADCAST_JOIN_OFF_HEAP);
+        builder.broadcastJoinMemoryBudget = configurationSource.getLong(BROADCAST_JOIN_MEMORY_BUDGET, DEFAULT_BROADCAST_JOIN_MEMORY_BUDGET);
+        builder.spillDirectory = configurationSource.getString(SPILL_DIRECTORY, System.getProperty("java.io.tmpdir"));
+        builder.controlExecutionMemoryBudget = configurationSource.getLong(CONTROL_EXECUTION_MEMORY_BUDGET, DEFAULT_CONTROL_EXECUTION_MEMORY_BUDGET);
+        builder.controlScanParallelism = configurationSource.getInt(CONTROL_SCAN_PARALLELISM, DEFAULT_CONTROL_SCAN_PARALLELISM);
+        builder.controlScanThreads = configurationSource.getInt(CONTROL_SCAN_THREADS, DEFAULT_CONTROL_SCAN_THREADS);
+        builder.vectorizedExecutionEnabled = configurationSource.getBoolean(VECTORIZED_EXECUTION_ENABLED, DEFAULT_VECTORIZED_EXECUTION_ENABLED);
+        builder.vectorizedBatchSize = configurationSource.getInt(VECTORIZED_BATCH_SIZE, DEFAULT_VECTORIZED_BATCH_SIZE);
+        builder.nestedLoopJoinBatchSize = configurationSource.getInt(NESTED_LOOP_JOIN_BATCH_SIZE, DEFAULT_NESTED_LOOP_JOIN_BATCH_SIZE);
 
         //always disable debug statements by default
         builder.debugLogStatementContext = configurationSource.getBoolean(DEBUG_LOG_STATEMENT_CONTEXT, DEFAULT_LOG_STATEMENT_CONTEXT);
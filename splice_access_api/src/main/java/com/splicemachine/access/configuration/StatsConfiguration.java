@@ -36,6 +36,17 @@ public class StatsConfiguration implements ConfigurationDefault {
     public static final String TOPK_SIZE = "splice.statistics.topKSize";
     public static final int DEFAULT_TOPK_PRECISION = 10;
 
+    /*
+     * Whether writes to base tables should maintain statistics incrementally between collections. When enabled,
+     * the write pipeline builds cardinality and frequent element sketches over the rows which are inserted into each
+     * partition, and adjusts its row count for inserts and deletes. These changes are merged into the collected
+     * statistics of the partition when the optimizer reads them, until statistics are next collected.
+     *
+     * This costs a sketch per collected column for each bulk write which contains inserts, so it is off by default.
+     */
+    public static final String INCREMENTAL_STATISTICS_ENABLED = "splice.statistics.incremental.enabled";
+    public static final boolean DEFAULT_INCREMENTAL_STATISTICS_ENABLED = false;
+
     /*
      * The size of the partition statistics cache. Partitions will be evicted when the total size
      * exceeds this threshold
@@ -134,6 +145,7 @@ public class StatsConfiguration implements ConfigurationDefault {
         builder.indexFetchSampleSize = configurationSource.getInt(INDEX_FETCH_SAMPLE_SIZE, DEFAULT_INDEX_FETCH_SAMPLE_SIZE);
         builder.topkSize = configurationSource.getInt(TOPK_SIZE, DEFAULT_TOPK_PRECISION);
         builder.cardinalityPrecision = configurationSource.getInt(CARDINALITY_PRECISION, DEFAULT_CARDINALITY_PRECISION);
+        builder.incrementalStatisticsEnabled = configurationSource.getBoolean(INCREMENTAL_STATISTICS_ENABLED, DEFAULT_INCREMENTAL_STATISTICS_ENABLED);
 
         builder.fallbackMinimumRowCount = configurationSource.getLong(FALLBACK_MINIMUM_ROW_COUNT, DEFAULT_FALLBACK_MINIMUM_ROW_COUNT);
         builder.fallbackOpencloseLatency = configurationSource.getLong(FALLBACK_OPENCLOSE_LATENCY, DEFAULT_FALLBACK_OPENCLOSE_LATENCY);
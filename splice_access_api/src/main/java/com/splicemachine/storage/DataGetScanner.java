@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.metrics.MetricFactory;
+import com.splicemachine.metrics.TimeView;
+import com.splicemachine.metrics.Timer;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A DataScanner over the (at most one) row returned by a {@link DataGet}, so that a row which is known
+ * by its key can be read by anything which reads a scanner, with a single get instead of a scanner's
+ * open, next and close.
+ *
+ * The get is issued on the first call to {@link #next(int)}. Closing the scanner does not close the partition.
+ */
+public class DataGetScanner implements DataScanner{
+    private final Partition partition;
+    private final DataGet get;
+    private final Timer readTimer;
+
+    private boolean fetched;
+    private long bytesOutput;
+    private long rowsVisited;
+
+    public DataGetScanner(Partition partition,DataGet get,MetricFactory metricFactory){
+        this.partition=partition;
+        this.get=get;
+        this.readTimer=metricFactory.newTimer();
+    }
+
+    @Override
+    @Nonnull
+    public List<DataCell> next(int limit) throws IOException{
+        if(fetched) return Collections.emptyList();
+        fetched=true;
+        readTimer.startTiming();
+        DataResult result=partition.get(get,null);
+        if(result==null || result.size()<=0){
+            readTimer.stopTiming();
+            return Collections.emptyList();
+        }
+        List<DataCell> cells=new ArrayList<>(result.size());
+        for(DataCell cell:result){
+            //results may reuse a single cell while iterating
+            cells.add(cell.getClone());
+            bytesOutput+=cell.encodedLength();
+        }
+        rowsVisited=1;
+        readTimer.tick(1);
+        return cells;
+    }
+
+    @Override
+    public void close() throws IOException{
+        //nothing to release: the get has already completed
+    }
+
+    @Override
+    public Partition getPartition(){
+        return partition;
+    }
+
+    /*Metrics reporting*/
+    @Override public TimeView getReadTime(){ return readTimer.getTime(); }
+    @Override public long getBytesOutput(){ return bytesOutput; }
+    @Override public long getRowsFiltered(){ return 0l; }
+    @Override public long getRowsVisited(){ return rowsVisited; }
+}
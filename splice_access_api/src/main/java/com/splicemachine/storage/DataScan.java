@@ -54,5 +54,10 @@ public interface DataScan extends Attributable{
 
     void returnAllVersions();
 
+    /**
+     * @return a new scan with the same range, filter, time range and attributes as this one, which
+     * can be modified without affecting this scan.
+     */
+    DataScan copy();
 
 }
@@ -46,6 +46,19 @@ public class ExpandingEncoder {
         this(10,resizeFactor);
     }
 
+    /**
+     * Encode into an existing buffer. If the encoded data outgrows {@code buffer}, the encoder
+     * moves on to a new, larger array (see {@link #getRawBuffer()}).
+     *
+     * @param buffer the buffer to encode into, starting at position 0
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public ExpandingEncoder(byte[] buffer){
+        this.buffer = buffer;
+        this.resizeFactor = 1.5f;
+        this.currentOffset = 0;
+    }
+
     public ExpandingEncoder encode(byte value){
         ensureCapacity(Encoding.encodedLength(value));
         currentOffset+=Encoding.encode(value,buffer,currentOffset);
@@ -111,6 +124,22 @@ public class ExpandingEncoder {
             return buffer;
     }
 
+    /**
+     * @return the array that the data has been encoded into, without trimming it to size. Only the first
+     * {@link #getLength()} bytes are valid.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP",justification = "Intentional")
+    public byte[] getRawBuffer(){
+        return buffer;
+    }
+
+    /**
+     * @return the number of bytes encoded so far
+     */
+    public int getLength(){
+        return currentOffset;
+    }
+
     /****************************************************************************************************************/
     /*private helper methods*/
     private void ensureCapacity(int requiredLength) {
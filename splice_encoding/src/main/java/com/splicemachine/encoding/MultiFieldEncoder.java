@@ -225,6 +225,24 @@ public class MultiFieldEncoder {
         return data;
     }
 
+    /**
+     * Compute where each field starts within the array returned by {@link #build()}.
+     *
+     * @param offsets the destination for the offsets. Must hold at least one entry for each encoded field
+     * @return the number of fields encoded so far
+     */
+    public int fieldOffsets(int[] offsets){
+        int offset=0;
+        for(int i=0;i<currentPos;i++){
+            offsets[i] = offset;
+            byte[] src = fields[i];
+            if(src!=null)
+                offset+=src.length;
+            offset++; //the terminator
+        }
+        return currentPos;
+    }
+
     public void mark() {
         markedPos = currentPos;
         markedSize = currentSize;
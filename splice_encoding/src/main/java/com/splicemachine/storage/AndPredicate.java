@@ -95,6 +95,17 @@ public class AndPredicate implements Predicate{
         return true;
     }
 
+    @Override
+    public boolean mayMatch(ZoneMap zoneMap) {
+        Object[] buffer = ands.buffer;
+        int iBuffer = ands.size();
+        for (int i = 0; i < iBuffer; i++) {
+            if(!((Predicate)buffer[i]).mayMatch(zoneMap))
+                return false;
+        }
+        return true;
+    }
+
     @Override
     public boolean checkAfter() {
     	Object[] buffer = ands.buffer;
@@ -15,6 +15,8 @@
 
 package com.splicemachine.storage;
 
+import java.util.Arrays;
+
 /**
  * A Predicate that compares Char values.
  * <p/>
@@ -59,6 +61,17 @@ public class CharValuePredicate extends ValuePredicate{
         return super.doComparison(data,offset,adjustedWhitespaceLength);
     }
 
+    @Override
+    protected boolean rangeMayMatch(byte[] min,byte[] max){
+        /*
+         * Trailing whitespace is ignored, so a value may compare lower than it is stored. It can't
+         * drop below its first compareValue.length bytes though, so those bound it from below.
+         */
+        if(min.length>compareValue.length)
+            min=Arrays.copyOf(min,compareValue.length);
+        return super.rangeMayMatch(min,max);
+    }
+
     @Override
     public byte[] toBytes(){
         return super.toBytes();
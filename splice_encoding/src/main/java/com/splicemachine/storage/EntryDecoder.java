@@ -39,9 +39,19 @@ public class EntryDecoder implements Supplier<MultiFieldDecoder> {
     /* Just the BitIndex bytes from the last set of bytes we were decoding */
     private ByteSlice lastIndexData;
 
-    /* Position within currentData of the first delimiter (end of BitIndex)  */
+    /* Position within currentData of the first field (just past the BitIndex and the field-offset table, if any) */
     private int dataOffset;
 
+    /*
+     * Whether the current entry carries a field-offset table, and if so where the table starts within
+     * currentData and how many bytes each offset takes up.
+     */
+    private boolean hasFieldOffsets;
+    private int offsetTableStart;
+    private int offsetWidth;
+    /* The position of each field among the encoded fields, built lazily for the current BitIndex */
+    private int[] fieldRanks;
+
     private BitIndex bitIndex;
     private MultiFieldDecoder decoder;
 
@@ -73,28 +83,35 @@ public class EntryDecoder implements Supplier<MultiFieldDecoder> {
         //find separator byte
         dataOffset = currentData.find((byte) 0x00, 0);
 
-        if (lastIndexData.equals(currentData, dataOffset)) {
-            dataOffset++;
-            return;
-        }
-
         int offset = currentData.offset();
         byte[] data = currentData.array();
-
-        //build a new bitIndex from the data
-        byte headerByte = data[offset];
-        if ((headerByte & 0x80) != 0) {
-            if ((headerByte & 0x40) != 0) {
-                bitIndex = BitIndexing.compressedBitMap(data, offset, dataOffset);
+        if (!lastIndexData.equals(currentData, dataOffset)) {
+            //build a new bitIndex from the data
+            byte headerByte = data[offset];
+            if ((headerByte & 0x80) != 0) {
+                if ((headerByte & 0x40) != 0) {
+                    bitIndex = BitIndexing.compressedBitMap(data, offset, dataOffset);
+                } else {
+                    bitIndex = BitIndexing.uncompressedBitMap(data, offset, dataOffset);
+                }
             } else {
-                bitIndex = BitIndexing.uncompressedBitMap(data, offset, dataOffset);
+                //sparse index
+                bitIndex = BitIndexing.sparseBitMap(data, offset, dataOffset);
             }
-        } else {
-            //sparse index
-            bitIndex = BitIndexing.sparseBitMap(data, offset, dataOffset);
+            lastIndexData.set(data, offset, dataOffset);
+            fieldRanks = null;
         }
-        lastIndexData.set(data, offset, dataOffset);
+        /*
+         * An empty index has no header byte (the separator comes first), so it can never carry
+         * the field-offset bit
+         */
+        hasFieldOffsets = dataOffset > 0 && (data[offset] & EntryEncoder.FIELD_OFFSETS_BIT) != 0;
         dataOffset++;
+        if (hasFieldOffsets) {
+            offsetWidth = data[offset + dataOffset];
+            offsetTableStart = dataOffset + 1;
+            dataOffset = offsetTableStart + offsetWidth * (bitIndex.cardinality() - 1);
+        }
     }
 
     public boolean isSet(int position) {
@@ -120,6 +137,13 @@ public class EntryDecoder implements Supplier<MultiFieldDecoder> {
 
     public byte[] getData(int position) throws IOException {
         if (!isSet(position)) throw new NoSuchElementException();
+        if (hasFieldOffsets) {
+            int rank = fieldRank(position);
+            int start = fieldStart(rank);
+            byte[] retData = new byte[fieldEnd(rank) - start];
+            System.arraycopy(currentData.array(), currentData.offset() + start, retData, 0, retData.length);
+            return retData;
+        }
 
         //get number of fields to skip
         int fieldsToSkip = bitIndex.cardinality(position);
@@ -187,6 +211,45 @@ public class EntryDecoder implements Supplier<MultiFieldDecoder> {
         return isNull;
     }
 
+    /**
+     * @return true if the current entry carries a field-offset table, so that
+     * {@link #seekTo(MultiFieldDecoder, int)} and {@link #fieldSlice(int, ByteSlice)} can jump straight to
+     * a field.
+     */
+    public boolean hasFieldOffsets() {
+        return hasFieldOffsets;
+    }
+
+    /**
+     * Position {@code decoder} at the start of the field at {@code position}, without skipping over
+     * the fields in front of it.
+     *
+     * @param decoder the decoder for the current entry
+     * @param position the position of the field. Must be set in the index
+     * @throws IllegalStateException if the current entry has no field-offset table
+     */
+    public void seekTo(MultiFieldDecoder decoder, int position) {
+        if (!hasFieldOffsets)
+            throw new IllegalStateException("Entry does not have a field-offset table");
+        decoder.seek(currentData.offset() + fieldStart(fieldRank(position)));
+    }
+
+    /**
+     * Point {@code destination} at the bytes of the field at {@code position}, without skipping over
+     * the fields in front of it. An empty field results in an empty slice.
+     *
+     * @param position the position of the field. Must be set in the index
+     * @param destination the slice to point at the field
+     * @throws IllegalStateException if the current entry has no field-offset table
+     */
+    public void fieldSlice(int position, ByteSlice destination) {
+        if (!hasFieldOffsets)
+            throw new IllegalStateException("Entry does not have a field-offset table");
+        int rank = fieldRank(position);
+        int start = fieldStart(rank);
+        destination.set(currentData.array(), currentData.offset() + start, fieldEnd(rank) - start);
+    }
+
     public ByteBuffer nextAsBuffer(MultiFieldDecoder decoder, int position) {
         int offset = decoder.offset();
         seekForward(decoder, position);
@@ -225,6 +288,43 @@ public class EntryDecoder implements Supplier<MultiFieldDecoder> {
         rowSlice.set(mutationDecoder.array(), offset, length);
     }
 
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * The number of encoded fields in front of the field at position. Rows of the same shape
+     * share a BitIndex, so we compute the ranks once per index rather than once per row.
+     */
+    private int fieldRank(int position) {
+        if (fieldRanks == null) {
+            fieldRanks = new int[bitIndex.length()];
+            int rank = 0;
+            for (int i = bitIndex.nextSetBit(0); i >= 0; i = bitIndex.nextSetBit(i + 1)) {
+                fieldRanks[i] = rank++;
+            }
+        }
+        return fieldRanks[position];
+    }
+
+    /* The start of the field with the specified rank, relative to the start of currentData */
+    private int fieldStart(int rank) {
+        if (rank == 0) return dataOffset;
+        byte[] data = currentData.array();
+        int pos = currentData.offset() + offsetTableStart + (rank - 1) * offsetWidth;
+        int fieldOffset = 0;
+        for (int i = 0; i < offsetWidth; i++) {
+            fieldOffset = (fieldOffset << 8) | (data[pos + i] & 0xFF);
+        }
+        return dataOffset + fieldOffset;
+    }
+
+    /* The end (exclusive, before the terminator) of the field with the specified rank, relative to the start of currentData */
+    private int fieldEnd(int rank) {
+        if (rank + 1 < bitIndex.cardinality())
+            return fieldStart(rank + 1) - 1;
+        return currentData.length();
+    }
+
     @Override
     public MultiFieldDecoder get() {
         try {
@@ -41,14 +41,22 @@ public class EntryEncoder {
      * The bit to indicate whether or not the data has been compressed.
      */
     private static final byte COMPRESSED_DATA_BIT = 0x20;
+    /*
+     * The bit to indicate that a field-offset table follows the index. None of the index formats
+     * use this bit of the header byte, so it is set on top of whichever index is written.
+     */
+    static final byte FIELD_OFFSETS_BIT = 0x10;
 
     private MultiFieldEncoder encoder;
     private final KryoPool kryoPool;
+    private final boolean writeFieldOffsets;
+    private int[] fieldOffsets;
 
-    private EntryEncoder(KryoPool kryoPool,BitIndex bitIndex){
+    private EntryEncoder(KryoPool kryoPool,BitIndex bitIndex,boolean writeFieldOffsets){
         this.bitIndex = bitIndex;
         this.encoder = MultiFieldEncoder.create(bitIndex.cardinality());
         this.kryoPool = kryoPool;
+        this.writeFieldOffsets = writeFieldOffsets;
     }
 
     public MultiFieldEncoder getEntryEncoder(){
@@ -57,9 +65,34 @@ public class EntryEncoder {
         return encoder;
     }
 
+    /**
+     * Encode the entry.
+     *
+     * When this encoder writes field offsets, the entry is laid out as
+     *
+     * [index][0x00][width][offsets][fields]
+     *
+     * where the header byte of the index carries {@link #FIELD_OFFSETS_BIT}, {@code width} is the number of bytes
+     * (1, 2 or 4) in each offset, and {@code offsets} holds the big-endian start of every field after
+     * the first, relative to the start of the fields. The fields themselves are encoded exactly as
+     * in an entry without offsets, which is laid out as
+     *
+     * [index][0x00][fields]
+     *
+     * @return the encoded entry
+     * @throws IOException if something goes wrong encoding the entry
+     */
     public byte[] encode() throws IOException {
         byte[] finalData = encoder.build();
         byte[] bitData = bitIndex.encode();
+        int numFields = bitIndex.cardinality();
+        if(writeFieldOffsets && numFields>0){
+            if(fieldOffsets==null || fieldOffsets.length<numFields)
+                fieldOffsets = new int[numFields];
+            //an encoder which was filled short of the index can't describe its fields, so write the plain format
+            if(encoder.fieldOffsets(fieldOffsets)==numFields)
+                return encodeWithOffsets(bitData,finalData,numFields);
+        }
         byte[] entry = new byte[bitData.length+finalData.length+1];
         System.arraycopy(bitData, 0, entry, 0, bitData.length);
         entry[bitData.length] = 0;
@@ -148,13 +181,45 @@ public class EntryEncoder {
     }
 
     public static EntryEncoder create(KryoPool kryoPool,int numCols, BitSet setCols,BitSet scalarFields,BitSet floatFields,BitSet doubleFields){
+        return create(kryoPool,numCols,setCols,scalarFields,floatFields,doubleFields,false);
+    }
+
+    public static EntryEncoder create(KryoPool kryoPool,int numCols, BitSet setCols,BitSet scalarFields,BitSet floatFields,BitSet doubleFields,
+                                      boolean writeFieldOffsets){
         //TODO -sf- return all full stuff as well
         BitIndex indexToUse = BitIndexing.getBestIndex(setCols, scalarFields, floatFields, doubleFields);
-        return new EntryEncoder(kryoPool,indexToUse);
+        return new EntryEncoder(kryoPool,indexToUse,writeFieldOffsets);
     }
 
     public static EntryEncoder create(KryoPool kryoPool,BitIndex newIndex){
-        return new EntryEncoder(kryoPool,newIndex);
+        return new EntryEncoder(kryoPool,newIndex,false);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private byte[] encodeWithOffsets(byte[] bitData,byte[] finalData,int numFields){
+        int width;
+        int lastOffset = fieldOffsets[numFields-1];
+        if(lastOffset<=0xFF) width = 1;
+        else if(lastOffset<=0xFFFF) width = 2;
+        else width = 4;
+
+        int tableSize = 1+width*(numFields-1);
+        byte[] entry = new byte[bitData.length+1+tableSize+finalData.length];
+        System.arraycopy(bitData,0,entry,0,bitData.length);
+        entry[0] |= FIELD_OFFSETS_BIT;
+        int pos = bitData.length;
+        entry[pos++] = 0;
+        entry[pos++] = (byte)width;
+        //the first field always starts at 0, so we don't bother recording it
+        for(int i=1;i<numFields;i++){
+            int offset = fieldOffsets[i];
+            for(int b=width-1;b>=0;b--){
+                entry[pos++] = (byte)(offset>>>(8*b));
+            }
+        }
+        System.arraycopy(finalData,0,entry,pos,finalData.length);
+        return entry;
     }
 
 
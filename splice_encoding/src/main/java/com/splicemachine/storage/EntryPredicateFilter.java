@@ -19,6 +19,7 @@ import com.carrotsearch.hppc.ObjectArrayList;
 import com.google.common.base.Supplier;
 import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.index.BitIndex;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.Pair;
 import java.io.IOException;
@@ -35,6 +36,7 @@ public class EntryPredicateFilter {
     private BitSet predicateColumns;
 
 		private long rowsFiltered = 0l;
+		private ByteSlice fieldSlice;
 
 		public static EntryPredicateFilter emptyPredicate(){ return EMPTY_PREDICATE; }
 
@@ -109,6 +111,8 @@ public class EntryPredicateFilter {
 
 
 		public boolean match(EntryDecoder entry,EntryAccumulator accumulator) throws IOException {
+				if(entry.hasFieldOffsets())
+						return matchFieldOffsets(entry,accumulator);
 				return match(entry.getCurrentIndex(),entry, accumulator);
     }
 
@@ -208,6 +212,41 @@ public class EntryPredicateFilter {
         this.valuePredicates = valuePredicates;
     }
 
+		/*
+		 * Same as match(Indexed,Supplier,EntryAccumulator), but for entries with a field-offset table: rather
+		 * than skipping over every field that we don't want, we jump straight to the ones we do.
+		 */
+		private boolean matchFieldOffsets(EntryDecoder entry,EntryAccumulator accumulator){
+				BitIndex index = entry.getCurrentIndex();
+				BitSet remainingFields = accumulator.getRemainingFields();
+				if(fieldSlice==null)
+						fieldSlice = new ByteSlice();
+				for(int encodedPos =index.nextSetBit(0);
+						remainingFields.cardinality()>0 && encodedPos>=0&&encodedPos<=remainingFields.length();
+						encodedPos=index.nextSetBit(encodedPos + 1)){
+						if(!remainingFields.get(encodedPos)) continue;
+
+						entry.fieldSlice(encodedPos,fieldSlice);
+						byte[] array = fieldSlice.array();
+						int offset = fieldSlice.offset();
+						int limit = fieldSlice.length();
+
+						Object[] buffer = valuePredicates.buffer;
+						int bufferSize = valuePredicates.size();
+						if(bufferSize>0){
+								int predicatePosition = index.getPredicatePosition(encodedPos);
+								for (int i =0; i<bufferSize; i++) {
+										if(((Predicate)buffer[i]).applies(predicatePosition) && !((Predicate)buffer[i]).match(predicatePosition,array, offset,limit)){
+												rowsFiltered++;
+												return false;
+										}
+								}
+						}
+						accumulate(index, encodedPos, accumulator, array, offset, limit);
+				}
+				return true;
+		}
+
     private void skipField(MultiFieldDecoder decoder, int position, Indexed index) {
 				if(index.isScalarType(position)){
 						decoder.skipLong();
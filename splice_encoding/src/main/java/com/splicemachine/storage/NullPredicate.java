@@ -96,6 +96,21 @@ public class NullPredicate implements Predicate{
         }
     }
 
+    @Override
+    public boolean mayMatch(ZoneMap zoneMap) {
+        if(!zoneMap.hasRange(column)) return true; //we know nothing about this column
+        if(isNullNumericalComparison) return false;
+        if(isDoubleColumn || isFloatColumn){
+            //nulls are encoded as values of the wrong length, which the zone map doesn't track
+            return true;
+        }
+        if(filterIfMissing){
+            byte[] max = zoneMap.maxValue(column);
+            return max==null || max.length>0;
+        }else
+            return zoneMap.mayContainNulls(column);
+    }
+
     @Override
     public boolean checkAfter() {
         /*
@@ -117,6 +117,17 @@ public class OrPredicate implements Predicate {
         return visitedCount<ors.size();
     }
 
+    @Override
+    public boolean mayMatch(ZoneMap zoneMap) {
+        Object[] buffer = ors.buffer;
+        int iBuffer = ors.size();
+        for (int i = 0; i < iBuffer; i++) {
+            if(((Predicate)buffer[i]).mayMatch(zoneMap))
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public boolean checkAfter() {
     	Object[] buffer = ors.buffer;
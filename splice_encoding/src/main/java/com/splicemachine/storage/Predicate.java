@@ -27,6 +27,13 @@ public interface Predicate{
 
     boolean match(int column,byte[] data, int offset, int length);
 
+    /**
+     * @param zoneMap a summary of the values held by a set of rows
+     * @return false if none of the rows summarized by {@code zoneMap} can match this predicate. When
+     * in doubt, implementations must return true.
+     */
+    boolean mayMatch(ZoneMap zoneMap);
+
     /**
      * @return true if this predicate should ALSO be applied after the row is fully composed.
      */
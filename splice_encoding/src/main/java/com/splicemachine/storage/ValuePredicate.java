@@ -118,6 +118,56 @@ public class ValuePredicate implements Predicate{
         }
     }
 
+    @Override
+    public boolean mayMatch(ZoneMap zoneMap){
+        if(!zoneMap.hasRange(column)) return true; //we know nothing about this column
+        /*
+         * Unless we remove null entries, a row which is missing the column is never checked against
+         * this predicate, and so passes it
+         */
+        if(zoneMap.mayContainNulls(column) && (!removeNullEntries || compareValue.length==0)) return true;
+        return rangeMayMatch(zoneMap.minValue(column),zoneMap.maxValue(column));
+    }
+
+    /**
+     * @param min the smallest encoded value in a set of rows
+     * @param max the largest encoded value in a set of rows, or {@code null} if it is unknown
+     * @return true if some value between {@code min} and {@code max} may match this predicate
+     */
+    protected boolean rangeMayMatch(byte[] min,byte[] max){
+        /*
+         * The range is in encoded order, so for descending columns the sense of the comparison
+         * is reversed
+         */
+        CompareOp op=compareOp;
+        if(desc){
+            switch(compareOp){
+                case LESS: op=CompareOp.GREATER; break;
+                case LESS_OR_EQUAL: op=CompareOp.GREATER_OR_EQUAL; break;
+                case GREATER_OR_EQUAL: op=CompareOp.LESS_OR_EQUAL; break;
+                case GREATER: op=CompareOp.LESS; break;
+            }
+        }
+        int minCompare=Bytes.BASE_COMPARATOR.compare(min,0,min.length,compareValue,0,compareValue.length);
+        int maxCompare=max==null?1:Bytes.BASE_COMPARATOR.compare(max,0,max.length,compareValue,0,compareValue.length);
+        switch(op){
+            case LESS:
+                return minCompare<0;
+            case LESS_OR_EQUAL:
+                return minCompare<=0;
+            case EQUAL:
+                return minCompare<=0 && maxCompare>=0;
+            case NOT_EQUAL:
+                return minCompare!=0 || maxCompare!=0;
+            case GREATER_OR_EQUAL:
+                return maxCompare>=0;
+            case GREATER:
+                return maxCompare>0;
+            default:
+                return true;
+        }
+    }
+
     protected int doComparison(byte[] data,int offset,int length){
         int baseCompare=Bytes.BASE_COMPARATOR.compare(compareValue,0,compareValue.length,data,offset,length);
         if(desc)
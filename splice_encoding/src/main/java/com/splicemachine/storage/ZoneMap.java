@@ -0,0 +1,281 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.utils.ByteSlice;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A summary of the values held by a set of packed rows (typically the rows of a single store file): for each
+ * encoded column, the smallest and largest encoded value, and how many of the rows hold a value at all.
+ *
+ * Because the values are compared in their encoded form, the summary can be built without knowing
+ * anything about the types of the columns. A zone map is used to answer a single question, namely
+ * "could any of these rows match this EntryPredicateFilter?" (see {@link #mayMatch(EntryPredicateFilter)}).
+ * If the answer is no, then the rows don't need to be read at all.
+ *
+ * The summary is always conservative. A column which never holds a value is treated as unknown rather than
+ * as always null, since the predicate may refer to a column that is not stored in the row at all (e.g. a
+ * primary key column). Values longer than {@link #MAX_VALUE_LENGTH} are truncated when serialized; a truncated
+ * minimum is still a lower bound, but a truncated maximum is not, so in that case the upper bound is dropped.
+ *
+ * This class is not thread safe.
+ */
+public class ZoneMap{
+    public static final int MAX_VALUE_LENGTH=256;
+    private static final byte FORMAT_VERSION=0x01;
+
+    private long rowCount;
+    private long[] nonNullCounts;
+    private byte[][] minValues;
+    private byte[][] maxValues;
+
+    private EntryDecoder entryDecoder;
+    private ByteSlice fieldSlice;
+
+    public ZoneMap(){
+        this(0l,new long[0],new byte[0][],new byte[0][]);
+    }
+
+    private ZoneMap(long rowCount,long[] nonNullCounts,byte[][] minValues,byte[][] maxValues){
+        this.rowCount=rowCount;
+        this.nonNullCounts=nonNullCounts;
+        this.minValues=minValues;
+        this.maxValues=maxValues;
+    }
+
+    /**
+     * Add a packed row to the summary.
+     *
+     * @param value the encoded row
+     * @param offset the start of the row in {@code value}
+     * @param length the length of the row
+     * @throws IOException if the row cannot be decoded
+     */
+    public void update(byte[] value,int offset,int length) throws IOException{
+        rowCount++;
+        if(length<=0) return; //an empty row holds no values
+
+        if(entryDecoder==null){
+            entryDecoder=new EntryDecoder();
+            fieldSlice=new ByteSlice();
+        }
+        entryDecoder.set(value,offset,length);
+        BitIndex index=entryDecoder.getCurrentIndex();
+        int end=offset+length;
+        if(entryDecoder.hasFieldOffsets()){
+            for(int pos=index.nextSetBit(0);pos>=0;pos=index.nextSetBit(pos+1)){
+                entryDecoder.fieldSlice(pos,fieldSlice);
+                updateColumn(pos,fieldSlice.array(),fieldSlice.offset(),fieldSlice.length());
+            }
+        }else{
+            MultiFieldDecoder decoder=entryDecoder.getEntryDecoder();
+            for(int pos=index.nextSetBit(0);pos>=0;pos=index.nextSetBit(pos+1)){
+                int fieldOffset=decoder.offset();
+                if(fieldOffset>=end) break; //the index promised more fields than were written
+                entryDecoder.seekForward(decoder,pos);
+                int fieldEnd=Math.min(decoder.offset()-1,end);
+                updateColumn(pos,decoder.array(),fieldOffset,Math.max(fieldEnd-fieldOffset,0));
+            }
+        }
+    }
+
+    /**
+     * @return the number of rows summarized
+     */
+    public long rowCount(){
+        return rowCount;
+    }
+
+    /**
+     * @param column the encoded position of the column
+     * @return the number of rows which hold a value (possibly an empty one) for the column
+     */
+    public long nonNullCount(int column){
+        return column<nonNullCounts.length?nonNullCounts[column]:0l;
+    }
+
+    /**
+     * @param column the encoded position of the column
+     * @return true if the summary knows the range of the column. If false, nothing can be
+     * said about the values of the column in these rows.
+     */
+    public boolean hasRange(int column){
+        return nonNullCount(column)>0;
+    }
+
+    /**
+     * @param column the encoded position of the column. Must have a range
+     * @return true if at least one of the rows is null (or empty) in the column
+     */
+    public boolean mayContainNulls(int column){
+        return nonNullCount(column)<rowCount || minValues[column].length==0;
+    }
+
+    /**
+     * @param column the encoded position of the column. Must have a range
+     * @return the smallest encoded value of the column
+     */
+    public byte[] minValue(int column){
+        return minValues[column];
+    }
+
+    /**
+     * @param column the encoded position of the column. Must have a range
+     * @return the largest encoded value of the column, or {@code null} if the largest value is not known
+     */
+    public byte[] maxValue(int column){
+        return maxValues[column];
+    }
+
+    /**
+     * @param predicateFilter the filter to check
+     * @return false if none of the summarized rows can possibly match {@code predicateFilter}, true
+     * if some might.
+     */
+    public boolean mayMatch(EntryPredicateFilter predicateFilter){
+        Object[] buffer=predicateFilter.getValuePredicates().buffer;
+        int size=predicateFilter.getValuePredicates().size();
+        for(int i=0;i<size;i++){
+            if(!((Predicate)buffer[i]).mayMatch(this)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Format is as follows:
+     *
+     * 1-byte format version
+     * 8-byte row count
+     * 4-byte column count
+     *
+     * followed by, for each column,
+     *
+     * 8-byte non-null count
+     *
+     * and, if the non-null count is positive,
+     *
+     * 4-byte min length, n-byte min value
+     * 4-byte max length (-1 if there is no upper bound), n-byte max value
+     */
+    public byte[] toBytes(){
+        int numColumns=nonNullCounts.length;
+        int size=1+8+4+8*numColumns;
+        for(int i=0;i<numColumns;i++){
+            if(nonNullCounts[i]<=0) continue;
+            size+=4+Math.min(minValues[i].length,MAX_VALUE_LENGTH)+4;
+            if(maxValues[i]!=null && maxValues[i].length<=MAX_VALUE_LENGTH)
+                size+=maxValues[i].length;
+        }
+        byte[] data=new byte[size];
+        data[0]=FORMAT_VERSION;
+        Bytes.longToBytes(rowCount,data,1);
+        Bytes.intToBytes(numColumns,data,9);
+        int pos=13;
+        for(int i=0;i<numColumns;i++){
+            Bytes.longToBytes(nonNullCounts[i],data,pos);
+            pos+=8;
+            if(nonNullCounts[i]<=0) continue;
+
+            byte[] min=minValues[i];
+            int minLength=Math.min(min.length,MAX_VALUE_LENGTH);
+            Bytes.intToBytes(minLength,data,pos);
+            System.arraycopy(min,0,data,pos+4,minLength);
+            pos+=4+minLength;
+
+            byte[] max=maxValues[i];
+            if(max==null || max.length>MAX_VALUE_LENGTH){
+                Bytes.intToBytes(-1,data,pos);
+                pos+=4;
+            }else{
+                Bytes.intToBytes(max.length,data,pos);
+                System.arraycopy(max,0,data,pos+4,max.length);
+                pos+=4+max.length;
+            }
+        }
+        return data;
+    }
+
+    public static ZoneMap fromBytes(byte[] data){
+        if(data[0]!=FORMAT_VERSION)
+            throw new IllegalArgumentException("Unknown zone map format "+data[0]);
+        long rowCount=Bytes.bytesToLong(data,1);
+        int numColumns=Bytes.bytesToInt(data,9);
+        long[] nonNullCounts=new long[numColumns];
+        byte[][] minValues=new byte[numColumns][];
+        byte[][] maxValues=new byte[numColumns][];
+        int pos=13;
+        for(int i=0;i<numColumns;i++){
+            nonNullCounts[i]=Bytes.bytesToLong(data,pos);
+            pos+=8;
+            if(nonNullCounts[i]<=0) continue;
+
+            int minLength=Bytes.bytesToInt(data,pos);
+            minValues[i]=Arrays.copyOfRange(data,pos+4,pos+4+minLength);
+            pos+=4+minLength;
+
+            int maxLength=Bytes.bytesToInt(data,pos);
+            pos+=4;
+            if(maxLength>=0){
+                maxValues[i]=Arrays.copyOfRange(data,pos,pos+maxLength);
+                pos+=maxLength;
+            }
+        }
+        return new ZoneMap(rowCount,nonNullCounts,minValues,maxValues);
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb=new StringBuilder("ZoneMap{rowCount=").append(rowCount);
+        for(int i=0;i<nonNullCounts.length;i++){
+            if(nonNullCounts[i]<=0) continue;
+            sb.append(", ").append(i).append("={nonNullCount=").append(nonNullCounts[i])
+                    .append(", min=").append(Bytes.toHex(minValues[i]))
+                    .append(", max=").append(maxValues[i]==null?"unbounded":Bytes.toHex(maxValues[i]))
+                    .append('}');
+        }
+        return sb.append('}').toString();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void updateColumn(int column,byte[] data,int offset,int length){
+        if(column>=nonNullCounts.length){
+            int newSize=Math.max(column+1,2*nonNullCounts.length);
+            nonNullCounts=Arrays.copyOf(nonNullCounts,newSize);
+            minValues=Arrays.copyOf(minValues,newSize);
+            maxValues=Arrays.copyOf(maxValues,newSize);
+        }
+        if(nonNullCounts[column]==0){
+            byte[] value=Arrays.copyOfRange(data,offset,offset+length);
+            minValues[column]=value;
+            maxValues[column]=value;
+        }else{
+            byte[] min=minValues[column];
+            if(Bytes.BASE_COMPARATOR.compare(data,offset,length,min,0,min.length)<0)
+                minValues[column]=Arrays.copyOfRange(data,offset,offset+length);
+            byte[] max=maxValues[column];
+            if(Bytes.BASE_COMPARATOR.compare(data,offset,length,max,0,max.length)>0)
+                maxValues[column]=Arrays.copyOfRange(data,offset,offset+length);
+        }
+        nonNullCounts[column]++;
+    }
+}
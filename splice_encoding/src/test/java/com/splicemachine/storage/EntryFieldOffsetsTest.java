@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.ObjectArrayList;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Tests for entries which are encoded with a field-offset table.
+ */
+public class EntryFieldOffsetsTest {
+    private static final KryoPool defaultPool = new KryoPool(100);
+    private static final int NUM_COLS = 150;
+
+    @Test
+    public void fieldsMatchTheEntryWithoutOffsets() throws Exception {
+        byte[] plain = encode(false,1,3);
+        byte[] withOffsets = encode(true,1,3);
+
+        EntryDecoder plainDecoder = new EntryDecoder(plain);
+        EntryDecoder offsetDecoder = new EntryDecoder(withOffsets);
+        Assert.assertFalse(plainDecoder.hasFieldOffsets());
+        Assert.assertTrue(offsetDecoder.hasFieldOffsets());
+        Assert.assertEquals("Indices differ!",plainDecoder.getCurrentIndex(),offsetDecoder.getCurrentIndex());
+
+        MultiFieldDecoder plainFields = plainDecoder.getEntryDecoder();
+        ByteSlice slice = new ByteSlice();
+        for(int i=0;i<NUM_COLS;i++){
+            if(!isPresent(i)){
+                Assert.assertFalse("Column "+i+" should not be set",offsetDecoder.isSet(i));
+                continue;
+            }
+            //walk the plain entry by type, since scalars and doubles may contain zeros
+            ByteBuffer buffer = plainDecoder.nextAsBuffer(plainFields,i);
+            byte[] expected = new byte[buffer.remaining()];
+            buffer.get(expected);
+            Assert.assertArrayEquals("Incorrect data for column "+i,expected,offsetDecoder.getData(i));
+            offsetDecoder.fieldSlice(i,slice);
+            Assert.assertArrayEquals("Incorrect slice for column "+i,expected,slice.getByteCopy());
+        }
+    }
+
+    @Test
+    public void sequentialDecodingIgnoresTheOffsets() throws Exception {
+        EntryDecoder decoder = new EntryDecoder(encode(true,1,3));
+        MultiFieldDecoder fieldDecoder = decoder.getEntryDecoder();
+        for(int i=0;i<NUM_COLS;i++){
+            if(!isPresent(i)) continue;
+            assertDecodes(i,1,3,fieldDecoder);
+        }
+    }
+
+    @Test
+    public void canSeekBackwardsAndForwards() throws Exception {
+        EntryDecoder decoder = new EntryDecoder(encode(true,7,3));
+        MultiFieldDecoder fieldDecoder = decoder.getEntryDecoder();
+        int[] positions = new int[]{149,2,148,0,75,76,1};
+        for(int position:positions){
+            decoder.seekTo(fieldDecoder,position);
+            assertDecodes(position,7,3,fieldDecoder);
+        }
+    }
+
+    @Test
+    public void wideRowsUseWiderOffsets() throws Exception {
+        //long strings push the later fields past 64K, so every offset takes 4 bytes
+        byte[] withOffsets = encode(true,1,2000);
+        Assert.assertTrue("Row is not wide enough!",withOffsets.length>0xFFFF);
+        EntryDecoder decoder = new EntryDecoder(withOffsets);
+        MultiFieldDecoder fieldDecoder = decoder.getEntryDecoder();
+        for(int i=NUM_COLS-1;i>=0;i--){
+            if(!isPresent(i)) continue;
+            decoder.seekTo(fieldDecoder,i);
+            assertDecodes(i,1,2000,fieldDecoder);
+        }
+    }
+
+    @Test
+    public void decoderSwitchesBetweenFormats() throws Exception {
+        EntryDecoder decoder = new EntryDecoder();
+        for(int row=0;row<10;row++){
+            boolean offsets = row%2==0;
+            decoder.set(encode(offsets,row,3));
+            Assert.assertEquals(offsets,decoder.hasFieldOffsets());
+
+            MultiFieldDecoder fieldDecoder = decoder.getEntryDecoder();
+            if(offsets)
+                decoder.seekTo(fieldDecoder,NUM_COLS-1);
+            else{
+                for(int i=decoder.getCurrentIndex().nextSetBit(0);i>=0 && i<NUM_COLS-1;i=decoder.getCurrentIndex().nextSetBit(i+1)){
+                    decoder.seekForward(fieldDecoder,i);
+                }
+            }
+            assertDecodes(NUM_COLS-1,row,3,fieldDecoder);
+        }
+    }
+
+    @Test
+    public void predicateFilterAccumulatesTheSameRow() throws Exception {
+        BitSet fieldsToReturn = new BitSet(NUM_COLS);
+        fieldsToReturn.set(2);
+        fieldsToReturn.set(120);
+        fieldsToReturn.set(147);
+        fieldsToReturn.set(149);
+        //column 147 is a scalar, so its value is 147*1000+seed
+        Predicate predicate = new ValuePredicate(CompareOp.EQUAL,147,Encoding.encode(147*1000L+5),true,false);
+
+        byte[] expected = accumulate(fieldsToReturn,predicate,encode(false,5,3));
+        Assert.assertNotNull("Plain row should match",expected);
+        byte[] actual = accumulate(fieldsToReturn,predicate,encode(true,5,3));
+        Assert.assertArrayEquals("Incorrect accumulated row!",expected,actual);
+
+        Assert.assertNull("Row should not match",accumulate(fieldsToReturn,predicate,encode(true,6,3)));
+    }
+
+    @Test
+    public void shortEncoderWritesThePlainFormat() throws Exception {
+        BitSet setCols = new BitSet();
+        setCols.set(0,3);
+        BitSet scalarFields = new BitSet();
+        scalarFields.set(0,3);
+        EntryEncoder encoder = EntryEncoder.create(defaultPool,3,setCols,scalarFields,new BitSet(),new BitSet(),true);
+        MultiFieldEncoder fieldEncoder = encoder.getEntryEncoder();
+        fieldEncoder.encodeNext(1);
+        fieldEncoder.encodeNext(2);
+
+        EntryDecoder decoder = new EntryDecoder(encoder.encode());
+        Assert.assertFalse(decoder.hasFieldOffsets());
+        Assert.assertEquals(2,Encoding.decodeInt(decoder.getData(1)));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static boolean isPresent(int column){
+        return column%10!=3;
+    }
+
+    /*
+     * Scalars carry column*1000+seed, doubles column/4+seed and strings are made of
+     * stringLength repetitions of the column's letter
+     */
+    private static byte[] encode(boolean fieldOffsets,int seed,int stringLength) throws Exception {
+        BitSet setCols = new BitSet(NUM_COLS);
+        BitSet scalarFields = new BitSet(NUM_COLS);
+        BitSet doubleFields = new BitSet(NUM_COLS);
+        for(int i=0;i<NUM_COLS;i++){
+            if(!isPresent(i)) continue;
+            setCols.set(i);
+            if(i%3==0) scalarFields.set(i);
+            else if(i%3==1) doubleFields.set(i);
+        }
+        EntryEncoder encoder = EntryEncoder.create(defaultPool,NUM_COLS,setCols,scalarFields,new BitSet(),doubleFields,fieldOffsets);
+        MultiFieldEncoder fieldEncoder = encoder.getEntryEncoder();
+        for(int i=0;i<NUM_COLS;i++){
+            if(!isPresent(i)) continue;
+            if(i%3==0) fieldEncoder.encodeNext(i*1000L+seed);
+            else if(i%3==1) fieldEncoder.encodeNext(i/4d+seed);
+            else fieldEncoder.encodeNext(string(i,stringLength));
+        }
+        return encoder.encode();
+    }
+
+    private static String string(int column,int length){
+        char[] chars = new char[length];
+        Arrays.fill(chars,(char)('a'+column%26));
+        return new String(chars);
+    }
+
+    private static void assertDecodes(int column,int seed,int stringLength,MultiFieldDecoder fieldDecoder){
+        if(column%3==0)
+            Assert.assertEquals("Incorrect scalar in column "+column,column*1000L+seed,fieldDecoder.decodeNextLong());
+        else if(column%3==1)
+            Assert.assertEquals("Incorrect double in column "+column,column/4d+seed,fieldDecoder.decodeNextDouble(),0d);
+        else
+            Assert.assertEquals("Incorrect string in column "+column,string(column,stringLength),fieldDecoder.decodeNextString());
+    }
+
+    private static byte[] accumulate(BitSet fieldsToReturn,Predicate predicate,byte[] row) throws Exception {
+        EntryPredicateFilter filter = new EntryPredicateFilter(fieldsToReturn,ObjectArrayList.from(predicate),true);
+        EntryAccumulator accumulator = filter.newAccumulator();
+        EntryDecoder decoder = new EntryDecoder(row);
+        if(!filter.match(decoder,accumulator)) return null;
+        return accumulator.finish();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.ObjectArrayList;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for ZoneMaps.
+ */
+public class ZoneMapTest {
+    private static final KryoPool defaultPool = new KryoPool(100);
+
+    @Test
+    public void tracksTheRangeOfEachColumn() throws Exception {
+        ZoneMap zoneMap = zoneMap(rows(false,10,20));
+
+        Assert.assertEquals("Incorrect row count!",11,zoneMap.rowCount());
+        Assert.assertEquals("Incorrect non-null count!",11,zoneMap.nonNullCount(0));
+        Assert.assertArrayEquals("Incorrect min!",Encoding.encode(10L),zoneMap.minValue(0));
+        Assert.assertArrayEquals("Incorrect max!",Encoding.encode(20L),zoneMap.maxValue(0));
+        Assert.assertArrayEquals("Incorrect min!",Encoding.encode("a10"),zoneMap.minValue(2));
+        Assert.assertArrayEquals("Incorrect max!",Encoding.encode("a20"),zoneMap.maxValue(2));
+        Assert.assertFalse("Column 0 is never null!",zoneMap.mayContainNulls(0));
+        //column 3 is only set on even rows
+        Assert.assertEquals("Incorrect non-null count!",6,zoneMap.nonNullCount(3));
+        Assert.assertTrue("Column 3 contains nulls!",zoneMap.mayContainNulls(3));
+        Assert.assertFalse("Column 4 is never set!",zoneMap.hasRange(4));
+    }
+
+    @Test
+    public void rowsWithFieldOffsetsHaveTheSameZoneMap() throws Exception {
+        Assert.assertArrayEquals("Zone maps differ!",
+                zoneMap(rows(false,10,20)).toBytes(),
+                zoneMap(rows(true,10,20)).toBytes());
+    }
+
+    @Test
+    public void neverPrunesRowsWhichMatch() throws Exception {
+        List<byte[]> rows = rows(false,10,20);
+        ZoneMap zoneMap = zoneMap(rows);
+        for(long value=5;value<=25;value++){
+            for(CompareOp op:CompareOp.values()){
+                for(int column:new int[]{0,3}){
+                    Predicate predicate = new ValuePredicate(op,column,Encoding.encode(value),true,false);
+                    boolean anyMatch = anyMatch(rows,predicate);
+                    boolean mayMatch = zoneMap.mayMatch(filter(predicate));
+                    if(anyMatch)
+                        Assert.assertTrue("Pruned matching rows for "+predicate,mayMatch);
+                    else if(column==0 && op!=CompareOp.NO_OP)
+                        Assert.assertFalse("Did not prune for "+predicate,mayMatch);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void descendingColumnsAreComparedInReverse() throws Exception {
+        List<byte[]> rows = new ArrayList<>();
+        for(long i=10;i<=20;i++){
+            BitSet setCols = new BitSet();
+            setCols.set(0);
+            BitSet scalarFields = new BitSet();
+            scalarFields.set(0);
+            EntryEncoder encoder = EntryEncoder.create(defaultPool,1,setCols,scalarFields,new BitSet(),new BitSet());
+            encoder.getEntryEncoder().encodeNext(i,true);
+            rows.add(encoder.encode());
+        }
+        ZoneMap zoneMap = zoneMap(rows);
+        Assert.assertFalse(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.LESS,0,Encoding.encode(10L,true),true,true))));
+        Assert.assertTrue(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.LESS,0,Encoding.encode(11L,true),true,true))));
+        Assert.assertFalse(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.GREATER,0,Encoding.encode(20L,true),true,true))));
+        Assert.assertTrue(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.GREATER_OR_EQUAL,0,Encoding.encode(20L,true),true,true))));
+    }
+
+    @Test
+    public void unknownColumnsAreNeverPruned() throws Exception {
+        ZoneMap zoneMap = zoneMap(rows(false,10,20));
+        Assert.assertTrue(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.EQUAL,4,Encoding.encode(1L),true,false))));
+        Assert.assertTrue(zoneMap.mayMatch(filter(new NullPredicate(true,false,4,false,false))));
+    }
+
+    @Test
+    public void nullPredicatesUseTheNullCounts() throws Exception {
+        ZoneMap zoneMap = zoneMap(rows(false,10,20));
+        Assert.assertFalse("Column 0 has no nulls",zoneMap.mayMatch(filter(new NullPredicate(false,false,0,false,false))));
+        Assert.assertTrue("Column 3 has nulls",zoneMap.mayMatch(filter(new NullPredicate(false,false,3,false,false))));
+        Assert.assertTrue("Column 3 has values",zoneMap.mayMatch(filter(new NullPredicate(true,false,3,false,false))));
+        //rows which are missing a column are not checked against a predicate which keeps nulls
+        Assert.assertTrue(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.GREATER,3,Encoding.encode(100L),false,false))));
+        Assert.assertFalse(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.GREATER,3,Encoding.encode(100L),true,false))));
+    }
+
+    @Test
+    public void combinesAndsAndOrs() throws Exception {
+        ZoneMap zoneMap = zoneMap(rows(false,10,20));
+        Predicate inRange = new ValuePredicate(CompareOp.GREATER,0,Encoding.encode(15L),true,false);
+        Predicate outOfRange = new ValuePredicate(CompareOp.LESS,0,Encoding.encode(5L),true,false);
+        Assert.assertTrue(zoneMap.mayMatch(filter(OrPredicate.or(inRange,outOfRange))));
+        Assert.assertFalse(zoneMap.mayMatch(filter(AndPredicate.newAndPredicate(inRange,outOfRange))));
+        Assert.assertFalse(zoneMap.mayMatch(new EntryPredicateFilter(new BitSet(),ObjectArrayList.from(inRange,outOfRange))));
+    }
+
+    @Test
+    public void charPredicatesIgnoreTrailingWhitespace() throws Exception {
+        List<byte[]> rows = new ArrayList<>();
+        for(String value:new String[]{"b  ","c"}){
+            BitSet setCols = new BitSet();
+            setCols.set(0);
+            EntryEncoder encoder = EntryEncoder.create(defaultPool,1,setCols,new BitSet(),new BitSet(),new BitSet());
+            encoder.getEntryEncoder().encodeNext(value);
+            rows.add(encoder.encode());
+        }
+        ZoneMap zoneMap = zoneMap(rows);
+        Predicate predicate = new CharValuePredicate(CompareOp.EQUAL,0,Encoding.encode("b"),true,false);
+        Assert.assertTrue("Row should match",anyMatch(rows,predicate));
+        Assert.assertTrue("Pruned matching rows",zoneMap.mayMatch(filter(predicate)));
+        Assert.assertFalse(zoneMap.mayMatch(filter(new CharValuePredicate(CompareOp.EQUAL,0,Encoding.encode("a"),true,false))));
+    }
+
+    @Test
+    public void serializationTruncatesLongValues() throws Exception {
+        char[] chars = new char[2*ZoneMap.MAX_VALUE_LENGTH];
+        Arrays.fill(chars,'z');
+        List<byte[]> rows = new ArrayList<>();
+        for(String value:new String[]{"a",new String(chars)}){
+            BitSet setCols = new BitSet();
+            setCols.set(0);
+            EntryEncoder encoder = EntryEncoder.create(defaultPool,1,setCols,new BitSet(),new BitSet(),new BitSet());
+            encoder.getEntryEncoder().encodeNext(value);
+            rows.add(encoder.encode());
+        }
+        ZoneMap zoneMap = ZoneMap.fromBytes(zoneMap(rows).toBytes());
+        Assert.assertEquals("Incorrect row count!",2,zoneMap.rowCount());
+        Assert.assertArrayEquals("Incorrect min!",Encoding.encode("a"),zoneMap.minValue(0));
+        Assert.assertNull("Long max should be dropped",zoneMap.maxValue(0));
+        Assert.assertTrue(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.GREATER,0,Encoding.encode("zzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzzz"),true,false))));
+        Assert.assertFalse(zoneMap.mayMatch(filter(new ValuePredicate(CompareOp.LESS,0,Encoding.encode("a"),true,false))));
+    }
+
+    @Test
+    public void serializationRoundTrips() throws Exception {
+        ZoneMap zoneMap = zoneMap(rows(false,10,20));
+        byte[] bytes = zoneMap.toBytes();
+        Assert.assertArrayEquals("Incorrect round trip!",bytes,ZoneMap.fromBytes(bytes).toBytes());
+        Assert.assertArrayEquals("Incorrect round trip!",new ZoneMap().toBytes(),ZoneMap.fromBytes(new ZoneMap().toBytes()).toBytes());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * Column 0 is a scalar, 1 a double and 2 a string, all derived from the row number. Column 3 is
+     * a scalar that is only set on even rows.
+     */
+    private static List<byte[]> rows(boolean fieldOffsets,int start,int stop) throws Exception {
+        List<byte[]> rows = new ArrayList<>();
+        for(int i=start;i<=stop;i++){
+            BitSet setCols = new BitSet();
+            setCols.set(0,3);
+            if(i%2==0) setCols.set(3);
+            BitSet scalarFields = new BitSet();
+            scalarFields.set(0);
+            scalarFields.set(3);
+            BitSet doubleFields = new BitSet();
+            doubleFields.set(1);
+            EntryEncoder encoder = EntryEncoder.create(defaultPool,4,setCols,scalarFields,new BitSet(),doubleFields,fieldOffsets);
+            MultiFieldEncoder fieldEncoder = encoder.getEntryEncoder();
+            fieldEncoder.encodeNext((long)i);
+            fieldEncoder.encodeNext(i/2d);
+            fieldEncoder.encodeNext("a"+i);
+            if(i%2==0) fieldEncoder.encodeNext((long)i);
+            rows.add(encoder.encode());
+        }
+        return rows;
+    }
+
+    private static ZoneMap zoneMap(List<byte[]> rows) throws Exception {
+        ZoneMap zoneMap = new ZoneMap();
+        for(byte[] row:rows){
+            zoneMap.update(row,0,row.length);
+        }
+        return zoneMap;
+    }
+
+    private static EntryPredicateFilter filter(Predicate predicate){
+        return new EntryPredicateFilter(new BitSet(),ObjectArrayList.from(predicate));
+    }
+
+    private static boolean anyMatch(List<byte[]> rows,Predicate predicate) throws Exception {
+        BitSet fieldsToReturn = new BitSet();
+        fieldsToReturn.set(0,4);
+        for(byte[] row:rows){
+            EntryPredicateFilter filter = new EntryPredicateFilter(fieldsToReturn,ObjectArrayList.from(predicate),true);
+            EntryAccumulator accumulator = filter.newAccumulator();
+            EntryDecoder decoder = new EntryDecoder(row);
+            predicate.reset();
+            if(!filter.match(decoder,accumulator)) continue;
+            //columns which are missing from the row are checked once the row is complete
+            boolean matches = true;
+            for(int i=0;i<4 && matches;i++){
+                if(!decoder.isSet(i))
+                    matches = filter.checkPredicates(null,i);
+            }
+            if(matches) return true;
+        }
+        return false;
+    }
+}
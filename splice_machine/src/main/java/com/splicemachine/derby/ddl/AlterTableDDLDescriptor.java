@@ -130,7 +130,8 @@ public abstract class AlterTableDDLDescriptor implements TransformingDDLDescript
                 columnOrdering[col] = -1;
             }
         }
-        DataHash<ExecRow> rowHash = new EntryDataHash(columnOrdering, null,newSerializers);
+        DataHash<ExecRow> rowHash = new EntryDataHash(columnOrdering, null,newSerializers,
+                VersionedSerializers.hasFieldOffsets(tableVersion));
         PairEncoder rowEncoder = new PairEncoder(encoder,rowHash, KVPair.Type.INSERT);
 
         // Create and return the row transformer
@@ -44,6 +44,7 @@ import com.splicemachine.db.impl.sql.execute.ColumnInfo;
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.derby.DerbyMessage;
 import com.splicemachine.derby.impl.sql.execute.actions.ActiveTransactionReader;
+import com.splicemachine.derby.impl.stats.IncrementalStatsStore;
 import com.splicemachine.derby.impl.sql.execute.actions.DropAliasConstantOperation;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
 import com.splicemachine.derby.jdbc.SpliceTransactionResourceImpl;
@@ -367,6 +368,10 @@ public class DDLUtils {
                     TableDescriptor td=dd.getTableDescriptor(ProtoUtil.getDerbyUUID(uuuid));
                     if(td==null) // Table Descriptor transaction never committed
                         return;
+                    //statistics are being dropped or recollected, so the writes tracked on this server are accounted for
+                    for(ConglomerateDescriptor cd : td.getConglomerateDescriptorList()){
+                        IncrementalStatsStore.clearTable(Long.toString(cd.getConglomerateNumber()));
+                    }
                     dm.invalidateFor(td,DependencyManager.DROP_STATISTICS,transactionResource.getLcc());
                 }
             }finally{
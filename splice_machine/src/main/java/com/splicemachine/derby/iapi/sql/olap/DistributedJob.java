@@ -16,6 +16,9 @@
 package com.splicemachine.derby.iapi.sql.olap;
 
 import com.splicemachine.concurrent.Clock;
+import com.splicemachine.db.iapi.services.context.ContextService;
+import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 
 import java.io.Serializable;
 import java.util.UUID;
@@ -31,6 +34,8 @@ public abstract class DistributedJob implements Serializable{
 
     private UUID uuid;
     private boolean submitted = false;
+    private String user;
+    private String role;
 
     public DistributedJob() {
         this.uuid = UUID.randomUUID();
@@ -51,9 +56,37 @@ public abstract class DistributedJob implements Serializable{
             throw new IllegalStateException("Job already submitted: " + toString());
         }
         submitted = true;
+        captureSubmitter();
     }
 
     public final boolean isSubmitted() {
         return submitted;
     }
+
+    /**
+     * @return the user on whose behalf the job was submitted, or {@code null} if it was not submitted
+     * from a SQL session (e.g. a compaction)
+     */
+    public final String getUser() {
+        return user;
+    }
+
+    /**
+     * @return the current role of the submitting session, or {@code null} if there is none
+     */
+    public final String getRole() {
+        return role;
+    }
+
+    private void captureSubmitter() {
+        LanguageConnectionContext lcc = (LanguageConnectionContext) ContextService.getContextOrNull(LanguageConnectionContext.CONTEXT_ID);
+        if (lcc == null) return;
+        Activation activation = lcc.getLastActivation();
+        if (activation != null) {
+            user = lcc.getCurrentUserId(activation);
+            role = lcc.getCurrentRoleId(activation);
+        } else {
+            user = lcc.getSessionUserId();
+        }
+    }
 }
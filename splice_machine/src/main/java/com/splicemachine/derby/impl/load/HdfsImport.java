@@ -183,6 +183,7 @@ public class HdfsImport {
                  charset,
                  true,
                  false,
+                 null,
                  results);
     }
 
@@ -263,6 +264,57 @@ public class HdfsImport {
                  charset,
                  false,
                  false,
+                 null,
+                 results);
+    }
+
+    /**
+     * The SYSCS_UTIL.BULK_IMPORT_HFILE system procedure imports data exactly as the
+     * {@link #IMPORT_DATA, SYSCS_UTIL.IMPORT_DATA} system procedure does, except that rather than writing the rows
+     * through the write pipeline, it writes them (and the rows of the table's indexes) into HFiles, which are
+     * then bulk loaded into the table's regions.
+     * <p/>
+     * The target table must be empty, and must not have triggers or foreign keys. The import always runs on Spark.
+     * The table is not locked, and the bulk-loaded rows are not checked for write conflicts, so nothing else may
+     * write to the table while the import runs.
+     *
+     * @param bulkImportDirectory the directory in which the HFiles are staged before being loaded. It must be on the
+     *                            file system used by HBase, and writable by both Spark and HBase. If this is
+     *                            null, the rows are written through the write pipeline, as by IMPORT_DATA.
+     * @see #IMPORT_DATA for the other parameters.
+     */
+    public static void BULK_IMPORT_HFILE(String schemaName,
+                                         String tableName,
+                                         String insertColumnList,
+                                         String fileName,
+                                         String columnDelimiter,
+                                         String characterDelimiter,
+                                         String timestampFormat,
+                                         String dateFormat,
+                                         String timeFormat,
+                                         long badRecordsAllowed,
+                                         String badRecordDirectory,
+                                         String oneLineRecords,
+                                         String charset,
+                                         String bulkImportDirectory,
+                                         ResultSet[] results
+    ) throws SQLException {
+        doImport(schemaName,
+                 tableName,
+                 insertColumnList,
+                 fileName,
+                 columnDelimiter,
+                 characterDelimiter,
+                 timestampFormat,
+                 dateFormat,
+                 timeFormat,
+                 badRecordsAllowed,
+                 badRecordDirectory,
+                 oneLineRecords,
+                 charset,
+                 false,
+                 false,
+                 bulkImportDirectory,
                  results);
     }
 
@@ -282,6 +334,7 @@ public class HdfsImport {
                                  String charset,
                                  boolean isUpsert,
                                  boolean isCheckScan,
+                                 String bulkImportDirectory,
                                  ResultSet[] results) throws SQLException {
         if (LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG, "doImport {schemaName=%s, tableName=%s, insertColumnList=%s, fileName=%s, " +
@@ -370,7 +423,8 @@ public class HdfsImport {
             ColumnInfo columnInfo = new ColumnInfo(conn, schemaName, tableName, insertColumnList);
             String insertSql = "INSERT INTO " + entityName + "(" + columnInfo.getInsertColumnNames() + ") " +
                 "--splice-properties insertMode=" + (isUpsert ? "UPSERT" : "INSERT") + ", statusDirectory=" +
-                badRecordDirectory + ", badRecordsAllowed=" + badRecordsAllowed + "\n" +
+                badRecordDirectory + ", badRecordsAllowed=" + badRecordsAllowed +
+                (bulkImportDirectory == null ? "" : ", bulkImportDirectory=" + bulkImportDirectory) + "\n" +
                 " SELECT * from " +
                 importVTI + " AS importVTI (" + columnInfo.getImportAsColumns() + ")";
 
@@ -29,6 +29,12 @@ public interface JoinTable extends AutoCloseable{
 
     interface Factory{
         JoinTable newTable();
+
+        /**
+         * Release the resources shared by the tables of this factory. Called once, when no
+         * table created by this factory is in use any longer.
+         */
+        void release();
     }
 
     Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException;
@@ -15,6 +15,8 @@
 
 package com.splicemachine.derby.impl.sql.compile;
 
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.compiler.MethodBuilder;
 import com.splicemachine.db.iapi.services.sanity.SanityManager;
@@ -264,7 +266,10 @@ public class NestedLoopJoinStrategy extends BaseJoinStrategy{
         innerCost.setRowCount(totalRowCount);
         innerCost.setRemoteCost(SelectivityUtil.getTotalRemoteCost(innerCost, outerCost, totalRowCount));
         innerCost.setRemoteCost(SelectivityUtil.getTotalRemoteCost(innerCost, outerCost, totalRowCount));
-        double joinCost = SelectivityUtil.nestedLoopJoinStrategyLocalCost(innerCost, outerCost);
+        int batchSize = probeBatchSize(innerTable,cd);
+        double joinCost = batchSize>1
+                ? SelectivityUtil.batchedNestedLoopJoinStrategyLocalCost(innerCost, outerCost, batchSize)
+                : SelectivityUtil.nestedLoopJoinStrategyLocalCost(innerCost, outerCost);
         innerCost.setLocalCost(joinCost);
         innerCost.setLocalCostPerPartition(joinCost);
         innerCost.setRowOrdering(outerCost.getRowOrdering());
@@ -286,6 +291,18 @@ public class NestedLoopJoinStrategy extends BaseJoinStrategy{
     /* ****************************************************************************************************************/
     /*private helper methods*/
 
+    /**
+     * @return the number of outer rows that the join will probe the inner table with at once, or 0 if it
+     * will open the inner table for each outer row in turn. Batches are only possible when the inner
+     * table is read by a single scan of the table or of a covering index (see NestedLoopJoinOperation).
+     */
+    private static int probeBatchSize(Optimizable innerTable,ConglomerateDescriptor cd) throws StandardException{
+        if(!(innerTable instanceof FromBaseTable) || cd==null) return 0;
+        if(cd.isIndex() && !((FromBaseTable)innerTable).isCoveringIndex(cd)) return 0;
+        SConfiguration config=EngineDriver.driver().getConfiguration();
+        return config==null?0:config.getNestedLoopJoinBatchSize();
+    }
+
     @Override
     public JoinStrategyType getJoinStrategyType() {
         return JoinStrategyType.NESTED_LOOP;
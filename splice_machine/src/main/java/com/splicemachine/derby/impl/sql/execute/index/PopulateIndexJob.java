@@ -25,6 +25,7 @@ import com.splicemachine.derby.stream.function.IndexTransformFunction;
 import com.splicemachine.derby.stream.function.KVPairFunction;
 import com.splicemachine.derby.stream.iapi.*;
 import com.splicemachine.derby.stream.output.DataSetWriter;
+import com.splicemachine.derby.stream.output.DirectDataSetWriterBuilder;
 import java.util.concurrent.Callable;
 
 /**
@@ -56,9 +57,17 @@ public class PopulateIndexJob implements Callable<Void> {
         PairDataSet dsToWrite = dataSet
                 .map(new IndexTransformFunction(tentativeIndex,request.indexFormatIds), null, false, true, scope + ": Prepare Index")
                 .index(new KVPairFunction(), false, true, scope + ": Populate Index");
-        DataSetWriter writer = dsToWrite.directWriteData()
+        DirectDataSetWriterBuilder writerBuilder = dsToWrite.directWriteData();
+        /*
+         * Rows of a non-unique index are keyed by their base row's location as well, so they never collide and can be
+         * bulk loaded without checks. Unique indexes go through the pipeline, which checks them against concurrent writes.
+         */
+        DDLMessage.Index index = tentativeIndex.getIndex();
+        if (!index.getUnique() && !index.getUniqueWithDuplicateNulls())
+            writerBuilder.bulkLoadDirectory(EngineDriver.driver().getConfiguration().getIndexBulkLoadDirectory());
+        DataSetWriter writer = writerBuilder
                 .operationContext(request.scanSetBuilder.getOperationContext())
-                .destConglomerate(tentativeIndex.getIndex().getConglomerate())
+                .destConglomerate(index.getConglomerate())
                 .txn(request.childTxn)
                 .build();
         @SuppressWarnings("unused") DataSet<LocatedRow> result = writer.write();
@@ -17,9 +17,13 @@ package com.splicemachine.derby.impl.sql.execute.operations;
 
 import org.sparkproject.guava.cache.Cache;
 import org.sparkproject.guava.cache.CacheBuilder;
+import org.sparkproject.guava.cache.RemovalListener;
+import org.sparkproject.guava.cache.RemovalNotification;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.stream.Stream;
@@ -45,19 +49,37 @@ public class BroadcastJoinCache{
         JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,
                                int[] innerHashKeys,
                                int[] outerHashKeys,
-                               ExecRow outerTemplateRow) throws ExecutionException;
+                               ExecRow outerTemplateRow,
+                               OperationContext operationContext) throws ExecutionException;
     }
 
     public BroadcastJoinCache(){
        this(ByteBufferMapTableLoader.INSTANCE);
     }
 
+    public BroadcastJoinCache(SConfiguration configuration){
+        this(configuration.isBroadcastJoinOffHeap()?
+                new OffHeapJoinTableLoader(configuration.getBroadcastJoinMemoryBudget(),configuration.getSpillDirectory()):
+                ByteBufferMapTableLoader.INSTANCE);
+    }
+
     public BroadcastJoinCache(JoinTableLoader tableLoader){
         this.tableLoader = tableLoader;
+        /*
+         * We don't use soft values, because a collected value could not be released. A table is only
+         * released once it has left the cache and its last reader has closed it.
+         */
         this.cache =CacheBuilder.newBuilder()
                 .maximumSize(1000)
                 .expireAfterAccess(2,TimeUnit.SECONDS)
-                .softValues()
+                .removalListener(new RemovalListener<Long,ReferenceCountingFactory>(){
+                    @Override
+                    public void onRemoval(RemovalNotification<Long,ReferenceCountingFactory> notification){
+                        ReferenceCountingFactory factory=notification.getValue();
+                        if(factory!=null)
+                            factory.evicted();
+                    }
+                })
                 .build();
     }
 
@@ -65,12 +87,17 @@ public class BroadcastJoinCache{
                          Callable<Stream<ExecRow>> loader,
                          int[] rightHashKeys,
                          int[] leftHashKeys,
-                         ExecRow leftTemplateRow) throws IOException, StandardException{
+                         ExecRow leftTemplateRow,
+                         OperationContext operationContext) throws IOException, StandardException{
         try{
-            Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader);
-            ReferenceCountingFactory joinTable=cache.get(operationId,callable);
-            joinTable.refCount.incrementAndGet();
-            return joinTable;
+            Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader,operationContext);
+            while(true){
+                ReferenceCountingFactory joinTable=cache.get(operationId,callable);
+                if(joinTable.acquire())
+                    return joinTable;
+                //it was released between leaving the cache and our acquiring it, so load it again
+                cache.asMap().remove(operationId,joinTable);
+            }
         }catch(ExecutionException e){
             Throwable c = e.getCause();
             if(c instanceof StandardException)
@@ -87,6 +114,7 @@ public class BroadcastJoinCache{
         private final int[] outerHashKeys;
         private final ExecRow outerTemplateRow;
         private final Callable<Stream<ExecRow>> streamLoader;
+        private final OperationContext operationContext;
 
         private final Long operationId;
 
@@ -95,18 +123,20 @@ public class BroadcastJoinCache{
                       int[] innerHashKeys,
                       int[] outerHashKeys,
                       ExecRow outerTemplateRow,
-                      Callable<Stream<ExecRow>> streamLoader){
+                      Callable<Stream<ExecRow>> streamLoader,
+                      OperationContext operationContext){
             this.loader=loader;
             this.operationId=operationId;
             this.innerHashKeys=innerHashKeys;
             this.outerHashKeys=outerHashKeys;
             this.outerTemplateRow=outerTemplateRow;
             this.streamLoader=streamLoader;
+            this.operationContext=operationContext;
         }
 
         @Override
         public ReferenceCountingFactory call() throws Exception{
-            JoinTable.Factory load=loader.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow);
+            JoinTable.Factory load=loader.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow,operationContext);
             return new ReferenceCountingFactory(load,operationId);
         }
     }
@@ -136,7 +166,9 @@ public class BroadcastJoinCache{
     private class ReferenceCountingFactory implements JoinTable.Factory{
         private final JoinTable.Factory delegate;
         private final Long id;
-        private AtomicInteger refCount = new AtomicInteger(0);
+        /*the number of readers of the table, or -1 once the table has been released*/
+        private final AtomicInteger refCount = new AtomicInteger(0);
+        private volatile boolean evicted = false;
 
         public ReferenceCountingFactory(JoinTable.Factory delegate,Long id){
             this.delegate=delegate;
@@ -148,10 +180,35 @@ public class BroadcastJoinCache{
             return new ReferenceCountedJoinTable(delegate.newTable(),this);
         }
 
+        @Override
+        public void release(){
+            delegate.release();
+        }
+
+        boolean acquire(){
+            while(true){
+                int refC=refCount.get();
+                if(refC<0) return false;
+                if(refCount.compareAndSet(refC,refC+1)) return true;
+            }
+        }
+
         public void markClosed(){
             int refC=refCount.decrementAndGet();
-            if(refC<=0)
-                cache.invalidate(id);
+            if(refC<=0){
+                cache.asMap().remove(id,this);
+                releaseIfUnused();
+            }
+        }
+
+        void evicted(){
+            evicted=true;
+            releaseIfUnused();
+        }
+
+        private void releaseIfUnused(){
+            if(evicted && refCount.compareAndSet(0,-1))
+                release();
         }
     }
 }
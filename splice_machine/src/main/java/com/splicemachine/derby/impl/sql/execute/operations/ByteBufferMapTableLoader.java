@@ -16,7 +16,9 @@
 package com.splicemachine.derby.impl.sql.execute.operations;
 
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.utils.marshall.BareKeyHash;
 import com.splicemachine.derby.utils.marshall.KeyEncoder;
 import com.splicemachine.derby.utils.marshall.NoOpPostfix;
@@ -45,8 +47,10 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
     private ByteBufferMapTableLoader(){} //singleton class
 
     @Override
-    public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,int[] innerHashKeys,int[] outerHashKeys, ExecRow outerTemplateRow) throws ExecutionException{
+    public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,int[] innerHashKeys,int[] outerHashKeys, ExecRow outerTemplateRow,
+                                  OperationContext operationContext) throws ExecutionException{
         Map<ByteBuffer, List<ExecRow>> table=new HashMap<>();
+        long estimatedSize=0L;
 
         DescriptorSerializer[] innerSerializers=null;
         KeyEncoder innerKeyEncoder=null;
@@ -65,8 +69,14 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
                 if(rows==null){
                     rows=new ArrayList<>(1);
                     table.put(key,rows);
+                    estimatedSize+=key.capacity();
+                }
+                ExecRow clone=right.getClone();
+                rows.add(clone);
+                for(DataValueDescriptor dvd:clone.getRowArray()){
+                    if(dvd!=null)
+                        estimatedSize+=dvd.estimateMemoryUsage();
                 }
-                rows.add(right.getClone());
             }
         }catch(StreamException e){
            throw new ExecutionException(e.getCause());
@@ -75,6 +85,8 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
             else throw new ExecutionException(e);
         }
 
+        if(operationContext!=null)
+            operationContext.recordJoinTableMemory(estimatedSize);
         return new ByteBufferMappedJoinTable.Factory(table,outerHashKeys,outerTemplateRow);
     }
 }
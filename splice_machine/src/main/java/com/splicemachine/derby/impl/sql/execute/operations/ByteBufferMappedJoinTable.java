@@ -76,5 +76,8 @@ class ByteBufferMappedJoinTable implements JoinTable{
         public JoinTable newTable(){
             return new ByteBufferMappedJoinTable(table,outerHashKeys,outerTemplateRow);
         }
+
+        //the table is on heap, so there is nothing to release
+        @Override public void release(){}
     }
 }
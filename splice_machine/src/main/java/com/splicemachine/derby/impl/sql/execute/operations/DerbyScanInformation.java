@@ -127,6 +127,11 @@ public class DerbyScanInformation implements ScanInformation<ExecRow>, Externali
         return getConglomerate().getTypeFormatId() == IndexConglomerate.FORMAT_NUMBER;
     }
 
+    @Override
+    public boolean isSameStartStopPosition() {
+        return sameStartStopPosition;
+    }
+
     public SpliceConglomerate getConglomerate() throws StandardException {
         if (conglomerate == null)
             conglomerate = (SpliceConglomerate) ((SpliceTransactionManager) activation.getTransactionController()).findConglomerate(conglomId);
@@ -19,40 +19,51 @@ import org.sparkproject.guava.collect.Lists;
 import com.splicemachine.access.api.PartitionFactory;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
-import com.splicemachine.db.iapi.types.RowLocation;
 import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
 import com.splicemachine.derby.utils.marshall.KeyDecoder;
 import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
+import com.splicemachine.metrics.SampledHistogram;
 import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.storage.*;
 import com.splicemachine.storage.util.MapAttributes;
-import com.splicemachine.utils.Pair;
+import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 /**
  * Utility for executing "look-ahead" index lookups, where the index lookup is backgrounded,
  * while other processes occur on the caller thread.
  *
+ * Index rows are read ahead of the consumer, into a window of at most {@code numBlocks} lookups' worth of rows.
+ * Each row is queued for the region of the base table which holds its base row (according to the cached region
+ * locations of the table), and each lookup fetches the rows queued for a single region, so a slow region only
+ * holds up the lookups against it. Up to {@code numBlocks} lookups run at once, and the number of rows in each
+ * is chosen by a {@link LookupBatchSizer} from the latency and size of the lookups before it. Since lookups
+ * complete in any order, their results are held in the window until every row before them has been returned,
+ * so that rows are still returned in index order.
+ *
  * @author Scott Fines
  *         Created on: 9/4/13
  */
 public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow>{
     protected static Logger LOG=Logger.getLogger(IndexRowReader.class);
     private final ExecutorService lookupService;
-    private final int batchSize;
+    private final CompletionService<LookupResult> completionService;
     private final int numBlocks;
     private final ExecRow outputTemplate;
     private final long mainTableConglomId;
@@ -63,10 +74,28 @@ public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow
     private final TxnView txn;
     private final TxnOperationFactory operationFactory;
     private final PartitionFactory tableFactory;
+    private final LookupBatchSizer batchSizer;
+    private final SampledHistogram lookupLatencies;
+    private final SampledHistogram lookupBatchSizes;
+
+    /*
+     * The rows which have been read from the source but not yet returned, by sequence number. Row seq
+     * lives in slot seq%windowSize, and headSeq is the next row to return.
+     */
+    private final int windowSize;
+    private final LocatedRow[] windowRows;
+    private final DataResult[] windowResults;
+    private final int[] windowRegions;
+    private final boolean[] windowSubmitted;
+    private long headSeq;
+    private long nextSeq;
+
+    /*the rows waiting for a lookup, by region*/
+    private byte[][] regionStartKeys;
+    private List<PendingRow>[] pendingByRegion;
+    private int numRunning;
+    private boolean sourceExhausted;
 
-    private List<Pair<LocatedRow, DataResult>> currentResults;
-    private List<Future<List<Pair<LocatedRow, DataResult>>>> resultFutures;
-    private boolean populated=false;
     private EntryDecoder entryDecoder;
     protected Iterator<LocatedRow> sourceIterator;
 
@@ -77,7 +106,8 @@ public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow
                    Iterator<LocatedRow> sourceIterator,
                    ExecRow outputTemplate,
                    TxnView txn,
-                   int lookupBatchSize,
+                   LookupBatchSizer batchSizer,
+                   int maxLookupBatchSize,
                    int numConcurrentLookups,
                    long mainTableConglomId,
                    byte[] predicateFilterBytes,
@@ -85,21 +115,30 @@ public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow
                    KeyHashDecoder rowDecoder,
                    int[] indexCols,
                    TxnOperationFactory operationFactory,
-                   PartitionFactory tableFactory){
+                   PartitionFactory tableFactory,
+                   SampledHistogram lookupLatencies,
+                   SampledHistogram lookupBatchSizes){
         this.lookupService=lookupService;
+        this.completionService=new ExecutorCompletionService<>(lookupService);
         this.sourceIterator=sourceIterator;
         this.outputTemplate=outputTemplate;
         this.txn=txn;
-        batchSize=lookupBatchSize;
-        this.numBlocks=numConcurrentLookups;
+        this.batchSizer=batchSizer;
+        this.numBlocks=Math.max(numConcurrentLookups,1);
         this.mainTableConglomId=mainTableConglomId;
         this.predicateFilterBytes=predicateFilterBytes;
         this.tableFactory=tableFactory;
         this.keyDecoder=new KeyDecoder(keyDecoder,0);
         this.rowDecoder=rowDecoder;
         this.indexCols=indexCols;
-        this.resultFutures=Lists.newArrayListWithCapacity(numConcurrentLookups);
         this.operationFactory = operationFactory;
+        this.lookupLatencies=lookupLatencies;
+        this.lookupBatchSizes=lookupBatchSizes;
+        this.windowSize=numBlocks*maxLookupBatchSize;
+        this.windowRows=new LocatedRow[windowSize];
+        this.windowResults=new DataResult[windowSize];
+        this.windowRegions=new int[windowSize];
+        this.windowSubmitted=new boolean[windowSize];
     }
 
     public void close() throws IOException{
@@ -108,6 +147,12 @@ public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow
         if(entryDecoder!=null)
             entryDecoder.close();
         lookupService.shutdownNow();
+        if(LOG.isDebugEnabled()){
+            synchronized(lookupLatencies){
+                SpliceLogUtils.debug(LOG,"Index lookups against conglomerate %d: latency(us) {%s}, batch size {%s}",
+                        mainTableConglomId,lookupLatencies,lookupBatchSizes);
+            }
+        }
     }
 
     @Override
@@ -127,17 +172,31 @@ public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow
     @Override
     public boolean hasNext(){
         try{
-            if(currentResults==null || currentResults.size()<=0)
-                getMoreData();
-
-            if(currentResults==null || currentResults.size()<=0){
-                return false; // No More Data
+            int head=slot(headSeq);
+            while(headSeq==nextSeq || windowResults[head]==null){
+                if(regionStartKeys==null)
+                    initRegions();
+                readSource();
+                if(headSeq==nextSeq) return false; // No More Data
+                if(windowResults[head]!=null) break;
+                //make sure that the row we need next is being looked up, then wait for a lookup to finish
+                if(!windowSubmitted[head]){
+                    if(numRunning>=numBlocks)
+                        awaitLookup();
+                    else
+                        submit(windowRegions[head]);
+                    continue;
+                }
+                submitPending();
+                awaitLookup();
             }
 
-            Pair<LocatedRow, DataResult> next=currentResults.remove(0);
             //merge the results
-            LocatedRow nextScannedRow=next.getFirst();
-            DataResult nextFetchedData=next.getSecond();
+            LocatedRow nextScannedRow=windowRows[head];
+            DataResult nextFetchedData=windowResults[head];
+            windowRows[head]=null;
+            windowResults[head]=null;
+            headSeq++;
             if(entryDecoder==null)
                 entryDecoder=new EntryDecoder();
             for(DataCell kv : nextFetchedData){
@@ -153,15 +212,47 @@ public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow
         }
     }
 
-
     /**********************************************************************************************************************************/
         /*private helper methods*/
-    private void getMoreData() throws StandardException, IOException{
-        //read up to batchSize rows from the source, then submit them to the background thread for processing
-        List<LocatedRow> sourceRows=Lists.newArrayListWithCapacity(batchSize);
-        for(int i=0;i<batchSize;i++){
-            if(!sourceIterator.hasNext())
+    private int slot(long seq){
+        return (int)(seq%windowSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initRegions() throws IOException{
+        try(Partition table=tableFactory.getTable(Long.toString(mainTableConglomId))){
+            List<Partition> regions=table.subPartitions();
+            regionStartKeys=new byte[Math.max(regions.size(),1)][];
+            regionStartKeys[0]=new byte[]{};
+            for(int i=0;i<regions.size();i++){
+                regionStartKeys[i]=regions.get(i).getStartKey();
+            }
+        }
+        Arrays.sort(regionStartKeys,Bytes.startComparator);
+        pendingByRegion=new List[regionStartKeys.length];
+        for(int i=0;i<pendingByRegion.length;i++){
+            pendingByRegion[i]=new ArrayList<>();
+        }
+    }
+
+    /*
+     * The index of the region which holds rowKey. The region locations may be stale, which only
+     * makes the grouping of lookups less effective.
+     */
+    private int regionFor(byte[] rowKey){
+        int pos=Arrays.binarySearch(regionStartKeys,rowKey,Bytes.startComparator);
+        return pos>=0?pos:Math.max(0,-pos-2);
+    }
+
+    /*
+     * Read source rows until the window is full, submitting a lookup whenever a region has a full batch
+     */
+    private void readSource() throws StandardException, IOException{
+        while(!sourceExhausted && nextSeq-headSeq<windowSize){
+            if(!sourceIterator.hasNext()){
+                sourceExhausted=true;
                 break;
+            }
             LocatedRow next=sourceIterator.next();
             for(int index=0;index<indexCols.length;index++){
                 if(indexCols[index]!=-1){
@@ -169,27 +260,62 @@ public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow
                 }
             }
             HBaseRowLocation rl=(HBaseRowLocation)next.getRow().getColumn(next.getRow().nColumns());
-            sourceRows.add(new LocatedRow(HBaseRowLocation.deepClone(rl), outputTemplate.getClone()));
+            LocatedRow sourceRow=new LocatedRow(HBaseRowLocation.deepClone(rl),outputTemplate.getClone());
+            byte[] rowKey=sourceRow.getRowLocation().getBytes();
+            int region=regionFor(rowKey);
+
+            long seq=nextSeq++;
+            int slot=slot(seq);
+            windowRows[slot]=sourceRow;
+            windowRegions[slot]=region;
+            windowSubmitted[slot]=false;
+            List<PendingRow> pending=pendingByRegion[region];
+            pending.add(new PendingRow(seq,rowKey));
+            if(pending.size()>=batchSizer.batchSize() && numRunning<numBlocks)
+                submit(region);
         }
-        if(sourceRows.size()>0){
-            //submit to the background thread
-            Lookup task=new Lookup(sourceRows);
-            resultFutures.add(lookupService.submit(task));
+    }
+
+    /*
+     * Submit lookups for regions with a full batch while there is room. Once the source is exhausted or
+     * the window is full, no batch will grow any further, so submit the oldest partial batches as well.
+     */
+    private void submitPending() throws StandardException{
+        boolean flush=sourceExhausted || nextSeq-headSeq>=windowSize;
+        while(numRunning<numBlocks){
+            int best=-1;
+            for(int i=0;i<pendingByRegion.length;i++){
+                List<PendingRow> pending=pendingByRegion[i];
+                if(pending.isEmpty()) continue;
+                if(pending.size()>=batchSizer.batchSize()){
+                    best=i;
+                    break;
+                }
+                if(flush && (best<0 || pending.get(0).seq<pendingByRegion[best].get(0).seq))
+                    best=i;
+            }
+            if(best<0) return;
+            submit(best);
         }
+    }
 
-        //if there is only one submitted future, call this again to set off an additional background process
-        if(resultFutures.size()<numBlocks && sourceRows.size()==batchSize)
-            getMoreData();
-        else if(resultFutures.size()>0){
-            waitForBlockCompletion();
+    private void submit(int region){
+        List<PendingRow> pending=pendingByRegion[region];
+        int size=Math.min(pending.size(),batchSizer.batchSize());
+        List<PendingRow> batch=new ArrayList<>(pending.subList(0,size));
+        pending.subList(0,size).clear();
+        for(PendingRow row:batch){
+            windowSubmitted[slot(row.seq)]=true;
         }
+        numRunning++;
+        completionService.submit(new Lookup(batch));
     }
 
-    private void waitForBlockCompletion() throws StandardException, IOException{
-        //wait for the first future to return correctly or error-out
+    private void awaitLookup() throws StandardException, IOException{
+        //wait for any lookup to return correctly or error-out
+        LookupResult result;
         try{
-            Future<List<Pair<LocatedRow, DataResult>>> future=resultFutures.remove(0);
-            currentResults=future.get();
+            result=completionService.take().get();
         }catch(InterruptedException e){
             throw new InterruptedIOException(e.getMessage());
         }catch(ExecutionException e){
@@ -197,35 +323,75 @@ public class IndexRowReader implements Iterator<LocatedRow>, Iterable<LocatedRow
             if(t instanceof IOException) throw (IOException)t;
             else throw Exceptions.parseException(t);
         }
+        numRunning--;
+        for(int i=0;i<result.rows.size();i++){
+            windowResults[slot(result.rows.get(i).seq)]=result.results.get(i);
+        }
+        int rows=result.rows.size();
+        batchSizer.record(rows,result.latencyNanos,result.bytes);
+        //readers built from the same builder share their histograms
+        synchronized(lookupLatencies){
+            lookupLatencies.update(result.latencyNanos/1000);
+            lookupBatchSizes.update(rows);
+        }
+    }
+
+    private static class PendingRow{
+        private final long seq;
+        private final byte[] rowKey;
+
+        PendingRow(long seq,byte[] rowKey){
+            this.seq=seq;
+            this.rowKey=rowKey;
+        }
+    }
+
+    private static class LookupResult{
+        private final List<PendingRow> rows;
+        private final List<DataResult> results;
+        private final long latencyNanos;
+        private final long bytes;
+
+        LookupResult(List<PendingRow> rows,List<DataResult> results,long latencyNanos,long bytes){
+            this.rows=rows;
+            this.results=results;
+            this.latencyNanos=latencyNanos;
+            this.bytes=bytes;
+        }
     }
 
-    public class Lookup implements Callable<List<Pair<LocatedRow, DataResult>>>{
-        private final List<LocatedRow> sourceRows;
+    public class Lookup implements Callable<LookupResult>{
+        private final List<PendingRow> sourceRows;
 
-        public Lookup(List<LocatedRow> sourceRows){
+        Lookup(List<PendingRow> sourceRows){
             this.sourceRows=sourceRows;
         }
 
         @Override
-        public List<Pair<LocatedRow, DataResult>> call() throws Exception{
+        public LookupResult call() throws Exception{
             List<byte[]> rowKeys = new ArrayList<>(sourceRows.size());
-            for(LocatedRow sourceRow : sourceRows){
-                byte[] row=sourceRow.getRowLocation().getBytes();
-                rowKeys.add(row);
+            for(PendingRow sourceRow : sourceRows){
+                rowKeys.add(sourceRow.rowKey);
             }
             Attributable attributable = new MapAttributes();
             attributable.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL,predicateFilterBytes);
             operationFactory.encodeForReads(attributable,txn,false);
 
+            long start=System.nanoTime();
             try(Partition table = tableFactory.getTable(Long.toString(mainTableConglomId))){
                 Iterator<DataResult> results=table.batchGet(attributable,rowKeys);
-                List<Pair<LocatedRow, DataResult>> locations=Lists.newArrayListWithCapacity(sourceRows.size());
-                for(LocatedRow sourceRow : sourceRows){
+                List<DataResult> fetched=Lists.newArrayListWithCapacity(sourceRows.size());
+                long bytes=0l;
+                for(int i=0;i<sourceRows.size();i++){
                     if(!results.hasNext())
                         throw new IllegalStateException("Programmer error: incompatible iterator sizes!");
-                    locations.add(Pair.newPair(sourceRow,results.next().getClone()));
+                    DataResult result=results.next().getClone();
+                    for(DataCell cell:result){
+                        bytes+=cell.keyLength()+cell.valueLength();
+                    }
+                    fetched.add(result);
                 }
-                return locations;
+                return new LookupResult(sourceRows,fetched,System.nanoTime()-start,bytes);
             }
         }
     }
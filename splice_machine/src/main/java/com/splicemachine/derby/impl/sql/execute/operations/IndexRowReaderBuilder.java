@@ -19,6 +19,7 @@ import com.carrotsearch.hppc.BitSet;
 import com.carrotsearch.hppc.ObjectArrayList;
 import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.access.api.PartitionFactory;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.concurrent.SameThreadExecutorService;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.ArrayUtil;
@@ -31,6 +32,7 @@ import com.splicemachine.derby.utils.marshall.NoOpKeyHashDecoder;
 import com.splicemachine.derby.utils.marshall.SkippingKeyDecoder;
 import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
 import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.metrics.SampledHistogram;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.driver.SIDriver;
@@ -49,6 +51,7 @@ import java.util.concurrent.*;
  *         Date: 4/11/14
  */
 public class IndexRowReaderBuilder implements Externalizable{
+    private static final int HISTOGRAM_SAMPLE_SIZE=1024;
     private Iterator<LocatedRow> source;
     private int lookupBatchSize;
     private int numConcurrentLookups=-1;
@@ -69,6 +72,12 @@ public class IndexRowReaderBuilder implements Externalizable{
     private String tableVersion;
     private int[] mainTableKeyColumnTypes;
     private TxnView txn;
+    /*
+     * The latency (in microseconds) and the size of each lookup made by the readers this builds. These are
+     * local to the JVM which builds the readers, and so are not serialized.
+     */
+    private transient SampledHistogram lookupLatencies;
+    private transient SampledHistogram lookupBatchSizes;
 
     @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
     public IndexRowReaderBuilder indexColumns(int[] indexCols){
@@ -158,6 +167,18 @@ public class IndexRowReaderBuilder implements Externalizable{
         return this;
     }
 
+    public SampledHistogram getLookupLatencies(){
+        if(lookupLatencies==null)
+            lookupLatencies=new SampledHistogram(HISTOGRAM_SAMPLE_SIZE);
+        return lookupLatencies;
+    }
+
+    public SampledHistogram getLookupBatchSizes(){
+        if(lookupBatchSizes==null)
+            lookupBatchSizes=new SampledHistogram(HISTOGRAM_SAMPLE_SIZE);
+        return lookupBatchSizes;
+    }
+
     public IndexRowReader build() throws StandardException{
         assert txn!=null:"No Transaction specified!";
         assert mainTableRowDecodingMap!=null:"No Row decoding map specified!";
@@ -212,11 +233,18 @@ public class IndexRowReaderBuilder implements Externalizable{
         SIDriver driver=SIDriver.driver();
         TxnOperationFactory txnOperationFactory =driver.getOperationFactory();
         PartitionFactory tableFactory = driver.getTableFactory();
+        SConfiguration config=driver.getConfiguration();
+        int maxBatchSize=Math.max(lookupBatchSize,1);
+        LookupBatchSizer batchSizer=new LookupBatchSizer(Math.max(maxBatchSize/16,1),
+                maxBatchSize,
+                TimeUnit.MILLISECONDS.toNanos(config.getIndexLookupTargetLatency()),
+                config.getIndexLookupMaxBatchBytes());
         return new IndexRowReader(lookupService,
                 source,
                 outputTemplate,
                 txn,
-                lookupBatchSize,
+                batchSizer,
+                maxBatchSize,
                 Math.max(numConcurrentLookups,0),
                 mainTableConglomId,
                 epfBytes,
@@ -224,7 +252,9 @@ public class IndexRowReaderBuilder implements Externalizable{
                 rowDecoder,
                 indexCols,
                 txnOperationFactory,
-                tableFactory);
+                tableFactory,
+                getLookupLatencies(),
+                getLookupBatchSizes());
     }
 
     @Override
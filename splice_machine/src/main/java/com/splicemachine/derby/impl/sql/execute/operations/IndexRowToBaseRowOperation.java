@@ -48,6 +48,7 @@ import com.splicemachine.derby.stream.function.IndexToBaseRowFlatMapFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.metrics.SampledHistogram;
 import com.splicemachine.utils.SpliceLogUtils;
 
 /**
@@ -377,6 +378,22 @@ public class IndexRowToBaseRowOperation extends SpliceBaseOperation{
         return this.source;
     }
 
+    /**
+     * @return the latency (in microseconds) of each base table lookup made by this operation in this JVM, or
+     * {@code null} if the operation has not been executed
+     */
+    public SampledHistogram getLookupLatencies() {
+        return readerBuilder==null?null:readerBuilder.getLookupLatencies();
+    }
+
+    /**
+     * @return the number of rows fetched by each base table lookup made by this operation in this JVM, or
+     * {@code null} if the operation has not been executed
+     */
+    public SampledHistogram getLookupBatchSizes() {
+        return readerBuilder==null?null:readerBuilder.getLookupBatchSizes();
+    }
+
     @Override
     public String toString() {
         return String.format("IndexRowToBaseRow {source=%s,indexName=%s,conglomId=%d,resultSetNumber=%d}",
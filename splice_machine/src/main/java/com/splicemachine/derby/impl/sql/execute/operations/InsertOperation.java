@@ -18,6 +18,10 @@ package com.splicemachine.derby.impl.sql.execute.operations;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.splicemachine.derby.stream.iapi.*;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -27,12 +31,19 @@ import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.ConstraintDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.sql.execute.HasIncrement;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.RowLocation;
 import com.splicemachine.db.impl.sql.compile.InsertNode;
 import com.splicemachine.db.impl.sql.execute.BaseActivation;
+import com.splicemachine.db.shared.common.reference.SQLState;
+import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.derby.iapi.sql.execute.DataSetProcessorFactory;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
@@ -46,6 +57,7 @@ import com.splicemachine.derby.stream.output.WriteReadUtils;
 import com.splicemachine.derby.stream.output.insert.InsertPipelineWriter;
 import com.splicemachine.pipeline.ErrorState;
 import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.protobuf.ProtoUtil;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.utils.Pair;
@@ -70,6 +82,7 @@ public class InsertOperation extends DMLWriteOperation implements HasIncrement{
     public InsertNode.InsertMode insertMode;
     public String statusDirectory;
     private int failBadRecordCount;
+    private String bulkImportDirectory;
 
 
     @Override
@@ -88,6 +101,7 @@ public class InsertOperation extends DMLWriteOperation implements HasIncrement{
                            String insertMode,
                            String statusDirectory,
                            int failBadRecordCount,
+                           String bulkImportDirectory,
                            double optimizerEstimatedRowCount,
                            double optimizerEstimatedCost,
                            String tableVersion) throws StandardException{
@@ -95,6 +109,7 @@ public class InsertOperation extends DMLWriteOperation implements HasIncrement{
         this.insertMode=InsertNode.InsertMode.valueOf(insertMode);
         this.statusDirectory=statusDirectory;
         this.failBadRecordCount = (failBadRecordCount >= 0 ? failBadRecordCount : -1);
+        this.bulkImportDirectory=bulkImportDirectory;
         init();
     }
 
@@ -142,6 +157,46 @@ public class InsertOperation extends DMLWriteOperation implements HasIncrement{
         return this.failBadRecordCount >= 0 && numberOfErrors > this.failBadRecordCount;
     }
 
+    /**
+     * A bulk import writes HFiles and loads them straight into the table's regions, so none of the write
+     * pipeline's handlers run. This checks that nothing which only the pipeline enforces is defined on the
+     * table, and returns the indexes which the import must maintain itself.
+     *
+     * @return the indexes of the table
+     * @throws StandardException if the table cannot be bulk imported into
+     */
+    public List<DDLMessage.TentativeIndex> getBulkImportIndexes() throws StandardException{
+        if(insertMode==InsertNode.InsertMode.UPSERT)
+            throw StandardException.newException(SQLState.NOT_IMPLEMENTED,"bulk import with UPSERT");
+        LanguageConnectionContext lcc=activation.getLanguageConnectionContext();
+        DataDictionary dd=lcc.getDataDictionary();
+        TableDescriptor td=dd.getTableDescriptor(dd.getConglomerateDescriptor(heapConglom).getTableID());
+        if(!dd.getTriggerDescriptors(td).isEmpty())
+            throw StandardException.newException(SQLState.NOT_IMPLEMENTED,"bulk import into a table with triggers");
+        for(ConstraintDescriptor constraint:dd.getConstraintDescriptors(td)){
+            if(constraint.getConstraintType()==DataDictionary.FOREIGNKEY_CONSTRAINT)
+                throw StandardException.newException(SQLState.NOT_IMPLEMENTED,"bulk import into a table with foreign keys");
+        }
+
+        /*
+         * Several descriptors can share an index conglomerate (e.g. a constraint re-using an index). As in
+         * DerbyContextFactoryLoader, the conglomerate is encoded as a unique index if any of them is unique.
+         */
+        Map<Long,ConglomerateDescriptor> indexConglomerates=new LinkedHashMap<>();
+        for(ConglomerateDescriptor cd:td.getConglomerateDescriptorList()){
+            if(!cd.isIndex()) continue;
+            ConglomerateDescriptor previous=indexConglomerates.get(cd.getConglomerateNumber());
+            if(previous==null || (!previous.getIndexDescriptor().isUnique() && cd.getIndexDescriptor().isUnique()))
+                indexConglomerates.put(cd.getConglomerateNumber(),cd);
+        }
+        List<DDLMessage.TentativeIndex> indexes=new ArrayList<>(indexConglomerates.size());
+        for(ConglomerateDescriptor cd:indexConglomerates.values()){
+            indexes.add(ProtoUtil.createTentativeIndex(lcc,heapConglom,cd.getConglomerateNumber(),td,
+                    cd.getIndexDescriptor().getIndexDescriptor()));
+        }
+        return indexes;
+    }
+
     @Override
     public String toString(){
         return "Insert{destTable="+heapConglom+",source="+source+"}";
@@ -214,6 +269,8 @@ public class InsertOperation extends DMLWriteOperation implements HasIncrement{
         if(in.readBoolean())
             statusDirectory=in.readUTF();
         failBadRecordCount=in.readInt();
+        if(in.readBoolean())
+            bulkImportDirectory=in.readUTF();
     }
 
     @Override
@@ -229,6 +286,9 @@ public class InsertOperation extends DMLWriteOperation implements HasIncrement{
         if(statusDirectory!=null)
             out.writeUTF(statusDirectory);
         out.writeInt(failBadRecordCount);
+        out.writeBoolean(bulkImportDirectory!=null);
+        if(bulkImportDirectory!=null)
+            out.writeUTF(bulkImportDirectory);
     }
 
     @SuppressWarnings({ "unchecked" })
@@ -259,6 +319,7 @@ public class InsertOperation extends DMLWriteOperation implements HasIncrement{
                     .isUpsert(insertMode.equals(InsertNode.InsertMode.UPSERT))
                     .pkCols(pkCols)
                     .tableVersion(tableVersion)
+                    .bulkImportDirectory(bulkImportDirectory)
                     .destConglomerate(heapConglom)
                     .operationContext(operationContext)
                     .txn(txn)
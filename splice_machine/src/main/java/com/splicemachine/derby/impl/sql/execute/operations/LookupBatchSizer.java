@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+/**
+ * Chooses how many rows an index lookup fetches from the base table in a single network operation.
+ *
+ * Lookups start small, so that the first base rows come back quickly, and the size doubles after each lookup
+ * which finishes in under half of the target latency. A lookup which takes longer than the target shrinks the
+ * size to the number of rows which, at the rate just observed, would have fit in the target. The size is also
+ * capped so that the bytes which a lookup returns (estimated from a moving average of the bytes per row) stay
+ * within a budget, and it never leaves [minSize,maxSize].
+ */
+class LookupBatchSizer{
+    private final int minSize;
+    private final int maxSize;
+    private final long targetLatencyNanos;
+    private final long maxBatchBytes;
+    private int batchSize;
+    private double bytesPerRow;
+
+    LookupBatchSizer(int minSize,int maxSize,long targetLatencyNanos,long maxBatchBytes){
+        assert minSize>0 && minSize<=maxSize: "Invalid batch size bounds ["+minSize+","+maxSize+"]";
+        this.minSize=minSize;
+        this.maxSize=maxSize;
+        this.targetLatencyNanos=targetLatencyNanos;
+        this.maxBatchBytes=maxBatchBytes;
+        this.batchSize=minSize;
+    }
+
+    int batchSize(){
+        return batchSize;
+    }
+
+    /**
+     * Adjust the batch size after a lookup.
+     *
+     * @param rows the number of rows that the lookup fetched
+     * @param latencyNanos how long the lookup took
+     * @param bytes the number of bytes that the lookup returned
+     */
+    void record(int rows,long latencyNanos,long bytes){
+        if(rows<=0) return;
+        double rowBytes=((double)bytes)/rows;
+        bytesPerRow=bytesPerRow<=0d?rowBytes:0.75d*bytesPerRow+0.25d*rowBytes;
+
+        long next=batchSize;
+        if(latencyNanos>targetLatencyNanos)
+            next=(long)(rows*((double)targetLatencyNanos/latencyNanos));
+        else if(latencyNanos<targetLatencyNanos/2 && rows>=batchSize/2)
+            next=2L*batchSize; //a lookup much smaller than the batch size tells us nothing about larger ones
+        if(bytesPerRow>0d)
+            next=Math.min(next,(long)(maxBatchBytes/bytesPerRow));
+        batchSize=(int)Math.max(minSize,Math.min(maxSize,next));
+    }
+}
@@ -15,9 +15,12 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
 import com.splicemachine.derby.stream.function.NLJAntiJoinFunction;
+import com.splicemachine.derby.stream.function.NLJBatchedJoinFunction;
 import com.splicemachine.derby.stream.function.NLJInnerJoinFunction;
 import com.splicemachine.derby.stream.function.NLJOneRowInnerJoinFunction;
 import com.splicemachine.derby.stream.function.NLJOuterJoinFunction;
@@ -97,6 +100,9 @@ public class NestedLoopJoinOperation extends JoinOperation {
 
         operationContext.pushScope();
         try {
+            int batchSize = probeBatchSize();
+            if (batchSize > 1)
+                return left.mapPartitions(new NLJBatchedJoinFunction(operationContext, joinType(), batchSize), true);
             if (isOuterJoin)
                 return left.flatMap(new NLJOuterJoinFunction(operationContext), true);
             else {
@@ -113,4 +119,25 @@ public class NestedLoopJoinOperation extends JoinOperation {
             operationContext.popScope();
         }
     }
+
+    /**
+     * @return the number of outer rows to probe the inner side with at once, or 0 if the inner side
+     * has to be opened for each outer row in turn.
+     */
+    private int probeBatchSize() {
+        if (rightResultSet.getClass() != TableScanOperation.class)
+            return 0; // only plain table and index scans can read several probes at once
+        SConfiguration config = EngineDriver.driver().getConfiguration();
+        return config == null ? 0 : config.getNestedLoopJoinBatchSize();
+    }
+
+    private NLJBatchedJoinFunction.JoinType joinType() {
+        if (isOuterJoin)
+            return NLJBatchedJoinFunction.JoinType.OUTER;
+        if (notExistsRightSide)
+            return NLJBatchedJoinFunction.JoinType.ANTI;
+        if (oneRowRightSide)
+            return NLJBatchedJoinFunction.JoinType.ONE_ROW_INNER;
+        return NLJBatchedJoinFunction.JoinType.INNER;
+    }
 }
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.hash.HashFunctions;
+import com.splicemachine.hash.Hash32;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A multi-map from encoded keys to encoded values which keeps its data in direct memory.
+ * <p/>
+ * Entries are hashed into a fixed number of partitions. Each resident partition appends its
+ * entries into an arena of direct buffers, and indexes them with an open-addressing table
+ * whose slots hold the arena address of the first entry for each distinct key; entries which
+ * share a key are chained through the arena itself. No per-entry objects live on the heap.
+ * <p/>
+ * When the memory held by resident partitions exceeds the configured budget, the largest
+ * resident partition is written out to a file in the spill directory and released. Once
+ * loading is finished, spilled partitions are read back in on demand, evicting other spilled
+ * partitions (which can always be re-read) to stay within the budget where possible.
+ * <p/>
+ * Loading is single-threaded, but once {@link #finishLoading()} has been called the table
+ * may be read from many threads at once. The owner must {@link #close()} the table once no reader
+ * is using it any longer; that frees the direct memory and deletes the spill files.
+ */
+class OffHeapHashTable implements Closeable{
+    private static final Logger LOG=Logger.getLogger(OffHeapHashTable.class);
+    private static final Hash32 HASH=HashFunctions.murmur3(0);
+
+    static final int NUM_PARTITIONS=64;
+    /*
+     * chunks start small and double with each allocation, so that small tables don't pay for
+     * a full chunk in each of their partitions
+     */
+    private static final int MIN_CHUNK_SIZE=1<<14;
+    private static final int MAX_CHUNK_SIZE=1<<20;
+    private static final int INITIAL_SLOTS=1<<10;
+    /*
+     * entry layout: hash(4) | keyLength(4) | valueLength(4) | next(8) | key | value
+     */
+    private static final int HEADER_SIZE=20;
+    private static final long NO_ENTRY=-1L;
+
+    private final Partition[] partitions;
+    private final long memoryBudget;
+    private final File spillDirectory;
+    private final AtomicLong memoryUsed=new AtomicLong(0L);
+    private final AtomicLong bytesSpilled=new AtomicLong(0L);
+    private volatile boolean loading=true;
+    private volatile boolean closed=false;
+
+    OffHeapHashTable(long memoryBudget,File spillDirectory){
+        this.memoryBudget=memoryBudget;
+        this.spillDirectory=spillDirectory;
+        this.partitions=new Partition[NUM_PARTITIONS];
+        for(int i=0;i<partitions.length;i++){
+            partitions[i]=new Partition();
+        }
+    }
+
+    /**
+     * Add an entry to the table. Must only be called by the loading thread, before
+     * {@link #finishLoading()}.
+     */
+    void put(byte[] key,byte[] value) throws IOException{
+        assert loading: "Programmer error: cannot add entries after loading has finished";
+        int hash=HASH.hash(key,0,key.length);
+        Partition partition=partitions[partitionFor(hash)];
+        if(partition.spillFile!=null){
+            partition.appendToSpill(key,value);
+            return;
+        }
+        Arena arena=partition.arena.get();
+        long before=arena.footprint();
+        arena.put(hash,key,value);
+        long used=memoryUsed.addAndGet(arena.footprint()-before);
+        while(used>memoryBudget){
+            Partition victim=largestResidentPartition();
+            if(victim==null) break;
+            used=memoryUsed.addAndGet(-victim.spill());
+        }
+    }
+
+    /**
+     * Indicate that no further entries will be added. Closes out the spill files, after which
+     * the table is safe for concurrent readers.
+     */
+    void finishLoading() throws IOException{
+        for(Partition partition:partitions){
+            partition.finishSpill();
+        }
+        loading=false;
+        if(LOG.isDebugEnabled()){
+            LOG.debug(String.format("Loaded join table with %d bytes in memory and %d bytes spilled to disk",
+                    memoryUsed.get(),bytesSpilled.get()));
+        }
+    }
+
+    /**
+     * @return all the values stored under {@code key}, in no particular order.
+     */
+    List<byte[]> get(byte[] key) throws IOException{
+        int hash=HASH.hash(key,0,key.length);
+        Partition partition=partitions[partitionFor(hash)];
+        Arena arena=partition.arena.get();
+        if(arena==null)
+            arena=partition.reload();
+        return arena.get(hash,key);
+    }
+
+    /**
+     * @return the number of bytes of direct memory currently held by resident partitions
+     */
+    long getMemoryFootprint(){
+        return memoryUsed.get();
+    }
+
+    /**
+     * @return the number of bytes written to spill files
+     */
+    long getBytesSpilled(){
+        return bytesSpilled.get();
+    }
+
+    /**
+     * Free the direct memory of the table and delete its spill files. Must only be called once no
+     * reader is using the table.
+     */
+    @Override
+    public void close(){
+        if(closed) return;
+        closed=true;
+        for(Partition partition:partitions){
+            partition.release();
+        }
+        memoryUsed.set(0L);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private int partitionFor(int hash){
+        /*
+         * use the high bits for the partition, so that the open-addressing table
+         * (which uses the low bits) still sees a good spread within each partition
+         */
+        return (hash>>>26)&(NUM_PARTITIONS-1);
+    }
+
+    private Partition largestResidentPartition(){
+        Partition largest=null;
+        long largestSize=0L;
+        for(Partition partition:partitions){
+            Arena arena=partition.arena.get();
+            if(arena==null) continue;
+            long size=arena.footprint();
+            if(size>largestSize){
+                largest=partition;
+                largestSize=size;
+            }
+        }
+        return largest;
+    }
+
+    private void evictForReload(Partition reloading,long needed){
+        for(Partition partition:partitions){
+            if(memoryUsed.get()+needed<=memoryBudget) return;
+            if(partition==reloading) continue;
+            partition.evict();
+        }
+    }
+
+    private class Partition{
+        private final AtomicReference<Arena> arena=new AtomicReference<>(new Arena());
+        private File spillFile;
+        private DataOutputStream spillOut;
+
+        void appendToSpill(byte[] key,byte[] value) throws IOException{
+            spillOut.writeInt(key.length);
+            spillOut.write(key);
+            spillOut.writeInt(value.length);
+            spillOut.write(value);
+            bytesSpilled.addAndGet(8+key.length+value.length);
+        }
+
+        /**
+         * Write the resident entries of this partition to disk, and release the arena.
+         *
+         * @return the number of bytes of memory released
+         */
+        long spill() throws IOException{
+            Arena toSpill=arena.get();
+            spillFile=File.createTempFile("broadcast-join-",".spill",spillDirectory);
+            spillOut=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+            toSpill.writeTo(this);
+            arena.set(null);
+            long released=toSpill.footprint();
+            toSpill.free(); //we're still loading, so no reader can hold the arena
+            return released;
+        }
+
+        void finishSpill() throws IOException{
+            if(spillOut!=null){
+                spillOut.close();
+                spillOut=null;
+            }
+        }
+
+        synchronized Arena reload() throws IOException{
+            Arena a=arena.get();
+            if(a!=null) return a; //someone else reloaded it already
+            if(closed)
+                throw new IOException("Join table has already been closed");
+
+            long needed=spillFile.length();
+            evictForReload(this,needed);
+            a=new Arena();
+            try(DataInputStream in=new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)))){
+                while(true){
+                    int keyLength;
+                    try{
+                        keyLength=in.readInt();
+                    }catch(EOFException eof){
+                        break;
+                    }
+                    byte[] key=new byte[keyLength];
+                    in.readFully(key);
+                    byte[] value=new byte[in.readInt()];
+                    in.readFully(value);
+                    a.put(HASH.hash(key,0,key.length),key,value);
+                }
+            }
+            memoryUsed.addAndGet(a.footprint());
+            arena.set(a);
+            return a;
+        }
+
+        /**
+         * Drop the resident copy of a spilled partition. Readers which already hold the arena
+         * may continue to use it; the direct memory is reclaimed once they are done with it.
+         */
+        void evict(){
+            if(spillFile==null) return; //never-spilled partitions cannot be re-read
+            Arena a=arena.get();
+            if(a!=null && arena.compareAndSet(a,null))
+                memoryUsed.addAndGet(-a.footprint());
+        }
+
+        synchronized void release(){
+            Arena a=arena.getAndSet(null);
+            if(a!=null)
+                a.free();
+            try{
+                finishSpill();
+            }catch(IOException e){
+                LOG.warn("Unable to close spill file "+spillFile,e);
+            }
+            if(spillFile!=null && !spillFile.delete())
+                LOG.warn("Unable to delete spill file "+spillFile);
+        }
+    }
+
+    /**
+     * The in-memory representation of a single partition.
+     */
+    private static class Arena{
+        private final List<ByteBuffer> chunks=new ArrayList<>();
+        private ByteBuffer current;
+        private long allocated;
+        private long[] slots;
+        private int size;
+
+        Arena(){
+            this.slots=new long[INITIAL_SLOTS];
+            Arrays.fill(slots,NO_ENTRY);
+        }
+
+        long footprint(){
+            return allocated+8L*slots.length;
+        }
+
+        void put(int hash,byte[] key,byte[] value){
+            int mask=slots.length-1;
+            int pos=hash&mask;
+            long head;
+            while((head=slots[pos])!=NO_ENTRY){
+                if(keyMatches(head,hash,key)) break;
+                pos=(pos+1)&mask;
+            }
+            slots[pos]=append(hash,key,value,head);
+            if(head==NO_ENTRY){
+                size++;
+                if(size>(slots.length>>1)+(slots.length>>2))
+                    resize();
+            }
+        }
+
+        List<byte[]> get(int hash,byte[] key){
+            int mask=slots.length-1;
+            int pos=hash&mask;
+            long head;
+            while((head=slots[pos])!=NO_ENTRY){
+                if(keyMatches(head,hash,key)){
+                    List<byte[]> values=new ArrayList<>(1);
+                    long entry=head;
+                    while(entry!=NO_ENTRY){
+                        ByteBuffer chunk=chunkFor(entry);
+                        int offset=offsetOf(entry);
+                        int keyLength=chunk.getInt(offset+4);
+                        byte[] v=new byte[chunk.getInt(offset+8)];
+                        read(chunk,offset+HEADER_SIZE+keyLength,v);
+                        values.add(v);
+                        entry=chunk.getLong(offset+12);
+                    }
+                    return values;
+                }
+                pos=(pos+1)&mask;
+            }
+            return Collections.emptyList();
+        }
+
+        void writeTo(Partition partition) throws IOException{
+            for(long head:slots){
+                long entry=head;
+                while(entry!=NO_ENTRY){
+                    ByteBuffer chunk=chunkFor(entry);
+                    int offset=offsetOf(entry);
+                    byte[] k=new byte[chunk.getInt(offset+4)];
+                    byte[] v=new byte[chunk.getInt(offset+8)];
+                    read(chunk,offset+HEADER_SIZE,k);
+                    read(chunk,offset+HEADER_SIZE+k.length,v);
+                    partition.appendToSpill(k,v);
+                    entry=chunk.getLong(offset+12);
+                }
+            }
+        }
+
+        /**
+         * Drop the arena's buffers, so that their direct memory is reclaimed as soon as they are
+         * garbage collected. The arena must not be used afterwards.
+         */
+        void free(){
+            chunks.clear();
+            current=null;
+        }
+
+        private long append(int hash,byte[] key,byte[] value,long next){
+            int entrySize=HEADER_SIZE+key.length+value.length;
+            if(current==null || current.remaining()<entrySize){
+                int chunkSize=Math.min(MAX_CHUNK_SIZE,MIN_CHUNK_SIZE<<Math.min(chunks.size(),6));
+                current=ByteBuffer.allocateDirect(Math.max(chunkSize,entrySize));
+                chunks.add(current);
+                allocated+=current.capacity();
+            }
+            long address=((long)(chunks.size()-1)<<32)|current.position();
+            current.putInt(hash);
+            current.putInt(key.length);
+            current.putInt(value.length);
+            current.putLong(next);
+            current.put(key);
+            current.put(value);
+            return address;
+        }
+
+        private boolean keyMatches(long entry,int hash,byte[] key){
+            ByteBuffer chunk=chunkFor(entry);
+            int offset=offsetOf(entry);
+            if(chunk.getInt(offset)!=hash || chunk.getInt(offset+4)!=key.length) return false;
+            int keyOffset=offset+HEADER_SIZE;
+            for(int i=0;i<key.length;i++){
+                if(chunk.get(keyOffset+i)!=key[i]) return false;
+            }
+            return true;
+        }
+
+        private void resize(){
+            long[] newSlots=new long[slots.length<<1];
+            Arrays.fill(newSlots,NO_ENTRY);
+            int mask=newSlots.length-1;
+            for(long head:slots){
+                if(head==NO_ENTRY) continue;
+                int pos=chunkFor(head).getInt(offsetOf(head))&mask;
+                while(newSlots[pos]!=NO_ENTRY){
+                    pos=(pos+1)&mask;
+                }
+                newSlots[pos]=head;
+            }
+            slots=newSlots;
+        }
+
+        private ByteBuffer chunkFor(long address){
+            return chunks.get((int)(address>>>32));
+        }
+
+        private static int offsetOf(long address){
+            return (int)address;
+        }
+
+        private static void read(ByteBuffer chunk,int offset,byte[] dest){
+            ByteBuffer view=chunk.duplicate();
+            view.position(offset);
+            view.get(dest);
+        }
+    }
+}
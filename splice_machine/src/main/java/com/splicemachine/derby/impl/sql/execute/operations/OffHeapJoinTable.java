@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A JoinTable whose inner rows are held in encoded form in an {@link OffHeapHashTable}, and
+ * are only decoded into ExecRows as they are fetched.
+ */
+class OffHeapJoinTable implements JoinTable{
+    private final OffHeapHashTable table;
+    private final ExecRow innerTemplateRow;
+    private final KeyEncoder outerKeyEncoder;
+    private final KeyHashDecoder innerRowDecoder;
+
+    public OffHeapJoinTable(OffHeapHashTable table,ExecRow innerTemplateRow,int[] outerHashKeys,ExecRow outerTemplateRow){
+        this.table=table;
+        this.innerTemplateRow=innerTemplateRow;
+        DescriptorSerializer[] serializers=VersionedSerializers.latestVersion(false).getSerializers(outerTemplateRow);
+        this.outerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                BareKeyHash.encoder(outerHashKeys,null,serializers),NoOpPostfix.INSTANCE);
+        if(innerTemplateRow!=null){
+            DescriptorSerializer[] innerSerializers=VersionedSerializers.latestVersion(false).getSerializers(innerTemplateRow);
+            this.innerRowDecoder=BareKeyHash.decoder(null,null,innerSerializers);
+        }else
+            this.innerRowDecoder=null;
+    }
+
+    @Override
+    public Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException{
+        if(innerTemplateRow==null)
+            return Collections.emptyIterator(); //the inner side was empty
+        byte[] outerKey=outerKeyEncoder.getKey(outer);
+        assert outerKey!=null: "Programmer error: outer row does not have row key";
+        List<byte[]> rows=table.get(outerKey);
+        if(rows.isEmpty())
+            return Collections.emptyIterator();
+        else
+            return new DecodingIterator(rows);
+    }
+
+    @Override
+    public void close(){
+        try{
+            outerKeyEncoder.close();
+            if(innerRowDecoder!=null)
+                innerRowDecoder.close();
+        }catch(IOException ignored){
+            //encoders hold no external resources
+        }
+    }
+
+    private class DecodingIterator implements Iterator<ExecRow>{
+        private final List<byte[]> rows;
+        private int position=0;
+
+        DecodingIterator(List<byte[]> rows){
+            this.rows=rows;
+        }
+
+        @Override
+        public boolean hasNext(){
+            return position<rows.size();
+        }
+
+        @Override
+        public ExecRow next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            byte[] encoded=rows.get(position++);
+            ExecRow row=innerTemplateRow.getNewNullRow();
+            innerRowDecoder.set(encoded,0,encoded.length);
+            try{
+                innerRowDecoder.decode(row);
+            }catch(StandardException e){
+                throw new RuntimeException(e);
+            }
+            return row;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class Factory implements JoinTable.Factory{
+        private final OffHeapHashTable table;
+        private final ExecRow innerTemplateRow;
+        private final int[] outerHashKeys;
+        private final ExecRow outerTemplateRow;
+
+        public Factory(OffHeapHashTable table,ExecRow innerTemplateRow,int[] outerHashKeys,ExecRow outerTemplateRow){
+            this.table=table;
+            this.innerTemplateRow=innerTemplateRow;
+            this.outerHashKeys=outerHashKeys;
+            this.outerTemplateRow=outerTemplateRow;
+        }
+
+        @Override
+        public JoinTable newTable(){
+            return new OffHeapJoinTable(table,innerTemplateRow,outerHashKeys,outerTemplateRow);
+        }
+
+        @Override
+        public void release(){
+            table.close();
+        }
+    }
+}
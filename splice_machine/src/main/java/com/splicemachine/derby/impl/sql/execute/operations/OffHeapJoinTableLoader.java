@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.DataHash;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.StreamException;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads the inner side of a Broadcast join into an {@link OffHeapHashTable}, keyed by the
+ * KeyEncoder bytes of the inner hash columns, with each row stored in its encoded form.
+ */
+@ThreadSafe
+class OffHeapJoinTableLoader implements BroadcastJoinCache.JoinTableLoader{
+    private final long memoryBudget;
+    private final File spillDirectory;
+
+    OffHeapJoinTableLoader(long memoryBudget,String spillDirectory){
+        this.memoryBudget=memoryBudget;
+        this.spillDirectory=new File(spillDirectory);
+    }
+
+    @Override
+    public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,
+                                  int[] innerHashKeys,
+                                  int[] outerHashKeys,
+                                  ExecRow outerTemplateRow,
+                                  OperationContext operationContext) throws ExecutionException{
+        OffHeapHashTable table=new OffHeapHashTable(memoryBudget,spillDirectory);
+
+        ExecRow innerTemplateRow=null;
+        KeyEncoder innerKeyEncoder=null;
+        DataHash<ExecRow> innerRowEncoder=null;
+
+        try(Stream<ExecRow> innerRows=streamLoader.call()){
+            ExecRow right;
+            while((right=innerRows.next())!=null){
+                if(innerTemplateRow==null){
+                    innerTemplateRow=right.getNewNullRow();
+                    DescriptorSerializer[] innerSerializers=VersionedSerializers.latestVersion(false).getSerializers(right);
+                    innerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                            BareKeyHash.encoder(innerHashKeys,null,innerSerializers),NoOpPostfix.INSTANCE);
+                    innerRowEncoder=BareKeyHash.encoder(null,null,innerSerializers);
+                }
+
+                innerRowEncoder.setRow(right);
+                table.put(innerKeyEncoder.getKey(right),innerRowEncoder.encode());
+            }
+            table.finishLoading();
+        }catch(StreamException e){
+            table.close();
+            throw new ExecutionException(e.getCause());
+        }catch(Exception e){
+            table.close();
+            if(e instanceof ExecutionException) throw (ExecutionException)e;
+            else throw new ExecutionException(e);
+        }
+
+        if(operationContext!=null)
+            operationContext.recordJoinTableMemory(table.getMemoryFootprint());
+        return new OffHeapJoinTable.Factory(table,innerTemplateRow,outerHashKeys,outerTemplateRow);
+    }
+}
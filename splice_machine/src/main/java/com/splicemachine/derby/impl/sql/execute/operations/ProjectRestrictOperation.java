@@ -252,6 +252,10 @@ public class ProjectRestrictOperation extends SpliceBaseOperation {
 				return this.source;
 		}
 
+		public boolean isAlwaysFalse() {
+				return alwaysFalse;
+		}
+
 		@Override
 		public String prettyPrint(int indentLevel) {
 				String indent = "\n"+ Strings.repeat("\t",indentLevel);
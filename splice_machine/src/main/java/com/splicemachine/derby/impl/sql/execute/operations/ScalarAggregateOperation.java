@@ -119,10 +119,26 @@ public class ScalarAggregateOperation extends GenericAggregateOperation {
 
     @Override
     public DataSet<LocatedRow> getDataSet(DataSetProcessor dsp) throws StandardException {
+        relaxScanOrder();
+        VectorizedScalarAggregate vectorized = VectorizedScalarAggregate.forOperation(this, dsp);
+        if (vectorized != null)
+            return vectorized.getDataSet(dsp);
         OperationContext<ScalarAggregateOperation> operationContext = dsp.createOperationContext(this);
         DataSet<LocatedRow> dsSource = source.getDataSet(dsp);
         DataSet<LocatedRow> ds = dsSource.mapPartitions(new ScalarAggregateFlatMapFunction(operationContext, false), false, /*pushScope=*/true, "First Aggregation");
         DataSet<LocatedRow> ds2 = ds.coalesce(1, /*shuffle=*/true, /*isLast=*/false, operationContext, /*pushScope=*/true, "Coalesce");
         return ds2.mapPartitions(new ScalarAggregateFlatMapFunction(operationContext, true), /*isLast=*/true, /*pushScope=*/true, "Final Aggregation");
     }
+
+    /*
+     * An aggregate doesn't depend on the order of its input, so when we read straight from a table
+     * scan (perhaps through a ProjectRestrict), that scan is free to return its rows in any order.
+     */
+    private void relaxScanOrder() {
+        SpliceOperation scan = source;
+        if (scan instanceof ProjectRestrictOperation)
+            scan = ((ProjectRestrictOperation) scan).getSource();
+        if (scan.getClass() == TableScanOperation.class)
+            ((TableScanOperation) scan).setOrderedScan(false);
+    }
 }
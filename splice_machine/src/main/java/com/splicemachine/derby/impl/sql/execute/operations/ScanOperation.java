@@ -22,6 +22,7 @@ import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.execute.ExecIndexRow;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.impl.sql.execute.BaseActivation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
@@ -168,6 +169,28 @@ public abstract class ScanOperation extends SpliceBaseOperation{
         return s;
     }
 
+    /**
+     * @return true if this scan reads at most the single row whose key is the start key of its scan, so that the
+     * row can be fetched by its key rather than scanned for. That is the case when the optimizer has proven that
+     * the scan returns at most one row, by equality on every column of the table's primary key. Unique indexes
+     * are not point lookups, because the key of an index row may carry more than the indexed columns.
+     */
+    public boolean isPointLookup() throws StandardException{
+        if(!oneRowScan || !scanInformation.isSameStartStopPosition() || scanInformation.isKeyed())
+            return false;
+        if(((BaseActivation)activation).getScanStartOverride()!=null)
+            return false;
+        int[] keyColumns=getColumnOrdering();
+        ExecIndexRow startPosition=scanInformation.getStartPosition();
+        if(keyColumns==null || keyColumns.length==0 || startPosition==null || startPosition.nColumns()!=keyColumns.length)
+            return false;
+        for(DataValueDescriptor dvd:startPosition.getRowArray()){
+            //no start key is generated from a null, so the scan is not bounded to a single key
+            if(dvd==null || dvd.isNull()) return false;
+        }
+        return true;
+    }
+
     public DataScan getReversedNonSIScan() throws StandardException{
         return getNonSIScan().reverseOrder();
     }
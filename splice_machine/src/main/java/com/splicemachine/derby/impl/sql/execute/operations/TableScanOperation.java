@@ -30,6 +30,7 @@ import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.output.WriteReadUtils;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.DataScan;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -55,6 +56,8 @@ public class TableScanOperation extends ScanOperation{
     protected int[] baseColumnMap;
     protected static final String NAME=TableScanOperation.class.getSimpleName().replaceAll("Operation","");
     protected byte[] tableNameBytes;
+    private boolean orderedScan=true;
+    private List<DataScan> probeScans;
 
     /**
      *
@@ -307,6 +310,25 @@ public class TableScanOperation extends ScanOperation{
         }
     }
 
+    /**
+     * Tell the scan whether whatever consumes its rows relies on them arriving in key order. When it
+     * doesn't, a parallel control-side scan may return rows as soon as any region produces them.
+     */
+    void setOrderedScan(boolean orderedScan){
+        this.orderedScan=orderedScan;
+    }
+
+    /**
+     * Read the rows of each of {@code probeScans} the next time that the scan is opened, rather than computing
+     * a single scan from the current start and stop keys. Used by batched nested loop joins, which compute one
+     * probe scan for each outer row and then read them all together. Only supported on the control side.
+     *
+     * @param probeScans the scans to read, or {@code null} to go back to scanning normally
+     */
+    public void setProbeScans(List<DataScan> probeScans){
+        this.probeScans=probeScans;
+    }
+
     /**
      *
      * Retrieve the Table Scan Builder for creating the actual data set from a scan.
@@ -321,7 +343,9 @@ public class TableScanOperation extends ScanOperation{
                 .tableDisplayName(tableDisplayName)
                 .activation(activation)
                 .transaction(txn)
-                .scan(getNonSIScan())
+                .scan(probeScans!=null?probeScans.get(0):getNonSIScan())
+                .probeScans(probeScans)
+                .pointLookup(probeScans==null && isPointLookup())
                 .template(currentTemplate)
                 .tableVersion(tableVersion)
                 .indexName(indexName)
@@ -333,6 +357,7 @@ public class TableScanOperation extends ScanOperation{
                 .accessedKeyColumns(scanInformation.getAccessedPkColumns())
                 .keyDecodingMap(getKeyDecodingMap())
                 .rowDecodingMap(baseColumnMap)
+                .ordered(orderedScan)
                 .buildDataSet(this);
     }
 }
\ No newline at end of file
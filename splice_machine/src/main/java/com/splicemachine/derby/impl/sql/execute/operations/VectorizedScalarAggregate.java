@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.sql.execute.VectorAggregator;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.iapi.Restriction;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.ColumnBatch;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.DataSetProcessor;
+import com.splicemachine.derby.stream.iterator.TableScannerIterator;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Batch-mode execution of a ScalarAggregateOperation over a ProjectRestrictOperation over a
+ * TableScanOperation, on the control side.
+ *
+ * The scan fills a {@link ColumnBatch} at a time. SUM, AVG, COUNT, MAX and MIN over integral or floating point
+ * columns which the ProjectRestrict passes through unchanged are then accumulated a whole column vector at a
+ * time (see {@link VectorAggregator}). Everything which cannot work on vectors--a ProjectRestrict restriction,
+ * or an aggregate over a computed or non-numeric input--is evaluated on rows, which are materialized from the
+ * batch only for that purpose.
+ *
+ * @see ScalarAggregateOperation#getDataSet(DataSetProcessor)
+ */
+class VectorizedScalarAggregate{
+    private static final Logger LOG=Logger.getLogger(VectorizedScalarAggregate.class);
+
+    private final ScalarAggregateOperation op;
+    private final ProjectRestrictOperation projectRestrict;
+    private final TableScanOperation tableScan;
+    private final int batchSize;
+
+    private VectorizedScalarAggregate(ScalarAggregateOperation op,
+                                      ProjectRestrictOperation projectRestrict,
+                                      TableScanOperation tableScan,
+                                      int batchSize){
+        this.op=op;
+        this.projectRestrict=projectRestrict;
+        this.tableScan=tableScan;
+        this.batchSize=batchSize;
+    }
+
+    /**
+     * @return a batch-mode evaluator for {@code op}, or {@code null} if batch mode is disabled or
+     * {@code op} does not have a shape that batch mode supports.
+     */
+    static VectorizedScalarAggregate forOperation(ScalarAggregateOperation op,DataSetProcessor dsp){
+        if(dsp.getType()!=DataSetProcessor.Type.LOCAL) return null;
+        SConfiguration config=EngineDriver.driver().getConfiguration();
+        if(config==null || !config.isVectorizedExecutionEnabled()) return null;
+
+        SpliceOperation source=op.getSource();
+        if(!(source instanceof ProjectRestrictOperation)) return null;
+        ProjectRestrictOperation pr=(ProjectRestrictOperation)source;
+        if(pr.isAlwaysFalse() || pr.getSource().getClass()!=TableScanOperation.class) return null;
+        for(SpliceGenericAggregator aggregate:op.aggregates){
+            if(aggregate.getAggregatorInfo()!=null && aggregate.isDistinct()) return null;
+        }
+        return new VectorizedScalarAggregate(op,pr,(TableScanOperation)pr.getSource(),config.getVectorizedBatchSize());
+    }
+
+    DataSet<LocatedRow> getDataSet(DataSetProcessor dsp) throws StandardException{
+        Iterator<LocatedRow> scan=tableScan.getDataSet(dsp).toLocalIterator();
+        assert scan instanceof TableScannerIterator: "Control-side table scans should be TableScannerIterators";
+        TableScannerIterator scanner=(TableScannerIterator)scan;
+
+        ExecRow scanTemplate=tableScan.currentTemplate;
+        ColumnBatch batch=new ColumnBatch(scanTemplate,batchSize);
+
+        ExecRow aggRow=op.getExecRowDefinition();
+        List<VectorInput> vectorAggregates=new ArrayList<>(op.aggregates.length);
+        List<SpliceGenericAggregator> rowAggregates=new ArrayList<>(op.aggregates.length);
+        for(SpliceGenericAggregator aggregate:op.aggregates){
+            aggregate.initialize(aggRow);
+            VectorInput input=vectorInput(aggregate,aggRow,batch,scanTemplate);
+            if(input!=null) vectorAggregates.add(input);
+            else rowAggregates.add(aggregate);
+        }
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"Aggregating %d aggregates on vectors and %d on rows",
+                    vectorAggregates.size(),rowAggregates.size());
+
+        boolean needsRows=projectRestrict.restriction!=null || !rowAggregates.isEmpty();
+        ExecRow scanRow=needsRows?scanTemplate.getNewNullRow():null;
+        Restriction restriction=projectRestrict.getRestriction();
+        long rowsAggregated=0;
+        try{
+            while(scanner.nextBatch(batch)>0){
+                if(needsRows)
+                    evaluateRows(batch,scanRow,restriction,rowAggregates,aggRow);
+                for(VectorInput input:vectorAggregates){
+                    input.accumulate(batch);
+                }
+                rowsAggregated+=batch.getNumSelected();
+            }
+        }catch(IOException e){
+            throw Exceptions.parseException(e);
+        }
+
+        if(rowsAggregated==0){
+            //match the row path, which returns the default row when there is no input
+            return dsp.singleRowDataSet(new LocatedRow(op.getExecRowDefinition()));
+        }
+        op.finishAggregation(aggRow);
+        return dsp.singleRowDataSet(new LocatedRow(aggRow));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    /**
+     * Apply the restriction to each selected row (dropping the rows which fail it from the selection), and
+     * accumulate the aggregates which cannot be done on vectors.
+     */
+    private void evaluateRows(ColumnBatch batch,
+                              ExecRow scanRow,
+                              Restriction restriction,
+                              List<SpliceGenericAggregator> rowAggregates,
+                              ExecRow aggRow) throws StandardException{
+        int[] selected=batch.getSelected();
+        int numSelected=batch.getNumSelected();
+        int kept=0;
+        for(int i=0;i<numSelected;i++){
+            int row=selected[i];
+            batch.materialize(row,scanRow);
+            projectRestrict.setCurrentRow(scanRow);
+            tableScan.setCurrentRow(scanRow);
+            if(!restriction.apply(scanRow)) continue;
+            if(!rowAggregates.isEmpty()){
+                ExecRow projected=projectRestrict.doProjection(scanRow);
+                for(SpliceGenericAggregator aggregate:rowAggregates){
+                    aggregate.accumulate(projected,aggRow);
+                }
+            }
+            selected[kept++]=row;
+        }
+        batch.setNumSelected(kept);
+    }
+
+    /**
+     * @return how to feed {@code aggregate} from column vectors, or {@code null} if it must be fed rows
+     */
+    private VectorInput vectorInput(SpliceGenericAggregator aggregate,
+                                    ExecRow aggRow,
+                                    ColumnBatch batch,
+                                    ExecRow scanTemplate) throws StandardException{
+        ExecAggregator ua=(ExecAggregator)aggRow.getColumn(aggregate.getAggregatorColumnId()).getObject();
+        if(!(ua instanceof VectorAggregator)) return null;
+        if(ua instanceof CountAggregator && ((CountAggregator)ua).isCountStar())
+            return new VectorInput((VectorAggregator)ua,-1,null); //COUNT(*) doesn't look at its input
+
+        int[] projectMapping=projectRestrict.projectMapping;
+        int inputPosition=aggregate.getInputColumnId()-1;
+        if(projectMapping==null || inputPosition>=projectMapping.length || projectMapping[inputPosition]<0)
+            return null; //the input is computed by the projection
+        int column=projectMapping[inputPosition]-1;
+        ColumnBatch.ColumnType type=batch.getType(column);
+        if(type!=ColumnBatch.ColumnType.LONG && type!=ColumnBatch.ColumnType.DOUBLE)
+            return null;
+        return new VectorInput((VectorAggregator)ua,column,scanTemplate.getColumn(column+1).getNewNull());
+    }
+
+    private static class VectorInput{
+        private final VectorAggregator aggregator;
+        private final int column;
+        private final DataValueDescriptor scratch;
+
+        VectorInput(VectorAggregator aggregator,int column,DataValueDescriptor scratch){
+            this.aggregator=aggregator;
+            this.column=column;
+            this.scratch=scratch;
+        }
+
+        void accumulate(ColumnBatch batch) throws StandardException{
+            int[] selected=batch.getSelected();
+            int numSelected=batch.getNumSelected();
+            if(column<0){
+                aggregator.accumulate(EMPTY_LONGS,EMPTY_NULLS,selected,numSelected,null);
+            }else if(batch.getType(column)==ColumnBatch.ColumnType.LONG){
+                aggregator.accumulate(batch.getLongs(column),batch.getNulls(column),selected,numSelected,scratch);
+            }else{
+                aggregator.accumulate(batch.getDoubles(column),batch.getNulls(column),selected,numSelected,scratch);
+            }
+        }
+    }
+
+    private static final long[] EMPTY_LONGS=new long[0];
+    private static final boolean[] EMPTY_NULLS=new boolean[0];
+}
@@ -44,6 +44,12 @@ public interface ScanInformation<T> {
 
     boolean isKeyed() throws StandardException;
 
+    /**
+     * @return true if the scan starts and stops at the same key, i.e. it only returns rows which equal its start
+     * position.
+     */
+    boolean isSameStartStopPosition();
+
     FormatableBitSet getAccessedColumns() throws StandardException;
 
     FormatableBitSet getAccessedNonPkColumns() throws StandardException;
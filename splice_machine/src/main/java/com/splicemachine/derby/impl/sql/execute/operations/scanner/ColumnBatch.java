@@ -0,0 +1,252 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+
+/**
+ * A batch of rows held column-wise.
+ *
+ * Integral columns (TINYINT through BIGINT) are held in a {@code long[]} and floating point columns
+ * (REAL and DOUBLE) in a {@code double[]}, so that the scanner can decode them without creating or touching
+ * a DataValueDescriptor, and so that consumers can operate on them in tight primitive loops. All other
+ * columns are held as one reusable DataValueDescriptor per row. Column positions are the 0-based positions
+ * of the template row the batch was created from; columns which are null in the template are not read by
+ * the scan, and have no vector.
+ *
+ * The batch also carries a selection vector, which lists the (ascending) rows that are still live after
+ * any filtering. Consumers should only look at the selected rows.
+ */
+@NotThreadSafe
+public class ColumnBatch{
+    public enum ColumnType{ LONG, DOUBLE, OBJECT, ABSENT }
+
+    private final ColumnType[] types;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final DataValueDescriptor[][] objects;
+    private final boolean[][] nulls;
+    private final boolean[] decoded;
+    private final int[] selected;
+    private final int capacity;
+
+    private int size;
+    private int numSelected;
+
+    public ColumnBatch(ExecRow template,int capacity){
+        DataValueDescriptor[] dvds=template.getRowArray();
+        this.capacity=capacity;
+        this.types=new ColumnType[dvds.length];
+        this.longs=new long[dvds.length][];
+        this.doubles=new double[dvds.length][];
+        this.objects=new DataValueDescriptor[dvds.length][];
+        this.nulls=new boolean[dvds.length][];
+        this.decoded=new boolean[dvds.length];
+        this.selected=new int[capacity];
+        for(int i=0;i<dvds.length;i++){
+            ColumnType type=typeOf(dvds[i]);
+            types[i]=type;
+            switch(type){
+                case LONG:
+                    longs[i]=new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles[i]=new double[capacity];
+                    break;
+                case OBJECT:
+                    objects[i]=new DataValueDescriptor[capacity];
+                    break;
+                default:
+                    continue;
+            }
+            nulls[i]=new boolean[capacity];
+        }
+    }
+
+    public static ColumnType typeOf(DataValueDescriptor dvd){
+        if(dvd==null) return ColumnType.ABSENT;
+        switch(dvd.getTypeFormatId()){
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return ColumnType.LONG;
+            case StoredFormatIds.SQL_REAL_ID:
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return ColumnType.DOUBLE;
+            default:
+                return ColumnType.OBJECT;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*Population methods, used by the scanner*/
+
+    /**
+     * Empty the batch, so that it can be filled again.
+     */
+    public void clear(){
+        size=0;
+        numSelected=0;
+    }
+
+    /**
+     * Begin (or restart) the next row. Values set directly since the last call are forgotten.
+     */
+    public void startRow(){
+        Arrays.fill(decoded,false);
+    }
+
+    public void setLong(int column,long value){
+        longs[column][size]=value;
+        nulls[column][size]=false;
+        decoded[column]=true;
+    }
+
+    public void setDouble(int column,double value){
+        doubles[column][size]=value;
+        nulls[column][size]=false;
+        decoded[column]=true;
+    }
+
+    /**
+     * Complete the current row. Any column which was not set directly since {@link #startRow()} is
+     * taken from the template row, which the scanner has decoded it into (or left null).
+     *
+     * @param template the scanner's template row
+     * @throws StandardException if a value cannot be copied out of the template
+     */
+    public void finishRow(ExecRow template) throws StandardException{
+        for(int i=0;i<types.length;i++){
+            if(decoded[i]) continue;
+            ColumnType type=types[i];
+            if(type==ColumnType.ABSENT) continue;
+            DataValueDescriptor dvd=template.getColumn(i+1);
+            boolean isNull=dvd==null || dvd.isNull();
+            nulls[i][size]=isNull;
+            switch(type){
+                case LONG:
+                    if(!isNull) longs[i][size]=dvd.getLong();
+                    break;
+                case DOUBLE:
+                    if(!isNull) doubles[i][size]=dvd.getDouble();
+                    break;
+                default:
+                    DataValueDescriptor slot=objects[i][size];
+                    if(slot==null){
+                        if(isNull) continue; //nulls[] is all we need
+                        slot=objects[i][size]=dvd.getNewNull();
+                    }
+                    if(isNull) slot.setToNull();
+                    else slot.setValue(dvd);
+            }
+        }
+        selected[size]=size;
+        size++;
+        numSelected=size;
+    }
+
+    public boolean isFull(){
+        return size>=capacity;
+    }
+
+    /* ****************************************************************************************************************/
+    /*Access methods*/
+
+    public int size(){
+        return size;
+    }
+
+    public int capacity(){
+        return capacity;
+    }
+
+    public int numColumns(){
+        return types.length;
+    }
+
+    public ColumnType getType(int column){
+        return types[column];
+    }
+
+    public long[] getLongs(int column){
+        return longs[column];
+    }
+
+    public double[] getDoubles(int column){
+        return doubles[column];
+    }
+
+    public boolean[] getNulls(int column){
+        return nulls[column];
+    }
+
+    /**
+     * @return the selected rows. Only the first {@link #getNumSelected()} entries are valid.
+     */
+    public int[] getSelected(){
+        return selected;
+    }
+
+    public int getNumSelected(){
+        return numSelected;
+    }
+
+    /**
+     * Shrink the selection, after the caller has compacted the still-live rows to the front of
+     * {@link #getSelected()}.
+     */
+    public void setNumSelected(int numSelected){
+        assert numSelected<=this.numSelected: "Cannot grow a selection";
+        this.numSelected=numSelected;
+    }
+
+    /**
+     * Copy a single row back into {@code destination}, which must have the same shape as the
+     * template the batch was created from.
+     *
+     * @param row the (0-based) row within the batch
+     * @param destination the row to fill
+     * @throws StandardException if a value cannot be set
+     */
+    public void materialize(int row,ExecRow destination) throws StandardException{
+        for(int i=0;i<types.length;i++){
+            ColumnType type=types[i];
+            if(type==ColumnType.ABSENT) continue;
+            DataValueDescriptor dvd=destination.getColumn(i+1);
+            if(nulls[i][row]){
+                dvd.setToNull();
+                continue;
+            }
+            switch(type){
+                case LONG:
+                    dvd.setValue(longs[i][row]);
+                    break;
+                case DOUBLE:
+                    dvd.setValue(doubles[i][row]);
+                    break;
+                default:
+                    dvd.setValue(objects[i][row]);
+            }
+        }
+    }
+}
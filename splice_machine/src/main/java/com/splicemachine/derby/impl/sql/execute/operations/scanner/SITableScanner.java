@@ -23,6 +23,7 @@ import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.RowLocation;
+import com.splicemachine.derby.impl.store.ColumnBatchAccumulator;
 import com.splicemachine.derby.impl.store.ExecRowAccumulator;
 import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
 import com.splicemachine.derby.utils.StandardIterator;
@@ -82,6 +83,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     private EntryDecoder entryDecoder;
     private final Counter outputBytesCounter;
     private long demarcationPoint;
+    private ColumnBatch batch;
 
     protected SITableScanner(DataScanner scanner,
                              final TransactionalRegion region,
@@ -156,6 +158,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         SIFilter filter = getSIFilter();
         do{
             template.resetRowArray(); //necessary to deal with null entries--maybe make the underlying call faster?
+            if(batch!=null) batch.startRow();
             List<DataCell> keyValues=regionScanner.next(-1);
 
             if(keyValues.size()<=0){
@@ -185,6 +188,27 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         }while(true); //TODO -sf- this doesn't seem quite right
     }
 
+    /**
+     * Fill {@code batch} with the next rows of the scan, decoding numeric columns directly into its
+     * column vectors. Once this has been called, the scanner is in batch mode, and {@link #next()} must not be
+     * called any more.
+     *
+     * @param batch the batch to fill. Must be created from this scanner's template, and be the same batch
+     *              on every call.
+     * @return the number of rows in the batch. 0 means the scan is exhausted.
+     */
+    public int nextBatch(ColumnBatch batch) throws StandardException, IOException {
+        assert siFilter==null || this.batch==batch: "Cannot switch to batch mode after scanning rows";
+        this.batch = batch;
+        batch.clear();
+        while(!batch.isFull()){
+            ExecRow row = next();
+            if(row==null) break;
+            batch.finishRow(row);
+        }
+        return batch.size();
+    }
+
     public long getBytesOutput(){
         return outputBytesCounter.getTotal();
     }
@@ -320,7 +344,10 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         if(siFilter==null) {
             boolean isCountStar = scan.getAttribute(SIConstants.SI_COUNT_STAR)!=null;
             predicateFilter= buildInitialPredicateFilter();
-            accumulator = ExecRowAccumulator.newAccumulator(predicateFilter, false, template, rowDecodingMap, tableVersion);
+            if(batch!=null)
+                accumulator = ColumnBatchAccumulator.newAccumulator(predicateFilter, false, template, rowDecodingMap, tableVersion, batch);
+            else
+                accumulator = ExecRowAccumulator.newAccumulator(predicateFilter, false, template, rowDecodingMap, tableVersion);
             siFilter = filterFactory.newFilter(predicateFilter,getRowEntryDecoder(),accumulator,isCountStar);
         }
         return siFilter;
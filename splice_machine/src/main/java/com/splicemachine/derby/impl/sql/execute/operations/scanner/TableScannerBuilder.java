@@ -45,6 +45,7 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Companion Builder class for SITableScanner
@@ -76,6 +77,9 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
     protected long baseTableConglomId=-1l;
     protected long demarcationPoint=-1;
     protected boolean oneSplitPerRegion=false;
+    protected boolean ordered=true;
+    protected List<DataScan> probeScans; //control-side only, so never serialized
+    protected boolean pointLookup; //control-side only, so never serialized
     protected Activation activation;
     protected MetricFactory metricFactory =Metrics.noOpMetricFactory();
 
@@ -323,7 +327,35 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
         return this;
     }
 
+    @Override
+    public ScanSetBuilder<V> ordered(boolean ordered){
+        this.ordered=ordered;
+        return this;
+    }
+
+    @Override
+    public ScanSetBuilder<V> probeScans(List<DataScan> probeScans){
+        this.probeScans=probeScans;
+        return this;
+    }
+
+    @Override
+    public ScanSetBuilder<V> pointLookup(boolean pointLookup){
+        this.pointLookup=pointLookup;
+        return this;
+    }
+
     public SITableScanner build(){
+        return build(scanner,region,template,scan);
+    }
+
+    /**
+     * Build a scanner over a part of the scan, with its own region, scanner, template and key range, so that
+     * several parts can be scanned concurrently.
+     *
+     * @param scanner the scanner to read from. May be null, if it is set on the returned scanner before use.
+     */
+    public SITableScanner build(DataScanner scanner,TransactionalRegion region,ExecRow template,DataScan scan){
         if(fieldLengths!=null){
             return new StatisticsScanner(
                     baseTableConglomId,
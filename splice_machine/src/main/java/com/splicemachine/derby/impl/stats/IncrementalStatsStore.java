@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.stats.ColumnStatistics;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A static store for the changes which writes have made to each partition since its statistics
+ * were last collected.
+ *
+ * The write pipeline (when {@code splice.statistics.incremental.enabled} is set) builds sketches over the
+ * rows of each bulk write, and merges them into the delta for the partition which received the write.
+ * {@link PartitionStatsStore} then merges the delta into the collected statistics of the partition whenever
+ * they are read, so that row counts, cardinalities and frequent elements track the data between collections.
+ * The delta is discarded once statistics are collected for the partition again.
+ *
+ * Neither the cardinality estimators nor the frequent element counters can forget a value, so deleted rows
+ * only reduce the row count (and the size). Deltas are held in memory, and are only visible in the JVM which
+ * performed the writes. Collecting or dropping the statistics of a table broadcasts an ALTER_STATS change, which
+ * discards the table's deltas on every server (see {@link com.splicemachine.derby.ddl.DDLUtils#preAlterStats}), and
+ * the delta of a region is discarded when the region closes (because it moved, split or merged), since the
+ * partitions which replace it are tracked under their own names.
+ *
+ * @see com.splicemachine.derby.impl.stats.PartitionStatsStore#getStatistics(long, com.splicemachine.db.iapi.store.access.TransactionController)
+ */
+@ThreadSafe
+public class IncrementalStatsStore{
+    private static final ConcurrentMap<String,PartitionDelta> deltas=new ConcurrentHashMap<>();
+
+    private IncrementalStatsStore(){} //static utility class
+
+    /**
+     * Record the effect of a write on a partition.
+     *
+     * @param tableId the conglomerate id of the table
+     * @param partitionId the partition which was written to
+     * @param insertedRows the number of rows inserted
+     * @param deletedRows the number of rows deleted
+     * @param insertedBytes the number of bytes inserted
+     * @param insertedColumns statistics built over the inserted rows. Ownership passes to the store, so
+     *                        the caller must not modify them afterwards.
+     */
+    public static void record(String tableId,
+                              String partitionId,
+                              long insertedRows,
+                              long deletedRows,
+                              long insertedBytes,
+                              List<ColumnStatistics> insertedColumns){
+        PartitionDelta delta=deltas.get(partitionId);
+        if(delta==null){
+            delta=new PartitionDelta(tableId);
+            PartitionDelta old=deltas.putIfAbsent(partitionId,delta);
+            if(old!=null)
+                delta=old;
+        }
+        delta.record(insertedRows,deletedRows,insertedBytes,insertedColumns);
+    }
+
+    /**
+     * @return the changes made to the partition since its statistics were last collected, or {@code null}
+     * if none have been recorded
+     */
+    public static PartitionDelta getDelta(String partitionId){
+        return deltas.get(partitionId);
+    }
+
+    /**
+     * Discard the changes made to a partition, because its statistics have been recollected.
+     */
+    public static void clear(String partitionId){
+        deltas.remove(partitionId);
+    }
+
+    /**
+     * Discard the changes made to all partitions of a table, because its statistics have been dropped.
+     */
+    public static void clearTable(String tableId){
+        for(Map.Entry<String,PartitionDelta> entry : deltas.entrySet()){
+            if(entry.getValue().tableId.equals(tableId))
+                deltas.remove(entry.getKey(),entry.getValue());
+        }
+    }
+
+    @ThreadSafe
+    public static final class PartitionDelta{
+        private final String tableId;
+        /*
+         * Keyed by ColumnStatistics.columnId(), so that we can match the deltas up with whatever
+         * columns happened to be collected
+         */
+        private final Map<Integer,ColumnStatistics> columns=new HashMap<>();
+        private long insertedRows;
+        private long deletedRows;
+        private long insertedBytes;
+
+        PartitionDelta(String tableId){
+            this.tableId=tableId;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void record(long insertedRows,long deletedRows,long insertedBytes,List<ColumnStatistics> insertedColumns){
+            this.insertedRows+=insertedRows;
+            this.deletedRows+=deletedRows;
+            this.insertedBytes+=insertedBytes;
+            if(insertedColumns==null) return;
+            for(ColumnStatistics stats : insertedColumns){
+                ColumnStatistics existing=columns.get(stats.columnId());
+                if(existing==null)
+                    columns.put(stats.columnId(),stats);
+                else
+                    columns.put(stats.columnId(),(ColumnStatistics)existing.merge(stats));
+            }
+        }
+
+        public synchronized long insertedRows(){ return insertedRows; }
+
+        public synchronized long deletedRows(){ return deletedRows; }
+
+        /**
+         * @param collectedRowCount the row count when statistics were last collected
+         * @return the current row count of the partition
+         */
+        public synchronized long rowCount(long collectedRowCount){
+            return Math.max(0L,collectedRowCount+insertedRows-deletedRows);
+        }
+
+        /**
+         * @param collectedSize the size of the partition when statistics were last collected
+         * @param collectedRowCount the row count when statistics were last collected
+         * @return the current size of the partition, assuming that deleted rows were of average width
+         */
+        public synchronized long totalSize(long collectedSize,long collectedRowCount){
+            long deletedBytes=collectedRowCount>0?(collectedSize/collectedRowCount)*deletedRows:0L;
+            return Math.max(0L,collectedSize+insertedBytes-deletedBytes);
+        }
+
+        /**
+         * Merge the changes into collected column statistics. The collected statistics are not modified.
+         *
+         * @param collected the column statistics when statistics were last collected
+         * @return the current column statistics
+         */
+        @SuppressWarnings("unchecked")
+        public synchronized List<ColumnStatistics> merge(List<ColumnStatistics> collected){
+            List<ColumnStatistics> merged=new ArrayList<>(collected.size());
+            for(ColumnStatistics stats : collected){
+                ColumnStatistics delta=columns.get(stats.columnId());
+                if(delta==null)
+                    merged.add(stats);
+                else
+                    merged.add((ColumnStatistics)stats.getClone().merge(delta));
+            }
+            return merged;
+        }
+    }
+}
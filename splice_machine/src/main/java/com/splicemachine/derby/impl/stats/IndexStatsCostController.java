@@ -111,6 +111,14 @@ public class IndexStatsCostController extends StatsStoreCostController {
                 stop,includeStop);
     }
 
+    @Override
+    public double getZoneMapScanFraction(int columnNumber,
+                                         DataValueDescriptor start,boolean includeStart,
+                                         DataValueDescriptor stop,boolean includeStop){
+        //index columns are part of the row key, which the zone maps of the index's store files don't cover
+        return 1.0d;
+    }
+
     @Override
     public double nullSelectivity(int columnNumber){
         return nullSelectivityFraction(baseTableStatistics,columnNumber);
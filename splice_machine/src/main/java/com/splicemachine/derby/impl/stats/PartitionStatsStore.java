@@ -86,10 +86,19 @@ public class PartitionStatsStore {
             for (ColumnStatsDescriptor column : tStats.getColumnStatsDescriptors()) {
                 copy.add((ColumnStatistics) column.getStats());
             }
+            long rowCount = tStats.getRowCount();
+            long partitionSize = tStats.getPartitionSize();
+            IncrementalStatsStore.PartitionDelta delta = IncrementalStatsStore.getDelta(partitionName);
+            if (delta != null) {
+                //fold in the writes which have happened since the statistics were collected
+                copy = delta.merge(copy);
+                partitionSize = delta.totalSize(partitionSize, rowCount);
+                rowCount = delta.rowCount(rowCount);
+            }
             OverheadManagedPartitionStatistics pStats = SimpleOverheadManagedPartitionStatistics.create(tableId,
                     tStats.getPartitionId(),
-                    tStats.getRowCount(),
-                    tStats.getPartitionSize(),
+                    rowCount,
+                    partitionSize,
                     copy);
             partitionStats.add(pStats);
         }
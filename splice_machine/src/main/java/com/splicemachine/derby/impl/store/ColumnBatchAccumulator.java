@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.store;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.ColumnBatch;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.storage.EntryPredicateFilter;
+import com.carrotsearch.hppc.BitSet;
+
+/**
+ * An ExecRowAccumulator which decodes integral and floating point fields straight into the
+ * primitive vectors of a {@link ColumnBatch}, rather than into the template row's DataValueDescriptors.
+ * Fields of any other type are decoded into the template as usual, and are picked up by the batch
+ * when the row is finished.
+ *
+ * @see ColumnBatch#finishRow(ExecRow)
+ */
+public class ColumnBatchAccumulator extends ExecRowAccumulator{
+    private final ColumnBatch batch;
+
+    private ColumnBatchAccumulator(EntryPredicateFilter predicateFilter,
+                                   boolean returnIndex,
+                                   BitSet fieldsToCollect,
+                                   DataValueDescriptor[] dvds,
+                                   int[] columnMap,
+                                   DescriptorSerializer[] serializers,
+                                   ColumnBatch batch){
+        super(predicateFilter,returnIndex,fieldsToCollect,dvds,columnMap,serializers);
+        this.batch=batch;
+    }
+
+    public static ExecRowAccumulator newAccumulator(EntryPredicateFilter predicateFilter,
+                                                    boolean returnIndex,
+                                                    ExecRow row,
+                                                    int[] columnMap,
+                                                    String tableVersion,
+                                                    ColumnBatch batch){
+        DataValueDescriptor[] dvds=row.getRowArray();
+        BitSet fieldsToCollect=fieldsToCollect(dvds,columnMap,null);
+        if(fieldsToCollect==null) return NOOP_ACCUMULATOR;
+
+        DescriptorSerializer[] serializers=VersionedSerializers.forVersion(tableVersion,false).getSerializers(row);
+        return new ColumnBatchAccumulator(predicateFilter,returnIndex,fieldsToCollect,dvds,columnMap,serializers,batch);
+    }
+
+    @Override
+    protected void decode(int position,byte[] data,int offset,int length){
+        int colPos=columnMap[position];
+        DescriptorSerializer serializer=serializers[colPos];
+        switch(batch.getType(colPos)){
+            case LONG:
+                if(serializer.isScalarType()){
+                    batch.setLong(colPos,Encoding.decodeLong(data,offset,false));
+                    columnLengths[colPos]=length;
+                    return;
+                }
+                break;
+            case DOUBLE:
+                if(serializer.isDoubleType()){
+                    batch.setDouble(colPos,Encoding.decodeDouble(data,offset,false));
+                    columnLengths[colPos]=length;
+                    return;
+                }else if(serializer.isFloatType()){
+                    batch.setDouble(colPos,Encoding.decodeFloat(data,offset,false));
+                    columnLengths[colPos]=length;
+                    return;
+                }
+                break;
+            default:
+        }
+        super.decode(position,data,offset,length);
+    }
+}
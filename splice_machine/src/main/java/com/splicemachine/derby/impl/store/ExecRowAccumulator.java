@@ -45,12 +45,12 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
         this.columnLengths = null;
     }
 
-    private ExecRowAccumulator(EntryPredicateFilter predicateFilter,
-                               boolean returnIndex,
-                               BitSet fieldsToCollect,
-                               DataValueDescriptor[] dvds,
-                               int[] columnMap,
-                               DescriptorSerializer[] serializers) {
+    protected ExecRowAccumulator(EntryPredicateFilter predicateFilter,
+                                 boolean returnIndex,
+                                 BitSet fieldsToCollect,
+                                 DataValueDescriptor[] dvds,
+                                 int[] columnMap,
+                                 DescriptorSerializer[] serializers) {
         super(predicateFilter, returnIndex, fieldsToCollect);
         this.dvds = dvds;
         this.columnMap = columnMap;
@@ -66,6 +66,21 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
                                                     FormatableBitSet cols,
                                                     String tableVersion){
         DataValueDescriptor[] dvds = row.getRowArray();
+        BitSet fieldsToCollect = fieldsToCollect(dvds,columnMap,cols);
+        if(fieldsToCollect==null) return NOOP_ACCUMULATOR;
+
+        DescriptorSerializer[] serializers = VersionedSerializers.forVersion(tableVersion,false).getSerializers(row);
+        if(columnSortOrder!=null)
+            return new Ordered(predicateFilter,returnIndex,fieldsToCollect,dvds,columnMap,serializers,columnSortOrder);
+        else
+            return new ExecRowAccumulator(predicateFilter,returnIndex,fieldsToCollect,dvds,columnMap,serializers);
+    }
+
+    /**
+     * @return the fields which an accumulator over {@code dvds} should collect, or {@code null} if
+     * there are no columns to collect at all.
+     */
+    protected static BitSet fieldsToCollect(DataValueDescriptor[] dvds,int[] columnMap,FormatableBitSet cols){
         BitSet fieldsToCollect = new BitSet(dvds.length);
         boolean hasColumns = false;
         if(cols!=null){
@@ -89,13 +104,7 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
                 }
             }
         }
-        if(!hasColumns) return NOOP_ACCUMULATOR;
-
-        DescriptorSerializer[] serializers = VersionedSerializers.forVersion(tableVersion,false).getSerializers(row);
-        if(columnSortOrder!=null)
-            return new Ordered(predicateFilter,returnIndex,fieldsToCollect,dvds,columnMap,serializers,columnSortOrder);
-        else
-            return new ExecRowAccumulator(predicateFilter,returnIndex,fieldsToCollect,dvds,columnMap,serializers);
+        return hasColumns? fieldsToCollect : null;
     }
 
     public static ExecRowAccumulator newAccumulator(EntryPredicateFilter predicateFilter,
@@ -198,7 +207,7 @@ public class ExecRowAccumulator extends ByteEntryAccumulator {
         }
     }
 
-    private static final ExecRowAccumulator NOOP_ACCUMULATOR = new ExecRowAccumulator(){
+    protected static final ExecRowAccumulator NOOP_ACCUMULATOR = new ExecRowAccumulator(){
         @Override protected void decode(int position, byte[] data, int offset, int length) { }
         @Override protected void occupy(int position, byte[] data, int offset, int length) { }
         @Override protected void occupyDouble(int position, byte[] data, int offset, int length) { }
@@ -51,6 +51,7 @@ public class StatsStoreCostController implements StoreCostController {
     private final double closeLatency;
     private final double fallbackNullFraction;
     private final double extraQualifierMultiplier;
+    private final boolean zoneMapsEnabled;
 
     public StatsStoreCostController(OpenSpliceConglomerate baseConglomerate) throws StandardException {
         if (LOG.isTraceEnabled())
@@ -67,6 +68,7 @@ public class StatsStoreCostController implements StoreCostController {
         closeLatency = config.getFallbackOpencloseLatency();
         fallbackNullFraction = config.getFallbackNullFraction();
         extraQualifierMultiplier = config.getOptimizerExtraQualifierMultiplier();
+        zoneMapsEnabled = config.isTableZoneMapsEnabled();
     }
 
     /**
@@ -156,6 +158,17 @@ public class StatsStoreCostController implements StoreCostController {
                 stop,includeStop);
     }
 
+    @Override
+    public double getZoneMapScanFraction(int columnNumber,
+                                         DataValueDescriptor start,boolean includeStart,
+                                         DataValueDescriptor stop,boolean includeStop){
+        if(!zoneMapsEnabled)
+            return 1.0d;
+        return zoneMapScanFraction(conglomerateStatistics,columnNumber,
+                start,includeStart,
+                stop,includeStop);
+    }
+
     @Override
     public double nullSelectivity(int columnNumber){
         return nullSelectivityFraction(conglomerateStatistics, columnNumber);
@@ -256,6 +269,54 @@ public class StatsStoreCostController implements StoreCostController {
         return returnValue;
     }
 
+    /*
+     * The statistics don't describe individual store files, so we use the range of each partition instead: every
+     * store file of a partition whose range cannot overlap the scanned range can be skipped as well. Partitions
+     * without statistics, or without any values for the column, are assumed to be read in full.
+     */
+    protected double zoneMapScanFraction(TableStatistics stats,
+                                         int columnNumber,
+                                         DataValueDescriptor start,boolean includeStart,
+                                         DataValueDescriptor stop,boolean includeStop){
+        List<? extends PartitionStatistics> partStats = stats.partitionStatistics();
+        long readRowCount = 0l;
+        long baseRowCount = 0l;
+        for(PartitionStatistics pStats:partStats){
+            if (pStats instanceof PartitionAverage)
+                continue;
+            baseRowCount += pStats.rowCount();
+            ColumnStatistics<DataValueDescriptor> cStats = pStats.columnStatistics(columnNumber);
+            if(cStats==null || rangeMayOverlap(cStats.minValue(),cStats.maxValue(),start,includeStart,stop,includeStop))
+                readRowCount += pStats.rowCount();
+        }
+        if(baseRowCount == 0)
+            return 1.0d;
+        return 1.0*readRowCount/baseRowCount;
+    }
+
+    private static boolean rangeMayOverlap(DataValueDescriptor min,DataValueDescriptor max,
+                                           DataValueDescriptor start,boolean includeStart,
+                                           DataValueDescriptor stop,boolean includeStop){
+        if(min==null || max==null || min.isNull() || max.isNull())
+            return true;
+        try{
+            if(start!=null && !start.isNull()){
+                int compare = max.compare(start);
+                if(compare<0 || (compare==0 && !includeStart))
+                    return false;
+            }
+            if(stop!=null && !stop.isNull()){
+                int compare = min.compare(stop);
+                if(compare>0 || (compare==0 && !includeStop))
+                    return false;
+            }
+            return true;
+        }catch(StandardException se){
+            //the values aren't comparable, so we can't rule anything out
+            return true;
+        }
+    }
+
     protected static double columnSizeFactor(TableStatistics tableStats,int totalColumns,BitSet validColumns){
         //get the average columnSize factor across all regions
         double colFactorSum = 0d;
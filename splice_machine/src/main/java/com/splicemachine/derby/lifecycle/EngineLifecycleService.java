@@ -30,10 +30,13 @@ import com.splicemachine.access.api.DatabaseVersion;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.reference.Property;
 import com.splicemachine.db.impl.jdbc.EmbedConnection;
+import com.splicemachine.db.impl.sql.PersistentStatementCache;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.derby.ddl.DDLDriver;
 import com.splicemachine.derby.ddl.DDLEnvironmentLoader;
 import com.splicemachine.derby.impl.db.SpliceDatabase;
 import com.splicemachine.derby.impl.store.access.SpliceAccessManager;
+import com.splicemachine.hbase.jmx.JMXUtils;
 import com.splicemachine.lifecycle.DatabaseLifecycleService;
 import com.splicemachine.pipeline.ContextFactoryDriverService;
 import com.splicemachine.pipeline.DerbyContextFactoryLoader;
@@ -121,6 +124,10 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
         SpliceDatabase db = (SpliceDatabase)((EmbedConnection)internalConnection).getLanguageConnection().getDatabase();
         db.registerDDL();
         logging = new LogManager();
+
+        PersistentStatementCache persistentCache = getDataDictionaryCache().getPersistentStatementCache();
+        if(persistentCache!=null)
+            new StatementCacheWarmer(persistentCache,dbProperties).start();
     }
 
     @Override
@@ -138,13 +145,22 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
              * this exception and don't worry about it too much.
              */
         }
+
+        try{
+            ObjectName on=new ObjectName(JMXUtils.STATEMENT_CACHE);
+            mbs.registerMBean(getDataDictionaryCache(),on);
+        }catch(InstanceAlreadyExistsException ignored){
+            //as above, only possible with more than one server in the same JVM
+        }
     }
 
     @Override
     public void shutdown() throws Exception{
         try{
-            if(internalConnection!=null)
+            if(internalConnection!=null){
+                getDataDictionaryCache().savePersistentStatementCache();
                 internalConnection.close();
+            }
         }catch(Exception e){
             LOG.error("Unexpected error during shutdown",e);
         }
@@ -158,6 +174,10 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
         }
     }
 
+    private DataDictionaryCache getDataDictionaryCache(){
+        return ((EmbedConnection)internalConnection).getLanguageConnection().getDataDictionary().getDataDictionaryCache();
+    }
+
     private void loadManifest(){
         manifestReader = new ManifestReader();
         spliceVersion = manifestReader.createVersion();
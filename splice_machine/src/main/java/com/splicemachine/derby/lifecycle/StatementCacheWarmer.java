@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.lifecycle;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.log4j.Logger;
+
+import com.splicemachine.db.iapi.sql.execute.ExecutionContext;
+import com.splicemachine.db.impl.sql.PersistentStatementCache;
+import com.splicemachine.tools.EmbedConnectionMaker;
+
+/**
+ * Prepares the statements which were read from the persistent statement cache at boot, most frequently
+ * executed first, so that they are in the statement cache before clients ask for them. Preparing a statement
+ * restores it from the persistent cache when none of its providers have changed, and compiles it otherwise.
+ *
+ * Statements which were prepared with an explicit isolation level are left for their first lookup.
+ */
+class StatementCacheWarmer implements Runnable{
+    private static final Logger LOG=Logger.getLogger(StatementCacheWarmer.class);
+
+    private final PersistentStatementCache persistentCache;
+    private final Properties dbProperties;
+
+    StatementCacheWarmer(PersistentStatementCache persistentCache,Properties dbProperties){
+        this.persistentCache=persistentCache;
+        this.dbProperties=dbProperties;
+    }
+
+    void start(){
+        Thread t=new Thread(this,"StatementCacheWarmer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Override
+    public void run(){
+        List<PersistentStatementCache.Key> statements=persistentCache.getPendingStatements();
+        if(statements.isEmpty()) return;
+        int warmed=0;
+        try(Connection connection=new EmbedConnectionMaker().createNew(dbProperties)){
+            String currentSchema=null;
+            for(PersistentStatementCache.Key statement:statements){
+                if(statement.getIsolationLevel()!=ExecutionContext.UNSPECIFIED_ISOLATION_LEVEL) continue;
+                try{
+                    if(!statement.getSchemaName().equals(currentSchema)){
+                        try(Statement s=connection.createStatement()){
+                            s.execute("SET SCHEMA \""+statement.getSchemaName().replace("\"","\"\"")+"\"");
+                        }
+                        currentSchema=statement.getSchemaName();
+                    }
+                    int concurrency=statement.isReadOnly()?ResultSet.CONCUR_READ_ONLY:ResultSet.CONCUR_UPDATABLE;
+                    try(PreparedStatement ignored=connection.prepareStatement(statement.getText(),ResultSet.TYPE_FORWARD_ONLY,concurrency)){
+                        warmed++;
+                    }
+                }catch(SQLException se){
+                    //the statement will be prepared, and fail, again when a client asks for it
+                    if(LOG.isDebugEnabled())
+                        LOG.debug("Unable to warm statement "+statement.getText(),se);
+                }
+            }
+        }catch(SQLException se){
+            LOG.warn("Unable to warm the statement cache",se);
+        }
+        LOG.info("Warmed the statement cache with "+warmed+" statements");
+    }
+}
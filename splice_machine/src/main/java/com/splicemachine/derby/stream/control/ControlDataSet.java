@@ -114,7 +114,7 @@ public class ControlDataSet<V> implements DataSet<V> {
                     throw new RuntimeException(e);
                 }
             }
-        }));
+        }),function.operationContext);
     }
 
     @Override
@@ -149,7 +149,7 @@ public class ControlDataSet<V> implements DataSet<V> {
 
     @Override
     public <Op extends SpliceOperation, K> PairDataSet<K, V> keyBy(final SpliceFunction<Op, V, K> function) {
-        return new ControlPairDataSet<>(entryToTuple(Multimaps.index(iterable,function).entries()));
+        return new ControlPairDataSet<>(entryToTuple(Multimaps.index(iterable,function).entries()),function.operationContext);
     }
 
     @Override
@@ -24,15 +24,24 @@ import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.log4j.Logger;
 import org.sparkproject.guava.base.Charsets;
+import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
 import scala.Tuple2;
 import com.splicemachine.access.api.DistributedFileSystem;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
@@ -45,6 +54,7 @@ import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.PairDataSet;
 import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
+import com.splicemachine.derby.stream.iterator.ParallelTableScannerIterator;
 import com.splicemachine.derby.stream.iterator.TableScannerIterator;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.api.data.TxnOperationFactory;
@@ -54,7 +64,12 @@ import com.splicemachine.si.impl.TxnRegion;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.storage.DataGet;
+import com.splicemachine.storage.DataGetScanner;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.DataScanner;
 import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.SpliceLogUtils;
 
 /**
  * Local control side DataSetProcessor.
@@ -68,6 +83,7 @@ public class ControlDataSetProcessor implements DataSetProcessor{
     private String importFileName;
 
     private static final Logger LOG=Logger.getLogger(ControlDataSetProcessor.class);
+    private static volatile ExecutorService scanExecutor;
 
     protected final TxnSupplier txnSupplier;
     protected final Transactor transactory;
@@ -115,8 +131,16 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                     TxnRegion localRegion=new TxnRegion(p,NoopRollForward.INSTANCE,NoOpReadResolver.INSTANCE,
                             txnSupplier,transactory,txnOperationFactory);
 
-                    this.region(localRegion).scanner(p.openScanner(getScan(),metricFactory)); //set the scanner
-                    TableScannerIterator tableScannerIterator=new TableScannerIterator(this,spliceOperation);
+                    TableScannerIterator tableScannerIterator=null;
+                    if(probeScans!=null)
+                        tableScannerIterator=probeIterator(p,spliceOperation);
+                    else if(!pointLookup)
+                        tableScannerIterator=parallelIterator(p,spliceOperation);
+                    if(tableScannerIterator==null){
+                        DataScanner scanner=pointLookup?pointScanner(p):p.openScanner(getScan(),metricFactory);
+                        this.region(localRegion).scanner(scanner); //set the scanner
+                        tableScannerIterator=new TableScannerIterator(this,spliceOperation);
+                    }
                     if(spliceOperation!=null){
                         spliceOperation.registerCloseable(tableScannerIterator);
                         spliceOperation.registerCloseable(p);
@@ -126,9 +150,90 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                     throw Exceptions.parseException(e);
                 }
             }
+
+            /*
+             * Fetch the only row that the scan can return with a single get. Like the scan, the get returns
+             * every version of the row, and the table scanner resolves which of them the transaction can see.
+             */
+            private DataScanner pointScanner(Partition table){
+                DataGet get=SIDriver.driver().baseOperationFactory().newGet(scan.getStartKey(),null);
+                get.returnAllVersions();
+                get.setTimeRange(0L,Long.MAX_VALUE);
+                return new DataGetScanner(table,get,metricFactory);
+            }
+
+            /*
+             * Read each probe scan in turn, split by region. Probes are read in parallel, but their rows are
+             * returned in probe order, so that the consumer can tell which probe each row belongs to.
+             */
+            private TableScannerIterator probeIterator(Partition table,SpliceOperation op){
+                SConfiguration config=SIDriver.driver().getConfiguration();
+                List<ParallelTableScannerIterator.Split> splits=new ArrayList<>(probeScans.size());
+                for(int i=0;i<probeScans.size();i++){
+                    DataScan probe=probeScans.get(i);
+                    for(Partition partition:table.subPartitions(probe.getStartKey(),probe.getStopKey())){
+                        DataScan splitScan=ParallelTableScannerIterator.split(probe,partition);
+                        TxnRegion splitRegion=new TxnRegion(partition,NoopRollForward.INSTANCE,NoOpReadResolver.INSTANCE,
+                                txnSupplier,transactory,txnOperationFactory);
+                        splits.add(new ParallelTableScannerIterator.Split(partition,splitScan,
+                                build(null,splitRegion,template.getClone(),splitScan),i));
+                    }
+                }
+                return new ParallelTableScannerIterator(this,op,splits,scanExecutor(config.getControlScanThreads()),
+                        Math.max(2,config.getControlScanParallelism()),true,metricFactory);
+            }
+
+            /*
+             * Split the scan by region, if it is allowed to run in parallel and there is more than one region
+             * to scan. Statistics collection and custom filters keep per-scan state, so those scans stay serial.
+             */
+            private TableScannerIterator parallelIterator(Partition table,SpliceOperation op){
+                SConfiguration config=SIDriver.driver().getConfiguration();
+                int parallelism=config.getControlScanParallelism();
+                if(parallelism<=1 || fieldLengths!=null || filterFactory!=null || scan.isDescendingScan())
+                    return null;
+                List<Partition> partitions=table.subPartitions(scan.getStartKey(),scan.getStopKey());
+                if(partitions.size()<=1) return null;
+
+                List<ParallelTableScannerIterator.Split> splits=new ArrayList<>(partitions.size());
+                for(Partition partition:partitions){
+                    DataScan splitScan=ParallelTableScannerIterator.split(scan,partition);
+                    TxnRegion splitRegion=new TxnRegion(partition,NoopRollForward.INSTANCE,NoOpReadResolver.INSTANCE,
+                            txnSupplier,transactory,txnOperationFactory);
+                    splits.add(new ParallelTableScannerIterator.Split(partition,splitScan,
+                            build(null,splitRegion,template.getClone(),splitScan)));
+                }
+                if(LOG.isDebugEnabled())
+                    SpliceLogUtils.debug(LOG,"Scanning %d regions of %s with parallelism %d",splits.size(),tableName,parallelism);
+                return new ParallelTableScannerIterator(this,op,splits,scanExecutor(config.getControlScanThreads()),
+                        parallelism,ordered,metricFactory);
+            }
         };
     }
 
+    /*
+     * The threads which run parallel scans, shared by all queries on this server.
+     */
+    private static ExecutorService scanExecutor(int numThreads){
+        ExecutorService executor=scanExecutor;
+        if(executor==null){
+            synchronized(ControlDataSetProcessor.class){
+                executor=scanExecutor;
+                if(executor==null){
+                    ThreadFactory factory=new ThreadFactoryBuilder()
+                            .setNameFormat("control-scan-%d")
+                            .setDaemon(true)
+                            .build();
+                    ThreadPoolExecutor tpe=new ThreadPoolExecutor(numThreads,numThreads,
+                            60,TimeUnit.SECONDS,new LinkedBlockingQueue<Runnable>(),factory);
+                    tpe.allowCoreThreadTimeOut(true);
+                    scanExecutor=executor=tpe;
+                }
+            }
+        }
+        return executor;
+    }
+
     @Override
     public <V> DataSet<V> getEmpty(){
         return new ControlDataSet<>(Collections.<V>emptyList());
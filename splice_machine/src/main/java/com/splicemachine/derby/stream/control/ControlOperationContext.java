@@ -48,6 +48,7 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         long tooBusy;
         long rowsJoinedLeft;
         long rowsJoinedRight;
+        long joinTableMemory;
         long rowsProduced;
         List<String> badRecords;
         public ActivationHolder activationHolder;
@@ -229,6 +230,11 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         rowsJoinedRight++;
     }
 
+    @Override
+    public void recordJoinTableMemory(long bytes) {
+        joinTableMemory+=bytes;
+    }
+
     @Override
     public void recordProduced() {
         rowsProduced++;
@@ -26,6 +26,7 @@ import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.PairDataSet;
 import com.splicemachine.derby.stream.output.DataSetWriter;
 import com.splicemachine.derby.stream.output.DataSetWriterBuilder;
+import com.splicemachine.derby.stream.output.DirectDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.InsertDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.UpdateDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.delete.DeletePipelineWriter;
@@ -45,7 +46,6 @@ import scala.Tuple2;
 import javax.annotation.Nullable;
 import java.util.*;
 import static com.splicemachine.derby.stream.control.ControlUtils.entryToTuple;
-import static com.splicemachine.derby.stream.control.ControlUtils.multimapFromIterable;
 
 /**
  *
@@ -57,8 +57,20 @@ import static com.splicemachine.derby.stream.control.ControlUtils.multimapFromIt
  */
 public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     public Iterable<Tuple2<K,V>> source;
+    private final OperationContext operationContext;
+
     public ControlPairDataSet(Iterable<Tuple2<K,V>> source) {
+        this(source,null);
+    }
+
+    /**
+     * @param operationContext the context of the operation which this data set is computed for, if known.
+     *                         Sorts, groupings and joins which spill to disk delete their files when that
+     *                         operation is closed, and only spill when there is one.
+     */
+    public ControlPairDataSet(Iterable<Tuple2<K,V>> source,OperationContext operationContext) {
         this.source = source;
+        this.operationContext = operationContext;
     }
 
 
@@ -98,21 +110,8 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public <Op extends SpliceOperation> PairDataSet<K, V> reduceByKey(final SpliceFunction2<Op,V, V, V> function2) {
-        Multimap<K,V> newMap = multimapFromIterable(source);
-        return new ControlPairDataSet<>(entryToTuple(Multimaps.forMap(Maps.transformValues(newMap.asMap(), new Function<Collection<V>, V>() {
-            @Override
-            public V apply(@Nullable Collection<V> vs) {
-                try {
-                    V returnValue = null;
-                    for (V v : vs) {
-                        returnValue = function2.call(returnValue, v);
-                    }
-                    return returnValue;
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        })).entries()));
+        OperationContext context = operationContext!=null ? operationContext : function2.operationContext;
+        return new ControlPairDataSet<>(SpillingReducer.reduce(source,function2,SpillBudget.fromConfiguration(context)),context);
     }
 
     @Override
@@ -127,18 +126,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, V> sortByKey(final Comparator<K> comparator) {
-        /*
-         * -sf- this is done a bit goofily, so that we can support multiple versions of guava.
-         *
-         * This is essentially copying out FluentIterable.from(source).toSortedList(comparator) logic
-         * directly into the method, so that we can support the same code line from 12.0.1 on.
-         */
-        return new ControlPairDataSet<>(Ordering.from(new Comparator<Tuple2<K, V>>() {
-            @Override
-            public int compare(Tuple2<K, V> o1, Tuple2<K, V> o2) {
-                return comparator.compare(o1._1(), o2._1());
-            }
-        }).immutableSortedCopy(source));
+        return new ControlPairDataSet<>(ExternalSorter.sort(source,comparator,SpillBudget.fromConfiguration(operationContext)),operationContext);
     }
 
     @Override
@@ -155,15 +143,14 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, Iterable<V>> groupByKey() {
-        Multimap<K,V> newMap = multimapFromIterable(source);
-        return new ControlPairDataSet<>(FluentIterable.from(newMap.asMap().entrySet()).transform(new Function<Map.Entry<K, Collection<V>>, Tuple2<K, Iterable<V>>>() {
-            @Nullable
+        SpillableMultimap<K,V> grouped = SpillableMultimap.load(source,SpillBudget.fromConfiguration(operationContext));
+        return new ControlPairDataSet<>(grouped.transformPartitions(new Function<Multimap<K,V>, Iterable<Tuple2<K, Iterable<V>>>>() {
             @Override
-            public Tuple2<K, Iterable<V>> apply(@Nullable Map.Entry<K, Collection<V>> e) {
-                assert e!=null: "E cannot be null";
-                return new Tuple2<K, Iterable<V>>(e.getKey(), e.getValue());
+            public Iterable<Tuple2<K, Iterable<V>>> apply(@Nullable Multimap<K,V> partition) {
+                assert partition!=null;
+                return groups(partition);
             }
-        }));
+        }),operationContext);
     }
 
     @Override
@@ -174,70 +161,41 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     @Override
     public <W> PairDataSet< K, Tuple2<V, Optional<W>>> hashLeftOuterJoin(final PairDataSet< K, W> rightDataSet) {
         // Materializes the right side
-        final Multimap<K,W> rightSide = multimapFromIterable(((ControlPairDataSet) rightDataSet).source);
-
-        return new ControlPairDataSet<>(Iterables.concat(FluentIterable.from(source).transform(new Function<Tuple2<K, V>, Iterable<Tuple2<K, Tuple2<V, Optional<W>>>>>() {
-            @Nullable
+        OperationContext context = contextFor(rightDataSet);
+        SpillableMultimap<K,W> rightSide = SpillableMultimap.load(((ControlPairDataSet<K,W>) rightDataSet).source,SpillBudget.fromConfiguration(context));
+        return new ControlPairDataSet<>(rightSide.join(source,new SpillableMultimap.Joiner<K, W, V, Tuple2<K, Tuple2<V, Optional<W>>>>() {
             @Override
-            public Iterable<Tuple2<K, Tuple2<V, Optional<W>>>> apply(@Nullable Tuple2<K, V> t) {
-                assert t!=null: "T cannot be null";
-                List<Tuple2<K,Tuple2<V,Optional<W>>>> result = new ArrayList<>();
-                K key = t._1();
-                V value = t._2();
-                if (rightSide.containsKey(key)) {
-                    for (W rightValue : rightSide.get(key)) {
-                        result.add(new Tuple2<>(key,new Tuple2<>(value,Optional.of(rightValue))));
-                    }
-                } else
-                    result.add(new Tuple2<>(key,new Tuple2<>(value,Optional.<W>absent())));
-                return result;
+            public Iterable<Tuple2<K, Tuple2<V, Optional<W>>>> join(Iterable<Tuple2<K, V>> probe,Multimap<K, W> build) {
+                return leftOuterJoin(probe,build);
             }
-        })));
+        }),context);
     }
 
     @Override
     public <W> PairDataSet< K, Tuple2<Optional<V>, W>> hashRightOuterJoin(PairDataSet< K, W> rightDataSet) {
         // Materializes the left side
-        final Multimap<K, V> leftSide = multimapFromIterable(source);
-
-
-        return new ControlPairDataSet<>(Iterables.concat(FluentIterable.from(((ControlPairDataSet<K,W>) rightDataSet).source).transform(new Function<Tuple2<K, W>, Iterable<Tuple2<K, Tuple2<Optional<V>, W>>>>() {
-            @Nullable
+        OperationContext context = contextFor(rightDataSet);
+        SpillableMultimap<K,V> leftSide = SpillableMultimap.load(source,SpillBudget.fromConfiguration(context));
+        Iterable<Tuple2<K,W>> right = ((ControlPairDataSet<K,W>) rightDataSet).source;
+        return new ControlPairDataSet<>(leftSide.join(right,new SpillableMultimap.Joiner<K, V, W, Tuple2<K, Tuple2<Optional<V>, W>>>() {
             @Override
-            public Iterable<Tuple2<K, Tuple2<Optional<V>, W>>> apply(@Nullable Tuple2<K, W> t) {
-                assert t!=null: "t cannot be null!";
-                List<Tuple2<K,Tuple2<Optional<V>,W>>> result = new ArrayList<>();
-                K key = t._1();
-                W value = t._2();
-                if (leftSide.containsKey(key)) {
-                    for (V leftValue: leftSide.get(key)) {
-                        result.add(new Tuple2<>(key,new Tuple2<>(Optional.of(leftValue),value)));
-                    }
-                } else
-                    result.add(new Tuple2<>(key,new Tuple2<>(Optional.<V>absent(),value)));
-                return result;
+            public Iterable<Tuple2<K, Tuple2<Optional<V>, W>>> join(Iterable<Tuple2<K, W>> probe,Multimap<K, V> build) {
+                return rightOuterJoin(build,probe);
             }
-        })));
+        }),context);
     }
 
     @Override
     public <W> PairDataSet< K, Tuple2<V, W>> hashJoin(PairDataSet< K, W> rightDataSet) {
         // Materializes the right side
-        final Multimap<K,W> rightSide = multimapFromIterable(((ControlPairDataSet<K,W>) rightDataSet).source);
-        return new ControlPairDataSet<>(Iterables.concat(FluentIterable.from(source).transform(new Function<Tuple2<K, V>, Iterable<Tuple2<K, Tuple2<V, W>>>>() {
-            @Nullable
+        OperationContext context = contextFor(rightDataSet);
+        SpillableMultimap<K,W> rightSide = SpillableMultimap.load(((ControlPairDataSet<K,W>) rightDataSet).source,SpillBudget.fromConfiguration(context));
+        return new ControlPairDataSet<>(rightSide.join(source,new SpillableMultimap.Joiner<K, W, V, Tuple2<K, Tuple2<V, W>>>() {
             @Override
-            public Iterable<Tuple2<K, Tuple2<V, W>>> apply(@Nullable Tuple2<K, V> t) {
-                assert t!=null: "Tuple cannot be null";
-                List<Tuple2<K,Tuple2<V,W>>> result = new ArrayList<>();
-                K key = t._1();
-                V value = t._2();
-                for (W rightValue : rightSide.get(key)) {
-                    result.add(new Tuple2<>(key,new Tuple2<>(value,rightValue)));
-                }
-                return result;
+            public Iterable<Tuple2<K, Tuple2<V, W>>> join(Iterable<Tuple2<K, V>> probe,Multimap<K, W> build) {
+                return innerJoin(probe,build);
             }
-        })));
+        }),context);
     }
 
     @Override
@@ -249,14 +207,14 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     @Override
     public <W> PairDataSet< K, V> subtractByKey(PairDataSet< K, W> rightDataSet) {
         // Materializes the right side
-        final Multimap<K,W> rightSide = multimapFromIterable(((ControlPairDataSet<K,W>) rightDataSet).source);
-        return new ControlPairDataSet<>(FluentIterable.from(source).filter(new Predicate<Tuple2<K, V>>() {
+        OperationContext context = contextFor(rightDataSet);
+        SpillableMultimap<K,W> rightSide = SpillableMultimap.load(((ControlPairDataSet<K,W>) rightDataSet).source,SpillBudget.fromConfiguration(context));
+        return new ControlPairDataSet<>(rightSide.join(source,new SpillableMultimap.Joiner<K, W, V, Tuple2<K, V>>() {
             @Override
-            public boolean apply(@Nullable Tuple2<K, V> t) {
-                assert t!=null: "T cannot be null";
-                return rightSide.get(t._1()).isEmpty();
+            public Iterable<Tuple2<K, V>> join(Iterable<Tuple2<K, V>> probe,Multimap<K, W> build) {
+                return subtract(probe,build);
             }
-        }));
+        }),context);
     }
 
     @Override
@@ -307,16 +265,29 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     
     @Override
     public <W> PairDataSet<K, Tuple2<Iterable<V>, Iterable<W>>> cogroup(PairDataSet<K, W> rightDataSet) {
-        Multimap<K, V> left = multimapFromIterable(source);
-        Multimap<K, W> right = multimapFromIterable(((ControlPairDataSet<K, W>) rightDataSet).source);
-
-        List<Tuple2<K, Tuple2<Iterable<V>, Iterable<W>>>> result = new ArrayList<>();
-        for (K key: Sets.union(left.keySet(),right.keySet())){
-            Collection<V> vs=left.get(key);
-            Collection<W> ws=right.get(key);
-            result.add(new Tuple2<>(key,new Tuple2<Iterable<V>, Iterable<W>>(vs,ws)));
+        OperationContext context = contextFor(rightDataSet);
+        SpillBudget budget = SpillBudget.fromConfiguration(context);
+        SpillableMultimap<K, V> left = SpillableMultimap.load(source,budget);
+        Iterable<Tuple2<K, W>> rightSource = ((ControlPairDataSet<K, W>) rightDataSet).source;
+        if (left.isSpilled()) {
+            // partition the right side the same way, and cogroup one partition at a time
+            return new ControlPairDataSet<>(left.join(rightSource,new SpillableMultimap.Joiner<K, V, W, Tuple2<K, Tuple2<Iterable<V>, Iterable<W>>>>() {
+                @Override
+                public Iterable<Tuple2<K, Tuple2<Iterable<V>, Iterable<W>>>> join(Iterable<Tuple2<K, W>> probe,Multimap<K, V> build) {
+                    return cogroupInMemory(build,SpillableMultimap.toMultimap(probe));
+                }
+            }),context);
         }
-        return new ControlPairDataSet<>(result);
+
+        SpillableMultimap<K, W> right = SpillableMultimap.load(rightSource,budget);
+        if (!right.isSpilled())
+            return new ControlPairDataSet<>(cogroupInMemory(left.inMemory(),right.inMemory()),context);
+        return new ControlPairDataSet<>(right.join(entryToTuple(left.inMemory().entries()),new SpillableMultimap.Joiner<K, W, V, Tuple2<K, Tuple2<Iterable<V>, Iterable<W>>>>() {
+            @Override
+            public Iterable<Tuple2<K, Tuple2<Iterable<V>, Iterable<W>>>> join(Iterable<Tuple2<K, V>> probe,Multimap<K, W> build) {
+                return cogroupInMemory(SpillableMultimap.toMultimap(probe),build);
+            }
+        }),context);
     }
 
     @Override
@@ -327,7 +298,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, V> union(PairDataSet<K, V> dataSet) {
-        return new ControlPairDataSet<>(Iterables.concat(source,((ControlPairDataSet<K,V>)dataSet).source));
+        return new ControlPairDataSet<>(Iterables.concat(source,((ControlPairDataSet<K,V>)dataSet).source),contextFor(dataSet));
     }
 
     @Override
@@ -352,6 +323,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
             @Override
             public DataSetWriter build() throws StandardException{
                 assert txn!=null:"Txn is null";
+                //HFile bulk imports need Spark, so on the control side the rows always go through the pipeline
                 InsertPipelineWriter ipw = new InsertPipelineWriter(pkCols,
                         tableVersion,
                         execRowDefinition,
@@ -386,11 +358,12 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     @Override
     @SuppressFBWarnings(value = "SE_NO_SUITABLE_CONSTRUCTOR_FOR_EXTERNALIZATION",justification = "Serialization" +
             "of Control-side operations does not happen and would be a mistake")
-    public DataSetWriterBuilder directWriteData() throws StandardException{
+    public DirectDataSetWriterBuilder directWriteData() throws StandardException{
         return new DirectTableWriterBuilder(){
             @Override
             public DataSetWriter build() throws StandardException{
                 assert txn!=null: "Txn is null";
+                //as with imports, bulk loads need Spark, so the control side always writes through the pipeline
                 DirectPipelineWriter writer = new DirectPipelineWriter(destConglomerate,
                         txn, opCtx,skipIndex);
 
@@ -399,4 +372,100 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
         };
     }
 
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private OperationContext contextFor(PairDataSet<K,?> other) {
+        if (operationContext!=null)
+            return operationContext;
+        return ((ControlPairDataSet<K,?>) other).operationContext;
+    }
+
+    private static <K,V> Iterable<Tuple2<K, Iterable<V>>> groups(Multimap<K,V> map) {
+        return FluentIterable.from(map.asMap().entrySet()).transform(new Function<Map.Entry<K, Collection<V>>, Tuple2<K, Iterable<V>>>() {
+            @Nullable
+            @Override
+            public Tuple2<K, Iterable<V>> apply(@Nullable Map.Entry<K, Collection<V>> e) {
+                assert e!=null: "E cannot be null";
+                return new Tuple2<K, Iterable<V>>(e.getKey(), e.getValue());
+            }
+        });
+    }
+
+    private static <K,V,W> Iterable<Tuple2<K, Tuple2<V, Optional<W>>>> leftOuterJoin(Iterable<Tuple2<K,V>> left,final Multimap<K,W> rightSide) {
+        return Iterables.concat(FluentIterable.from(left).transform(new Function<Tuple2<K, V>, Iterable<Tuple2<K, Tuple2<V, Optional<W>>>>>() {
+            @Nullable
+            @Override
+            public Iterable<Tuple2<K, Tuple2<V, Optional<W>>>> apply(@Nullable Tuple2<K, V> t) {
+                assert t!=null: "T cannot be null";
+                List<Tuple2<K,Tuple2<V,Optional<W>>>> result = new ArrayList<>();
+                K key = t._1();
+                V value = t._2();
+                if (rightSide.containsKey(key)) {
+                    for (W rightValue : rightSide.get(key)) {
+                        result.add(new Tuple2<>(key,new Tuple2<>(value,Optional.of(rightValue))));
+                    }
+                } else
+                    result.add(new Tuple2<>(key,new Tuple2<>(value,Optional.<W>absent())));
+                return result;
+            }
+        }));
+    }
+
+    private static <K,V,W> Iterable<Tuple2<K, Tuple2<Optional<V>, W>>> rightOuterJoin(final Multimap<K,V> leftSide,Iterable<Tuple2<K,W>> right) {
+        return Iterables.concat(FluentIterable.from(right).transform(new Function<Tuple2<K, W>, Iterable<Tuple2<K, Tuple2<Optional<V>, W>>>>() {
+            @Nullable
+            @Override
+            public Iterable<Tuple2<K, Tuple2<Optional<V>, W>>> apply(@Nullable Tuple2<K, W> t) {
+                assert t!=null: "t cannot be null!";
+                List<Tuple2<K,Tuple2<Optional<V>,W>>> result = new ArrayList<>();
+                K key = t._1();
+                W value = t._2();
+                if (leftSide.containsKey(key)) {
+                    for (V leftValue: leftSide.get(key)) {
+                        result.add(new Tuple2<>(key,new Tuple2<>(Optional.of(leftValue),value)));
+                    }
+                } else
+                    result.add(new Tuple2<>(key,new Tuple2<>(Optional.<V>absent(),value)));
+                return result;
+            }
+        }));
+    }
+
+    private static <K,V,W> Iterable<Tuple2<K, Tuple2<V, W>>> innerJoin(Iterable<Tuple2<K,V>> left,final Multimap<K,W> rightSide) {
+        return Iterables.concat(FluentIterable.from(left).transform(new Function<Tuple2<K, V>, Iterable<Tuple2<K, Tuple2<V, W>>>>() {
+            @Nullable
+            @Override
+            public Iterable<Tuple2<K, Tuple2<V, W>>> apply(@Nullable Tuple2<K, V> t) {
+                assert t!=null: "Tuple cannot be null";
+                List<Tuple2<K,Tuple2<V,W>>> result = new ArrayList<>();
+                K key = t._1();
+                V value = t._2();
+                for (W rightValue : rightSide.get(key)) {
+                    result.add(new Tuple2<>(key,new Tuple2<>(value,rightValue)));
+                }
+                return result;
+            }
+        }));
+    }
+
+    private static <K,V,W> Iterable<Tuple2<K,V>> subtract(Iterable<Tuple2<K,V>> left,final Multimap<K,W> rightSide) {
+        return FluentIterable.from(left).filter(new Predicate<Tuple2<K, V>>() {
+            @Override
+            public boolean apply(@Nullable Tuple2<K, V> t) {
+                assert t!=null: "T cannot be null";
+                return rightSide.get(t._1()).isEmpty();
+            }
+        });
+    }
+
+    private static <K,V,W> List<Tuple2<K, Tuple2<Iterable<V>, Iterable<W>>>> cogroupInMemory(Multimap<K,V> left,Multimap<K,W> right) {
+        List<Tuple2<K, Tuple2<Iterable<V>, Iterable<W>>>> result = new ArrayList<>();
+        for (K key: Sets.union(left.keySet(),right.keySet())){
+            Collection<V> vs=left.get(key);
+            Collection<W> ws=right.get(key);
+            result.add(new Tuple2<>(key,new Tuple2<Iterable<V>, Iterable<W>>(vs,ws)));
+        }
+        return result;
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import scala.Tuple2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts (key,value) pairs by key within a {@link SpillBudget}.
+ * <p/>
+ * Pairs are buffered in memory until the budget is exceeded, at which point the buffer is sorted
+ * and written out to a {@link SpillFile} as a sorted run. If nothing was spilled, the result is just the
+ * sorted buffer; otherwise it is a k-way merge of the runs and whatever remained in memory. The runs belong to
+ * the budget, and are only deleted when it is closed, so a merged result can be iterated more than once.
+ */
+class ExternalSorter{
+
+    private ExternalSorter(){}
+
+    static <K,V> Iterable<Tuple2<K,V>> sort(Iterable<Tuple2<K,V>> source,
+                                            final Comparator<K> comparator,
+                                            SpillBudget budget){
+        Comparator<Tuple2<K,V>> tupleComparator=new Comparator<Tuple2<K,V>>(){
+            @Override
+            public int compare(Tuple2<K,V> o1,Tuple2<K,V> o2){
+                return comparator.compare(o1._1(),o2._1());
+            }
+        };
+
+        List<Tuple2<K,V>> buffer=new ArrayList<>();
+        List<SpillFile<K,V>> runs=new ArrayList<>();
+        long bufferedBytes=0L;
+        try{
+            for(Tuple2<K,V> t:source){
+                buffer.add(t);
+                bufferedBytes+=SpillBudget.estimateSize(t);
+                if(budget.isExceededBy(bufferedBytes)){
+                    runs.add(writeRun(buffer,tupleComparator,budget));
+                    buffer.clear();
+                    bufferedBytes=0L;
+                }
+            }
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+
+        Collections.sort(buffer,tupleComparator);
+        if(runs.isEmpty())
+            return Collections.unmodifiableList(buffer);
+        return new MergedRuns<>(runs,buffer,tupleComparator);
+    }
+
+    private static <K,V> SpillFile<K,V> writeRun(List<Tuple2<K,V>> buffer,
+                                                 Comparator<Tuple2<K,V>> comparator,
+                                                 SpillBudget budget) throws IOException{
+        Collections.sort(buffer,comparator);
+        SpillFile<K,V> run=budget.newSpillFile();
+        for(Tuple2<K,V> t:buffer){
+            run.write(t._1(),t._2());
+        }
+        run.finishWriting();
+        return run;
+    }
+
+    private static class MergedRuns<K,V> implements Iterable<Tuple2<K,V>>{
+        private final List<SpillFile<K,V>> runs;
+        private final List<Tuple2<K,V>> inMemory;
+        private final Comparator<Tuple2<K,V>> comparator;
+
+        MergedRuns(List<SpillFile<K,V>> runs,List<Tuple2<K,V>> inMemory,Comparator<Tuple2<K,V>> comparator){
+            this.runs=runs;
+            this.inMemory=inMemory;
+            this.comparator=comparator;
+        }
+
+        @Override
+        public Iterator<Tuple2<K,V>> iterator(){
+            List<Iterator<Tuple2<K,V>>> sources=new ArrayList<>(runs.size()+1);
+            try{
+                for(SpillFile<K,V> run:runs){
+                    sources.add(run.read());
+                }
+            }catch(IOException e){
+                throw new RuntimeException(e);
+            }
+            sources.add(inMemory.iterator());
+            return new MergingIterator<>(sources,comparator);
+        }
+    }
+
+    private static class MergingIterator<T> implements Iterator<T>{
+        private final PriorityQueue<Head<T>> heads;
+
+        MergingIterator(List<Iterator<T>> sources,final Comparator<T> comparator){
+            this.heads=new PriorityQueue<>(sources.size(),new Comparator<Head<T>>(){
+                @Override
+                public int compare(Head<T> o1,Head<T> o2){
+                    return comparator.compare(o1.value,o2.value);
+                }
+            });
+            for(Iterator<T> source:sources){
+                if(source.hasNext())
+                    heads.add(new Head<>(source));
+            }
+        }
+
+        @Override
+        public boolean hasNext(){
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public T next(){
+            Head<T> head=heads.poll();
+            if(head==null) throw new NoSuchElementException();
+            T value=head.value;
+            if(head.advance())
+                heads.add(head);
+            return value;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class Head<T>{
+        private final Iterator<T> source;
+        private T value;
+
+        Head(Iterator<T> source){
+            this.source=source;
+            this.value=source.next();
+        }
+
+        boolean advance(){
+            if(!source.hasNext()) return false;
+            value=source.next();
+            return true;
+        }
+    }
+}
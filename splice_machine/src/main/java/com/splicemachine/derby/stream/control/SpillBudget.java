@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How much memory a single sort, grouping or hash join on the control side may hold before
+ * it spills to local disk, and the directory it spills to.
+ * <p/>
+ * A budget also keeps track of the {@link SpillFile}s created under it. The first time it spills, it registers
+ * itself with the operation which owns it, so that all of its files are deleted when that operation is closed,
+ * however much of the result was actually read.
+ */
+final class SpillBudget implements AutoCloseable{
+    /*rough per-object overhead of the rows and tuples we hold on to*/
+    private static final long OBJECT_OVERHEAD=32L;
+
+    static final SpillBudget UNBOUNDED=new SpillBudget(Long.MAX_VALUE,System.getProperty("java.io.tmpdir"));
+
+    private final long memoryBudget;
+    private final File spillDirectory;
+    private final SpliceOperation owner;
+
+    private List<SpillFile<?,?>> spillFiles; //guarded by this
+    private boolean closed=false; //guarded by this
+
+    SpillBudget(long memoryBudget,String spillDirectory){
+        this(memoryBudget,spillDirectory,null);
+    }
+
+    private SpillBudget(long memoryBudget,String spillDirectory,SpliceOperation owner){
+        this.memoryBudget=memoryBudget;
+        this.spillDirectory=new File(spillDirectory);
+        this.owner=owner;
+    }
+
+    /**
+     * @param context the context of the operation which will consume the spilled data, or {@code null}
+     *                if it isn't known. Without an operation to clean up after us, we don't spill at all.
+     */
+    static SpillBudget fromConfiguration(OperationContext context){
+        EngineDriver driver=EngineDriver.driver();
+        if(driver==null) return UNBOUNDED; //no engine to configure us, e.g. in unit tests
+        SpliceOperation owner=context==null?null:context.getOperation();
+        if(owner==null) return UNBOUNDED;
+        SConfiguration config=driver.getConfiguration();
+        return new SpillBudget(config.getControlExecutionMemoryBudget(),config.getSpillDirectory(),owner);
+    }
+
+    boolean isExceededBy(long bytes){
+        return bytes>memoryBudget;
+    }
+
+    /**
+     * @return a new, empty SpillFile which is deleted when this budget is closed.
+     */
+    <K,V> SpillFile<K,V> newSpillFile() throws IOException{
+        SpillFile<K,V> file=new SpillFile<>(spillDirectory);
+        synchronized(this){
+            if(!closed){
+                if(spillFiles==null){
+                    spillFiles=new ArrayList<>();
+                    registerWithOwner();
+                }
+                spillFiles.add(file);
+                return file;
+            }
+        }
+        file.delete();
+        throw new IOException("Cannot spill to disk, the operation has already been closed");
+    }
+
+    @Override
+    public void close(){
+        List<SpillFile<?,?>> toDelete;
+        synchronized(this){
+            closed=true;
+            toDelete=spillFiles;
+            spillFiles=null;
+        }
+        if(toDelete==null) return;
+        for(SpillFile<?,?> file:toDelete){
+            file.delete();
+        }
+    }
+
+    /**
+     * @return an estimate of the heap held by {@code o}. Rows are measured by the memory usage of their
+     * columns; anything else is assumed to be small.
+     */
+    static long estimateSize(Object o){
+        if(o instanceof ExecRow){
+            long size=OBJECT_OVERHEAD;
+            for(DataValueDescriptor dvd:((ExecRow)o).getRowArray()){
+                if(dvd!=null)
+                    size+=dvd.estimateMemoryUsage();
+            }
+            return size;
+        }else if(o instanceof LocatedRow){
+            LocatedRow locatedRow=(LocatedRow)o;
+            long size=OBJECT_OVERHEAD+estimateSize(locatedRow.getRow());
+            if(locatedRow.getRowLocation()!=null)
+                size+=locatedRow.getRowLocation().estimateMemoryUsage();
+            return size;
+        }else if(o instanceof Tuple2){
+            Tuple2 t=(Tuple2)o;
+            return OBJECT_OVERHEAD+estimateSize(t._1())+estimateSize(t._2());
+        }
+        return OBJECT_OVERHEAD;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void registerWithOwner() throws IOException{
+        if(owner==null) return;
+        try{
+            owner.registerCloseable(this);
+        }catch(StandardException se){
+            throw new IOException(se);
+        }
+    }
+}
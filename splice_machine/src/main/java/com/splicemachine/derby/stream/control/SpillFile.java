@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.splicemachine.SpliceKryoRegistry;
+import com.splicemachine.utils.kryo.KryoPool;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A local temp file of (key,value) pairs, serialized with the same Kryo registry that is used to
+ * ship rows between Spark executors.
+ * <p/>
+ * A SpillFile is written once, and can then be read any number of times. It is only removed when it is
+ * {@link #delete() deleted}, which the {@link SpillBudget} that created it does when the owning operation is
+ * closed, so that consumers which stop part way through (a LIMIT, a cancellation or an error) don't leave
+ * files behind.
+ */
+class SpillFile<K,V>{
+    private static final int BUFFER_SIZE=32*1024;
+    private static final KryoPool KRYO_POOL=SpliceKryoRegistry.getInstance();
+
+    private final File file;
+    private final Set<ReadingIterator> openReaders=new HashSet<>();
+    private Output output;
+
+    SpillFile(File directory) throws IOException{
+        this.file=File.createTempFile("splice-control-spill",".tmp",directory);
+        this.output=new Output(new FileOutputStream(file),BUFFER_SIZE);
+    }
+
+    void write(K key,V value){
+        assert output!=null: "Programmer error: writing to a finished SpillFile";
+        /*
+         * Kryo instances are expensive to create, and a partitioned spill has many files open for
+         * writing at once, so rather than holding one per file we borrow one for each pair
+         */
+        Kryo kryo=KRYO_POOL.get();
+        try{
+            output.writeBoolean(true);
+            kryo.writeClassAndObject(output,key);
+            kryo.writeClassAndObject(output,value);
+        }finally{
+            KRYO_POOL.returnInstance(kryo);
+        }
+    }
+
+    synchronized void finishWriting(){
+        if(output==null) return;
+        output.writeBoolean(false);
+        output.close();
+        output=null;
+    }
+
+    /**
+     * @return the pairs in this file, in the order in which they were written.
+     */
+    synchronized Iterator<Tuple2<K,V>> read() throws IOException{
+        finishWriting();
+        ReadingIterator reader=new ReadingIterator(new Input(new FileInputStream(file),BUFFER_SIZE));
+        openReaders.add(reader);
+        return reader;
+    }
+
+    /**
+     * Remove the file, closing any readers which have not been read through.
+     */
+    synchronized void delete(){
+        finishWriting();
+        for(ReadingIterator reader:new ArrayList<>(openReaders)){
+            reader.close();
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    private class ReadingIterator implements Iterator<Tuple2<K,V>>{
+        private Input input;
+        private Kryo readKryo;
+        private Tuple2<K,V> next;
+
+        ReadingIterator(Input input){
+            this.input=input;
+            this.readKryo=KRYO_POOL.get();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext(){
+            if(next!=null) return true;
+            if(input==null) return false;
+            if(!input.readBoolean()){
+                close();
+                return false;
+            }
+            K key=(K)readKryo.readClassAndObject(input);
+            V value=(V)readKryo.readClassAndObject(input);
+            next=new Tuple2<>(key,value);
+            return true;
+        }
+
+        @Override
+        public Tuple2<K,V> next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            Tuple2<K,V> n=next;
+            next=null;
+            return n;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+
+        void close(){
+            synchronized(SpillFile.this){
+                if(input==null) return;
+                input.close();
+                input=null;
+                KRYO_POOL.returnInstance(readKryo);
+                readKryo=null;
+                openReaders.remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.google.common.base.Function;
+import org.sparkproject.guava.collect.ArrayListMultimap;
+import org.sparkproject.guava.collect.FluentIterable;
+import org.sparkproject.guava.collect.Iterables;
+import org.sparkproject.guava.collect.Multimap;
+import scala.Tuple2;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Multimap built from (key,value) pairs within a {@link SpillBudget}.
+ * <p/>
+ * While the budget holds, this is just an in-memory Multimap. Once it is exceeded, all of the pairs (those
+ * already held and all those which follow) are instead hash-partitioned by key into {@link #NUM_PARTITIONS}
+ * {@link SpillFile}s, after which the Multimap can only be processed one partition at a time. The other side of
+ * a join is partitioned in the same way, since equal keys always hash into the same partition, so joins and
+ * groupings can then be computed one partition at a time, each needing about {@code 1/NUM_PARTITIONS} of the
+ * memory that the whole would have.
+ * <p/>
+ * A skewed partition may still exceed the budget on its own, in which case it is partitioned again (with a
+ * different hash) when it is loaded, down to {@link #MAX_SPILL_DEPTH} levels. Below that a partition is
+ * loaded whole, so the values of a single key (or of keys whose hash codes collide) must fit in memory.
+ * <p/>
+ * The spill files are owned by the budget, so the results can be iterated more than once; each pass reads
+ * the files again.
+ */
+class SpillableMultimap<K,V>{
+    static final int NUM_PARTITIONS=32;
+    static final int MAX_SPILL_DEPTH=4;
+    static final List<Integer> PARTITION_IDS;
+    static{
+        List<Integer> ids=new ArrayList<>(NUM_PARTITIONS);
+        for(int i=0;i<NUM_PARTITIONS;i++){
+            ids.add(i);
+        }
+        PARTITION_IDS=Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * Computes the result of a join (or similar) for keys which are held in memory on one side.
+     */
+    interface Joiner<K,V,W,R>{
+        Iterable<R> join(Iterable<Tuple2<K,W>> probe,Multimap<K,V> build);
+    }
+
+    private final SpillBudget budget;
+    private final int depth;
+    private Multimap<K,V> inMemory=ArrayListMultimap.create();
+    private List<SpillFile<K,V>> partitions;
+
+    private SpillableMultimap(SpillBudget budget,int depth){
+        this.budget=budget;
+        this.depth=depth;
+    }
+
+    static <K,V> SpillableMultimap<K,V> load(Iterable<Tuple2<K,V>> source,SpillBudget budget){
+        return load(source,budget,0);
+    }
+
+    boolean isSpilled(){
+        return partitions!=null;
+    }
+
+    Multimap<K,V> inMemory(){
+        assert !isSpilled(): "Programmer error: the multimap was spilled to disk";
+        return inMemory;
+    }
+
+    /**
+     * @return the concatenation of {@code perPartition} applied to each partition of this multimap in turn,
+     * loading only one partition into memory at a time.
+     */
+    <R> Iterable<R> transformPartitions(final Function<Multimap<K,V>, Iterable<R>> perPartition){
+        if(!isSpilled())
+            return perPartition.apply(inMemory);
+        return concatPartitions(new Function<Integer, Iterable<R>>(){
+            @Override
+            public Iterable<R> apply(@Nullable Integer partition){
+                assert partition!=null;
+                return loadPartition(partition).transformPartitions(perPartition);
+            }
+        });
+    }
+
+    /**
+     * Join {@code probe} against this multimap. If this multimap is spilled, {@code probe} is partitioned in
+     * the same way, and {@code joiner} is applied one partition at a time.
+     */
+    <W,R> Iterable<R> join(Iterable<Tuple2<K,W>> probe,final Joiner<K,V,W,R> joiner){
+        if(!isSpilled())
+            return joiner.join(probe,inMemory);
+        final List<SpillFile<K,W>> probePartitions=partition(probe,budget,depth);
+        return concatPartitions(new Function<Integer, Iterable<R>>(){
+            @Override
+            public Iterable<R> apply(@Nullable Integer partition){
+                assert partition!=null;
+                return loadPartition(partition).join(contents(probePartitions.get(partition)),joiner);
+            }
+        });
+    }
+
+    static int partitionFor(Object key,int depth){
+        /*
+         * each depth mixes the hash code with a different seed, so that keys which shared a partition
+         * at one depth are spread out across the partitions of the next
+         */
+        int h=(key==null?0:key.hashCode())+depth*0x9E3779B9;
+        h^=(h>>>16);
+        h*=0x85EBCA6B;
+        h^=(h>>>13);
+        h*=0xC2B2AE35;
+        h^=(h>>>16);
+        return (h&Integer.MAX_VALUE)%NUM_PARTITIONS;
+    }
+
+    /**
+     * @return the concatenation of {@code perPartition} applied to each partition in turn. Each partition is
+     * only computed once the previous one has been read through.
+     */
+    static <R> Iterable<R> concatPartitions(Function<Integer, Iterable<R>> perPartition){
+        return Iterables.concat(FluentIterable.from(PARTITION_IDS).transform(perPartition));
+    }
+
+    static <K,V> Iterable<Tuple2<K,V>> contents(final SpillFile<K,V> file){
+        return new Iterable<Tuple2<K,V>>(){
+            @Override
+            public Iterator<Tuple2<K,V>> iterator(){
+                return read(file);
+            }
+        };
+    }
+
+    static <K,V> Iterator<Tuple2<K,V>> read(SpillFile<K,V> file){
+        try{
+            return file.read();
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    static <K,V> Multimap<K,V> toMultimap(Iterable<Tuple2<K,V>> tuples){
+        Multimap<K,V> map=ArrayListMultimap.create();
+        for(Tuple2<K,V> t:tuples){
+            map.put(t._1(),t._2());
+        }
+        return map;
+    }
+
+    static <K,V> List<SpillFile<K,V>> newPartitions(SpillBudget budget) throws IOException{
+        List<SpillFile<K,V>> partitions=new ArrayList<>(NUM_PARTITIONS);
+        for(int i=0;i<NUM_PARTITIONS;i++){
+            partitions.add(budget.<K,V>newSpillFile());
+        }
+        return partitions;
+    }
+
+    static <K,V> void finishWriting(List<SpillFile<K,V>> partitions){
+        for(SpillFile<K,V> partition:partitions){
+            partition.finishWriting();
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static <K,V> SpillableMultimap<K,V> load(Iterable<Tuple2<K,V>> source,SpillBudget budget,int depth){
+        SpillableMultimap<K,V> map=new SpillableMultimap<>(budget,depth);
+        long bytes=0L;
+        try{
+            for(Tuple2<K,V> t:source){
+                if(map.partitions!=null){
+                    map.partitions.get(partitionFor(t._1(),depth)).write(t._1(),t._2());
+                    continue;
+                }
+                map.inMemory.put(t._1(),t._2());
+                bytes+=SpillBudget.estimateSize(t);
+                if(depth<MAX_SPILL_DEPTH && budget.isExceededBy(bytes)){
+                    map.partitions=newPartitions(budget);
+                    for(Map.Entry<K,V> entry:map.inMemory.entries()){
+                        map.partitions.get(partitionFor(entry.getKey(),depth)).write(entry.getKey(),entry.getValue());
+                    }
+                    map.inMemory=null;
+                }
+            }
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+        if(map.partitions!=null)
+            finishWriting(map.partitions);
+        return map;
+    }
+
+    private SpillableMultimap<K,V> loadPartition(int partition){
+        assert isSpilled(): "Programmer error: the multimap is held in memory";
+        return load(contents(partitions.get(partition)),budget,depth+1);
+    }
+
+    private static <K,W> List<SpillFile<K,W>> partition(Iterable<Tuple2<K,W>> source,SpillBudget budget,int depth){
+        try{
+            List<SpillFile<K,W>> partitions=newPartitions(budget);
+            for(Tuple2<K,W> t:source){
+                partitions.get(partitionFor(t._1(),depth)).write(t._1(),t._2());
+            }
+            finishWriting(partitions);
+            return partitions;
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+}
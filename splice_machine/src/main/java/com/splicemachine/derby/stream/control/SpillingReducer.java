@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.google.common.base.Function;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.function.SpliceFunction2;
+import scala.Tuple2;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.splicemachine.derby.stream.control.ControlUtils.entryToTuple;
+
+/**
+ * Reduces (key,value) pairs by key within a {@link SpillBudget}.
+ * <p/>
+ * Values are reduced into a hash table as they arrive, so the memory used is proportional to the number of
+ * distinct keys rather than the number of pairs. Whenever that exceeds the budget, the partially reduced values
+ * are hash-partitioned by key into {@link SpillFile}s and the table is cleared. Each partition is
+ * then reduced on its own in the same way (spilling again if it has too many distinct keys, down to
+ * {@link SpillableMultimap#MAX_SPILL_DEPTH} levels), merging the partial values of each key with the same
+ * function, which (as with Spark's reduceByKey) must therefore be associative.
+ */
+class SpillingReducer{
+
+    private SpillingReducer(){}
+
+    static <K,V,Op extends SpliceOperation> Iterable<Tuple2<K,V>> reduce(Iterable<Tuple2<K,V>> source,
+                                                                       SpliceFunction2<Op,V,V,V> function,
+                                                                       SpillBudget budget){
+        return reduce(source,function,budget,0);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static <K,V,Op extends SpliceOperation> Iterable<Tuple2<K,V>> reduce(Iterable<Tuple2<K,V>> source,
+                                                                               final SpliceFunction2<Op,V,V,V> function,
+                                                                               final SpillBudget budget,
+                                                                               final int depth){
+        Map<K,V> reduced=new HashMap<>();
+        List<SpillFile<K,V>> partitions=null;
+        long bytes=0L;
+        try{
+            for(Tuple2<K,V> t:source){
+                K key=t._1();
+                V previous=reduced.get(key);
+                if(previous==null)
+                    bytes+=SpillBudget.estimateSize(t);
+                reduced.put(key,function.call(previous,t._2()));
+                if(depth<SpillableMultimap.MAX_SPILL_DEPTH && budget.isExceededBy(bytes)){
+                    if(partitions==null)
+                        partitions=SpillableMultimap.newPartitions(budget);
+                    spill(reduced,partitions,depth);
+                    bytes=0L;
+                }
+            }
+        }catch(Exception e){
+            throw new RuntimeException(e);
+        }
+        if(partitions==null)
+            return entryToTuple(reduced.entrySet());
+
+        spill(reduced,partitions,depth);
+        SpillableMultimap.finishWriting(partitions);
+        final List<SpillFile<K,V>> spilled=partitions;
+        return SpillableMultimap.concatPartitions(new Function<Integer, Iterable<Tuple2<K,V>>>(){
+            @Override
+            public Iterable<Tuple2<K,V>> apply(@Nullable Integer partition){
+                assert partition!=null;
+                return reduce(SpillableMultimap.contents(spilled.get(partition)),function,budget,depth+1);
+            }
+        });
+    }
+
+    private static <K,V> void spill(Map<K,V> reduced,List<SpillFile<K,V>> partitions,int depth){
+        for(Map.Entry<K,V> entry:reduced.entrySet()){
+            partitions.get(SpillableMultimap.partitionFor(entry.getKey(),depth)).write(entry.getKey(),entry.getValue());
+        }
+        reduced.clear();
+    }
+}
@@ -18,11 +18,9 @@ package com.splicemachine.derby.stream.function;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
-import com.splicemachine.db.iapi.types.DateTimeDataValue;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.supercsv.prefs.CsvPreference;
 
@@ -30,15 +28,12 @@ import com.splicemachine.EngineDriver;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.ArrayUtil;
-import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
-import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.shared.common.reference.SQLState;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.output.WriteReadUtils;
-import com.splicemachine.derby.utils.SpliceDateFunctions;
 
 /**
  * Created by jleach on 10/30/15.
@@ -55,7 +50,7 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
     private String timestampFormat;
     private int[] columnIndex;
 
-    private transient Calendar calendar;
+    private transient CsvRecordParser recordParser;
 
     public AbstractFileFunction() {
 
@@ -125,39 +120,12 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
         operationContext.recordRead();
         try {
             ExecRow returnRow = execRow.getClone();
+            CsvRecordParser parser = getRecordParser();
             for (int i = 1; i <= returnRow.nColumns(); i++) {
-                DataValueDescriptor dvd = returnRow.getColumn(i);
-                int type = dvd.getTypeFormatId();
                 if (values.size() <= i-1) {
                     throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, execRow.nColumns(), values.size());
                 }
-                String value = values.get(i - 1);
-                if (value != null && (value.equals("null") || value.equals("NULL") || value.isEmpty()))
-                    value = null;
-                if (type == StoredFormatIds.SQL_TIME_ID) {
-                    if(calendar==null)
-                        calendar = new GregorianCalendar();
-                    if (timeFormat == null || value==null){
-                        ((DateTimeDataValue)dvd).setValue(value,calendar);
-                    }else
-                        dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
-                } else if (type == StoredFormatIds.SQL_TIMESTAMP_ID) {
-                    if(calendar==null)
-                        calendar = new GregorianCalendar();
-                    if (timestampFormat == null || value==null)
-                        ((DateTimeDataValue)dvd).setValue(value,calendar);
-                    else
-                        dvd.setValue(SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat),calendar);
-                } else if (type == StoredFormatIds.SQL_DATE_ID) {
-                    if(calendar==null)
-                        calendar = new GregorianCalendar();
-                    if (dateTimeFormat == null || value == null)
-                        ((DateTimeDataValue)dvd).setValue(value,calendar);
-                    else
-                        dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
-                } else {
-                    dvd.setValue(value);
-                }
+                parser.setValue(returnRow.getColumn(i), values.get(i - 1));
             }
             return new LocatedRow(returnRow);
         } catch (Exception e) {
@@ -169,14 +137,60 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
         }
     }
 
+    /**
+     * Parse a single-line record straight from its UTF-8 bytes. Only valid when {@link #canParseBytes()}.
+     *
+     * @return the parsed row, or {@code null} if the record is empty or was recorded as a bad record
+     */
+    @SuppressFBWarnings(value = "REC_CATCH_EXCEPTION",justification = "Intentional")
+    public LocatedRow call(byte[] record, int offset, int length) throws Exception {
+        operationContext.recordRead();
+        try {
+            ExecRow row = getRecordParser().parse(record, offset, length);
+            return row == null ? null : new LocatedRow(row);
+        } catch (Exception e) {
+            if (operationContext.isPermissive()) {
+                operationContext.recordBadRecord(e.getLocalizedMessage() + new String(record, offset, length, StandardCharsets.UTF_8), e);
+                return null;
+            }
+            throw e; // Not Permissive of errors
+        }
+    }
+
+    /**
+     * @return true if records can be parsed directly from bytes (see {@link CsvRecordParser#supports(char, char)})
+     */
+    public boolean canParseBytes() {
+        return CsvRecordParser.supports(quoteCharacter(), columnDelimiterCharacter());
+    }
+
+    /**
+     * @return a new parser for this function's file format. Parsers are not thread-safe.
+     */
+    public CsvRecordParser newRecordParser() {
+        return new CsvRecordParser(execRow, quoteCharacter(), columnDelimiterCharacter(),
+                timeFormat, dateTimeFormat, timestampFormat);
+    }
+
+    private CsvRecordParser getRecordParser() {
+        if (recordParser == null)
+            recordParser = newRecordParser();
+        return recordParser;
+    }
+
+    private char quoteCharacter() {
+        return characterDelimiter!=null && characterDelimiter.length()>0?characterDelimiter.charAt(0):DEFAULT_STRIP_STRING;
+    }
+
+    private char columnDelimiterCharacter() {
+        return columnDelimiter!=null && columnDelimiter.length()>0?columnDelimiter.charAt(0):DEFAULT_COLUMN_DELIMITTER;
+    }
+
     void checkPreference() {
         if (preference==null){
             SConfiguration config =EngineDriver.driver().getConfiguration();
             int maxQuotedLines = config.getImportMaxQuotedColumnLines();
-            preference=new CsvPreference.Builder(
-                    characterDelimiter!=null && characterDelimiter.length()>0?characterDelimiter.charAt(0):DEFAULT_STRIP_STRING,
-                    columnDelimiter!=null && columnDelimiter.length()>0?columnDelimiter.charAt(0):DEFAULT_COLUMN_DELIMITTER,
-                    "\n").maxLinesPerRow(maxQuotedLines).build();
+            preference=new CsvPreference.Builder(quoteCharacter(),columnDelimiterCharacter(),"\n").maxLinesPerRow(maxQuotedLines).build();
         }
     }
 
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.DateTimeDataValue;
+import com.splicemachine.db.shared.common.reference.SQLState;
+import com.splicemachine.derby.utils.SpliceDateFunctions;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * Parses single-line CSV records straight from UTF-8 bytes into a row.
+ *
+ * Fields are tokenized the same way as super-csv's Tokenizer: the quote character toggles quoting wherever
+ * it appears, a doubled quote inside a quoted section stands for a literal quote, and surrounding spaces are
+ * kept. Unlike the Tokenizer, no intermediate List or String is created for a record: integral columns are
+ * decoded directly from the bytes, and only the other columns are turned into Strings before being set.
+ *
+ * As with the other import functions, an empty field (quoted or not) or the literal {@code null}/{@code NULL}
+ * is a null value, and fields beyond the last column of the row are ignored.
+ */
+@NotThreadSafe
+public class CsvRecordParser{
+    private static final byte[] NULL_LOWER="null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_UPPER="NULL".getBytes(StandardCharsets.US_ASCII);
+
+    private final ExecRow template;
+    private final byte quote;
+    private final byte delimiter;
+    private final String timeFormat;
+    private final String dateFormat;
+    private final String timestampFormat;
+
+    private byte[] field=new byte[64];
+    private int fieldLength;
+    private Calendar calendar;
+
+    public CsvRecordParser(ExecRow template,
+                           char quote,
+                           char delimiter,
+                           String timeFormat,
+                           String dateFormat,
+                           String timestampFormat){
+        this.template=template;
+        this.quote=(byte)quote;
+        this.delimiter=(byte)delimiter;
+        this.timeFormat=timeFormat;
+        this.dateFormat=dateFormat;
+        this.timestampFormat=timestampFormat;
+    }
+
+    /**
+     * @return true if records using these delimiters can be parsed at the byte level. Both must be distinct
+     * ASCII characters (which never appear inside a multi-byte UTF-8 sequence), and neither can be a line terminator.
+     */
+    public static boolean supports(char quote,char delimiter){
+        return quote<0x80 && delimiter<0x80 && quote!=delimiter
+                && quote!='\n' && quote!='\r' && delimiter!='\n' && delimiter!='\r';
+    }
+
+    /**
+     * Parse a single record. This requires delimiters which {@link #supports(char, char)} accepts.
+     *
+     * @param data the buffer holding the record
+     * @param offset the start of the record
+     * @param length the length of the record, excluding its line terminator (a trailing carriage return is ignored)
+     * @return a new row holding the record's values, or {@code null} if the record is an empty line
+     * @throws StandardException if the record is malformed, or one of its values cannot be converted
+     */
+    public ExecRow parse(byte[] data,int offset,int length) throws StandardException{
+        int end=offset+length;
+        if(end>offset && data[end-1]=='\r') end--;
+        if(end==offset) return null;
+
+        ExecRow row=template.getClone();
+        int numColumns=row.nColumns();
+        int column=0;
+        int pos=offset;
+        while(column<numColumns){
+            pos=nextField(data,pos,end);
+            if(pos<0){
+                throw StandardException.newException(SQLState.UNEXPECTED_END_OF_FILE,
+                        new String(data,offset,end-offset,StandardCharsets.UTF_8));
+            }
+            setFieldValue(row.getColumn(++column));
+            if(pos>=end) break;
+            pos++; //skip the delimiter
+        }
+        if(column<numColumns){
+            int numFields=column;
+            throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH,numColumns,numFields);
+        }
+        return row;
+    }
+
+    /**
+     * Set {@code dvd} from a field which has already been tokenized into a String, applying the configured
+     * date, time and timestamp formats.
+     *
+     * @param dvd the column to set
+     * @param value the field value, or {@code null}
+     * @throws StandardException if the value cannot be converted to the type of the column
+     */
+    public void setValue(DataValueDescriptor dvd,String value) throws StandardException{
+        if(value!=null && (value.equals("null") || value.equals("NULL") || value.isEmpty()))
+            value=null;
+        try{
+            switch(dvd.getTypeFormatId()){
+                case StoredFormatIds.SQL_TIME_ID:
+                    if(timeFormat==null || value==null)
+                        ((DateTimeDataValue)dvd).setValue(value,calendar());
+                    else
+                        dvd.setValue(SpliceDateFunctions.TO_TIME(value,timeFormat),calendar());
+                    break;
+                case StoredFormatIds.SQL_TIMESTAMP_ID:
+                    if(timestampFormat==null || value==null)
+                        ((DateTimeDataValue)dvd).setValue(value,calendar());
+                    else
+                        dvd.setValue(SpliceDateFunctions.TO_TIMESTAMP(value,timestampFormat),calendar());
+                    break;
+                case StoredFormatIds.SQL_DATE_ID:
+                    if(dateFormat==null || value==null)
+                        ((DateTimeDataValue)dvd).setValue(value,calendar());
+                    else
+                        dvd.setValue(SpliceDateFunctions.TO_DATE(value,dateFormat),calendar());
+                    break;
+                default:
+                    dvd.setValue(value);
+            }
+        }catch(SQLException se){
+            throw StandardException.plainWrapException(se);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * Tokenize the field starting at pos into the field buffer, returning the position of the delimiter
+     * which ends it (or end), or -1 if the record ends inside a quoted section.
+     */
+    private int nextField(byte[] data,int pos,int end){
+        fieldLength=0;
+        boolean inQuotes=false;
+        while(pos<end){
+            byte b=data[pos];
+            if(inQuotes){
+                if(b==quote){
+                    if(pos+1<end && data[pos+1]==quote){
+                        append(b);
+                        pos++;
+                    }else
+                        inQuotes=false;
+                }else
+                    append(b);
+            }else if(b==delimiter){
+                return pos;
+            }else if(b==quote){
+                inQuotes=true;
+            }else
+                append(b);
+            pos++;
+        }
+        return inQuotes?-1:pos;
+    }
+
+    private void append(byte b){
+        if(fieldLength==field.length){
+            byte[] newField=new byte[2*field.length];
+            System.arraycopy(field,0,newField,0,fieldLength);
+            field=newField;
+        }
+        field[fieldLength++]=b;
+    }
+
+    private void setFieldValue(DataValueDescriptor dvd) throws StandardException{
+        if(fieldLength==0 || matches(NULL_LOWER) || matches(NULL_UPPER)){
+            dvd.setToNull();
+            return;
+        }
+        switch(dvd.getTypeFormatId()){
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                if(setIntegral(dvd)) return;
+                break;
+            default:
+        }
+        setValue(dvd,new String(field,0,fieldLength,StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Decode a plain (optionally signed) decimal integer directly. Anything else (surrounding whitespace,
+     * more digits than a long is sure to hold) is left to the String conversion.
+     */
+    private boolean setIntegral(DataValueDescriptor dvd) throws StandardException{
+        int pos=0;
+        boolean negative=false;
+        if(field[0]=='-' || field[0]=='+'){
+            negative=field[0]=='-';
+            pos++;
+        }
+        int numDigits=fieldLength-pos;
+        if(numDigits<=0 || numDigits>18) return false;
+        long value=0L;
+        for(;pos<fieldLength;pos++){
+            int digit=field[pos]-'0';
+            if(digit<0 || digit>9) return false;
+            value=10*value+digit;
+        }
+        dvd.setValue(negative?-value:value);
+        return true;
+    }
+
+    private boolean matches(byte[] literal){
+        if(fieldLength!=literal.length) return false;
+        for(int i=0;i<fieldLength;i++){
+            if(field[i]!=literal[i]) return false;
+        }
+        return true;
+    }
+
+    private Calendar calendar(){
+        if(calendar==null)
+            calendar=new GregorianCalendar();
+        return calendar;
+    }
+}
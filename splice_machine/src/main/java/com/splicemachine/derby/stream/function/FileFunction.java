@@ -22,11 +22,13 @@ import com.splicemachine.derby.stream.iapi.OperationContext;
 
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 /**
  *
- * Function for parsing CSV files that are splittable by Hadoop.  The tokenizer swaps in and out
+ * Function for parsing CSV files that are splittable by Hadoop.  When the delimiters allow it, each line
+ * is parsed straight from its bytes by a {@link CsvRecordParser}; otherwise the tokenizer swaps in and out
  * the line to be tokenized.
  *
  * Special attention should be paid to permissive execution of the OperationContext.  This occurs
@@ -37,6 +39,7 @@ import java.util.Collections;
 @NotThreadSafe
 public class FileFunction extends AbstractFileFunction<String> {
     boolean initialized = false;
+    boolean parseBytes;
     MutableCSVTokenizer tokenizer;
     public FileFunction() {
         super();
@@ -61,14 +64,23 @@ public class FileFunction extends AbstractFileFunction<String> {
         if (operationContext.isFailed())
             return Collections.emptyList();
         if (!initialized) {
-            Reader reader = new StringReader(s);
-            checkPreference();
-            tokenizer= new MutableCSVTokenizer(reader,preference);
+            parseBytes = canParseBytes();
+            if (!parseBytes) {
+                Reader reader = new StringReader(s);
+                checkPreference();
+                tokenizer = new MutableCSVTokenizer(reader, preference);
+            }
             initialized = true;
         }
         try {
-            tokenizer.setLine(s);
-            LocatedRow lr =  call(tokenizer.read());
+            LocatedRow lr;
+            if (parseBytes) {
+                byte[] record = s.getBytes(StandardCharsets.UTF_8);
+                lr = call(record, 0, record.length);
+            } else {
+                tokenizer.setLine(s);
+                lr = call(tokenizer.read());
+            }
             return lr==null?Collections.<LocatedRow>emptyList():Collections.singletonList(lr);
         } catch (Exception e) {
             if (operationContext.isPermissive()) {
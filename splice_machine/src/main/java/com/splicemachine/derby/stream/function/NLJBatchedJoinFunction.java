@@ -0,0 +1,286 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.RowLocation;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinUtils;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.sql.execute.operations.TableScanOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.iterator.ParallelTableScannerIterator;
+import com.splicemachine.derby.stream.utils.StreamLogUtils;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.DataScan;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A nested loop join which probes the inner table with a batch of outer rows at a time, rather than
+ * opening the inner side once for every outer row.
+ *
+ * The inner side must be a plain {@link TableScanOperation}. For each outer row of a batch, the inner scan
+ * (its start and stop keys, and its qualifiers) is computed exactly as it would be if the inner side were opened
+ * for that row alone. Outer rows which compute the same scan share a single probe, and the distinct probes of
+ * the batch are read, in key order, by a single opening of the inner side, which looks them up in parallel (see
+ * {@link ParallelTableScannerIterator}). Each outer row is then joined with the rows of its own probe, so the
+ * join returns its rows in the same order as the outer rows arrive.
+ */
+public class NLJBatchedJoinFunction<Op extends SpliceOperation> extends SpliceJoinFlatMapFunction<Op,Iterator<LocatedRow>,LocatedRow>{
+
+    public enum JoinType{
+        INNER,
+        /*only the first matching inner row is joined*/
+        ONE_ROW_INNER,
+        OUTER,
+        ANTI
+    }
+
+    private JoinType joinType;
+    private int batchSize;
+
+    public NLJBatchedJoinFunction(){}
+
+    public NLJBatchedJoinFunction(OperationContext<Op> operationContext,JoinType joinType,int batchSize){
+        super(operationContext);
+        this.joinType=joinType;
+        this.batchSize=batchSize;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        super.writeExternal(out);
+        out.writeInt(joinType.ordinal());
+        out.writeInt(batchSize);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        super.readExternal(in);
+        joinType=JoinType.values()[in.readInt()];
+        batchSize=in.readInt();
+    }
+
+    @Override
+    public Iterable<LocatedRow> call(Iterator<LocatedRow> leftRows) throws Exception{
+        checkInit();
+        return new BatchIterator(leftRows);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private class BatchIterator implements Iterator<LocatedRow>, Iterable<LocatedRow>{
+        private final Iterator<LocatedRow> leftRows;
+        private final List<LocatedRow> outerRows=new ArrayList<>(batchSize);
+        private final List<Probe> outerProbes=new ArrayList<>(batchSize);
+        private final List<List<LocatedRow>> probeRows=new ArrayList<>();
+        private int outer;
+        private int inner;
+        private LocatedRow next;
+
+        BatchIterator(Iterator<LocatedRow> leftRows){
+            this.leftRows=leftRows;
+        }
+
+        @Override
+        public boolean hasNext(){
+            if(next!=null) return true;
+            try{
+                while(true){
+                    if(outer>=outerRows.size()){
+                        if(!probeNextBatch()) return false;
+                        outer=0;
+                        inner=0;
+                    }
+                    next=join(outerRows.get(outer),probeRows.get(outerProbes.get(outer).id),inner);
+                    if(next!=null){
+                        inner++;
+                        return true;
+                    }
+                    outer++;
+                    inner=0;
+                }
+            }catch(Exception e){
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public LocatedRow next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            LocatedRow row=next;
+            next=null;
+            StreamLogUtils.logOperationRecord(row,operationContext);
+            op.setCurrentLocatedRow(row);
+            return row;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Iterator<LocatedRow> iterator(){
+            return this;
+        }
+
+        /*
+         * @return the {@code position}th row that {@code left} produces, or null if it produces no more
+         */
+        private LocatedRow join(LocatedRow left,List<LocatedRow> matches,int position) throws StandardException{
+            switch(joinType){
+                case INNER:
+                    return position<matches.size()?merge(left,matches.get(position).getRow()):null;
+                case ONE_ROW_INNER:
+                    return position==0 && !matches.isEmpty()?merge(left,matches.get(0).getRow()):null;
+                case OUTER:
+                    if(!matches.isEmpty())
+                        return position<matches.size()?merge(left,matches.get(position).getRow()):null;
+                    return position==0?merge(left,op.getEmptyRow()):null;
+                case ANTI:
+                    return position==0 && matches.isEmpty()?merge(left,op.getEmptyRow()):null;
+                default:
+                    throw new IllegalStateException("Unexpected join type "+joinType);
+            }
+        }
+
+        private LocatedRow merge(LocatedRow left,ExecRow right){
+            ExecRow mergedRow=JoinUtils.getMergedRow(left.getRow(),right,op.wasRightOuterJoin,
+                    executionFactory.getValueRow(numberOfColumns));
+            return new LocatedRow(left.getRowLocation(),mergedRow);
+        }
+
+        /*
+         * Read up to batchSize outer rows, and the inner rows which match them.
+         *
+         * @return false if there are no more outer rows
+         */
+        private boolean probeNextBatch() throws StandardException{
+            outerRows.clear();
+            outerProbes.clear();
+            probeRows.clear();
+            TableScanOperation rightOperation=(TableScanOperation)op.getRightOperation();
+            Map<Probe,Probe> distinctProbes=new HashMap<>();
+            while(outerRows.size()<batchSize && leftRows.hasNext()){
+                /*
+                 * The source may reuse its rows, so we copy them while we hold on to them. The inner scan's keys
+                 * are computed from the current outer row.
+                 */
+                LocatedRow left=leftRows.next();
+                RowLocation location=left.getRowLocation();
+                left=new LocatedRow(location==null?null:(RowLocation)location.cloneValue(false),left.getRow().getClone());
+                op.getLeftOperation().setCurrentLocatedRow(left);
+                Probe probe=new Probe(rightOperation.getNonSIScan());
+                Probe existing=distinctProbes.get(probe);
+                if(existing==null)
+                    distinctProbes.put(probe,probe);
+                else
+                    probe=existing;
+                outerRows.add(left);
+                outerProbes.add(probe);
+            }
+            if(outerRows.isEmpty()) return false;
+
+            //read the table in key order
+            List<Probe> probes=new ArrayList<>(distinctProbes.keySet());
+            Collections.sort(probes,Probe.START_KEY_ORDER);
+            List<DataScan> scans=new ArrayList<>(probes.size());
+            for(Probe probe:probes){
+                probe.id=scans.size();
+                scans.add(probe.scan);
+                probeRows.add(new ArrayList<LocatedRow>(1));
+            }
+            //inner and outer joins need every matching row, the others only need to know whether there is one
+            boolean allMatches=joinType==JoinType.INNER || joinType==JoinType.OUTER;
+
+            rightOperation.setProbeScans(scans);
+            try{
+                rightOperation.openCore(EngineDriver.driver().processorFactory().localProcessor(op.getActivation(),op));
+                Iterator<LocatedRow> rightRows=rightOperation.getLocatedRowIterator();
+                assert rightRows instanceof ParallelTableScannerIterator: "Probe scans should be read by a ParallelTableScannerIterator";
+                ParallelTableScannerIterator probeIterator=(ParallelTableScannerIterator)rightRows;
+                while(probeIterator.hasNext()){
+                    LocatedRow right=probeIterator.next();
+                    List<LocatedRow> matches=probeRows.get(probeIterator.currentProbe());
+                    if(allMatches || matches.isEmpty())
+                        matches.add(right);
+                }
+            }finally{
+                rightOperation.setProbeScans(null);
+                rightOperation.close();
+            }
+            return true;
+        }
+    }
+
+    /*
+     * An inner scan, identified by its key range and by its qualifiers, which are computed for each outer
+     * row along with the keys.
+     */
+    private static class Probe{
+        private static final Comparator<Probe> START_KEY_ORDER=new Comparator<Probe>(){
+            @Override
+            public int compare(Probe o1,Probe o2){
+                return Bytes.startComparator.compare(o1.scan.getStartKey(),o2.scan.getStartKey());
+            }
+        };
+
+        private final DataScan scan;
+        private final byte[] predicate;
+        private final int hashCode;
+        private int id;
+
+        Probe(DataScan scan){
+            this.scan=scan;
+            this.predicate=scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL);
+            int hash=Arrays.hashCode(scan.getStartKey());
+            hash=31*hash+Arrays.hashCode(scan.getStopKey());
+            this.hashCode=31*hash+Arrays.hashCode(predicate);
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof Probe)) return false;
+            Probe other=(Probe)o;
+            return hashCode==other.hashCode
+                    && Arrays.equals(scan.getStartKey(),other.scan.getStartKey())
+                    && Arrays.equals(scan.getStopKey(),other.scan.getStopKey())
+                    && Arrays.equals(predicate,other.predicate);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+    }
+}
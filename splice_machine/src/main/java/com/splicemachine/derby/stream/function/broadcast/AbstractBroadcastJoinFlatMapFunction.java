@@ -38,9 +38,16 @@ import java.util.concurrent.Callable;
  * Created by dgomezferro on 11/4/15.
  */
 public abstract class AbstractBroadcastJoinFlatMapFunction<In, Out> extends SpliceFlatMapFunction<BroadcastJoinOperation, Iterator<In>, Out> {
-    private static final BroadcastJoinCache broadcastJoinCache = new BroadcastJoinCache();
     private BroadcastJoinOperation operation;
 
+    /*
+     * Lazily initialized, since the configuration is not available until the function
+     * has been deserialized and the engine set up.
+     */
+    private static class CacheHolder{
+        private static final BroadcastJoinCache broadcastJoinCache=new BroadcastJoinCache(EngineDriver.driver().getConfiguration());
+    }
+
     public AbstractBroadcastJoinFlatMapFunction() {
     }
 
@@ -78,7 +85,7 @@ public abstract class AbstractBroadcastJoinFlatMapFunction<In, Out> extends Spli
             }
         };
         ExecRow leftTemplate = operation.getLeftOperation().getExecRowDefinition();
-        joinTable = broadcastJoinCache.get(operation.getSequenceId(), rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate).newTable();
+        joinTable = CacheHolder.broadcastJoinCache.get(operation.getSequenceId(), rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate, operationContext).newTable();
 
         return call(locatedRows, joinTable);
     }
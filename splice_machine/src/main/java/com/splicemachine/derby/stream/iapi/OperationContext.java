@@ -35,6 +35,11 @@ public interface OperationContext<Op extends SpliceOperation> extends Externaliz
     void recordJoinedLeft();
     void recordJoinedRight();
 
+    /**
+     * Record the number of bytes held in memory by a join table built for this operation.
+     */
+    void recordJoinTableMemory(long bytes);
+
     long getRecordsRead();
     long getRecordsFiltered();
     long getRecordsWritten();
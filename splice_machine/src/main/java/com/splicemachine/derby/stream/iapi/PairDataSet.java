@@ -21,6 +21,7 @@ import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
 import com.splicemachine.derby.stream.function.*;
 import com.splicemachine.derby.stream.output.DataSetWriterBuilder;
+import com.splicemachine.derby.stream.output.DirectDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.InsertDataSetWriterBuilder;
 import com.splicemachine.derby.stream.output.UpdateDataSetWriterBuilder;
 import scala.Tuple2;
@@ -170,6 +171,6 @@ public interface PairDataSet<K,V> {
     DataSetWriterBuilder deleteData(OperationContext operationContext) throws StandardException;
     InsertDataSetWriterBuilder insertData(OperationContext operationContext) throws StandardException;
     UpdateDataSetWriterBuilder updateData(OperationContext operationContext) throws StandardException;
-    DataSetWriterBuilder directWriteData() throws StandardException;
+    DirectDataSetWriterBuilder directWriteData() throws StandardException;
     String toString();
 }
\ No newline at end of file
@@ -28,6 +28,7 @@ import com.splicemachine.storage.DataScan;
 import com.splicemachine.storage.DataScanner;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * @author Scott Fines
@@ -80,6 +81,27 @@ public interface ScanSetBuilder<V>{
 
     ScanSetBuilder<V> oneSplitPerRegion(boolean oneSplitPerRegion);
 
+    /**
+     * Whether the consumer of the data set relies on its rows arriving in key order. This is
+     * only a hint: a data set is always free to return its rows in order.
+     */
+    ScanSetBuilder<V> ordered(boolean ordered);
+
+    /**
+     * Read the rows of each of {@code probeScans}, one scan after another, in place of the rows of the single
+     * {@link #scan(DataScan)}. The data set's iterator reports which probe each row came from (see
+     * {@link com.splicemachine.derby.stream.iterator.ParallelTableScannerIterator#currentProbe()}).
+     *
+     * Probe scans are only supported by control-side data sets, and are not serialized with the builder.
+     */
+    ScanSetBuilder<V> probeScans(List<DataScan> probeScans);
+
+    /**
+     * Whether the scan reads at most the single row whose key is its start key. Control-side data sets
+     * fetch such a row with a single get, rather than opening a scanner. Not serialized with the builder.
+     */
+    ScanSetBuilder<V> pointLookup(boolean pointLookup);
+
     DataSet<V> buildDataSet() throws StandardException;
 
     DataSet<V> buildDataSet(Object caller) throws StandardException;
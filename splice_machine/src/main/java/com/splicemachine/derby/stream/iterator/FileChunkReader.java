@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.derby.stream.iterator;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the newline-terminated records of one byte range (or "chunk") of a file.
+ *
+ * A record belongs to the chunk in which it starts. A chunk which does not begin at the start of the file
+ * therefore skips the (partial) record that it begins in, and the last record of a chunk is read to its end,
+ * even when that lies beyond the end of the chunk. Reading every chunk of a file thus reads every record
+ * exactly once, no matter where the chunk boundaries fall.
+ *
+ * Records are returned without their terminating {@code '\n'}, and in a buffer which is reused by the
+ * next call to {@link #next()}.
+ */
+@NotThreadSafe
+public class FileChunkReader implements Closeable{
+    private static final int READ_BUFFER_SIZE=64*1024;
+
+    private final InputStream in;
+    private final long end;
+    private final byte[] readBuffer=new byte[READ_BUFFER_SIZE];
+    private int readPos;
+    private int readLimit;
+
+    private byte[] record=new byte[256];
+    private int recordLength;
+    private long position;
+    private boolean positioned;
+    private boolean eof;
+
+    /**
+     * @param in a stream over the whole file, positioned at its start
+     * @param start the offset of the first byte of the chunk
+     * @param end the offset just past the last byte of the chunk
+     */
+    public FileChunkReader(InputStream in,long start,long end){
+        assert start<=end: "Chunk start "+start+" is past its end "+end;
+        this.in=in;
+        this.position=start;
+        this.end=end;
+    }
+
+    /**
+     * Advance to the next record of the chunk.
+     *
+     * @return false if the chunk has no more records
+     * @throws IOException if the file cannot be read
+     */
+    public boolean next() throws IOException{
+        if(!positioned){
+            seekToFirstRecord();
+            positioned=true;
+        }
+        if(eof || position>=end) return false;
+        recordLength=0;
+        boolean read=false;
+        while(true){
+            if(readPos>=readLimit && !fill()){
+                eof=true;
+                return read; //the last record of the file has no terminating newline
+            }
+            read=true;
+            int lineEnd=indexOfNewline(readBuffer,readPos,readLimit);
+            int stop=lineEnd<0?readLimit:lineEnd;
+            append(readBuffer,readPos,stop-readPos);
+            position+=stop-readPos;
+            readPos=stop;
+            if(lineEnd>=0){
+                readPos++; //consume the newline
+                position++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the buffer holding the current record, starting at offset 0
+     */
+    public byte[] record(){
+        return record;
+    }
+
+    public int recordLength(){
+        return recordLength;
+    }
+
+    @Override
+    public void close() throws IOException{
+        in.close();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * The first record of the chunk starts just after the first newline at or after start-1, so a chunk which starts
+     * exactly at the beginning of a record keeps that record.
+     */
+    private void seekToFirstRecord() throws IOException{
+        if(position==0) return;
+        long toSkip=position-1;
+        while(toSkip>0){
+            long skipped=in.skip(toSkip);
+            if(skipped<=0){
+                //skip() may refuse to make progress without being at the end, so check with a read
+                if(in.read()<0){
+                    eof=true;
+                    return;
+                }
+                skipped=1;
+            }
+            toSkip-=skipped;
+        }
+        position--;
+        while(true){
+            if(readPos>=readLimit && !fill()){
+                eof=true;
+                return;
+            }
+            int lineEnd=indexOfNewline(readBuffer,readPos,readLimit);
+            if(lineEnd>=0){
+                position+=lineEnd+1-readPos;
+                readPos=lineEnd+1;
+                return;
+            }
+            position+=readLimit-readPos;
+            readPos=readLimit;
+        }
+    }
+
+    private boolean fill() throws IOException{
+        int n;
+        do{
+            n=in.read(readBuffer,0,readBuffer.length);
+        }while(n==0);
+        if(n<0) return false;
+        readPos=0;
+        readLimit=n;
+        return true;
+    }
+
+    private void append(byte[] bytes,int offset,int length){
+        if(recordLength+length>record.length)
+            record=Arrays.copyOf(record,Math.max(record.length*2,recordLength+length));
+        System.arraycopy(bytes,offset,record,recordLength,length);
+        recordLength+=length;
+    }
+
+    private static int indexOfNewline(byte[] bytes,int from,int to){
+        for(int i=from;i<to;i++){
+            if(bytes[i]=='\n') return i;
+        }
+        return -1;
+    }
+}
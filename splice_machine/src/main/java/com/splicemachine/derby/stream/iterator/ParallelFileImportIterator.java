@@ -0,0 +1,251 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.derby.stream.iterator;
+
+import com.splicemachine.access.api.DistributedFileSystem;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.function.AbstractFileFunction;
+import com.splicemachine.derby.stream.function.CsvRecordParser;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A control-side import which parses several byte ranges of a single, uncompressed file at the same time.
+ *
+ * The file is divided into chunks of {@code chunkSize} bytes, which are read with a {@link FileChunkReader}
+ * so that every record is parsed exactly once. Up to {@code parallelism} chunks are parsed at once, each on a
+ * thread from a shared executor with its own stream and {@link CsvRecordParser}, and the rows are returned in
+ * file order.
+ *
+ * The OperationContext is not thread-safe, so background threads never touch it: they return the outcome of
+ * each record (a row, an empty line, or a parse failure), and the calling thread counts the records and
+ * handles the failures just as the serial import would. Background threads never block on the consumer, so
+ * an iterator which is abandoned part way through leaves nothing running once its outstanding chunks
+ * are parsed.
+ */
+@NotThreadSafe
+public class ParallelFileImportIterator implements Iterator<LocatedRow>{
+    private static final Logger LOG=Logger.getLogger(ParallelFileImportIterator.class);
+    private static volatile ExecutorService importExecutor;
+
+    private final DistributedFileSystem dfs;
+    private final String fileName;
+    private final long fileSize;
+    private final long chunkSize;
+    private final int parallelism;
+    private final AbstractFileFunction<?> function;
+    private final OperationContext operationContext;
+    private final ExecutorService executor;
+    private final Deque<Future<List<Object>>> pending=new ArrayDeque<>();
+
+    private long nextChunkStart;
+    private List<Object> current;
+    private int currentPos;
+    private LocatedRow nextRow;
+    private boolean exhausted;
+
+    /**
+     * @param function the function whose format the file is in. It must be able to
+     *                 {@link AbstractFileFunction#canParseBytes() parse bytes}.
+     * @param parallelism the maximum number of chunks to parse at once. The first import also sizes the
+     *                    shared executor with it.
+     */
+    public ParallelFileImportIterator(DistributedFileSystem dfs,
+                                      String fileName,
+                                      long fileSize,
+                                      long chunkSize,
+                                      int parallelism,
+                                      AbstractFileFunction<?> function,
+                                      OperationContext operationContext){
+        assert function.canParseBytes(): "Cannot parse the file format from bytes";
+        assert chunkSize>0: "Chunks must be non-empty";
+        this.dfs=dfs;
+        this.fileName=fileName;
+        this.fileSize=fileSize;
+        this.chunkSize=chunkSize;
+        this.parallelism=parallelism;
+        this.function=function;
+        this.operationContext=operationContext;
+        this.executor=importExecutor(parallelism);
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"Parsing %s in %d chunks with parallelism %d",
+                    fileName,(fileSize+chunkSize-1)/chunkSize,parallelism);
+    }
+
+    @Override
+    public boolean hasNext(){
+        if(nextRow!=null) return true;
+        if(exhausted) return false;
+        try{
+            nextRow=advance();
+        }catch(Exception e){
+            cancel();
+            throw new RuntimeException(e);
+        }
+        if(nextRow==null){
+            exhausted=true;
+            cancel();
+        }
+        return nextRow!=null;
+    }
+
+    @Override
+    public LocatedRow next(){
+        if(!hasNext()) throw new NoSuchElementException();
+        LocatedRow row=nextRow;
+        nextRow=null;
+        return row;
+    }
+
+    @Override
+    public void remove(){
+        throw new UnsupportedOperationException();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private LocatedRow advance() throws Exception{
+        while(true){
+            if(operationContext.isFailed()) return null;
+            if(current==null || currentPos>=current.size()){
+                current=nextChunk();
+                currentPos=0;
+                if(current==null) return null;
+                continue;
+            }
+            Object outcome=current.get(currentPos);
+            current.set(currentPos++,null); //let the row go as soon as it is consumed
+            operationContext.recordRead();
+            if(outcome==null) continue; //an empty line
+            if(outcome instanceof ExecRow)
+                return new LocatedRow((ExecRow)outcome);
+            BadRecord bad=(BadRecord)outcome;
+            if(!operationContext.isPermissive())
+                throw bad.error;
+            operationContext.recordBadRecord(bad.error.getLocalizedMessage()+bad.record,bad.error);
+        }
+    }
+
+    private List<Object> nextChunk() throws Exception{
+        while(pending.size()<parallelism && nextChunkStart<fileSize){
+            long start=nextChunkStart;
+            long end=Math.min(fileSize,start+chunkSize);
+            pending.add(executor.submit(new ChunkParser(start,end)));
+            nextChunkStart=end;
+        }
+        Future<List<Object>> next=pending.poll();
+        if(next==null) return null;
+        try{
+            return next.get();
+        }catch(ExecutionException ee){
+            Throwable cause=ee.getCause();
+            if(cause instanceof Exception) throw (Exception)cause;
+            throw ee;
+        }
+    }
+
+    private void cancel(){
+        Future<List<Object>> future;
+        while((future=pending.poll())!=null){
+            future.cancel(true);
+        }
+    }
+
+    /*
+     * The threads which parse imported files, shared by all imports on this server.
+     */
+    private static ExecutorService importExecutor(int numThreads){
+        ExecutorService executor=importExecutor;
+        if(executor==null){
+            synchronized(ParallelFileImportIterator.class){
+                executor=importExecutor;
+                if(executor==null){
+                    ThreadFactory factory=new ThreadFactoryBuilder()
+                            .setNameFormat("control-import-%d")
+                            .setDaemon(true)
+                            .build();
+                    ThreadPoolExecutor tpe=new ThreadPoolExecutor(numThreads,numThreads,
+                            60,TimeUnit.SECONDS,new LinkedBlockingQueue<Runnable>(),factory);
+                    tpe.allowCoreThreadTimeOut(true);
+                    importExecutor=executor=tpe;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static class BadRecord{
+        private final String record;
+        private final Exception error;
+
+        BadRecord(String record,Exception error){
+            this.record=record;
+            this.error=error;
+        }
+    }
+
+    private class ChunkParser implements Callable<List<Object>>{
+        private final long start;
+        private final long end;
+
+        ChunkParser(long start,long end){
+            this.start=start;
+            this.end=end;
+        }
+
+        @Override
+        public List<Object> call() throws Exception{
+            CsvRecordParser parser=function.newRecordParser();
+            List<Object> outcomes=new ArrayList<>();
+            try(FileChunkReader reader=new FileChunkReader(
+                    dfs.newInputStream(dfs.getPath(fileName),StandardOpenOption.READ),start,end)){
+                while(reader.next()){
+                    byte[] record=reader.record();
+                    int length=reader.recordLength();
+                    try{
+                        outcomes.add(parser.parse(record,0,length));
+                    }catch(Exception e){
+                        outcomes.add(new BadRecord(new String(record,0,length,StandardCharsets.UTF_8),e));
+                    }
+                    if(Thread.currentThread().isInterrupted())
+                        throw new InterruptedIOException("Interrupted while parsing "+fileName);
+                }
+            }
+            return outcomes;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.iterator;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.RowLocation;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.ColumnBatch;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
+import com.splicemachine.derby.stream.utils.StreamLogUtils;
+import com.splicemachine.metrics.MetricFactory;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A control-side table scan which reads several regions of the table at the same time.
+ *
+ * The scan is divided into {@link Split}s, one for each region that it touches. Up to {@code parallelism-1}
+ * splits are scanned, decoded and filtered on threads from a shared executor, while the calling thread reads
+ * the rows that they produce. When the calling thread finds no rows waiting, it claims a split which no
+ * background thread has started yet and scans it itself, so that a scan always makes progress even when
+ * the executor is busy with other queries.
+ *
+ * If the scan is {@code ordered}, splits are returned one after another, in key order, and background threads
+ * only read ahead a bounded number of rows of each later split. Otherwise, rows are returned as soon as any
+ * split produces them.
+ *
+ * A scan may also read several separate key ranges ("probes"), in which case each probe is divided into splits
+ * of its own, and an ordered scan reports which probe each row came from.
+ */
+@NotThreadSafe
+public class ParallelTableScannerIterator extends TableScannerIterator{
+    private static final Logger LOG=Logger.getLogger(ParallelTableScannerIterator.class);
+    /*The number of rows that a background thread can read ahead of the consumer, for each split*/
+    private static final int BUFFER_ROWS=1024;
+
+    private final List<Split> splits;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final boolean ordered;
+    private final MetricFactory metricFactory;
+    private final BlockingQueue<Object> sharedOutput;
+    private volatile boolean closed;
+
+    private int nextToSubmit;
+    private int numRunning;
+    private int numFinished;
+    private int current;
+    private Split inline;
+    private LocatedRow nextRow;
+    private int nextRowProbe=-1;
+    private int currentProbe=-1;
+    private boolean exhausted;
+
+    /**
+     * @param splits the parts of the scan, in key order
+     * @param parallelism the maximum number of splits to scan at once, including the one on the calling thread
+     */
+    public ParallelTableScannerIterator(TableScannerBuilder siTableBuilder,
+                                        SpliceOperation operation,
+                                        List<Split> splits,
+                                        ExecutorService executor,
+                                        int parallelism,
+                                        boolean ordered,
+                                        MetricFactory metricFactory){
+        super(siTableBuilder,operation);
+        assert parallelism>1: "Parallel scans need a parallelism of at least 2";
+        this.splits=splits;
+        this.executor=executor;
+        this.parallelism=parallelism;
+        this.ordered=ordered;
+        this.metricFactory=metricFactory;
+        if(ordered){
+            this.sharedOutput=null;
+            for(Split split:splits){
+                split.output=new ArrayBlockingQueue<>(BUFFER_ROWS);
+            }
+            this.nextToSubmit=1; //the first split is read by the calling thread
+        }else{
+            this.sharedOutput=new ArrayBlockingQueue<>(BUFFER_ROWS*parallelism);
+            for(Split split:splits){
+                split.output=sharedOutput;
+            }
+        }
+    }
+
+    /**
+     * Restrict {@code scan} to the rows of {@code partition}.
+     *
+     * @return a copy of {@code scan} whose start and stop keys lie within the partition
+     */
+    public static DataScan split(DataScan scan,Partition partition){
+        DataScan copy=scan.copy();
+        byte[] partitionStart=partition.getStartKey();
+        byte[] partitionEnd=partition.getEndKey();
+        if(Bytes.compareBytes(false,partitionStart,scan.getStartKey())>0)
+            copy.startKey(partitionStart);
+        if(Bytes.compareBytes(true,partitionEnd,scan.getStopKey())<0)
+            copy.stopKey(partitionEnd);
+        return copy;
+    }
+
+    @Override
+    public boolean hasNext(){
+        if(nextRow!=null) return true;
+        if(exhausted) return false;
+        try{
+            nextRow=ordered?nextOrdered():nextUnordered();
+        }catch(Exception e){
+            throw new RuntimeException(e);
+        }
+        if(nextRow==null)
+            exhausted=true;
+        else if(ordered)
+            nextRowProbe=splits.get(current).probe;
+        return nextRow!=null;
+    }
+
+    @Override
+    public LocatedRow next(){
+        if(!hasNext()) throw new NoSuchElementException();
+        LocatedRow locatedRow=nextRow;
+        nextRow=null;
+        currentProbe=nextRowProbe;
+        rows++;
+        if(operation!=null){
+            StreamLogUtils.logOperationRecord(locatedRow,operation);
+            operation.setCurrentLocatedRow(locatedRow);
+        }
+        return locatedRow;
+    }
+
+    /**
+     * @return the probe (see {@link Split#Split(Partition,DataScan,SITableScanner,int)}) of the split which
+     * produced the row last returned by {@link #next()}, or -1 if the scan is unordered or was not split by probe.
+     */
+    public int currentProbe(){
+        return currentProbe;
+    }
+
+    @Override
+    public int nextBatch(ColumnBatch batch) throws StandardException, IOException{
+        batch.clear();
+        while(!batch.isFull()){
+            if(nextRow==null && !exhausted){
+                nextRow=ordered?nextOrdered():nextUnordered();
+                exhausted=nextRow==null;
+            }
+            if(nextRow==null) break;
+            batch.startRow();
+            batch.finishRow(nextRow.getRow());
+            nextRow=null;
+            rows++;
+        }
+        return batch.size();
+    }
+
+    @Override
+    public void close() throws IOException{
+        if(closed) return;
+        closed=true;
+        //make sure that no split which hasn't started yet ever will
+        for(Split split:splits){
+            split.claim(Split.INLINE);
+        }
+        if(inline!=null){
+            closeSplit(inline);
+            inline=null;
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private LocatedRow nextOrdered() throws StandardException, IOException{
+        while(current<splits.size()){
+            Split split=splits.get(current);
+            if(inline==null && split.claim(Split.INLINE)){
+                if(split.submitted) numRunning--; //it was handed to the executor, but never started
+                open(split);
+                inline=split;
+            }
+            submitSplits(current+parallelism);
+
+            if(inline==split){
+                LocatedRow row=readRow(split);
+                if(row!=null) return row;
+                closeSplit(split);
+                inline=null;
+            }else{
+                Object next=take(split.output);
+                if(next!=split) return (LocatedRow)next;
+                numRunning--;
+                throwIfFailed(split);
+            }
+            current++;
+        }
+        return null;
+    }
+
+    private LocatedRow nextUnordered() throws StandardException, IOException{
+        while(true){
+            submitSplits(splits.size());
+            Object next=sharedOutput.poll();
+            if(next==null){
+                if(inline==null)
+                    inline=claimInline();
+                if(inline!=null){
+                    LocatedRow row=readRow(inline);
+                    if(row!=null) return row;
+                    closeSplit(inline);
+                    inline=null;
+                    numFinished++;
+                    continue;
+                }
+                if(numFinished==splits.size()) return null;
+                next=take(sharedOutput);
+            }
+            if(!(next instanceof Split)) return (LocatedRow)next;
+            numRunning--;
+            numFinished++;
+            throwIfFailed((Split)next);
+        }
+    }
+
+    /*
+     * Hand splits before {@code limit} to the executor, keeping at most parallelism-1 of them running
+     */
+    private void submitSplits(int limit){
+        int end=Math.min(limit,splits.size());
+        while(nextToSubmit<end && numRunning<parallelism-1){
+            Split split=splits.get(nextToSubmit++);
+            if(split.state.get()!=Split.UNCLAIMED) continue; //we are already reading it ourselves
+            split.submitted=true;
+            numRunning++;
+            executor.submit(new ScanTask(split));
+        }
+    }
+
+    /*
+     * Claim a split to scan on this thread (unordered scans only). We prefer one which was handed to the
+     * executor but which no thread has picked up yet.
+     */
+    private Split claimInline() throws StandardException, IOException{
+        for(int i=0;i<nextToSubmit;i++){
+            Split split=splits.get(i);
+            if(split.claim(Split.INLINE)){
+                if(split.submitted) numRunning--;
+                open(split);
+                return split;
+            }
+        }
+        while(nextToSubmit<splits.size()){
+            Split split=splits.get(nextToSubmit++);
+            if(split.claim(Split.INLINE)){
+                open(split);
+                return split;
+            }
+        }
+        return null;
+    }
+
+    private void open(Split split) throws StandardException, IOException{
+        split.scanner.setRegionScanner(split.partition.openScanner(split.scan,metricFactory));
+        split.scanner.open();
+    }
+
+    private static LocatedRow readRow(Split split) throws StandardException, IOException{
+        ExecRow row=split.scanner.next();
+        if(row==null) return null;
+        /*
+         * The scanner reuses its row (and, for index scans, its row location), and the consumer may
+         * hold on to the previous row while this one is read, so we have to copy both
+         */
+        RowLocation location=split.scanner.getCurrentRowLocation();
+        if(location!=null)
+            location=(RowLocation)location.cloneValue(false);
+        return new LocatedRow(location,row.getClone());
+    }
+
+    private static void closeSplit(Split split){
+        try{
+            split.scanner.close();
+        }catch(Exception e){
+            SpliceLogUtils.warn(LOG,"Unable to close the scanner over "+split.partition.getName(),e);
+        }
+    }
+
+    private static Object take(BlockingQueue<Object> queue) throws InterruptedIOException{
+        try{
+            return queue.take();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    private static void throwIfFailed(Split split) throws StandardException, IOException{
+        Throwable t=split.error;
+        if(t==null) return;
+        if(t instanceof StandardException) throw (StandardException)t;
+        if(t instanceof IOException) throw (IOException)t;
+        if(t instanceof RuntimeException) throw (RuntimeException)t;
+        if(t instanceof Error) throw (Error)t;
+        throw new IOException(t);
+    }
+
+    private class ScanTask implements Runnable{
+        private final Split split;
+
+        ScanTask(Split split){
+            this.split=split;
+        }
+
+        @Override
+        public void run(){
+            if(!split.claim(Split.BACKGROUND)) return; //the consumer got to it first
+            try{
+                open(split);
+                LocatedRow row;
+                while(!closed && (row=readRow(split))!=null){
+                    if(!put(row)) break;
+                }
+            }catch(Throwable t){
+                split.error=t;
+            }finally{
+                closeSplit(split);
+                put(split); //the split itself marks the end of its rows
+            }
+        }
+
+        /*
+         * Blocks until the consumer has room for the row, but gives up if the scan is closed.
+         */
+        private boolean put(Object o){
+            try{
+                while(!closed){
+                    if(split.output.offer(o,100,TimeUnit.MILLISECONDS)) return true;
+                }
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The part of the scan which falls within a single partition.
+     */
+    public static final class Split{
+        private static final int UNCLAIMED=0;
+        private static final int BACKGROUND=1;
+        private static final int INLINE=2;
+
+        private final Partition partition;
+        private final DataScan scan;
+        private final SITableScanner scanner;
+        private final int probe;
+        private final AtomicInteger state=new AtomicInteger(UNCLAIMED);
+        private BlockingQueue<Object> output;
+        private volatile Throwable error;
+        private boolean submitted; //only used by the consuming thread
+
+        /**
+         * @param scanner a scanner over {@code scan} which has no region scanner yet. It will be
+         *                opened against {@code partition} by whichever thread reads the split.
+         */
+        public Split(Partition partition,DataScan scan,SITableScanner scanner){
+            this(partition,scan,scanner,-1);
+        }
+
+        /**
+         * @param probe the index of the probe scan that this split is part of, when a scan reads
+         *              several key ranges (see {@link #currentProbe()})
+         */
+        public Split(Partition partition,DataScan scan,SITableScanner scanner,int probe){
+            this.partition=partition;
+            this.scan=scan;
+            this.scanner=scanner;
+            this.probe=probe;
+        }
+
+        private boolean claim(int claimant){
+            return state.compareAndSet(UNCLAIMED,claimant);
+        }
+    }
+}
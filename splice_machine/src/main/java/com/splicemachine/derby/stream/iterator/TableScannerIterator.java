@@ -19,6 +19,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.ColumnBatch;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
 import com.splicemachine.derby.stream.utils.StreamLogUtils;
@@ -38,6 +39,7 @@ public class TableScannerIterator implements Iterable<LocatedRow>, Iterator<Loca
     private ExecRow execRow;
     boolean slotted;
     boolean hasNext;
+    boolean exhausted;
     int rows = 0;
     protected SpliceOperation operation;
 
@@ -57,24 +59,7 @@ public class TableScannerIterator implements Iterable<LocatedRow>, Iterator<Loca
             if (slotted)
                 return hasNext;
             slotted = true;
-            if (!initialized) {
-                initialized = true;
-                tableScanner = siTableBuilder.build();
-                tableScanner.open();
-                if (operation!= null) {
-                    operation.registerCloseable(new Closeable() {
-                        @Override
-                        public void close() throws IOException {
-                            try {
-                                if (tableScanner != null && initialized)
-                                    tableScanner.close();
-                            } catch (Exception e) {
-                                throw new IOException(e);
-                            }
-                        }
-                    });
-                }
-            }
+            initialize();
             execRow = tableScanner.next();
             if (execRow==null) {
                 tableScanner.close();
@@ -90,6 +75,51 @@ public class TableScannerIterator implements Iterable<LocatedRow>, Iterator<Loca
         }
     }
 
+    /**
+     * Fill {@code batch} with the next rows of the scan, rather than iterating over them one at a time.
+     * Once this has been called, the row-at-a-time methods of this iterator must not be used.
+     *
+     * @return the number of rows in the batch. 0 means the scan is exhausted, and every later call will
+     * return an empty batch as well.
+     * @see SITableScanner#nextBatch(ColumnBatch)
+     */
+    public int nextBatch(ColumnBatch batch) throws StandardException, IOException {
+        if (exhausted) {
+            batch.clear();
+            return 0;
+        }
+        initialize();
+        int size = tableScanner.nextBatch(batch);
+        rows += size;
+        if (size == 0) {
+            tableScanner.close();
+            initialized = false;
+            exhausted = true;
+        }
+        return size;
+    }
+
+    private void initialize() throws StandardException, IOException {
+        if (initialized)
+            return;
+        initialized = true;
+        tableScanner = siTableBuilder.build();
+        tableScanner.open();
+        if (operation!= null) {
+            operation.registerCloseable(new Closeable() {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        if (tableScanner != null && initialized)
+                            tableScanner.close();
+                    } catch (Exception e) {
+                        throw new IOException(e);
+                    }
+                }
+            });
+        }
+    }
+
     @Override
     public LocatedRow next() {
         slotted = false;
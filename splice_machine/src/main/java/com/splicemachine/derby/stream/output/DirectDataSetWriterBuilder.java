@@ -0,0 +1,29 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.output;
+
+/**
+ * Builds writers which write already-encoded KVPairs directly into a conglomerate.
+ */
+public interface DirectDataSetWriterBuilder extends DataSetWriterBuilder{
+
+    /**
+     * @param bulkLoadDirectory if not null, write the rows by sorting them by destination region, staging them
+     *                          as HFiles in this directory and bulk loading them, instead of writing through
+     *                          the pipeline. Not all implementations support this.
+     */
+    DirectDataSetWriterBuilder bulkLoadDirectory(String bulkLoadDirectory);
+}
@@ -38,4 +38,11 @@ public interface InsertDataSetWriterBuilder extends DataSetWriterBuilder{
     InsertDataSetWriterBuilder pkCols(int[] keyCols);
 
     InsertDataSetWriterBuilder tableVersion(String tableVersion);
+
+    /**
+     * @param bulkImportDirectory if not null, write the rows by staging HFiles in this directory and bulk
+     *                            loading them into the table, instead of writing through the pipeline. Not all
+     *                            implementations support this.
+     */
+    InsertDataSetWriterBuilder bulkImportDirectory(String bulkImportDirectory);
 }
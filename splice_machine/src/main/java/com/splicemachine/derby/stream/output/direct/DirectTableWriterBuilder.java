@@ -19,6 +19,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.TableWriter;
 import com.splicemachine.derby.stream.output.DataSetWriterBuilder;
+import com.splicemachine.derby.stream.output.DirectDataSetWriterBuilder;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.driver.SIDriver;
@@ -34,11 +35,12 @@ import java.io.ObjectOutput;
  * @author Scott Fines
  *         Date: 1/13/16
  */
-public abstract class DirectTableWriterBuilder implements Externalizable,DataSetWriterBuilder{
+public abstract class DirectTableWriterBuilder implements Externalizable,DirectDataSetWriterBuilder{
     protected long destConglomerate;
     protected TxnView txn;
     protected OperationContext opCtx;
     protected boolean skipIndex;
+    protected String bulkLoadDirectory;
 
     @Override
     public DataSetWriterBuilder destConglomerate(long heapConglom){
@@ -64,6 +66,12 @@ public abstract class DirectTableWriterBuilder implements Externalizable,DataSet
         return this;
     }
 
+    @Override
+    public DirectDataSetWriterBuilder bulkLoadDirectory(String bulkLoadDirectory){
+        this.bulkLoadDirectory = bulkLoadDirectory;
+        return this;
+    }
+
     @Override
     public TxnView getTxn(){
         return txn;
@@ -84,6 +92,9 @@ public abstract class DirectTableWriterBuilder implements Externalizable,DataSet
         out.writeLong(destConglomerate);
         out.writeObject(opCtx);
         out.writeBoolean(skipIndex);
+        out.writeBoolean(bulkLoadDirectory!=null);
+        if(bulkLoadDirectory!=null)
+            out.writeUTF(bulkLoadDirectory);
         SIDriver.driver().getOperationFactory().writeTxn(txn,out);
     }
 
@@ -92,6 +103,8 @@ public abstract class DirectTableWriterBuilder implements Externalizable,DataSet
         destConglomerate = in.readLong();
         opCtx = (OperationContext)in.readObject();
         skipIndex = in.readBoolean();
+        if(in.readBoolean())
+            bulkLoadDirectory = in.readUTF();
         txn = SIDriver.driver().getOperationFactory().readTxn(in);
     }
 
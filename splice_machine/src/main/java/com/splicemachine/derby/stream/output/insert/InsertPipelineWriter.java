@@ -90,7 +90,8 @@ public class InsertPipelineWriter extends AbstractPipelineWriter<ExecRow>{
     public void open(TriggerHandler triggerHandler, SpliceOperation operation) throws StandardException {
         super.open(triggerHandler, operation);
         try {
-            encoder = new PairEncoder(getKeyEncoder(), getRowHash(), dataType);
+            if (encoder == null)
+                encoder = new PairEncoder(getKeyEncoder(), getRowHash(), dataType);
             WriteConfiguration writeConfiguration = writeCoordinator.defaultWriteConfiguration();
             if(insertOperation!=null && operationContext.isPermissive())
                     writeConfiguration = new PermissiveInsertWriteConfiguration(writeConfiguration,
@@ -127,6 +128,25 @@ public class InsertPipelineWriter extends AbstractPipelineWriter<ExecRow>{
         }
     }
 
+    /**
+     * Encode a row exactly as {@link #insert(ExecRow)} would, but without writing it. Used by bulk imports,
+     * which write the encoded rows themselves; the writer need not be opened.
+     *
+     * @param execRow the row to encode
+     * @return the encoded row
+     * @throws StandardException if the row cannot be encoded
+     */
+    public KVPair encode(ExecRow execRow) throws StandardException {
+        try {
+            if (encoder == null)
+                encoder = new PairEncoder(getKeyEncoder(), getRowHash(), dataType);
+            beforeRow(execRow);
+            return encoder.encode(execRow);
+        } catch (Exception e) {
+            throw Exceptions.parseException(e);
+        }
+    }
+
     public void insert(Iterator<ExecRow> execRows) throws StandardException {
         while (execRows.hasNext())
             insert(execRows.next());
@@ -164,7 +184,7 @@ public class InsertPipelineWriter extends AbstractPipelineWriter<ExecRow>{
         //get all columns that are being set
         int[] columns = getEncodingColumns(execRowDefinition.nColumns(),pkCols);
         DescriptorSerializer[] serializers = VersionedSerializers.forVersion(tableVersion,true).getSerializers(execRowDefinition);
-        return new EntryDataHash(columns,null,serializers);
+        return new EntryDataHash(columns,null,serializers,VersionedSerializers.hasFieldOffsets(tableVersion));
     }
 
     @Override
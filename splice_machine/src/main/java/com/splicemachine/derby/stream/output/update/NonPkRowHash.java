@@ -36,8 +36,9 @@ public class NonPkRowHash extends EntryDataHash {
     public NonPkRowHash(int[] keyColumns,
                         boolean[] keySortOrder,
                         DescriptorSerializer[] serializers,
-                        FormatableBitSet finalHeapList) {
-        super(keyColumns, keySortOrder,serializers);
+                        FormatableBitSet finalHeapList,
+                        boolean writeFieldOffsets) {
+        super(keyColumns, keySortOrder,serializers,writeFieldOffsets);
         this.finalHeapList = finalHeapList;
     }
 
@@ -71,7 +72,7 @@ public class NonPkRowHash extends EntryDataHash {
             }
         }
         return EntryEncoder.create(SpliceKryoRegistry.getInstance(),currentRow.nColumns(),
-                notNullFields,scalarFields,floatFields,doubleFields);
+                notNullFields,scalarFields,floatFields,doubleFields,writeFieldOffsets);
     }
 
     @Override
@@ -46,8 +46,9 @@ public class PkRowHash extends EntryDataHash{
                      FormatableBitSet finalHeapList,
                      int[] colPositionMap,
                      ResultSupplier supplier,
-                     DescriptorSerializer[] serializers){
-        super(keyColumns,keySortOrder,serializers);
+                     DescriptorSerializer[] serializers,
+                     boolean writeFieldOffsets){
+        super(keyColumns,keySortOrder,serializers,writeFieldOffsets);
         this.finalHeapList=finalHeapList;
         this.colPositionMap=colPositionMap;
         this.supplier=supplier;
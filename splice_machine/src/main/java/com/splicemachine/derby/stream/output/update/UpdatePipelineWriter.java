@@ -168,11 +168,12 @@ public class UpdatePipelineWriter extends AbstractPipelineWriter<ExecRow>{
     public DataHash getRowHash() throws StandardException{
         //if we haven't modified any of our primary keys, then we can just change it directly
         DescriptorSerializer[] serializers=VersionedSerializers.forVersion(tableVersion,false).getSerializers(execRowDefinition);
+        boolean writeFieldOffsets=VersionedSerializers.hasFieldOffsets(tableVersion);
         if(!modifiedPrimaryKeys){
-            return new NonPkRowHash(colPositionMap,null,serializers,heapList);
+            return new NonPkRowHash(colPositionMap,null,serializers,heapList,writeFieldOffsets);
         }
         ResultSupplier resultSupplier=new ResultSupplier(new BitSet(),txn,heapConglom);
-        return new PkRowHash(finalPkColumns,null,heapList,colPositionMap,resultSupplier,serializers);
+        return new PkRowHash(finalPkColumns,null,heapList,colPositionMap,resultSupplier,serializers,writeFieldOffsets);
     }
 
     public RecordingCallBuffer<KVPair> transformWriteBuffer(final RecordingCallBuffer<KVPair> bufferToTransform) throws StandardException{
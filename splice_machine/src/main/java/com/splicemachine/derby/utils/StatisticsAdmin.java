@@ -46,6 +46,7 @@ import com.splicemachine.db.shared.common.reference.SQLState;
 import com.splicemachine.ddl.DDLMessage.DDLChange;
 import com.splicemachine.derby.ddl.DDLUtils;
 import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.stats.IncrementalStatsStore;
 import com.splicemachine.derby.impl.stats.SimpleOverheadManagedPartitionStatistics;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
 import com.splicemachine.derby.impl.store.access.base.SpliceConglomerate;
@@ -631,6 +632,8 @@ public class StatisticsAdmin extends BaseAdminProcedures {
                             dataDictionary.addColumnStatistics(row,tc);
                         } else {
                             dataDictionary.addTableStatistics(row, tc);
+                            //the new statistics already account for any writes which were tracked incrementally
+                            IncrementalStatsStore.clear(row.getColumn(SYSTABLESTATISTICSRowFactory.PARTITIONID).getString());
                             Pair<String,String> pair = displayPair.get(row.getColumn(SYSTABLESTATISTICSRowFactory.CONGLOMID).getLong());
                             outputList.add(generateOutputRow(pair.getFirst(),pair.getSecond(),row));
                         }
@@ -648,6 +651,7 @@ public class StatisticsAdmin extends BaseAdminProcedures {
             if (LOG.isDebugEnabled())
                 SpliceLogUtils.debug(LOG,"Dropping conglomerate statistics [%d]",cd.getConglomerateNumber());
             dd.deletePartitionStatistics(cd.getConglomerateNumber(),tc);
+            IncrementalStatsStore.clearTable(Long.toString(cd.getConglomerateNumber()));
         }
     }
 
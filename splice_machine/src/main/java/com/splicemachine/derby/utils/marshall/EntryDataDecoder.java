@@ -74,15 +74,23 @@ public class EntryDataDecoder extends BareKeyHash implements KeyHashDecoder{
 						throw Exceptions.parseException(e);
 				}
 				DataValueDescriptor[] fields = destination.getRowArray();
+				/*
+				 * If the row has a field-offset table, we jump straight to each field that we want, rather than
+				 * skipping over the ones that we don't
+				 */
+				boolean seekFields = entryDecoder.hasFieldOffsets();
 				if(keyColumns!=null){
 						for(int i=index.nextSetBit(0);i>=0 && i<keyColumns.length;i=index.nextSetBit(i+1)){
 								int pos = keyColumns[i];
 								if(pos<0) continue;
 								DataValueDescriptor dvd = fields[pos];
 								if(dvd==null){
-										entryDecoder.seekForward(decoder, i);
+										if(!seekFields)
+												entryDecoder.seekForward(decoder, i);
 										continue;
 								}
+								if(seekFields)
+										entryDecoder.seekTo(decoder,i);
 								DescriptorSerializer serializer = serializers[pos];
 								boolean sortOrder = keySortOrder != null && !keySortOrder[i];
 								serializer.decode(decoder,dvd,sortOrder);
@@ -91,9 +99,12 @@ public class EntryDataDecoder extends BareKeyHash implements KeyHashDecoder{
 						for(int i=index.nextSetBit(0);i>=0 && i<fields.length;i=index.nextSetBit(i+1)){
 								DataValueDescriptor dvd = fields[i];
 								if(dvd==null){
-										entryDecoder.seekForward(decoder,i);
+										if(!seekFields)
+												entryDecoder.seekForward(decoder,i);
 										continue;
 								}
+								if(seekFields)
+										entryDecoder.seekTo(decoder,i);
 								boolean sortOrder = keySortOrder != null && !keySortOrder[i];
 								DescriptorSerializer serializer = serializers[i];
 								serializer.decode(decoder,dvd,sortOrder);
@@ -35,14 +35,28 @@ public class EntryDataHash extends BareKeyHash implements DataHash<ExecRow>{
 		protected ExecRow currentRow;
 		protected DataValueDescriptor dvds;
 		protected KryoPool kryoPool;
+		protected final boolean writeFieldOffsets;
 
 		public EntryDataHash(int[] keyColumns, boolean[] keySortOrder,DescriptorSerializer[] serializers) {
 				this(keyColumns, keySortOrder, SpliceKryoRegistry.getInstance(),serializers);
 		}
 
+		/**
+		 * @param writeFieldOffsets whether to write a field-offset table into each row. This should be true
+		 *                          for tables whose version has them (see {@link com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers#hasFieldOffsets(String)}).
+		 */
+		public EntryDataHash(int[] keyColumns, boolean[] keySortOrder,DescriptorSerializer[] serializers,boolean writeFieldOffsets) {
+				this(keyColumns, keySortOrder, SpliceKryoRegistry.getInstance(),serializers,writeFieldOffsets);
+		}
+
 		public EntryDataHash(int[] keyColumns, boolean[] keySortOrder,KryoPool kryoPool,DescriptorSerializer[] serializers) {
+				this(keyColumns,keySortOrder,kryoPool,serializers,false);
+		}
+
+		public EntryDataHash(int[] keyColumns, boolean[] keySortOrder,KryoPool kryoPool,DescriptorSerializer[] serializers,boolean writeFieldOffsets) {
 				super(keyColumns, keySortOrder,true,kryoPool,serializers);
 				this.kryoPool = kryoPool;
+				this.writeFieldOffsets = writeFieldOffsets;
 		}
 
 		@Override
@@ -96,7 +110,7 @@ public class EntryDataHash extends BareKeyHash implements DataHash<ExecRow>{
 								i++;
 						}
 				}
-				return EntryEncoder.create(kryoPool,nCols,notNullFields,scalarFields,floatFields,doubleFields);
+				return EntryEncoder.create(kryoPool,nCols,notNullFields,scalarFields,floatFields,doubleFields,writeFieldOffsets);
 		}
 
 		protected BitSet getNotNullFields(ExecRow row,BitSet notNullFields) {
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.utils.marshall.dvd;
+
+/**
+ * Version 3.0 of the table encoding.
+ *
+ * Individual fields are serialized exactly as in {@link V2SerializerMap}; the difference lies in the row
+ * around them. Rows of version 3.0 tables carry a field-offset table after their index, so that readers
+ * can jump straight to a column instead of skipping over every column in front of it
+ * (see {@link com.splicemachine.storage.EntryEncoder#encode()}). Since readers recognize that table from
+ * the row itself, rows of either layout can be read with either version's serializers.
+ */
+public class V3SerializerMap extends V2SerializerMap{
+
+    public static final V3SerializerMap SPARSE_MAP=new V3SerializerMap(true);
+    public static final V3SerializerMap DENSE_MAP=new V3SerializerMap(false);
+
+    public static final String VERSION="3.0";
+
+    public static V3SerializerMap instance(boolean sparse){
+        return sparse?SPARSE_MAP:DENSE_MAP;
+    }
+
+    public V3SerializerMap(boolean sparse){
+        super(sparse);
+    }
+}
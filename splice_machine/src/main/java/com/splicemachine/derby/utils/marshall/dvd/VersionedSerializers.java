@@ -27,7 +27,9 @@ public class VersionedSerializers {
     }
 
     public static TypeProvider typesForVersion(String version) {
-        if (V2SerializerMap.VERSION.equals(version))
+        if (V3SerializerMap.VERSION.equals(version))
+            return V3SerializerMap.instance(true);
+        else if (V2SerializerMap.VERSION.equals(version))
             return V2SerializerMap.instance(true);
         else if (V1SerializerMap.VERSION.equals(version))
             return V1SerializerMap.instance(true);
@@ -43,7 +45,9 @@ public class VersionedSerializers {
         /*
          * Statically defined version checked versioning
          */
-        if (V2SerializerMap.VERSION.equals(version))
+        if (V3SerializerMap.VERSION.equals(version))
+            return V3SerializerMap.instance(sparse);
+        else if (V2SerializerMap.VERSION.equals(version))
             return V2SerializerMap.instance(sparse);
         else if (V1SerializerMap.VERSION.equals(version))
             return V1SerializerMap.instance(sparse);
@@ -52,6 +56,15 @@ public class VersionedSerializers {
         return latestVersion(sparse);
     }
 
+    /**
+     * @param version the table version
+     * @return true if rows of tables with the specified version should be written with a field-offset
+     * table (see {@link V3SerializerMap}).
+     */
+    public static boolean hasFieldOffsets(String version) {
+        return V3SerializerMap.VERSION.equals(version);
+    }
+
     /**
      * Get the serializer for the latest encoding version.
      *
@@ -15,7 +15,10 @@
 
 package com.splicemachine.derby.vti;
 
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.DistributedFileSystem;
 import com.splicemachine.access.api.FileInfo;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.vti.VTICosting;
@@ -29,12 +32,16 @@ import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.PairDataSet;
+import com.splicemachine.derby.stream.iterator.ParallelFileImportIterator;
 import com.splicemachine.derby.vti.iapi.DatasetProvider;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.si.impl.driver.SIDriver;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 
@@ -116,9 +123,13 @@ public class SpliceFileVTI implements DatasetProvider, VTICosting {
         try {
             ImportUtils.validateReadable(fileName, false);
             if (oneLineRecords && (charset==null || charset.toLowerCase().equals("utf-8"))) {
+                FileFunction fileFunction = new FileFunction(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat, dateTimeFormat, timestampFormat, operationContext);
+                DataSet<LocatedRow> parallelSet = parallelParse(dsp, fileFunction);
+                if (parallelSet != null)
+                    return parallelSet;
                 DataSet<String> textSet = dsp.readTextFile(fileName, op);
                 operationContext.pushScopeForOp("Parse File");
-                return textSet.flatMap(new FileFunction(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat, dateTimeFormat, timestampFormat, operationContext), true);
+                return textSet.flatMap(fileFunction, true);
             } else {
                 PairDataSet<String,InputStream> streamSet = dsp.readWholeTextFile(fileName, op);
                 operationContext.pushScopeForOp("Parse File");
@@ -129,6 +140,36 @@ public class SpliceFileVTI implements DatasetProvider, VTICosting {
         }
     }
 
+    /**
+     * On the control side, parse a large, uncompressed file in several chunks at once.
+     *
+     * @return the parsed rows, or {@code null} if the file should be read serially
+     */
+    private DataSet<LocatedRow> parallelParse(DataSetProcessor dsp, final FileFunction fileFunction) throws StandardException {
+        if (dsp.getType() != DataSetProcessor.Type.LOCAL || fileName.endsWith("gz") || !fileFunction.canParseBytes())
+            return null;
+        final SConfiguration config = EngineDriver.driver().getConfiguration();
+        if (config.getImportParallelism() <= 1)
+            return null;
+        final DistributedFileSystem dfs = SIDriver.driver().fileSystem();
+        final FileInfo info;
+        try {
+            info = dfs.getInfo(fileName);
+        } catch (IOException e) {
+            throw Exceptions.parseException(e);
+        }
+        if (info.isDirectory() || info.size() <= config.getImportChunkSize())
+            return null;
+        operationContext.pushScopeForOp("Parse File");
+        return dsp.createDataSet(new Iterable<LocatedRow>() {
+            @Override
+            public Iterator<LocatedRow> iterator() {
+                return new ParallelFileImportIterator(dfs, fileName, info.size(), config.getImportChunkSize(),
+                        config.getImportParallelism(), fileFunction, operationContext);
+            }
+        });
+    }
+
     private static final int defaultBytesPerRow = 100;
     protected int getBytesPerRow() {
         // Imprecise assumption of a fixed number of bytes per row,
@@ -30,6 +30,7 @@ import org.sparkproject.guava.collect.Lists;
 
 import com.splicemachine.EngineDriver;
 import com.splicemachine.access.api.DatabaseVersion;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCacheIFace;
 import com.splicemachine.derby.management.StatementManagement;
 import com.splicemachine.derby.utils.DatabasePropertyManagement;
 import com.splicemachine.pipeline.PipelineDriver;
@@ -50,6 +51,7 @@ public class JMXUtils {
     public static final String TIMESTAMP_MASTER_MANAGEMENT = "com.splicemachine.si.client.timestamp.generator:type=TimestampMasterManagement";
     public static final String TIMESTAMP_REGION_MANAGEMENT = "com.splicemachine.si.client.timestamp.request:type=TimestampRegionManagement";
 	public static final String DATABASE_PROPERTY_MANAGEMENT = "com.splicemachine.derby.utils:type=DatabasePropertyManagement";
+    public static final String STATEMENT_CACHE = "com.splicemachine.db.impl.sql.catalog:type=StatementCache";
 
     public static List<Pair<String,JMXConnector>> getMBeanServerConnections(Collection<Pair<String,String>> serverConnections) throws IOException {
         List<Pair<String,JMXConnector>> mbscArray =new ArrayList<>(serverConnections.size());
@@ -132,6 +134,14 @@ public class JMXUtils {
         return dbProps;
     }
 
+    public static List<Pair<String,DataDictionaryCacheIFace>> getStatementCaches(List<Pair<String, JMXConnector>> connections) throws MalformedObjectNameException, IOException {
+        List<Pair<String,DataDictionaryCacheIFace>> caches = Lists.newArrayListWithCapacity(connections.size());
+        for (Pair<String,JMXConnector> connectorPair : connections) {
+            caches.add(Pair.newPair(connectorPair.getFirst(), getNewMXBeanProxy(connectorPair.getSecond(), STATEMENT_CACHE, DataDictionaryCacheIFace.class)));
+        }
+        return caches;
+    }
+
 	public static <T> T getNewMBeanProxy(JMXConnector mbsc, String mbeanName, Class<T> type) throws MalformedObjectNameException, IOException {
 		ObjectName objectName = new ObjectName(mbeanName);
 		return JMX.newMBeanProxy(mbsc.getMBeanServerConnection(), objectName,type, true);
@@ -19,6 +19,7 @@ import com.google.common.base.Optional;
 import org.sparkproject.guava.collect.Iterables;
 import org.sparkproject.guava.collect.Multimap;
 import org.sparkproject.guava.collect.Multimaps;
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.catalog.IndexDescriptor;
 import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.error.StandardException;
@@ -71,6 +72,7 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
     private final FKWriteFactoryHolder fkGroup;
     private final ListWriteFactoryGroup indexFactories=new ListWriteFactoryGroup();
     private final WriteFactoryGroup ddlFactories=new SetWriteFactoryGroup();
+    private final WriteFactoryGroup statisticsFactories=new ListWriteFactoryGroup();
     private final DDLWatcher.DDLListener ddlListener;
 
     public DerbyContextFactoryLoader(long conglomId,
@@ -171,6 +173,11 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
         return ddlFactories;
     }
 
+    @Override
+    public WriteFactoryGroup getStatisticsFactories(){
+        return statisticsFactories;
+    }
+
     @Override
     public Set<ConstraintFactory> getConstraintFactories(){
         return constraintFactories;
@@ -325,6 +332,10 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
                     indexFactories.replace(indexFactory);
                 }
             }
+
+            if(EngineDriver.driver().getConfiguration().isIncrementalStatisticsEnabled()){
+                statisticsFactories.replace(new StatisticsWriteFactory(conglomId));
+            }
         }
 
         // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
@@ -1806,6 +1806,7 @@ public enum ErrorState{
     LOB_DATA_FILE_NULL("XIE0Q.S"),
     UNEXPECTED_IMPORT_ERROR("XIE0R.S"),
     UNEXPECTED_IMPORT_CSV_ERROR("XIE11.S"),
+    BULK_IMPORT_TABLE_NOT_EMPTY("XIE12.S"),
     DATA_FILE_EXISTS("XIE0S.S"),
     LOB_DATA_FILE_EXISTS("XIE0T.S"),
 
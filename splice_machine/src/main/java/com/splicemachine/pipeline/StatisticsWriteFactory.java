@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.context.ContextManager;
+import com.splicemachine.db.iapi.services.context.ContextService;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptorList;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.jdbc.SpliceTransactionResourceImpl;
+import com.splicemachine.derby.stream.output.WriteReadUtils;
+import com.splicemachine.pipeline.context.PipelineWriteContext;
+import com.splicemachine.pipeline.contextfactory.LocalWriteFactory;
+import com.splicemachine.protobuf.ProtoUtil;
+import com.splicemachine.si.api.txn.TxnView;
+import org.sparkproject.guava.primitives.Ints;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Creates WriteHandlers which maintain the statistics of a base table incrementally as it is written to.
+ *
+ * The table descriptor is resolved from the data dictionary for each write context (under the context's
+ * transaction), so that the handler always decodes rows with the current shape of the table, and collects
+ * only the columns which currently have statistics enabled, even after an ALTER TABLE.
+ *
+ * @see StatisticsWriteHandler
+ */
+class StatisticsWriteFactory implements LocalWriteFactory{
+    private final long conglomerateId;
+
+    StatisticsWriteFactory(long conglomerateId){
+        this.conglomerateId=conglomerateId;
+    }
+
+    @Override
+    public void addTo(PipelineWriteContext ctx,boolean keepState,int expectedWrites) throws IOException{
+        StatisticsWriteHandler handler=newHandler(ctx.getTxn());
+        if(handler!=null)
+            ctx.addLast(handler);
+    }
+
+    @Override
+    public long getConglomerateId(){
+        return conglomerateId;
+    }
+
+    @Override
+    public boolean canReplace(LocalWriteFactory newContext){
+        return false;
+    }
+
+    @Override
+    public void replace(LocalWriteFactory newFactory){
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(Object o){
+        return this==o || (o instanceof StatisticsWriteFactory && conglomerateId==((StatisticsWriteFactory)o).conglomerateId);
+    }
+
+    @Override
+    public int hashCode(){
+        return (int)(conglomerateId^(conglomerateId>>>32));
+    }
+
+    @Override
+    public String toString(){
+        return "statistics conglomId="+conglomerateId;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * @return a handler for the current shape of the table, or {@code null} if the table no longer exists, or
+     * statistics are not collected for any of its columns.
+     */
+    private StatisticsWriteHandler newHandler(TxnView txn) throws IOException{
+        ContextManager currentCm=ContextService.getFactory().getCurrentContextManager();
+        try{
+            SpliceTransactionResourceImpl transactionResource=new SpliceTransactionResourceImpl();
+            boolean prepared=false;
+            try{
+                prepared=transactionResource.marshallTransaction(txn);
+                LanguageConnectionContext lcc=transactionResource.getLcc();
+                DataDictionary dataDictionary=lcc.getDataDictionary();
+                ConglomerateDescriptor cd=dataDictionary.getConglomerateDescriptor(conglomerateId);
+                if(cd==null) return null;
+                TableDescriptor td=dataDictionary.getTableDescriptor(cd.getTableID());
+                if(td==null) return null;
+                return newHandler(td,lcc);
+            }finally{
+                if(prepared)
+                    transactionResource.close();
+            }
+        }catch(StandardException|SQLException e){
+            throw new IOException("Unable to resolve the table descriptor for conglomerate "+conglomerateId,e);
+        }finally{
+            if(currentCm!=null)
+                ContextService.getFactory().setCurrentContextManager(currentCm);
+        }
+    }
+
+    private StatisticsWriteHandler newHandler(TableDescriptor td,LanguageConnectionContext lcc) throws StandardException{
+        ColumnDescriptorList columns=td.getColumnDescriptorList();
+        int[] columnLengths=new int[columns.size()];
+        int[] collectedColumns=new int[columns.size()];
+        int numCollected=0;
+        for(int i=0;i<columns.size();i++){
+            ColumnDescriptor column=columns.elementAt(i);
+            columnLengths[i]=column.getType().getMaximumWidth();
+            if(column.collectStatistics() && ColumnDescriptor.allowsStatistics(column.getType()))
+                collectedColumns[numCollected++]=column.getPosition()-1;
+        }
+        if(numCollected==0) return null;
+        DDLMessage.Table table=ProtoUtil.createTable(conglomerateId,td,lcc);
+        return new StatisticsWriteHandler(Long.toString(conglomerateId),
+                WriteReadUtils.getExecRowFromTypeFormatIds(Ints.toArray(table.getFormatIdsList())),
+                Ints.toArray(table.getColumnOrderingList()),
+                table.getTableVersion(),
+                Arrays.copyOf(collectedColumns,numCollected),
+                columnLengths);
+    }
+}
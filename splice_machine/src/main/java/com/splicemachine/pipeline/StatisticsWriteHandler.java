@@ -0,0 +1,210 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.stats.DvdStatsCollector;
+import com.splicemachine.derby.impl.stats.IncrementalStatsStore;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.EntryDataDecoder;
+import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.client.WriteResult;
+import com.splicemachine.pipeline.context.WriteContext;
+import com.splicemachine.pipeline.writehandler.WriteHandler;
+import com.splicemachine.stats.ColumnStatistics;
+import com.splicemachine.stats.collector.ColumnStatsCollector;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the statistics of a base table partition as rows are written to it.
+ *
+ * Mutations are only counted once the write has been applied: the handler holds on to the mutations it has seen,
+ * and when the context is closed (after every handler has flushed) it looks up the result of each one. Rows which
+ * were rejected by a constraint or a write conflict are skipped, and a retried batch only counts the rows which
+ * succeeded on each attempt. Inserted rows which succeeded are decoded and fed to a column statistics collector for
+ * each collected column, in the same way that {@link com.splicemachine.derby.stream.stats.StatisticsCollector}
+ * does during a collection. The collected sketches (along with the number of rows inserted and deleted) are then
+ * merged into the partition's delta in the {@link IncrementalStatsStore}.
+ *
+ * Updates are ignored, since the sketches cannot forget the old values, and the row count is unchanged. A
+ * problem decoding a row only costs us the statistics for it; it never fails the write.
+ */
+@NotThreadSafe
+class StatisticsWriteHandler implements WriteHandler{
+    private static final Logger LOG=Logger.getLogger(StatisticsWriteHandler.class);
+
+    private final String tableId;
+    private final ExecRow template;
+    private final int[] collectedColumns;
+    private final int[] columnLengths;
+    private final KeyHashDecoder keyDecoder;
+    private final EntryDataDecoder rowDecoder;
+    private final List<KVPair> pending=new ArrayList<>();
+
+    private ColumnStatsCollector<DataValueDescriptor>[] collectors;
+    private long insertedRows;
+    private long deletedRows;
+    private long insertedBytes;
+
+    /**
+     * @param tableId the conglomerate id of the base table
+     * @param template a template of the full base table row
+     * @param keyColumns the (0-based) columns which make up the primary key, or an empty array
+     * @param tableVersion the version of the base table's encoding
+     * @param collectedColumns the (0-based) columns to collect statistics for
+     * @param columnLengths the maximum width of each column
+     */
+    StatisticsWriteHandler(String tableId,
+                           ExecRow template,
+                           int[] keyColumns,
+                           String tableVersion,
+                           int[] collectedColumns,
+                           int[] columnLengths){
+        this.tableId=tableId;
+        this.template=template;
+        this.collectedColumns=collectedColumns;
+        this.columnLengths=columnLengths;
+        if(keyColumns.length>0){
+            //keys are always densely encoded
+            DescriptorSerializer[] keySerializers=VersionedSerializers.forVersion(tableVersion,false).getSerializers(template);
+            this.keyDecoder=BareKeyHash.decoder(keyColumns,null,keySerializers);
+        }else
+            this.keyDecoder=null;
+        DescriptorSerializer[] serializers=VersionedSerializers.forVersion(tableVersion,true).getSerializers(template);
+        this.rowDecoder=new EntryDataDecoder(null,null,serializers);
+    }
+
+    @Override
+    public void next(KVPair mutation,WriteContext ctx){
+        switch(mutation.getType()){
+            case INSERT:
+            case DELETE:
+            case CANCEL:
+                pending.add(mutation);
+                break;
+            default:
+                break;
+        }
+        ctx.sendUpstream(mutation);
+    }
+
+    @Override
+    public void flush(WriteContext ctx) throws IOException{
+        //the results are not final until every handler has flushed, so we record in close()
+    }
+
+    @Override
+    public void close(WriteContext ctx) throws IOException{
+        try{
+            Map<KVPair,WriteResult> results=ctx.currentResults();
+            for(KVPair mutation : pending){
+                WriteResult result=results.get(mutation);
+                if(result==null || !result.isSuccess()) continue; //not applied, so it didn't change the table
+                if(mutation.getType()==KVPair.Type.INSERT)
+                    collect(mutation);
+                else
+                    deletedRows++;
+            }
+            record(ctx);
+        }finally{
+            pending.clear();
+            if(keyDecoder!=null)
+                keyDecoder.close();
+            rowDecoder.close();
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void record(WriteContext ctx){
+        if(insertedRows==0 && deletedRows==0) return;
+
+        List<ColumnStatistics> columnStats=null;
+        if(collectors!=null){
+            columnStats=new ArrayList<>(collectors.length);
+            for(ColumnStatsCollector<DataValueDescriptor> collector : collectors){
+                columnStats.add(collector.build());
+            }
+        }
+        IncrementalStatsStore.record(tableId,ctx.getRegion().getName(),insertedRows,deletedRows,insertedBytes,columnStats);
+        collectors=null;
+        insertedRows=deletedRows=insertedBytes=0L;
+    }
+
+    private void collect(KVPair mutation){
+        try{
+            template.resetRowArray();
+            if(keyDecoder!=null){
+                ByteSlice rowKey=mutation.rowKeySlice();
+                keyDecoder.set(rowKey.array(),rowKey.offset(),rowKey.length());
+                keyDecoder.decode(template);
+            }
+            ByteSlice value=mutation.valueSlice();
+            rowDecoder.set(value.array(),value.offset(),value.length());
+            rowDecoder.decode(template);
+        }catch(StandardException|RuntimeException e){
+            SpliceLogUtils.warn(LOG,"Unable to decode a row of table "+tableId+", its statistics will not be updated",e);
+            return;
+        }
+
+        if(collectors==null)
+            collectors=newCollectors();
+        /*
+         * We don't have the encoded width of each field to hand, so attribute the row's size to its
+         * columns evenly. It's only used to estimate the average column width.
+         */
+        long rowSize=mutation.getSize();
+        int columnSize=(int)(rowSize/template.nColumns());
+        DataValueDescriptor[] dvds=template.getRowArray();
+        for(int i=0;i<collectedColumns.length;i++){
+            collectors[i].update(dvds[collectedColumns[i]]);
+            collectors[i].updateSize(columnSize);
+        }
+        insertedRows++;
+        insertedBytes+=rowSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ColumnStatsCollector<DataValueDescriptor>[] newCollectors(){
+        SConfiguration configuration=EngineDriver.driver().getConfiguration();
+        int cardinalityPrecision=configuration.getCardinalityPrecision();
+        int topKSize=configuration.getTopkSize();
+        DataValueDescriptor[] dvds=template.getRowArray();
+        ColumnStatsCollector<DataValueDescriptor>[] newCollectors=new ColumnStatsCollector[collectedColumns.length];
+        for(int i=0;i<collectedColumns.length;i++){
+            int column=collectedColumns[i];
+            //column ids are the 1-based column positions, as in StatisticsAdmin
+            newCollectors[i]=DvdStatsCollector.newCollector(column+1,dvds[column].getTypeFormatId(),
+                    columnLengths[column],topKSize,cardinalityPrecision);
+        }
+        return newCollectors;
+    }
+}
@@ -42,21 +42,31 @@ import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.util.MapAttributes;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Intercepts insert/updates to a FK constraint backing index and sends the rowKey over to the referenced primary-key or
  * unique-index region for existence checking.
+ *
+ * Parent keys which were found are only recorded in the {@link ForeignKeyParentKeyCache} when the context is closed,
+ * and only for child rows which were actually written; deletes of child rows drop the confirmation of their parent key.
  */
 @NotThreadSafe
 public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     private final long referencedConglomerateNumber;
+    private final String parentTableName;
+    private final ForeignKeyParentKeyCache parentKeyCache;
     private final ForeignKeyViolationProcessor violationProcessor;
     private Partition table;
     private ObjectArrayList<KVPair> mutations = new ObjectArrayList<>();
+    /* child mutations (and their parent keys) to record in the parent key cache once the write is complete */
+    private final ObjectArrayList<KVPair> pendingMutations = new ObjectArrayList<>();
+    private final ObjectArrayList<byte[]> pendingParentKeys = new ObjectArrayList<>();
     private final int formatIds[];
     private final MultiFieldDecoder multiFieldDecoder;
     private final TypeProvider typeProvider;
@@ -66,6 +76,8 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
                                                 FKConstraintInfo fkConstraintInfo,
                                                 PipelineExceptionFactory exceptionFactory) {
         this.referencedConglomerateNumber = referencedConglomerateNumber;
+        this.parentTableName = Long.toString(referencedConglomerateNumber);
+        this.parentKeyCache = ForeignKeyParentKeyCache.getInstance();
         this.violationProcessor = new ForeignKeyViolationProcessor(
                 new ForeignKeyViolationProcessor.ChildFkConstraintContextProvider(fkConstraintInfo),
                 exceptionFactory);
@@ -82,6 +94,12 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
         if (isForeignKeyInterceptNecessary(mutation.getType())) {
             mutations.add(mutation);
             ctx.success(mutation);
+        } else if (mutation.getType() == KVPair.Type.DELETE) {
+            byte[] checkRowKey = getCheckRowKey(mutation.getRowKey());
+            if (checkRowKey != null) {
+                pendingMutations.add(mutation);
+                pendingParentKeys.add(checkRowKey);
+            }
         }
         ctx.sendUpstream(mutation);
     }
@@ -95,24 +113,33 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     public void flush(WriteContext ctx) throws IOException {
         try {
             initTable();
-            HashSet<byte[]> culledLookups = new HashSet(mutations.size());
+            /*
+             * Narrow the checks down to the distinct parent keys which this transaction hasn't already found.
+             * locations[i] is the position of mutation i's parent key in rowKeysToFetch, or -1 if it needs
+             * no check.
+             */
+            long txnId = ctx.getTxn().getTxnId();
+            Map<ByteBuffer,Integer> culledLookups = new HashMap<>(mutations.size());
+            List<byte[]> rowKeysToFetch = new ArrayList<>(mutations.size());
             int[] locations = new int[mutations.size()];
-            int counter = 0;
             for (int i =0; i<mutations.size();i++) {
                 byte[] checkRowKey = getCheckRowKey(mutations.get(i).getRowKey());
-                if (culledLookups.contains(checkRowKey)) {
-                    locations[i] = counter-1;
-                } else {
-                    culledLookups.add(checkRowKey);
-                    locations[i] = counter;
-                    counter++;
+                if (checkRowKey == null || parentKeyCache.contains(parentTableName, checkRowKey, txnId)) {
+                    locations[i] = -1;
+                    continue;
+                }
+                ByteBuffer key = ByteBuffer.wrap(checkRowKey);
+                Integer location = culledLookups.get(key);
+                if (location == null) {
+                    location = rowKeysToFetch.size();
+                    culledLookups.put(key, location);
+                    rowKeysToFetch.add(checkRowKey);
                 }
+                locations[i] = location;
             }
+            if (rowKeysToFetch.isEmpty())
+                return;
 
-            List<byte[]> rowKeysToFetch = new ArrayList<>(culledLookups.size());
-            for (byte[] item: culledLookups) {
-                rowKeysToFetch.add(item);
-            }
             SimpleTxnFilter readUncommittedFilter;
             SimpleTxnFilter readCommittedFilter;
             if (ctx.getTxn() instanceof ActiveWriteTxn) {
@@ -137,14 +164,17 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
                 i++;
             }
 
-            // No Misses...
-            if (misses.isEmpty())
-                return;
-            // Assemble failures for the write pipeline with error codes.
+            // Assemble failures for the write pipeline with error codes, and hold on to the keys which were found.
             i=0;
             for (int location: locations) {
-                if (misses.get(location))
-                    failWrite(mutations.get(i),ctx);
+                if (location >= 0) {
+                    if (misses.get(location))
+                        failWrite(mutations.get(i), ctx);
+                    else {
+                        pendingMutations.add(mutations.get(i));
+                        pendingParentKeys.add(rowKeysToFetch.get(location));
+                    }
+                }
                 i++;
             }
         } catch (Exception e) {
@@ -161,6 +191,25 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     public void close(WriteContext ctx) throws IOException {
         if (mutations.size() > 0)
             flush(ctx);
+        try {
+            // The results are not final until every handler has flushed, so the cache is only updated here
+            long txnId = ctx.getTxn().getTxnId();
+            Map<KVPair,WriteResult> results = ctx.currentResults();
+            for (int i = 0; i < pendingMutations.size(); i++) {
+                KVPair mutation = pendingMutations.get(i);
+                byte[] parentKey = pendingParentKeys.get(i);
+                if (mutation.getType() == KVPair.Type.DELETE)
+                    parentKeyCache.invalidate(parentTableName, parentKey);
+                else {
+                    WriteResult result = results.get(mutation);
+                    if (result != null && result.isSuccess())
+                        parentKeyCache.add(parentTableName, parentKey, txnId);
+                }
+            }
+        } finally {
+            pendingMutations.clear();
+            pendingParentKeys.clear();
+        }
     }
 
     private boolean hasData(DataResult result,SimpleTxnFilter filter) throws IOException {
@@ -51,6 +51,7 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     private HashMap<Long,Partition> childPartitions = new HashMap<>();
     private String parentTableName;
     private ObjectArrayList<KVPair> mutations = new ObjectArrayList<>();
+    private final ForeignKeyParentKeyCache parentKeyCache = ForeignKeyParentKeyCache.getInstance();
 
 
     public ForeignKeyParentInterceptWriteHandler(String parentTableName,
@@ -70,6 +71,7 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     public void next(KVPair mutation, WriteContext ctx) {
         if (isForeignKeyInterceptNecessary(mutation.getType())) {
             mutations.add(mutation);
+            parentKeyCache.invalidate(ctx.getRegion().getTableName(), mutation.getRowKey());
         }
         ctx.sendUpstream(mutation);
     }
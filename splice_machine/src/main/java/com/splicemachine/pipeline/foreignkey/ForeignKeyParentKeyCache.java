@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.collections.ConcurrentLongKeyedCache;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.hash.Hash64;
+import com.splicemachine.hash.HashFunctions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.impl.driver.SIDriver;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Remembers, for each region server, which parent keys a transaction has already found while checking
+ * foreign keys, so that the transaction need not look them up again for later child rows.
+ *
+ * A confirmation is only reused by the transaction which made it. Once that transaction has written a child
+ * row referencing the parent key, a delete of the parent row will find that (uncommitted) child row and fail
+ * (see {@link ForeignKeyParentInterceptWriteHandler}), so for the rest of the transaction the parent key cannot
+ * disappear. Confirmations are therefore only recorded once the child row has been written, and are dropped
+ * whenever this server sees the parent key deleted, or sees the transaction delete a child row which referenced it.
+ * A parent delete on another server is not seen here, so confirmations also expire after a fixed time. Entries of
+ * finished transactions are never used again, so they are simply left for the cache to evict.
+ *
+ * Entries are keyed by a 64-bit hash of the parent conglomerate and key; the full key is kept to rule out
+ * collisions.
+ */
+@ThreadSafe
+class ForeignKeyParentKeyCache{
+    private static volatile ForeignKeyParentKeyCache INSTANCE;
+
+    private final ConcurrentLongKeyedCache<Entry> cache;
+    private final Hash64 hashFunction=HashFunctions.murmur2_64(0);
+    private final long expirationMillis;
+    private final Clock clock;
+
+    ForeignKeyParentKeyCache(int maxSize,long expirationMillis,Clock clock){
+        this.cache=maxSize>0 && expirationMillis>0?new ConcurrentLongKeyedCache<Entry>(maxSize,16):null;
+        this.expirationMillis=expirationMillis;
+        this.clock=clock;
+    }
+
+    static ForeignKeyParentKeyCache getInstance(){
+        ForeignKeyParentKeyCache instance=INSTANCE;
+        if(instance==null){
+            synchronized(ForeignKeyParentKeyCache.class){
+                instance=INSTANCE;
+                if(instance==null){
+                    SIDriver driver=SIDriver.driver();
+                    SConfiguration config=driver.getConfiguration();
+                    instance=INSTANCE=new ForeignKeyParentKeyCache(config.getForeignKeyCacheSize(),
+                            config.getForeignKeyCacheExpiration(),driver.getClock());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return true if the transaction {@code txnId} has found {@code parentKey} in {@code parentTable} within
+     * the expiration time
+     */
+    boolean contains(String parentTable,byte[] parentKey,long txnId){
+        if(cache==null) return false;
+        long hash=hash(parentTable,parentKey);
+        Entry entry=cache.get(hash);
+        if(entry==null || entry.txnId!=txnId || !entry.matches(parentTable,parentKey)) return false;
+        if(clock.currentTimeMillis()-entry.confirmedTimestamp>=expirationMillis){
+            cache.remove(hash);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Record that the transaction {@code txnId} found {@code parentKey} in {@code parentTable}, and has
+     * written a child row which references it.
+     */
+    void add(String parentTable,byte[] parentKey,long txnId){
+        if(cache==null) return;
+        cache.put(hash(parentTable,parentKey),new Entry(parentTable,parentKey,txnId,clock.currentTimeMillis()));
+    }
+
+    /**
+     * Forget every confirmation of {@code parentKey}, because it is being deleted from {@code parentTable}, or
+     * a child row which referenced it is being deleted.
+     */
+    void invalidate(String parentTable,byte[] parentKey){
+        if(cache==null) return;
+        cache.remove(hash(parentTable,parentKey));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private long hash(String parentTable,byte[] parentKey){
+        return hashFunction.hash(parentKey,0,parentKey.length)*31+parentTable.hashCode();
+    }
+
+    private static final class Entry{
+        private final String parentTable;
+        private final byte[] parentKey;
+        private final long txnId;
+        private final long confirmedTimestamp;
+
+        Entry(String parentTable,byte[] parentKey,long txnId,long confirmedTimestamp){
+            this.parentTable=parentTable;
+            this.parentKey=parentKey;
+            this.txnId=txnId;
+            this.confirmedTimestamp=confirmedTimestamp;
+        }
+
+        boolean matches(String parentTable,byte[] parentKey){
+            return this.parentTable.equals(parentTable) && Bytes.equals(this.parentKey,parentKey);
+        }
+    }
+}
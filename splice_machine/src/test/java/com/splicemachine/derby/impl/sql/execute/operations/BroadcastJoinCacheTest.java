@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stream.Stream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Category(ArchitectureIndependent.class)
+public class BroadcastJoinCacheTest{
+
+    @Test
+    public void releasesTheTableOnceTheLastReaderClosesIt() throws Exception{
+        CountingLoader loader=new CountingLoader();
+        BroadcastJoinCache cache=new BroadcastJoinCache(loader);
+
+        JoinTable first=cache.get(1L,null,null,null,null,null).newTable();
+        JoinTable second=cache.get(1L,null,null,null,null,null).newTable();
+        Assert.assertEquals("Readers of the same operation should share a table",1,loader.loads.get());
+
+        first.close();
+        Assert.assertEquals("Released a table which is still in use",0,loader.releases.get());
+        second.close();
+        Assert.assertEquals("Did not release the table",1,loader.releases.get());
+
+        cache.get(1L,null,null,null,null,null).newTable().close();
+        Assert.assertEquals("A released table should be loaded again",2,loader.loads.get());
+        Assert.assertEquals(2,loader.releases.get());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+    private static class CountingLoader implements BroadcastJoinCache.JoinTableLoader{
+        private final AtomicInteger loads=new AtomicInteger();
+        private final AtomicInteger releases=new AtomicInteger();
+
+        @Override
+        public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,
+                                      int[] innerHashKeys,
+                                      int[] outerHashKeys,
+                                      ExecRow outerTemplateRow,
+                                      OperationContext operationContext){
+            loads.incrementAndGet();
+            return new JoinTable.Factory(){
+                @Override
+                public JoinTable newTable(){
+                    return new JoinTable(){
+                        @Override
+                        public Iterator<ExecRow> fetchInner(ExecRow outer){
+                            return Collections.emptyIterator();
+                        }
+
+                        @Override
+                        public void close(){
+                        }
+                    };
+                }
+
+                @Override
+                public void release(){
+                    releases.incrementAndGet();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(ArchitectureIndependent.class)
+public class LookupBatchSizerTest{
+    private static final long TARGET=100L;
+
+    @Test
+    public void fastLookupsGrowTheBatchUpToTheMaximum() throws Exception{
+        LookupBatchSizer sizer=new LookupBatchSizer(10,100,TARGET,Long.MAX_VALUE);
+        Assert.assertEquals(10,sizer.batchSize());
+        sizer.record(10,TARGET/4,10);
+        Assert.assertEquals(20,sizer.batchSize());
+        sizer.record(20,TARGET/4,20);
+        sizer.record(40,TARGET/4,40);
+        sizer.record(80,TARGET/4,80);
+        Assert.assertEquals(100,sizer.batchSize());
+    }
+
+    @Test
+    public void smallLookupsDoNotGrowTheBatch() throws Exception{
+        LookupBatchSizer sizer=new LookupBatchSizer(10,100,TARGET,Long.MAX_VALUE);
+        sizer.record(10,TARGET/4,10);
+        sizer.record(3,TARGET/4,3);
+        Assert.assertEquals(20,sizer.batchSize());
+    }
+
+    @Test
+    public void slowLookupsShrinkTheBatchToFitTheTarget() throws Exception{
+        LookupBatchSizer sizer=new LookupBatchSizer(10,100,TARGET,Long.MAX_VALUE);
+        for(int i=0;i<4;i++){
+            sizer.record(sizer.batchSize(),TARGET/4,sizer.batchSize());
+        }
+        Assert.assertEquals(100,sizer.batchSize());
+        sizer.record(100,2*TARGET,100);
+        Assert.assertEquals(50,sizer.batchSize());
+        sizer.record(50,100*TARGET,50);
+        Assert.assertEquals("Should not shrink below the minimum",10,sizer.batchSize());
+    }
+
+    @Test
+    public void wideRowsCapTheBatchByBytes() throws Exception{
+        LookupBatchSizer sizer=new LookupBatchSizer(1,100,TARGET,1000L);
+        for(int i=0;i<10;i++){
+            sizer.record(sizer.batchSize(),TARGET/4,sizer.batchSize()*40L);
+        }
+        Assert.assertEquals("The batch should be capped at 1000/40 rows",25,sizer.batchSize());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Category(ArchitectureIndependent.class)
+public class OffHeapHashTableTest{
+    private static final int NUM_KEYS=20000;
+    private static final int VALUES_PER_KEY=3;
+
+    @Rule
+    public TemporaryFolder spillDir=new TemporaryFolder();
+
+    @Test
+    public void fetchesAllValuesInMemory() throws Exception{
+        try(OffHeapHashTable table=load(Long.MAX_VALUE)){
+            Assert.assertEquals("Should not have spilled",0L,table.getBytesSpilled());
+            assertContents(table);
+        }
+    }
+
+    @Test
+    public void fetchesAllValuesAfterSpilling() throws Exception{
+        try(OffHeapHashTable table=load(1<<20)){
+            Assert.assertTrue("Should have spilled",table.getBytesSpilled()>0);
+            assertContents(table);
+            //read it twice, to make sure evicted partitions can be re-read
+            assertContents(table);
+        }
+        Assert.assertEquals("Spill files should be removed on close",0,spillDir.getRoot().list().length);
+    }
+
+    @Test
+    public void missingKeyReturnsNothing() throws Exception{
+        try(OffHeapHashTable table=load(Long.MAX_VALUE)){
+            Assert.assertTrue(table.get(Bytes.toBytes("missing")).isEmpty());
+        }
+    }
+
+    private OffHeapHashTable load(long memoryBudget) throws Exception{
+        File dir=spillDir.getRoot();
+        OffHeapHashTable table=new OffHeapHashTable(memoryBudget,dir);
+        for(int i=0;i<NUM_KEYS*VALUES_PER_KEY;i++){
+            table.put(Bytes.toBytes("key"+(i%NUM_KEYS)),Bytes.toBytes("value"+i));
+        }
+        table.finishLoading();
+        return table;
+    }
+
+    private void assertContents(OffHeapHashTable table) throws Exception{
+        for(int k=0;k<NUM_KEYS;k++){
+            List<byte[]> values=table.get(Bytes.toBytes("key"+k));
+            Assert.assertEquals("Incorrect number of values for key "+k,VALUES_PER_KEY,values.size());
+            Set<String> found=new HashSet<>();
+            for(byte[] value:values){
+                found.add(Bytes.toString(value));
+            }
+            for(int v=0;v<VALUES_PER_KEY;v++){
+                Assert.assertTrue("Missing value for key "+k,found.contains("value"+(k+v*NUM_KEYS)));
+            }
+        }
+    }
+}
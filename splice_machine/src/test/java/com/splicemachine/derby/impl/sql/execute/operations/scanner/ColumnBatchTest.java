@@ -0,0 +1,190 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.sql.execute.VectorAggregator;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.AvgAggregator;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.SumAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.sql.Types;
+
+@Category(ArchitectureIndependent.class)
+public class ColumnBatchTest{
+    private static final int NUM_ROWS=100;
+
+    @Test
+    public void materializesTheRowsItWasFilledWith() throws Exception{
+        ExecRow template=template();
+        ColumnBatch batch=fill(template,NUM_ROWS);
+        Assert.assertEquals(ColumnBatch.ColumnType.LONG,batch.getType(0));
+        Assert.assertEquals(ColumnBatch.ColumnType.DOUBLE,batch.getType(1));
+        Assert.assertEquals(ColumnBatch.ColumnType.OBJECT,batch.getType(2));
+        Assert.assertEquals(NUM_ROWS,batch.getNumSelected());
+
+        ExecRow row=template.getNewNullRow();
+        for(int i=0;i<NUM_ROWS;i++){
+            batch.materialize(i,row);
+            if(i%7==0)
+                Assert.assertTrue("Row "+i+" should have a null int",row.getColumn(1).isNull());
+            else
+                Assert.assertEquals("Incorrect int in row "+i,i,row.getColumn(1).getInt());
+            Assert.assertEquals("Incorrect double in row "+i,i/2d,row.getColumn(2).getDouble(),0d);
+            Assert.assertEquals("Incorrect string in row "+i,"row"+i,row.getColumn(3).getString());
+        }
+    }
+
+    @Test
+    public void clearedBatchCanBeRefilled() throws Exception{
+        ExecRow template=template();
+        ColumnBatch batch=fill(template,NUM_ROWS);
+        batch.clear();
+        Assert.assertEquals(0,batch.size());
+        Assert.assertFalse(batch.isFull());
+
+        batch.startRow();
+        batch.setLong(0,-1L);
+        batch.setDouble(1,-1d);
+        template.getColumn(3).setValue("again");
+        batch.finishRow(template);
+
+        ExecRow row=template.getNewNullRow();
+        batch.materialize(0,row);
+        Assert.assertEquals(-1,row.getColumn(1).getInt());
+        Assert.assertEquals("again",row.getColumn(3).getString());
+    }
+
+    @Test
+    public void vectorAggregatesMatchRowAggregates() throws Exception{
+        ColumnBatch batch=fill(template(),NUM_ROWS);
+        //drop every third row from the selection
+        int[] selected=batch.getSelected();
+        int kept=0;
+        for(int i=0;i<batch.getNumSelected();i++){
+            if(selected[i]%3!=0) selected[kept++]=selected[i];
+        }
+        batch.setNumSelected(kept);
+
+        DataTypeDescriptor bigint=DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT);
+        DataTypeDescriptor integer=DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.INTEGER);
+        DataTypeDescriptor dbl=DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.DOUBLE);
+        assertSameResult(batch,0,new SumAggregator().setup(null,"SUM",bigint));
+        assertSameResult(batch,0,new AvgAggregator().setup(null,"AVG",integer));
+        assertSameResult(batch,0,new CountAggregator().setup(null,"COUNT",bigint));
+        assertSameResult(batch,0,new CountAggregator().setup(null,"COUNT(*)",bigint));
+        assertSameResult(batch,0,new MaxMinAggregator().setup(null,"MAX",integer));
+        assertSameResult(batch,0,new MaxMinAggregator().setup(null,"MIN",integer));
+        assertSameResult(batch,1,new SumAggregator().setup(null,"SUM",dbl));
+        assertSameResult(batch,1,new AvgAggregator().setup(null,"AVG",dbl));
+        assertSameResult(batch,1,new MaxMinAggregator().setup(null,"MAX",dbl));
+    }
+
+    @Test
+    public void longSumOverflowLeavesTheAggregatorUnchanged() throws Exception{
+        ExecRow template=new ValueRow(1);
+        template.setColumn(1,new SQLLongint());
+        ColumnBatch batch=new ColumnBatch(template,2);
+        for(int i=0;i<2;i++){
+            batch.startRow();
+            batch.setLong(0,Long.MAX_VALUE/2);
+            batch.finishRow(template);
+        }
+
+        VectorAggregator sum=(VectorAggregator)new SumAggregator().setup(null,"SUM",
+                DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT));
+        sum.accumulate(new SQLLongint(7L),null);
+        try{
+            sum.accumulate(batch.getLongs(0),batch.getNulls(0),batch.getSelected(),batch.getNumSelected(),new SQLLongint());
+            Assert.fail("Should have overflowed");
+        }catch(StandardException expected){ }
+        Assert.assertEquals("The overflowing vector should not have been added",7L,sum.getResult().getLong());
+
+        //AVG upgrades its sum on overflow, rather than failing
+        VectorAggregator avg=(VectorAggregator)new AvgAggregator().setup(null,"AVG",
+                DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT));
+        avg.accumulate(batch.getLongs(0),batch.getNulls(0),batch.getSelected(),batch.getNumSelected(),new SQLLongint());
+        avg.accumulate(batch.getLongs(0),batch.getNulls(0),batch.getSelected(),batch.getNumSelected(),new SQLLongint());
+        Assert.assertEquals((double)(Long.MAX_VALUE/2),avg.getResult().getDouble(),1e4d);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ExecRow template(){
+        ExecRow template=new ValueRow(3);
+        template.setColumn(1,new SQLInteger());
+        template.setColumn(2,new SQLDouble());
+        template.setColumn(3,new SQLVarchar());
+        return template;
+    }
+
+    /*
+     * Fills a batch the way the scanner does: numeric columns directly, everything else through the template.
+     * Every 7th row has a null int.
+     */
+    private static ColumnBatch fill(ExecRow template,int numRows) throws Exception{
+        ColumnBatch batch=new ColumnBatch(template,numRows);
+        for(int i=0;i<numRows;i++){
+            batch.startRow();
+            template.resetRowArray();
+            if(i%7!=0)
+                batch.setLong(0,i);
+            batch.setDouble(1,i/2d);
+            template.getColumn(3).setValue("row"+i);
+            batch.finishRow(template);
+        }
+        Assert.assertTrue(batch.isFull());
+        return batch;
+    }
+
+    private static void assertSameResult(ColumnBatch batch,int column,ExecAggregator aggregator) throws Exception{
+        ExecAggregator rowAggregator=aggregator.newAggregator();
+        VectorAggregator vectorAggregator=(VectorAggregator)aggregator.newAggregator();
+
+        ExecRow row=template().getNewNullRow();
+        DataValueDescriptor scratch=row.getColumn(column+1).getNewNull();
+        int[] selected=batch.getSelected();
+        for(int i=0;i<batch.getNumSelected();i++){
+            batch.materialize(selected[i],row);
+            rowAggregator.accumulate(row.getColumn(column+1),null);
+        }
+        if(batch.getType(column)==ColumnBatch.ColumnType.LONG)
+            vectorAggregator.accumulate(batch.getLongs(column),batch.getNulls(column),selected,batch.getNumSelected(),scratch);
+        else
+            vectorAggregator.accumulate(batch.getDoubles(column),batch.getNulls(column),selected,batch.getNumSelected(),scratch);
+
+        String name=aggregator.getClass().getSimpleName();
+        DataValueDescriptor expected=rowAggregator.getResult();
+        DataValueDescriptor actual=vectorAggregator.getResult();
+        Assert.assertEquals("Incorrect result for "+name,expected.getString(),actual.getString());
+        Assert.assertEquals("Incorrect null elimination for "+name,
+                rowAggregator.didEliminateNulls(),vectorAggregator.didEliminateNulls());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stats.ColumnStatistics;
+import com.splicemachine.stats.collector.ColumnStatsCollector;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collections;
+import java.util.List;
+
+@Category(ArchitectureIndependent.class)
+public class IncrementalStatsStoreTest{
+
+    @Test
+    public void rowCountAndSizeFollowInsertsAndDeletes() throws Exception{
+        IncrementalStatsStore.record("1","p-counts",100,0,1000,null);
+        IncrementalStatsStore.record("1","p-counts",0,30,0,null);
+        IncrementalStatsStore.PartitionDelta delta=IncrementalStatsStore.getDelta("p-counts");
+        Assert.assertEquals(1070L,delta.rowCount(1000L));
+        //deleted rows are assumed to be of average width, here 10 bytes
+        Assert.assertEquals(10000L+1000L-300L,delta.totalSize(10000L,1000L));
+        Assert.assertEquals("Row count should never be negative",0L,delta.rowCount(0L));
+    }
+
+    @Test
+    public void mergesInsertedSketchesWithoutModifyingCollectedStatistics() throws Exception{
+        ColumnStatistics collected=intStats(1,0,100);
+        IncrementalStatsStore.record("2","p-merge",100,0,400,Collections.singletonList(intStats(1,100,200)));
+        //a column which was not collected is left out
+        IncrementalStatsStore.record("2","p-merge",100,0,400,Collections.singletonList(intStats(2,0,100)));
+
+        List<ColumnStatistics> merged=IncrementalStatsStore.getDelta("p-merge").merge(Collections.singletonList(collected));
+        Assert.assertEquals(1,merged.size());
+        ColumnStatistics stats=merged.get(0);
+        Assert.assertEquals(200L,stats.nonNullCount());
+        Assert.assertEquals(200d,stats.cardinality(),10d);
+        Assert.assertEquals(199,((DataValueDescriptor)stats.maxValue()).getInt());
+        Assert.assertEquals("Collected statistics were modified",100L,collected.nonNullCount());
+        Assert.assertEquals(100d,collected.cardinality(),5d);
+    }
+
+    @Test
+    public void clearingDiscardsTheDelta() throws Exception{
+        IncrementalStatsStore.record("3","p-clear-1",1,0,10,null);
+        IncrementalStatsStore.record("3","p-clear-2",1,0,10,null);
+        IncrementalStatsStore.record("4","p-clear-3",1,0,10,null);
+
+        IncrementalStatsStore.clear("p-clear-1");
+        Assert.assertNull(IncrementalStatsStore.getDelta("p-clear-1"));
+        IncrementalStatsStore.clearTable("3");
+        Assert.assertNull(IncrementalStatsStore.getDelta("p-clear-2"));
+        Assert.assertNotNull("Cleared the wrong table",IncrementalStatsStore.getDelta("p-clear-3"));
+        IncrementalStatsStore.clearTable("4");
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ColumnStatistics intStats(int columnId,int start,int stop){
+        ColumnStatsCollector<DataValueDescriptor> collector=
+                DvdStatsCollector.newCollector(columnId,StoredFormatIds.SQL_INTEGER_ID,4,10,14);
+        for(int i=start;i<stop;i++){
+            collector.update(new SQLInteger(i));
+            collector.updateSize(4);
+        }
+        return collector.build();
+    }
+}
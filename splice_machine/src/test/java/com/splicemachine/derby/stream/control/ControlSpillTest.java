@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.google.common.base.Function;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.function.SpliceFunction2;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.sparkproject.guava.collect.Multimap;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the disk-spilling sort, grouping and reduction used by ControlPairDataSet.
+ */
+@Category(ArchitectureIndependent.class)
+public class ControlSpillTest{
+    private static final int NUM_KEYS=1000;
+    private static final int VALUES_PER_KEY=5;
+
+    @Rule
+    public TemporaryFolder spillDir=new TemporaryFolder();
+
+    @Test
+    public void sortsAcrossSpilledRuns() throws Exception{
+        SpillBudget budget=smallBudget();
+        Iterable<Tuple2<Integer,String>> sorted=ExternalSorter.sort(input(),new Comparator<Integer>(){
+            @Override
+            public int compare(Integer o1,Integer o2){
+                return o1.compareTo(o2);
+            }
+        },budget);
+
+        for(int pass=0;pass<2;pass++){
+            int count=0;
+            Integer previous=null;
+            for(Tuple2<Integer,String> t:sorted){
+                if(previous!=null)
+                    Assert.assertTrue("Out of order: "+previous+" before "+t._1(),previous<=t._1());
+                previous=t._1();
+                count++;
+            }
+            Assert.assertEquals("Incorrect number of rows on pass "+pass,NUM_KEYS*VALUES_PER_KEY,count);
+        }
+        budget.close();
+        Assert.assertEquals("Spill files should be removed once the budget is closed",0,spillDir.getRoot().list().length);
+    }
+
+    @Test
+    public void removesPartiallyReadSpillFilesOnClose() throws Exception{
+        SpillBudget budget=smallBudget();
+        Iterable<Tuple2<Integer,String>> sorted=ExternalSorter.sort(input(),new Comparator<Integer>(){
+            @Override
+            public int compare(Integer o1,Integer o2){
+                return o1.compareTo(o2);
+            }
+        },budget);
+        Iterator<Tuple2<Integer,String>> it=sorted.iterator();
+        Assert.assertTrue("Sorted result is empty",it.hasNext());
+        it.next();
+        Assert.assertTrue("Should have spilled",spillDir.getRoot().list().length>0);
+
+        budget.close();
+        Assert.assertEquals("Spill files should be removed once the budget is closed",0,spillDir.getRoot().list().length);
+    }
+
+    @Test
+    public void groupsInPartitionsWhichFitTheBudget() throws Exception{
+        SpillBudget budget=smallBudget();
+        SpillableMultimap<Integer,String> grouped=SpillableMultimap.load(input(),budget);
+        Assert.assertTrue("Should have spilled",grouped.isSpilled());
+
+        final Map<Integer,Integer> valueCounts=new HashMap<>();
+        Iterable<Integer> partitionSizes=grouped.transformPartitions(new Function<Multimap<Integer,String>, Iterable<Integer>>(){
+            @Override
+            public Iterable<Integer> apply(Multimap<Integer,String> partition){
+                long bytes=0L;
+                for(Map.Entry<Integer,String> entry:partition.entries()){
+                    bytes+=SpillBudget.estimateSize(new Tuple2<>(entry.getKey(),entry.getValue()));
+                }
+                for(Integer key:partition.keySet()){
+                    Assert.assertNull("Key "+key+" was in more than one partition",valueCounts.put(key,partition.get(key).size()));
+                }
+                return Collections.singletonList((int)bytes);
+            }
+        });
+        for(int bytes:partitionSizes){
+            Assert.assertFalse("Partition of "+bytes+" bytes should have been partitioned again",budget.isExceededBy(bytes));
+        }
+        Assert.assertEquals("Incorrect number of keys",NUM_KEYS,valueCounts.size());
+        for(Map.Entry<Integer,Integer> count:valueCounts.entrySet()){
+            Assert.assertEquals("Incorrect number of values for key "+count.getKey(),VALUES_PER_KEY,count.getValue().intValue());
+        }
+        budget.close();
+    }
+
+    @Test
+    public void reducesPartialValuesAfterSpilling() throws Exception{
+        List<Tuple2<Integer,Integer>> source=new ArrayList<>();
+        for(int i=0;i<NUM_KEYS*VALUES_PER_KEY;i++){
+            source.add(new Tuple2<>(i%NUM_KEYS,1));
+        }
+
+        SpillBudget budget=smallBudget();
+        Map<Integer,Integer> sums=new HashMap<>();
+        for(Tuple2<Integer,Integer> t:SpillingReducer.reduce(source,new Sum(),budget)){
+            Assert.assertNull("Key "+t._1()+" was returned twice",sums.put(t._1(),t._2()));
+        }
+        Assert.assertEquals("Incorrect number of keys",NUM_KEYS,sums.size());
+        for(Map.Entry<Integer,Integer> sum:sums.entrySet()){
+            Assert.assertEquals("Incorrect sum for key "+sum.getKey(),VALUES_PER_KEY,sum.getValue().intValue());
+        }
+        budget.close();
+        Assert.assertEquals("Spill files should be removed once the budget is closed",0,spillDir.getRoot().list().length);
+    }
+
+    private SpillBudget smallBudget(){
+        return new SpillBudget(4*1024,spillDir.getRoot().getAbsolutePath());
+    }
+
+    private static List<Tuple2<Integer,String>> input(){
+        List<Tuple2<Integer,String>> source=new ArrayList<>();
+        for(int i=NUM_KEYS*VALUES_PER_KEY-1;i>=0;i--){
+            source.add(new Tuple2<>(i%NUM_KEYS,"value"+i));
+        }
+        return source;
+    }
+
+    private static class Sum extends SpliceFunction2<SpliceOperation,Integer,Integer,Integer>{
+        @Override
+        public Integer call(Integer first,Integer second) throws Exception{
+            return first==null?second:first+second;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLDate;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.charset.StandardCharsets;
+
+@Category(ArchitectureIndependent.class)
+public class CsvRecordParserTest{
+
+    @Test
+    public void parsesPlainAndQuotedFields() throws Exception{
+        ExecRow row=parse("12,\"hello, \"\"world\"\"\",-9000000000");
+        Assert.assertEquals(12,row.getColumn(1).getInt());
+        Assert.assertEquals("hello, \"world\"",row.getColumn(2).getString());
+        Assert.assertEquals(-9000000000L,row.getColumn(3).getLong());
+    }
+
+    @Test
+    public void emptyAndNullFieldsAreNull() throws Exception{
+        ExecRow row=parse(",NULL,\"\"");
+        Assert.assertTrue(row.getColumn(1).isNull());
+        Assert.assertTrue(row.getColumn(2).isNull());
+        Assert.assertTrue(row.getColumn(3).isNull());
+    }
+
+    @Test
+    public void trailingCarriageReturnAndExtraFieldsAreIgnored() throws Exception{
+        ExecRow row=parse("1,a,2,extra\r");
+        Assert.assertEquals(1,row.getColumn(1).getInt());
+        Assert.assertEquals("a",row.getColumn(2).getString());
+        Assert.assertEquals(2L,row.getColumn(3).getLong());
+    }
+
+    @Test
+    public void emptyLineHasNoRow() throws Exception{
+        Assert.assertNull(parse(""));
+        Assert.assertNull(parse("\r"));
+    }
+
+    @Test
+    public void integerWithSpacesFallsBackToStringConversion() throws Exception{
+        ExecRow row=parse(" 7 ,b,8");
+        Assert.assertEquals(7,row.getColumn(1).getInt());
+    }
+
+    @Test(expected=StandardException.class)
+    public void tooFewFieldsFails() throws Exception{
+        parse("1,a");
+    }
+
+    @Test(expected=StandardException.class)
+    public void unterminatedQuoteFails() throws Exception{
+        parse("1,\"a,2");
+    }
+
+    @Test(expected=StandardException.class)
+    public void nonNumericIntegerFails() throws Exception{
+        parse("x,a,2");
+    }
+
+    @Test
+    public void datesUseTheConfiguredFormat() throws Exception{
+        ExecRow template=new ValueRow(1);
+        template.setColumn(1,new SQLDate());
+        CsvRecordParser parser=new CsvRecordParser(template,'"','|',null,"dd/MM/yyyy",null);
+        byte[] record="25/12/2015".getBytes(StandardCharsets.UTF_8);
+        ExecRow row=parser.parse(record,0,record.length);
+        Assert.assertEquals("2015-12-25",row.getColumn(1).getString());
+    }
+
+    @Test
+    public void supportsOnlyDistinctSingleByteDelimiters() throws Exception{
+        Assert.assertTrue(CsvRecordParser.supports('"',','));
+        Assert.assertTrue(CsvRecordParser.supports('\'','|'));
+        Assert.assertFalse(CsvRecordParser.supports('"','"'));
+        Assert.assertFalse(CsvRecordParser.supports('"','§'));
+        Assert.assertFalse(CsvRecordParser.supports('"','\n'));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ExecRow parse(String record) throws StandardException{
+        ExecRow template=new ValueRow(3);
+        template.setColumn(1,new SQLInteger());
+        template.setColumn(2,new SQLVarchar());
+        template.setColumn(3,new SQLLongint());
+        CsvRecordParser parser=new CsvRecordParser(template,'"',',',null,null,null);
+        //parse from the middle of a larger buffer, as the chunk reader does
+        byte[] bytes=("xx"+record+"yy").getBytes(StandardCharsets.UTF_8);
+        return parser.parse(bytes,2,bytes.length-4);
+    }
+}
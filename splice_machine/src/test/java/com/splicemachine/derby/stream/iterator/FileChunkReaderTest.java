@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.derby.stream.iterator;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@Category(ArchitectureIndependent.class)
+public class FileChunkReaderTest{
+
+    @Test
+    public void everyRecordIsReadOnceWhateverTheChunkSize() throws Exception{
+        StringBuilder file=new StringBuilder();
+        List<String> expected=new ArrayList<>();
+        for(int i=0;i<200;i++){
+            //records of varying length, including empty ones
+            StringBuilder record=new StringBuilder();
+            for(int j=0;j<i%13;j++){
+                record.append((char)('a'+j));
+            }
+            record.append(i);
+            if(i%17==0) record.setLength(0);
+            expected.add(record.toString());
+            file.append(record).append('\n');
+        }
+        byte[] data=file.toString().getBytes(StandardCharsets.UTF_8);
+        for(int chunkSize=1;chunkSize<=data.length+1;chunkSize+=7){
+            Assert.assertEquals("Incorrect records for chunk size "+chunkSize,expected,readAll(data,chunkSize));
+        }
+    }
+
+    @Test
+    public void lastRecordNeedNotEndWithANewline() throws Exception{
+        byte[] data="first\nsecond\nthird".getBytes(StandardCharsets.UTF_8);
+        for(int chunkSize=1;chunkSize<=data.length;chunkSize++){
+            List<String> records=readAll(data,chunkSize);
+            Assert.assertEquals("Incorrect records for chunk size "+chunkSize,3,records.size());
+            Assert.assertEquals("third",records.get(2));
+        }
+    }
+
+    @Test
+    public void recordLongerThanTheReadBufferIsReadWhole() throws Exception{
+        StringBuilder longRecord=new StringBuilder();
+        for(int i=0;i<100000;i++){
+            longRecord.append((char)('0'+i%10));
+        }
+        byte[] data=("a\n"+longRecord+"\nb\n").getBytes(StandardCharsets.UTF_8);
+        List<String> records=readAll(data,1000);
+        Assert.assertEquals(3,records.size());
+        Assert.assertEquals(longRecord.toString(),records.get(1));
+        Assert.assertEquals("b",records.get(2));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static List<String> readAll(byte[] data,int chunkSize) throws Exception{
+        List<String> records=new ArrayList<>();
+        for(long start=0;start<data.length;start+=chunkSize){
+            long end=Math.min(data.length,start+chunkSize);
+            try(FileChunkReader reader=new FileChunkReader(new ByteArrayInputStream(data),start,end)){
+                while(reader.next()){
+                    records.add(new String(reader.record(),0,reader.recordLength(),StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.iterator;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.metrics.MetricFactory;
+import com.splicemachine.metrics.Metrics;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.DataScanner;
+import com.splicemachine.storage.Partition;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class ParallelTableScannerIteratorTest{
+    private static final ExecutorService executor=Executors.newFixedThreadPool(2);
+    private static final MetricFactory metricFactory=Metrics.noOpMetricFactory();
+
+    @AfterClass
+    public static void shutdown(){
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void orderedScanReturnsSplitsInKeyOrder() throws Exception{
+        ParallelTableScannerIterator iterator=iterator(splits(5,2000,-1),4,true);
+        int expected=0;
+        while(iterator.hasNext()){
+            Assert.assertEquals("Incorrect row",expected++,iterator.next().getRow().getColumn(1).getInt());
+        }
+        Assert.assertEquals("Incorrect number of rows",5*2000,expected);
+        iterator.close();
+    }
+
+    @Test
+    public void orderedScanRunsAtMostParallelismMinusOneSplitsInTheBackground() throws Exception{
+        AtomicInteger active=new AtomicInteger(0);
+        AtomicInteger maxActive=new AtomicInteger(0);
+        List<ParallelTableScannerIterator.Split> splits=new ArrayList<>(6);
+        for(int i=0;i<6;i++){
+            Partition partition=mock(Partition.class);
+            when(partition.openScanner(any(DataScan.class),any(MetricFactory.class))).thenReturn(mock(DataScanner.class));
+            SITableScanner scanner=mock(SITableScanner.class);
+            when(scanner.next()).thenAnswer(new CountingRowAnswer(i*5000,(i+1)*5000,Thread.currentThread(),active,maxActive));
+            splits.add(new ParallelTableScannerIterator.Split(partition,mock(DataScan.class),scanner));
+        }
+        ParallelTableScannerIterator iterator=iterator(splits,2,true);
+        int expected=0;
+        while(iterator.hasNext()){
+            Assert.assertEquals("Incorrect row",expected++,iterator.next().getRow().getColumn(1).getInt());
+        }
+        iterator.close();
+        Assert.assertEquals("Incorrect number of rows",6*5000,expected);
+        Assert.assertTrue("Too many splits were scanned in the background at once: "+maxActive.get(),maxActive.get()<=1);
+    }
+
+    @Test
+    public void orderedScanReportsTheProbeOfEachRow() throws Exception{
+        //two splits (regions) for each probe
+        ParallelTableScannerIterator iterator=iterator(splits(6,500,-1,2),3,true);
+        int count=0;
+        while(iterator.hasNext()){
+            int value=iterator.next().getRow().getColumn(1).getInt();
+            Assert.assertEquals("Incorrect probe for row "+value,value/1000,iterator.currentProbe());
+            count++;
+        }
+        Assert.assertEquals("Incorrect number of rows",6*500,count);
+        iterator.close();
+    }
+
+    @Test
+    public void unorderedScanReturnsEveryRowOnce() throws Exception{
+        ParallelTableScannerIterator iterator=iterator(splits(5,2000,-1),3,false);
+        List<Integer> values=new ArrayList<>();
+        while(iterator.hasNext()){
+            values.add(iterator.next().getRow().getColumn(1).getInt());
+        }
+        iterator.close();
+        Collections.sort(values);
+        Assert.assertEquals("Incorrect number of rows",5*2000,values.size());
+        for(int i=0;i<values.size();i++){
+            Assert.assertEquals("Missing or duplicated row",i,values.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void scanCompletesWhenTheExecutorIsBusy() throws Exception{
+        ExecutorService busy=Executors.newSingleThreadExecutor();
+        try{
+            busy.submit(new Runnable(){
+                @Override
+                public void run(){
+                    try{
+                        Thread.sleep(Long.MAX_VALUE);
+                    }catch(InterruptedException ignored){ }
+                }
+            });
+            ParallelTableScannerIterator iterator=new ParallelTableScannerIterator(null,null,splits(3,100,-1),
+                    busy,4,true,metricFactory);
+            int count=0;
+            while(iterator.hasNext()){
+                iterator.next();
+                count++;
+            }
+            Assert.assertEquals("Incorrect number of rows",300,count);
+        }finally{
+            busy.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedSplitFailsTheScan() throws Exception{
+        for(boolean ordered:new boolean[]{true,false}){
+            ParallelTableScannerIterator iterator=iterator(splits(4,1000,2500),4,ordered);
+            try{
+                while(iterator.hasNext()){
+                    iterator.next();
+                }
+                Assert.fail("The scan should have failed");
+            }catch(RuntimeException e){
+                Assert.assertTrue("Incorrect failure: "+e.getCause(),e.getCause() instanceof IOException);
+            }finally{
+                iterator.close();
+            }
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ParallelTableScannerIterator iterator(List<ParallelTableScannerIterator.Split> splits,
+                                                         int parallelism,
+                                                         boolean ordered){
+        return new ParallelTableScannerIterator(null,null,splits,executor,parallelism,ordered,metricFactory);
+    }
+
+    private static List<ParallelTableScannerIterator.Split> splits(int numSplits,int rowsPerSplit,int failAt) throws Exception{
+        return splits(numSplits,rowsPerSplit,failAt,0);
+    }
+
+    /*
+     * Split i holds the rows [i*rowsPerSplit,(i+1)*rowsPerSplit), and fails when it reaches the row failAt. If
+     * splitsPerProbe is positive, split i is part of the probe i/splitsPerProbe.
+     */
+    private static List<ParallelTableScannerIterator.Split> splits(int numSplits,int rowsPerSplit,int failAt,int splitsPerProbe) throws Exception{
+        List<ParallelTableScannerIterator.Split> splits=new ArrayList<>(numSplits);
+        for(int i=0;i<numSplits;i++){
+            Partition partition=mock(Partition.class);
+            when(partition.openScanner(any(DataScan.class),any(MetricFactory.class))).thenReturn(mock(DataScanner.class));
+            SITableScanner scanner=mock(SITableScanner.class);
+            when(scanner.next()).thenAnswer(new RowAnswer(i*rowsPerSplit,(i+1)*rowsPerSplit,failAt));
+            int probe=splitsPerProbe>0?i/splitsPerProbe:-1;
+            splits.add(new ParallelTableScannerIterator.Split(partition,mock(DataScan.class),scanner,probe));
+        }
+        return splits;
+    }
+
+    private static class RowAnswer implements Answer<ExecRow>{
+        private final ExecRow row=new ValueRow(1);
+        private final int stop;
+        private final int failAt;
+        private int next;
+
+        RowAnswer(int start,int stop,int failAt){
+            this.next=start;
+            this.stop=stop;
+            this.failAt=failAt;
+            row.setColumn(1,new SQLInteger());
+        }
+
+        @Override
+        public ExecRow answer(InvocationOnMock invocation) throws Throwable{
+            if(next==failAt) throw new IOException("Failing at row "+next);
+            if(next>=stop) return null;
+            row.getColumn(1).setValue(next++);
+            return row;
+        }
+    }
+
+    /*
+     * Counts the splits which are being scanned by threads other than the consumer
+     */
+    private static class CountingRowAnswer extends RowAnswer{
+        private final Thread consumer;
+        private final AtomicInteger active;
+        private final AtomicInteger maxActive;
+        private boolean counted;
+
+        CountingRowAnswer(int start,int stop,Thread consumer,AtomicInteger active,AtomicInteger maxActive){
+            super(start,stop,-1);
+            this.consumer=consumer;
+            this.active=active;
+            this.maxActive=maxActive;
+        }
+
+        @Override
+        public ExecRow answer(InvocationOnMock invocation) throws Throwable{
+            if(!counted && Thread.currentThread()!=consumer){
+                counted=true;
+                int count=active.incrementAndGet();
+                int max;
+                do{
+                    max=maxActive.get();
+                }while(count>max && !maxActive.compareAndSet(max,count));
+            }
+            ExecRow row=super.answer(invocation);
+            if(row==null && counted){
+                counted=false;
+                active.decrementAndGet();
+            }
+            return row;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.iterator;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.ColumnBatch;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class TableScannerIteratorTest{
+
+    @Test
+    public void exhaustedBatchScanIsNotReopened() throws Exception{
+        ExecRow template=new ValueRow(1);
+        template.setColumn(1,new SQLInteger());
+        SITableScanner scanner=mock(SITableScanner.class);
+        when(scanner.nextBatch(any(ColumnBatch.class))).thenReturn(2,0);
+        TableScannerBuilder builder=mock(TableScannerBuilder.class);
+        when(builder.build()).thenReturn(scanner);
+
+        TableScannerIterator iterator=new TableScannerIterator(builder,null);
+        ColumnBatch batch=new ColumnBatch(template,2);
+        Assert.assertEquals("Incorrect first batch",2,iterator.nextBatch(batch));
+        Assert.assertEquals("Scan should be exhausted",0,iterator.nextBatch(batch));
+        Assert.assertEquals("Exhausted scan returned more rows",0,iterator.nextBatch(batch));
+        Assert.assertEquals("Batch should be empty",0,batch.size());
+        verify(builder,times(1)).build();
+        verify(scanner,times(2)).nextBatch(batch);
+        iterator.close();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+@Category(ArchitectureIndependent.class)
+public class ForeignKeyParentKeyCacheTest{
+    private static final byte[] KEY={0x41,0x42};
+
+    @Test
+    public void confirmationsAreOnlyReusedByTheirTransaction() throws Exception{
+        ForeignKeyParentKeyCache cache=new ForeignKeyParentKeyCache(16,1000L,new IncrementingClock());
+        cache.add("1168",KEY,100L);
+        Assert.assertTrue(cache.contains("1168",KEY.clone(),100L));
+        Assert.assertFalse("Another transaction should not see the confirmation",cache.contains("1168",KEY,101L));
+        Assert.assertFalse("Another parent should not match",cache.contains("1184",KEY,100L));
+        Assert.assertFalse("Another key should not match",cache.contains("1168",new byte[]{0x41},100L));
+    }
+
+    @Test
+    public void deletingTheParentKeyInvalidatesIt() throws Exception{
+        ForeignKeyParentKeyCache cache=new ForeignKeyParentKeyCache(16,1000L,new IncrementingClock());
+        cache.add("1168",KEY,100L);
+        cache.invalidate("1168",KEY);
+        Assert.assertFalse(cache.contains("1168",KEY,100L));
+    }
+
+    @Test
+    public void confirmationsExpire() throws Exception{
+        IncrementingClock clock=new IncrementingClock();
+        ForeignKeyParentKeyCache cache=new ForeignKeyParentKeyCache(16,1000L,clock);
+        cache.add("1168",KEY,100L);
+        clock.sleep(999,TimeUnit.MILLISECONDS);
+        Assert.assertTrue(cache.contains("1168",KEY,100L));
+        clock.sleep(1,TimeUnit.MILLISECONDS);
+        Assert.assertFalse("The confirmation should have expired",cache.contains("1168",KEY,100L));
+    }
+
+    @Test
+    public void disabledCacheConfirmsNothing() throws Exception{
+        ForeignKeyParentKeyCache cache=new ForeignKeyParentKeyCache(0,1000L,new IncrementingClock());
+        cache.add("1168",KEY,100L);
+        Assert.assertFalse(cache.contains("1168",KEY,100L));
+        cache.invalidate("1168",KEY);
+    }
+}
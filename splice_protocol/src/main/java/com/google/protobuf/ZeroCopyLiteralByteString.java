@@ -39,6 +39,16 @@ public final class ZeroCopyLiteralByteString extends LiteralByteString {
         return new LiteralByteString(array);
     }
 
+    /**
+     * Wraps a section of a byte array in a {@link ByteString} without copying it.
+     */
+    public static ByteString wrap(final byte[] array, int offset, int length) {
+        if (offset == 0 && length == array.length) {
+            return new LiteralByteString(array);
+        }
+        return new BoundedByteString(array, offset, length);
+    }
+
     /**
      * Extracts the byte array from the given {@link ByteString} without copy.
      * @param buf A buffer from which to extract the array.  This buffer must be
@@ -52,4 +62,15 @@ public final class ZeroCopyLiteralByteString extends LiteralByteString {
                 + buf.getClass().getName());
     }
 
+    /**
+     * Gets the contents of the given {@link ByteString}, without a copy when the ByteString is
+     * backed by exactly one whole array (as it is when it has been parsed off the wire), and with
+     * a copy otherwise.
+     */
+    public static byte[] getBytes(final ByteString buf) {
+        if (buf.getClass() == LiteralByteString.class) {
+            return ((LiteralByteString) buf).bytes;
+        }
+        return buf.toByteArray();
+    }
 }
@@ -15,10 +15,8 @@
 
 package com.splicemachine.si.api.readresolve;
 
-import com.lmax.disruptor.*;
-import com.lmax.disruptor.dsl.Disruptor;
-import com.lmax.disruptor.dsl.ProducerType;
 import com.splicemachine.annotations.ThreadSafe;
+import com.splicemachine.concurrent.traffic.TrafficController;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
 import com.splicemachine.storage.Partition;
@@ -26,65 +24,126 @@ import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
 import org.apache.log4j.Logger;
 import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Read-Resolver which asynchronously submits regions for execution, discarding
- * any entries which exceed the size of the processing queue.
+ * Read-Resolver which asynchronously resolves rows in the background, discarding
+ * any entries which exceed the size of the backlog.
+ * <p/>
+ * Rows are queued per region, grouped by the transaction which wrote them. A row which is submitted again
+ * while it is still queued (as happens when the same rows are scanned repeatedly before they are resolved)
+ * is only queued once. Whenever a region has queued rows, it is scheduled on one of the resolution threads,
+ * which takes everything queued for the region and resolves each transaction's rows with a single
+ * bulk write, looking the transaction up only once.
  * <p/>
- * This implementation uses an LMAX disruptor to asynchronously pass Read-resolve events
- * to a background thread, which in turn uses a SynchronousReadResolver to actually perform the resolution.
+ * Resolution is rate-limited by a {@link TrafficController}. When the resolution threads cannot keep up,
+ * the backlog grows until it reaches its maximum size, and further rows are dropped (they will be
+ * submitted again when they are next read).
  *
  * @author Scott Fines
  *         Date: 7/1/14
  */
 @ThreadSafe
-public class AsyncReadResolver{
+public class AsyncReadResolver implements ReadResolverManagement{
     private static final Logger LOG=Logger.getLogger(AsyncReadResolver.class);
-    private final RingBuffer<ResolveEvent> ringBuffer;
-    private final Disruptor<ResolveEvent> disruptor;
+    public static final String MBEAN_NAME="com.splicemachine.si.impl.readresolve:type=ReadResolverManagement";
+
+    private final ConcurrentMap<String,RegionBacklog> regionBacklogs=new ConcurrentHashMap<>();
+    private final AtomicInteger backlog=new AtomicInteger(0);
+    private final int maxBacklog;
+    private final int batchSize;
 
     private final ThreadPoolExecutor consumerThreads;
     private volatile boolean stopped;
     private final TxnSupplier txnSupplier;
     private final RollForwardStatus status;
     private final TrafficControl trafficControl;
+    private final TrafficController writeThrottle;
     private final KeyedReadResolver synchronousResolver;
 
-    public AsyncReadResolver(int maxThreads,int bufferSize,
+    private final LongAdder rowsSubmitted=new LongAdder();
+    private final LongAdder rowsDeduplicated=new LongAdder();
+    private final LongAdder rowsDropped=new LongAdder();
+    private final LongAdder rowsResolved=new LongAdder();
+    private final LongAdder batchesResolved=new LongAdder();
+    private final LongAdder totalLatencyNanos=new LongAdder();
+    private final LongAccumulator maxLatencyNanos=new LongAccumulator(Math::max,0L);
+    private volatile long startTimeNanos=System.nanoTime();
+    private volatile boolean registered;
+
+    /**
+     * @param maxThreads the number of threads to resolve with
+     * @param maxBacklog the maximum number of rows which may be queued for resolution
+     * @param batchSize the maximum number of rows to resolve in a single write
+     * @param txnSupplier a Transaction Supplier for fetching transaction information
+     * @param status the server's roll forward status
+     * @param trafficControl control over the number of concurrent resolution writes
+     * @param writeThrottle the limit on the rate at which rows are resolved
+     * @param synchronousResolver the resolver which performs the actual writes
+     */
+    public AsyncReadResolver(int maxThreads,int maxBacklog,int batchSize,
                              TxnSupplier txnSupplier,
                              RollForwardStatus status,
                              TrafficControl trafficControl,
+                             TrafficController writeThrottle,
                              KeyedReadResolver synchronousResolver){
+        this.maxBacklog=maxBacklog;
+        //never ask the throttle for more permits than it can ever hold at once
+        this.batchSize=Math.max(1,Math.min(batchSize,writeThrottle.maxPermits()));
         this.txnSupplier=txnSupplier;
         this.trafficControl=trafficControl;
+        this.writeThrottle=writeThrottle;
         this.status=status;
         this.synchronousResolver = synchronousResolver;
         consumerThreads=new ThreadPoolExecutor(maxThreads,maxThreads,
                 60,TimeUnit.SECONDS,
                 new LinkedBlockingQueue<Runnable>(),
                 new ThreadFactoryBuilder().setNameFormat("readResolver-%d").setDaemon(true).build());
-
-        int bSize=1;
-        while(bSize<bufferSize)
-            bSize<<=1;
-        disruptor=new Disruptor<>(new ResolveEventFactory(),bSize,consumerThreads,
-                ProducerType.MULTI,
-                new BlockingWaitStrategy()); //we want low latency here, but it might cost too much in CPU
-        disruptor.handleEventsWith(new ResolveEventHandler());
-        ringBuffer=disruptor.getRingBuffer();
     }
 
     public void start(){
-        disruptor.start();
+        startTimeNanos=System.nanoTime();
+        try{
+            MBeanServer mbs=ManagementFactory.getPlatformMBeanServer();
+            mbs.registerMBean(this,new ObjectName(MBEAN_NAME));
+            registered=true;
+        }catch(InstanceAlreadyExistsException ignored){
+            //another resolver in this JVM has already registered, so we just won't show up in JMX
+        }catch(Exception e){
+            LOG.warn("Unable to register the read resolver with JMX. Rows will still be resolved, but metrics will not be available",e);
+        }
     }
 
     public void shutdown(){
         stopped=true;
-        disruptor.shutdown();
         consumerThreads.shutdownNow();
+        if(registered){
+            try{
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(MBEAN_NAME));
+            }catch(Exception e){
+                LOG.info("Unable to unregister the read resolver from JMX",e);
+            }
+        }
     }
 
     @ThreadSafe
@@ -92,38 +151,197 @@ public class AsyncReadResolver{
         return new PartitionReadResolver(region,rollForward);
     }
 
-    private static class ResolveEvent{
-        Partition region;
-        long txnId;
-        ByteSlice rowKey=new ByteSlice();
-        RollForward rollForward;
+    /* ****************************************************************************************************************/
+    /*JMX reporting*/
+    @Override public int getBacklog(){ return backlog.get(); }
+    @Override public int getMaxBacklog(){ return maxBacklog; }
+    @Override public int getRegionsWithBacklog(){ return regionBacklogs.size(); }
+    @Override public long getTotalRowsSubmitted(){ return rowsSubmitted.sum(); }
+    @Override public long getTotalRowsDeduplicated(){ return rowsDeduplicated.sum(); }
+    @Override public long getTotalRowsDropped(){ return rowsDropped.sum(); }
+    @Override public long getTotalRowsResolved(){ return rowsResolved.sum(); }
+    @Override public long getTotalBatchesResolved(){ return batchesResolved.sum(); }
+
+    @Override
+    public double getDropRate(){
+        long submitted=rowsSubmitted.sum();
+        if(submitted<=0) return 0d;
+        return ((double)rowsDropped.sum())/submitted;
     }
 
-    private static class ResolveEventFactory implements EventFactory<ResolveEvent>{
+    @Override
+    public double getThroughput(){
+        long elapsedNanos=System.nanoTime()-startTimeNanos;
+        if(elapsedNanos<=0) return 0d;
+        return rowsResolved.sum()/(elapsedNanos/(double)TimeUnit.SECONDS.toNanos(1));
+    }
 
-        @Override
-        public ResolveEvent newInstance(){
-            return new ResolveEvent();
+    @Override
+    public double getAverageResolutionLatency(){
+        long batches=batchesResolved.sum();
+        if(batches<=0) return 0d;
+        return totalLatencyNanos.sum()/(double)batches/TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public long getMaxResolutionLatency(){
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private void submit(Partition region,RollForward rollForward,ByteSlice rowKey,long txnId){
+        rowsSubmitted.increment();
+        if(backlog.incrementAndGet()>maxBacklog){
+            backlog.decrementAndGet();
+            rowsDropped.increment();
+            if(LOG.isTraceEnabled())
+                LOG.trace("Unable to submit for read resolution");
+            return;
+        }
+        RegionBacklog regionBacklog=regionBacklogs.get(region.getName());
+        if(regionBacklog==null){
+            regionBacklog=new RegionBacklog(region,rollForward);
+            RegionBacklog old=regionBacklogs.putIfAbsent(region.getName(),regionBacklog);
+            if(old!=null)
+                regionBacklog=old;
+        }
+        if(!regionBacklog.add(rowKey,txnId)){
+            backlog.decrementAndGet();
+            rowsDeduplicated.increment();
+        }
+    }
+
+    private void schedule(RegionBacklog regionBacklog){
+        try{
+            consumerThreads.execute(regionBacklog);
+        }catch(RejectedExecutionException ree){
+            //we are shutting down, so the backlog will never be resolved
+            if(!stopped)
+                throw ree;
+        }
+    }
+
+    private void recordLatency(long latencyNanos){
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulate(latencyNanos);
+    }
+
+    /**
+     * The rows written by a single transaction which are waiting for resolution in a region.
+     */
+    private static class TxnRows{
+        private final long firstQueuedNanos;
+        private final Set<ByteSlice> rowKeys=new HashSet<>();
+
+        TxnRows(long firstQueuedNanos){
+            this.firstQueuedNanos=firstQueuedNanos;
         }
     }
 
-    private class ResolveEventHandler implements EventHandler<ResolveEvent>{
+    /**
+     * The rows which are waiting for resolution in a single region.
+     */
+    private class RegionBacklog implements Runnable{
+        private final Partition region;
+        private final RollForward rollForward;
+
+        //guarded by this
+        private Map<Long,TxnRows> pending=new HashMap<>();
+        private boolean scheduled;
+
+        RegionBacklog(Partition region,RollForward rollForward){
+            this.region=region;
+            this.rollForward=rollForward;
+        }
+
+        /**
+         * @return false if the row is already queued
+         */
+        boolean add(ByteSlice rowKey,long txnId){
+            boolean shouldSchedule;
+            synchronized(this){
+                TxnRows rows=pending.get(txnId);
+                if(rows==null){
+                    rows=new TxnRows(System.nanoTime());
+                    pending.put(txnId,rows);
+                }
+                if(!rows.rowKeys.add(ByteSlice.wrap(rowKey.getByteCopy())))
+                    return false;
+                shouldSchedule=!scheduled;
+                scheduled=true;
+            }
+            if(shouldSchedule)
+                schedule(this);
+            return true;
+        }
 
         @Override
-        public void onEvent(ResolveEvent event,long sequence,boolean endOfBatch) throws Exception{
+        public void run(){
+            Map<Long,TxnRows> toResolve;
+            synchronized(this){
+                toResolve=pending;
+                pending=new HashMap<>();
+            }
+            int unresolved=0;
+            for(TxnRows rows:toResolve.values()){
+                unresolved+=rows.rowKeys.size();
+            }
             try{
-                if(synchronousResolver.resolve(event.region,
-                        event.rowKey,
-                        event.txnId,
-                        txnSupplier,
-                        status,
-                        false,
-                        trafficControl)){
-                    event.rollForward.recordResolved(event.rowKey,event.txnId);
+                for(Map.Entry<Long,TxnRows> entry:toResolve.entrySet()){
+                    if(stopped) return;
+                    TxnRows rows=entry.getValue();
+                    unresolved-=rows.rowKeys.size();
+                    resolve(entry.getKey(),rows);
                 }
-            }catch(Exception e){
-                LOG.info("Error during read resolution",e);
-                throw e;
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }finally{
+                //anything we didn't get to is lost, so make room for it in the backlog
+                backlog.addAndGet(-unresolved);
+                boolean reschedule;
+                synchronized(this){
+                    reschedule=!stopped && !pending.isEmpty();
+                    scheduled=reschedule;
+                    if(!reschedule){
+                        /*
+                         * Forget about idle regions, so that we don't hold on to closed ones. If someone
+                         * is adding to us concurrently, they will schedule us themselves.
+                         */
+                        regionBacklogs.remove(region.getName(),this);
+                    }
+                }
+                if(reschedule)
+                    schedule(this);
+            }
+        }
+
+        private void resolve(long txnId,TxnRows rows) throws InterruptedException{
+            List<ByteSlice> rowKeys=new ArrayList<>(rows.rowKeys);
+            int start=0;
+            try{
+                while(start<rowKeys.size()){
+                    List<ByteSlice> batch=rowKeys.subList(start,Math.min(rowKeys.size(),start+batchSize));
+                    writeThrottle.acquire(batch.size());
+                    List<ByteSlice> resolved=Collections.emptyList();
+                    try{
+                        resolved=synchronousResolver.resolve(region,txnId,batch,txnSupplier,status,false,trafficControl);
+                    }catch(Exception e){
+                        LOG.info("Error during read resolution",e);
+                    }
+                    start+=batch.size();
+                    backlog.addAndGet(-batch.size());
+                    if(!resolved.isEmpty()){
+                        for(ByteSlice rowKey:resolved){
+                            rollForward.recordResolved(rowKey,txnId);
+                        }
+                        rowsResolved.add(resolved.size());
+                    }
+                    batchesResolved.increment();
+                    recordLatency(System.nanoTime()-rows.firstQueuedNanos);
+                }
+            }finally{
+                backlog.addAndGet(start-rowKeys.size());
             }
         }
     }
@@ -140,24 +358,7 @@ public class AsyncReadResolver{
         @Override
         public void resolve(ByteSlice rowKey,long txnId){
             if(stopped) return; //we aren't running, so do nothing
-            long sequence;
-            try{
-                sequence=ringBuffer.tryNext();
-            }catch(InsufficientCapacityException e){
-                if(LOG.isTraceEnabled())
-                    LOG.trace("Unable to submit for read resolution");
-                return;
-            }
-
-            try{
-                ResolveEvent event=ringBuffer.get(sequence);
-                event.region=region;
-                event.txnId=txnId;
-                event.rowKey.set(rowKey.getByteCopy());
-                event.rollForward=rollForward;
-            }finally{
-                ringBuffer.publish(sequence);
-            }
+            submit(region,rollForward,rowKey,txnId);
         }
     }
 }
@@ -21,6 +21,9 @@ import com.splicemachine.storage.Partition;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * @author Scott Fines
  *         Date: 12/21/15
@@ -33,4 +36,24 @@ public interface KeyedReadResolver{
                     RollForwardStatus status,
                     boolean failOnError,
                     TrafficControl trafficControl);
+
+    /**
+     * Resolve many rows which were all written by the same transaction.
+     *
+     * The transaction is looked up once for the whole group, and the rows are written to the region
+     * together, rather than one write per row.
+     *
+     * @param region the region holding the rows
+     * @param txnId the transaction which wrote the rows
+     * @param rowKeys the rows to resolve
+     * @return the rows which were resolved. This is empty if the transaction is not yet
+     * in a final state (and therefore the rows cannot be resolved yet).
+     */
+    List<ByteSlice> resolve(Partition region,
+                long txnId,
+                Collection<ByteSlice> rowKeys,
+                TxnSupplier txnSupplier,
+                RollForwardStatus status,
+                boolean failOnError,
+                TrafficControl trafficControl);
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.api.readresolve;
+
+import javax.management.MXBean;
+
+/**
+ * JMX view of the asynchronous read-resolution pipeline on a server.
+ *
+ * All counts are in rows, and are totals since the server started.
+ */
+@SuppressWarnings("unused")
+@MXBean(true)
+public interface ReadResolverManagement{
+
+    /**
+     * @return the number of distinct rows which are queued for resolution, but not yet resolved
+     */
+    int getBacklog();
+
+    /**
+     * @return the maximum number of rows which may be queued before further rows are dropped
+     */
+    int getMaxBacklog();
+
+    /**
+     * @return the number of regions which have rows queued for resolution
+     */
+    int getRegionsWithBacklog();
+
+    long getTotalRowsSubmitted();
+
+    /**
+     * @return the number of submitted rows which were already queued, and so were not queued again
+     */
+    long getTotalRowsDeduplicated();
+
+    /**
+     * @return the number of submitted rows which were discarded because the backlog was full
+     */
+    long getTotalRowsDropped();
+
+    long getTotalRowsResolved();
+
+    long getTotalBatchesResolved();
+
+    /**
+     * @return the fraction of submitted rows which were dropped
+     */
+    double getDropRate();
+
+    /**
+     * @return the average number of rows resolved per second since the resolver started
+     */
+    double getThroughput();
+
+    /**
+     * @return the average time, in milliseconds, between the first row of a batch being queued and the
+     * batch being resolved
+     */
+    double getAverageResolutionLatency();
+
+    /**
+     * @return the longest time, in milliseconds, that any batch has waited to be resolved
+     */
+    long getMaxResolutionLatency();
+}
@@ -38,6 +38,29 @@ public interface TxnLifecycleStore{
 
     TxnMessage.Txn getTransaction(long txnId) throws IOException;
 
+    /**
+     * Commit several transactions as a group: the commit timestamps of all of them are acquired
+     * together, and the commits are then recorded in a single write.
+     *
+     * @param txnIds the transactions to commit
+     * @return the outcome of the commit of each transaction. A transaction which cannot be committed
+     * is reported in its result, and does not prevent the others from committing.
+     * @throws IOException if the commits could not be recorded
+     */
+    TxnMessage.MultiActionResponse commitTransactions(long[] txnIds) throws IOException;
+
+    /**
+     * Keep several transactions alive.
+     *
+     * @param txnIds the transactions to keep alive
+     * @return the outcome of the keep alive of each transaction. A transaction which has already
+     * timed out is reported in its result, rather than by an exception.
+     * @throws IOException if something goes wrong
+     */
+    TxnMessage.MultiActionResponse keepAlive(long[] txnIds) throws IOException;
+
+    TxnMessage.MultiTxnResponse getTransactions(long[] txnIds) throws IOException;
+
     long[] getActiveTransactionIds(byte[] destTable, long startId, long endId) throws IOException;
 
     Source<TxnMessage.Txn> getActiveTransactions(byte[] destTable, long startId, long endId) throws IOException;
@@ -137,6 +137,20 @@ public interface TxnPartition{
      */
     void recordCommit(long txnId,long commitTs) throws IOException;
 
+    /**
+     * Record that each of the transactions was committed, with {@code txnIds[i]} committing at
+     * {@code commitTs[i]}, in as few writes as possible.
+     * <p/>
+     * The same synchronization requirements as {@link #recordCommit(long, long)} apply to each transaction.
+     * If this method throws an exception, then some of the transactions may have been committed and others
+     * not; since committing a transaction twice has no effect, callers may retry.
+     *
+     * @param txnIds   the transaction ids to commit
+     * @param commitTs the commit timestamps, parallel to {@code txnIds}
+     * @throws IOException if something goes wrong while committing.
+     */
+    void recordCommits(long[] txnIds,long[] commitTs) throws IOException;
+
     /**
      * Record that the transaction was globally committed, and assign the committed timestamp to it.
      * <p/>
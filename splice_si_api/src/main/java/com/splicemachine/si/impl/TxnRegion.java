@@ -27,6 +27,7 @@ import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.filter.HRowAccumulator;
 import com.splicemachine.si.impl.filter.PackedTxnFilter;
+import com.splicemachine.si.impl.txn.TxnLowWatermark;
 import com.splicemachine.storage.*;
 import com.splicemachine.utils.ByteSlice;
 import org.sparkproject.guava.collect.Iterators;
@@ -46,6 +47,7 @@ public class TxnRegion<InternalScanner> implements TransactionalRegion<InternalS
     private final TxnSupplier txnSupplier;
     private final Transactor transactor;
     private final TxnOperationFactory opFactory;
+    private final TxnLowWatermark lowWatermark;
     private Partition region;
     private String tableName;
 
@@ -55,12 +57,26 @@ public class TxnRegion<InternalScanner> implements TransactionalRegion<InternalS
                      ReadResolver readResolver,
                      TxnSupplier txnSupplier,
                      Transactor transactor,TxnOperationFactory opFactory){
+        this(region,rollForward,readResolver,txnSupplier,transactor,opFactory,null);
+    }
+
+    /**
+     * @param lowWatermark the low watermark of the compactions on this server, against which readers are
+     *                     checked, or {@code null} if readers should not be checked
+     */
+    public TxnRegion(Partition region,
+                     RollForward rollForward,
+                     ReadResolver readResolver,
+                     TxnSupplier txnSupplier,
+                     Transactor transactor,TxnOperationFactory opFactory,
+                     TxnLowWatermark lowWatermark){
         this.region=region;
         this.rollForward=rollForward;
         this.readResolver=readResolver;
         this.txnSupplier=txnSupplier;
         this.transactor=transactor;
         this.opFactory=opFactory;
+        this.lowWatermark=lowWatermark;
         if(region!=null){
             this.tableName=region.getTableName();
         }
@@ -68,6 +84,8 @@ public class TxnRegion<InternalScanner> implements TransactionalRegion<InternalS
 
     @Override
     public TxnFilter unpackedFilter(TxnView txn) throws IOException{
+        if(lowWatermark!=null)
+            lowWatermark.checkSnapshot(txn);
         return new SimpleTxnFilter(tableName,txn,readResolver,txnSupplier);
     }
 
@@ -19,6 +19,7 @@ import com.splicemachine.concurrent.LongStripedSynchronizer;
 import com.splicemachine.si.api.txn.lifecycle.TxnLifecycleStore;
 import com.splicemachine.access.api.ServerControl;
 import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.lifecycle.TransactionTimeoutException;
 import com.splicemachine.si.api.txn.lifecycle.TxnPartition;
 import com.splicemachine.si.coprocessor.TxnMessage;
 import com.splicemachine.timestamp.api.TimestampSource;
@@ -30,6 +31,7 @@ import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Scott Fines
@@ -54,6 +56,7 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
     private final TxnPartition baseStore;
     private final ServerControl serverControl;
     private final TimestampSource timestampSource;
+    private final Lock groupCommitLock=new ReentrantLock();
 
     public StripedTxnLifecycleStore(int numPartitions,
                                     TxnPartition baseStore,
@@ -113,6 +116,65 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
         }
     }
 
+    @Override
+    public TxnMessage.MultiActionResponse commitTransactions(long[] txnIds) throws IOException{
+        TxnMessage.TxnActionResult.Builder[] results=new TxnMessage.TxnActionResult.Builder[txnIds.length];
+        /*
+         * We hold the write lock of every transaction in the group while we commit. Serializing group
+         * commits means that we never need to worry about the order in which those locks are taken, since
+         * everything else only ever holds one of them at a time.
+         */
+        groupCommitLock.lock();
+        Lock[] locks=new Lock[txnIds.length];
+        int numLocked=0;
+        try{
+            for(int i=0;i<txnIds.length;i++){
+                locks[i]=lockStriper.get(txnIds[i]).writeLock();
+                acquireLock(locks[i]);
+                numLocked++;
+            }
+            int[] toCommit=new int[txnIds.length];
+            int numToCommit=0;
+            for(int i=0;i<txnIds.length;i++){
+                long txnId=txnIds[i];
+                results[i]=TxnMessage.TxnActionResult.newBuilder().setTxnId(txnId);
+                Txn.State state=baseStore.getState(txnId);
+                if(state==null){
+                    results[i].setCommitTs(-1l); //read-only, so there's nothing to commit
+                }else if(state==Txn.State.COMMITTED){
+                    SpliceLogUtils.warn(LOG,"attempting to commit already committed txn=%d",txnId);
+                    results[i].setCommitTs(baseStore.getCommitTimestamp(txnId));
+                }else if(state==Txn.State.ROLLEDBACK){
+                    SpliceLogUtils.error(LOG,"attempting to commit rolled back txn=%d",txnId);
+                    results[i].setFailure(TxnMessage.ActionFailure.CANNOT_COMMIT).setState(state.getId());
+                }else
+                    toCommit[numToCommit++]=i;
+            }
+            if(numToCommit>0){
+                long[] commitIds=new long[numToCommit];
+                long[] commitTimestamps=new long[numToCommit];
+                for(int i=0;i<numToCommit;i++){
+                    commitIds[i]=txnIds[toCommit[i]];
+                    commitTimestamps[i]=timestampSource.nextTimestamp();
+                }
+                baseStore.recordCommits(commitIds,commitTimestamps);
+                for(int i=0;i<numToCommit;i++){
+                    results[toCommit[i]].setCommitTs(commitTimestamps[i]);
+                }
+            }
+        }finally{
+            for(int i=numLocked-1;i>=0;i--){
+                unlock(locks[i]);
+            }
+            groupCommitLock.unlock();
+        }
+        TxnMessage.MultiActionResponse.Builder response=TxnMessage.MultiActionResponse.newBuilder();
+        for(TxnMessage.TxnActionResult.Builder result:results){
+            response.addResults(result);
+        }
+        return response.build();
+    }
+
     @Override
     public void rollbackTransaction(long txnId) throws IOException{
         Lock lock=lockStriper.get(txnId).writeLock();
@@ -162,6 +224,32 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
         }
     }
 
+    @Override
+    public TxnMessage.MultiActionResponse keepAlive(long[] txnIds) throws IOException{
+        TxnMessage.MultiActionResponse.Builder response=TxnMessage.MultiActionResponse.newBuilder();
+        for(long txnId:txnIds){
+            TxnMessage.TxnActionResult.Builder result=TxnMessage.TxnActionResult.newBuilder().setTxnId(txnId);
+            try{
+                result.setContinue(keepAlive(txnId));
+            }catch(IOException ioe){
+                if(!(ioe instanceof TransactionTimeoutException)) throw ioe;
+                result.setFailure(TxnMessage.ActionFailure.TIMED_OUT);
+            }
+            response.addResults(result);
+        }
+        return response.build();
+    }
+
+    @Override
+    public TxnMessage.MultiTxnResponse getTransactions(long[] txnIds) throws IOException{
+        TxnMessage.MultiTxnResponse.Builder response=TxnMessage.MultiTxnResponse.newBuilder();
+        for(long txnId:txnIds){
+            response.addTxnIds(txnId);
+            response.addTxns(getTransaction(txnId));
+        }
+        return response.build();
+    }
+
     @Override
     public long[] getActiveTransactionIds(byte[] destTable,long startId,long endId) throws IOException{
         if(endId<0)
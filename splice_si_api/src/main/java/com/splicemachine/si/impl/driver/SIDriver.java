@@ -20,6 +20,8 @@ import com.splicemachine.access.api.PartitionFactory;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.access.api.SnowflakeFactory;
 import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.traffic.TrafficController;
+import com.splicemachine.concurrent.traffic.TrafficShaping;
 import com.splicemachine.si.api.data.ExceptionFactory;
 import com.splicemachine.si.api.data.OperationFactory;
 import com.splicemachine.si.api.data.OperationStatusFactory;
@@ -41,6 +43,7 @@ import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
 import com.splicemachine.si.impl.server.SITransactor;
 import com.splicemachine.si.impl.txn.SITransactionReadController;
+import com.splicemachine.si.impl.txn.TxnLowWatermark;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.PartitionInfoCache;
@@ -48,6 +51,8 @@ import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.GreenLight;
 import org.apache.log4j.Logger;
 
+import java.util.concurrent.TimeUnit;
+
 public class SIDriver {
     private static final Logger LOG = Logger.getLogger("splice.uncaught");
 
@@ -89,6 +94,7 @@ public class SIDriver {
     private final OperationFactory baseOpFactory;
     private final PartitionInfoCache partitionInfoCache;
     private final SnowflakeFactory snowflakeFactory;
+    private final TxnLowWatermark lowWatermark;
 
     public SIDriver(SIEnvironment env){
         this.tableFactory = env.tableFactory();
@@ -120,6 +126,10 @@ public class SIDriver {
         readResolver = initializedReadResolver(config,env.keyedReadResolver());
         this.fileSystem = env.fileSystem();
         this.baseOpFactory = env.baseOperationFactory();
+        this.lowWatermark = new TxnLowWatermark(txnStore,timestampSource,exceptionFactory,clock,
+                config.isCompactionPurgeEnabled(),
+                config.getLowWatermarkRetention(),
+                config.getLowWatermarkRefreshInterval());
     }
 
 
@@ -197,14 +207,16 @@ public class SIDriver {
                     getReadResolver(basePartition),
                     getTxnSupplier(),
                     getTransactor(),
-                    getOperationFactory());
+                    getOperationFactory(),
+                    lowWatermark);
         }else{
             return new TxnRegion(basePartition,
                     NoopRollForward.INSTANCE,
                     NoOpReadResolver.INSTANCE,
                     getTxnSupplier(),
                     getTransactor(),
-                    getOperationFactory());
+                    getOperationFactory(),
+                    lowWatermark);
         }
     }
 
@@ -212,6 +224,13 @@ public class SIDriver {
         return clock;
     }
 
+    /**
+     * @return the transaction low watermark, below which compactions may purge old versions of rows
+     */
+    public TxnLowWatermark getTxnLowWatermark(){
+        return lowWatermark;
+    }
+
     public DistributedFileSystem fileSystem(){
         return fileSystem;
     }
@@ -227,11 +246,17 @@ public class SIDriver {
         int maxThreads = config.getReadResolverThreads();
         int bufferSize = config.getReadResolverQueueSize();
         if(bufferSize<=0) return null;
+        int maxRowsPerSecond = config.getReadResolverMaxRowsPerSecond();
+        if(maxRowsPerSecond<=0) maxRowsPerSecond = Integer.MAX_VALUE; //no limit
+        TrafficController writeThrottle = TrafficShaping.fixedRateTrafficShaper(maxRowsPerSecond,maxRowsPerSecond,TimeUnit.SECONDS);
         final AsyncReadResolver asyncReadResolver=new AsyncReadResolver(maxThreads,
                 bufferSize,
+                config.getReadResolverBatchSize(),
                 txnSupplier,
                 new RollForwardStatus(),
-                GreenLight.INSTANCE,keyedResolver);
+                GreenLight.INSTANCE,
+                writeThrottle,
+                keyedResolver);
         asyncReadResolver.start();
         return asyncReadResolver;
     }
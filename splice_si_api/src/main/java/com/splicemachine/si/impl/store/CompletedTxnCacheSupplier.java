@@ -15,42 +15,61 @@
 
 package com.splicemachine.si.impl.store;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.splicemachine.collections.ConcurrentLongKeyedCache;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.si.impl.txn.InheritingTxnView;
+import com.splicemachine.si.impl.txn.RolledBackTxn;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * TxnSupplier which caches transaction which have "Completed"--i.e. which have entered the COMMITTED or ROLLEDBACK
  * state.
  * <p/>
+ * Since this is consulted for every version of every row that a transactional scan reads, the cache is keyed
+ * by primitive transaction ids (see {@link ConcurrentLongKeyedCache}), so that lookups neither box nor lock.
+ * Rather than holding on to whatever TxnView the delegate returned (which may carry destination tables,
+ * a lifecycle manager, and so on), only a compact immutable record of the transaction is cached: its
+ * begin and commit timestamps, its state, and its parent.
+ * <p/>
  * This class is thread-safe, and safe to be shared between many threads.
  *
  * @author Scott Fines
  *         Date: 6/18/14
  */
 public class CompletedTxnCacheSupplier implements TxnSupplier{
-    private ConcurrentLinkedHashMap<Long, TxnView> cache; // autobox for now
+    private final ConcurrentLongKeyedCache<TxnView> cache;
     private final TxnSupplier delegate;
-    private final AtomicLong hits=new AtomicLong();
-    private final AtomicLong requests=new AtomicLong();
 
     public CompletedTxnCacheSupplier(TxnSupplier delegate,int maxSize,int concurrencyLevel){
-        cache=new ConcurrentLinkedHashMap.Builder<Long, TxnView>()
-                .maximumWeightedCapacity(maxSize)
-                .concurrencyLevel(concurrencyLevel)
-                .build();
+        this.cache=new ConcurrentLongKeyedCache<>(maxSize,concurrencyLevel);
         this.delegate=delegate;
     }
 
     public int getMaxSize(){
+        return cache.getMaxSize();
+    }
+
+    public int getCurrentSize(){
         return cache.size();
     }
 
+    public long getTotalHits(){
+        return cache.getHitCount();
+    }
+
+    public long getTotalRequests(){
+        return cache.getHitCount()+cache.getMissCount();
+    }
+
+    public long getTotalEvictedEntries(){
+        return cache.getEvictionCount();
+    }
+
     @Override
     public TxnView getTransaction(long txnId) throws IOException{
         if(txnId==-1)
@@ -63,10 +82,8 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
     public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
         if(txnId==-1)
             return Txn.ROOT_TRANSACTION;
-        requests.incrementAndGet();
-        TxnView txn=cache.get(txnId); // autobox until Cliff C merge
+        TxnView txn=cache.get(txnId);
         if(txn!=null){
-            hits.incrementAndGet();
             return txn;
         }
         //bummer, we aren't in the cache, need to check the delegate
@@ -77,7 +94,7 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
         switch(transaction.getEffectiveState()){
             case COMMITTED:
             case ROLLEDBACK:
-                cache.put(transaction.getTxnId(),transaction); // Cache for Future Use
+                cache.put(transaction.getTxnId(),compact(transaction)); // Cache for Future Use
         }
         return transaction;
     }
@@ -90,15 +107,30 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
     @Override
     public void cache(TxnView toCache){
         if(toCache.getState()==Txn.State.ACTIVE) return; //cannot cache incomplete transactions
-        cache.put(toCache.getTxnId(),toCache);
+        cache.put(toCache.getTxnId(),compact(toCache));
     }
 
     @Override
     public TxnView getTransactionFromCache(long txnId){
-        requests.incrementAndGet();
-        TxnView txn=cache.get(txnId);
-        if(txn!=null)
-            hits.incrementAndGet();
-        return txn;
+        return cache.get(txnId);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static TxnView compact(TxnView txn){
+        if(txn instanceof CommittedTxn || txn instanceof RolledBackTxn)
+            return txn; //already as small as it gets
+        /*
+         * The parent is kept by reference rather than by id. Dependent children are
+         * only cached once they have completed, but their parents may still be active, so
+         * the parent's view is what we need in order to resolve the child's effective state.
+         */
+        return new InheritingTxnView(txn.getParentTxnView(),
+                txn.getTxnId(),txn.getBeginTimestamp(),
+                txn.getIsolationLevel(),
+                true,txn.isAdditive(),
+                true,txn.allowsWrites(),
+                txn.getCommitTimestamp(),txn.getGlobalCommitTimestamp(),
+                txn.getState());
     }
 }
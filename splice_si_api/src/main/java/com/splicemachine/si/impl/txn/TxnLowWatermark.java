@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.timestamp.api.TimestampSource;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Tracks the transaction low watermark: a timestamp below which every transaction that might still read data
+ * has already begun. Any version of a row which was committed before the low watermark is therefore visible
+ * to every reader, and only the newest of those versions matters.
+ *
+ * The active write transactions are recorded in the TxnStore, so the oldest of those bounds the watermark.
+ * Read-only transactions are not recorded anywhere, so the watermark is also held below a timestamp which was
+ * issued at least {@code retention} milliseconds ago. Those timestamps are sampled from the TimestampSource
+ * whenever the watermark is refreshed; until a sample is old enough, there is no watermark at all.
+ *
+ * A read-only transaction which has been running for longer than the retention window may therefore need
+ * versions which have already been purged. Such readers are failed by {@link #checkSnapshot(TxnView)} rather
+ * than being allowed to read an inconsistent snapshot.
+ */
+@ThreadSafe
+public class TxnLowWatermark{
+    private static final Logger LOG=Logger.getLogger(TxnLowWatermark.class);
+
+    private final TxnStore txnStore;
+    private final TimestampSource timestampSource;
+    private final ExceptionFactory exceptionFactory;
+    private final Clock clock;
+    private final boolean enabled;
+    private final long retention;
+    private final long refreshInterval;
+
+    private final ArrayDeque<long[]> samples=new ArrayDeque<>(); //(wall clock millis,timestamp) pairs, oldest first
+    private long lastRefresh=Long.MIN_VALUE;
+    private long lowWatermark=0L;
+    private volatile long purgedBelow=0L; //the highest watermark handed out to a compaction on this server
+
+    public TxnLowWatermark(TxnStore txnStore,
+                           TimestampSource timestampSource,
+                           ExceptionFactory exceptionFactory,
+                           Clock clock,
+                           boolean enabled,
+                           long retention,
+                           long refreshInterval){
+        this.txnStore=txnStore;
+        this.timestampSource=timestampSource;
+        this.exceptionFactory=exceptionFactory;
+        this.clock=clock;
+        this.enabled=enabled;
+        this.retention=retention;
+        this.refreshInterval=refreshInterval;
+    }
+
+    /**
+     * @return the current low watermark, or 0 if versions should not be purged (either because purging is
+     * disabled, or because the watermark is not yet known).
+     */
+    public synchronized long getLowWatermark(){
+        if(!enabled) return 0L;
+        long now=clock.currentTimeMillis();
+        if(lastRefresh!=Long.MIN_VALUE && now-lastRefresh<refreshInterval)
+            return lowWatermark;
+
+        long horizon=horizon(now);
+        samples.addLast(new long[]{now,timestampSource.nextTimestamp()});
+        lastRefresh=now;
+        if(horizon<=0L){
+            lowWatermark=0L;
+            return lowWatermark;
+        }
+        try{
+            long lwm=horizon;
+            for(long activeTxnId:txnStore.getActiveTransactionIds(0L,horizon,null)){
+                if(activeTxnId<lwm)
+                    lwm=activeTxnId;
+            }
+            lowWatermark=lwm;
+            if(lwm>purgedBelow)
+                purgedBelow=lwm;
+        }catch(IOException e){
+            SpliceLogUtils.warn(LOG,"Unable to read the active transactions, versions will not be purged",e);
+            lowWatermark=0L;
+            lastRefresh=Long.MIN_VALUE; //try again next time
+        }
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"Transaction low watermark is %d",lowWatermark);
+        return lowWatermark;
+    }
+
+    /**
+     * Fail a reader whose snapshot is older than the low watermark that compactions on this server may already
+     * have purged versions below, since it can no longer be given a consistent view of the data.
+     *
+     * Only snapshot isolation readers are checked, because the newest settled version of each row is always
+     * retained, which is all that the other isolation levels can see.
+     *
+     * @param reader the transaction which is about to read data
+     * @throws IOException if versions which {@code reader} may need could have been purged
+     */
+    public void checkSnapshot(TxnView reader) throws IOException{
+        long purged=purgedBelow;
+        if(purged<=0L || Txn.ROOT_TRANSACTION.equals(reader)
+                || reader.getIsolationLevel()!=Txn.IsolationLevel.SNAPSHOT_ISOLATION)
+            return;
+        long snapshot=reader.getEffectiveBeginTimestamp();
+        if(snapshot<purged)
+            throw exceptionFactory.doNotRetry("Snapshot too old: transaction "+reader.getTxnId()
+                    +" reads as of timestamp "+snapshot+", but versions below "+purged
+                    +" may have been purged. Retry it in a new transaction");
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * Returns the newest sampled timestamp which is at least retention millis old (or 0 if there is none),
+     * discarding the samples which are older still.
+     */
+    private long horizon(long now){
+        long cutoff=now-retention;
+        long[] oldest;
+        while((oldest=samples.pollFirst())!=null){
+            long[] next=samples.peekFirst();
+            if(next==null || next[0]>cutoff){
+                samples.addFirst(oldest);
+                break;
+            }
+        }
+        oldest=samples.peekFirst();
+        return oldest!=null && oldest[0]<=cutoff?oldest[1]:0L;
+    }
+}
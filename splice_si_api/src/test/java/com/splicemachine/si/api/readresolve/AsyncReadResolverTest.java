@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.api.readresolve;
+
+import com.splicemachine.concurrent.traffic.TrafficShaping;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.GreenLight;
+import com.splicemachine.utils.TrafficControl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class AsyncReadResolverTest{
+    private Partition region;
+    private BlockingResolver keyedResolver;
+    private AsyncReadResolver asyncResolver;
+
+    @Before
+    public void setUp() throws Exception{
+        region=mock(Partition.class);
+        when(region.getName()).thenReturn("region");
+        keyedResolver=new BlockingResolver();
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        keyedResolver.release.countDown();
+        if(asyncResolver!=null)
+            asyncResolver.shutdown();
+    }
+
+    @Test
+    public void repeatedRowsAreResolvedOnceInASingleBatch() throws Exception{
+        asyncResolver=newResolver(16);
+        ReadResolver resolver=asyncResolver.getResolver(region,mock(RollForward.class));
+
+        //the first row occupies the region's worker, so everything after it queues up behind it
+        resolver.resolve(row(0),1L);
+        Assert.assertTrue("Resolution never started",keyedResolver.entered.await(10,TimeUnit.SECONDS));
+        for(int i=0;i<2;i++){
+            resolver.resolve(row(1),2L);
+            resolver.resolve(row(2),2L);
+        }
+        resolver.resolve(row(3),2L);
+        Assert.assertEquals("Incorrect backlog",4,asyncResolver.getBacklog());
+        Assert.assertEquals("Incorrect deduplication count",2,asyncResolver.getTotalRowsDeduplicated());
+
+        keyedResolver.release.countDown();
+        waitForBatches(2);
+
+        Assert.assertEquals("Incorrect number of bulk resolutions",2,keyedResolver.calls.size());
+        Call second=keyedResolver.calls.get(1);
+        Assert.assertEquals("Incorrect transaction",2L,second.txnId);
+        Set<ByteSlice> expected=new HashSet<>();
+        for(int i=1;i<=3;i++){
+            expected.add(row(i));
+        }
+        Assert.assertEquals("Incorrect rows resolved",expected,new HashSet<>(second.rowKeys));
+        Assert.assertEquals("Incorrect resolved count",4,asyncResolver.getTotalRowsResolved());
+        Assert.assertEquals("Backlog was not drained",0,asyncResolver.getBacklog());
+    }
+
+    @Test
+    public void onlyResolvedRowsAreRecorded() throws Exception{
+        asyncResolver=newResolver(16);
+        RollForward rollForward=mock(RollForward.class);
+        ReadResolver resolver=asyncResolver.getResolver(region,rollForward);
+        keyedResolver.unresolvable.add(row(2));
+
+        resolver.resolve(row(0),1L);
+        Assert.assertTrue("Resolution never started",keyedResolver.entered.await(10,TimeUnit.SECONDS));
+        for(int i=1;i<=3;i++){
+            resolver.resolve(row(i),2L);
+        }
+        keyedResolver.release.countDown();
+        waitForBatches(2);
+
+        verify(rollForward).recordResolved(row(0),1L);
+        verify(rollForward).recordResolved(row(1),2L);
+        verify(rollForward).recordResolved(row(3),2L);
+        verify(rollForward,never()).recordResolved(row(2),2L);
+        Assert.assertEquals("Incorrect resolved count",3,asyncResolver.getTotalRowsResolved());
+    }
+
+    @Test
+    public void rowsBeyondTheBacklogAreDropped() throws Exception{
+        asyncResolver=newResolver(2);
+        ReadResolver resolver=asyncResolver.getResolver(region,mock(RollForward.class));
+
+        resolver.resolve(row(0),1L);
+        Assert.assertTrue("Resolution never started",keyedResolver.entered.await(10,TimeUnit.SECONDS));
+        resolver.resolve(row(1),1L);
+        resolver.resolve(row(2),1L);
+        resolver.resolve(row(3),1L);
+
+        Assert.assertEquals("Incorrect submitted count",4,asyncResolver.getTotalRowsSubmitted());
+        Assert.assertEquals("Incorrect dropped count",2,asyncResolver.getTotalRowsDropped());
+        Assert.assertEquals("Incorrect drop rate",0.5d,asyncResolver.getDropRate(),0d);
+
+        keyedResolver.release.countDown();
+        waitForBatches(2);
+        Assert.assertEquals("Incorrect resolved count",2,asyncResolver.getTotalRowsResolved());
+        Assert.assertEquals("Backlog was not drained",0,asyncResolver.getBacklog());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private AsyncReadResolver newResolver(int maxBacklog){
+        AsyncReadResolver resolver=new AsyncReadResolver(2,maxBacklog,1024,
+                mock(TxnSupplier.class),
+                new RollForwardStatus(),
+                GreenLight.INSTANCE,
+                TrafficShaping.fixedRateTrafficShaper(1<<16,1<<16,TimeUnit.SECONDS),
+                keyedResolver);
+        resolver.start();
+        return resolver;
+    }
+
+    private void waitForBatches(long numBatches) throws InterruptedException{
+        long deadline=System.currentTimeMillis()+10000;
+        while(asyncResolver.getTotalBatchesResolved()<numBatches){
+            Assert.assertTrue("Timed out waiting for resolution",System.currentTimeMillis()<deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static ByteSlice row(int i){
+        return ByteSlice.wrap(new byte[]{(byte)i});
+    }
+
+    private static class Call{
+        private final long txnId;
+        private final List<ByteSlice> rowKeys;
+
+        Call(long txnId,Collection<ByteSlice> rowKeys){
+            this.txnId=txnId;
+            this.rowKeys=new ArrayList<>(rowKeys);
+        }
+    }
+
+    /*
+     * Resolves everything it is given (except the unresolvable rows), but holds up the first call until released.
+     */
+    private static class BlockingResolver implements KeyedReadResolver{
+        private final CountDownLatch entered=new CountDownLatch(1);
+        private final CountDownLatch release=new CountDownLatch(1);
+        private final List<Call> calls=new ArrayList<>();
+        private final Set<ByteSlice> unresolvable=Collections.newSetFromMap(new ConcurrentHashMap<ByteSlice,Boolean>());
+
+        @Override
+        public boolean resolve(Partition region,ByteSlice rowKey,long txnId,TxnSupplier txnSupplier,
+                               RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            throw new UnsupportedOperationException("Rows should be resolved in bulk");
+        }
+
+        @Override
+        public List<ByteSlice> resolve(Partition region,long txnId,Collection<ByteSlice> rowKeys,TxnSupplier txnSupplier,
+                                       RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            synchronized(calls){
+                calls.add(new Call(txnId,rowKeys));
+            }
+            entered.countDown();
+            try{
+                release.await();
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                return Collections.emptyList();
+            }
+            List<ByteSlice> resolved=new ArrayList<>(rowKeys.size());
+            for(ByteSlice rowKey:rowKeys){
+                if(!unresolvable.contains(rowKey))
+                    resolved.add(rowKey);
+            }
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.timestamp.api.TimestampSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class TxnLowWatermarkTest{
+    private static final long RETENTION=1000L;
+
+    private IncrementingClock clock;
+    private TxnStore txnStore;
+    private TimestampSource timestampSource;
+    private ExceptionFactory exceptionFactory;
+
+    @Before
+    public void setUp() throws Exception{
+        clock=new IncrementingClock();
+        clock.increment(TimeUnit.SECONDS.toNanos(10));
+        txnStore=mock(TxnStore.class);
+        when(txnStore.getActiveTransactionIds(anyLong(),anyLong(),any(byte[].class))).thenReturn(new long[0]);
+        timestampSource=mock(TimestampSource.class);
+        when(timestampSource.nextTimestamp()).thenReturn(100L,200L,300L,400L);
+        exceptionFactory=mock(ExceptionFactory.class);
+        when(exceptionFactory.doNotRetry(anyString())).thenReturn(new IOException("snapshot too old"));
+    }
+
+    @Test
+    public void disabledWatermarkIsAlwaysZero() throws Exception{
+        TxnLowWatermark lwm=new TxnLowWatermark(txnStore,timestampSource,exceptionFactory,clock,false,RETENTION,0L);
+        Assert.assertEquals(0L,lwm.getLowWatermark());
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(2*RETENTION));
+        Assert.assertEquals(0L,lwm.getLowWatermark());
+    }
+
+    @Test
+    public void watermarkTrailsTimestampsByTheRetentionPeriod() throws Exception{
+        TxnLowWatermark lwm=new TxnLowWatermark(txnStore,timestampSource,exceptionFactory,clock,true,RETENTION,0L);
+        Assert.assertEquals("No timestamp is old enough yet",0L,lwm.getLowWatermark()); //samples 100
+
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION/2));
+        Assert.assertEquals("No timestamp is old enough yet",0L,lwm.getLowWatermark()); //samples 200
+
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION/2));
+        Assert.assertEquals(100L,lwm.getLowWatermark()); //samples 300
+
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION));
+        Assert.assertEquals("Should use the newest sample which is old enough",300L,lwm.getLowWatermark());
+    }
+
+    @Test
+    public void watermarkIsHeldBackByActiveTransactions() throws Exception{
+        when(txnStore.getActiveTransactionIds(anyLong(),anyLong(),any(byte[].class))).thenReturn(new long[]{50L,75L});
+        TxnLowWatermark lwm=new TxnLowWatermark(txnStore,timestampSource,exceptionFactory,clock,true,RETENTION,0L);
+        lwm.getLowWatermark();
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION));
+        Assert.assertEquals(50L,lwm.getLowWatermark());
+    }
+
+    @Test
+    public void watermarkIsCachedForTheRefreshInterval() throws Exception{
+        TxnLowWatermark lwm=new TxnLowWatermark(txnStore,timestampSource,exceptionFactory,clock,true,RETENTION,5*RETENTION);
+        lwm.getLowWatermark();
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION));
+        Assert.assertEquals("Should not have refreshed",0L,lwm.getLowWatermark());
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(4*RETENTION));
+        Assert.assertEquals(100L,lwm.getLowWatermark());
+    }
+
+    @Test
+    public void readersOlderThanThePurgedWatermarkAreFailed() throws Exception{
+        TxnLowWatermark lwm=new TxnLowWatermark(txnStore,timestampSource,exceptionFactory,clock,true,RETENTION,0L);
+        lwm.checkSnapshot(reader(50L,Txn.IsolationLevel.SNAPSHOT_ISOLATION)); //nothing purged yet
+        lwm.getLowWatermark();
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION));
+        Assert.assertEquals(100L,lwm.getLowWatermark());
+
+        lwm.checkSnapshot(reader(100L,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+        lwm.checkSnapshot(reader(50L,Txn.IsolationLevel.READ_COMMITTED));
+        lwm.checkSnapshot(Txn.ROOT_TRANSACTION);
+        try{
+            lwm.checkSnapshot(reader(50L,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+            Assert.fail("Allowed a reader whose snapshot may have been purged");
+        }catch(IOException expected){
+        }
+    }
+
+    @Test
+    public void readersAreCheckedAgainstTheHighestPurgedWatermark() throws Exception{
+        when(txnStore.getActiveTransactionIds(anyLong(),anyLong(),any(byte[].class)))
+                .thenReturn(new long[0])
+                .thenThrow(new IOException("boom"));
+        TxnLowWatermark lwm=new TxnLowWatermark(txnStore,timestampSource,exceptionFactory,clock,true,RETENTION,0L);
+        lwm.getLowWatermark();
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION));
+        Assert.assertEquals(100L,lwm.getLowWatermark());
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION));
+        Assert.assertEquals("Should not purge without the active transactions",0L,lwm.getLowWatermark());
+        try{
+            lwm.checkSnapshot(reader(50L,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+            Assert.fail("Versions purged by an earlier compaction are still gone");
+        }catch(IOException expected){
+        }
+    }
+
+    @Test
+    public void failureToReadActiveTransactionsDisablesPurging() throws Exception{
+        when(txnStore.getActiveTransactionIds(anyLong(),anyLong(),any(byte[].class))).thenThrow(new IOException("boom"));
+        TxnLowWatermark lwm=new TxnLowWatermark(txnStore,timestampSource,exceptionFactory,clock,true,RETENTION,0L);
+        lwm.getLowWatermark();
+        clock.increment(TimeUnit.MILLISECONDS.toNanos(RETENTION));
+        Assert.assertEquals(0L,lwm.getLowWatermark());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static TxnView reader(long beginTimestamp,Txn.IsolationLevel isolationLevel){
+        TxnView txn=mock(TxnView.class);
+        when(txn.getTxnId()).thenReturn(beginTimestamp);
+        when(txn.getEffectiveBeginTimestamp()).thenReturn(beginTimestamp);
+        when(txn.getIsolationLevel()).thenReturn(isolationLevel);
+        return txn;
+    }
+}
@@ -30,5 +30,21 @@ public interface TimestampClientStatistics{
 	long getNumberTimestampRequests();
 	
  	double getAvgTimestampRequestDuration();
+
+	/**
+	 * @return the number of batched requests sent to the timestamp server
+	 */
+	long getNumberTimestampBatches();
+
+	/**
+	 * @return the average number of timestamps requested from the server per batch
+	 */
+	double getAvgTimestampBatchSize();
+
+	/**
+	 * @return the number of timestamp requests which were coalesced into a batch
+	 * opened by another caller
+	 */
+	long getNumberCoalescedRequests();
 	
 }
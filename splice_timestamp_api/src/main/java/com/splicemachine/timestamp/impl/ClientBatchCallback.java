@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+/**
+ * A callback shared by all the callers whose timestamp requests have been coalesced
+ * into a single message to the server. Each caller is assigned a position within the
+ * batch, and receives the timestamp at that offset from the first timestamp returned.
+ * <p>
+ * Callers may only join the batch before it is sent; the TimestampClient guarantees
+ * this by only joining batches under its own lock.
+ */
+public class ClientBatchCallback extends ClientCallback {
+
+    private final int maxSize;
+    private int size = 0;
+
+    public ClientBatchCallback(short callerId, int maxSize) {
+        super(callerId);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the position of the new caller within this batch
+     */
+    public int join() {
+        assert size < maxSize: "Programmer error: joined a full batch";
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size >= maxSize;
+    }
+
+    public String toString() {
+        return "Batch" + super.toString() + "[size = " + size + "]";
+    }
+}
@@ -33,7 +33,6 @@ import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.concurrent.CountDownLatches;
-import com.splicemachine.timestamp.api.Callback;
 import com.splicemachine.timestamp.api.TimestampClientStatistics;
 import com.splicemachine.timestamp.api.TimestampHostProvider;
 import com.splicemachine.timestamp.api.TimestampIOException;
@@ -44,7 +43,6 @@ import org.sparkproject.jboss.netty.buffer.ChannelBuffer;
 import org.sparkproject.jboss.netty.buffer.ChannelBuffers;
 import org.sparkproject.jboss.netty.channel.*;
 import org.sparkproject.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
-import org.sparkproject.jboss.netty.handler.codec.frame.FixedLengthFrameDecoder;
 
 /**
  * Accepts concurrent requests for new transactional timestamps and
@@ -52,6 +50,13 @@ import org.sparkproject.jboss.netty.handler.codec.frame.FixedLengthFrameDecoder;
  * For the caller, the invocation of {@link #getNextTimestamp()}
  * is synchronous.
  * <p>
+ * Concurrent callers are coalesced into batches: a caller which arrives while
+ * the maximum number of requests are already outstanding joins the pending batch,
+ * and the whole batch is sent as a single request for that many timestamps once
+ * a response comes back. A batch of one is sent in the original single timestamp
+ * message, so that batching only needs the server's support when it actually coalesces
+ * callers (see {@link TimestampFrameDecoder}).
+ * <p>
  * This class should generally not be constructed directly.
  *
  * @author Walt Koetke
@@ -68,6 +73,17 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
      */
     private static final int FIXED_MSG_RECEIVED_LENGTH = 10; // 2 byte client id + 8 byte timestamp
 
+    /**
+     * Number of bytes in the response to a request for a batch of timestamps.
+     */
+    private static final int BATCH_MSG_RECEIVED_LENGTH = 12; // 2 byte client id + 8 byte first timestamp + 2 byte number of timestamps
+
+    /**
+     * The number of batches which may be outstanding at the server at the same time. Callers
+     * which arrive while this many batches are outstanding are coalesced into the next batch.
+     */
+    private static final int MAX_IN_FLIGHT_BATCHES = 2;
+
     private enum State {
         DISCONNECTED, CONNECTING, CONNECTED, SHUTDOWN
     }
@@ -76,7 +92,14 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
      * A map representing all currently active callers to this TimestampClient
      * waiting for their response.
      */
-    private ConcurrentMap<Short, Callback> clientCallbacks = null;
+    private ConcurrentMap<Short, ClientBatchCallback> clientCallbacks = null;
+
+    /*
+     * Guards the pending batch and the number of batches in flight.
+     */
+    private final Object batchLock = new Object();
+    private ClientBatchCallback pendingBatch;
+    private int inFlightBatches = 0;
 
     private final AtomicReference<State> state = new AtomicReference<>(State.DISCONNECTED);
 
@@ -89,24 +112,34 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
      * of {@link TimestampClient}. Necessary in order to subsequently associate
      * a server response with the original request. Although this is an atomic integer,
      * we consume it internally as a short so that we only pass two bytes (not four)
-     * over the wire.
+     * over the wire, and without the high bit, which marks a batch.
      */
     // We might even get away with using a byte here (256 concurrent client calls),
     // but use a short just in case.
     private AtomicInteger clientCallCounter = new AtomicInteger(CLIENT_COUNTER_INIT);
 
     int timeoutMillis;
+    private final int maxBatchSize;
 
     // Metrics to expose via JMX. See TimestampClientStatistics
     // for solid definitions of each metric.
     private AtomicLong numRequests = new AtomicLong(0);
     private AtomicLong totalRequestDuration = new AtomicLong(0);
+    private AtomicLong numBatches = new AtomicLong(0);
+    private AtomicLong numBatchedTimestamps = new AtomicLong(0);
+    private AtomicLong numCoalescedRequests = new AtomicLong(0);
     private TimestampHostProvider timestampHostProvider;
 
 
-    public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider) {
+    /**
+     * @param maxBatchSize the most callers which may be coalesced into one request. If this is 1, only single
+     *                     timestamps are ever requested, which servers that predate batching understand.
+     */
+    public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider,int maxBatchSize) {
         this.timeoutMillis = timeoutMillis;
         this.timestampHostProvider = timestampHostProvider;
+        // the number of timestamps requested must fit into the two bytes of the request
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, Short.MAX_VALUE));
         clientCallbacks = new ConcurrentHashMap<>();
 
         ExecutorService workerExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("timestampClient-worker-%d").setDaemon(true).build());
@@ -122,7 +155,8 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         // bootstrap.getPipeline().addLast("executor", new ExecutionHandler(
         // 	   new OrderedMemoryAwareThreadPoolExecutor(10 /* threads */, 1024*1024, 4*1024*1024)));
 
-        bootstrap.getPipeline().addLast("decoder", new FixedLengthFrameDecoder(FIXED_MSG_RECEIVED_LENGTH));
+        // the server only answers with a batch when we asked for one
+        bootstrap.getPipeline().addLast("decoder", new TimestampFrameDecoder(FIXED_MSG_RECEIVED_LENGTH, BATCH_MSG_RECEIVED_LENGTH, true));
         bootstrap.getPipeline().addLast("handler", this);
 
         bootstrap.setOption("tcpNoDelay", false);
@@ -213,94 +247,211 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         long requestStartTime = System.currentTimeMillis();
 
         connectIfNeeded();
+        long timestamp = requestTimestamp();
+
+        // Since request was successful, update JMX metrics
+        numRequests.incrementAndGet();
+        totalRequestDuration.addAndGet(System.currentTimeMillis() - requestStartTime);
+
+        return timestamp;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        ChannelBuffer buf = (ChannelBuffer) e.getMessage();
+        assert (buf != null);
+        short rawCallerId = buf.getShort(buf.readerIndex());
+        boolean batch = TimestampFrameDecoder.isBatch(rawCallerId);
+        ensureReadableBytes(buf, batch ? BATCH_MSG_RECEIVED_LENGTH : FIXED_MSG_RECEIVED_LENGTH);
+
+        short clientCallerId = (short) (buf.readShort() & ~TimestampFrameDecoder.BATCH_FLAG);
+        ensureReadableBytes(buf, batch ? 10 : 8);
+
+        long timestamp = buf.readLong();
+        assert (timestamp > 0);
+        short count = batch ? buf.readShort() : 1;
+        ensureReadableBytes(buf, 0);
 
-        short clientCallId = (short) clientCallCounter.getAndIncrement();
-        final ClientCallback callback = new ClientCallback(clientCallId);
-        SpliceLogUtils.debug(LOG, "Starting new client call with id %s", clientCallId);
+        SpliceLogUtils.debug(LOG, "Response from server: clientCallerId = %s, timestamp = %s, count = %s", clientCallerId, timestamp, count);
+        ClientBatchCallback cb;
+        ClientBatchCallback toSend = null;
+        synchronized (batchLock) {
+            cb = clientCallbacks.remove(clientCallerId);
+            if (cb != null) {
+                inFlightBatches--;
+                toSend = nextPendingBatch();
+            }
+        }
+        if (cb == null) {
+            doClientErrorThrow(LOG, "Client callback with id %s not found, so unable to deliver timestamp %s", null, clientCallerId, timestamp);
+        }
 
-        // Add this caller (id and callback) to the map of current clients.
-        // If an entry was already present for this caller id, that is a bug,
-        // so throw an exception.
-        if (clientCallbacks.putIfAbsent(clientCallId, callback) != null) {
-            doClientErrorThrow(LOG, "Found existing client callback with caller id %s, so unable to handle new call.", null, clientCallId);
+        // This releases the latch the original client threads are waiting for
+        // (to provide the synchronous behavior for those callers) and also
+        // provides the first timestamp of the batch.
+        if (count == cb.size()) {
+            cb.complete(timestamp);
+        } else {
+            cb.error(new TimestampIOException("Received " + count + " timestamps for " + cb));
         }
 
-        try {
-            ChannelBuffer buffer = ChannelBuffers.buffer(2);
-            buffer.writeShort(clientCallId);
-            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", callback);
-            ChannelFuture futureWrite = channel.write(buffer);
-            futureWrite.addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws Exception {
-                    if (!future.isSuccess()) {
-                        doClientErrorThrow(LOG, "Error writing message from timestamp client to server", future.getCause());
-                    } else {
-                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", callback);
-                    }
-                }
-            });
-        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
-            clientCallbacks.remove(clientCallId);
-            callback.error(e);
-            doClientErrorThrow(LOG, "Exception writing message to timestamp server for client: %s", e, callback);
+        if (toSend != null) {
+            sendBatch(toSend);
         }
 
-        // If we get here, request was successfully sent without exception.
-        // However, we might not have received response yet, so we need to
-        // wait for that now.
+        super.messageReceived(ctx, e);
+    }
 
+    private long requestTimestamp() throws TimestampIOException {
+        ClientBatchCallback batch;
+        int position;
+        boolean send = false;
+        synchronized (batchLock) {
+            batch = pendingBatch;
+            if (batch == null) {
+                batch = new ClientBatchCallback(nextCallerId(), maxBatchSize);
+                pendingBatch = batch;
+            } else {
+                numCoalescedRequests.incrementAndGet();
+            }
+            position = batch.join();
+            if (inFlightBatches < MAX_IN_FLIGHT_BATCHES || batch.isFull()) {
+                pendingBatch = null;
+                inFlightBatches++;
+                send = true;
+            }
+        }
+        SpliceLogUtils.debug(LOG, "Joined client call %s at position %s", batch, position);
+        if (send) {
+            sendBatch(batch);
+        }
+
+        // We might not have received the response yet, so we need to wait for that now.
         try {
-            boolean success = callback.await(timeoutMillis);
+            boolean success = batch.await(timeoutMillis);
             if (!success) {
-                doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, callback);
+                abandonBatch(batch);
+                doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, batch);
             }
         } catch (InterruptedException e) {
-            doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, callback);
+            doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, batch);
         }
 
-        // If we get here, it should mean the client received the response with the timestamp,
+        // If we get here, it should mean the client received the response with the timestamps,
         // which we can fetch now from the callback and send it back to the caller.
-
-        long timestamp = callback.getNewTimestamp();
+        long timestamp = batch.getNewTimestamp();
         if (timestamp < 0) {
-            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", null, callback);
+            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", batch.getException(), batch);
         }
 
-        SpliceLogUtils.debug(LOG, "Client call complete: %s", callback);
-
-        // Since request was successful, update JMX metrics
-        numRequests.incrementAndGet();
-        totalRequestDuration.addAndGet(System.currentTimeMillis() - requestStartTime);
+        SpliceLogUtils.debug(LOG, "Client call complete: %s", batch);
+        return timestamp + position;
+    }
 
-        return timestamp;
+    private short nextCallerId() {
+        return (short) (clientCallCounter.getAndIncrement() & ~TimestampFrameDecoder.BATCH_FLAG);
     }
 
-    @Override
-    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
-        ChannelBuffer buf = (ChannelBuffer) e.getMessage();
-        assert (buf != null);
-        ensureReadableBytes(buf, FIXED_MSG_RECEIVED_LENGTH);
+    /**
+     * Must be called while holding the batch lock.
+     *
+     * @return the pending batch, now accounted as in flight, or {@code null} if there is none
+     */
+    private ClientBatchCallback nextPendingBatch() {
+        ClientBatchCallback batch = pendingBatch;
+        if (batch != null) {
+            pendingBatch = null;
+            inFlightBatches++;
+        }
+        return batch;
+    }
 
-        short clientCallerId = buf.readShort();
-        ensureReadableBytes(buf, 8);
+    private void sendBatch(final ClientBatchCallback batch) {
+        short clientCallId = batch.getCallerId();
 
-        long timestamp = buf.readLong();
-        assert (timestamp > 0);
-        ensureReadableBytes(buf, 0);
+        // Add this batch (id and callback) to the map of current clients.
+        // If an entry was already present for this caller id, that is a bug.
+        if (clientCallbacks.putIfAbsent(clientCallId, batch) != null) {
+            ClientBatchCallback toSend;
+            synchronized (batchLock) {
+                inFlightBatches--;
+                toSend = nextPendingBatch();
+            }
+            batch.error(new TimestampIOException("Found existing client callback with caller id " + clientCallId + ", so unable to handle new call."));
+            if (toSend != null) sendBatch(toSend);
+            return;
+        }
 
-        SpliceLogUtils.debug(LOG, "Response from server: clientCallerId = %s, timestamp = %s", clientCallerId, timestamp);
-        Callback cb = clientCallbacks.remove(clientCallerId);
-        if (cb == null) {
-            doClientErrorThrow(LOG, "Client callback with id %s not found, so unable to deliver timestamp %s", null, clientCallerId, timestamp);
+        short count = (short) batch.size();
+        numBatches.incrementAndGet();
+        numBatchedTimestamps.addAndGet(count);
+        try {
+            Channel c = channel;
+            if (c == null) {
+                throw new TimestampIOException("Not connected to the TimestampServer");
+            }
+            ChannelBuffer buffer;
+            if (count == 1) {
+                buffer = ChannelBuffers.buffer(2);
+                buffer.writeShort(clientCallId);
+            } else {
+                buffer = ChannelBuffers.buffer(4);
+                buffer.writeShort(clientCallId | TimestampFrameDecoder.BATCH_FLAG);
+                buffer.writeShort(count);
+            }
+            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", batch);
+            ChannelFuture futureWrite = c.write(buffer);
+            futureWrite.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (!future.isSuccess()) {
+                        SpliceLogUtils.error(LOG, "Error writing message from timestamp client to server", future.getCause());
+                        failBatch(batch, new TimestampIOException("Error writing message from timestamp client to server", future.getCause()));
+                    } else {
+                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", batch);
+                    }
+                }
+            });
+        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
+            SpliceLogUtils.error(LOG, "Exception writing message to timestamp server for client: %s", e, batch);
+            failBatch(batch, e);
         }
+    }
 
-        // This releases the latch the original client thread is waiting for
-        // (to provide the synchronous behavior for that caller) and also
-        // provides the timestamp.
-        cb.complete(timestamp);
+    /**
+     * Remove an in-flight batch which will never receive a response, and release its waiters.
+     */
+    private void failBatch(ClientBatchCallback batch, Exception e) {
+        ClientBatchCallback toSend = null;
+        synchronized (batchLock) {
+            if (clientCallbacks.remove(batch.getCallerId(), batch)) {
+                inFlightBatches--;
+                toSend = nextPendingBatch();
+            }
+        }
+        batch.error(e);
+        if (toSend != null) {
+            sendBatch(toSend);
+        }
+    }
 
-        super.messageReceived(ctx, e);
+    /**
+     * Forget about a batch whose callers have given up waiting on it, so that it
+     * no longer counts against the number of batches in flight.
+     */
+    private void abandonBatch(ClientBatchCallback batch) {
+        ClientBatchCallback toSend = null;
+        synchronized (batchLock) {
+            if (pendingBatch == batch) {
+                pendingBatch = null; // never sent
+            } else if (clientCallbacks.remove(batch.getCallerId(), batch)) {
+                inFlightBatches--;
+                toSend = nextPendingBatch();
+            }
+        }
+        if (toSend != null) {
+            sendBatch(toSend);
+        }
     }
 
     @Override
@@ -321,6 +472,10 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
             channel=null;
             shouldContinue = !state.compareAndSet(s,State.DISCONNECTED);
         }while(shouldContinue);
+        // Outstanding requests will never be answered, so release their callers now
+        for (ClientBatchCallback batch : clientCallbacks.values()) {
+            failBatch(batch, new TimestampIOException("TimestampClient was disconnected from the server"));
+        }
         connectIfNeeded();
     }
 
@@ -352,6 +507,23 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return a / b;
     }
 
+    @Override
+    public long getNumberTimestampBatches() {
+        return numBatches.get();
+    }
+
+    @Override
+    public double getAvgTimestampBatchSize() {
+        double a = (double) numBatchedTimestamps.get();
+        double b = (double) numBatches.get();
+        return a / b;
+    }
+
+    @Override
+    public long getNumberCoalescedRequests() {
+        return numCoalescedRequests.get();
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         if(state.get() != State.SHUTDOWN) {
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import org.sparkproject.jboss.netty.buffer.ChannelBuffer;
+import org.sparkproject.jboss.netty.channel.Channel;
+import org.sparkproject.jboss.netty.channel.ChannelHandlerContext;
+import org.sparkproject.jboss.netty.handler.codec.frame.FrameDecoder;
+
+/**
+ * Splits the stream of timestamp requests (on the server) or responses (on the client) into messages.
+ * <p>
+ * Messages come in two forms, told apart by the high bit of the caller id which leads every message. A single
+ * timestamp is requested with the original message of just the caller id, and answered with the original
+ * caller id and timestamp, so that servers and clients which predate batching can still talk to each other.
+ * A batch sets the high bit of the caller id, and adds the number of timestamps to both the request and the
+ * response.
+ * <p>
+ * Clients which predate batching use the whole range of caller ids, so batches are only recognized when
+ * {@code acceptBatches} is set, once every client has been upgraded.
+ */
+class TimestampFrameDecoder extends FrameDecoder {
+
+    static final short BATCH_FLAG = (short) 0x8000;
+
+    private final int singleLength;
+    private final int batchLength;
+    private final boolean acceptBatches;
+
+    TimestampFrameDecoder(int singleLength, int batchLength, boolean acceptBatches) {
+        this.singleLength = singleLength;
+        this.batchLength = batchLength;
+        this.acceptBatches = acceptBatches;
+    }
+
+    static boolean isBatch(short callerId) {
+        return (callerId & BATCH_FLAG) != 0;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer) throws Exception {
+        if (buffer.readableBytes() < 2) return null;
+        short callerId = buffer.getShort(buffer.readerIndex());
+        int length = acceptBatches && isBatch(callerId) ? batchLength : singleLength;
+        if (buffer.readableBytes() < length) return null;
+        return buffer.readBytes(length);
+    }
+}
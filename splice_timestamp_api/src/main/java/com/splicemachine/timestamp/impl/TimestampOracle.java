@@ -64,7 +64,7 @@ public class TimestampOracle implements TimestampOracleStatistics{
 		return to;
 	}
 	
-	private TimestampOracle(TimestampBlockManager timestampBlockManager, int blockSize) throws TimestampIOException {
+	TimestampOracle(TimestampBlockManager timestampBlockManager, int blockSize) throws TimestampIOException {
         this.timestampBlockManager=timestampBlockManager;
         this.blockSize = blockSize;
 		initialize();
@@ -88,23 +88,38 @@ public class TimestampOracle implements TimestampOracleStatistics{
     }
 
 	public long getNextTimestamp() throws TimestampIOException {
-		long nextTS = _timestampCounter.getAndIncrement();
-		long maxTS = _maxReservedTimestamp; // avoid the double volatile read
-		if (nextTS > maxTS) {
-			reserveNextBlock(maxTS);
+		return getNextTimestamps(1);
+	}
+
+	/**
+	 * Allocate {@code count} consecutive timestamps.
+	 *
+	 * @param count the number of timestamps to allocate
+	 * @return the first timestamp of the allocated range
+	 * @throws TimestampIOException if a new block could not be reserved
+	 */
+	public long getNextTimestamps(int count) throws TimestampIOException {
+		assert count>0: "Cannot allocate "+count+" timestamps";
+		long firstTS = _timestampCounter.getAndAdd(count);
+		long lastTS = firstTS+count-1;
+		if (lastTS > _maxReservedTimestamp) {
+			reserveBlocksThrough(lastTS);
 		}
-		_numTimestampsCreated.incrementAndGet(); // JMX metric
-		return nextTS;
+		_numTimestampsCreated.addAndGet(count); // JMX metric
+		return firstTS;
 	}
 
-    private void reserveNextBlock(long priorMaxReservedTimestamp) throws TimestampIOException {
+    private void reserveBlocksThrough(long timestamp) throws TimestampIOException {
         synchronized(this)  {
-            if (_maxReservedTimestamp > priorMaxReservedTimestamp) return; // some other thread got there first
-            long nextMax = _maxReservedTimestamp + blockSize;
-            timestampBlockManager.reserveNextBlock(nextMax);
-            _maxReservedTimestamp = nextMax;
-            _numBlocksReserved.incrementAndGet(); // JMX metric
-            SpliceLogUtils.debug(LOG, "Next timestamp block reserved with max = %s", _maxReservedTimestamp);
+            // some other thread may have already reserved far enough, but a large request may
+            // need more than one block
+            while (_maxReservedTimestamp < timestamp) {
+                long nextMax = _maxReservedTimestamp + blockSize;
+                timestampBlockManager.reserveNextBlock(nextMax);
+                _maxReservedTimestamp = nextMax;
+                _numBlocksReserved.incrementAndGet(); // JMX metric
+                SpliceLogUtils.debug(LOG, "Next timestamp block reserved with max = %s", _maxReservedTimestamp);
+            }
         }
 	}
 
@@ -21,7 +21,6 @@ import org.sparkproject.jboss.netty.channel.ChannelHandler;
 import org.sparkproject.jboss.netty.channel.ChannelPipeline;
 import org.sparkproject.jboss.netty.channel.ChannelPipelineFactory;
 import org.sparkproject.jboss.netty.channel.Channels;
-import org.sparkproject.jboss.netty.handler.codec.frame.FixedLengthFrameDecoder;
 
 public class TimestampPipelineFactoryLite implements ChannelPipelineFactory {
 
@@ -32,9 +31,15 @@ public class TimestampPipelineFactoryLite implements ChannelPipelineFactory {
     private static final Logger LOG = Logger.getLogger(TimestampPipelineFactoryLite.class);
 
     private ChannelHandler tsHandler = null;
+    private final boolean acceptBatches;
 
     public TimestampPipelineFactoryLite(ChannelHandler handler) {
+        this(handler,false);
+    }
+
+    public TimestampPipelineFactoryLite(ChannelHandler handler, boolean acceptBatches) {
         tsHandler = handler;
+        this.acceptBatches = acceptBatches;
     }
 
     @Override
@@ -42,7 +47,8 @@ public class TimestampPipelineFactoryLite implements ChannelPipelineFactory {
         SpliceLogUtils.debug(LOG, "Creating new channel pipeline...");
         ChannelPipeline pipeline = Channels.pipeline();
         ((TimestampServerHandler) tsHandler).initializeIfNeeded();
-        pipeline.addLast("decoder", new FixedLengthFrameDecoder(TimestampServer.FIXED_MSG_RECEIVED_LENGTH));
+        pipeline.addLast("decoder", new TimestampFrameDecoder(TimestampServer.FIXED_MSG_RECEIVED_LENGTH,
+                TimestampServer.BATCH_MSG_RECEIVED_LENGTH, acceptBatches));
         pipeline.addLast("handler", tsHandler);
         SpliceLogUtils.debug(LOG, "Done creating channel pipeline");
         return pipeline;
@@ -40,16 +40,36 @@ public class TimestampServer {
      */
     static final int FIXED_MSG_SENT_LENGTH = 10; // 2 byte client id + 8 byte timestamp
 
+    /**
+     * Number of bytes in a request for a batch of timestamps. See {@link TimestampFrameDecoder}.
+     */
+    static final int BATCH_MSG_RECEIVED_LENGTH = 4; // 2 byte client id + 2 byte number of timestamps
+
+    /**
+     * Number of bytes in the response to a request for a batch of timestamps.
+     */
+    static final int BATCH_MSG_SENT_LENGTH = 12; // 2 byte client id + 8 byte first timestamp + 2 byte number of timestamps
+
     private int port;
     private ChannelFactory factory;
     private Channel channel;
     private TimestampBlockManager timestampBlockManager;
     private int blockSize;
+    private boolean acceptBatches;
 
     public TimestampServer(int port, TimestampBlockManager timestampBlockManager, int blockSize) {
+        this(port,timestampBlockManager,blockSize,false);
+    }
+
+    /**
+     * @param acceptBatches whether clients may request batches of timestamps. This must only be set once
+     *                      every client has been upgraded to a version which knows about batches.
+     */
+    public TimestampServer(int port, TimestampBlockManager timestampBlockManager, int blockSize, boolean acceptBatches) {
         this.port = port;
         this.timestampBlockManager=timestampBlockManager;
         this.blockSize = blockSize;
+        this.acceptBatches = acceptBatches;
     }
 
     public void startServer() {
@@ -74,7 +94,7 @@ public class TimestampServer {
         //     Executors.defaultThreadFactory());
         // bootstrap.setPipelineFactory(new TimestampPipelineFactory(pipelineExecutor, handler));
 
-        bootstrap.setPipelineFactory(new TimestampPipelineFactoryLite(handler));
+        bootstrap.setPipelineFactory(new TimestampPipelineFactoryLite(handler,acceptBatches));
 
         bootstrap.setOption("tcpNoDelay", false);
         // bootstrap.setOption("child.sendBufferSize", 1048576);
@@ -57,13 +57,23 @@ public class TimestampServerHandler extends TimestampBaseHandler {
 
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();
         assert buf != null;
-        ensureReadableBytes(buf, TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+        // the frame decoder only hands us batch requests once batches are accepted
+        final boolean batch = buf.readableBytes() == TimestampServer.BATCH_MSG_RECEIVED_LENGTH;
+        ensureReadableBytes(buf, batch ? TimestampServer.BATCH_MSG_RECEIVED_LENGTH : TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
 
         final short callerId = buf.readShort();
+        short count = 1;
+        if (batch) {
+            ensureReadableBytes(buf, 2);
+            count = buf.readShort();
+            if (count <= 0) {
+                throw new TimestampIOException("Invalid number of timestamps " + count + " requested by caller id " + callerId);
+            }
+        }
         ensureReadableBytes(buf, 0);
 
-        SpliceLogUtils.trace(LOG, "Received timestamp request from client. Caller id = %s", callerId);
-        long nextTimestamp = oracle.getNextTimestamp();
+        SpliceLogUtils.trace(LOG, "Received request for %s timestamps from client. Caller id = %s", count, callerId);
+        long nextTimestamp = oracle.getNextTimestamps(count);
         assert nextTimestamp > 0;
 
 
@@ -71,10 +81,13 @@ public class TimestampServerHandler extends TimestampBaseHandler {
         // Respond to the client
         //
 
-        ChannelBuffer writeBuf = ChannelBuffers.buffer(TimestampServer.FIXED_MSG_SENT_LENGTH);
+        ChannelBuffer writeBuf = ChannelBuffers.buffer(batch ? TimestampServer.BATCH_MSG_SENT_LENGTH : TimestampServer.FIXED_MSG_SENT_LENGTH);
         writeBuf.writeShort(callerId);
         writeBuf.writeLong(nextTimestamp);
-        SpliceLogUtils.debug(LOG, "Responding to caller %s with timestamp %s", callerId, nextTimestamp);
+        if (batch) {
+            writeBuf.writeShort(count);
+        }
+        SpliceLogUtils.debug(LOG, "Responding to caller %s with %s timestamps starting at %s", callerId, count, nextTimestamp);
         ChannelFuture futureResponse = e.getChannel().write(writeBuf); // Could also use Channels.write
         futureResponse.addListener(new ChannelFutureListener() {
                                        @Override
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampBlockManager;
+import com.splicemachine.timestamp.api.TimestampHostProvider;
+import com.splicemachine.timestamp.api.TimestampIOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TimestampClientTest {
+    private static final int TIMEOUT_MILLIS = 60000;
+
+    @Test
+    public void coalescesConcurrentCallersIntoBatches() throws Exception {
+        TimestampServer server = startServer(true);
+        TimestampClient client = new TimestampClient(TIMEOUT_MILLIS, hostProvider(server.getPortNumber()), 64);
+        try {
+            requestConcurrently(client, 16, 200);
+            Assert.assertEquals("Every request should either open a batch or join one",
+                    client.getNumberTimestampRequests(),
+                    client.getNumberTimestampBatches() + client.getNumberCoalescedRequests());
+        } finally {
+            client.shutdown();
+            server.stopServer();
+        }
+    }
+
+    @Test
+    public void doesNotBatchWhenBatchingIsDisabled() throws Exception {
+        TimestampServer server = startServer(false);
+        TimestampClient client = new TimestampClient(TIMEOUT_MILLIS, hostProvider(server.getPortNumber()), 1);
+        try {
+            requestConcurrently(client, 8, 100);
+            Assert.assertEquals("Coalesced requests with batching disabled", 0, client.getNumberCoalescedRequests());
+            Assert.assertEquals("Every request should be sent on its own",
+                    client.getNumberTimestampRequests(), client.getNumberTimestampBatches());
+        } finally {
+            client.shutdown();
+            server.stopServer();
+        }
+    }
+
+    @Test
+    public void answersSingleRequestsInTheOriginalFormat() throws Exception {
+        // clients which predate batching use every caller id, including those with the high bit set
+        TimestampServer server = startServer(false);
+        try (Socket socket = new Socket("localhost", server.getPortNumber())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (short callerId : new short[]{ 12, -12 }) {
+                out.writeShort(callerId);
+                out.flush();
+                Assert.assertEquals("Incorrect caller id", callerId, in.readShort());
+                Assert.assertTrue("Invalid timestamp", in.readLong() > 0);
+            }
+        } finally {
+            server.stopServer();
+        }
+    }
+
+    @Test
+    public void answersBatchRequestsWithARange() throws Exception {
+        TimestampServer server = startServer(true);
+        try (Socket socket = new Socket("localhost", server.getPortNumber())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            short batchId = (short) (7 | TimestampFrameDecoder.BATCH_FLAG);
+            out.writeShort(batchId);
+            out.writeShort(5);
+            out.flush();
+            Assert.assertEquals("Incorrect caller id", batchId, in.readShort());
+            long first = in.readLong();
+            Assert.assertEquals("Incorrect number of timestamps", 5, in.readShort());
+
+            out.writeShort(8);
+            out.flush();
+            Assert.assertEquals("Incorrect caller id", 8, in.readShort());
+            Assert.assertEquals("Single timestamp should follow the range", first + 5, in.readLong());
+        } finally {
+            server.stopServer();
+        }
+    }
+
+    @Test
+    public void failsWaitingCallersWhenDisconnected() throws Exception {
+        FakeServer server = new FakeServer(false);
+        final TimestampClient client = new TimestampClient(TIMEOUT_MILLIS, hostProvider(server.getPort()), 8);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> caller = executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return client.getNextTimestamp();
+                }
+            });
+            Assert.assertTrue("Request never reached the server", server.received.await(10, TimeUnit.SECONDS));
+
+            server.disconnect();
+            try {
+                caller.get(10, TimeUnit.SECONDS);
+                Assert.fail("Received a timestamp which was never sent");
+            } catch (ExecutionException ee) {
+                Assert.assertTrue("Unexpected error " + ee.getCause(), ee.getCause() instanceof TimestampIOException);
+            }
+        } finally {
+            executor.shutdownNow();
+            client.shutdown();
+            server.close();
+        }
+    }
+
+    @Test
+    public void timedOutBatchesNoLongerCountAsInFlight() throws Exception {
+        FakeServer server = new FakeServer(false);
+        TimestampClient client = new TimestampClient(200, hostProvider(server.getPort()), 8);
+        try {
+            // more timed out requests than may be in flight at once
+            for (int i = 0; i < 3; i++) {
+                try {
+                    client.getNextTimestamp();
+                    Assert.fail("Received a timestamp which was never sent");
+                } catch (TimestampIOException expected) {
+                }
+            }
+
+            server.answering.set(true);
+            Assert.assertTrue("Invalid timestamp", client.getNextTimestamp() > 0);
+        } finally {
+            client.shutdown();
+            server.close();
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static TimestampServer startServer(boolean acceptBatches) throws IOException {
+        TimestampServer server = new TimestampServer(freePort(), new InMemoryBlockManager(), 1000, acceptBatches);
+        server.startServer();
+        return server;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static TimestampHostProvider hostProvider(final int port) {
+        return new TimestampHostProvider() {
+            @Override
+            public String getHost() {
+                return "localhost";
+            }
+
+            @Override
+            public int getPort() {
+                return port;
+            }
+        };
+    }
+
+    private static void requestConcurrently(final TimestampClient client, int threads, final int requestsPerThread) throws Exception {
+        final Set<Long> timestamps = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        long previous = 0L;
+                        for (int j = 0; j < requestsPerThread; j++) {
+                            long timestamp = client.getNextTimestamp();
+                            Assert.assertTrue("Timestamps went backwards: " + previous + " then " + timestamp, timestamp > previous);
+                            Assert.assertTrue("Timestamp " + timestamp + " was handed out twice", timestamps.add(timestamp));
+                            previous = timestamp;
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals("Incorrect number of timestamps", threads * requestsPerThread, timestamps.size());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+    private static class InMemoryBlockManager implements TimestampBlockManager {
+        private long maxReserved = 0L;
+
+        @Override
+        public synchronized void reserveNextBlock(long nextMaxReserved) {
+            maxReserved = nextMaxReserved;
+        }
+
+        @Override
+        public synchronized long initialize() {
+            return maxReserved;
+        }
+    }
+
+    /**
+     * A server which speaks the single timestamp protocol, but only answers once told to.
+     */
+    private static class FakeServer implements Closeable {
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final AtomicBoolean answering;
+        private final CountDownLatch received = new CountDownLatch(1);
+        private volatile Socket socket;
+
+        FakeServer(boolean answering) throws IOException {
+            this.answering = new AtomicBoolean(answering);
+            Thread acceptor = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            serve(serverSocket.accept());
+                        }
+                    } catch (IOException ignored) {
+                        // the server was closed
+                    }
+                }
+            }, "fakeTimestampServer");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void disconnect() throws IOException {
+            socket.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            if (socket != null) socket.close();
+        }
+
+        private void serve(Socket s) {
+            socket = s;
+            long nextTimestamp = 1L;
+            try {
+                DataInputStream in = new DataInputStream(s.getInputStream());
+                DataOutputStream out = new DataOutputStream(s.getOutputStream());
+                while (true) {
+                    short callerId = in.readShort();
+                    received.countDown();
+                    if (answering.get()) {
+                        out.writeShort(callerId);
+                        out.writeLong(nextTimestamp++);
+                        out.flush();
+                    }
+                }
+            } catch (IOException ignored) {
+                // the client went away, or we disconnected it
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampBlockManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimestampOracleTest {
+
+    @Test
+    public void handsOutConsecutiveRanges() throws Exception {
+        TimestampOracle oracle = new TimestampOracle(new InMemoryBlockManager(), 100);
+
+        long first = oracle.getNextTimestamps(5);
+        Assert.assertEquals("Incorrect start of the second range", first + 5, oracle.getNextTimestamps(3));
+        Assert.assertEquals("Incorrect single timestamp after the ranges", first + 8, oracle.getNextTimestamp());
+        Assert.assertEquals("Incorrect number of timestamps created", 9, oracle.getNumberTimestampsCreated());
+    }
+
+    @Test
+    public void reservesAsManyBlocksAsARangeNeeds() throws Exception {
+        InMemoryBlockManager blockManager = new InMemoryBlockManager();
+        TimestampOracle oracle = new TimestampOracle(blockManager, 10);
+
+        long first = oracle.getNextTimestamps(35);
+        Assert.assertTrue("Handed out timestamps which were not reserved", blockManager.maxReserved >= first + 34);
+        Assert.assertEquals("Incorrect number of blocks reserved", 4, oracle.getNumberBlocksReserved());
+
+        Assert.assertEquals("Incorrect timestamp after the range", first + 35, oracle.getNextTimestamp());
+        Assert.assertEquals("Reserved a block which was not needed", 4, oracle.getNumberBlocksReserved());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+    private static class InMemoryBlockManager implements TimestampBlockManager {
+        private long maxReserved = 0L;
+
+        @Override
+        public void reserveNextBlock(long nextMaxReserved) {
+            maxReserved = nextMaxReserved;
+        }
+
+        @Override
+        public long initialize() {
+            return maxReserved;
+        }
+    }
+}
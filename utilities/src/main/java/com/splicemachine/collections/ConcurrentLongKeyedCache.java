@@ -0,0 +1,296 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.collections;
+
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.HashFunctions;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe Cache that is keyed by a primitive long.
+ *
+ * The cache is split into a fixed number of independent stripes. Each stripe is a linear-probing
+ * hash table over a {@code long[]} of keys and a parallel array of values, so neither lookups nor inserts
+ * box their keys or allocate entry objects. A stripe is guarded by a {@link StampedLock}: writers take the
+ * write lock, while readers probe the arrays under an optimistic stamp and only fall back to the read lock
+ * when a write raced with them. In the common case, then, a read neither blocks nor allocates.
+ *
+ * Like {@link LongKeyedCache}, this implementation does not resize its arrays. Each stripe is sized
+ * up front to hold its share of {@code maxSize} at a load factor of at most 0.5. Once a stripe is full,
+ * entries are evicted using the CLOCK approximation of LRU: each entry carries a reference bit which is
+ * set whenever it is read, and the clock hand evicts the first entry it reaches whose bit is clear,
+ * clearing the bits of entries that it passes over.
+ *
+ * Null values are not permitted.
+ */
+public class ConcurrentLongKeyedCache<T>{
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private final int maxSize;
+    private final Hash32 hashFunction=HashFunctions.murmur3(0);
+
+    private final LongAdder hits=new LongAdder();
+    private final LongAdder misses=new LongAdder();
+
+    public ConcurrentLongKeyedCache(int maxSize,int concurrencyLevel){
+        int numStripes=1;
+        while(numStripes<concurrencyLevel){
+            numStripes<<=1;
+        }
+        int stripeSize=Math.max(1,(maxSize+numStripes-1)/numStripes);
+        this.stripes=new Stripe[numStripes];
+        for(int i=0;i<numStripes;i++){
+            stripes[i]=new Stripe(stripeSize);
+        }
+        //the high bits of the hash pick the stripe, the low bits the position within it
+        this.stripeShift=32-Integer.numberOfTrailingZeros(numStripes);
+        this.maxSize=stripeSize*numStripes;
+    }
+
+    /**
+     * @param key the key to lookup
+     * @return the element attached to the specified key, or {@code null} if no element with
+     * {@code key} is present in the cache
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long key){
+        int hash=hashFunction.hash(key);
+        Object value=stripeFor(hash).get(key,hash);
+        if(value!=null)
+            hits.increment();
+        else
+            misses.increment();
+        return (T)value;
+    }
+
+    /**
+     * Add the specified element to the cache, evicting another entry if necessary.
+     *
+     * @param key the key of the element
+     * @param value the element to cache.
+     */
+    public void put(long key,T value){
+        assert value!=null: "Cannot cache null values";
+        int hash=hashFunction.hash(key);
+        stripeFor(hash).put(key,hash,value);
+    }
+
+    /**
+     * Remove the element attached to the specified key, if there is one.
+     *
+     * @param key the key of the element
+     */
+    public void remove(long key){
+        int hash=hashFunction.hash(key);
+        stripeFor(hash).remove(key,hash);
+    }
+
+    /**
+     * @return an estimate of the number of entries in the cache. Because the stripes are
+     * not locked together, the value may be stale by the time it is returned.
+     */
+    public int size(){
+        int size=0;
+        for(Stripe stripe:stripes){
+            size+=stripe.size;
+        }
+        return size;
+    }
+
+    public int getMaxSize(){
+        return maxSize;
+    }
+
+    public long getHitCount(){
+        return hits.sum();
+    }
+
+    public long getMissCount(){
+        return misses.sum();
+    }
+
+    public long getEvictionCount(){
+        long evictions=0;
+        for(Stripe stripe:stripes){
+            evictions+=stripe.evictions;
+        }
+        return evictions;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private Stripe stripeFor(int hash){
+        if(stripes.length==1) return stripes[0]; //an int shift by 32 would be a no-op
+        return stripes[hash>>>stripeShift];
+    }
+
+    private static final class Stripe{
+        private final StampedLock lock=new StampedLock();
+        private final long[] keys;
+        private final int[] hashes;
+        private final Object[] values; //a null value marks an empty slot
+        private final byte[] referenced;
+        private final int mask;
+        private final int maxEntries;
+
+        private volatile int size;
+        private volatile long evictions;
+        private int clockHand;
+
+        Stripe(int maxEntries){
+            int capacity=1;
+            while(capacity<2*maxEntries){
+                capacity<<=1;
+            }
+            this.keys=new long[capacity];
+            this.hashes=new int[capacity];
+            this.values=new Object[capacity];
+            this.referenced=new byte[capacity];
+            this.mask=capacity-1;
+            this.maxEntries=maxEntries;
+        }
+
+        Object get(long key,int hash){
+            long stamp=lock.tryOptimisticRead();
+            if(stamp!=0L){
+                int pos=find(key,hash);
+                Object value=pos<0?null:values[pos];
+                if(lock.validate(stamp)){
+                    /*
+                     * The reference bit is only a hint to the clock, so it's fine that we
+                     * set it without holding the lock
+                     */
+                    if(pos>=0) referenced[pos]=1;
+                    return value;
+                }
+            }
+            //a writer raced with us, so read under the lock instead
+            stamp=lock.readLock();
+            try{
+                int pos=find(key,hash);
+                if(pos<0) return null;
+                referenced[pos]=1;
+                return values[pos];
+            }finally{
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("NonAtomicOperationOnVolatileField") //only modified under the write lock
+        void put(long key,int hash,Object value){
+            long stamp=lock.writeLock();
+            try{
+                int pos=hash&mask;
+                while(values[pos]!=null){
+                    if(keys[pos]==key){
+                        values[pos]=value;
+                        referenced[pos]=1;
+                        return;
+                    }
+                    pos=(pos+1)&mask;
+                }
+                if(size>=maxEntries){
+                    evict();
+                    //the eviction may have shifted entries around, so find our slot again
+                    pos=hash&mask;
+                    while(values[pos]!=null){
+                        pos=(pos+1)&mask;
+                    }
+                }
+                keys[pos]=key;
+                hashes[pos]=hash;
+                values[pos]=value;
+                //new entries must be read again before the clock spares them, so one-off lookups can't flush hot ones
+                referenced[pos]=0;
+                size++;
+            }finally{
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long key,int hash){
+            long stamp=lock.writeLock();
+            try{
+                int pos=find(key,hash);
+                if(pos>=0) remove(pos);
+            }finally{
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /*
+         * Probes for the key. Under an optimistic read, the arrays may be modified while we probe,
+         * but since they never change size, the worst we can do is return a bad position, which the caller
+         * then discards when the stamp fails to validate.
+         */
+        private int find(long key,int hash){
+            int pos=hash&mask;
+            for(int i=0;i<=mask;i++){
+                if(values[pos]==null) return -1;
+                if(keys[pos]==key) return pos;
+                pos=(pos+1)&mask;
+            }
+            return -1;
+        }
+
+        @SuppressWarnings("NonAtomicOperationOnVolatileField") //only modified under the write lock
+        private void evict(){
+            /*
+             * Since the stripe is full, this terminates in at most two sweeps of the clock: the
+             * first sweep clears every reference bit that it passes.
+             */
+            while(true){
+                int pos=clockHand;
+                clockHand=(clockHand+1)&mask;
+                if(values[pos]==null) continue;
+                if(referenced[pos]!=0){
+                    referenced[pos]=0;
+                    continue;
+                }
+                remove(pos);
+                evictions++;
+                return;
+            }
+        }
+
+        @SuppressWarnings("NonAtomicOperationOnVolatileField") //only modified under the write lock
+        private void remove(int pos){
+            /*
+             * Backward-shift deletion: move later entries of the probe sequence into the hole
+             * so that lookups never need tombstones.
+             */
+            int hole=pos;
+            int next=(hole+1)&mask;
+            while(values[next]!=null){
+                int home=hashes[next]&mask;
+                if(((next-home)&mask)>=((next-hole)&mask)){
+                    //the entry at next can legally live in the hole
+                    keys[hole]=keys[next];
+                    hashes[hole]=hashes[next];
+                    values[hole]=values[next];
+                    referenced[hole]=referenced[next];
+                    hole=next;
+                }
+                next=(next+1)&mask;
+            }
+            values[hole]=null;
+            referenced[hole]=0;
+            size--;
+        }
+    }
+}
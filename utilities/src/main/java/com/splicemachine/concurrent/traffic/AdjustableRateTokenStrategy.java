@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.splicemachine.concurrent.traffic;
+
+/**
+ * A TokenStrategy which generates tokens at a constant rate that may be changed at any time, so that
+ * a TokenBucket can be sped up or slowed down in response to feedback from the resource it protects.
+ *
+ * A change in rate applies to all tokens added after it is made.
+ */
+public class AdjustableRateTokenStrategy implements TokenBucket.TokenStrategy{
+    private volatile int tokensPerSecond;
+
+    public AdjustableRateTokenStrategy(int tokensPerSecond){
+        setTokensPerSecond(tokensPerSecond);
+    }
+
+    public int getTokensPerSecond(){
+        return tokensPerSecond;
+    }
+
+    public void setTokensPerSecond(int tokensPerSecond){
+        if(tokensPerSecond<1) throw new IllegalArgumentException("Cannot generate fewer than 1 token per second");
+        this.tokensPerSecond=tokensPerSecond;
+    }
+
+    @Override
+    public int getTokensAdded(long timeDiffMs){
+        long tokens=timeDiffMs*tokensPerSecond/1000;
+        if(tokens>Integer.MAX_VALUE)
+            return Integer.MAX_VALUE;
+        return (int)tokens;
+    }
+
+    @Override
+    public long estimateNanos(int tokensDesired){
+        return tokensDesired*1000000000L/tokensPerSecond;
+    }
+
+    @Override
+    public long minWaitTimeNanos(){
+        return 1000000000L/tokensPerSecond;
+    }
+}
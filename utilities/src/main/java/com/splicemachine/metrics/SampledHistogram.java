@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A histogram of long values, which keeps the exact count, total, minimum and maximum of the values it sees,
+ * and estimates their percentiles from a fixed-size uniform sample of them (reservoir sampling).
+ *
+ * Not thread-safe.
+ */
+public final class SampledHistogram{
+    private final long[] samples;
+    private final Random random=new Random(System.nanoTime());
+    private long count;
+    private long total;
+    private long min=Long.MAX_VALUE;
+    private long max=Long.MIN_VALUE;
+
+    public SampledHistogram(int sampleSize){
+        assert sampleSize>0: "Sample size must be positive";
+        this.samples=new long[sampleSize];
+    }
+
+    public void update(long value){
+        if(value<min) min=value;
+        if(value>max) max=value;
+        total+=value;
+        if(count<samples.length)
+            samples[(int)count]=value;
+        else{
+            //keep the value with probability sampleSize/(count+1), replacing a random sample
+            long spot=(long)(random.nextDouble()*(count+1));
+            if(spot<samples.length)
+                samples[(int)spot]=value;
+        }
+        count++;
+    }
+
+    public long getCount(){
+        return count;
+    }
+
+    public long getMin(){
+        return count==0?0:min;
+    }
+
+    public long getMax(){
+        return count==0?0:max;
+    }
+
+    public double getMean(){
+        return count==0?0d:((double)total)/count;
+    }
+
+    /**
+     * @param percentile the percentile to estimate, between 0 and 1
+     * @return an estimate of the value at {@code percentile}, or 0 if no values have been recorded
+     */
+    public long getPercentile(double percentile){
+        int numSamples=(int)Math.min(count,samples.length);
+        if(numSamples==0) return 0;
+        long[] sorted=Arrays.copyOf(samples,numSamples);
+        Arrays.sort(sorted);
+        int pos=(int)Math.min(numSamples-1,Math.floor(percentile*numSamples));
+        return sorted[pos];
+    }
+
+    @Override
+    public String toString(){
+        return String.format("count=%d, min=%d, p50=%d, p90=%d, p99=%d, max=%d",
+                count,getMin(),getPercentile(0.5d),getPercentile(0.9d),getPercentile(0.99d),getMax());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for the ConcurrentLongKeyedCache.
+ */
+public class ConcurrentLongKeyedCacheTest{
+
+    @Test
+    public void testCanPutAndThenFetchFromEmptyCache() throws Exception{
+        ConcurrentLongKeyedCache<Long> cache=new ConcurrentLongKeyedCache<>(4,1);
+
+        cache.put(1l,1l);
+
+        Assert.assertEquals("incorrect size estimate!",1,cache.size());
+        Long elem=cache.get(1l);
+        Assert.assertEquals("Incorrect cache fetch!",1l,elem.longValue());
+        Assert.assertNull("Found a non-existent entry!",cache.get(2l));
+    }
+
+    @Test
+    public void testPuttingSameElementInTwiceReplacesEntry() throws Exception{
+        ConcurrentLongKeyedCache<Long> cache=new ConcurrentLongKeyedCache<>(4,1);
+
+        cache.put(1l,1l);
+        cache.put(1l,2l);
+
+        Assert.assertEquals("incorrect size estimate!",1,cache.size());
+        Assert.assertEquals("Incorrect cache fetch!",2l,cache.get(1l).longValue());
+    }
+
+    @Test
+    public void testRemovedEntriesAreGoneButTheirNeighboursAreNot() throws Exception{
+        //a single stripe with room for 16 entries, so that most keys share a probe sequence with another
+        ConcurrentLongKeyedCache<Long> cache=new ConcurrentLongKeyedCache<>(16,1);
+        for(long i=0;i<16;i++){
+            cache.put(i,i);
+        }
+        for(long i=0;i<16;i+=2){
+            cache.remove(i);
+        }
+        cache.remove(100l); //not present
+
+        Assert.assertEquals("incorrect size estimate!",8,cache.size());
+        for(long i=0;i<16;i++){
+            if(i%2==0)
+                Assert.assertNull("Found a removed entry!",cache.get(i));
+            else
+                Assert.assertEquals("Incorrect cache fetch!",i,cache.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void testEvictsEntriesAfterFilling() throws Exception{
+        ConcurrentLongKeyedCache<Long> cache=new ConcurrentLongKeyedCache<>(8,1);
+
+        for(long i=0;i<1024;i++){
+            cache.put(i,i);
+            //ensure that I can still get that element out
+            Long elem=cache.get(i);
+            Assert.assertEquals("Incorrect cache fetch!",i,elem.longValue());
+
+            if(i<8)
+                Assert.assertEquals("Cache size is incorrect!",i+1,cache.size());
+            else
+                Assert.assertEquals("Cache size is incorrect!",8,cache.size());
+        }
+        Assert.assertEquals("Incorrect eviction count!",1024-8,cache.getEvictionCount());
+    }
+
+    @Test
+    public void testFrequentlyReadEntriesAreNotEvicted() throws Exception{
+        ConcurrentLongKeyedCache<Long> cache=new ConcurrentLongKeyedCache<>(64,1);
+
+        cache.put(-1l,-1l);
+        for(long i=0;i<10000;i++){
+            cache.put(i,i);
+            Assert.assertNotNull("Hot entry was evicted after "+i+" inserts",cache.get(-1l));
+        }
+    }
+
+    @Test
+    public void testConcurrentReadsAndWritesNeverSeeWrongValues() throws Exception{
+        final ConcurrentLongKeyedCache<Long> cache=new ConcurrentLongKeyedCache<>(1024,8);
+        ExecutorService executor=Executors.newFixedThreadPool(4);
+        try{
+            List<Future<Void>> futures=new ArrayList<>();
+            for(int t=0;t<4;t++){
+                final long seed=t;
+                futures.add(executor.submit(new Callable<Void>(){
+                    @Override
+                    public Void call() throws Exception{
+                        Random random=new Random(seed);
+                        for(int i=0;i<200000;i++){
+                            long key=random.nextInt(4096);
+                            if((i&3)==0)
+                                cache.put(key,-key);
+                            else{
+                                Long value=cache.get(key);
+                                if(value!=null)
+                                    Assert.assertEquals("Incorrect value for key "+key,-key,value.longValue());
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for(Future<Void> future:futures){
+                future.get();
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        Assert.assertTrue("Cache exceeded its maximum size!",cache.size()<=cache.getMaxSize());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SampledHistogramTest{
+
+    @Test
+    public void emptyHistogramReportsZeros() throws Exception{
+        SampledHistogram histogram=new SampledHistogram(16);
+        Assert.assertEquals(0,histogram.getCount());
+        Assert.assertEquals(0,histogram.getMin());
+        Assert.assertEquals(0,histogram.getMax());
+        Assert.assertEquals(0d,histogram.getMean(),0d);
+        Assert.assertEquals(0,histogram.getPercentile(0.5d));
+    }
+
+    @Test
+    public void percentilesAreExactWhileEverythingFitsInTheSample() throws Exception{
+        SampledHistogram histogram=new SampledHistogram(100);
+        for(long i=100;i>=1;i--){
+            histogram.update(i);
+        }
+        Assert.assertEquals(100,histogram.getCount());
+        Assert.assertEquals(1,histogram.getMin());
+        Assert.assertEquals(100,histogram.getMax());
+        Assert.assertEquals(50.5d,histogram.getMean(),0d);
+        Assert.assertEquals(51,histogram.getPercentile(0.5d));
+        Assert.assertEquals(91,histogram.getPercentile(0.9d));
+        Assert.assertEquals(100,histogram.getPercentile(1d));
+    }
+
+    @Test
+    public void sampledPercentilesAreCloseAndExtremesAreExact() throws Exception{
+        SampledHistogram histogram=new SampledHistogram(1024);
+        for(long i=0;i<100000;i++){
+            histogram.update(i);
+        }
+        Assert.assertEquals(100000,histogram.getCount());
+        Assert.assertEquals(0,histogram.getMin());
+        Assert.assertEquals(99999,histogram.getMax());
+        Assert.assertEquals(49999.5d,histogram.getMean(),0d);
+        Assert.assertEquals(50000d,histogram.getPercentile(0.5d),10000d);
+        Assert.assertEquals(90000d,histogram.getPercentile(0.9d),10000d);
+    }
+}